@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.cache;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures memory cache lookups and additions while several threads share one cache, as the render thread, the
+ * retrieval threads and terrain intersection workers do. The cache is sized to hold about half of the key space so
+ * that additions regularly trigger eviction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class MemoryCacheBenchmark
+{
+    protected static final int NUM_KEYS = 1 << 16;
+    protected static final long ENTRY_SIZE = 1000;
+
+    @Param({"gov.nasa.worldwind.cache.BasicMemoryCache", "gov.nasa.worldwind.cache.ConcurrentMemoryCache"})
+    public String cacheClassName;
+
+    protected MemoryCache cache;
+    protected Object value = new Object();
+
+    @Setup
+    public void setup() throws Exception
+    {
+        long capacity = NUM_KEYS / 2 * ENTRY_SIZE;
+        this.cache = (MemoryCache) Class.forName(this.cacheClassName).getConstructor(long.class, long.class)
+            .newInstance((long) (0.85 * capacity), capacity);
+
+        for (int i = 0; i < NUM_KEYS / 2; i++)
+        {
+            this.cache.add(i, this.value, ENTRY_SIZE);
+        }
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(3)
+    public Object readMostlyGet()
+    {
+        return this.cache.getObject(ThreadLocalRandom.current().nextInt(NUM_KEYS));
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public boolean readMostlyAdd()
+    {
+        return this.cache.add(ThreadLocalRandom.current().nextInt(NUM_KEYS), this.value, ENTRY_SIZE);
+    }
+
+    @Benchmark
+    public Object get()
+    {
+        return this.cache.getObject(ThreadLocalRandom.current().nextInt(NUM_KEYS));
+    }
+
+    @Benchmark
+    public boolean add()
+    {
+        return this.cache.add(ThreadLocalRandom.current().nextInt(NUM_KEYS), this.value, ENTRY_SIZE);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.dds;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures DXT compression of a tile-sized image, including its mip maps, by the sequential {@link DDSCompressor} and
+ * the banded {@link ParallelDDSCompressor}. Both produce identical output. The image is a noisy gradient with
+ * occasional translucent pixels, so every block takes the full compression path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DDSCompressorBenchmark
+{
+    @Param({"512", "2048"})
+    public int imageSize;
+
+    @Param({"DXT1", "DXT3"})
+    public String format;
+
+    protected BufferedImage image;
+    protected DXTCompressionAttributes attributes;
+    protected DDSCompressor sequentialCompressor;
+    protected DDSCompressor parallelCompressor;
+
+    @Setup
+    public void setup()
+    {
+        this.image = new BufferedImage(this.imageSize, this.imageSize, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(1);
+        for (int y = 0; y < this.imageSize; y++)
+        {
+            for (int x = 0; x < this.imageSize; x++)
+            {
+                int r = (x * 255 / this.imageSize + random.nextInt(32)) & 0xFF;
+                int g = (y * 255 / this.imageSize + random.nextInt(32)) & 0xFF;
+                int b = random.nextInt(256);
+                int a = random.nextInt(16) == 0 ? random.nextInt(256) : 255;
+                this.image.setRGB(x, y, (a << 24) | (r << 16) | (g << 8) | b);
+            }
+        }
+
+        this.attributes = DDSCompressor.getDefaultCompressionAttributes();
+        this.attributes.setDXTFormat("DXT1".equals(this.format) ? DDSConstants.D3DFMT_DXT1 : DDSConstants.D3DFMT_DXT3);
+        this.sequentialCompressor = new DDSCompressor();
+        this.parallelCompressor = new ParallelDDSCompressor();
+    }
+
+    @Benchmark
+    public ByteBuffer sequential()
+    {
+        return this.sequentialCompressor.compressImage(this.image, this.attributes);
+    }
+
+    @Benchmark
+    public ByteBuffer parallel()
+    {
+        return this.parallelCompressor.compressImage(this.image, this.attributes);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.geom;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the vector, matrix, sector and great circle arithmetic performed for every shape and terrain tile each
+ * frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark
+{
+    protected static final int NUM_VALUES = 1024;
+
+    protected Vec4[] points = new Vec4[NUM_VALUES];
+    protected Matrix[] matrices = new Matrix[NUM_VALUES];
+    protected Sector[] sectors = new Sector[NUM_VALUES];
+    protected LatLon[] locations = new LatLon[NUM_VALUES];
+    protected int index;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(1);
+
+        for (int i = 0; i < NUM_VALUES; i++)
+        {
+            this.points[i] = new Vec4(random.nextDouble() * 1e6, random.nextDouble() * 1e6, random.nextDouble() * 1e6);
+            this.matrices[i] = Matrix.fromRotationXYZ(Angle.fromDegrees(random.nextDouble() * 360),
+                Angle.fromDegrees(random.nextDouble() * 360), Angle.fromDegrees(random.nextDouble() * 360))
+                .multiply(Matrix.fromTranslation(this.points[i]));
+
+            double lat = random.nextDouble() * 170 - 85;
+            double lon = random.nextDouble() * 350 - 175;
+            this.sectors[i] = Sector.fromDegrees(lat, lat + random.nextDouble() * 5, lon,
+                lon + random.nextDouble() * 5);
+            this.locations[i] = LatLon.fromDegrees(lat, lon);
+        }
+    }
+
+    protected int next()
+    {
+        this.index = (this.index + 1) & (NUM_VALUES - 1);
+        return this.index;
+    }
+
+    @Benchmark
+    public Vec4 vec4Add3()
+    {
+        int i = this.next();
+        return this.points[i].add3(this.points[NUM_VALUES - 1 - i]);
+    }
+
+    @Benchmark
+    public Vec4 vec4Cross3()
+    {
+        int i = this.next();
+        return this.points[i].cross3(this.points[NUM_VALUES - 1 - i]);
+    }
+
+    @Benchmark
+    public Vec4 vec4TransformBy4()
+    {
+        int i = this.next();
+        return this.points[i].transformBy4(this.matrices[i]);
+    }
+
+    @Benchmark
+    public Matrix matrixMultiply()
+    {
+        int i = this.next();
+        return this.matrices[i].multiply(this.matrices[NUM_VALUES - 1 - i]);
+    }
+
+    @Benchmark
+    public Matrix matrixInverse()
+    {
+        return this.matrices[this.next()].getInverse();
+    }
+
+    @Benchmark
+    public boolean sectorIntersects()
+    {
+        int i = this.next();
+        return this.sectors[i].intersects(this.sectors[NUM_VALUES - 1 - i]);
+    }
+
+    @Benchmark
+    public Sector sectorUnion()
+    {
+        int i = this.next();
+        return this.sectors[i].union(this.sectors[NUM_VALUES - 1 - i]);
+    }
+
+    @Benchmark
+    public Angle latLonGreatCircleDistance()
+    {
+        int i = this.next();
+        return LatLon.greatCircleDistance(this.locations[i], this.locations[NUM_VALUES - 1 - i]);
+    }
+}
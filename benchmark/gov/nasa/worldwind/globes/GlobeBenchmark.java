@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.globes;
+
+import gov.nasa.worldwind.geom.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares converting a batch of positions between geographic and Cartesian coordinates one object at a time with the
+ * globe's bulk transforms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlobeBenchmark
+{
+    @Param({"1000", "100000"})
+    protected int numPositions;
+
+    protected Globe globe;
+    protected Position[] positions;
+    protected Vec4[] points;
+    protected double[] positionArray;
+    protected double[] pointArray;
+    protected double[] outArray;
+    protected DoubleBuffer positionBuffer;
+    protected FloatBuffer vertexBuffer;
+    protected Vec4 referencePoint;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(1);
+
+        this.globe = new Earth();
+        this.positions = new Position[this.numPositions];
+        this.points = new Vec4[this.numPositions];
+        this.positionArray = new double[3 * this.numPositions];
+        this.pointArray = new double[3 * this.numPositions];
+        this.outArray = new double[3 * this.numPositions];
+
+        for (int i = 0; i < this.numPositions; i++)
+        {
+            this.positions[i] = Position.fromDegrees(random.nextDouble() * 2 + 30, random.nextDouble() * 2 - 100,
+                random.nextDouble() * 1000);
+            this.points[i] = this.globe.computePointFromPosition(this.positions[i]);
+            this.positionArray[3 * i] = this.positions[i].getLatitude().radians;
+            this.positionArray[3 * i + 1] = this.positions[i].getLongitude().radians;
+            this.positionArray[3 * i + 2] = this.positions[i].getElevation();
+            this.pointArray[3 * i] = this.points[i].x;
+            this.pointArray[3 * i + 1] = this.points[i].y;
+            this.pointArray[3 * i + 2] = this.points[i].z;
+        }
+
+        this.positionBuffer = ByteBuffer.allocateDirect(8 * this.positionArray.length).order(
+            ByteOrder.nativeOrder()).asDoubleBuffer();
+        this.positionBuffer.put(this.positionArray).rewind();
+        this.vertexBuffer = ByteBuffer.allocateDirect(4 * this.positionArray.length).order(
+            ByteOrder.nativeOrder()).asFloatBuffer();
+        this.referencePoint = this.points[0];
+    }
+
+    @Benchmark
+    public void pointsFromPositionsPerObject(Blackhole blackhole)
+    {
+        for (Position position : this.positions)
+        {
+            blackhole.consume(this.globe.computePointFromPosition(position));
+        }
+    }
+
+    @Benchmark
+    public double[] pointsFromPositionsBulk()
+    {
+        this.globe.computePointsFromPositions(this.positionArray, this.numPositions, null, this.outArray);
+        return this.outArray;
+    }
+
+    @Benchmark
+    public FloatBuffer vertexPointsFromPositionsBulk()
+    {
+        this.globe.computePointsFromPositions(this.positionBuffer, this.numPositions, this.referencePoint,
+            this.vertexBuffer);
+        return this.vertexBuffer;
+    }
+
+    @Benchmark
+    public void positionsFromPointsPerObject(Blackhole blackhole)
+    {
+        for (Vec4 point : this.points)
+        {
+            blackhole.consume(this.globe.computePositionFromPoint(point));
+        }
+    }
+
+    @Benchmark
+    public double[] positionsFromPointsBulk()
+    {
+        this.globe.computePositionsFromPoints(this.pointArray, this.numPositions, null, this.outArray);
+        return this.outArray;
+    }
+}
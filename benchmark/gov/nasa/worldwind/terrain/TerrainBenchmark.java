@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.BasicModel;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.layers.LayerList;
+import gov.nasa.worldwind.render.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures elevation lookups from a {@link LocalElevationModel}, the construction of {@link RectangularTessellator}
+ * tile vertices over it, and {@link Viewshed} computation. The elevation model holds a synthetic 32-bit floating point
+ * raster, so the benchmark needs no data files, network access or OpenGL context.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TerrainBenchmark
+{
+    protected static final Sector DEM_SECTOR = Sector.fromDegrees(0, 10, 0, 10);
+
+    @Param({"1024"})
+    public int demSize;
+
+    @Param({"20"})
+    public int tileDensity;
+
+    protected LocalElevationModel elevationModel;
+    protected Globe globe;
+    protected DrawContext dc;
+    protected RectangularTessellator tessellator;
+    protected Sector[] tileSectors;
+    protected List<List<LatLon>> tileLocations;
+    protected double[] elevations;
+    protected int index;
+    protected Viewshed viewshed;
+
+    @Setup
+    public void setup()
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(this.demSize * this.demSize * 4);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        FloatBuffer floats = buffer.asFloatBuffer();
+        for (int j = 0; j < this.demSize; j++)
+        {
+            for (int i = 0; i < this.demSize; i++)
+            {
+                floats.put((float) (1000 * Math.sin(i * 0.01) * Math.cos(j * 0.013)));
+            }
+        }
+
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.DATA_TYPE, AVKey.FLOAT32);
+        params.setValue(AVKey.BYTE_ORDER, AVKey.LITTLE_ENDIAN);
+        this.elevationModel = new LocalElevationModel();
+        this.elevationModel.addElevations(buffer, DEM_SECTOR, this.demSize, this.demSize, params);
+
+        this.globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            this.elevationModel);
+
+        GLRuntimeCapabilities caps = new GLRuntimeCapabilities();
+        caps.setVertexBufferObjectEnabled(false);
+        this.dc = new DrawContextImpl();
+        this.dc.setModel(new BasicModel(this.globe, new LayerList()));
+        this.dc.setVerticalExaggeration(1);
+        this.dc.setGLRuntimeCapabilities(caps);
+
+        this.tessellator = new RectangularTessellator();
+        this.tessellator.globe = this.globe;
+
+        // Divide the elevation model's sector into 8x8 tiles and precompute each tile's tessellation locations.
+        this.tileSectors = DEM_SECTOR.subdivide(8);
+        this.tileLocations = new ArrayList<List<LatLon>>(this.tileSectors.length);
+        for (Sector sector : this.tileSectors)
+        {
+            this.tileLocations.add(this.tessellator.computeLocations(this.createTile(sector)));
+        }
+        this.elevations = new double[this.tileLocations.get(0).size()];
+
+        this.viewshed = new Viewshed(this.globe);
+    }
+
+    protected RectangularTessellator.RectTile createTile(Sector sector)
+    {
+        Extent extent = Sector.computeBoundingBox(this.globe, 1, sector);
+        return new RectangularTessellator.RectTile(this.tessellator, extent, 0, this.tileDensity, sector);
+    }
+
+    protected int next()
+    {
+        this.index = (this.index + 1) % this.tileSectors.length;
+        return this.index;
+    }
+
+    @Benchmark
+    public double localElevationModelGetElevations()
+    {
+        int i = this.next();
+        return this.elevationModel.getElevations(this.tileSectors[i], this.tileLocations.get(i), 0,
+            this.elevations);
+    }
+
+    @Benchmark
+    public Object rectangularTessellatorBuildVerts()
+    {
+        RectangularTessellator.RectTile tile = this.createTile(this.tileSectors[this.next()]);
+        this.tessellator.buildVerts(this.dc, tile, true);
+        return tile.getRi();
+    }
+
+    @Benchmark
+    public Object viewshed()
+    {
+        return this.viewshed.computeViewshed(Position.fromDegrees(5, 5, 10), DEM_SECTOR, this.demSize, this.demSize);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares computing geographic contour lines at many threshold values one value at a time as lists of positions with
+ * computing them together as vector buffers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContourBuilderBenchmark
+{
+    @Param({"512"})
+    protected int size;
+
+    @Param({"50"})
+    protected int numThresholds;
+
+    protected ContourBuilder builder;
+    protected double[] thresholds;
+    protected Sector sector = Sector.fromDegrees(-10, 0, 20, 30);
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(1);
+        double[] values = new double[this.size * this.size];
+        for (int y = 0; y < this.size; y++)
+        {
+            for (int x = 0; x < this.size; x++)
+            {
+                values[x + y * this.size] = 1000 * Math.sin(x / 40.0) * Math.cos(y / 30.0) + random.nextDouble();
+            }
+        }
+
+        this.builder = new ContourBuilder(this.size, this.size, values);
+        this.thresholds = new double[this.numThresholds];
+        for (int i = 0; i < this.numThresholds; i++)
+        {
+            this.thresholds[i] = -1000 + 2000.0 * (i + 0.5) / this.numThresholds;
+        }
+    }
+
+    @Benchmark
+    public void contourLines(Blackhole blackhole)
+    {
+        for (double threshold : this.thresholds)
+        {
+            blackhole.consume(this.builder.buildContourLines(threshold, this.sector, 0));
+        }
+    }
+
+    @Benchmark
+    public VecBufferSequence[] contourBuffers()
+    {
+        return this.builder.buildContourBuffers(this.thresholds, this.sector, 0);
+    }
+}
@@ -12,17 +12,20 @@ import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.layers.RenderableLayer;
 import gov.nasa.worldwind.render.*;
-import gov.nasa.worldwind.terrain.HighResolutionTerrain;
+import gov.nasa.worldwind.terrain.*;
+import gov.nasa.worldwind.util.*;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
+import java.nio.DoubleBuffer;
 import java.text.DecimalFormat;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
+import java.util.logging.Level;
 
 /**
  * Shows how to compute terrain intersections using the highest resolution
@@ -64,6 +67,11 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
      */
     protected static final int GRID_DIMENSION = 10; // cells per side
 
+    /**
+     * The number of cells along each edge of the viewshed raster.
+     */
+    protected static final int VIEWSHED_DIMENSION = 512;
+
     // Create containers to hold the intersection points and the lines emanating from the center.
     protected Vector<Position> firstIntersectionPositions = new Vector<>();
     protected Vector<GridPointPosition> gridPointsPositions = new Vector<>();
@@ -73,6 +81,11 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
     protected Vector<Position[]> intersectionSightLines = new Vector<>(
         GRID_DIMENSION * GRID_DIMENSION);
 
+    // The number of results already shown in the result layers. Progress updates show only the results added since.
+    protected int numGridSightLinesShown;
+    protected int numIntersectionSightLinesShown;
+    protected int numIntersectionPositionsShown;
+
     // Make the picked location's position and model-coordinate point available to all methods.
     protected Position referencePosition;
     protected Vec4 referencePoint;
@@ -83,7 +96,6 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
      */
     protected static final Double TARGET_RESOLUTION = 10d;
     // meters, or null for globe's highest resolution
-    protected static final int NUM_THREADS = 4; // set to 1 to run synchronously
 
     private static final Cursor WaitCursor = new Cursor(Cursor.WAIT_CURSOR);
 
@@ -95,12 +107,14 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
     protected RenderableLayer intersectionSightLinesLayer;
     protected RenderableLayer intersectionPointsLayer;
     protected RenderableLayer tilesLayer;
+    protected RenderableLayer viewshedLayer;
 
     protected Thread calculationDispatchThread;
     //    protected JProgressBar progressBar;
-    protected ThreadPoolExecutor threadPool;
+    protected Future<?> lineOfSightTask;
 
     protected Vector<Position> grid;
+    protected Sector gridSector;
     protected int numGridPoints; // used to monitor percentage progress
 
     protected long startTime, endTime; // for reporting calculation duration
@@ -115,7 +129,6 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
     private long lastTime = System.currentTimeMillis();
     private AtomicInteger debugCounter;
     private AtomicBoolean isDone;
-    private Vector<Future> threadPoolTasks;
     private AtomicBoolean running = new AtomicBoolean(false);
     private AtomicBoolean stopped = new AtomicBoolean(true);
     private PointPlacemark originPlacemark;
@@ -129,12 +142,10 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
         this.lineOfSightController = aThis;
         this.debugCounter = new AtomicInteger(0);
         this.isDone = new AtomicBoolean(false);
-        this.threadPoolTasks = new Vector<>();
     }
 
     public void activate()
     {
-        createThreadPool();
         setTerrainResolution(TARGET_RESOLUTION);
         initializeRenderableLayers();
         setSightLineProperties();
@@ -144,7 +155,7 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
     {
         String[] ActiveLayers = {"Grid", "Origin", "Intersections",
             "Grid Sight Lines", "Intersection Sight Lines",
-            "Intersection Points Lines"};
+            "Intersection Points Lines", "Viewshed"};
 
         for (String layer : ActiveLayers)
         {
@@ -158,14 +169,6 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
         }
     }
 
-    public void createThreadPool()
-    {
-        // Create a thread pool.
-        this.threadPool = new ThreadPoolExecutor(NUM_THREADS, NUM_THREADS, 200,
-            TimeUnit.MILLISECONDS,
-            new LinkedBlockingQueue<>());
-    }
-
     public void setTerrainResolution(double TARGET_RESOLUTION)
     {
         // Be sure to re-use the Terrain object to take advantage of its caching.
@@ -199,6 +202,11 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
         this.intersectionPointsLayer = new RenderableLayer();
         this.intersectionPointsLayer.setName("Intersection Points Lines");
         this.getWwd().getModel().getLayers().add(this.intersectionPointsLayer);
+
+        this.viewshedLayer = new RenderableLayer();
+        this.viewshedLayer.setName("Viewshed");
+        this.viewshedLayer.setPickEnabled(false);
+        this.getWwd().getModel().getLayers().add(this.viewshedLayer);
     }
 
     public void setSightLineProperties()
@@ -213,16 +221,7 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
                 if ((mouseEvent.getModifiersEx() & InputEvent.CTRL_DOWN_MASK)
                     != 0)
                 {
-                    if (calculationDispatchThread != null)
-                    {
-                        calculationDispatchThread.interrupt();
-                    }
-
-                    while (threadPool.getActiveCount() > 0)
-                    {
-                        threadPoolTasks.forEach(future -> future.cancel(true));
-                        threadPool.purge();
-                    }
+                    cancelCalculations();
                     deactivate();
                     clearPositionLists();
                     return;
@@ -239,17 +238,7 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
 
                     mouseEvent.consume(); // tell the rest of WW that this event has been processed
 
-                    if (calculationDispatchThread != null
-                        && calculationDispatchThread.isAlive())
-                    {
-                        calculationDispatchThread.interrupt();
-                    }
-
-                    if (threadPool.getActiveCount() > 0)
-                    {
-                        threadPoolTasks.forEach(future -> future.cancel(true));
-                        threadPool.purge();
-                    }
+                    cancelCalculations();
                     deactivate();
                     clearPositionLists();
                     wwd.redraw();
@@ -268,17 +257,7 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
                 {
                     mouseEvent.consume(); // tell the rest of WW that this event has been processed
 
-                    if (calculationDispatchThread != null
-                        && calculationDispatchThread.isAlive())
-                    {
-                        calculationDispatchThread.interrupt();
-                    }
-
-                    if (threadPool.getActiveCount() > 0)
-                    {
-                        threadPoolTasks.forEach(future -> future.cancel(true));
-                        threadPool.purge();
-                    }
+                    cancelCalculations();
 
                     final Position pos = getWwd().getCurrentPosition();
                     if (pos == null)
@@ -305,7 +284,23 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
     public void interrupt()
     {
         running.set(false);
-        calculationDispatchThread.interrupt();
+        cancelCalculations();
+    }
+
+    /**
+     * Stops the line of sight calculations in progress, if any.
+     */
+    protected void cancelCalculations()
+    {
+        if (this.calculationDispatchThread != null)
+        {
+            this.calculationDispatchThread.interrupt();
+        }
+
+        if (this.lineOfSightTask != null)
+        {
+            this.lineOfSightTask.cancel(true);
+        }
     }
 
     boolean isRunning()
@@ -360,6 +355,18 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
 //        this.sightLines.clear();
         this.gridSightLines.clear();
         this.intersectionSightLines.clear();
+        this.resetShownResults();
+    }
+
+    /**
+     * Causes the next progress update to replace the shown results rather than
+     * append to them.
+     */
+    protected void resetShownResults()
+    {
+        this.numGridSightLinesShown = 0;
+        this.numIntersectionSightLinesShown = 0;
+        this.numIntersectionPositionsShown = 0;
     }
 
     protected void addIntersectionPosition(Position position)
@@ -369,22 +376,7 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
 
     protected void addGridSightLine(Position gridPosition)
     {
-        ShapeAttributes lineAttributes = new BasicShapeAttributes();
-        lineAttributes.setDrawOutline(true);
-        lineAttributes.setDrawInterior(false);
-        lineAttributes.setOutlineMaterial(Material.GREEN);
-        lineAttributes.setOutlineOpacity(0.6);
-        lineAttributes.setOutlineWidth(2);
-
-        Path path = new Path(exageratedReferencePosition,
-            new Position(gridPosition,
-                0));
-        path.setAltitudeMode(WorldWind.RELATIVE_TO_GROUND);
-//                path.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
-        path.setAttributes(lineAttributes);
-        this.gridSightLinesLayer.addRenderable(path);
-
-//        this.gridSightLines.add(gridPosition);
+        this.gridSightLines.add(gridPosition);
     }
 
     protected void addIntersectionSightLine(Position positionA,
@@ -407,6 +399,7 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
             curPos.getLongitude().degrees - gridRadius,
             curPos.getLongitude().degrees + gridRadius);
 
+        this.gridSector = sector;
         this.grid = buildGrid(sector, height, GRID_DIMENSION, GRID_DIMENSION);
         this.numGridPoints = grid.size();
     }
@@ -479,131 +472,73 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
         debugCounter.set(0);
         isDone.set(false);
 
+        this.showViewshed();
+
 
         if (!stopped.get())
         {
-            for (Position gridPos : grid) // for each grid point.
+            Vector<Position> targets = new Vector<>(grid.size());
+            for (Position gridPos : grid)
             {
+                targets.add(new Position(gridPos, 0));
+            }
 
-                if (NUM_THREADS > 0)
+            // Compute all the lines of sight in one batch. The terrain shares the tiles between the lines and
+            // returns each result as soon as it's known.
+            this.lineOfSightTask = this.terrain.intersect(
+                new Position(this.referencePosition), targets,
+                new HighResolutionTerrain.LineOfSightCallback()
                 {
-//                    System.out.println("NUM_THREADS: " + NUM_THREADS);
-                    if (running.get())
+                    @Override
+                    public void lineOfSight(int index, Position target,
+                        Intersection intersection)
                     {
-                        threadPoolTasks.add(
-                            this.threadPool.submit(new Intersector(gridPos)));
+                        addLineOfSightResult(target, intersection);
                     }
-                }
-                else
-                {
-//                System.out.println("Performing Intersection Calculation On Single Thread");
-                    try
-                    {
-                        performIntersection(gridPos);
-                    }
-                    catch (InterruptedException e)
+
+                    @Override
+                    public void exception(int index, Position target,
+                        Exception exception)
                     {
-                        e.printStackTrace();
+                        Logging.logger().log(Level.FINE,
+                            "Line of sight to " + target + " failed", exception);
+                        debugCounter.incrementAndGet();
+                        updateProgress();
                     }
-                }
-            }
+                });
 
             running.set(false);
-            this.updateProgress();
         }
     }
 
     /**
-     * Performs one line of sight calculation between the reference position and
-     * a specified grid position.
+     * Records the result of one line of sight calculation between the
+     * reference position and a grid position.
      *
      * @param gridPosition the grid position.
-     * @throws InterruptedException if the operation is interrupted.
+     * @param intersection the intersection that blocks the line of sight, or
+     * null if the grid position is visible.
      */
-    protected void performIntersection(Position gridPosition)
-        throws InterruptedException
+    protected void addLineOfSightResult(Position gridPosition,
+        Intersection intersection)
     {
-        debugCounter.incrementAndGet();
-//        System.out.println("Counter inside thread: " + debugCounter.get());
-        // Intersect the line between this grid point and the selected position.
-        Intersection[] intersections = this.terrain.intersect(
-            new Position(this.referencePosition), new Position(gridPosition,
-                0));
-        if (intersections == null || intersections.length == 0)
+        if (intersection == null)
         {
             // No intersection, so the line goes from the center to the grid point.
             this.addGridSightLine(gridPosition);
         }
         else
         {
-            // Only the first intersection is shown.
-            Vec4 iPoint = intersections[0].getIntersectionPoint();
-            Vec4 gPoint = getSurfacePoint(gridPosition);
+            // Compute the position corresponding to the intersection.
+            Position iPosition = this.terrain.getGlobe().computePositionFromPoint(
+                intersection.getIntersectionPoint());
 
-            // Check to see whether the intersection is beyond the grid point.
-            if (iPoint.distanceTo3(this.referencePoint) >= gPoint.distanceTo3(
-                this.referencePoint))
-            {
-                // Intersection is beyond the grid point; the line goes from the center to the grid point.
-                this.addGridSightLine(
-                    new Position(gridPosition));
-            }
-            else
-            {
-                // Compute the position corresponding to the intersection.
-                Position iPosition
-                    = this.terrain.getGlobe().computePositionFromPoint(iPoint);
-
-                // The sight line goes from the user-selected position to the intersection position.
-                ShapeAttributes lineAttributes = new BasicShapeAttributes();
-                lineAttributes.setDrawOutline(true);
-                lineAttributes.setDrawInterior(false);
-                lineAttributes.setOutlineMaterial(Material.CYAN);
-                lineAttributes.setOutlineOpacity(0.6);
-                lineAttributes.setOutlineWidth(2);
-
-                Path path = new Path(exageratedReferencePosition,
-                    new Position(iPosition, 0));
-                path.setAltitudeMode(WorldWind.RELATIVE_TO_GROUND);
-//                path.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
-                path.setAttributes(lineAttributes);
-                this.intersectionSightLinesLayer.addRenderable(path);
-
-                ShapeAttributes interToGridlineAttributes =
-                    new BasicShapeAttributes();
-                interToGridlineAttributes.setDrawOutline(true);
-                interToGridlineAttributes.setDrawInterior(true);
-                interToGridlineAttributes.setOutlineMaterial(Material.RED);
-                interToGridlineAttributes.setOutlineOpacity(0.8);
-                interToGridlineAttributes.setOutlineWidth(2);
-
-                Path fromInterToGridPath = new Path(new Position(iPosition,
-                    0), gridPosition);
-                fromInterToGridPath.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
-                fromInterToGridPath.setAttributes(interToGridlineAttributes);
-
-                this.intersectionSightLinesLayer.addRenderable(
-                    fromInterToGridPath);
-
-                // Keep track of the intersection positions.
-                this.addIntersectionPosition(iPosition);
-
-                PointPlacemarkAttributes intersectionPointAttributes =
-                    new PointPlacemarkAttributes();
-                intersectionPointAttributes.setLineMaterial(Material.CYAN);
-                intersectionPointAttributes.setScale(6d);
-                intersectionPointAttributes.setUsePointAsDefaultImage(true);
-
-                PointPlacemark pm = new PointPlacemark(iPosition);
-                pm.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
-                pm.setAttributes(intersectionPointAttributes);
-                pm.setValue(AVKey.DISPLAY_NAME, iPosition.toString());
-                this.intersectionPointsLayer.addRenderable(pm);
-
-//                System.out.println("Intersection Found for: " + this.referencePosition + " : " + iPosition);
-            }
+            // Keep track of the intersection positions and the hidden part of the line.
+            this.addIntersectionPosition(iPosition);
+            this.addIntersectionSightLine(iPosition, gridPosition);
         }
 
+        debugCounter.incrementAndGet();
         updateProgress();
     }
 
@@ -632,6 +567,7 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
             int progress = (int) (100d * debugCounter.get()
                 / (double) numGridPoints);
             this.lineOfSightController.updateProgressBar(progress);
+            this.showResults();
 
             if (progress >= 100)
             {
@@ -658,16 +594,7 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
 
     public void resetAll()
     {
-        if (calculationDispatchThread != null)
-        {
-            calculationDispatchThread.interrupt();
-        }
-
-        while (threadPool.getActiveCount() > 0)
-        {
-            threadPoolTasks.forEach(future -> future.cancel(true));
-            threadPool.purge();
-        }
+        cancelCalculations();
         deactivate();
         clearPositionLists();
         this.lineOfSightController.updateProgressBar(0);
@@ -675,34 +602,6 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
         wwd.redraw();
     }
 
-    /**
-     * Inner {@link Runnable} to perform a single line/terrain intersection
-     * calculation.
-     */
-    protected class Intersector implements Runnable
-    {
-
-        protected final Position gridPosition;
-
-        public Intersector(Position gridPosition)
-        {
-            this.gridPosition = gridPosition;
-        }
-
-        @Override
-        public void run()
-        {
-            try
-            {
-                performIntersection(this.gridPosition);
-            }
-            catch (InterruptedException e)
-            {
-                e.printStackTrace();
-            }
-        }
-    }
-
     protected Vector<Position> buildGrid(Sector sector, double height,
         int nLatCells, int nLonCells)
     {
@@ -759,14 +658,35 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
             terrain.getCacheUsage(), terrain.getNumCacheEntries());
     }
 
+    /**
+     * Computes the region of the grid visible from the reference position and
+     * shows it in the viewshed layer, with hidden areas shaded.
+     */
+    protected void showViewshed()
+    {
+        Viewshed viewshed = new Viewshed(this.terrain.getGlobe());
+        final SurfaceImage image = Viewshed.createSurfaceImage(
+            viewshed.computeViewshed(this.referencePosition, this.gridSector,
+                VIEWSHED_DIMENSION, VIEWSHED_DIMENSION),
+            null, new Color(255, 0, 0, 96));
+
+        SwingUtilities.invokeLater(() -> {
+            this.viewshedLayer.removeAllRenderables();
+            this.viewshedLayer.addRenderable(image);
+            getWwd().redraw();
+        });
+    }
+
     protected void clearLayers()
     {
+        this.viewshedLayer.removeAllRenderables();
         this.intersectionsLayer.removeAllRenderables();
         this.intersectionPointsLayer.removeAllRenderables();
         this.intersectionSightLinesLayer.removeAllRenderables();
         this.gridSightLinesLayer.removeAllRenderables();
         this.gridPoints.removeAllRenderables();
         this.gridOrigin.removeAllRenderables();
+        this.resetShownResults();
     }
 
     /**
@@ -882,50 +802,134 @@ public class CMSLineOfSight extends JCheckBoxMenuItem
         }
     }
 
-    protected void showIntersectionSightLines(Vector<Position[]> sightLines)
+    /**
+     * Shows the results computed since the previous call. Each set of new sight
+     * lines is drawn as a single shape rather than as one shape per line, and
+     * the shapes already shown are kept.
+     */
+    protected void showResults()
     {
-        this.intersectionSightLinesLayer.removeAllRenderables();
+        this.showGridSightLines(this.gridSightLines, this.referencePosition);
+        this.showIntersectionSightLines(this.intersectionSightLines);
 
-        // Display the sight lines as green lines.
-        ShapeAttributes lineAttributes;
-        lineAttributes = new BasicShapeAttributes();
-        lineAttributes.setDrawOutline(true);
-        lineAttributes.setDrawInterior(false);
-        lineAttributes.setOutlineMaterial(Material.CYAN);
-        lineAttributes.setOutlineOpacity(0.6);
+        int end = this.firstIntersectionPositions.size();
+        if (this.numIntersectionPositionsShown == 0 || end < this.numIntersectionPositionsShown)
+        {
+            this.intersectionPointsLayer.removeAllRenderables();
+            this.numIntersectionPositionsShown = 0;
+        }
+
+        PointPlacemarkAttributes intersectionPointAttributes =
+            new PointPlacemarkAttributes();
+        intersectionPointAttributes.setLineMaterial(Material.CYAN);
+        intersectionPointAttributes.setScale(6d);
+        intersectionPointAttributes.setUsePointAsDefaultImage(true);
 
-        for (Position[] pp : sightLines)
+        for (int i = this.numIntersectionPositionsShown; i < end; i++)
         {
+            Position p = this.firstIntersectionPositions.get(i);
+            PointPlacemark pm = new PointPlacemark(p);
+            pm.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
+            pm.setAttributes(intersectionPointAttributes);
+            pm.setValue(AVKey.DISPLAY_NAME, p.toString());
+            this.intersectionPointsLayer.addRenderable(pm);
+        }
+        this.numIntersectionPositionsShown = end;
+
+        this.getWwd().redraw();
+    }
+
+    protected void showIntersectionSightLines(Vector<Position[]> sightLines)
+    {
+        int end = sightLines.size();
+        if (this.numIntersectionSightLinesShown == 0 || end < this.numIntersectionSightLinesShown)
+        {
+            this.intersectionSightLinesLayer.removeAllRenderables();
+            this.numIntersectionSightLinesShown = 0;
+        }
 
-            Path path = new Path(pp[0], pp[1]);
-//            path.setAltitudeMode(WorldWind.RELATIVE_TO_GROUND);
-            path.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
-            path.setAttributes(lineAttributes);
-            this.intersectionSightLinesLayer.addRenderable(path);
+        // Display the visible part of each blocked line in cyan and the hidden part in red.
+        java.util.List<Position[]> visibleParts = new ArrayList<>();
+        java.util.List<Position[]> hiddenParts = new ArrayList<>();
+        for (int i = this.numIntersectionSightLinesShown; i < end; i++)
+        {
+            Position[] pp = sightLines.get(i);
+            visibleParts.add(new Position[] {this.referencePosition, pp[0]});
+            hiddenParts.add(pp);
+        }
+        this.numIntersectionSightLinesShown = end;
+
+        if (!visibleParts.isEmpty())
+        {
+            this.intersectionSightLinesLayer.addRenderable(
+                this.createSightLines(visibleParts, Material.CYAN, 0.6));
+            this.intersectionSightLinesLayer.addRenderable(
+                this.createSightLines(hiddenParts, Material.RED, 0.8));
         }
     }
 
     protected void showGridSightLines(Vector<Position> grid, Position cPos)
     {
-        this.gridSightLinesLayer.removeAllRenderables();
+        int end = grid.size();
+        if (this.numGridSightLinesShown == 0 || end < this.numGridSightLinesShown)
+        {
+            this.gridSightLinesLayer.removeAllRenderables();
+            this.numGridSightLinesShown = 0;
+        }
 
-        // Display lines from the center to each grid point.
-        ShapeAttributes lineAttributes;
-        lineAttributes = new BasicShapeAttributes();
-        lineAttributes.setDrawOutline(true);
-        lineAttributes.setDrawInterior(false);
-        lineAttributes.setOutlineMaterial(Material.GREEN);
-        lineAttributes.setOutlineOpacity(0.6);
+        // Display lines from the center to each visible grid point in green.
+        java.util.List<Position[]> lines = new ArrayList<>();
+        for (int i = this.numGridSightLinesShown; i < end; i++)
+        {
+            lines.add(new Position[] {cPos, grid.get(i)});
+        }
+        this.numGridSightLinesShown = end;
 
-        for (Position p : grid)
+        if (!lines.isEmpty())
         {
+            this.gridSightLinesLayer.addRenderable(
+                this.createSightLines(lines, Material.GREEN, 0.6));
+        }
+    }
 
-            Path path = new Path(cPos, p);
-//            path.setAltitudeMode(WorldWind.RELATIVE_TO_GROUND);
-            path.setAltitudeMode(WorldWind.CLAMP_TO_GROUND);
-            path.setAttributes(lineAttributes);
-            this.gridSightLinesLayer.addRenderable(path);
+    /**
+     * Creates a single surface shape that draws a list of line segments.
+     *
+     * @param segments the segments' end points.
+     * @param material the segments' color.
+     * @param opacity the segments' opacity.
+     * @return the new shape.
+     */
+    protected SurfacePolylines createSightLines(java.util.List<Position[]> segments,
+        Material material, double opacity)
+    {
+        VecBufferSequence buffer = new VecBufferSequence(new VecBuffer(2,
+            new BufferWrapper.DoubleBufferWrapper(
+                DoubleBuffer.allocate(4 * segments.size()))), segments.size());
+        java.util.List<LatLon> locations = new ArrayList<>(2 * segments.size());
+
+        for (Position[] segment : segments)
+        {
+            double[] coords = new double[] {
+                segment[0].getLongitude().degrees, segment[0].getLatitude().degrees,
+                segment[1].getLongitude().degrees, segment[1].getLatitude().degrees};
+            buffer.append(new VecBuffer(2,
+                new BufferWrapper.DoubleBufferWrapper(DoubleBuffer.wrap(coords))));
+            locations.add(segment[0]);
+            locations.add(segment[1]);
         }
+
+        ShapeAttributes lineAttributes = new BasicShapeAttributes();
+        lineAttributes.setDrawOutline(true);
+        lineAttributes.setDrawInterior(false);
+        lineAttributes.setOutlineMaterial(material);
+        lineAttributes.setOutlineOpacity(opacity);
+        lineAttributes.setOutlineWidth(2);
+
+        SurfacePolylines shape = new SurfacePolylines(
+            Sector.boundingSector(locations), buffer);
+        shape.setAttributes(lineAttributes);
+        return shape;
     }
 
     protected void showGrid()
@@ -17,6 +17,7 @@ import gov.nasa.worldwind.ogc.kml.KMLAbstractFeature;
 import gov.nasa.worldwind.ogc.kml.KMLRoot;
 import gov.nasa.worldwind.ogc.kml.impl.KMLController;
 import gov.nasa.worldwind.retrieve.RetrievalService;
+import gov.nasa.worldwind.util.Logging;
 import gov.nasa.worldwind.util.WWIO;
 import gov.nasa.worldwind.util.WWUtil;
 import gov.nasa.worldwind.util.layertree.KMLLayerTreeNode;
@@ -31,6 +32,7 @@ import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.logging.Level;
 import javax.swing.AbstractAction;
 import javax.swing.JFileChooser;
 import javax.swing.JMenu;
@@ -136,20 +138,74 @@ public class ImportKML extends JMenuItem
      */
     protected void addKMLLayer(KMLRoot kmlRoot)
     {
-        // Create a KMLController to adapt the KMLRoot to the WorldWind renderable interface.
-        KMLController kmlController = new KMLController(kmlRoot);
+        // Create a KMLController to adapt the KMLRoot to the WorldWind renderable interface. This retrieves the layer
+        // name from the KMLRoot's DISPLAY_NAME field.
+        RenderableLayer layer = this.createKMLLayer(new KMLController(kmlRoot),
+            (String) kmlRoot.getField(AVKey.DISPLAY_NAME));
+        this.addLayer(layer);
+        this.addKMLLayerTreeNode(layer, kmlRoot);
+    }
 
-        // Adds a new layer containing the KMLRoot to the end of the WorldWindow's layer list. This
-        // retrieves the layer name from the KMLRoot's DISPLAY_NAME field.
+    /**
+     * Creates a layer to display a KML document.
+     *
+     * @param kmlController the controller that renders the document.
+     * @param name the layer's name.
+     *
+     * @return the new layer.
+     */
+    protected RenderableLayer createKMLLayer(KMLController kmlController, String name)
+    {
         RenderableLayer layer = new RenderableLayer();
-        layer.setName((String) kmlRoot.getField(AVKey.DISPLAY_NAME));
+        layer.setName(name);
         layer.addRenderable(kmlController);
+
+        return layer;
+    }
+
+    /**
+     * Adds a layer to the end of the <code>WorldWindow</code>'s layer list, and
+     * refreshes the layer panel to display it.
+     *
+     * @param layer the layer to add.
+     */
+    protected void addLayer(RenderableLayer layer)
+    {
         this.getWwd().getModel().getLayers().add(layer);
-        
+
         // Refresh the layer panel to display the imported KML file
         layerManagerDialog = cms.getLayerManager();
         layerPanel = layerManagerDialog.getLayerPanel();
         layerPanel.update(wwd);
+    }
+
+    /**
+     * Removes a layer from the <code>WorldWindow</code>'s layer list, and
+     * refreshes the layer panel.
+     *
+     * @param layer the layer to remove.
+     */
+    protected void removeLayer(RenderableLayer layer)
+    {
+        this.getWwd().getModel().getLayers().remove(layer);
+
+        layerManagerDialog = cms.getLayerManager();
+        layerPanel = layerManagerDialog.getLayerPanel();
+        layerPanel.update(wwd);
+    }
+
+    /**
+     * Adds a new <code>KMLLayerTreeNode</code> for a parsed
+     * <code>kmlRoot</code> to this app frame's on-screen layer tree, if
+     * there is one.
+     *
+     * @param layer the layer displaying the KMLRoot.
+     * @param kmlRoot the KMLRoot to add a tree node for.
+     */
+    protected void addKMLLayerTreeNode(RenderableLayer layer, KMLRoot kmlRoot)
+    {
+        if (this.layerTree == null)
+            return;
 
         // Adds a new layer tree node for the KMLRoot to the on-screen layer tree, and makes the new node visible
         // in the tree. This also expands any tree paths that represent open KML containers or open KML network
@@ -227,47 +283,125 @@ public class ImportKML extends JMenuItem
          * <code>AVKey.DISPLAY_NAME</code> field contains a display name created
          * from either the KML source or the KML root feature name.
          * <p>
-         * If loading the KML source fails, this prints the exception and its
-         * stack trace to the standard error stream, but otherwise does nothing.
+         * If loading the KML source fails, this logs the exception and removes
+         * the layer added to display the document, but otherwise does nothing.
          */
         public void run()
         {
+            KMLRoot kmlRoot;
+            try
+            {
+                kmlRoot = this.createRoot(true);
+            } catch (Exception e)
+            {
+                String message = Logging.getMessage("generic.ExceptionWhileReading", this.kmlSource);
+                Logging.logger().log(Level.SEVERE, message, e);
+                return;
+            }
+
+            // Add the document's layer before parsing it. The document is parsed incrementally, so its features are
+            // displayed as they're parsed rather than once the entire document has been parsed. Until then the layer
+            // is named for the KML source.
+            final KMLController kmlController = new KMLController(kmlRoot);
+            final RenderableLayer layer = createKMLLayer(kmlController, formName(kmlSource, kmlRoot));
+            SwingUtilities.invokeLater(new Runnable()
+            {
+                public void run()
+                {
+                    addLayer(layer);
+                }
+            });
+
             try
             {
-                KMLRoot kmlRoot = this.parse();
+                kmlRoot = this.parse(kmlController);
 
                 // Set the document's display name
-                kmlRoot.setField(AVKey.DISPLAY_NAME, formName(kmlSource, kmlRoot));
+                final String name = formName(kmlSource, kmlRoot);
+                kmlRoot.setField(AVKey.DISPLAY_NAME, name);
 
-                // Schedule a task on the EDT to add the parsed document to a layer
+                // Schedule a task on the EDT to add the parsed document to the layer tree
                 final KMLRoot finalKMLRoot = kmlRoot;
                 SwingUtilities.invokeLater(new Runnable()
                 {
                     public void run()
                     {
-                        addKMLLayer(finalKMLRoot);
+                        layer.setName(name);
+                        addKMLLayerTreeNode(layer, finalKMLRoot);
                     }
                 });
             } catch (Exception e)
             {
-                e.printStackTrace();
+                String message = Logging.getMessage("generic.ExceptionAttemptingToParseXml", this.kmlSource);
+                Logging.logger().log(Level.SEVERE, message, e);
+
+                // The document couldn't be parsed, so remove the layer rather than leave a partial document
+                // displayed. This runs on the EDT after the task that added the layer.
+                SwingUtilities.invokeLater(new Runnable()
+                {
+                    public void run()
+                    {
+                        removeLayer(layer);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Creates an incremental <code>KMLRoot</code> for this worker
+         * thread's KML source.
+         *
+         * @param namespaceAware specifies whether to use a namespace-aware XML
+         * parser.
+         *
+         * @return The new KMLRoot.
+         *
+         * @throws IOException if the document cannot be read.
+         */
+        protected KMLRoot createRoot(boolean namespaceAware) throws IOException
+        {
+            KMLRoot kmlRoot = KMLRoot.create(this.kmlSource, namespaceAware);
+            if (kmlRoot == null)
+            {
+                String message = Logging.getMessage("generic.UnrecognizedSourceTypeOrUnavailableSource",
+                    this.kmlSource.toString());
+                throw new IllegalArgumentException(message);
             }
+
+            kmlRoot.setIncremental(true);
+
+            return kmlRoot;
         }
 
         /**
-         * Parse the KML document.
+         * Parse the KML document displayed by a controller.
+         *
+         * @param kmlController the controller displaying the document.
          *
          * @return The parsed document.
          *
          * @throws IOException if the document cannot be read.
          * @throws XMLStreamException if document cannot be parsed.
          */
-        protected KMLRoot parse() throws IOException, XMLStreamException
+        protected KMLRoot parse(KMLController kmlController) throws IOException, XMLStreamException
         {
-            // KMLRoot.createAndParse will attempt to parse the document using a namespace aware parser, but if that
-            // fails due to a parsing error it will try again using a namespace unaware parser. Note that this second
-            // step may require the document to be read from the network again if the kmlSource is a stream.
-            return KMLRoot.createAndParse(this.kmlSource);
+            KMLRoot kmlRoot = kmlController.getKmlRoot();
+
+            try
+            {
+                kmlRoot.parse();
+            }
+            catch (XMLStreamException e)
+            {
+                // As KMLRoot.createAndParse does, try again using a namespace unaware parser, and display that
+                // document in place of the partially parsed one. Note that this second step may require the document
+                // to be read from the network again if the kmlSource is a stream.
+                kmlRoot = this.createRoot(false);
+                kmlController.setKmlRoot(kmlRoot);
+                kmlRoot.parse();
+            }
+
+            return kmlRoot;
         }
     }
 
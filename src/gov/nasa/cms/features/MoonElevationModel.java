@@ -36,6 +36,8 @@ public class MoonElevationModel extends CelestialMapper {
                     File sourceFile = new File(ELEVATIONS_PATH);
                     // Create a local elevation model from the data.
                     LocalElevationModel elevationModel = new LocalElevationModel();
+                    // Map the DEM rather than read it so that large files load without delay.
+                    elevationModel.setMapLargeFiles(true);
                     elevationModel.addElevations(sourceFile);
 
                     SwingUtilities.invokeLater(new Runnable() {
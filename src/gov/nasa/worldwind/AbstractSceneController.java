@@ -83,10 +83,16 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
     protected ClutterFilter clutterFilter = new BasicClutterFilter();
     //protected Map<String, GroupingFilter> groupingFilters = new HashMap<String, GroupingFilter>();
     protected boolean deferOrderedRendering;
+    /** Records the timings of recent frames. Null if frames are not recorded. */
+    protected FrameProfiler frameProfiler;
 
     public AbstractSceneController()
     {
         this.setVerticalExaggeration(Configuration.getDoubleValue(AVKey.VERTICAL_EXAGGERATION, 1d));
+
+        int frameProfilerCapacity = Configuration.getIntegerValue(AVKey.FRAME_PROFILER_CAPACITY, 0);
+        if (frameProfilerCapacity > 0)
+            this.frameProfiler = new FrameProfiler(frameProfilerCapacity);
     }
 
     public void reinitialize()
@@ -389,16 +395,44 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
         this.deferOrderedRendering = deferOrderedRendering;
     }
 
+    /**
+     * Returns the profiler recording the timings of recent frames.
+     *
+     * @return the frame profiler, or null if frames are not recorded.
+     */
+    public FrameProfiler getFrameProfiler()
+    {
+        return this.frameProfiler;
+    }
+
+    /**
+     * Specifies a profiler to record the timings of subsequent frames. Initially the scene controller has a profiler
+     * if the configuration specifies a non-zero {@link AVKey#FRAME_PROFILER_CAPACITY}.
+     *
+     * @param frameProfiler the frame profiler. May be null, in which case frames are not recorded.
+     */
+    public void setFrameProfiler(FrameProfiler frameProfiler)
+    {
+        this.frameProfiler = frameProfiler;
+    }
+
     public int repaint()
     {
         this.frameTime = System.currentTimeMillis();
 
+        FrameProfiler profiler = this.frameProfiler;
+        if (profiler != null)
+            profiler.beginFrame((long) this.frameTime);
+
         this.perFrameStatistics.clear();
         this.renderingExceptions.clear(); // Clear the rendering exceptions accumulated during the last frame.
         this.glRuntimeCaps.initialize(GLContext.getCurrent());
         this.initializeDrawContext(this.dc);
         this.doRepaint(this.dc);
 
+        if (profiler != null)
+            profiler.endFrame(this.gpuResourceCache, WorldWind.getMemoryCacheSet());
+
         ++this.frame;
         long time = System.currentTimeMillis();
         this.frameTime = System.currentTimeMillis() - this.frameTime;
@@ -421,6 +455,19 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
             this.dc.setPerFrameStatistics(WorldWind.getMemoryCacheSet().getPerformanceStatistics());
         }
 
+        if (perfKeys.contains(PerformanceStatistic.RETRIEVAL) || perfKeys.contains(PerformanceStatistic.ALL))
+        {
+            if (WorldWind.getRetrievalService() instanceof PerformanceStatistic.Provider)
+                this.dc.setPerFrameStatistics(
+                    ((PerformanceStatistic.Provider) WorldWind.getRetrievalService()).getPerformanceStatistics());
+        }
+
+        for (Map.Entry<PerformanceStatistic.Provider, String> entry : PerformanceStatistic.getProviders().entrySet())
+        {
+            if (perfKeys.contains(entry.getValue()) || perfKeys.contains(PerformanceStatistic.ALL))
+                this.dc.setPerFrameStatistics(entry.getKey().getPerformanceStatistics());
+        }
+
         if (perfKeys.contains(PerformanceStatistic.TEXTURE_CACHE) || perfKeys.contains(PerformanceStatistic.ALL))
         {
             if (dc.getTextureCache() != null)
@@ -552,7 +599,9 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
         {
             if (dc.getModel() != null && dc.getModel().getGlobe() != null)
             {
+                long start = System.nanoTime();
                 SectorGeometryList sgl = dc.getModel().getGlobe().tessellate(dc);
+                this.addPhaseTime(FrameProfiler.Phase.TESSELLATION, start);
                 dc.setSurfaceGeometry(sgl);
                 dc.setVisibleSector(sgl.getSector());
             }
@@ -571,6 +620,7 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
 
     protected void preRender(DrawContext dc)
     {
+        long phaseStart = System.nanoTime();
         try
         {
             dc.setPreRenderMode(true);
@@ -580,10 +630,14 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
             {
                 for (Layer layer : dc.getLayers())
                 {
+                    long start = System.nanoTime();
+                    int count = dc.getOrderedSurfaceRenderables().size();
                     try
                     {
                         dc.setCurrentLayer(layer);
                         layer.preRender(dc);
+                        this.addLayerTime(layer, FrameProfiler.Phase.PRE_RENDER, start,
+                            dc.getOrderedSurfaceRenderables().size() - count);
                     }
                     catch (Exception e)
                     {
@@ -608,6 +662,7 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
         finally
         {
             dc.setPreRenderMode(false);
+            this.addPhaseTime(FrameProfiler.Phase.PRE_RENDER, phaseStart);
         }
     }
 
@@ -653,8 +708,10 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
                 {
                     if (layer != null && layer.isPickEnabled())
                     {
+                        long start = System.nanoTime();
                         dc.setCurrentLayer(layer);
                         layer.pick(dc, dc.getPickPoint());
+                        this.addLayerTime(layer, FrameProfiler.Phase.PICK, start, 0);
                     }
                 }
                 catch (Exception e)
@@ -771,6 +828,7 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
     protected void pick(DrawContext dc)
     {
         this.pickTime = System.currentTimeMillis();
+        long phaseStart = System.nanoTime();
         this.lastPickedObjects = null;
         this.lastObjectsInPickRect = null;
 
@@ -801,6 +859,7 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
         {
             dc.disablePickingMode();
             this.pickTime = System.currentTimeMillis() - this.pickTime;
+            this.addPhaseTime(FrameProfiler.Phase.PICK, phaseStart);
         }
     }
 
@@ -883,6 +942,7 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
         try
         {
             // Draw the layers.
+            long phaseStart = System.nanoTime();
             if (dc.getLayers() != null)
             {
                 for (Layer layer : dc.getLayers())
@@ -891,8 +951,12 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
                     {
                         if (layer != null)
                         {
+                            long start = System.nanoTime();
+                            int count = dc.getOrderedRenderablesCount();
                             dc.setCurrentLayer(layer);
                             layer.render(dc);
+                            this.addLayerTime(layer, FrameProfiler.Phase.LAYER_RENDER, start,
+                                dc.getOrderedRenderablesCount() - count);
                         }
                     }
                     catch (Exception e)
@@ -906,12 +970,17 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
 
                 dc.setCurrentLayer(null);
             }
+            this.addPhaseTime(FrameProfiler.Phase.LAYER_RENDER, phaseStart);
 
             // Draw the deferred/ordered surface renderables.
+            phaseStart = System.nanoTime();
             this.drawOrderedSurfaceRenderables(dc);
 
             if (this.isDeferOrderedRendering())
+            {
+                this.addPhaseTime(FrameProfiler.Phase.ORDERED_RENDERABLES, phaseStart);
                 return;
+            }
 
             if (this.screenCreditController != null)
                 this.screenCreditController.render(dc);
@@ -933,6 +1002,7 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
                 }
             }
             dc.setOrderedRenderingMode(false);
+            this.addPhaseTime(FrameProfiler.Phase.ORDERED_RENDERABLES, phaseStart);
 
             // Draw the diagnostic displays.
             if (dc.getSurfaceGeometry() != null && dc.getModel() != null && (dc.getModel().isShowWireframeExterior() ||
@@ -985,6 +1055,40 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
         }
     }
 
+    //**************************************************************//
+    //********************  Frame Profiling  ***********************//
+    //**************************************************************//
+
+    /**
+     * Adds the time since a specified start time to a phase of the frame being recorded by the frame profiler. Does
+     * nothing if the scene controller has no frame profiler.
+     *
+     * @param phase the phase.
+     * @param start the start time, as returned by {@link System#nanoTime()}.
+     */
+    protected void addPhaseTime(FrameProfiler.Phase phase, long start)
+    {
+        FrameProfiler profiler = this.frameProfiler;
+        if (profiler != null)
+            profiler.addPhaseTime(phase, System.nanoTime() - start);
+    }
+
+    /**
+     * Adds the time since a specified start time to a layer's statistics in the frame being recorded by the frame
+     * profiler. Does nothing if the scene controller has no frame profiler.
+     *
+     * @param layer       the layer.
+     * @param phase       the phase the time was spent in.
+     * @param start       the start time, as returned by {@link System#nanoTime()}.
+     * @param objectCount the number of objects the layer queued for ordered rendering since the start time.
+     */
+    protected void addLayerTime(Layer layer, FrameProfiler.Phase phase, long start, int objectCount)
+    {
+        FrameProfiler profiler = this.frameProfiler;
+        if (profiler != null)
+            profiler.addLayerTime(layer, phase, System.nanoTime() - start, objectCount);
+    }
+
     //**************************************************************//
     //********************  Ordered Surface Renderable  ************//
     //**************************************************************//
@@ -1085,7 +1189,9 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
     {
         if (dc.getOrderedSurfaceRenderables().size() > 0)
         {
+            long start = System.nanoTime();
             this.surfaceObjectTileBuilder.buildTiles(dc, dc.getOrderedSurfaceRenderables());
+            this.addPhaseTime(FrameProfiler.Phase.SURFACE_OBJECT_TILES, start);
         }
     }
 
@@ -9,6 +9,7 @@ import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.terrain.SectorGeometryList;
+import gov.nasa.worldwind.util.FrameProfiler;
 
 /**
  * @author Tom Gaskins
@@ -84,6 +85,8 @@ public class BasicSceneController extends AbstractSceneController
 
     protected void createTerrain2DContinuous(DrawContext dc)
     {
+        long start = System.nanoTime();
+
         this.sglC = null;
         this.visibleSectorC = null;
         ((Globe2D) dc.getGlobe()).setOffset(0);
@@ -110,6 +113,8 @@ public class BasicSceneController extends AbstractSceneController
             this.sglL = dc.getModel().getGlobe().tessellate(dc);
             this.visibleSectorL = this.sglL.getSector();
         }
+
+        this.addPhaseTime(FrameProfiler.Phase.TESSELLATION, start);
     }
 
     protected void draw2DContiguous(DrawContext dc)
@@ -120,6 +120,7 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String ELEVATION_MODEL = "gov.nasa.worldwind.avkey.ElevationModel";
     final String ELEVATION_MODEL_FACTORY = "gov.nasa.worldwind.avkey.ElevationModelFactory";
     final String ELEVATION_TILE_CACHE_SIZE = "gov.nasa.worldwind.avkey.ElevationTileCacheSize";
+    final String ELEVATION_TILE_STORE_SIZE = "gov.nasa.worldwind.avkey.ElevationTileStoreSize";
     final String ELEVATION_UNIT = "gov.nasa.worldwind.avkey.ElevationUnit";
 
     final String END = "gov.nasa.worldwind.avkey.End";
@@ -143,6 +144,7 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String FOV = "gov.nasa.worldwind.avkey.FieldOfView";
     final String FORCE_LEVEL_ZERO_LOADS = "gov.nasa.worldwind.avkey.ForceLevelZeroLoads";
     final String FRACTION = "gov.nasa.worldwind.avkey.Fraction";
+    final String FRAME_PROFILER_CAPACITY = "gov.nasa.worldwind.avkey.FrameProfilerCapacity";
     final String FRAME_TIMESTAMP = "gov.nasa.worldwind.avkey.FrameTimestamp";
 
     final String GDAL_AREA = "gov.nasa.worldwind.avkey.GDAL.Area";
@@ -226,6 +228,12 @@ public interface AVKey // TODO: Eliminate unused constants, if any
 
     final String MAX_ACTIVE_ALTITUDE = "gov.nasa.worldwind.avkey.MaxActiveAltitude";
     final String MAX_MESSAGE_REPEAT = "gov.nasa.worldwind.avkey.MaxMessageRepeat";
+    /**
+     * Indicates the {@link gov.nasa.worldwind.cache.MemoryCache} implementation created by {@link
+     * gov.nasa.worldwind.cache.MemoryCacheSet#createCache(long, long)}. The class must have a public constructor taking
+     * the low water and capacity as <code>long</code> arguments.
+     */
+    final String MEMORY_CACHE_CLASS_NAME = "gov.nasa.worldwind.avkey.MemoryCacheClassName";
     final String MEMORY_CACHE_SET_CLASS_NAME = "gov.nasa.worldwind.avkey.MemoryCacheSetClassName";
     /**
      * Indicates the location that MIL-STD-2525 tactical symbols and tactical point graphics retrieve their icons from.
@@ -367,6 +375,11 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String RETRIEVE_PROPERTIES_FROM_SERVICE = "gov.nasa.worldwind.avkey.RetrievePropertiesFromService";
     final String RETRIEVAL_QUEUE_SIZE = "gov.nasa.worldwind.avkey.RetrievalQueueSize";
     final String RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT = "gov.nasa.worldwind.avkey.RetrievalStaleRequestLimit";
+    /**
+     * Indicates the time, in milliseconds, after which a queued retrieval request that has been repeated by its client
+     * but is no longer being repeated is dropped. Used by {@link gov.nasa.worldwind.retrieve.ScheduledRetrievalService}.
+     */
+    final String RETRIEVAL_REQUEST_EXPIRATION = "gov.nasa.worldwind.avkey.RetrievalRequestExpiration";
     final String RETRIEVAL_SERVICE_CLASS_NAME = "gov.nasa.worldwind.avkey.RetrievalServiceClassName";
     final String RETRIEVER_FACTORY_LOCAL = "gov.nasa.worldwind.avkey.RetrieverFactoryLocal";
     final String RETRIEVER_FACTORY_REMOTE = "gov.nasa.worldwind.avkey.RetrieverFactoryRemote";
@@ -414,7 +427,10 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String SHAPE_SQUARE = "gov.nasa.worldwind.avkey.ShapeSquare";
     final String SHAPE_TRIANGLE = "gov.nasa.worldwind.avkey.ShapeTriangle";
     final String SHAPEFILE_GEOMETRY_CACHE_SIZE = "gov.nasa.worldwind.avkey.ShapefileGeometryCacheSize";
+    final String SHAPEFILE_GEOMETRY_POOL_SIZE = "gov.nasa.worldwind.avkey.ShapefileGeometryPoolSize";
+    final String SHAPEFILE_GEOMETRY_QUEUE_SIZE = "gov.nasa.worldwind.avkey.ShapefileGeometryQueueSize";
     final String SHAPEFILE_LAYER_FACTORY = "gov.nasa.worldwind.avkey.ShapefileLayerFactory";
+    final String SHAPEFILE_RANDOM_ACCESS = "gov.nasa.worldwind.avkey.ShapefileRandomAccess";
     final String SHORT_DESCRIPTION = "gov.nasa.worldwind.avkey.Server.ShortDescription";
     final String SIZE_FIT_TEXT = "gov.nasa.worldwind.avkey.SizeFitText";
     final String SIZE_FIXED = "gov.nasa.worldwind.avkey.SizeFixed";
@@ -457,9 +473,12 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String TILED_IMAGERY = "gov.nasa.worldwind.avkey.TiledImagery";
     final String TILED_ELEVATIONS = "gov.nasa.worldwind.avkey.TiledElevations";
     final String TILED_RASTER_PRODUCER_CACHE_SIZE = "gov.nasa.worldwind.avkey.TiledRasterProducerCacheSize";
+    final String TILED_RASTER_PRODUCER_INCREMENTAL = "gov.nasa.worldwind.avkey.TiledRasterProducer.Incremental";
     final String TILED_RASTER_PRODUCER_LARGE_DATASET_THRESHOLD =
         "gov.nasa.worldwind.avkey.TiledRasterProducerLargeDatasetThreshold";
     final String TILED_RASTER_PRODUCER_LIMIT_MAX_LEVEL = "gov.nasa.worldwind.avkey.TiledRasterProducer.LimitMaxLevel";
+    final String TILED_RASTER_PRODUCER_THREAD_POOL_SIZE =
+        "gov.nasa.worldwind.avkey.TiledRasterProducer.ThreadPoolSize";
     final String TILT = "gov.nasa.worldwind.avkey.Tilt";
     final String TITLE = "gov.nasa.worldwind.avkey.Title";
     final String TOP = "gov.nasa.worldwind.avkey.Top";
@@ -502,19 +502,9 @@ public abstract class AbstractFileStore extends WWObjectImpl implements FileStor
 
         if (checkClassPath)
         {
-            java.net.URL url = this.getClass().getClassLoader().getResource(fileName);
+            java.net.URL url = this.findFileInClassPath(fileName);
             if (url != null)
                 return url;
-
-            // Check for a thread context class loader. This allows the file store to find resources in a case
-            // in which different parts of the application are handled by different class loaders.
-            ClassLoader tccl = Thread.currentThread().getContextClassLoader();
-            if (tccl != null)
-            {
-                url = tccl.getResource(fileName);
-                if (url != null)
-                    return url;
-            }
         }
 
         for (StoreLocation location : this.readLocations)
@@ -546,6 +536,28 @@ public abstract class AbstractFileStore extends WWObjectImpl implements FileStor
         return null;
     }
 
+    /**
+     * Searches the class path for a specified file.
+     *
+     * @param fileName the name of the file to find.
+     *
+     * @return a URL addressing the file if it is found, otherwise null.
+     */
+    protected java.net.URL findFileInClassPath(String fileName)
+    {
+        java.net.URL url = this.getClass().getClassLoader().getResource(fileName);
+        if (url != null)
+            return url;
+
+        // Check for a thread context class loader. This allows the file store to find resources in a case
+        // in which different parts of the application are handled by different class loaders.
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        if (tccl != null)
+            return tccl.getResource(fileName);
+
+        return null;
+    }
+
     @SuppressWarnings({"ResultOfMethodCallIgnored"})
     protected static void markFileUsed(java.io.File file)
     {
@@ -0,0 +1,701 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.regex.*;
+
+/**
+ * A {@link FileStore} that answers lookups from an in-memory index rather than by probing the file system, and that
+ * reads files asynchronously.
+ * <p>
+ * When the store is created, a background thread walks the store's read locations and records the location of every
+ * file in a concurrent index. {@link #findFile(String, boolean)} and {@link #containsFile(String)} consult the index
+ * without locking. A file missing from the index is looked for only in the write location, where files retrieved after
+ * the index was built are placed, so a lookup touches the disk at most once. Until the index is complete, lookups that
+ * miss it search the read locations as {@link BasicDataFileStore} does. Requests for files already known to be local
+ * are answered without acquiring the store's lock.
+ * <p>
+ * {@link #readFile(String)} reads a file on a pool of reader threads and returns a <code>CompletableFuture</code>. When
+ * the file is a tile, identified by a path of the form <code>.../level/row/row_column.suffix</code>, the files of the
+ * tile's four children and four neighbors are then read ahead into memory, where subsequent calls to
+ * <code>readFile</code> find them.
+ * <p>
+ * The index does not observe files removed from the read locations other than by {@link #removeFile(java.net.URL)}.
+ * Call {@link #rebuildIndex()} after modifying the locations' contents by other means.
+ */
+public class AsyncDataFileStore extends BasicDataFileStore
+{
+    protected static final String THREAD_NAME_PREFIX = "WorldWind File Store Reader";
+    protected static final String INDEX_THREAD_NAME = "WorldWind File Store Indexer";
+    /** The default number of threads used to read files. */
+    protected static final int DEFAULT_READ_THREADS = 2;
+    /** The default amount of memory, in bytes, holding files that have been read ahead. */
+    protected static final long DEFAULT_READ_AHEAD_CACHE_SIZE = 32000000L;
+    /** The maximum number of read-ahead reads waiting to run. Additional read-ahead requests are ignored. */
+    protected static final int MAX_PENDING_READ_AHEADS = 256;
+    /** Matches tile paths of the form <code>.../level/row/row_column.suffix</code>. */
+    protected static final Pattern TILE_PATH_PATTERN = Pattern.compile("^(.*/)?(\\d+)/(\\d+)/\\3_(\\d+)(\\.[^/]*)$");
+
+    /** Maps normalized file store names to the location holding the file. */
+    protected volatile ConcurrentHashMap<String, StoreLocation> index = new ConcurrentHashMap<String, StoreLocation>();
+    protected volatile boolean indexComplete;
+    /** Names of files removed while the index is being built, which must not appear in the new index. */
+    protected final Set<String> removedNames = ConcurrentHashMap.newKeySet();
+    /**
+     * Guards the index generation, the index's completion and the set of removed names, so that a removal is either
+     * recorded before a new index is installed or applied to the installed index.
+     */
+    protected final Object removalLock = new Object();
+    protected volatile CompletableFuture<Integer> indexFuture;
+    protected final Object indexLock = new Object();
+    protected final AtomicInteger indexGeneration = new AtomicInteger();
+    protected ThreadPoolExecutor executor;
+    /** Runs index builds one at a time, so that a build never occupies a reader thread. */
+    protected ThreadPoolExecutor indexExecutor;
+    protected boolean readAheadEnabled = true;
+    protected final AtomicInteger pendingReadAheads = new AtomicInteger();
+    protected final Set<File> markedDirectories = ConcurrentHashMap.newKeySet();
+    protected MemoryCache readAheadCache = new BasicMemoryCache((long) (0.8 * DEFAULT_READ_AHEAD_CACHE_SIZE),
+        DEFAULT_READ_AHEAD_CACHE_SIZE);
+
+    /**
+     * Create an instance using the configured file store locations, and start building its index.
+     *
+     * @throws IllegalStateException if the configuration file name cannot be determined from {@link
+     *                               gov.nasa.worldwind.Configuration} or the configuration file cannot be found.
+     */
+    public AsyncDataFileStore()
+    {
+        this.executor = this.createExecutor(DEFAULT_READ_THREADS);
+        this.indexExecutor = this.createIndexExecutor();
+        this.rebuildIndex();
+    }
+
+    /**
+     * Create an instance to manage a specified directory, and start building its index.
+     *
+     * @param directoryPath the directory to manage as a file store.
+     */
+    public AsyncDataFileStore(File directoryPath)
+    {
+        super(directoryPath);
+
+        this.executor = this.createExecutor(DEFAULT_READ_THREADS);
+        this.indexExecutor = this.createIndexExecutor();
+        this.rebuildIndex();
+    }
+
+    protected ThreadPoolExecutor createExecutor(int numThreads)
+    {
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, numThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + " " + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY); // Subordinate thread priority to rendering
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    protected ThreadPoolExecutor createIndexExecutor()
+    {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, INDEX_THREAD_NAME);
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY); // Subordinate thread priority to rendering
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    /**
+     * Indicates whether tiles adjacent to tiles read by {@link #readFile(String)} are read ahead.
+     *
+     * @return true if read-ahead is enabled, otherwise false.
+     */
+    public boolean isReadAheadEnabled()
+    {
+        return this.readAheadEnabled;
+    }
+
+    /**
+     * Specifies whether tiles adjacent to tiles read by {@link #readFile(String)} are read ahead. Read-ahead is enabled
+     * by default.
+     *
+     * @param readAheadEnabled true to enable read-ahead, otherwise false.
+     */
+    public void setReadAheadEnabled(boolean readAheadEnabled)
+    {
+        this.readAheadEnabled = readAheadEnabled;
+    }
+
+    /**
+     * Indicates whether the index of the store's contents has been built.
+     *
+     * @return true if the index is complete, otherwise false.
+     */
+    public boolean isIndexComplete()
+    {
+        return this.indexComplete;
+    }
+
+    /**
+     * Returns the number of files in the index.
+     *
+     * @return the number of indexed files.
+     */
+    public int getIndexSize()
+    {
+        return this.index.size();
+    }
+
+    /**
+     * Returns the result of the most recent index build.
+     *
+     * @return a future that completes with the number of files indexed once the index is built.
+     */
+    public CompletableFuture<Integer> getIndexFuture()
+    {
+        return this.indexFuture;
+    }
+
+    /**
+     * Rebuilds the index of the store's contents in the background. The existing index is used until the new one is
+     * complete, and lookups that miss the existing index search the store's locations on disk. Builds run one at a
+     * time on a dedicated thread. A build that's superseded by a later call to this method stops as soon as it
+     * notices, and its future completes with -1.
+     *
+     * @return a future that completes with the number of files indexed once the index is built, or with -1 if the build
+     *         is superseded.
+     */
+    public CompletableFuture<Integer> rebuildIndex()
+    {
+        final int generation;
+        synchronized (this.removalLock)
+        {
+            generation = this.indexGeneration.incrementAndGet();
+            this.indexComplete = false;
+        }
+
+        this.indexFuture = CompletableFuture.supplyAsync(new java.util.function.Supplier<Integer>()
+        {
+            public Integer get()
+            {
+                return buildIndex(generation);
+            }
+        }, this.indexExecutor);
+
+        return this.indexFuture;
+    }
+
+    protected int buildIndex(int generation)
+    {
+        synchronized (this.indexLock)
+        {
+            long start = System.currentTimeMillis();
+            final ConcurrentHashMap<String, StoreLocation> newIndex = new ConcurrentHashMap<String, StoreLocation>();
+
+            // Locations earlier in the search order take precedence, so a file found in an earlier location is not
+            // replaced by one of the same name in a later location.
+            for (final StoreLocation location : this.readLocations)
+            {
+                if (this.isIndexBuildSuperseded(generation))
+                    return -1;
+
+                final Path root = location.getFile().toPath();
+                if (!Files.isDirectory(root))
+                    continue;
+
+                try
+                {
+                    Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+                    {
+                        @Override
+                        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                        {
+                            // Stop walking if a newer build has been requested.
+                            return isIndexBuildSuperseded(generation) ? FileVisitResult.TERMINATE
+                                : FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                        {
+                            if (attrs.isRegularFile())
+                                newIndex.putIfAbsent(makeIndexName(root.relativize(file)), location);
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFileFailed(Path file, IOException e)
+                        {
+                            return FileVisitResult.CONTINUE; // skip unreadable files and directories
+                        }
+                    });
+                }
+                catch (IOException e)
+                {
+                    String message = Logging.getMessage("FileStore.ExceptionIndexingLocation", root);
+                    Logging.logger().log(Level.SEVERE, message, e);
+                }
+            }
+
+            if (this.isIndexBuildSuperseded(generation))
+                return -1;
+
+            // Keep files found in the write location while the new index was being built.
+            for (Map.Entry<String, StoreLocation> entry : this.index.entrySet())
+            {
+                if (entry.getValue() == this.writeLocation)
+                    newIndex.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+
+            // Install the index unless a newer build has been requested, which will install its own. Files removed
+            // while the store was being walked are dropped from it, and removals after this point see the new index.
+            synchronized (this.removalLock)
+            {
+                if (this.isIndexBuildSuperseded(generation))
+                    return -1;
+
+                for (String name : this.removedNames)
+                {
+                    newIndex.remove(name);
+                }
+                this.removedNames.clear();
+
+                this.index = newIndex;
+                this.indexComplete = true;
+            }
+
+            Logging.logger().fine(Logging.getMessage("FileStore.IndexBuilt", newIndex.size(),
+                System.currentTimeMillis() - start));
+
+            return newIndex.size();
+        }
+    }
+
+    /**
+     * Indicates whether a newer index build has been requested since a specified build was requested.
+     *
+     * @param generation the generation of the build in question.
+     *
+     * @return true if a newer build has been requested, otherwise false.
+     */
+    protected boolean isIndexBuildSuperseded(int generation)
+    {
+        return generation != this.indexGeneration.get();
+    }
+
+    protected static String makeIndexName(Path relativePath)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (Path element : relativePath)
+        {
+            if (sb.length() > 0)
+                sb.append('/');
+            sb.append(element.toString());
+        }
+
+        return sb.toString();
+    }
+
+    protected static String makeIndexName(String fileName)
+    {
+        // Avoid the regular expression in normalizeFileStoreName for names that are already normalized.
+        if (fileName.indexOf('\\') < 0 && !fileName.startsWith("/") && !fileName.endsWith("/"))
+            return fileName;
+
+        return normalizeFileStoreName(fileName);
+    }
+
+    @Override
+    public void addLocation(int index, String newPath, boolean isInstall)
+    {
+        super.addLocation(index, newPath, isInstall);
+
+        if (this.indexExecutor != null) // the superclass adds locations before this instance is initialized
+            this.rebuildIndex();
+    }
+
+    @Override
+    public void removeLocation(String path)
+    {
+        super.removeLocation(path);
+
+        if (this.indexExecutor != null)
+            this.rebuildIndex();
+    }
+
+    //**************************************************************//
+    //********************  File Store Contents  *******************//
+    //**************************************************************//
+
+    /**
+     * Returns the file holding a named entry, looking first in the index and then, if the index is complete, only in
+     * the write location.
+     *
+     * @param fileName the file store name of the file.
+     *
+     * @return the file, or null if the file is not in the index and not in the write location.
+     */
+    protected File lookupFile(String fileName)
+    {
+        String name = makeIndexName(fileName);
+        StoreLocation location = this.index.get(name);
+        if (location != null && this.readLocations.contains(location))
+            return makeAbsoluteFile(location.getFile(), name);
+
+        if (!this.indexComplete)
+            return null;
+
+        // Files added since the index was built are placed in the write location.
+        StoreLocation writeLocation = this.writeLocation;
+        if (writeLocation != null)
+        {
+            File file = makeAbsoluteFile(writeLocation.getFile(), name);
+            if (file.isFile())
+            {
+                this.index.put(name, writeLocation);
+                return file;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public boolean containsFile(String fileName)
+    {
+        if (fileName == null)
+            return false;
+
+        if (this.lookupFile(fileName) != null)
+            return true;
+
+        return !this.indexComplete && super.containsFile(fileName);
+    }
+
+    /** {@inheritDoc} Files in the index are found without accessing the disk. */
+    @Override
+    public URL findFile(String fileName, boolean checkClassPath)
+    {
+        if (fileName == null)
+        {
+            String message = Logging.getMessage("nullValue.FilePathIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (checkClassPath)
+        {
+            URL url = this.findFileInClassPath(fileName);
+            if (url != null)
+                return url;
+        }
+
+        File file = this.lookupFile(fileName);
+        if (file != null)
+            return this.makeFileUrl(file);
+
+        // Until the index is complete, search the locations on disk as the superclass does.
+        return !this.indexComplete ? super.findFile(fileName, false) : null;
+    }
+
+    protected URL makeFileUrl(File file)
+    {
+        // Mark the file's directory used off the calling thread, since marking changes the directory's metadata on
+        // disk. Each directory is marked once per session, which is sufficient for clients that remove files unused
+        // for a period of days.
+        final File dir = file.getParentFile();
+        if (dir != null && this.markedDirectories.add(dir))
+        {
+            this.executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    markFileUsed(dir);
+                }
+            });
+        }
+
+        try
+        {
+            return file.toURI().toURL();
+        }
+        catch (MalformedURLException e)
+        {
+            Logging.logger().log(Level.SEVERE,
+                Logging.getMessage("FileStore.ExceptionCreatingURLForFile", file.getPath()), e);
+            return null;
+        }
+    }
+
+    @Override
+    public void removeFile(URL url)
+    {
+        super.removeFile(url);
+
+        try
+        {
+            File file = new File(url.toURI());
+            for (StoreLocation location : this.readLocations)
+            {
+                String path = storePathForFile(location, file);
+                if (!path.equals(file.getPath()))
+                {
+                    String name = makeIndexName(path);
+                    synchronized (this.removalLock)
+                    {
+                        if (!this.indexComplete)
+                            this.removedNames.add(name); // the index being built may have already found the file
+                        this.index.remove(name);
+                    }
+                    this.readAheadCache.remove(name);
+                }
+            }
+        }
+        catch (URISyntaxException e)
+        {
+            Logging.logger().log(Level.SEVERE, Logging.getMessage("FileStore.ExceptionRemovingFile", url.toString()),
+                e);
+        }
+    }
+
+    /** {@inheritDoc} Requests for files that are known to be local are answered without locking the file store. */
+    @Override
+    public URL requestFile(String address, boolean cacheRemoteFile)
+    {
+        if (address != null)
+        {
+            DBEntry entry = (DBEntry) this.db.getObject(address);
+            if (entry != null && entry.state == DBEntry.LOCAL
+                && (entry.expiration == 0 || System.currentTimeMillis() <= entry.expiration))
+                return entry.localUrl;
+        }
+
+        return super.requestFile(address, cacheRemoteFile);
+    }
+
+    //**************************************************************//
+    //********************  Asynchronous Reads  ********************//
+    //**************************************************************//
+
+    /**
+     * Finds a file on one of the store's reader threads.
+     *
+     * @param fileName       the file to search for, identified by a path relative to the root of the file store.
+     * @param checkClassPath if true, the class path is searched first.
+     *
+     * @return a future that completes with the file's URL, or with null if the file is not found.
+     *
+     * @throws IllegalArgumentException if the file name is null.
+     */
+    public CompletableFuture<URL> findFileAsync(final String fileName, final boolean checkClassPath)
+    {
+        if (fileName == null)
+        {
+            String message = Logging.getMessage("nullValue.FilePathIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return CompletableFuture.supplyAsync(new java.util.function.Supplier<URL>()
+        {
+            public URL get()
+            {
+                return findFile(fileName, checkClassPath);
+            }
+        }, this.executor);
+    }
+
+    /**
+     * Reads the contents of a file in the store. If the file has been read ahead, the future is already complete.
+     * Otherwise the file is read on one of the store's reader threads. If the file is a tile, its children and
+     * neighbors are then read ahead.
+     *
+     * @param fileName the file to read, identified by a path relative to the root of the file store.
+     *
+     * @return a future that completes with the file's contents, or with null if the file is not in the store. The
+     * future completes exceptionally if the file cannot be read.
+     *
+     * @throws IllegalArgumentException if the file name is null.
+     */
+    public CompletableFuture<ByteBuffer> readFile(final String fileName)
+    {
+        if (fileName == null)
+        {
+            String message = Logging.getMessage("nullValue.FilePathIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        final String name = makeIndexName(fileName);
+        ByteBuffer buffer = (ByteBuffer) this.readAheadCache.getObject(name);
+        if (buffer != null)
+        {
+            this.readAheadCache.remove(name);
+            this.readAhead(name);
+            return CompletableFuture.completedFuture(buffer);
+        }
+
+        return CompletableFuture.supplyAsync(new java.util.function.Supplier<ByteBuffer>()
+        {
+            public ByteBuffer get()
+            {
+                try
+                {
+                    return doReadFile(name);
+                }
+                catch (IOException e)
+                {
+                    throw new CompletionException(e);
+                }
+                finally
+                {
+                    readAhead(name);
+                }
+            }
+        }, this.executor);
+    }
+
+    protected ByteBuffer doReadFile(String name) throws IOException
+    {
+        File file = this.lookupFile(name);
+        if (file == null && !this.indexComplete)
+        {
+            URL url = super.findFile(name, false);
+            file = url != null ? WWIO.convertURLToFile(url) : null;
+        }
+
+        if (file == null)
+            return null;
+
+        try
+        {
+            return WWIO.readFileToBuffer(file);
+        }
+        catch (FileNotFoundException e)
+        {
+            this.index.remove(name); // the file was removed without the store's knowledge
+            return null;
+        }
+    }
+
+    /**
+     * Reads the files adjacent to a tile into memory, if they are in the index and not already in memory. Does nothing
+     * if read-ahead is disabled, the file is not a tile, or too many read-ahead reads are waiting.
+     *
+     * @param name the normalized file store name of the tile.
+     */
+    protected void readAhead(String name)
+    {
+        if (!this.readAheadEnabled)
+            return;
+
+        for (final String adjacentName : this.computeReadAheadNames(name))
+        {
+            if (!this.index.containsKey(adjacentName) || this.readAheadCache.contains(adjacentName))
+                continue;
+
+            if (this.pendingReadAheads.incrementAndGet() > MAX_PENDING_READ_AHEADS)
+            {
+                this.pendingReadAheads.decrementAndGet();
+                return;
+            }
+
+            this.executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        ByteBuffer buffer = doReadFile(adjacentName);
+                        if (buffer != null)
+                            readAheadCache.add(adjacentName, buffer, buffer.limit());
+                    }
+                    catch (IOException e)
+                    {
+                        Logging.logger().log(Level.FINE,
+                            Logging.getMessage("FileStore.ExceptionReadingFile", adjacentName), e);
+                    }
+                    finally
+                    {
+                        pendingReadAheads.decrementAndGet();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Computes the names of the files to read ahead after a tile is read: the tile's four children at the next level
+     * and its four neighbors at the same level.
+     *
+     * @param name the normalized file store name of the tile.
+     *
+     * @return the names of the files to read ahead. The list is empty if the name does not identify a tile.
+     */
+    protected List<String> computeReadAheadNames(String name)
+    {
+        Matcher matcher = TILE_PATH_PATTERN.matcher(name);
+        if (!matcher.matches())
+            return Collections.emptyList();
+
+        String prefix = matcher.group(1) != null ? matcher.group(1) : "";
+        int level = Integer.parseInt(matcher.group(2));
+        int row = Integer.parseInt(matcher.group(3));
+        int col = Integer.parseInt(matcher.group(4));
+        String suffix = matcher.group(5);
+
+        List<String> names = new ArrayList<String>(8);
+        for (int r = 2 * row; r <= 2 * row + 1; r++)
+        {
+            for (int c = 2 * col; c <= 2 * col + 1; c++)
+            {
+                names.add(makeTileName(prefix, level + 1, r, c, suffix));
+            }
+        }
+
+        if (row > 0)
+            names.add(makeTileName(prefix, level, row - 1, col, suffix));
+        names.add(makeTileName(prefix, level, row + 1, col, suffix));
+        if (col > 0)
+            names.add(makeTileName(prefix, level, row, col - 1, suffix));
+        names.add(makeTileName(prefix, level, row, col + 1, suffix));
+
+        return names;
+    }
+
+    protected static String makeTileName(String prefix, int level, int row, int col, String suffix)
+    {
+        return prefix + level + "/" + row + "/" + row + "_" + col + suffix;
+    }
+}
@@ -10,6 +10,7 @@ import com.jogamp.opengl.util.texture.Texture;
 import gov.nasa.worldwind.util.Logging;
 
 import com.jogamp.opengl.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 /**
@@ -54,6 +55,8 @@ public class BasicGpuResourceCache implements GpuResourceCache
     }
 
     protected final BasicMemoryCache resources;
+    /** The total size of the resources added to the cache. */
+    protected final AtomicLong bytesAdded = new AtomicLong();
 
     public BasicGpuResourceCache(long loWater, long hiWater)
     {
@@ -108,13 +111,15 @@ public class BasicGpuResourceCache implements GpuResourceCache
     public void put(Object key, Texture texture)
     {
         CacheEntry te = this.createCacheEntry(texture, TEXTURE);
-        this.resources.add(key, te);
+        if (this.resources.add(key, te))
+            this.bytesAdded.addAndGet(te.resourceSize);
     }
 
     public void put(Object key, Object resource, String resourceType, long size)
     {
         CacheEntry te = this.createCacheEntry(resource, resourceType, size);
-        this.resources.add(key, te);
+        if (this.resources.add(key, te))
+            this.bytesAdded.addAndGet(te.resourceSize);
     }
 
     protected CacheEntry createCacheEntry(Object resource, String resourceType)
@@ -180,6 +185,37 @@ public class BasicGpuResourceCache implements GpuResourceCache
         this.resources.clear();
     }
 
+    /**
+     * Returns the total size of the resources added to the cache since it was created. Since resources are added when
+     * they're loaded onto the GPU, the difference between two values indicates the amount of data loaded between them.
+     *
+     * @return the total size in bytes of the resources added to the cache.
+     */
+    public long getBytesAdded()
+    {
+        return this.bytesAdded.get();
+    }
+
+    /**
+     * Returns the number of resource lookups that have found a resource since the cache was created.
+     *
+     * @return the number of cache hits.
+     */
+    public long getHitCount()
+    {
+        return this.resources.getHitCount();
+    }
+
+    /**
+     * Returns the number of resource lookups that have not found a resource since the cache was created.
+     *
+     * @return the number of cache misses.
+     */
+    public long getMissCount()
+    {
+        return this.resources.getMissCount();
+    }
+
     /**
      * Sets the new capacity (in bytes) for the cache. When decreasing cache size, it is recommended to check that the
      * lowWater variable is suitable. If the capacity infringes on items stored in the cache, these items are removed.
@@ -52,6 +52,8 @@ public class BasicMemoryCache implements MemoryCache
     protected java.util.concurrent.CopyOnWriteArrayList<MemoryCache.CacheListener> listeners;
     protected AtomicLong capacity = new AtomicLong();
     protected AtomicLong currentUsedCapacity = new AtomicLong();
+    protected AtomicLong hitCount = new AtomicLong();
+    protected AtomicLong missCount = new AtomicLong();
     protected Long lowWater;
     protected String name = "";
 
@@ -322,16 +324,41 @@ public class BasicMemoryCache implements MemoryCache
             entry = this.entries.get(key);
 
             if (entry == null)
+            {
+                this.missCount.incrementAndGet();
                 return null;
+            }
 
             entry.lastUsed = System.nanoTime(); // nanoTime overflows once every 292 years
             // which will result in a slowing of the cache
             // until ww is restarted or the cache is cleared.
         }
 
+        this.hitCount.incrementAndGet();
         return entry.clientObject;
     }
 
+    /**
+     * Returns the number of calls to {@link #getObject(Object)} that have found an object since the cache was created.
+     *
+     * @return the number of cache hits.
+     */
+    public long getHitCount()
+    {
+        return this.hitCount.get();
+    }
+
+    /**
+     * Returns the number of calls to {@link #getObject(Object)} that have not found an object since the cache was
+     * created.
+     *
+     * @return the number of cache misses.
+     */
+    public long getMissCount()
+    {
+        return this.missCount.get();
+    }
+
     /** Empties the cache. */
     public void clear()
     {
@@ -5,6 +5,8 @@
  */
 package gov.nasa.worldwind.cache;
 
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.util.*;
 
 import java.util.*;
@@ -63,6 +65,37 @@ public class BasicMemoryCacheSet implements MemoryCacheSet
         return cache;
     }
 
+    /**
+     * Creates a new memory cache of the class named by the configuration property {@link
+     * AVKey#MEMORY_CACHE_CLASS_NAME}, or a {@link BasicMemoryCache} if the property is not specified or the named class
+     * cannot be created.
+     *
+     * @param loWater  the low water level of the new cache.
+     * @param capacity the capacity of the new cache.
+     *
+     * @return the new memory cache.
+     */
+    public MemoryCache createCache(long loWater, long capacity)
+    {
+        String className = Configuration.getStringValue(AVKey.MEMORY_CACHE_CLASS_NAME);
+        if (className != null && className.trim().length() > 0
+            && !className.trim().equals(BasicMemoryCache.class.getName()))
+        {
+            try
+            {
+                Class<?> c = Class.forName(className.trim());
+                return (MemoryCache) c.getConstructor(long.class, long.class).newInstance(loWater, capacity);
+            }
+            catch (Exception e)
+            {
+                String message = Logging.getMessage("WorldWind.ExceptionCreatingComponent", className);
+                Logging.logger().log(java.util.logging.Level.WARNING, message, e);
+            }
+        }
+
+        return new BasicMemoryCache(loWater, capacity);
+    }
+
     public synchronized void clear()
     {
         for (MemoryCache cache : this.caches.values())
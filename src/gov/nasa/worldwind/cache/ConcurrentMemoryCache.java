@@ -0,0 +1,484 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link MemoryCache} intended for caches shared by many threads, such as the tile, terrain geometry and elevation
+ * caches that are read by the render thread, the retrieval threads and terrain intersection workers at the same time.
+ * <p>
+ * Unlike {@link BasicMemoryCache}, lookups, <code>contains</code> and <code>remove</code> never take a cache-wide lock:
+ * entries are held in a {@link ConcurrentHashMap} and an access merely sets a flag on the entry. Eviction uses the
+ * CLOCK (second chance) approximation of least-recently-used: entries are kept in a FIFO queue in the order they were
+ * added, and when the cache must make space the head of the queue is evicted unless it has been accessed since it
+ * was last examined, in which case its flag is cleared and it is moved to the tail. Only threads that need to evict
+ * contend for the eviction lock, and eviction costs amortized constant time per entry rather than a sort of the whole
+ * cache.
+ * <p>
+ * Capacity, low water and {@link MemoryCache.CacheListener} behavior is the same as that of
+ * <code>BasicMemoryCache</code>: every entry that leaves the cache, whether by eviction, replacement, removal or
+ * <code>clear</code>, is reported to the listeners exactly once.
+ * <p>
+ * The class may be selected as the implementation used for the WorldWind memory caches by setting the configuration
+ * property {@link gov.nasa.worldwind.avlist.AVKey#MEMORY_CACHE_CLASS_NAME} to its class name.
+ *
+ * @see BasicMemoryCacheSet#createCache(long, long)
+ */
+public class ConcurrentMemoryCache implements MemoryCache
+{
+    /**
+     * The number of stale eviction queue entries, beyond the number of live entries, at which the queue is purged
+     * even though the cache is not full.
+     */
+    protected static final int STALE_ENTRY_ALLOWANCE = 64;
+
+    protected static class CacheEntry
+    {
+        protected final Object key;
+        protected final Object clientObject;
+        protected final long clientObjectSize;
+        /** Set when the entry is accessed, cleared when the eviction clock passes over it. */
+        protected volatile boolean referenced;
+        /** Set once, by the thread that removes the entry from the cache. */
+        protected final AtomicBoolean removed = new AtomicBoolean();
+
+        protected CacheEntry(Object key, Object clientObject, long clientObjectSize)
+        {
+            this.key = key;
+            this.clientObject = clientObject;
+            this.clientObjectSize = clientObjectSize;
+        }
+
+        public String toString()
+        {
+            return key.toString() + " " + clientObject.toString() + " " + referenced + " " + clientObjectSize;
+        }
+    }
+
+    protected ConcurrentHashMap<Object, CacheEntry> entries;
+    /** The eviction clock. Holds entries in the order they were added or last given a second chance. */
+    protected ConcurrentLinkedQueue<CacheEntry> evictionQueue;
+    protected CopyOnWriteArrayList<MemoryCache.CacheListener> listeners;
+    protected AtomicLong capacity = new AtomicLong();
+    protected AtomicLong currentUsedCapacity = new AtomicLong();
+    /** Counts entries removed other than by eviction that are still present in the eviction queue. */
+    protected AtomicInteger staleQueueEntries = new AtomicInteger();
+    protected volatile long lowWater;
+    protected volatile String name = "";
+
+    protected final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Constructs a new cache using <code>capacity</code> for maximum size, and <code>loWater</code> for the low water.
+     *
+     * @param loWater  the low water level.
+     * @param capacity the maximum capacity.
+     */
+    public ConcurrentMemoryCache(long loWater, long capacity)
+    {
+        this.entries = new ConcurrentHashMap<Object, CacheEntry>();
+        this.evictionQueue = new ConcurrentLinkedQueue<CacheEntry>();
+        this.listeners = new CopyOnWriteArrayList<MemoryCache.CacheListener>();
+        this.capacity.set(capacity);
+        this.lowWater = loWater;
+    }
+
+    /** @return the number of objects currently stored in this cache. */
+    public int getNumObjects()
+    {
+        return this.entries.size();
+    }
+
+    /** @return the capacity of the cache. */
+    public long getCapacity()
+    {
+        return this.capacity.get();
+    }
+
+    /** @return the number of cache units that the cache currently holds. */
+    public long getUsedCapacity()
+    {
+        return this.currentUsedCapacity.get();
+    }
+
+    /** @return the amount of free space left in the cache (in cache units). */
+    public long getFreeCapacity()
+    {
+        return Math.max(this.capacity.get() - this.currentUsedCapacity.get(), 0);
+    }
+
+    public void setName(String name)
+    {
+        this.name = name != null ? name : "";
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Adds a cache listener, MemoryCache listeners are used to notify classes when an item is removed from the cache.
+     *
+     * @param listener The new <code>CacheListener</code>.
+     *
+     * @throws IllegalArgumentException is <code>listener</code> is null.
+     */
+    public void addCacheListener(MemoryCache.CacheListener listener)
+    {
+        if (listener == null)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.nullListenerAdded");
+            Logging.logger().warning(message);
+            throw new IllegalArgumentException(message);
+        }
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Removes a cache listener, objects using this listener will no longer receive notification of cache events.
+     *
+     * @param listener The <code>CacheListener</code> to remove.
+     *
+     * @throws IllegalArgumentException if <code>listener</code> is null.
+     */
+    public void removeCacheListener(MemoryCache.CacheListener listener)
+    {
+        if (listener == null)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.nullListenerRemoved");
+            Logging.logger().warning(message);
+            throw new IllegalArgumentException(message);
+        }
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Sets the new capacity for the cache. As with {@link BasicMemoryCache#setCapacity(long)}, entries are not removed
+     * immediately when the capacity decreases; the cache shrinks the next time an entry is added.
+     *
+     * @param newCapacity the new capacity of the cache.
+     */
+    public void setCapacity(long newCapacity)
+    {
+        this.capacity.set(newCapacity);
+    }
+
+    /**
+     * Sets the new low water level in cache units. When the cache fills, it removes items until it reaches the low
+     * water level. The value is ignored if it is negative or not less than the capacity.
+     *
+     * @param loWater the new low water level.
+     */
+    public void setLowWater(long loWater)
+    {
+        if (loWater < this.capacity.get() && loWater >= 0)
+        {
+            this.lowWater = loWater;
+        }
+    }
+
+    /**
+     * Returns the low water level in cache units. When the cache fills, it removes items until it reaches the low water
+     * level.
+     *
+     * @return the low water level.
+     */
+    public long getLowWater()
+    {
+        return this.lowWater;
+    }
+
+    /**
+     * Returns true if the cache contains the item referenced by key. No guarantee is made as to whether or not the item
+     * will remain in the cache for any period of time.
+     * <p>
+     * This function does not cause the object referenced by the key to be marked as accessed. <code>getObject()</code>
+     * should be used for that purpose.
+     *
+     * @param key The key of a specific object.
+     *
+     * @return true if the cache holds the item referenced by key.
+     *
+     * @throws IllegalArgumentException if <code>key</code> is null.
+     */
+    public boolean contains(Object key)
+    {
+        if (key == null)
+        {
+            String msg = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        return this.entries.containsKey(key);
+    }
+
+    /**
+     * Adds an object to the cache. The add fails if the object or key is null, or if the size is zero, negative or
+     * greater than the maximum capacity. If the key already refers to an object, that object is replaced and reported
+     * to the cache listeners as removed.
+     *
+     * @param key              The unique reference key that identifies this object.
+     * @param clientObject     The actual object to be cached.
+     * @param clientObjectSize The size of the object in cache units.
+     *
+     * @return returns true if clientObject was added, false otherwise.
+     */
+    public boolean add(Object key, Object clientObject, long clientObjectSize)
+    {
+        long cap = this.capacity.get();
+
+        if (key == null || clientObject == null || clientObjectSize <= 0 || clientObjectSize > cap)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.CacheItemNotAdded");
+
+            if (clientObjectSize > cap)
+            {
+                message += " - " + Logging.getMessage("BasicMemoryCache.ItemTooLargeForCache");
+            }
+
+            Logging.logger().warning(message);
+
+            return false;
+        }
+
+        CacheEntry entry = new CacheEntry(key, clientObject, clientObjectSize);
+
+        // Account for the new entry before publishing it so that a concurrent removal never drives the used capacity
+        // negative.
+        this.currentUsedCapacity.addAndGet(clientObjectSize);
+        CacheEntry existing = this.entries.put(key, entry);
+        this.evictionQueue.offer(entry);
+
+        if (existing != null && this.removeEntry(existing)) // replacing
+            this.onStaleQueueEntry();
+
+        if (this.currentUsedCapacity.get() > cap)
+            this.makeSpace();
+
+        return true;
+    }
+
+    public boolean add(Object key, Cacheable clientObject)
+    {
+        return this.add(key, clientObject, clientObject.getSizeInBytes());
+    }
+
+    /**
+     * Remove the object reference by key from the cache. If no object with the corresponding key is found, this method
+     * returns immediately.
+     *
+     * @param key the key of the object to be removed.
+     */
+    public void remove(Object key)
+    {
+        if (key == null)
+        {
+            Logging.logger().finer("nullValue.KeyIsNull");
+
+            return;
+        }
+
+        CacheEntry entry = this.entries.get(key);
+        if (entry != null && this.removeEntry(entry))
+            this.onStaleQueueEntry();
+    }
+
+    /**
+     * Obtain the object referenced by key without removing it. Apart from adding an object, this is the only way to
+     * mark an object as recently used. This method does not block.
+     *
+     * @param key The key for the object to be found.
+     *
+     * @return the object referenced by key if it is present, null otherwise.
+     */
+    public Object getObject(Object key)
+    {
+        if (key == null)
+        {
+            Logging.logger().finer("nullValue.KeyIsNull");
+
+            return null;
+        }
+
+        CacheEntry entry = this.entries.get(key);
+        if (entry == null)
+            return null;
+
+        // Avoid writing the shared flag when it's already set; this keeps frequently read entries from bouncing their
+        // cache line between processors.
+        if (!entry.referenced)
+            entry.referenced = true;
+
+        return entry.clientObject;
+    }
+
+    /** Empties the cache. */
+    public void clear()
+    {
+        this.evictionLock.lock();
+        try
+        {
+            for (CacheEntry entry : this.entries.values())
+            {
+                if (this.removeEntry(entry))
+                    this.staleQueueEntries.incrementAndGet();
+            }
+
+            this.purgeEvictionQueue();
+        }
+        finally
+        {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Removes <code>entry</code> from the cache, reduces the used capacity and notifies the cache listeners. Has no
+     * effect if the entry has already been removed, so each entry is reported to the listeners only once regardless of
+     * how many threads attempt to remove it.
+     *
+     * @param entry The entry (as opposed to key) of the item to be removed.
+     *
+     * @return true if this call removed the entry, false if it had already been removed.
+     */
+    protected boolean removeEntry(CacheEntry entry)
+    {
+        if (!entry.removed.compareAndSet(false, true))
+            return false;
+
+        // The key may already map to a replacement entry, in which case the map is left unchanged.
+        this.entries.remove(entry.key, entry);
+        this.currentUsedCapacity.addAndGet(-entry.clientObjectSize);
+
+        for (MemoryCache.CacheListener listener : this.listeners)
+        {
+            try
+            {
+                listener.entryRemoved(entry.key, entry.clientObject);
+            }
+            catch (Exception e)
+            {
+                listener.removalException(e, entry.key, entry.clientObject);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Evicts entries until the used capacity is no greater than the low water level, or the capacity if the low water
+     * level is not less than the capacity. Entries are examined in clock order, and an entry accessed since it was last
+     * examined is given a second chance. If another thread is already evicting, this thread waits for it and then
+     * evicts only what is still required.
+     */
+    protected void makeSpace()
+    {
+        this.evictionLock.lock();
+        try
+        {
+            long cap = this.capacity.get();
+            long target = this.lowWater < cap ? this.lowWater : cap;
+
+            if (this.currentUsedCapacity.get() <= cap)
+                return; // another thread made space while this one waited for the lock
+
+            // Bound the number of second chances so that readers touching entries concurrently can't keep this loop
+            // from terminating. Once the bound is reached entries are evicted in FIFO order.
+            int secondChances = this.entries.size();
+
+            while (this.currentUsedCapacity.get() > target)
+            {
+                CacheEntry entry = this.evictionQueue.poll();
+                if (entry == null)
+                    break;
+
+                if (entry.removed.get())
+                {
+                    this.staleQueueEntries.decrementAndGet();
+                    continue;
+                }
+
+                if (entry.referenced && secondChances-- > 0)
+                {
+                    entry.referenced = false;
+                    this.evictionQueue.offer(entry);
+                    continue;
+                }
+
+                this.removeEntry(entry);
+            }
+
+            if (this.staleQueueEntries.get() > this.entries.size())
+                this.purgeEvictionQueue();
+        }
+        finally
+        {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Counts an entry that left the cache other than by eviction and so remains in the eviction queue. A cache that
+     * never fills would otherwise accumulate such entries without bound, so the queue is purged once they outnumber
+     * the live entries by {@link #STALE_ENTRY_ALLOWANCE}. The purge is skipped if another thread holds the eviction
+     * lock, since that thread purges the queue itself when necessary. Each purge visits no more than about twice the
+     * number of stale entries it drops, so the cost is amortized constant time per entry.
+     */
+    protected void onStaleQueueEntry()
+    {
+        int stale = this.staleQueueEntries.incrementAndGet();
+        if (stale <= this.entries.size() + STALE_ENTRY_ALLOWANCE || !this.evictionLock.tryLock())
+            return;
+
+        try
+        {
+            this.purgeEvictionQueue();
+        }
+        finally
+        {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Drops entries that left the cache through <code>remove</code>, replacement or <code>clear</code> from the
+     * eviction queue. Called with the eviction lock held, when such entries outnumber the live entries.
+     */
+    protected void purgeEvictionQueue()
+    {
+        int purged = 0;
+        for (java.util.Iterator<CacheEntry> iter = this.evictionQueue.iterator(); iter.hasNext(); )
+        {
+            if (iter.next().removed.get())
+            {
+                iter.remove();
+                purged++;
+            }
+        }
+
+        this.staleQueueEntries.addAndGet(-purged);
+    }
+
+    /**
+     * a <code>String</code> representation of this object is returned.&nbsp; This representation consists of maximum
+     * size, current used capacity and number of currently cached items.
+     *
+     * @return a <code>String</code> representation of this object.
+     */
+    @Override
+    public String toString()
+    {
+        return "ConcurrentMemoryCache " + this.name + " max size = " + this.getCapacity() + " current size = "
+            + this.currentUsedCapacity.get() + " number of items: " + this.getNumObjects();
+    }
+}
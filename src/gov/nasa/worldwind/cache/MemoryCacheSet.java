@@ -21,6 +21,20 @@ public interface MemoryCacheSet
 
     MemoryCache addCache(String key, MemoryCache cache);
 
+    /**
+     * Creates a new, empty memory cache of the implementation this cache set is configured to use. The cache is not
+     * added to this cache set. The default implementation creates a {@link BasicMemoryCache}.
+     *
+     * @param loWater  the low water level of the new cache.
+     * @param capacity the capacity of the new cache.
+     *
+     * @return the new memory cache.
+     */
+    default MemoryCache createCache(long loWater, long capacity)
+    {
+        return new BasicMemoryCache(loWater, capacity);
+    }
+
     Collection<PerformanceStatistic> getPerformanceStatistics();
 
     void clear();
@@ -0,0 +1,793 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.regex.*;
+
+/**
+ * Holds the tiles of a tile set in a single file. Tiles are identified by level, row, column and file suffix, as in the
+ * names <code>level/row/row_column.suffix</code> used for tiles stored as individual files.
+ * <p>
+ * The archive is an append-only log of records, each holding one tile or marking the removal of one. Writing a tile
+ * that is already in the archive appends a new record that supersedes the old one. An index of the current record for
+ * each tile is built in memory when the archive is opened, and tiles are read from memory-mapped regions of the file.
+ * {@link #compact()} rewrites the archive without the superseded records. If the archive was not closed properly, an
+ * incomplete final record is discarded when the archive is next opened for writing.
+ * <p>
+ * Tiles can be addressed by URLs with the protocol {@link #URL_PROTOCOL}, created by {@link #createURL(int, int, int,
+ * String)}. The URLs can be opened like file URLs, so code that reads tiles from URLs can read them from the archive.
+ * <p>
+ * An archive may be read and written by multiple threads. Only one instance should open a given archive file.
+ */
+public class TileArchive
+{
+    /** The protocol of URLs addressing tiles in an archive. */
+    public static final String URL_PROTOCOL = "wwta";
+    /** The suffix of archive files. */
+    public static final String FILE_SUFFIX = ".wwta";
+
+    protected static final int FILE_MAGIC = 0x57575441; // "WWTA"
+    protected static final int FILE_VERSION = 1;
+    protected static final int FILE_HEADER_SIZE = 8;
+    protected static final int RECORD_MAGIC = 0x54494C45; // "TILE"
+    /** Record magic, key, modification time, data length and suffix length. */
+    protected static final int RECORD_HEADER_SIZE = 4 + 8 + 8 + 4 + 1;
+    protected static final int REMOVED = -1;
+    protected static final long MAP_WINDOW_SIZE = 1L << 28;
+    protected static final Pattern TILE_NAME_PATTERN = Pattern.compile("^(\\d+)/(\\d+)/\\2_(\\d+)(\\.[^/]*)?$");
+
+    /** The location of a tile's data in the archive file. */
+    protected static class Entry
+    {
+        protected final long recordOffset;
+        protected final long dataOffset;
+        protected final int length;
+        protected final String suffix;
+        protected final long lastModified;
+
+        public Entry(long recordOffset, long dataOffset, int length, String suffix, long lastModified)
+        {
+            this.recordOffset = recordOffset;
+            this.dataOffset = dataOffset;
+            this.length = length;
+            this.suffix = suffix;
+            this.lastModified = lastModified;
+        }
+    }
+
+    protected final File file;
+    protected final boolean readOnly;
+    protected FileChannel channel;
+    protected volatile long size;
+    protected volatile MappedByteBuffer[] windows = new MappedByteBuffer[0];
+    protected final ConcurrentHashMap<Long, Entry> index = new ConcurrentHashMap<Long, Entry>();
+    protected long liveBytes;
+    /** Serializes modifications of the archive. */
+    protected final Object writeLock = new Object();
+    /** Excludes reads while the archive file is replaced by compaction. */
+    protected final ReentrantReadWriteLock fileLock = new ReentrantReadWriteLock();
+    protected final URLStreamHandler urlHandler = new ArchiveURLStreamHandler();
+
+    /**
+     * Opens a tile archive, creating it if it does not exist and the archive is opened for writing.
+     *
+     * @param file     the archive file.
+     * @param readOnly true to open the archive for reading only, otherwise false.
+     *
+     * @throws IllegalArgumentException if the file is null.
+     * @throws IOException              if the archive cannot be opened or is not a tile archive.
+     */
+    public TileArchive(File file, boolean readOnly) throws IOException
+    {
+        if (file == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.file = file;
+        this.readOnly = readOnly;
+        this.open();
+    }
+
+    /**
+     * Creates the name used for a tile stored as an individual file, relative to the tile set's directory.
+     *
+     * @param level  the tile's level number.
+     * @param row    the tile's row.
+     * @param column the tile's column.
+     * @param suffix the tile's file suffix, including the leading period. May be null.
+     *
+     * @return the tile's name.
+     */
+    public static String makeTileName(int level, int row, int column, String suffix)
+    {
+        return level + "/" + row + "/" + row + "_" + column + (suffix != null ? suffix : "");
+    }
+
+    protected static long createKey(int level, int row, int column)
+    {
+        if (level < 0 || level > 127 || row < 0 || row >= (1 << 28) || column < 0 || column >= (1 << 28))
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange",
+                "level " + level + ", row " + row + ", column " + column);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return ((long) level << 56) | ((long) row << 28) | column;
+    }
+
+    protected static String normalizeSuffix(String suffix)
+    {
+        return suffix != null ? suffix : "";
+    }
+
+    /**
+     * Returns the archive file.
+     *
+     * @return the archive file.
+     */
+    public File getFile()
+    {
+        return this.file;
+    }
+
+    /**
+     * Indicates whether the archive was opened for reading only.
+     *
+     * @return true if the archive cannot be modified, otherwise false.
+     */
+    public boolean isReadOnly()
+    {
+        return this.readOnly;
+    }
+
+    /**
+     * Returns the number of tiles in the archive.
+     *
+     * @return the number of tiles.
+     */
+    public int getNumTiles()
+    {
+        return this.index.size();
+    }
+
+    /**
+     * Returns the size of the archive file.
+     *
+     * @return the archive's size, in bytes.
+     */
+    public long getSizeInBytes()
+    {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of bytes in the archive file occupied by the current version of each tile. The remainder of
+     * the file beyond the header is occupied by superseded records, and is recovered by {@link #compact()}.
+     *
+     * @return the number of bytes in use.
+     */
+    public long getLiveBytes()
+    {
+        synchronized (this.writeLock)
+        {
+            return this.liveBytes;
+        }
+    }
+
+    /**
+     * Indicates whether the archive contains a tile.
+     *
+     * @param level  the tile's level number.
+     * @param row    the tile's row.
+     * @param column the tile's column.
+     * @param suffix the tile's file suffix, including the leading period. May be null.
+     *
+     * @return true if the archive contains the tile, otherwise false.
+     */
+    public boolean contains(int level, int row, int column, String suffix)
+    {
+        return this.getEntry(level, row, column, suffix) != null;
+    }
+
+    /**
+     * Returns the time at which a tile was written to the archive.
+     *
+     * @param level  the tile's level number.
+     * @param row    the tile's row.
+     * @param column the tile's column.
+     * @param suffix the tile's file suffix, including the leading period. May be null.
+     *
+     * @return the tile's modification time, in milliseconds since the Epoch, or 0 if the tile is not in the archive.
+     */
+    public long getLastModified(int level, int row, int column, String suffix)
+    {
+        Entry entry = this.getEntry(level, row, column, suffix);
+        return entry != null ? entry.lastModified : 0;
+    }
+
+    protected Entry getEntry(int level, int row, int column, String suffix)
+    {
+        Entry entry = this.index.get(createKey(level, row, column));
+        return entry != null && entry.suffix.equals(normalizeSuffix(suffix)) ? entry : null;
+    }
+
+    /**
+     * Reads a tile from the archive. The returned buffer is read-only, and usually maps the tile's data in the archive
+     * file rather than copying it.
+     *
+     * @param level  the tile's level number.
+     * @param row    the tile's row.
+     * @param column the tile's column.
+     * @param suffix the tile's file suffix, including the leading period. May be null.
+     *
+     * @return the tile's data, or null if the tile is not in the archive.
+     *
+     * @throws IOException if an error occurs reading the archive.
+     */
+    public ByteBuffer read(int level, int row, int column, String suffix) throws IOException
+    {
+        this.fileLock.readLock().lock();
+        try
+        {
+            Entry entry = this.getEntry(level, row, column, suffix);
+            return entry != null ? this.readBytes(entry.dataOffset, entry.length).asReadOnlyBuffer() : null;
+        }
+        finally
+        {
+            this.fileLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a tile to the archive, superseding any tile with the same level, row and column.
+     *
+     * @param level        the tile's level number.
+     * @param row          the tile's row.
+     * @param column       the tile's column.
+     * @param suffix       the tile's file suffix, including the leading period. May be null.
+     * @param data         the tile's data, from the buffer's position to its limit.
+     * @param lastModified the tile's modification time, in milliseconds since the Epoch.
+     *
+     * @throws IllegalArgumentException if the data is null or the suffix is longer than 255 bytes.
+     * @throws IllegalStateException    if the archive is read-only.
+     * @throws IOException              if an error occurs writing the archive.
+     */
+    public void write(int level, int row, int column, String suffix, ByteBuffer data, long lastModified)
+        throws IOException
+    {
+        if (data == null)
+        {
+            String message = Logging.getMessage("nullValue.ByteBufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.appendRecord(createKey(level, row, column), normalizeSuffix(suffix), data.duplicate(), lastModified);
+    }
+
+    /**
+     * Removes a tile from the archive.
+     *
+     * @param level  the tile's level number.
+     * @param row    the tile's row.
+     * @param column the tile's column.
+     *
+     * @return true if the tile was in the archive, otherwise false.
+     *
+     * @throws IllegalStateException if the archive is read-only.
+     * @throws IOException           if an error occurs writing the archive.
+     */
+    public boolean remove(int level, int row, int column) throws IOException
+    {
+        long key = createKey(level, row, column);
+        if (!this.index.containsKey(key))
+            return false;
+
+        this.appendRecord(key, "", null, System.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * Creates a URL addressing a tile in the archive. The URL may be opened to read the tile, and is an opaque URI of
+     * the form <code>wwta:file:/path/archive.wwta!/level/row/row_column.suffix</code>. The URL is associated with this
+     * archive instance, and cannot be re-created from its string form.
+     *
+     * @param level  the tile's level number.
+     * @param row    the tile's row.
+     * @param column the tile's column.
+     * @param suffix the tile's file suffix, including the leading period. May be null.
+     *
+     * @return a URL addressing the tile.
+     */
+    public URL createURL(int level, int row, int column, String suffix)
+    {
+        String spec = URL_PROTOCOL + ":" + this.file.toURI() + "!/" + makeTileName(level, row, column, suffix);
+        try
+        {
+            return new URL(null, spec, this.urlHandler);
+        }
+        catch (MalformedURLException e)
+        {
+            Logging.logger().log(Level.SEVERE, Logging.getMessage("generic.MalformedURL", spec), e);
+            return null;
+        }
+    }
+
+    /**
+     * Indicates whether a URL addresses a tile in this archive.
+     *
+     * @param url the URL in question.
+     *
+     * @return true if the URL was created by this archive, otherwise false.
+     */
+    public boolean isArchiveURL(URL url)
+    {
+        return url != null && URL_PROTOCOL.equals(url.getProtocol())
+            && url.getFile().startsWith(this.file.toURI() + "!/");
+    }
+
+    /**
+     * Removes the tile addressed by a URL created by this archive.
+     *
+     * @param url the tile's URL.
+     *
+     * @return true if the tile was in the archive, otherwise false.
+     *
+     * @throws IOException if an error occurs writing the archive.
+     */
+    public boolean remove(URL url) throws IOException
+    {
+        Matcher matcher = this.matchURL(url);
+        return matcher != null && this.remove(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)),
+            Integer.parseInt(matcher.group(3)));
+    }
+
+    protected Matcher matchURL(URL url)
+    {
+        if (!this.isArchiveURL(url))
+            return null;
+
+        String name = url.getFile().substring(url.getFile().indexOf("!/") + 2);
+        Matcher matcher = TILE_NAME_PATTERN.matcher(name);
+        return matcher.matches() ? matcher : null;
+    }
+
+    /**
+     * Rewrites the archive without superseded and removed tiles. Tiles may be read while the archive is compacted, but
+     * writes wait until compaction is complete.
+     *
+     * @throws IllegalStateException if the archive is read-only.
+     * @throws IOException           if an error occurs rewriting the archive. The archive is unchanged in this case.
+     */
+    public void compact() throws IOException
+    {
+        this.checkWritable();
+
+        synchronized (this.writeLock)
+        {
+            File tempFile = new File(this.file.getPath() + ".compact");
+            Map<Long, Entry> newIndex = new HashMap<Long, Entry>();
+
+            // Copy the current records in file order, so that the archive's layout follows the order tiles were added.
+            List<Map.Entry<Long, Entry>> entries = new ArrayList<Map.Entry<Long, Entry>>(this.index.entrySet());
+            Collections.sort(entries, new Comparator<Map.Entry<Long, Entry>>()
+            {
+                public int compare(Map.Entry<Long, Entry> a, Map.Entry<Long, Entry> b)
+                {
+                    return Long.compare(a.getValue().recordOffset, b.getValue().recordOffset);
+                }
+            });
+
+            FileChannel out = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            try
+            {
+                long position = this.writeFileHeader(out);
+                for (Map.Entry<Long, Entry> e : entries)
+                {
+                    Entry entry = e.getValue();
+                    ByteBuffer data = this.readBytes(entry.dataOffset, entry.length);
+                    Entry newEntry = this.writeRecord(out, position, e.getKey(), entry.suffix, data,
+                        entry.lastModified);
+                    newIndex.put(e.getKey(), newEntry);
+                    position = newEntry.dataOffset + newEntry.length;
+                }
+                out.force(true);
+            }
+            catch (IOException e)
+            {
+                out.close();
+                tempFile.delete();
+                throw e;
+            }
+            out.close();
+
+            this.fileLock.writeLock().lock();
+            try
+            {
+                this.channel.close();
+                Files.move(tempFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+                this.channel = this.openChannel();
+                this.size = this.channel.size();
+                this.liveBytes = this.size - FILE_HEADER_SIZE;
+                this.windows = new MappedByteBuffer[0];
+                this.index.clear();
+                this.index.putAll(newIndex);
+            }
+            finally
+            {
+                this.fileLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Closes the archive. The archive cannot be used after it is closed.
+     *
+     * @throws IOException if an error occurs closing the archive file.
+     */
+    public void close() throws IOException
+    {
+        synchronized (this.writeLock)
+        {
+            this.fileLock.writeLock().lock();
+            try
+            {
+                this.channel.close();
+                this.windows = new MappedByteBuffer[0];
+                this.index.clear();
+            }
+            finally
+            {
+                this.fileLock.writeLock().unlock();
+            }
+        }
+    }
+
+    //**************************************************************//
+    //********************  Archive File  **************************//
+    //**************************************************************//
+
+    protected FileChannel openChannel() throws IOException
+    {
+        if (this.readOnly)
+            return FileChannel.open(this.file.toPath(), StandardOpenOption.READ);
+        else
+            return FileChannel.open(this.file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+    }
+
+    protected void open() throws IOException
+    {
+        this.channel = this.openChannel();
+        this.size = this.channel.size();
+
+        if (this.size == 0 && !this.readOnly)
+        {
+            this.size = this.writeFileHeader(this.channel);
+            return;
+        }
+
+        ByteBuffer header = this.size >= FILE_HEADER_SIZE ? this.readBytes(0, FILE_HEADER_SIZE) : null;
+        if (header == null || header.getInt() != FILE_MAGIC || header.getInt() != FILE_VERSION)
+        {
+            this.channel.close();
+            String message = Logging.getMessage("FileStore.NotATileArchive", this.file.getPath());
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        long position = FILE_HEADER_SIZE;
+        while (position + RECORD_HEADER_SIZE <= this.size)
+        {
+            ByteBuffer record = this.readBytes(position, RECORD_HEADER_SIZE);
+            if (record.getInt() != RECORD_MAGIC)
+                break;
+
+            long key = record.getLong();
+            long lastModified = record.getLong();
+            int length = record.getInt();
+            int suffixLength = record.get() & 0xFF;
+            long dataOffset = position + RECORD_HEADER_SIZE + suffixLength;
+            if (dataOffset + Math.max(length, 0) > this.size)
+                break; // incomplete record
+
+            if (length == REMOVED)
+            {
+                this.indexRecord(key, null);
+            }
+            else
+            {
+                ByteBuffer suffix = this.readBytes(position + RECORD_HEADER_SIZE, suffixLength);
+                this.indexRecord(key, new Entry(position, dataOffset, length,
+                    StandardCharsets.UTF_8.decode(suffix).toString(), lastModified));
+            }
+
+            position = dataOffset + Math.max(length, 0);
+        }
+
+        // Discard anything following the last complete record, which is left when writing a record is interrupted.
+        if (position < this.size && !this.readOnly)
+        {
+            Logging.logger().warning(Logging.getMessage("FileStore.TileArchiveTruncated", this.file.getPath()));
+            this.channel.truncate(position);
+            this.windows = new MappedByteBuffer[0];
+        }
+        this.size = position;
+    }
+
+    protected long writeFileHeader(FileChannel channel) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(FILE_MAGIC).putInt(FILE_VERSION).flip();
+        writeFully(channel, header, 0);
+
+        return FILE_HEADER_SIZE;
+    }
+
+    protected void indexRecord(long key, Entry entry)
+    {
+        Entry old = entry != null ? this.index.put(key, entry) : this.index.remove(key);
+        if (old != null)
+            this.liveBytes -= old.dataOffset + old.length - old.recordOffset;
+        if (entry != null)
+            this.liveBytes += entry.dataOffset + entry.length - entry.recordOffset;
+    }
+
+    protected void appendRecord(long key, String suffix, ByteBuffer data, long lastModified) throws IOException
+    {
+        this.checkWritable();
+
+        synchronized (this.writeLock)
+        {
+            Entry entry = this.writeRecord(this.channel, this.size, key, suffix, data, lastModified);
+            this.size = entry.dataOffset + Math.max(entry.length, 0);
+            this.indexRecord(key, data != null ? entry : null);
+        }
+    }
+
+    protected Entry writeRecord(FileChannel channel, long position, long key, String suffix, ByteBuffer data,
+        long lastModified) throws IOException
+    {
+        byte[] suffixBytes = suffix.getBytes(StandardCharsets.UTF_8);
+        if (suffixBytes.length > 255)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "suffix " + suffix);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int length = data != null ? data.remaining() : REMOVED;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE + suffixBytes.length);
+        header.putInt(RECORD_MAGIC).putLong(key).putLong(lastModified).putInt(length).put((byte) suffixBytes.length);
+        header.put(suffixBytes).flip();
+
+        long dataOffset = position + header.remaining();
+        writeFully(channel, header, position);
+        if (data != null)
+            writeFully(channel, data, dataOffset);
+
+        return new Entry(position, dataOffset, length, suffix, lastModified);
+    }
+
+    protected static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Returns bytes from the archive file. Bytes within one mapped window of the file are returned as a view of the
+     * window. Otherwise they're read into a new buffer.
+     *
+     * @param position the position of the first byte in the file.
+     * @param length   the number of bytes.
+     *
+     * @return a buffer containing the bytes, positioned at the first.
+     *
+     * @throws IOException if an error occurs reading the file.
+     */
+    protected ByteBuffer readBytes(long position, int length) throws IOException
+    {
+        int windowIndex = (int) (position / MAP_WINDOW_SIZE);
+        long windowStart = windowIndex * MAP_WINDOW_SIZE;
+        long end = position + length;
+
+        if (end <= windowStart + MAP_WINDOW_SIZE)
+        {
+            MappedByteBuffer window = this.getWindow(windowIndex, end - windowStart);
+            ByteBuffer bytes = window.duplicate();
+            bytes.position((int) (position - windowStart)).limit((int) (end - windowStart));
+            return bytes.slice();
+        }
+
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        while (bytes.hasRemaining())
+        {
+            int count = this.channel.read(bytes, position + bytes.position());
+            if (count < 0)
+                throw new EOFException(this.file.getPath());
+        }
+        bytes.flip();
+
+        return bytes;
+    }
+
+    protected MappedByteBuffer getWindow(int windowIndex, long minSize) throws IOException
+    {
+        MappedByteBuffer[] windows = this.windows;
+        if (windowIndex < windows.length && windows[windowIndex] != null
+            && windows[windowIndex].capacity() >= minSize)
+            return windows[windowIndex];
+
+        synchronized (this)
+        {
+            windows = this.windows;
+            if (windowIndex < windows.length && windows[windowIndex] != null
+                && windows[windowIndex].capacity() >= minSize)
+                return windows[windowIndex];
+
+            // Map the window up to the current end of the file. The window is mapped again as the file grows.
+            long windowStart = windowIndex * MAP_WINDOW_SIZE;
+            long windowSize = Math.min(MAP_WINDOW_SIZE, this.channel.size() - windowStart);
+            MappedByteBuffer window = this.channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+
+            MappedByteBuffer[] newWindows = Arrays.copyOf(windows, Math.max(windows.length, windowIndex + 1));
+            newWindows[windowIndex] = window;
+            this.windows = newWindows;
+
+            return window;
+        }
+    }
+
+    protected void checkWritable()
+    {
+        if (this.readOnly)
+        {
+            String message = Logging.getMessage("FileStore.TileArchiveReadOnly", this.file.getPath());
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+    }
+
+    //**************************************************************//
+    //********************  Archive URLs  **************************//
+    //**************************************************************//
+
+    protected class ArchiveURLStreamHandler extends URLStreamHandler
+    {
+        @Override
+        protected URLConnection openConnection(URL url) throws IOException
+        {
+            return new ArchiveURLConnection(url);
+        }
+    }
+
+    protected class ArchiveURLConnection extends URLConnection
+    {
+        protected int level;
+        protected int row;
+        protected int column;
+        protected String suffix;
+        protected ByteBuffer data;
+
+        public ArchiveURLConnection(URL url)
+        {
+            super(url);
+        }
+
+        @Override
+        public void connect() throws IOException
+        {
+            if (this.connected)
+                return;
+
+            Matcher matcher = matchURL(this.url);
+            if (matcher == null)
+                throw new MalformedURLException(this.url.toString());
+
+            this.level = Integer.parseInt(matcher.group(1));
+            this.row = Integer.parseInt(matcher.group(2));
+            this.column = Integer.parseInt(matcher.group(3));
+            this.suffix = matcher.group(4);
+            this.data = read(this.level, this.row, this.column, this.suffix);
+            if (this.data == null)
+                throw new FileNotFoundException(this.url.toString());
+
+            this.connected = true;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException
+        {
+            this.connect();
+
+            final ByteBuffer buffer = this.data.duplicate();
+            return new InputStream()
+            {
+                @Override
+                public int read()
+                {
+                    return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length)
+                {
+                    if (length == 0)
+                        return 0;
+                    if (!buffer.hasRemaining())
+                        return -1;
+
+                    length = Math.min(length, buffer.remaining());
+                    buffer.get(bytes, offset, length);
+                    return length;
+                }
+
+                @Override
+                public int available()
+                {
+                    return buffer.remaining();
+                }
+            };
+        }
+
+        @Override
+        public long getContentLengthLong()
+        {
+            try
+            {
+                this.connect();
+                return this.data.remaining();
+            }
+            catch (IOException e)
+            {
+                return -1;
+            }
+        }
+
+        @Override
+        public String getContentType()
+        {
+            Matcher matcher = matchURL(this.url);
+            String suffix = matcher != null ? matcher.group(4) : null;
+            return suffix != null ? WWIO.makeMimeTypeForSuffix(suffix.substring(1)) : null;
+        }
+
+        @Override
+        public long getLastModified()
+        {
+            try
+            {
+                this.connect();
+                return TileArchive.this.getLastModified(this.level, this.row, this.column, this.suffix);
+            }
+            catch (IOException e)
+            {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,429 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+
+/**
+ * A {@link FileStore} that holds tiles in {@link TileArchive}s, one for each tile set, rather than as individual files.
+ * A tile set's archive is the file <code>name.wwta</code> next to the tile set's directory <code>name</code>, and holds
+ * the tiles whose paths have the form <code>name/level/row/row_column.suffix</code>, which is the form used by {@link
+ * gov.nasa.worldwind.layers.TiledImageLayer} and {@link gov.nasa.worldwind.terrain.BasicElevationModel}.
+ * <p>
+ * {@link #findFile(String, boolean)} returns URLs that address tiles within archives. The URLs can be read like file
+ * URLs, so layers and elevation models read archived tiles without modification. Files that are not tiles, and tiles
+ * not in an archive, are found as they are by {@link AsyncDataFileStore}.
+ * <p>
+ * Tiles are retrieved to individual files in the write location as usual. When such a tile is found, it is added to
+ * its tile set's archive in the write location in the background, and the individual file is removed shortly after.
+ * Existing tile sets can be added to archives with {@link #importTiles(String)}, and archives are rewritten without
+ * superseded and removed tiles by {@link #compactArchives()}.
+ * <p>
+ * Archived tiles are not included in the results of {@link #listFileNames(String, FileStoreFilter)} and the related
+ * methods.
+ */
+public class TileArchiveFileStore extends AsyncDataFileStore
+{
+    /** The minimum age, in milliseconds, of a tile file added to an archive. Younger files may still be being written. */
+    protected static final long MIN_IMPORT_AGE = 10000;
+    /** The time, in milliseconds, that a tile file remains after it's added to an archive. */
+    protected static final long IMPORTED_FILE_REMOVAL_DELAY = 30000;
+
+    /** Maps tile set names to their archives. */
+    protected final ConcurrentHashMap<String, TileArchive> archives = new ConcurrentHashMap<String, TileArchive>();
+    /** Tile set names known to have no archive. */
+    protected final Set<String> missingArchives = ConcurrentHashMap.newKeySet();
+    protected final Set<String> pendingImports = ConcurrentHashMap.newKeySet();
+    protected ScheduledExecutorService removalExecutor;
+
+    /**
+     * Create an instance using the configured file store locations.
+     *
+     * @throws IllegalStateException if the configuration file name cannot be determined from {@link
+     *                               gov.nasa.worldwind.Configuration} or the configuration file cannot be found.
+     */
+    public TileArchiveFileStore()
+    {
+        this.removalExecutor = this.createRemovalExecutor();
+    }
+
+    /**
+     * Create an instance to manage a specified directory.
+     *
+     * @param directoryPath the directory to manage as a file store.
+     */
+    public TileArchiveFileStore(File directoryPath)
+    {
+        super(directoryPath);
+
+        this.removalExecutor = this.createRemovalExecutor();
+    }
+
+    protected ScheduledExecutorService createRemovalExecutor()
+    {
+        return Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + " Cleanup");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    public void addLocation(int index, String newPath, boolean isInstall)
+    {
+        super.addLocation(index, newPath, isInstall);
+
+        if (this.missingArchives != null) // the superclass adds locations before this instance is initialized
+            this.missingArchives.clear();
+    }
+
+    //**************************************************************//
+    //********************  Archives  ******************************//
+    //**************************************************************//
+
+    /**
+     * Returns the archive of a tile set, opening it if necessary. The read locations are searched in order for the
+     * archive. An archive in the write location is opened for writing, and others for reading only.
+     *
+     * @param tileSetName the tile set's name, the path of the tile set's directory relative to the store's root.
+     * @param create      true to create the archive in the write location if no location contains it.
+     *
+     * @return the archive, or null if it does not exist and is not created.
+     */
+    protected TileArchive getArchive(String tileSetName, boolean create)
+    {
+        TileArchive archive = this.archives.get(tileSetName);
+        if (archive != null || (!create && this.missingArchives.contains(tileSetName)))
+            return archive;
+
+        synchronized (this.archives)
+        {
+            archive = this.archives.get(tileSetName);
+            if (archive != null)
+                return archive;
+
+            String archiveName = tileSetName + TileArchive.FILE_SUFFIX;
+            for (StoreLocation location : this.readLocations)
+            {
+                File file = makeAbsoluteFile(location.getFile(), archiveName);
+                if (!file.isFile() && !(create && location == this.writeLocation))
+                    continue;
+
+                try
+                {
+                    if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs())
+                        continue;
+
+                    archive = new TileArchive(file, location != this.writeLocation);
+                    this.archives.put(tileSetName, archive);
+                    this.missingArchives.remove(tileSetName);
+                    return archive;
+                }
+                catch (IOException e)
+                {
+                    String message = Logging.getMessage("FileStore.ExceptionOpeningTileArchive", file.getPath());
+                    Logging.logger().log(Level.SEVERE, message, e);
+                }
+            }
+
+            this.missingArchives.add(tileSetName);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the archives that have been opened.
+     *
+     * @return the open archives.
+     */
+    public Collection<TileArchive> getArchives()
+    {
+        return Collections.unmodifiableCollection(this.archives.values());
+    }
+
+    /**
+     * Rewrites the writable archives without superseded and removed tiles.
+     *
+     * @throws IOException if an error occurs rewriting an archive.
+     */
+    public void compactArchives() throws IOException
+    {
+        for (TileArchive archive : this.archives.values())
+        {
+            if (!archive.isReadOnly())
+                archive.compact();
+        }
+    }
+
+    /**
+     * Adds the tiles of a tile set held as individual files in the write location to the tile set's archive in the
+     * write location, and removes the individual files that were added. Files that can't be added are left in place.
+     *
+     * @param tileSetName the tile set's name, the path of the tile set's directory relative to the store's root.
+     *
+     * @return the number of tiles added.
+     *
+     * @throws IllegalArgumentException if the tile set name is null or empty.
+     * @throws IOException              if an error occurs reading a tile or writing the archive.
+     */
+    public int importTiles(String tileSetName) throws IOException
+    {
+        if (WWUtil.isEmpty(tileSetName))
+        {
+            String message = Logging.getMessage("nullValue.FilePathIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        final String name = makeIndexName(tileSetName);
+        if (this.writeLocation == null)
+            return 0;
+
+        final Path root = this.writeLocation.getFile().toPath();
+        Path dir = root.resolve(name);
+        if (!Files.isDirectory(dir))
+            return 0;
+
+        final List<Path> files = new ArrayList<Path>();
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+            {
+                if (attrs.isRegularFile() && TILE_PATH_PATTERN.matcher(makeIndexName(root.relativize(file))).matches())
+                    files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        int count = 0;
+        for (Path file : files)
+        {
+            if (!this.importTile(makeIndexName(root.relativize(file)), file.toFile()))
+                continue;
+
+            this.removeImportedFile(file.toFile());
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Adds a tile held as an individual file to its tile set's archive in the write location.
+     *
+     * @param name the tile's file store name.
+     * @param file the tile's file.
+     *
+     * @return true if the tile was added, otherwise false.
+     *
+     * @throws IOException if an error occurs reading the tile or writing the archive.
+     */
+    protected boolean importTile(String name, File file) throws IOException
+    {
+        Matcher matcher = TILE_PATH_PATTERN.matcher(name);
+        if (!matcher.matches() || matcher.group(1) == null)
+            return false;
+
+        TileArchive archive = this.getArchive(WWIO.stripTrailingSeparator(matcher.group(1)), true);
+        if (archive == null || archive.isReadOnly())
+            return false;
+
+        long lastModified = file.lastModified();
+        ByteBuffer buffer = WWIO.readFileToBuffer(file);
+        archive.write(Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)),
+            Integer.parseInt(matcher.group(4)), matcher.group(5), buffer, lastModified);
+
+        return true;
+    }
+
+    /**
+     * Adds a tile held as an individual file in the write location to its archive in the background, if the file is
+     * old enough not to be still being written. The file is removed after a delay, to allow readers that found the file
+     * before it was archived to finish reading it.
+     *
+     * @param name the tile's file store name.
+     * @param url  the URL of the tile's file.
+     */
+    protected void importTileLater(final String name, URL url)
+    {
+        final File file = WWIO.convertURLToFile(url);
+        if (file == null || this.writeLocation == null
+            || !file.getPath().startsWith(this.writeLocation.getFile().getPath())
+            || System.currentTimeMillis() - file.lastModified() < MIN_IMPORT_AGE
+            || !this.pendingImports.add(name))
+            return;
+
+        this.executor.execute(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    if (importTile(name, file))
+                    {
+                        removalExecutor.schedule(new Runnable()
+                        {
+                            public void run()
+                            {
+                                removeImportedFile(file);
+                                pendingImports.remove(name);
+                            }
+                        }, IMPORTED_FILE_REMOVAL_DELAY, TimeUnit.MILLISECONDS);
+                        return;
+                    }
+                }
+                catch (IOException e)
+                {
+                    String message = Logging.getMessage("FileStore.ExceptionAddingToTileArchive", file.getPath());
+                    Logging.logger().log(Level.SEVERE, message, e);
+                }
+
+                pendingImports.remove(name);
+            }
+        });
+    }
+
+    protected void removeImportedFile(File file)
+    {
+        try
+        {
+            super.removeFile(file.toURI().toURL());
+        }
+        catch (MalformedURLException e)
+        {
+            Logging.logger().log(Level.SEVERE, Logging.getMessage("FileStore.ExceptionRemovingFile", file.getPath()),
+                e);
+        }
+    }
+
+    /**
+     * Returns the URL of a tile in an archive.
+     *
+     * @param name the tile's normalized file store name.
+     *
+     * @return the tile's URL, or null if the name does not identify a tile or the tile is not in an archive.
+     */
+    protected URL findArchivedTile(String name)
+    {
+        Matcher matcher = TILE_PATH_PATTERN.matcher(name);
+        if (!matcher.matches() || matcher.group(1) == null)
+            return null;
+
+        TileArchive archive = this.getArchive(WWIO.stripTrailingSeparator(matcher.group(1)), false);
+        if (archive == null)
+            return null;
+
+        int level = Integer.parseInt(matcher.group(2));
+        int row = Integer.parseInt(matcher.group(3));
+        int column = Integer.parseInt(matcher.group(4));
+        String suffix = matcher.group(5);
+
+        return archive.contains(level, row, column, suffix) ? archive.createURL(level, row, column, suffix) : null;
+    }
+
+    protected TileArchive archiveForURL(URL url)
+    {
+        for (TileArchive archive : this.archives.values())
+        {
+            if (archive.isArchiveURL(url))
+                return archive;
+        }
+
+        return null;
+    }
+
+    //**************************************************************//
+    //********************  File Store Contents  *******************//
+    //**************************************************************//
+
+    @Override
+    public boolean containsFile(String fileName)
+    {
+        return fileName != null && (this.findArchivedTile(makeIndexName(fileName)) != null
+            || super.containsFile(fileName));
+    }
+
+    /** {@inheritDoc} Tiles in archives are found first, and are addressed by archive URLs. */
+    @Override
+    public URL findFile(String fileName, boolean checkClassPath)
+    {
+        if (fileName == null)
+        {
+            String message = Logging.getMessage("nullValue.FilePathIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        String name = makeIndexName(fileName);
+        URL url = this.findArchivedTile(name);
+        if (url != null)
+            return url;
+
+        url = super.findFile(fileName, checkClassPath);
+        if (url != null && "file".equals(url.getProtocol()) && TILE_PATH_PATTERN.matcher(name).matches())
+            this.importTileLater(name, url);
+
+        return url;
+    }
+
+    /** {@inheritDoc} Removes tiles in archives when given an archive URL. */
+    @Override
+    public void removeFile(URL url)
+    {
+        if (url == null)
+        {
+            String msg = Logging.getMessage("nullValue.URLIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (!TileArchive.URL_PROTOCOL.equals(url.getProtocol()))
+        {
+            super.removeFile(url);
+            return;
+        }
+
+        TileArchive archive = this.archiveForURL(url);
+        if (archive == null || archive.isReadOnly())
+            return;
+
+        try
+        {
+            archive.remove(url);
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(Level.SEVERE, Logging.getMessage("FileStore.ExceptionRemovingFile", url.toString()),
+                e);
+        }
+    }
+
+    @Override
+    protected ByteBuffer doReadFile(String name) throws IOException
+    {
+        URL url = this.findArchivedTile(name);
+        if (url != null)
+            return WWIO.readURLContentToBuffer(url);
+
+        return super.doReadFile(name);
+    }
+}
@@ -14,6 +14,7 @@ import gov.nasa.worldwind.util.*;
 
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.concurrent.locks.*;
 import java.util.logging.Level;
 
 /**
@@ -38,7 +39,11 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
     protected MemoryCache rasterCache = null;
     protected MemoryCache.CacheListener cacheListener = null;
 
-    protected final Object rasterUsageLock = new Object();
+    /**
+     * Held for reading while the rasters are in use, so that rasters may be drawn by several threads at once. Held for
+     * writing while rasters removed from the cache are disposed.
+     */
+    protected final ReadWriteLock rasterUsageLock = new ReentrantReadWriteLock();
     protected final Object rasterRetrievalLock = new Object();
 
     protected String[] requiredKeys = new String[] {AVKey.SECTOR, AVKey.PIXEL_FORMAT};
@@ -85,7 +90,7 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
         this.rasterCache = cache;
         if (this.rasterCache != null)
         {
-            this.cacheListener = new CacheListener(this.dataSource);
+            this.cacheListener = new CacheListener(this.dataSource, this.rasterUsageLock);
             this.rasterCache.addCacheListener(this.cacheListener);
         }
     }
@@ -280,71 +285,75 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
 
     public void drawOnTo(DataRaster canvas)
     {
-        synchronized (this.rasterUsageLock)
+        this.rasterUsageLock.readLock().lock();
+        try
         {
+            DataRaster[] rasters;
             try
             {
-                DataRaster[] rasters;
-                try
+                rasters = this.getDataRasters();
+                for (DataRaster raster : rasters)
                 {
-                    rasters = this.getDataRasters();
-                    for (DataRaster raster : rasters)
-                    {
-                        raster.drawOnTo(canvas);
-                    }
-                }
-                catch (OutOfMemoryError e)
-                {
-                    Logging.logger().finest(this.composeExceptionReason(e));
-                    this.releaseMemory();
-
-                    rasters = this.getDataRasters();
-                    for (DataRaster raster : rasters)
-                    {
-                        raster.drawOnTo(canvas);
-                    }
+                    raster.drawOnTo(canvas);
                 }
             }
-            catch (Throwable t)
+            catch (OutOfMemoryError e)
             {
-                String reason = this.composeExceptionReason(t);
-                Logging.logger().log(Level.SEVERE, reason, t);
+                Logging.logger().finest(this.composeExceptionReason(e));
+                this.releaseMemory();
+
+                rasters = this.getDataRasters();
+                for (DataRaster raster : rasters)
+                {
+                    raster.drawOnTo(canvas);
+                }
             }
         }
+        catch (Throwable t)
+        {
+            String reason = this.composeExceptionReason(t);
+            Logging.logger().log(Level.SEVERE, reason, t);
+        }
+        finally
+        {
+            this.rasterUsageLock.readLock().unlock();
+        }
     }
 
     public DataRaster getSubRaster(AVList params)
     {
-        synchronized (this.rasterUsageLock)
+        this.rasterUsageLock.readLock().lock();
+        try
         {
+            DataRaster[] rasters;
             try
             {
-                DataRaster[] rasters;
-                try
-                {
-                    rasters = this.getDataRasters();
-                    return rasters[0].getSubRaster(params);
-                }
-                catch (OutOfMemoryError e)
-                {
-                    Logging.logger().finest(this.composeExceptionReason(e));
-                    this.releaseMemory();
-
-                    // let's retry after the finalization and GC
-                    rasters = this.getDataRasters();
-                    return rasters[0].getSubRaster(params);
-                }
+                rasters = this.getDataRasters();
+                return rasters[0].getSubRaster(params);
             }
-            catch (Throwable t)
+            catch (OutOfMemoryError e)
             {
-                String reason = this.composeExceptionReason(t);
-                Logging.logger().log(Level.SEVERE, reason, t);
-            }
+                Logging.logger().finest(this.composeExceptionReason(e));
+                this.releaseMemory();
 
-            String message = Logging.getMessage("generic.CannotCreateRaster", this.getDataSource());
-            Logging.logger().severe(message);
-            throw new WWRuntimeException(message);
+                // let's retry after the finalization and GC
+                rasters = this.getDataRasters();
+                return rasters[0].getSubRaster(params);
+            }
+        }
+        catch (Throwable t)
+        {
+            String reason = this.composeExceptionReason(t);
+            Logging.logger().log(Level.SEVERE, reason, t);
+        }
+        finally
+        {
+            this.rasterUsageLock.readLock().unlock();
         }
+
+        String message = Logging.getMessage("generic.CannotCreateRaster", this.getDataSource());
+        Logging.logger().severe(message);
+        throw new WWRuntimeException(message);
     }
 
     public DataRaster getSubRaster(int width, int height, Sector sector, AVList params)
@@ -413,10 +422,12 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
     private static class CacheListener implements MemoryCache.CacheListener
     {
         private Object key;
+        private ReadWriteLock usageLock;
 
-        private CacheListener(Object key)
+        private CacheListener(Object key, ReadWriteLock usageLock)
         {
             this.key = key;
+            this.usageLock = usageLock;
         }
 
         public void entryRemoved(Object key, Object clientObject)
@@ -431,6 +442,11 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
                 return;
             }
 
+            // Don't dispose rasters that another thread is drawing. They're released to the garbage collector
+            // instead. Waiting for the lock could deadlock with a thread that is reading another raster.
+            if (!this.usageLock.writeLock().tryLock())
+                return;
+
             try
             {
                 disposeRasters((DataRaster[]) clientObject);
@@ -440,6 +456,10 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
                 String message = Logging.getMessage("generic.ExceptionWhileDisposing", clientObject);
                 Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
             }
+            finally
+            {
+                this.usageLock.writeLock().unlock();
+            }
         }
 
         public void removalException(Throwable t, Object key, Object clientObject)
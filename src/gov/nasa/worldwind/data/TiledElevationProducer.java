@@ -10,8 +10,9 @@ import gov.nasa.worldwind.cache.MemoryCache;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.terrain.BasicElevationModel;
 import gov.nasa.worldwind.util.*;
-import org.w3c.dom.Document;
+import org.w3c.dom.*;
 
+import javax.xml.xpath.XPath;
 import java.io.IOException;
 
 /**
@@ -302,13 +303,14 @@ public class TiledElevationProducer extends TiledRasterProducer
     {
         // There used to be code here to update the extremes only when processing tiles in the highest-resolution
         // level. But that caused the extremes not to be determined at all when a full pyramid isn't generated. We
-        // now update the extremes for every tile, not just the highest resolution ones.
+        // now update the extremes for every tile, not just the highest resolution ones. Tiles are installed by several
+        // threads in parallel production, so updating the extremes is synchronized.
         this.updateExtremeElevations(tileRaster);
 
         super.installTileRasterLater(levelSet, tile, tileRaster, params);
     }
 
-    protected void updateExtremeElevations(DataRaster raster)
+    protected synchronized void updateExtremeElevations(DataRaster raster)
     {
         if (!(raster instanceof BufferWrapperRaster))
         {
@@ -341,16 +343,107 @@ public class TiledElevationProducer extends TiledRasterProducer
             }
         }
 
-        if (this.extremes[0] > tileExtremes[0])
+        this.addExtremeElevations(tileExtremes[0], tileExtremes[1]);
+    }
+
+    protected synchronized void addExtremeElevations(double min, double max)
+    {
+        if (this.extremes == null)
+        {
+            this.extremes = WWUtil.defaultMinMix();
+        }
+
+        if (this.extremes[0] > min)
         {
-            this.extremes[0] = tileExtremes[0];
+            this.extremes[0] = min;
         }
-        if (this.extremes[1] < tileExtremes[1])
+        if (this.extremes[1] < max)
         {
-            this.extremes[1] = tileExtremes[1];
+            this.extremes[1] = max;
         }
     }
 
+    /**
+     * Overridden to start from the previous production's extreme elevations when only the changed tiles are produced,
+     * since the tiles that are up to date are not installed again. The extremes then still include the elevations of
+     * sources removed or modified since the previous production.
+     *
+     * @param levelSet the level set being produced.
+     * @param params   the installation parameters.
+     */
+    @Override
+    protected void initIncrementalProduction(LevelSet levelSet, AVList params)
+    {
+        super.initIncrementalProduction(levelSet, params);
+
+        Element config = this.getPreviousConfig();
+        if (config != null)
+        {
+            XPath xpath = WWXML.makeXPath();
+            Double min = WWXML.getDouble(config, "ExtremeElevations/@min", xpath);
+            Double max = WWXML.getDouble(config, "ExtremeElevations/@max", xpath);
+            if (min != null && max != null)
+            {
+                this.addExtremeElevations(min, max);
+            }
+        }
+    }
+
+    /**
+     * Overridden to record the extreme elevations of the tiles installed so far, so that an interrupted production
+     * resumes with the extremes of the tiles it does not install again.
+     *
+     * @return the extreme elevations, or null if no elevations have been installed.
+     */
+    @Override
+    protected synchronized String getProductionState()
+    {
+        if (this.extremes == null)
+        {
+            return null;
+        }
+
+        return this.extremes[0] + " " + this.extremes[1];
+    }
+
+    @Override
+    protected void restoreProductionState(String state)
+    {
+        String[] tokens = state.split(" ");
+        if (tokens.length == 2)
+        {
+            Double min = WWUtil.convertStringToDouble(tokens[0]);
+            Double max = WWUtil.convertStringToDouble(tokens[1]);
+            if (min != null && max != null)
+            {
+                this.addExtremeElevations(min, max);
+            }
+        }
+    }
+
+    /**
+     * Overridden to read installed tiles with the missing data value as their transparent value, as the tiles were
+     * created with.
+     *
+     * @param tile   the tile.
+     * @param params the installation parameters.
+     *
+     * @return the parameters describing the installed tile.
+     */
+    @Override
+    protected AVList createInstalledTileParameters(Tile tile, AVList params)
+    {
+        AVList readParams = super.createInstalledTileParameters(tile, params);
+
+        Object o = params.getValue(AVKey.MISSING_DATA_REPLACEMENT);
+        if (o != null && o instanceof Double)
+        {
+            readParams.setValue(AVKey.MISSING_DATA_SIGNAL, o);
+        }
+
+        return readParams;
+    }
+
     /**
      * Returns an ElevationModel configuration document which describes the tiled elevation data produced by this
      * TiledElevationProducer. The document's contents are based on the configuration document for a basic
@@ -29,6 +29,7 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
     private static final int DEFAULT_TILE_WIDTH_AND_HEIGHT = 512;
     private static final int DEFAULT_SINGLE_LEVEL_TILE_WIDTH_AND_HEIGHT = 512;
     private static final double DEFAULT_LEVEL_ZERO_TILE_DELTA = 36d;
+    private static final long LEVEL_PROGRESS_INTERVAL = 1000L; // 1 second
 
     // List of source data rasters.
     private java.util.List<DataRaster> dataRasterList = new java.util.ArrayList<DataRaster>();
@@ -41,6 +42,20 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
     // Progress counters.
     private int tile;
     private int tileCount;
+    private int[] levelTiles;
+    private int[] levelTileCounts;
+    private long progressStartTime;
+    private long lastLevelProgressTime;
+    private final Object progressLock = new Object();
+    // Incremental production state. Changed sectors are null when all tiles are produced.
+    private java.util.List<Sector> changedSectors;
+    private Element previousConfig;
+    private java.util.Set<String> completedTiles = new java.util.HashSet<String>();
+    private final java.util.Map<String, Integer> pendingTileWrites = new java.util.HashMap<String, Integer>();
+    private final java.util.Set<String> producedTiles = new java.util.HashSet<String>();
+    private java.io.Writer productionStateWriter;
+    private File productionStateFile;
+    private final Object productionStateLock = new Object();
 
     private DataRasterReaderFactory readerFactory;
 
@@ -187,22 +202,36 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         // Initialize the level set parameters, and create the level set.
         this.initLevelSetParameters(this.productionParams);
         LevelSet levelSet = new LevelSet(this.productionParams);
-        // Install the each tiles of the LevelSet.
-        this.installLevelSet(levelSet, this.productionParams);
+        // Determine which tiles must be produced, and where an interrupted production stopped.
+        this.initIncrementalProduction(levelSet, this.productionParams);
 
-        // Wait for concurrent tasks to complete.
-        this.waitForInstallTileTasks();
+        try
+        {
+            // Install the each tiles of the LevelSet.
+            this.installLevelSet(levelSet, this.productionParams);
 
-        // Clear the raster cache.
-        this.getCache().clear();
+            // Wait for concurrent tasks to complete.
+            this.waitForInstallTileTasks();
 
-        // Install the data descriptor for this tiled raster set.
-        this.installConfigFile(this.productionParams);
+            // Clear the raster cache.
+            this.getCache().clear();
 
-        if (AVKey.SERVICE_NAME_LOCAL_RASTER_SERVER.equals(this.productionParams.getValue(AVKey.SERVICE_NAME)))
+            // Install the data descriptor for this tiled raster set.
+            this.installConfigFile(this.productionParams);
+
+            if (AVKey.SERVICE_NAME_LOCAL_RASTER_SERVER.equals(this.productionParams.getValue(AVKey.SERVICE_NAME)))
+            {
+                this.installRasterServerConfigFile(this.productionParams);
+            }
+        }
+        finally
         {
-            this.installRasterServerConfigFile(this.productionParams);
+            this.closeProductionState();
         }
+
+        // The production is complete, so there's nothing left to resume.
+        if (!this.isStopped())
+            this.removeProductionStateFile(this.productionParams);
     }
 
     protected String validateProductionParameters(AVList parameters)
@@ -503,6 +532,41 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         this.calculateTileCount(levelSet, params);
         this.startProgress();
 
+        java.util.List<Tile> tiles = this.createLevelZeroTiles(levelSet);
+
+        // Skip the tiles that are up to date, or were completed by an interrupted production.
+        for (java.util.Iterator<Tile> iter = tiles.iterator(); iter.hasNext(); )
+        {
+            Tile tile = iter.next();
+            if (!this.isTileChanged(tile) || this.isTileCompleted(tile))
+                iter.remove();
+        }
+
+        int threadPoolSize = this.extractThreadPoolSize(params);
+        if (threadPoolSize > 1)
+        {
+            this.installTilesInParallel(levelSet, tiles, params, threadPoolSize);
+            return;
+        }
+
+        for (Tile tile : tiles)
+        {
+            // Exit if the caller has instructed us to stop production.
+            Thread.yield();
+            if (this.isStopped())
+                break;
+
+            DataRaster tileRaster = this.createTileRaster(levelSet, tile, params);
+            // Write the top-level tile raster to disk.
+            if (tileRaster != null)
+                this.installTileRasterLater(levelSet, tile, tileRaster, params);
+
+            this.levelZeroTileProduced(tile);
+        }
+    }
+
+    protected java.util.List<Tile> createLevelZeroTiles(LevelSet levelSet)
+    {
         Sector sector = levelSet.getSector();
         Level level = levelSet.getFirstLevel();
 
@@ -515,33 +579,22 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         int lastRow = Tile.computeRow(dLat, sector.getMaxLatitude(), latOrigin);
         int lastCol = Tile.computeColumn(dLon, sector.getMaxLongitude(), lonOrigin);
 
-        buildLoop:
+        java.util.List<Tile> tiles = new java.util.ArrayList<Tile>();
+        Angle p1 = Tile.computeRowLatitude(firstRow, dLat, latOrigin);
+        for (int row = firstRow; row <= lastRow; row++)
         {
-            Angle p1 = Tile.computeRowLatitude(firstRow, dLat, latOrigin);
-            for (int row = firstRow; row <= lastRow; row++)
+            Angle p2 = p1.add(dLat);
+            Angle t1 = Tile.computeColumnLongitude(firstCol, dLon, lonOrigin);
+            for (int col = firstCol; col <= lastCol; col++)
             {
-                Angle p2 = p1.add(dLat);
-                Angle t1 = Tile.computeColumnLongitude(firstCol, dLon, lonOrigin);
-                for (int col = firstCol; col <= lastCol; col++)
-                {
-                    // Exit if the caller has instructed us to stop production.
-                    Thread.yield();
-                    if (this.isStopped())
-                        break buildLoop;
-
-                    Angle t2 = t1.add(dLon);
-
-                    Tile tile = new Tile(new Sector(p1, p2, t1, t2), level, row, col);
-                    DataRaster tileRaster = this.createTileRaster(levelSet, tile, params);
-                    // Write the top-level tile raster to disk.
-                    if (tileRaster != null)
-                        this.installTileRasterLater(levelSet, tile, tileRaster, params);
-
-                    t1 = t2;
-                }
-                p1 = p2;
+                Angle t2 = t1.add(dLon);
+                tiles.add(new Tile(new Sector(p1, p2, t1, t2), level, row, col));
+                t1 = t2;
             }
+            p1 = p2;
         }
+
+        return tiles;
     }
 
     protected DataRaster createTileRaster(LevelSet levelSet, Tile tile, AVList params) throws java.io.IOException
@@ -563,7 +616,12 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
             tileRaster = this.drawDescendants(levelSet, tile, params);
         }
 
+        // Remove the tile produced previously if the tile no longer has any data.
+        if (tileRaster == null)
+            this.removeInstalledTile(tile, params);
+
         this.updateProgress();
+        this.updateLevelProgress(tile);
 
         return tileRaster;
     }
@@ -605,26 +663,47 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
 
     protected DataRaster drawDescendants(LevelSet levelSet, Tile tile, AVList params) throws java.io.IOException
     {
-        DataRaster tileRaster = null;
-        boolean hasDescendants = false;
-
         // Recursively create sub-tile rasters.
         Tile[] subTiles = this.createSubTiles(tile, levelSet.getLevel(tile.getLevelNumber() + 1));
         DataRaster[] subRasters = new DataRaster[subTiles.length];
         for (int index = 0; index < subTiles.length; index++)
         {
-            // If the sub-tile does not intersect the level set, then skip that sub-tile.
-            if (subTiles[index].getSector().intersects(levelSet.getSector()))
-            {
-                // Recursively create the sub-tile raster.
-                DataRaster subRaster = this.createTileRaster(levelSet, subTiles[index], params);
-                // If creating the sub-tile raster fails, then skip that sub-tile.
-                if (subRaster != null)
-                {
-                    subRasters[index] = subRaster;
-                    hasDescendants = true;
-                }
-            }
+            // If the sub-tile does not intersect the level set, then skip that sub-tile. If creating the sub-tile
+            // raster fails, then the sub-tile raster is null and the sub-tile is skipped. Sub-tiles that are up to
+            // date are read from the previous production.
+            if (!subTiles[index].getSector().intersects(levelSet.getSector()))
+                continue;
+
+            if (this.isTileChanged(subTiles[index]))
+                subRasters[index] = this.createTileRaster(levelSet, subTiles[index], params);
+            else
+                subRasters[index] = this.readInstalledTileRaster(levelSet, subTiles[index], params);
+        }
+
+        return this.drawSubRasters(levelSet, tile, subTiles, subRasters, params);
+    }
+
+    /**
+     * Creates a tile's raster from the rasters of its sub-tiles, then writes the sub-tile rasters to disk.
+     *
+     * @param levelSet   the level set being produced.
+     * @param tile       the tile.
+     * @param subTiles   the tile's sub-tiles.
+     * @param subRasters the sub-tile rasters, in the same order as the sub-tiles. Null for sub-tiles that have no
+     *                   raster.
+     * @param params     the installation parameters.
+     *
+     * @return the tile's raster, or null if no sub-tile has a raster or the tile's level is empty.
+     */
+    protected DataRaster drawSubRasters(LevelSet levelSet, Tile tile, Tile[] subTiles, DataRaster[] subRasters,
+        AVList params)
+    {
+        DataRaster tileRaster = null;
+        boolean hasDescendants = false;
+        for (DataRaster subRaster : subRasters)
+        {
+            if (subRaster != null)
+                hasDescendants = true;
         }
 
         // Exit if the caller has instructed us to stop production.
@@ -653,11 +732,16 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
             }
         }
 
-        // Write the sub-rasters to disk.
+        // Write the sub-rasters to disk. Sub-rasters that are up to date are already on disk.
         for (int index = 0; index < subTiles.length; index++)
         {
-            if (subRasters[index] != null)
+            if (subRasters[index] == null)
+                continue;
+
+            if (this.isTileChanged(subTiles[index]))
                 this.installTileRasterLater(levelSet, subTiles[index], subRasters[index], params);
+            else if (subRasters[index] instanceof Disposable)
+                ((Disposable) subRasters[index]).dispose();
         }
 
         return tileRaster;
@@ -685,6 +769,198 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         return subTiles;
     }
 
+    //**************************************************************//
+    //********************  Parallel Production  *******************//
+    //**************************************************************//
+
+    /**
+     * Creates a tile's raster and the rasters of its descendants as a fork-join task. Sub-tile rasters are created by
+     * forked tasks, then combined into the tile's raster exactly as {@link #drawDescendants(LevelSet, Tile, AVList)}
+     * combines them, so the rasters produced are the same as those produced on one thread.
+     */
+    @SuppressWarnings("serial")
+    protected class TileRasterTask extends java.util.concurrent.RecursiveTask<DataRaster>
+    {
+        protected final LevelSet levelSet;
+        protected final Tile tile;
+        protected final AVList params;
+
+        public TileRasterTask(LevelSet levelSet, Tile tile, AVList params)
+        {
+            this.levelSet = levelSet;
+            this.tile = tile;
+            this.params = params;
+        }
+
+        public Tile getTile()
+        {
+            return this.tile;
+        }
+
+        @Override
+        protected DataRaster compute()
+        {
+            try
+            {
+                return createTileRasterInParallel(this.levelSet, this.tile, this.params);
+            }
+            catch (java.io.IOException e)
+            {
+                throw new WWRuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Creates and installs the rasters of the specified level zero tiles and their descendants on a fork-join pool.
+     * The level zero tiles are divided among the pool's threads, and each tile's sub-tiles are in turn created by
+     * separate tasks. Source rasters are shared among the threads through this producer's raster cache.
+     *
+     * @param levelSet       the level set being produced.
+     * @param tiles          the level zero tiles.
+     * @param params         the installation parameters.
+     * @param threadPoolSize the number of threads creating tile rasters.
+     *
+     * @throws java.io.IOException if a tile raster cannot be created.
+     */
+    protected void installTilesInParallel(LevelSet levelSet, java.util.List<Tile> tiles, AVList params,
+        int threadPoolSize) throws java.io.IOException
+    {
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(threadPoolSize);
+        try
+        {
+            java.util.List<TileRasterTask> tasks = new java.util.ArrayList<TileRasterTask>();
+            for (Tile tile : tiles)
+            {
+                TileRasterTask task = new TileRasterTask(levelSet, tile, params);
+                tasks.add(task);
+                pool.execute(task);
+            }
+
+            for (TileRasterTask task : tasks)
+            {
+                DataRaster tileRaster = joinTileRasterTask(task);
+                // Write the top-level tile raster to disk.
+                if (tileRaster != null)
+                    this.installTileRasterLater(levelSet, task.getTile(), tileRaster, params);
+
+                this.levelZeroTileProduced(task.getTile());
+            }
+        }
+        catch (java.io.IOException | RuntimeException e)
+        {
+            pool.shutdownNow();
+            throw e;
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    protected DataRaster createTileRasterInParallel(LevelSet levelSet, Tile tile, AVList params)
+        throws java.io.IOException
+    {
+        // Exit if the caller has instructed us to stop production.
+        if (this.isStopped())
+            return null;
+
+        DataRaster tileRaster;
+
+        // If we have reached the final level, then create a tile raster from the original data sources.
+        if (this.isFinalLevel(levelSet, tile.getLevelNumber(), params))
+        {
+            tileRaster = this.drawDataSources(levelSet, tile, this.dataRasterList, params);
+        }
+        // Otherwise, create the next level's tile rasters in parallel, then create a tile raster from them.
+        else
+        {
+            Tile[] subTiles = this.createSubTiles(tile, levelSet.getLevel(tile.getLevelNumber() + 1));
+            DataRaster[] subRasters = new DataRaster[subTiles.length];
+            TileRasterTask[] tasks = new TileRasterTask[subTiles.length];
+            java.util.List<TileRasterTask> taskList = new java.util.ArrayList<TileRasterTask>(subTiles.length);
+            for (int index = 0; index < subTiles.length; index++)
+            {
+                if (!subTiles[index].getSector().intersects(levelSet.getSector()))
+                    continue;
+
+                if (this.isTileChanged(subTiles[index]))
+                {
+                    tasks[index] = new TileRasterTask(levelSet, subTiles[index], params);
+                    taskList.add(tasks[index]);
+                }
+                else
+                {
+                    subRasters[index] = this.readInstalledTileRaster(levelSet, subTiles[index], params);
+                }
+            }
+
+            java.util.concurrent.ForkJoinTask.invokeAll(taskList);
+
+            for (int index = 0; index < subTiles.length; index++)
+            {
+                if (tasks[index] != null)
+                    subRasters[index] = joinTileRasterTask(tasks[index]);
+            }
+
+            tileRaster = this.drawSubRasters(levelSet, tile, subTiles, subRasters, params);
+        }
+
+        // Remove the tile produced previously if the tile no longer has any data.
+        if (tileRaster == null)
+            this.removeInstalledTile(tile, params);
+
+        this.updateProgress();
+        this.updateLevelProgress(tile);
+
+        return tileRaster;
+    }
+
+    protected static DataRaster joinTileRasterTask(TileRasterTask task) throws java.io.IOException
+    {
+        try
+        {
+            return task.join();
+        }
+        catch (WWRuntimeException e)
+        {
+            if (e.getCause() instanceof java.io.IOException)
+                throw (java.io.IOException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Extracts the number of threads used to create tile rasters from the AVList if the AVList contains
+     * AVKey.TILED_RASTER_PRODUCER_THREAD_POOL_SIZE. The value may be an Integer, a numeric string, or "Auto" (as
+     * String) to use one thread per available processor. Tile rasters are created on the calling thread if the value
+     * is absent, or is less than 2.
+     * <p>
+     * The rasters produced are the same for any number of threads.
+     *
+     * @param params AVList that may contain AVKey.TILED_RASTER_PRODUCER_THREAD_POOL_SIZE property
+     *
+     * @return the number of threads used to create tile rasters.
+     */
+    protected int extractThreadPoolSize(AVList params)
+    {
+        Object o = (params != null) ? params.getValue(AVKey.TILED_RASTER_PRODUCER_THREAD_POOL_SIZE) : null;
+        if (o instanceof Integer)
+            return (Integer) o;
+
+        if (o instanceof String)
+        {
+            if ("Auto".equalsIgnoreCase((String) o))
+                return Runtime.getRuntime().availableProcessors();
+
+            Integer size = WWUtil.convertStringToInteger((String) o);
+            if (size != null)
+                return size;
+        }
+
+        return 1;
+    }
+
     protected boolean isFinalLevel(LevelSet levelSet, int levelNumber, AVList params)
     {
         if (levelSet.isFinalLevel(levelNumber))
@@ -770,108 +1046,855 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
     }
 
     //**************************************************************//
-    //********************  Tile Installation  *********************//
+    //********************  Incremental Production  ****************//
     //**************************************************************//
 
-    protected java.util.concurrent.ExecutorService createDefaultTileWriteService(int threadPoolSize)
+    /**
+     * Identifies the content of a source file by its path, size, modification time and sector. A source whose
+     * fingerprint does not match the one recorded by the previous production has changed since that production.
+     */
+    protected static class SourceFingerprint
     {
-        // TODO: comment
+        protected final String path;
+        protected final long length;
+        protected final long lastModified;
+        protected final Sector sector;
 
-        // Create a fixed thread pool, but provide a callback to release a tile write permit when a task completes.
-        return new java.util.concurrent.ThreadPoolExecutor(
-            // Fixed size thread pool.
-            threadPoolSize, threadPoolSize,
-            // This value is irrelevant, as threads only terminated when the executor is shutdown.
-            0L, java.util.concurrent.TimeUnit.MILLISECONDS,
-            // Provide an unbounded work queue.
-            new java.util.concurrent.LinkedBlockingQueue<Runnable>())
+        public SourceFingerprint(String path, long length, long lastModified, Sector sector)
         {
-            protected void afterExecute(Runnable runnable, Throwable t)
-            {
-                // Invoke the superclass routine, then release a tile write permit.
-                super.afterExecute(runnable, t);
-                TiledRasterProducer.this.installTileRasterComplete();
-            }
-        };
-    }
+            this.path = path;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.sector = sector;
+        }
 
-    protected void installTileRasterLater(final LevelSet levelSet, final Tile tile, final DataRaster tileRaster,
-        final AVList params)
-    {
-        // TODO: comment
-        // Try to acquire a permit from the tile write semaphore.
-        this.getTileWriteSemaphore().acquireUninterruptibly();
-        // We've acquired the permit, now execute the installTileRaster() routine in a different thread.
-        this.getTileWriteService().execute(new Runnable()
+        public boolean matches(SourceFingerprint that)
         {
-            public void run()
-            {
-                try
-                {
-                    installTileRaster(tile, tileRaster, params);
-                    // Dispose the data raster.
-                    if (tileRaster instanceof Disposable)
-                        ((Disposable) tileRaster).dispose();
-                }
-                catch (Throwable t)
-                {
-                    String message = Logging.getMessage("generic.ExceptionWhileWriting", tile);
-                    Logging.logger().log(java.util.logging.Level.SEVERE, message, t);
-                }
-            }
-        });
+            return this.path.equals(that.path) && this.length == that.length && this.lastModified == that.lastModified
+                && this.sector.equals(that.sector);
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.path + "|" + this.length + "|" + this.lastModified + "|" + this.sector;
+        }
     }
 
-    protected void installTileRasterComplete()
+    /**
+     * Extracts whether production updates the previous production of the data set from the AVList if the AVList
+     * contains AVKey.TILED_RASTER_PRODUCER_INCREMENTAL. The value may be a Boolean or a String.
+     * <p>
+     * An incremental production compares its sources with those recorded in the previous production's configuration
+     * document, and produces only the tiles that intersect sources that were added, removed or modified since, along
+     * with their ancestors. Tiles that are up to date are read from the previous production when their ancestors are
+     * produced. All tiles are produced if there's no previous production, if the sources are not all files, or if the
+     * tile structure differs from the previous production's. An incremental production that's interrupted resumes
+     * where it stopped when it's run again with the same sources.
+     *
+     * @param params AVList that may contain AVKey.TILED_RASTER_PRODUCER_INCREMENTAL property
+     *
+     * @return true if production is incremental, and false otherwise.
+     */
+    protected boolean isIncremental(AVList params)
     {
-        // TODO: comment
-        this.getTileWriteSemaphore().release();
+        Object o = (params != null) ? params.getValue(AVKey.TILED_RASTER_PRODUCER_INCREMENTAL) : null;
+        if (o instanceof Boolean)
+            return (Boolean) o;
+
+        if (o instanceof String)
+        {
+            Boolean b = WWUtil.convertStringToBoolean((String) o);
+            return b != null && b;
+        }
+
+        return false;
     }
 
-    protected void waitForInstallTileTasks()
+    /**
+     * Determines which tiles must be produced, and reads the state of an interrupted production of the same tiles.
+     *
+     * @param levelSet the level set being produced.
+     * @param params   the installation parameters.
+     */
+    protected void initIncrementalProduction(LevelSet levelSet, AVList params)
     {
-        // TODO: comment
-        try
+        this.changedSectors = null;
+        this.previousConfig = null;
+        this.completedTiles = new java.util.HashSet<String>();
+        synchronized (this.productionStateLock)
         {
-            java.util.concurrent.ExecutorService service = this.getTileWriteService();
-            service.shutdown();
-            // Block this thread until the executor has completed.
-            while (!service.awaitTermination(1000L, java.util.concurrent.TimeUnit.MILLISECONDS))
-            {
-                Thread.sleep(5L);
-            }
+            this.pendingTileWrites.clear();
+            this.producedTiles.clear();
         }
-        catch (InterruptedException e)
+
+        if (!this.isIncremental(params))
         {
-            String msg = Logging.getMessage("generic.interrupted", this.getClass().getName(),
-                "waitForInstallTileTasks()");
-            Logging.logger().finest(msg);
-            // Don't swallow interrupts; instead, restore the interrupted status
-            Thread.currentThread().interrupt();
+            // All tiles are produced, so there's nothing to resume.
+            this.removeProductionStateFile(params);
+            return;
         }
-    }
 
-    protected void installTileRaster(Tile tile, DataRaster tileRaster, AVList params) throws java.io.IOException
-    {
-        java.io.File installLocation;
+        Object datasetName = params.getValue(AVKey.DATASET_NAME);
+        java.util.List<SourceFingerprint> sources = this.createSourceFingerprints();
+        Element config = this.readPreviousConfig(params);
+        String message;
 
-        // Compute the install location of the tile.
-        Object result = this.installLocationForTile(params, tile);
-        if (result instanceof java.io.File)
+        if (config == null)
         {
-            installLocation = (java.io.File) result;
+            message = Logging.getMessage("TiledRasterProducer.NoPreviousProduction", datasetName);
         }
-        else
+        else if (!this.isSameLevelSet(levelSet, config))
         {
-            String message = result.toString();
-            Logging.logger().severe(message);
-            throw new java.io.IOException(message);
+            message = Logging.getMessage("TiledRasterProducer.LevelSetChanged", datasetName);
         }
-
-        synchronized (this.fileLock)
+        else
         {
-            java.io.File dir = installLocation.getParentFile();
-            if (!dir.exists())
+            this.changedSectors = this.computeChangedSectors(sources, this.readProductionSources(config));
+            if (this.changedSectors != null)
+            {
+                this.previousConfig = config;
+                message = Logging.getMessage("TiledRasterProducer.IncrementalProduction", datasetName,
+                    this.changedSectors.size());
+            }
+            else
+            {
+                message = Logging.getMessage("TiledRasterProducer.SourcesNotComparable", datasetName);
+            }
+        }
+        Logging.logger().info(message);
+
+        // A production can be resumed only if its sources can be identified.
+        if (sources != null)
+            this.openProductionState(params, this.createProductionKey(levelSet, sources));
+    }
+
+    /**
+     * Returns the sectors of the sources added, removed or modified since the previous production.
+     *
+     * @return the changed sectors, or null if all tiles are being produced.
+     */
+    protected java.util.List<Sector> getChangedSectors()
+    {
+        return this.changedSectors;
+    }
+
+    /**
+     * Returns the root element of the previous production's configuration document.
+     *
+     * @return the previous configuration, or null if all tiles are being produced.
+     */
+    protected Element getPreviousConfig()
+    {
+        return this.previousConfig;
+    }
+
+    /**
+     * Indicates whether a tile's content may differ from the previous production's, and so must be produced.
+     *
+     * @param tile the tile.
+     *
+     * @return true if the tile intersects a source that changed since the previous production, or if all tiles are
+     *         being produced.
+     */
+    protected boolean isTileChanged(Tile tile)
+    {
+        if (this.changedSectors == null)
+            return true;
+
+        for (Sector sector : this.changedSectors)
+        {
+            if (sector.intersects(tile.getSector()))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Indicates whether a level zero tile and its descendants were installed by an interrupted production.
+     *
+     * @param tile the level zero tile.
+     *
+     * @return true if the tile is complete, and false otherwise.
+     */
+    protected boolean isTileCompleted(Tile tile)
+    {
+        return this.completedTiles.contains(levelZeroTileKey(tile));
+    }
+
+    protected java.util.List<SourceFingerprint> createSourceFingerprints()
+    {
+        java.util.List<SourceFingerprint> fingerprints = new java.util.ArrayList<SourceFingerprint>();
+        for (DataRaster raster : this.dataRasterList)
+        {
+            // Only sources read from files can be compared with a previous production.
+            if (!(raster instanceof CachedDataRaster))
+                return null;
+
+            File file = WWIO.getFileForLocalAddress(((CachedDataRaster) raster).getDataSource());
+            if (file == null || !file.exists() || raster.getSector() == null)
+                return null;
+
+            fingerprints.add(new SourceFingerprint(file.getAbsolutePath(), file.length(), file.lastModified(),
+                raster.getSector()));
+        }
+
+        return fingerprints;
+    }
+
+    /**
+     * Computes the sectors in which the previous production's tiles may differ from those produced from the current
+     * sources: the sectors of the sources that were added or removed, and the previous and current sectors of sources
+     * that were modified.
+     *
+     * @param sources         the current sources, in the order they're drawn.
+     * @param previousSources the previous production's sources, in the order they were drawn.
+     *
+     * @return the changed sectors, or null if the sources cannot be compared, or if the sources that did not change are
+     *         drawn in a different order.
+     */
+    protected java.util.List<Sector> computeChangedSectors(java.util.List<SourceFingerprint> sources,
+        java.util.List<SourceFingerprint> previousSources)
+    {
+        if (sources == null || previousSources == null)
+            return null;
+
+        Map<String, SourceFingerprint> current = new java.util.HashMap<String, SourceFingerprint>();
+        for (SourceFingerprint source : sources)
+        {
+            if (current.put(source.path, source) != null)
+                return null; // the same file is offered more than once
+        }
+
+        Map<String, SourceFingerprint> previous = new java.util.HashMap<String, SourceFingerprint>();
+        for (SourceFingerprint source : previousSources)
+        {
+            if (previous.put(source.path, source) != null)
+                return null;
+        }
+
+        java.util.List<Sector> sectors = new java.util.ArrayList<Sector>();
+        java.util.List<String> unchanged = new java.util.ArrayList<String>();
+        for (SourceFingerprint source : sources)
+        {
+            SourceFingerprint previousSource = previous.get(source.path);
+            if (previousSource == null)
+            {
+                sectors.add(source.sector);
+            }
+            else if (!source.matches(previousSource))
+            {
+                sectors.add(source.sector);
+                sectors.add(previousSource.sector);
+            }
+            else
+            {
+                unchanged.add(source.path);
+            }
+        }
+
+        java.util.List<String> previousUnchanged = new java.util.ArrayList<String>();
+        for (SourceFingerprint previousSource : previousSources)
+        {
+            SourceFingerprint source = current.get(previousSource.path);
+            if (source == null)
+                sectors.add(previousSource.sector);
+            else if (source.matches(previousSource))
+                previousUnchanged.add(previousSource.path);
+        }
+
+        // Sources are drawn over one another in order, so tiles where sources overlap depend on their order.
+        if (!unchanged.equals(previousUnchanged))
+            return null;
+
+        return sectors;
+    }
+
+    protected Element readPreviousConfig(AVList params)
+    {
+        File configFile = this.getConfigFileInstallLocation(params);
+        if (configFile == null || !configFile.exists())
+            return null;
+
+        try
+        {
+            Document doc = WWXML.openDocument(configFile);
+            return (doc != null) ? doc.getDocumentElement() : null;
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("generic.ExceptionAttemptingToReadFile", configFile);
+            Logging.logger().log(java.util.logging.Level.WARNING, message, e);
+            return null;
+        }
+    }
+
+    /**
+     * Indicates whether a level set has the same tiles as the level set described by a previous production's
+     * configuration document.
+     *
+     * @param levelSet the level set being produced.
+     * @param config   the previous production's configuration.
+     *
+     * @return true if the level sets have the same sector, tile origin and levels, and false otherwise.
+     */
+    protected boolean isSameLevelSet(LevelSet levelSet, Element config)
+    {
+        LevelSet previous;
+        try
+        {
+            previous = new LevelSet(DataConfigurationUtils.getLevelSetConfigParams(config, null));
+        }
+        catch (Exception e)
+        {
+            return false;
+        }
+
+        if (!levelSet.getSector().equals(previous.getSector())
+            || !levelSet.getTileOrigin().equals(previous.getTileOrigin())
+            || levelSet.getNumLevels() != previous.getNumLevels())
+        {
+            return false;
+        }
+
+        for (int i = 0; i < levelSet.getNumLevels(); i++)
+        {
+            Level level = levelSet.getLevel(i);
+            Level previousLevel = previous.getLevel(i);
+            if (!level.getTileDelta().equals(previousLevel.getTileDelta())
+                || level.getTileWidth() != previousLevel.getTileWidth()
+                || level.getTileHeight() != previousLevel.getTileHeight()
+                || level.isEmpty() != previousLevel.isEmpty()
+                || (!WWUtil.isEmpty(level.getFormatSuffix())
+                && !level.getFormatSuffix().equals(previousLevel.getFormatSuffix())))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Appends the sources of this production to a configuration document, so that a later incremental production can
+     * determine which sources changed. Nothing is appended if any source is not a file.
+     *
+     * @param context the configuration document's root element.
+     */
+    protected void appendProductionSources(Element context)
+    {
+        java.util.List<SourceFingerprint> sources = this.createSourceFingerprints();
+        if (sources == null)
+            return;
+
+        Element el = WWXML.appendElement(context, "ProductionSources");
+        for (SourceFingerprint source : sources)
+        {
+            Element sourceElement = WWXML.appendElement(el, "Source");
+            WWXML.setTextAttribute(sourceElement, "path", source.path);
+            WWXML.setLongAttribute(sourceElement, "length", source.length);
+            WWXML.setLongAttribute(sourceElement, "lastModified", source.lastModified);
+            WWXML.appendSector(sourceElement, "Sector", source.sector);
+        }
+    }
+
+    protected java.util.List<SourceFingerprint> readProductionSources(Element config)
+    {
+        javax.xml.xpath.XPath xpath = WWXML.makeXPath();
+        Element[] elements = WWXML.getElements(config, "ProductionSources/Source", xpath);
+        if (elements == null)
+            return null;
+
+        java.util.List<SourceFingerprint> sources = new java.util.ArrayList<SourceFingerprint>();
+        for (Element el : elements)
+        {
+            String path = WWXML.getText(el, "@path", xpath);
+            Long length = WWXML.getLong(el, "@length", xpath);
+            Long lastModified = WWXML.getLong(el, "@lastModified", xpath);
+            Sector sector = WWXML.getSector(el, "Sector", xpath);
+            if (path == null || length == null || lastModified == null || sector == null)
+                return null;
+
+            sources.add(new SourceFingerprint(path, length, lastModified, sector));
+        }
+
+        return sources;
+    }
+
+    /**
+     * Reads a tile installed by the previous production. If the tile's format cannot be read, the tile is created
+     * from the sources instead.
+     *
+     * @param levelSet the level set being produced.
+     * @param tile     the tile.
+     * @param params   the installation parameters.
+     *
+     * @return the tile's raster, or null if the previous production did not install the tile.
+     *
+     * @throws java.io.IOException if the tile must be created and creating it fails.
+     */
+    protected DataRaster readInstalledTileRaster(LevelSet levelSet, Tile tile, AVList params)
+        throws java.io.IOException
+    {
+        Object result = this.installLocationForTile(params, tile);
+        if (!(result instanceof File) || !((File) result).exists())
+            return null;
+
+        File file = (File) result;
+        AVList readParams = this.createInstalledTileParameters(tile, params);
+        DataRasterReader reader = this.getReaderFactory().findReaderFor(file, readParams,
+            this.getDataRasterReaders());
+        if (reader != null)
+        {
+            try
+            {
+                DataRaster[] rasters = reader.read(file, readParams);
+                if (rasters != null && rasters.length > 0 && rasters[0] != null)
+                    return rasters[0];
+            }
+            catch (java.io.IOException e)
+            {
+                String message = Logging.getMessage("TiledRasterProducer.ExceptionWhileReading", file,
+                    e.getMessage());
+                Logging.logger().fine(message);
+            }
+        }
+
+        return this.createTileRaster(levelSet, tile, params);
+    }
+
+    /**
+     * Returns the parameters used to read a tile installed by the previous production.
+     *
+     * @param tile   the tile.
+     * @param params the installation parameters.
+     *
+     * @return the parameters describing the installed tile.
+     */
+    protected AVList createInstalledTileParameters(Tile tile, AVList params)
+    {
+        AVList readParams = new AVListImpl();
+        readParams.setValue(AVKey.SECTOR, tile.getSector());
+        readParams.setValue(AVKey.WIDTH, tile.getLevel().getTileWidth());
+        readParams.setValue(AVKey.HEIGHT, tile.getLevel().getTileHeight());
+        WWUtil.copyValues(params, readParams, new String[] {AVKey.PIXEL_FORMAT, AVKey.DATA_TYPE, AVKey.BYTE_ORDER},
+            false);
+
+        return readParams;
+    }
+
+    /**
+     * Deletes a tile installed by the previous production that has no data in this production.
+     *
+     * @param tile   the tile.
+     * @param params the installation parameters.
+     */
+    protected void removeInstalledTile(Tile tile, AVList params)
+    {
+        // A full production never removes tiles, and an interrupted one does not know which tiles have no data.
+        if (this.changedSectors == null || this.isStopped() || !this.isTileChanged(tile))
+            return;
+
+        Object result = this.installLocationForTile(params, tile);
+        if (result instanceof File && ((File) result).exists() && !((File) result).delete())
+        {
+            String message = Logging.getMessage("TiledRasterProducer.CannotDeleteTile", result);
+            Logging.logger().warning(message);
+        }
+    }
+
+    //**************************************************************//
+    //********************  Production State  **********************//
+    //**************************************************************//
+
+    /**
+     * Returns the file recording the level zero tiles completed by an incremental production, from which an
+     * interrupted production resumes. The file is removed when the production completes.
+     *
+     * @param params the installation parameters.
+     *
+     * @return the production state file, or null if the configuration file location cannot be determined.
+     */
+    protected File getProductionStateFile(AVList params)
+    {
+        File configFile = this.getConfigFileInstallLocation(params);
+        if (configFile == null)
+            return null;
+
+        return new File(configFile.getParentFile(), WWIO.replaceSuffix(configFile.getName(), ".ProductionState.txt"));
+    }
+
+    /**
+     * Returns a key identifying a production by its tiles and its sources. A production resumes from the production
+     * state file only if the file was written by a production with the same key.
+     *
+     * @param levelSet the level set being produced.
+     * @param sources  the sources being produced from.
+     *
+     * @return the production key.
+     */
+    protected String createProductionKey(LevelSet levelSet, java.util.List<SourceFingerprint> sources)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(levelSet.getSector()).append(levelSet.getTileOrigin());
+        for (Level level : levelSet.getLevels())
+        {
+            sb.append(level.getTileDelta()).append(level.getTileWidth()).append(level.getTileHeight());
+            sb.append(level.getFormatSuffix()).append(level.isEmpty());
+        }
+        for (SourceFingerprint source : sources)
+        {
+            sb.append(source);
+        }
+        if (this.changedSectors != null)
+            sb.append(this.changedSectors);
+
+        try
+        {
+            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(sb.toString().getBytes("UTF-8"));
+
+            StringBuilder key = new StringBuilder();
+            for (byte b : bytes)
+            {
+                key.append(String.format("%02x", b));
+            }
+
+            return key.toString();
+        }
+        catch (Exception e)
+        {
+            return Integer.toHexString(sb.toString().hashCode());
+        }
+    }
+
+    protected void openProductionState(AVList params, String key)
+    {
+        File file = this.getProductionStateFile(params);
+        if (file == null)
+            return;
+
+        // Read the tiles completed by an interrupted production with the same key.
+        String state = null;
+        boolean resume = false;
+        if (file.exists())
+        {
+            java.io.BufferedReader reader = null;
+            try
+            {
+                reader = new java.io.BufferedReader(new java.io.InputStreamReader(new java.io.FileInputStream(file),
+                    "UTF-8"));
+                resume = key.equals(reader.readLine());
+                String line;
+                while (resume && (line = reader.readLine()) != null)
+                {
+                    int tab = line.indexOf('\t');
+                    this.completedTiles.add(tab >= 0 ? line.substring(0, tab) : line);
+                    if (tab >= 0)
+                        state = line.substring(tab + 1);
+                }
+            }
+            catch (java.io.IOException e)
+            {
+                String message = Logging.getMessage("TiledRasterProducer.ExceptionReadingProductionState", file);
+                Logging.logger().log(java.util.logging.Level.WARNING, message, e);
+                this.completedTiles.clear();
+                state = null;
+                resume = false;
+            }
+            finally
+            {
+                WWIO.closeStream(reader, file.getPath());
+            }
+        }
+
+        if (resume && !this.completedTiles.isEmpty())
+        {
+            String message = Logging.getMessage("TiledRasterProducer.ResumingProduction",
+                params.getValue(AVKey.DATASET_NAME), this.completedTiles.size());
+            Logging.logger().info(message);
+
+            if (state != null)
+                this.restoreProductionState(state);
+        }
+
+        synchronized (this.fileLock)
+        {
+            java.io.File dir = file.getParentFile();
+            if (!dir.exists())
+            {
+                if (!dir.mkdirs())
+                {
+                    String message = Logging.getMessage("generic.CannotCreateFile", dir);
+                    Logging.logger().warning(message);
+                }
+            }
+        }
+
+        synchronized (this.productionStateLock)
+        {
+            try
+            {
+                this.productionStateWriter = new java.io.BufferedWriter(new java.io.OutputStreamWriter(
+                    new java.io.FileOutputStream(file, resume), "UTF-8"));
+                if (!resume)
+                {
+                    this.productionStateWriter.write(key);
+                    this.productionStateWriter.write('\n');
+                    this.productionStateWriter.flush();
+                }
+            }
+            catch (java.io.IOException e)
+            {
+                String message = Logging.getMessage("TiledRasterProducer.ExceptionWritingProductionState", file);
+                Logging.logger().log(java.util.logging.Level.WARNING, message, e);
+                WWIO.closeStream(this.productionStateWriter, file.getPath());
+                this.productionStateWriter = null;
+            }
+
+            this.productionStateFile = file;
+        }
+    }
+
+    protected void closeProductionState()
+    {
+        synchronized (this.productionStateLock)
+        {
+            if (this.productionStateWriter != null)
+            {
+                WWIO.closeStream(this.productionStateWriter, this.productionStateFile.getPath());
+                this.productionStateWriter = null;
+            }
+        }
+    }
+
+    protected void removeProductionStateFile(AVList params)
+    {
+        File file = this.getProductionStateFile(params);
+        if (file != null && file.exists() && !file.delete())
+        {
+            String message = Logging.getMessage("generic.CannotDeleteFile", file);
+            Logging.logger().warning(message);
+        }
+    }
+
+    /**
+     * Returns producer specific state recorded with each completed level zero tile, and restored by {@link
+     * #restoreProductionState(String)} when an interrupted production resumes. The default implementation returns
+     * null.
+     *
+     * @return the production state, or null if there's no state to record. The state must not contain line breaks.
+     */
+    protected String getProductionState()
+    {
+        return null;
+    }
+
+    /**
+     * Restores the producer specific state recorded with the last level zero tile completed by an interrupted
+     * production. The default implementation does nothing.
+     *
+     * @param state the state returned by {@link #getProductionState()}.
+     */
+    protected void restoreProductionState(String state)
+    {
+    }
+
+    protected static String levelZeroTileKey(Tile tile)
+    {
+        // Each level's rows and columns are twice those of the level above.
+        int levelNumber = tile.getLevelNumber();
+        return (tile.getRow() >> levelNumber) + "," + (tile.getColumn() >> levelNumber);
+    }
+
+    protected void tileWriteStarted(Tile tile)
+    {
+        synchronized (this.productionStateLock)
+        {
+            if (this.productionStateWriter == null)
+                return;
+
+            String key = levelZeroTileKey(tile);
+            Integer count = this.pendingTileWrites.get(key);
+            this.pendingTileWrites.put(key, (count != null) ? count + 1 : 1);
+        }
+    }
+
+    protected void tileWriteComplete(Tile tile)
+    {
+        synchronized (this.productionStateLock)
+        {
+            String key = levelZeroTileKey(tile);
+            Integer count = this.pendingTileWrites.get(key);
+            if (count == null)
+                return;
+
+            if (count > 1)
+            {
+                this.pendingTileWrites.put(key, count - 1);
+            }
+            else
+            {
+                this.pendingTileWrites.remove(key);
+                if (this.producedTiles.remove(key))
+                    this.writeCompletedTile(key);
+            }
+        }
+    }
+
+    /**
+     * Records a level zero tile as complete once it and its descendants have been written to disk.
+     *
+     * @param tile the level zero tile.
+     */
+    protected void levelZeroTileProduced(Tile tile)
+    {
+        // A tile interrupted by stopping production may be missing descendants.
+        if (this.isStopped())
+            return;
+
+        synchronized (this.productionStateLock)
+        {
+            String key = levelZeroTileKey(tile);
+            if (this.pendingTileWrites.containsKey(key))
+                this.producedTiles.add(key);
+            else
+                this.writeCompletedTile(key);
+        }
+    }
+
+    protected void writeCompletedTile(String key)
+    {
+        synchronized (this.productionStateLock)
+        {
+            if (this.productionStateWriter == null)
+                return;
+
+            try
+            {
+                String state = this.getProductionState();
+                this.productionStateWriter.write(state != null ? key + '\t' + state : key);
+                this.productionStateWriter.write('\n');
+                this.productionStateWriter.flush();
+            }
+            catch (java.io.IOException e)
+            {
+                String message = Logging.getMessage("TiledRasterProducer.ExceptionWritingProductionState",
+                    this.productionStateFile);
+                Logging.logger().log(java.util.logging.Level.WARNING, message, e);
+            }
+        }
+    }
+
+    //**************************************************************//
+    //********************  Tile Installation  *********************//
+    //**************************************************************//
+
+    protected java.util.concurrent.ExecutorService createDefaultTileWriteService(int threadPoolSize)
+    {
+        // TODO: comment
+
+        // Create a fixed thread pool, but provide a callback to release a tile write permit when a task completes.
+        return new java.util.concurrent.ThreadPoolExecutor(
+            // Fixed size thread pool.
+            threadPoolSize, threadPoolSize,
+            // This value is irrelevant, as threads only terminated when the executor is shutdown.
+            0L, java.util.concurrent.TimeUnit.MILLISECONDS,
+            // Provide an unbounded work queue.
+            new java.util.concurrent.LinkedBlockingQueue<Runnable>())
+        {
+            protected void afterExecute(Runnable runnable, Throwable t)
+            {
+                // Invoke the superclass routine, then release a tile write permit.
+                super.afterExecute(runnable, t);
+                TiledRasterProducer.this.installTileRasterComplete();
+            }
+        };
+    }
+
+    protected void installTileRasterLater(final LevelSet levelSet, final Tile tile, final DataRaster tileRaster,
+        final AVList params)
+    {
+        // TODO: comment
+        // Try to acquire a permit from the tile write semaphore.
+        this.getTileWriteSemaphore().acquireUninterruptibly();
+        // Count the write against the tile's level zero tile, which is not complete until the write is.
+        this.tileWriteStarted(tile);
+        // We've acquired the permit, now execute the installTileRaster() routine in a different thread.
+        this.getTileWriteService().execute(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    installTileRaster(tile, tileRaster, params);
+                    // Only a successful write counts toward completing the level zero tile. A failed write leaves the
+                    // level zero tile pending, so it's never recorded as complete and is produced again on resume.
+                    tileWriteComplete(tile);
+                    // Dispose the data raster.
+                    if (tileRaster instanceof Disposable)
+                        ((Disposable) tileRaster).dispose();
+                }
+                catch (Throwable t)
+                {
+                    String message = Logging.getMessage("generic.ExceptionWhileWriting", tile);
+                    Logging.logger().log(java.util.logging.Level.SEVERE, message, t);
+                }
+            }
+        });
+    }
+
+    protected void installTileRasterComplete()
+    {
+        // TODO: comment
+        this.getTileWriteSemaphore().release();
+    }
+
+    protected void waitForInstallTileTasks()
+    {
+        // TODO: comment
+        try
+        {
+            java.util.concurrent.ExecutorService service = this.getTileWriteService();
+            service.shutdown();
+            // Block this thread until the executor has completed.
+            while (!service.awaitTermination(1000L, java.util.concurrent.TimeUnit.MILLISECONDS))
+            {
+                Thread.sleep(5L);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            String msg = Logging.getMessage("generic.interrupted", this.getClass().getName(),
+                "waitForInstallTileTasks()");
+            Logging.logger().finest(msg);
+            // Don't swallow interrupts; instead, restore the interrupted status
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    protected void installTileRaster(Tile tile, DataRaster tileRaster, AVList params) throws java.io.IOException
+    {
+        java.io.File installLocation;
+
+        // Compute the install location of the tile.
+        Object result = this.installLocationForTile(params, tile);
+        if (result instanceof java.io.File)
+        {
+            installLocation = (java.io.File) result;
+        }
+        else
+        {
+            String message = result.toString();
+            Logging.logger().severe(message);
+            throw new java.io.IOException(message);
+        }
+
+        synchronized (this.fileLock)
+        {
+            java.io.File dir = installLocation.getParentFile();
+            if (!dir.exists())
             {
                 if (!dir.mkdirs())
                 {
@@ -1012,6 +2035,9 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
             throw new WWRuntimeException(message);
         }
 
+        // Record the sources this production was made from, so that a later production can update it incrementally.
+        this.appendProductionSources(configDoc.getDocumentElement());
+
         try
         {
             WWXML.saveDocumentToFile(configDoc, configFile.getAbsolutePath());
@@ -1210,33 +2236,102 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         Sector sector = levelSet.getSector();
 
         this.tileCount = 0;
+        this.levelTiles = new int[levelSet.getNumLevels()];
+        this.levelTileCounts = new int[levelSet.getNumLevels()];
         for (Level level : levelSet.getLevels())
         {
-            Angle dLat = level.getTileDelta().getLatitude();
-            Angle dLon = level.getTileDelta().getLongitude();
-            Angle latOrigin = levelSet.getTileOrigin().getLatitude();
-            Angle lonOrigin = levelSet.getTileOrigin().getLongitude();
-            int firstRow = Tile.computeRow(dLat, sector.getMinLatitude(), latOrigin);
-            int firstCol = Tile.computeColumn(dLon, sector.getMinLongitude(), lonOrigin);
-            int lastRow = Tile.computeRow(dLat, sector.getMaxLatitude(), latOrigin);
-            int lastCol = Tile.computeColumn(dLon, sector.getMaxLongitude(), lonOrigin);
-            this.tileCount += (lastRow - firstRow + 1) * (lastCol - firstCol + 1);
+            int count = this.computeTileCount(levelSet, level, sector);
+
+            // In incremental production, count only the tiles intersecting the changed sectors. Tiles intersecting
+            // more than one changed sector are counted more than once.
+            if (this.changedSectors != null)
+            {
+                int changedCount = 0;
+                for (Sector changedSector : this.changedSectors)
+                {
+                    Sector intersection = changedSector.intersection(sector);
+                    if (intersection != null)
+                        changedCount += this.computeTileCount(levelSet, level, intersection);
+                }
+                count = Math.min(count, changedCount);
+            }
+
+            this.levelTileCounts[level.getLevelNumber()] = count;
+            this.tileCount += count;
 
             if (this.isFinalLevel(levelSet, level.getLevelNumber(), params))
                 break;
         }
     }
 
+    protected int computeTileCount(LevelSet levelSet, Level level, Sector sector)
+    {
+        Angle dLat = level.getTileDelta().getLatitude();
+        Angle dLon = level.getTileDelta().getLongitude();
+        Angle latOrigin = levelSet.getTileOrigin().getLatitude();
+        Angle lonOrigin = levelSet.getTileOrigin().getLongitude();
+        int firstRow = Tile.computeRow(dLat, sector.getMinLatitude(), latOrigin);
+        int firstCol = Tile.computeColumn(dLon, sector.getMinLongitude(), lonOrigin);
+        int lastRow = Tile.computeRow(dLat, sector.getMaxLatitude(), latOrigin);
+        int lastCol = Tile.computeColumn(dLon, sector.getMaxLongitude(), lonOrigin);
+        return (lastRow - firstRow + 1) * (lastCol - firstCol + 1);
+    }
+
     protected void startProgress()
     {
-        this.tile = 0;
+        synchronized (this.progressLock)
+        {
+            this.tile = 0;
+            this.progressStartTime = System.currentTimeMillis();
+            this.lastLevelProgressTime = this.progressStartTime;
+        }
+
         this.firePropertyChange(AVKey.PROGRESS, null, 0d);
     }
 
     protected void updateProgress()
     {
-        double oldProgress = this.tile / (double) this.tileCount;
-        double newProgress = ++this.tile / (double) this.tileCount;
-        this.firePropertyChange(AVKey.PROGRESS, oldProgress, newProgress);
+        // Tiles are counted by several threads in parallel production.
+        synchronized (this.progressLock)
+        {
+            double oldProgress = this.tile / (double) this.tileCount;
+            double newProgress = ++this.tile / (double) this.tileCount;
+            this.firePropertyChange(AVKey.PROGRESS, oldProgress, newProgress);
+        }
+    }
+
+    /**
+     * Counts a tile of the specified tile's level as complete, and reports the level's progress and throughput as a
+     * {@link AVKey#PROGRESS_MESSAGE} property change when the level is complete, and otherwise at most once per
+     * second.
+     *
+     * @param tile the tile that is complete.
+     */
+    protected void updateLevelProgress(Tile tile)
+    {
+        String message = null;
+
+        synchronized (this.progressLock)
+        {
+            int level = tile.getLevelNumber();
+            if (this.levelTiles == null || level >= this.levelTiles.length)
+                return;
+
+            long now = System.currentTimeMillis();
+            int count = ++this.levelTiles[level];
+            if (count == this.levelTileCounts[level] || now - this.lastLevelProgressTime >= LEVEL_PROGRESS_INTERVAL)
+            {
+                this.lastLevelProgressTime = now;
+                double seconds = Math.max(now - this.progressStartTime, 1L) / 1000d;
+                message = Logging.getMessage("TiledRasterProducer.LevelProgress", level, count,
+                    this.levelTileCounts[level], count / seconds);
+            }
+        }
+
+        if (message != null)
+        {
+            Logging.logger().fine(message);
+            this.firePropertyChange(AVKey.PROGRESS_MESSAGE, null, message);
+        }
     }
 }
@@ -17,6 +17,9 @@ import java.awt.image.*;
  * Each compression method accepts a reference to a {@link gov.nasa.worldwind.formats.dds.DXTCompressionAttributes}.
  * This compressor performs the appropriate actions according to the attributes, such as building mip maps and
  * converting the source image to a premultiplied alpha format.
+ * <p>
+ * The static convenience methods compress with a {@link ParallelDDSCompressor}, which spreads the work of each image
+ * over several threads.
  *
  * @author dcollins
  * @version $Id: DDSCompressor.java 1171 2013-02-11 21:45:02Z dcollins $
@@ -69,7 +72,7 @@ public class DDSCompressor
             return null;
         }
 
-        DDSCompressor compressor = new DDSCompressor();
+        DDSCompressor compressor = createDefaultCompressor();
         return compressor.compressImage(image, attributes);
     }
 
@@ -218,7 +221,7 @@ public class DDSCompressor
             return null;
         }
 
-        DDSCompressor compressor = new DDSCompressor();
+        DDSCompressor compressor = createDefaultCompressor();
         return compressor.compressImage(image, attributes);
     }
 
@@ -298,7 +301,7 @@ public class DDSCompressor
             return null;
         }
 
-        DDSCompressor compressor = new DDSCompressor();
+        DDSCompressor compressor = createDefaultCompressor();
         return compressor.compressImage(image, attributes);
     }
 
@@ -356,11 +359,22 @@ public class DDSCompressor
             throw new IllegalArgumentException(message);
         }
 
-        DDSCompressor compressor = new DDSCompressor();
+        DDSCompressor compressor = createDefaultCompressor();
         DXTCompressionAttributes attributes = getDefaultCompressionAttributes();
         return compressor.compressImage(image, attributes);
     }
 
+    /**
+     * Returns the compressor used by the static convenience methods. This returns a {@link ParallelDDSCompressor}, which
+     * compresses on the common fork-join pool and produces the same output as DDSCompressor.
+     *
+     * @return a new compressor for the convenience methods.
+     */
+    protected static DDSCompressor createDefaultCompressor()
+    {
+        return new ParallelDDSCompressor();
+    }
+
     /**
      * Returns the default compression attributes. The default DXT compression attributes are defined as follows:
      * <table> <caption style="font-weight: bold;">Default Attributes</caption><tr><th>Attribute</th><th>Value</th></tr> <tr><td>Build Mipmaps</td><td>true</td></tr>
@@ -537,20 +551,33 @@ public class DDSCompressor
         // single image to the DDS file.
         if (mipMapLevels == null)
         {
-            compressor.compressImage(image, attributes, buffer);
-        }
-        else
-        {
-            for (java.awt.image.BufferedImage mipMapImage : mipMapLevels)
-            {
-                compressor.compressImage(mipMapImage, attributes, buffer);
-            }
+            mipMapLevels = new java.awt.image.BufferedImage[] {image};
         }
 
+        this.compressMipMapLevels(compressor, mipMapLevels, attributes, buffer);
+
         buffer.rewind();
         return buffer;
     }
 
+    /**
+     * Writes the compressed DXT blocks of each mip map level to the DDS file, starting with level 0 and ending with
+     * level N. The blocks are written to the specified <code>buffer</code> starting at its current position.
+     *
+     * @param compressor   the compressor that encodes each level.
+     * @param mipMapLevels the images to compress, in the order they're written.
+     * @param attributes   attributes that control the compression.
+     * @param buffer       the buffer that receives the compressed bytes.
+     */
+    protected void compressMipMapLevels(DXTCompressor compressor, java.awt.image.BufferedImage[] mipMapLevels,
+        DXTCompressionAttributes attributes, java.nio.ByteBuffer buffer)
+    {
+        for (java.awt.image.BufferedImage mipMapImage : mipMapLevels)
+        {
+            compressor.compressImage(mipMapImage, attributes, buffer);
+        }
+    }
+
     protected DXTCompressor getDXTCompressor(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes)
     {
         // If the caller specified a DXT format in the attributes, then we return a compressor matching that format.
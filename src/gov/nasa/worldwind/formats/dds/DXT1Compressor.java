@@ -11,7 +11,7 @@ import gov.nasa.worldwind.util.Logging;
  * @author dcollins
  * @version $Id: DXT1Compressor.java 1171 2013-02-11 21:45:02Z dcollins $
  */
-public class DXT1Compressor implements DXTCompressor
+public class DXT1Compressor implements DXTBandCompressor
 {
     public DXT1Compressor()
     {
@@ -22,6 +22,11 @@ public class DXT1Compressor implements DXTCompressor
         return DDSConstants.D3DFMT_DXT1;
     }
 
+    public int getBlockSize()
+    {
+        return 8;
+    }
+
     public int getCompressedSize(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes)
     {
         if (image == null)
@@ -67,23 +72,45 @@ public class DXT1Compressor implements DXTCompressor
             throw new IllegalArgumentException(message);
         }
 
+        ColorBlockExtractor colorBlockExtractor = this.getColorBlockExtractor(image);
+        this.compressBand(colorBlockExtractor, image.getWidth(), 0, image.getHeight(),
+            image.getColorModel().hasAlpha(), attributes, buffer);
+    }
+
+    public void compressBand(ColorBlockExtractor colorBlockExtractor, int width, int minY, int maxY,
+        boolean imageHasAlpha, DXTCompressionAttributes attributes, java.nio.ByteBuffer buffer)
+    {
+        if (colorBlockExtractor == null)
+        {
+            String message = Logging.getMessage("nullValue.ColorBlockExtractorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (attributes == null)
+        {
+            String message = Logging.getMessage("nullValue.AttributesIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (buffer == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
         // If it is determined that the image and block have no alpha component, then we compress with DXT1 using a
         // four color palette. Otherwise, we use the three color palette (with the fourth color as transparent black).
 
         ColorBlock4x4 colorBlock = new ColorBlock4x4();
-        ColorBlockExtractor colorBlockExtractor = this.getColorBlockExtractor(image);
 
         BlockDXT1 dxt1Block = new BlockDXT1();
         BlockDXT1Compressor dxt1Compressor = new BlockDXT1Compressor();
 
-        int width = image.getWidth();
-        int height = image.getHeight();
-
-        boolean imageHasAlpha = image.getColorModel().hasAlpha();
         boolean enableAlpha = attributes.isEnableDXT1Alpha();
         int alphaThreshold = attributes.getDXT1AlphaThreshold();
 
-        for (int j = 0; j < height; j += 4)
+        for (int j = minY; j < maxY; j += 4)
         {
             for (int i = 0; i < width; i += 4)
             {
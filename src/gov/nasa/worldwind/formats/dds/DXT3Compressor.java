@@ -11,7 +11,7 @@ import gov.nasa.worldwind.util.Logging;
  * @author dcollins
  * @version $Id: DXT3Compressor.java 1171 2013-02-11 21:45:02Z dcollins $
  */
-public class DXT3Compressor implements DXTCompressor
+public class DXT3Compressor implements DXTBandCompressor
 {
     public DXT3Compressor()
     {
@@ -22,6 +22,11 @@ public class DXT3Compressor implements DXTCompressor
         return DDSConstants.D3DFMT_DXT3;
     }
 
+    public int getBlockSize()
+    {
+        return 16;
+    }
+
     public int getCompressedSize(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes)
     {
         if (image == null)
@@ -67,16 +72,39 @@ public class DXT3Compressor implements DXTCompressor
             throw new IllegalArgumentException(message);
         }
 
-        ColorBlock4x4 colorBlock = new ColorBlock4x4();
         ColorBlockExtractor colorBlockExtractor = this.getColorBlockExtractor(image);
+        this.compressBand(colorBlockExtractor, image.getWidth(), 0, image.getHeight(),
+            image.getColorModel().hasAlpha(), attributes, buffer);
+    }
+
+    public void compressBand(ColorBlockExtractor colorBlockExtractor, int width, int minY, int maxY,
+        boolean imageHasAlpha, DXTCompressionAttributes attributes, java.nio.ByteBuffer buffer)
+    {
+        if (colorBlockExtractor == null)
+        {
+            String message = Logging.getMessage("nullValue.ColorBlockExtractorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (attributes == null)
+        {
+            String message = Logging.getMessage("nullValue.AttributesIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (buffer == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        ColorBlock4x4 colorBlock = new ColorBlock4x4();
 
         BlockDXT3 dxt3Block = new BlockDXT3();
         BlockDXT3Compressor dxt3Compressor = new BlockDXT3Compressor();
 
-        int width = image.getWidth();
-        int height = image.getHeight();
-
-        for (int j = 0; j < height; j += 4)
+        for (int j = minY; j < maxY; j += 4)
         {
             for (int i = 0; i < width; i += 4)
             {
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.dds;
+
+/**
+ * A <code>DXTBandCompressor</code> is a {@link DXTCompressor} that can compress a horizontal band of an image's 4x4
+ * blocks independently of the rest of the image. Since each block compresses to a fixed number of bytes, the output
+ * of each band has a known location in the compressed image, so bands may be compressed concurrently.
+ *
+ * @see ParallelDDSCompressor
+ */
+public interface DXTBandCompressor extends DXTCompressor
+{
+    /**
+     * Returns the number of bytes each 4x4 block compresses to.
+     *
+     * @return compressed size in bytes of one block.
+     */
+    int getBlockSize();
+
+    /**
+     * Encodes the rows of 4x4 blocks from <code>minY</code> up to <code>maxY</code>, and writes the compressed bytes
+     * to the specified <code>buffer</code> starting at its current position. <code>minY</code> must be a multiple of
+     * four.
+     *
+     * @param colorBlockExtractor the source of the image's 4x4 blocks.
+     * @param width               the image width, in pixels.
+     * @param minY                the first pixel row of the band.
+     * @param maxY                the pixel row following the band, at most the image height.
+     * @param imageHasAlpha       true if the image has an alpha component, otherwise false.
+     * @param attributes          the attributes that may affect the compression.
+     * @param buffer              the buffer that will receive the compressed output.
+     *
+     * @throws IllegalArgumentException if any of <code>colorBlockExtractor</code>, <code>attributes</code>, or
+     *                                  <code>buffer</code> are null.
+     */
+    void compressBand(ColorBlockExtractor colorBlockExtractor, int width, int minY, int maxY, boolean imageHasAlpha,
+        DXTCompressionAttributes attributes, java.nio.ByteBuffer buffer);
+}
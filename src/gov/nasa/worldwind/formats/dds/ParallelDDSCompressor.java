@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.dds;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.awt.image.*;
+
+/**
+ * ParallelDDSCompressor is a {@link DDSCompressor} that compresses an image's DXT blocks on several threads. Each mip
+ * map level is split into horizontal bands of block rows, and the bands of every level are compressed concurrently on
+ * a fork-join pool. Each band reads its pixels into an array with one call to <code>BufferedImage.getRGB()</code>
+ * and extracts its blocks from that array, rather than reading each block from the image.
+ * <p>
+ * The compressed output is identical to that of DDSCompressor. Compressors that don't implement {@link
+ * DXTBandCompressor} are run sequentially, as DDSCompressor runs them.
+ */
+public class ParallelDDSCompressor extends DDSCompressor
+{
+    /** The default number of pixel rows in each band. */
+    protected static final int DEFAULT_BAND_HEIGHT = 64;
+
+    protected java.util.concurrent.ForkJoinPool pool;
+    protected int bandHeight = DEFAULT_BAND_HEIGHT;
+
+    /** Creates a new ParallelDDSCompressor that compresses on the common fork-join pool. */
+    public ParallelDDSCompressor()
+    {
+        this(java.util.concurrent.ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new ParallelDDSCompressor that compresses on the specified pool.
+     *
+     * @param pool the pool that compresses the bands.
+     *
+     * @throws IllegalArgumentException if <code>pool</code> is null.
+     */
+    public ParallelDDSCompressor(java.util.concurrent.ForkJoinPool pool)
+    {
+        if (pool == null)
+        {
+            String message = Logging.getMessage("nullValue.ThreadPoolIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the pool that compresses the bands.
+     *
+     * @return the compression pool.
+     */
+    public java.util.concurrent.ForkJoinPool getPool()
+    {
+        return this.pool;
+    }
+
+    /**
+     * Returns the number of pixel rows in each band.
+     *
+     * @return the band height, in pixels.
+     */
+    public int getBandHeight()
+    {
+        return this.bandHeight;
+    }
+
+    /**
+     * Specifies the number of pixel rows in each band. Smaller bands spread the work over more threads, at the cost of
+     * more tasks. The height is rounded up to a whole number of block rows.
+     *
+     * @param bandHeight the band height, in pixels.
+     *
+     * @throws IllegalArgumentException if <code>bandHeight</code> is less than one.
+     */
+    public void setBandHeight(int bandHeight)
+    {
+        if (bandHeight < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", bandHeight);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.bandHeight = bandHeight;
+    }
+
+    @Override
+    protected void compressMipMapLevels(DXTCompressor compressor, BufferedImage[] mipMapLevels,
+        DXTCompressionAttributes attributes, java.nio.ByteBuffer buffer)
+    {
+        if (!(compressor instanceof DXTBandCompressor))
+        {
+            super.compressMipMapLevels(compressor, mipMapLevels, attributes, buffer);
+            return;
+        }
+
+        DXTBandCompressor bandCompressor = (DXTBandCompressor) compressor;
+        int bandHeight = 4 * ((this.bandHeight + 3) / 4);
+
+        // Each block compresses to a fixed number of bytes, so each band's output begins at a known offset. Create
+        // a task for every band of every level, then compress them all at once.
+        final java.util.List<BandTask> tasks = new java.util.ArrayList<BandTask>();
+        int offset = buffer.position();
+        for (BufferedImage image : mipMapLevels)
+        {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int rowSize = ((width + 3) / 4) * bandCompressor.getBlockSize();
+            int[] pixels = new int[width * height];
+            ColorBlockExtractor extractor = new PixelArrayColorBlockExtractor(pixels, width, height);
+
+            for (int minY = 0; minY < height; minY += bandHeight)
+            {
+                tasks.add(new BandTask(bandCompressor, attributes, image, pixels, extractor, minY,
+                    Math.min(minY + bandHeight, height), offset + (minY / 4) * rowSize, buffer));
+            }
+
+            offset += compressor.getCompressedSize(image, attributes);
+        }
+
+        this.pool.invoke(new java.util.concurrent.RecursiveAction()
+        {
+            @Override
+            protected void compute()
+            {
+                invokeAll(tasks);
+            }
+        });
+
+        buffer.position(offset);
+    }
+
+    /**
+     * Reads the pixels of the specified rows into an array of packed 8888 ARGB ints whose colors are not
+     * premultiplied. The rows are placed in the array at the same index as <code>BufferedImage.getRGB()</code> would
+     * place them when reading the whole image.
+     *
+     * @param image  the image to read.
+     * @param minY   the first row to read.
+     * @param maxY   the row following the last row to read.
+     * @param pixels the array that receives the pixels.
+     */
+    protected void readPixels(BufferedImage image, int minY, int maxY, int[] pixels)
+    {
+        int width = image.getWidth();
+        int rows = maxY - minY;
+
+        // Packed ARGB and RGB images already hold their pixels in the form getRGB() returns, so copy them directly
+        // rather than converting each pixel through the image's color model.
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB || image.getType() == BufferedImage.TYPE_INT_RGB)
+        {
+            int[] rowPixels = (int[]) image.getRaster().getDataElements(0, minY, width, rows, null);
+            int alpha = image.getType() == BufferedImage.TYPE_INT_RGB ? 0xFF000000 : 0;
+            for (int i = 0, index = minY * width; i < rowPixels.length; i++, index++)
+            {
+                pixels[index] = rowPixels[i] | alpha;
+            }
+        }
+        else
+        {
+            image.getRGB(0, minY, width, rows, pixels, minY * width, width);
+        }
+    }
+
+    /** Reads and compresses one band of an image, writing the compressed blocks at the band's offset. */
+    @SuppressWarnings("serial")
+    protected class BandTask extends java.util.concurrent.RecursiveAction
+    {
+        protected final DXTBandCompressor compressor;
+        protected final DXTCompressionAttributes attributes;
+        protected final BufferedImage image;
+        protected final int[] pixels;
+        protected final ColorBlockExtractor extractor;
+        protected final int minY;
+        protected final int maxY;
+        protected final int offset;
+        protected final java.nio.ByteBuffer buffer;
+
+        public BandTask(DXTBandCompressor compressor, DXTCompressionAttributes attributes, BufferedImage image,
+            int[] pixels, ColorBlockExtractor extractor, int minY, int maxY, int offset, java.nio.ByteBuffer buffer)
+        {
+            this.compressor = compressor;
+            this.attributes = attributes;
+            this.image = image;
+            this.pixels = pixels;
+            this.extractor = extractor;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.offset = offset;
+            this.buffer = buffer;
+        }
+
+        @Override
+        protected void compute()
+        {
+            // Each band reads only its own rows, and its blocks lie entirely within those rows, so bands don't wait
+            // on one another.
+            readPixels(this.image, this.minY, this.maxY, this.pixels);
+
+            // A duplicate shares the buffer's content but has its own position. Its byte order must be set again.
+            java.nio.ByteBuffer bandBuffer = this.buffer.duplicate();
+            bandBuffer.order(java.nio.ByteOrder.LITTLE_ENDIAN);
+            bandBuffer.position(this.offset);
+
+            this.compressor.compressBand(this.extractor, this.image.getWidth(), this.minY, this.maxY,
+                this.image.getColorModel().hasAlpha(), this.attributes, bandBuffer);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.dds;
+
+import gov.nasa.worldwind.util.Logging;
+
+/**
+ * Provides access to 4x4 blocks of pixel data from an array of packed 8888 ARGB ints via the
+ * <code>ColorBlockExtractor</code> interface. The colors in the array are not premultiplied, as returned by
+ * <code>BufferedImage.getRGB()</code>. Blocks extracted by this class are identical to those extracted by {@link
+ * BasicColorBlockExtractor} from an image holding the same colors, but this class reads the array directly rather than
+ * converting each block through the image's color model.
+ * <p>
+ * This class holds no per-call state, so several threads may extract blocks from the same instance concurrently.
+ */
+public class PixelArrayColorBlockExtractor implements ColorBlockExtractor
+{
+    protected int width;
+    protected int height;
+    protected int[] pixels;
+
+    /**
+     * Creates a <code>PixelArrayColorBlockExtractor</code> which will draw its data from the specified array. Pixel
+     * <code>(x, y)</code> is at index <code>x + y * width</code>.
+     *
+     * @param pixels the packed 8888 ARGB colors to draw data from.
+     * @param width  the image width, in pixels.
+     * @param height the image height, in pixels.
+     *
+     * @throws IllegalArgumentException if <code>pixels</code> is null, if either dimension is less than one, or if
+     *                                  <code>pixels</code> is too small to hold an image of the specified dimensions.
+     */
+    public PixelArrayColorBlockExtractor(int[] pixels, int width, int height)
+    {
+        if (pixels == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (width < 1 || height < 1)
+        {
+            String message = Logging.getMessage("generic.InvalidImageSize", width, height);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (pixels.length < width * height)
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", pixels.length);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    /**
+     * Returns the array this <code>PixelArrayColorBlockExtractor</code> will draw its data from.
+     *
+     * @return array data is drawn from.
+     */
+    public int[] getPixels()
+    {
+        return this.pixels;
+    }
+
+    /**
+     * Extracts a 4x4 block of pixel data at the specified coordinate <code>(x, y)</code>, and places the data in the
+     * specified <code>colorBlock</code>. Blocks that extend past the image are filled by repeating the image pixels
+     * that intersect the block, as {@link BasicColorBlockExtractor} does. If the <code>attributes</code> specify that
+     * color components should be premultiplied by alpha, this extractor will perform the premultiplication operation
+     * on the incoming colors.
+     *
+     * @param attributes the DXT compression attributes which may affect how colors are accessed.
+     * @param x          horizontal coordinate origin to extract pixel data from.
+     * @param y          vertical coordinate origin to extract pixel data from.
+     * @param colorBlock 4x4 block of pixel data that will receive the data.
+     *
+     * @throws IllegalArgumentException if either <code>attributes</code> or <code>colorBlock</code> is null.
+     */
+    public void extractColorBlock4x4(DXTCompressionAttributes attributes, int x, int y, ColorBlock4x4 colorBlock)
+    {
+        if (attributes == null)
+        {
+            String message = Logging.getMessage("nullValue.AttributesIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (colorBlock == null)
+        {
+            String message = Logging.getMessage("nullValue.ColorBlockIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int bw = Math.min(this.width - x, 4);
+        int bh = Math.min(this.height - y, 4);
+        int blockPos = 0;
+
+        if (bw == 4 && bh == 4)
+        {
+            // The common case: the block lies entirely within the image, so its rows are read directly.
+            for (int j = 0, index = x + y * this.width; j < 4; j++, index += this.width)
+            {
+                BasicColorBlockExtractor.int32ToColor32(this.pixels[index], colorBlock.color[blockPos++]);
+                BasicColorBlockExtractor.int32ToColor32(this.pixels[index + 1], colorBlock.color[blockPos++]);
+                BasicColorBlockExtractor.int32ToColor32(this.pixels[index + 2], colorBlock.color[blockPos++]);
+                BasicColorBlockExtractor.int32ToColor32(this.pixels[index + 3], colorBlock.color[blockPos++]);
+            }
+        }
+        else
+        {
+            int[] remainder = BasicColorBlockExtractor.remainder;
+            int bxOffset = 4 * (bw - 1);
+            int byOffset = 4 * (bh - 1);
+
+            for (int j = 0; j < 4; j++)
+            {
+                int index = x + (y + remainder[byOffset + j]) * this.width;
+
+                for (int i = 0; i < 4; i++)
+                {
+                    int bx = remainder[bxOffset + i];
+                    BasicColorBlockExtractor.int32ToColor32(this.pixels[index + bx], colorBlock.color[blockPos++]);
+                }
+            }
+        }
+
+        if (attributes.isPremultiplyAlpha())
+        {
+            for (int i = 0; i < 16; i++)
+            {
+                BasicColorBlockExtractor.premultiplyAlpha(colorBlock.color[i]);
+            }
+        }
+    }
+}
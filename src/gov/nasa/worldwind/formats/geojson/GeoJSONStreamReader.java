@@ -0,0 +1,481 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.geojson;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.util.*;
+import org.codehaus.jackson.*;
+
+import java.io.*;
+import java.nio.DoubleBuffer;
+import java.util.*;
+
+/**
+ * Reads a GeoJSON document one object at a time. Unlike {@link GeoJSONDoc}, which builds the entire document before
+ * any of it can be used, this reader returns each feature of a FeatureCollection as soon as the feature has been read,
+ * so documents of any size can be read in memory proportional to their largest feature and rendered progressively.
+ * <p/>
+ * A document whose root is a FeatureCollection yields the collection's features in document order. The collection's
+ * other members, such as its <code>crs</code> and <code>bbox</code>, are available from {@link #getCollectionFields()}
+ * once they've been read. A document whose root is an array yields each of the array's objects, and a document whose
+ * root is any other GeoJSON object yields that object. Objects are otherwise identical to those created by {@link
+ * GeoJSONDoc}.
+ * <p/>
+ * Coordinates are read directly from the JSON stream into primitive arrays, without creating an event or a boxed value
+ * for each number. Every {@link GeoJSONPositionArray} of an object returned by {@link #nextObject()} shares a single
+ * {@link DoubleBuffer} sized to that object's coordinates, so retaining one object retains none of the others.
+ *
+ * @see GeoJSONDoc
+ */
+public class GeoJSONStreamReader implements Closeable
+{
+    protected static final int INITIAL_COORDINATE_CAPACITY = 256;
+
+    /** The reader hasn't read the document's root. */
+    protected static final int STATE_START = 0;
+    /** The reader is reading the members of the document's root object. */
+    protected static final int STATE_ROOT_OBJECT = 1;
+    /** The reader is reading the features array of the document's root FeatureCollection. */
+    protected static final int STATE_FEATURES = 2;
+    /** The reader is reading the elements of the document's root array. */
+    protected static final int STATE_ROOT_ARRAY = 3;
+    /** The reader has read the entire document. */
+    protected static final int STATE_DONE = 4;
+
+    /** Marks a coordinate array that is a single position, rather than an array of positions or of arrays. */
+    protected static final Object POSITION = new Object();
+
+    protected JsonParser jsonParser;
+    protected String displayName;
+    protected int state = STATE_START;
+    protected AVList rootFields;
+    protected boolean rootIsCollection;
+
+    protected double[] coords = new double[INITIAL_COORDINATE_CAPACITY];
+    protected int numCoords;
+    protected int positionSize;
+    protected List<GeoJSONPositionArray> pendingArrays = new ArrayList<GeoJSONPositionArray>();
+
+    /**
+     * Creates a reader for a GeoJSON document. The document is read by calls to {@link #nextObject()}.
+     *
+     * @param source GeoJSON document. May be a file path {@link String}, {@link File}, {@link java.net.URL}, {@link
+     *               java.net.URI} or {@link InputStream}.
+     *
+     * @throws IllegalArgumentException if the source is null or empty.
+     * @throws WWRuntimeException       if the source cannot be opened.
+     */
+    public GeoJSONStreamReader(Object source)
+    {
+        if (WWUtil.isEmpty(source))
+        {
+            String message = Logging.getMessage("nullValue.SourceIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        try
+        {
+            this.displayName = WWIO.getSourcePath(source);
+            this.initialize(source);
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("generic.ExceptionWhileReading", this.displayName);
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+    }
+
+    protected void initialize(Object source) throws Exception
+    {
+        JsonFactory factory = new JsonFactory();
+        this.jsonParser = factory.createJsonParser(WWIO.openStream(source));
+    }
+
+    /**
+     * Indicates the members of the document's root FeatureCollection, other than its features, that have been read so
+     * far. Members that follow the features array in the document are available once {@link #nextObject()} has
+     * returned null.
+     *
+     * @return the root object's members read so far, or null if the document's root is not an object or hasn't been
+     *         read.
+     */
+    public AVList getCollectionFields()
+    {
+        return this.rootFields;
+    }
+
+    /**
+     * Reads the document's next GeoJSON object. Objects that are not GeoJSON objects are logged and skipped.
+     *
+     * @return the next feature of the document's root FeatureCollection, the next object of its root array, or its
+     *         root object, or null if the document has been read entirely.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    public GeoJSONObject nextObject() throws IOException
+    {
+        while (this.state != STATE_DONE && this.jsonParser != null)
+        {
+            Object o = this.readNext();
+            if (o == null)
+                continue;
+
+            if (o instanceof GeoJSONObject)
+                return (GeoJSONObject) o;
+
+            Logging.logger().warning(Logging.getMessage("generic.UnrecognizedObjectType", o));
+        }
+
+        return null;
+    }
+
+    public void close()
+    {
+        if (this.jsonParser != null)
+        {
+            WWIO.closeStream(this.jsonParser, this.displayName);
+            this.jsonParser = null;
+        }
+
+        this.state = STATE_DONE;
+    }
+
+    /**
+     * Advances the document by one step of the reader's state machine.
+     *
+     * @return the object completed by this step, or null if no object was completed.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected Object readNext() throws IOException
+    {
+        JsonToken token = this.jsonParser.nextToken();
+
+        if (this.state == STATE_START)
+        {
+            if (token == JsonToken.START_OBJECT)
+            {
+                this.rootFields = new AVListImpl();
+                this.state = STATE_ROOT_OBJECT;
+            }
+            else if (token == JsonToken.START_ARRAY)
+            {
+                this.state = STATE_ROOT_ARRAY;
+            }
+            else
+            {
+                if (token != null)
+                    Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", token));
+                this.state = STATE_DONE;
+            }
+        }
+        else if (this.state == STATE_ROOT_OBJECT)
+        {
+            if (token == JsonToken.FIELD_NAME)
+            {
+                String name = this.jsonParser.getCurrentName();
+                token = this.jsonParser.nextToken();
+
+                if (GeoJSONConstants.FIELD_FEATURES.equals(name) && token == JsonToken.START_ARRAY)
+                {
+                    this.rootIsCollection = true;
+                    this.state = STATE_FEATURES;
+                }
+                else
+                {
+                    this.rootFields.setValue(name, this.readField(name, token));
+                }
+            }
+            else
+            {
+                // The root object has ended. Unless its features have been returned, it's the document's one object.
+                this.state = STATE_DONE;
+                if (!this.rootIsCollection)
+                    return this.completeObject(this.createObject(this.rootFields));
+            }
+        }
+        else if (this.state == STATE_FEATURES || this.state == STATE_ROOT_ARRAY)
+        {
+            if (token == JsonToken.START_OBJECT)
+            {
+                return this.completeObject(this.readObject());
+            }
+            else if (token == JsonToken.END_ARRAY)
+            {
+                this.state = (this.state == STATE_FEATURES) ? STATE_ROOT_OBJECT : STATE_DONE;
+            }
+            else if (token == null)
+            {
+                this.state = STATE_DONE;
+            }
+            else
+            {
+                Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", token));
+                this.jsonParser.skipChildren();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gives the position arrays of an object that has been read their own buffer, sized to the object's coordinates,
+     * and resets the coordinate storage for the next object.
+     *
+     * @param o the object that has been read.
+     *
+     * @return the object.
+     */
+    protected Object completeObject(Object o)
+    {
+        if (this.pendingArrays.size() > 0)
+        {
+            DoubleBuffer buffer = DoubleBuffer.allocate(this.numCoords);
+            buffer.put(this.coords, 0, this.numCoords);
+
+            for (GeoJSONPositionArray array : this.pendingArrays)
+            {
+                array.buffer = buffer;
+            }
+        }
+
+        this.pendingArrays.clear();
+        this.numCoords = 0;
+
+        return o;
+    }
+
+    //**************************************************************//
+    //********************  Object Parsing  ************************//
+    //**************************************************************//
+
+    protected Object readValue(JsonToken token) throws IOException
+    {
+        return this.readField(null, token);
+    }
+
+    protected Object readField(String name, JsonToken token) throws IOException
+    {
+        if (token == JsonToken.START_OBJECT)
+            return this.readObject();
+
+        else if (token == JsonToken.START_ARRAY && GeoJSONConstants.FIELD_COORDINATES.equals(name))
+            return this.readCoordinates();
+
+        else if (token == JsonToken.START_ARRAY)
+            return this.readArray(name);
+
+        else if (token == JsonToken.VALUE_STRING)
+            return this.jsonParser.getText();
+
+        else if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT)
+            return this.jsonParser.getDoubleValue(); // Consistent with GeoJSONDoc, all numbers are doubles.
+
+        else if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE)
+            return this.jsonParser.getBooleanValue();
+
+        else if (token == JsonToken.VALUE_EMBEDDED_OBJECT)
+            return this.jsonParser.getEmbeddedObject();
+
+        else if (token != JsonToken.VALUE_NULL)
+            Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", token));
+
+        return null;
+    }
+
+    protected Object readObject() throws IOException
+    {
+        AVList fields = new AVListImpl();
+
+        for (JsonToken token = this.jsonParser.nextToken(); token == JsonToken.FIELD_NAME;
+            token = this.jsonParser.nextToken())
+        {
+            String name = this.jsonParser.getCurrentName();
+            fields.setValue(name, this.readField(name, this.jsonParser.nextToken()));
+        }
+
+        return this.createObject(fields);
+    }
+
+    protected Object createObject(AVList fields)
+    {
+        Object type = fields.getValue(GeoJSONConstants.FIELD_TYPE);
+
+        if (GeoJSONConstants.TYPE_POINT.equals(type))
+            return new GeoJSONPoint(fields);
+
+        else if (GeoJSONConstants.TYPE_MULTI_POINT.equals(type))
+            return new GeoJSONMultiPoint(fields);
+
+        else if (GeoJSONConstants.TYPE_LINE_STRING.equals(type))
+            return new GeoJSONLineString(fields);
+
+        else if (GeoJSONConstants.TYPE_MULTI_LINE_STRING.equals(type))
+            return new GeoJSONMultiLineString(fields);
+
+        else if (GeoJSONConstants.TYPE_POLYGON.equals(type))
+            return new GeoJSONPolygon(fields);
+
+        else if (GeoJSONConstants.TYPE_MULTI_POLYGON.equals(type))
+            return new GeoJSONMultiPolygon(fields);
+
+        else if (GeoJSONConstants.TYPE_GEOMETRY_COLLECTION.equals(type))
+            return new GeoJSONGeometryCollection(fields);
+
+        else if (GeoJSONConstants.TYPE_FEATURE.equals(type))
+            return new GeoJSONFeature(fields);
+
+        else if (GeoJSONConstants.TYPE_FEATURE_COLLECTION.equals(type))
+            return new GeoJSONFeatureCollection(fields);
+
+        else
+            return fields;
+    }
+
+    protected Object readArray(String name) throws IOException
+    {
+        ArrayList<Object> list = new ArrayList<Object>();
+
+        for (JsonToken token = this.jsonParser.nextToken(); token != JsonToken.END_ARRAY && token != null;
+            token = this.jsonParser.nextToken())
+        {
+            list.add(this.readValue(token));
+        }
+
+        if (GeoJSONConstants.FIELD_FEATURES.equals(name))
+            return list.toArray(new GeoJSONFeature[list.size()]);
+
+        else if (GeoJSONConstants.FIELD_GEOMETRIES.equals(name))
+            return list.toArray(new GeoJSONGeometry[list.size()]);
+
+        return list.toArray();
+    }
+
+    //**************************************************************//
+    //********************  Coordinate Parsing  ********************//
+    //**************************************************************//
+
+    /**
+     * Reads a coordinates member starting at its start array token. A single position is read as a position array of
+     * length one, an array of positions as a position array, and arrays of those as arrays of position arrays.
+     *
+     * @return a {@link GeoJSONPositionArray}, or a one or two dimensional array of them, or null if the coordinates are
+     *         empty.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected Object readCoordinates() throws IOException
+    {
+        int startPos = this.numCoords;
+        Object o = this.readCoordinateArray();
+
+        return (o == POSITION) ? this.createPositionArray(this.positionSize, startPos) : o;
+    }
+
+    protected Object readCoordinateArray() throws IOException
+    {
+        JsonToken token = this.jsonParser.nextToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT)
+        {
+            this.positionSize = this.readPosition(token);
+            return POSITION;
+        }
+
+        int startPos = this.numCoords;
+        int posSize = -1;
+        ArrayList<Object> list = null; // List is lazily constructed below.
+
+        for (; token != JsonToken.END_ARRAY && token != null; token = this.jsonParser.nextToken())
+        {
+            if (token != JsonToken.START_ARRAY)
+            {
+                Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", token));
+                this.jsonParser.skipChildren();
+                continue;
+            }
+
+            Object o = this.readCoordinateArray();
+            if (o == POSITION)
+            {
+                // Assume that the number of coordinates in the first position is consistent with the remaining
+                // positions in this array.
+                if (posSize < 0)
+                    posSize = this.positionSize;
+            }
+            else if (o != null)
+            {
+                if (list == null)
+                    list = new ArrayList<Object>();
+                list.add(o);
+            }
+        }
+
+        if (posSize > 0)
+            return this.createPositionArray(posSize, startPos);
+
+        else if (list == null)
+            return null;
+
+        else if (list.get(0) instanceof GeoJSONPositionArray)
+            return list.toArray(new GeoJSONPositionArray[list.size()]);
+
+        else if (list.get(0) instanceof GeoJSONPositionArray[])
+            return list.toArray(new GeoJSONPositionArray[list.size()][]);
+
+        Logging.logger().warning(Logging.getMessage("generic.UnexpectedObjectType", list.get(0)));
+        return null;
+    }
+
+    /**
+     * Reads one position's coordinates into the coordinate storage, starting at the position's first number and ending
+     * at its end array token.
+     *
+     * @param token the position's first token.
+     *
+     * @return the number of coordinates read.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected int readPosition(JsonToken token) throws IOException
+    {
+        int numRead = 0;
+
+        for (; token != JsonToken.END_ARRAY && token != null; token = this.jsonParser.nextToken())
+        {
+            if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT)
+            {
+                Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", token));
+                this.jsonParser.skipChildren();
+                continue;
+            }
+
+            if (this.numCoords == this.coords.length)
+                this.coords = Arrays.copyOf(this.coords, 2 * this.coords.length);
+
+            this.coords[this.numCoords++] = this.jsonParser.getDoubleValue();
+            numRead++;
+        }
+
+        return numRead;
+    }
+
+    protected GeoJSONPositionArray createPositionArray(int positionSize, int startPos)
+    {
+        if (positionSize < 2 || startPos == this.numCoords)
+            return null;
+
+        // The array refers to the coordinate storage until its object has been read. completeObject() then gives it
+        // the object's own buffer.
+        GeoJSONPositionArray array = new GeoJSONPositionArray(positionSize, DoubleBuffer.wrap(this.coords), startPos,
+            this.numCoords);
+        this.pendingArrays.add(array);
+
+        return array;
+    }
+}
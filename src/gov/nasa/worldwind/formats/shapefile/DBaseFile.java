@@ -47,9 +47,33 @@ public class DBaseFile extends AVListImpl
     protected boolean open;
     protected int numRecordsRead;
     protected ByteBuffer recordBuffer;
+    // Random access properties.
+    protected boolean randomAccess;
+    protected MappedByteBuffer mappedBuffer;
+    protected int[] fieldOffsets;
+    protected Map<String, Integer> fieldIndices;
 
     public DBaseFile(Object source)
     {
+        this(source, false);
+    }
+
+    /**
+     * Opens a DBase file from a general source. If <code>randomAccess</code> is true and the source is a file, the file
+     * is memory mapped and its records can be read in any order with {@link #readRecord(int)}. Records read this way
+     * parse each field's value the first time the field is requested, so reading a few columns of a wide file doesn't
+     * parse the rest. Random access is ignored for other sources, which are read sequentially.
+     *
+     * @param source       the source of the DBase file.
+     * @param randomAccess true to memory map a file source for random access, otherwise false.
+     *
+     * @throws IllegalArgumentException if the source is null or an empty string.
+     * @throws WWRuntimeException       if the DBase file cannot be opened for any reason.
+     */
+    public DBaseFile(Object source, boolean randomAccess)
+    {
+        this.randomAccess = randomAccess;
+
         if (source == null || WWUtil.isEmpty(source))
         {
             String message = Logging.getMessage("nullValue.SourceIsNull");
@@ -138,11 +162,65 @@ public class DBaseFile extends AVListImpl
         return this.fields;
     }
 
+    /**
+     * Indicates whether this DBase file is memory mapped, and its records can be read in any order.
+     *
+     * @return true if the file supports random access, otherwise false.
+     */
+    public boolean isRandomAccess()
+    {
+        return this.mappedBuffer != null;
+    }
+
     public boolean hasNext()
     {
         return this.open && this.numRecordsRead < this.header.numberOfRecords;
     }
 
+    /**
+     * Reads the record with the specified number. Record numbers start at one. The returned record reads its field
+     * values from the memory mapped file the first time each one is requested.
+     *
+     * @param recordNumber the number of the record to read.
+     *
+     * @return the record.
+     *
+     * @throws IllegalStateException    if this file is closed or doesn't support random access.
+     * @throws IllegalArgumentException if the record number is less than one or greater than the number of records.
+     * @see #isRandomAccess()
+     */
+    public DBaseRecord readRecord(int recordNumber)
+    {
+        if (!this.open)
+        {
+            String message = Logging.getMessage("SHP.DBaseFileClosed", this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        if (this.mappedBuffer == null)
+        {
+            String message = Logging.getMessage("SHP.RandomAccessUnavailable", this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        if (recordNumber < 1 || recordNumber > this.getNumberOfRecords())
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", recordNumber);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        // Slice the record from a duplicate so that records may be read on several threads.
+        ByteBuffer buffer = this.mappedBuffer.duplicate();
+        int pos = this.getHeaderLength() + (recordNumber - 1) * this.getRecordLength();
+        buffer.position(pos);
+        buffer.limit(pos + this.getRecordLength());
+
+        return new LazyRecord(this, buffer.slice(), recordNumber);
+    }
+
     public DBaseRecord nextRecord()
     {
         if (!this.open)
@@ -182,6 +260,7 @@ public class DBaseFile extends AVListImpl
 
         this.open = false;
         this.recordBuffer = null;
+        this.mappedBuffer = null;
     }
 
     //**************************************************************//
@@ -200,6 +279,25 @@ public class DBaseFile extends AVListImpl
         // DBase record reading performs about 200% better when the FileInputStream is wrapped in a BufferedInputStream.
         this.channel = Channels.newChannel(WWIO.getBufferedInputStream(new FileInputStream(file)));
         this.initialize();
+
+        // Map the file for random access once its header and fields have been read. If mapping fails, log a warning
+        // and continue reading the file sequentially.
+        if (this.randomAccess && this.getRecordLength() > 0
+            && file.length() >= (long) this.getHeaderLength() + (long) this.getNumberOfRecords() * this.getRecordLength())
+        {
+            try
+            {
+                this.mappedBuffer = WWIO.mapFile(file, FileChannel.MapMode.READ_ONLY);
+                this.initializeFieldOffsets();
+                WWIO.closeStream(this.channel, null);
+                this.channel = null;
+            }
+            catch (IOException e)
+            {
+                Logging.logger().log(java.util.logging.Level.WARNING,
+                    Logging.getMessage("SHP.ExceptionAttemptingToMemoryMap", file.getPath()), e);
+            }
+        }
     }
 
     protected void initializeFromURL(URL url) throws IOException
@@ -411,6 +509,24 @@ public class DBaseFile extends AVListImpl
         return fields;
     }
 
+    /**
+     * Computes the offset of each field within a record, and a map from field names to field positions. The first
+     * byte of each record is its deletion flag, so the first field begins at offset one.
+     */
+    protected void initializeFieldOffsets()
+    {
+        this.fieldOffsets = new int[this.fields.length];
+        this.fieldIndices = new HashMap<String, Integer>();
+
+        int offset = 1;
+        for (int i = 0; i < this.fields.length; i++)
+        {
+            this.fieldOffsets[i] = offset;
+            this.fieldIndices.put(this.fields[i].getName(), i);
+            offset += this.fields[i].getLength();
+        }
+    }
+
     //**************************************************************//
     //********************  Records  *******************************//
     //**************************************************************//
@@ -425,6 +541,9 @@ public class DBaseFile extends AVListImpl
      */
     protected DBaseRecord readNextRecord() throws IOException
     {
+        if (this.mappedBuffer != null)
+            return this.readRecord(++this.numRecordsRead);
+
         // Allocate a buffer to hold the record content.
         if (this.recordBuffer == null)
             this.recordBuffer = ByteBuffer.allocate(this.getRecordLength());
@@ -508,4 +627,127 @@ public class DBaseFile extends AVListImpl
 
         return true;
     }
+
+    /**
+     * A record of a memory mapped DBase file that reads each field's value from the file the first time it's requested.
+     * Methods that return all of the record's values, such as <code>getEntries</code> and <code>copy</code>, read every
+     * field first.
+     */
+    protected static class LazyRecord extends DBaseRecord
+    {
+        protected DBaseFile dbaseFile;
+        protected ByteBuffer buffer;
+        protected BitSet readFields;
+
+        public LazyRecord(DBaseFile dbaseFile, ByteBuffer buffer, int recordNumber)
+        {
+            super(dbaseFile, buffer, recordNumber);
+            this.dbaseFile = dbaseFile;
+            this.buffer = buffer;
+            this.readFields = new BitSet(dbaseFile.getFields().length);
+        }
+
+        @Override
+        protected void readFromBuffer(DBaseFile dbaseFile, ByteBuffer buffer, int recordNumber)
+        {
+            // Read only the deleted record flag. Field values are read on demand.
+            this.recordNumber = recordNumber;
+            this.deleted = (buffer.get(0) == 0x2A);
+        }
+
+        @Override
+        synchronized public Object getValue(String key)
+        {
+            if (key != null)
+                this.readField(key);
+
+            return super.getValue(key);
+        }
+
+        @Override
+        synchronized public Object setValue(String key, Object value)
+        {
+            // Once set, a field's value is never replaced by the value in the file.
+            this.markFieldRead(key);
+            return super.setValue(key, value);
+        }
+
+        @Override
+        synchronized public boolean hasKey(String key)
+        {
+            if (key != null && !this.isFieldRead(key) && this.dbaseFile.fieldIndices.containsKey(key))
+                return true; // every field has an entry, even when its value is null
+
+            return super.hasKey(key);
+        }
+
+        @Override
+        synchronized public Object removeKey(String key)
+        {
+            this.markFieldRead(key);
+            return super.removeKey(key);
+        }
+
+        @Override
+        synchronized public Collection<Object> getValues()
+        {
+            this.readAllFields();
+            return super.getValues();
+        }
+
+        @Override
+        synchronized public Set<Map.Entry<String, Object>> getEntries()
+        {
+            this.readAllFields();
+            return super.getEntries();
+        }
+
+        @Override
+        synchronized public AVList copy()
+        {
+            this.readAllFields();
+            return super.copy();
+        }
+
+        @Override
+        synchronized public AVList clearList()
+        {
+            this.readFields.set(0, this.dbaseFile.getFields().length);
+            return super.clearList();
+        }
+
+        protected boolean isFieldRead(String key)
+        {
+            Integer index = this.dbaseFile.fieldIndices.get(key);
+            return index == null || this.readFields.get(index);
+        }
+
+        protected void markFieldRead(String key)
+        {
+            Integer index = key != null ? this.dbaseFile.fieldIndices.get(key) : null;
+            if (index != null && this.readFields != null)
+                this.readFields.set(index);
+        }
+
+        protected void readField(String key)
+        {
+            Integer index = this.dbaseFile.fieldIndices.get(key);
+            if (index == null || this.readFields.get(index))
+                return;
+
+            this.readFields.set(index);
+            DBaseField field = this.dbaseFile.getFields()[index];
+            ByteBuffer fieldBuffer = this.buffer.duplicate();
+            fieldBuffer.position(this.dbaseFile.fieldOffsets[index]);
+            this.readField(this.dbaseFile, field, fieldBuffer, new byte[field.getLength()]);
+        }
+
+        protected void readAllFields()
+        {
+            for (DBaseField field : this.dbaseFile.getFields())
+            {
+                this.readField(field.getName());
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -18,8 +18,8 @@ import java.util.logging.Level;
  */
 public class DBaseRecord extends AVListImpl
 {
-    private boolean deleted = false;
-    private int recordNumber;
+    protected boolean deleted = false;
+    protected int recordNumber;
     private static final DateFormat dateformat = new SimpleDateFormat("yyyyMMdd");
 
     public DBaseRecord(DBaseFile dbaseFile, ByteBuffer buffer, int recordNumber)
@@ -77,48 +77,65 @@ public class DBaseRecord extends AVListImpl
 
         for (DBaseField field : fields)
         {
-            int numRead = dbaseFile.readZeroTerminatedString(buffer, bytes, field.getLength());
+            this.readField(dbaseFile, field, buffer, bytes);
+        }
+    }
 
-            // Add a null entry for this field if the field's value is null or the empty string. This enables
-            // applications to treat the DBaseRecord a standard AVList without any knowledge of the DBase file's field
-            // keys. Specifically, DBaseRecord.hasKey() returns true for all fields.
-            if (dbaseFile.isStringEmpty(bytes, numRead))
-            {
-                this.setValue(field.getName(), null);
-                continue;
-            }
+    /**
+     * Reads the value of the specified field from the buffer's current position, and sets it as this record's value
+     * for the field's name. The buffer's position is moved to the end of the field.
+     *
+     * @param dbaseFile the DBase file this record belongs to.
+     * @param field     the field to read.
+     * @param buffer    the buffer to read from.
+     * @param bytes     an array at least as long as the field, used to hold the field's bytes.
+     */
+    protected void readField(DBaseFile dbaseFile, DBaseField field, ByteBuffer buffer, byte[] bytes)
+    {
+        int numRead = dbaseFile.readZeroTerminatedString(buffer, bytes, field.getLength());
 
-            String value = dbaseFile.decodeString(bytes, numRead).trim();
+        // Add a null entry for this field if the field's value is null or the empty string. This enables
+        // applications to treat the DBaseRecord a standard AVList without any knowledge of the DBase file's field
+        // keys. Specifically, DBaseRecord.hasKey() returns true for all fields.
+        if (dbaseFile.isStringEmpty(bytes, numRead))
+        {
+            this.setValue(field.getName(), null);
+            return;
+        }
+
+        String value = dbaseFile.decodeString(bytes, numRead).trim();
 
-            try
+        try
+        {
+            if (field.getType() == DBaseField.TYPE_BOOLEAN)
             {
-                if (field.getType() == DBaseField.TYPE_BOOLEAN)
-                {
-                    this.setValue(field.getName(), value.equalsIgnoreCase("T") || value.equalsIgnoreCase("Y"));
-                }
-                else if (field.getType() == DBaseField.TYPE_CHAR)
-                {
-                    this.setValue(field.getName(), value);
-                }
-                else if (field.getType() == DBaseField.TYPE_DATE)
+                this.setValue(field.getName(), value.equalsIgnoreCase("T") || value.equalsIgnoreCase("Y"));
+            }
+            else if (field.getType() == DBaseField.TYPE_CHAR)
+            {
+                this.setValue(field.getName(), value);
+            }
+            else if (field.getType() == DBaseField.TYPE_DATE)
+            {
+                synchronized (dateformat) // fields of lazily read records may be parsed on several threads
                 {
                     this.setValue(field.getName(), dateformat.parse(value));
                 }
-                else if (field.getType() == DBaseField.TYPE_NUMBER)
-                {
-                    // Parse the field value as a decimal number. Double.parseDouble ignores any leading or trailing
-                    // whitespace.
-                    if (field.getDecimals() > 0)
-                        this.setValue(field.getName(), Double.valueOf(value));
-                    else
-                        this.setValue(field.getName(), Long.valueOf(value));
-                }
             }
-            catch (Exception e)
+            else if (field.getType() == DBaseField.TYPE_NUMBER)
             {
-                // Log warning but keep reading.
-                Logging.logger().log(Level.WARNING, Logging.getMessage("SHP.FieldParsingError", field, value), e);
+                // Parse the field value as a decimal number. Double.parseDouble ignores any leading or trailing
+                // whitespace.
+                if (field.getDecimals() > 0)
+                    this.setValue(field.getName(), Double.valueOf(value));
+                else
+                    this.setValue(field.getName(), Long.valueOf(value));
             }
         }
+        catch (Exception e)
+        {
+            // Log warning but keep reading.
+            Logging.logger().log(Level.WARNING, Logging.getMessage("SHP.FieldParsingError", field, value), e);
+        }
     }
 }
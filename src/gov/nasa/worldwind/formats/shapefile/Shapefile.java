@@ -76,6 +76,15 @@ import java.util.logging.Level;
  * hemisphere (if coordinate system is UTM); either {@link gov.nasa.worldwind.avlist.AVKey#NORTH} or {@link
  * gov.nasa.worldwind.avlist.AVKey#SOUTH}.</li> </ul>
  * <p>
+ * A Shapefile opened from a {@link File} with the parameter {@link gov.nasa.worldwind.avlist.AVKey#SHAPEFILE_RANDOM_ACCESS}
+ * set to <code>true</code> can read its records in any order. Use {@link #readRecord(int)} to read a record by its
+ * number, {@link #getRecordNumbers(gov.nasa.worldwind.geom.Sector)} to find the records that intersect a sector, and
+ * {@link #selectRecords(gov.nasa.worldwind.geom.Sector)} to limit {@link #nextRecord()} to those records. Records that
+ * intersect a sector are found using a packed Hilbert R-tree, which is stored in a sidecar file with the suffix ".hrt"
+ * next to the Shapefile, and rebuilt when it's missing or out of date. Attributes are read from the memory mapped DBase
+ * file the first time each one is requested. {@link ShapefileRenderable} and its subclasses read only the records in
+ * the visible sector of a random access Shapefile, which must remain open while they're displayed.
+ * <p>
  * Subclasses can override how the Shapefile reads and interprets its coordinate system. Override {@link
  * #readCoordinateSystem()} and {@link #validateCoordinateSystem(gov.nasa.worldwind.avlist.AVList)} to change how the
  * Shapefile parses an accompanying projection file and validates the coordinate system parameters. Override 
@@ -95,6 +104,7 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
     protected static final String INDEX_FILE_SUFFIX = ".shx";
     protected static final String ATTRIBUTE_FILE_SUFFIX = ".dbf";
     protected static final String PROJECTION_FILE_SUFFIX = ".prj";
+    protected static final String SPATIAL_INDEX_FILE_SUFFIX = ".hrt";
 
     protected static final String[] SHAPE_CONTENT_TYPES =
         {
@@ -176,6 +186,13 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
     protected ByteBuffer recordHeaderBuffer;
     protected ByteBuffer recordContentBuffer;
     protected MappedByteBuffer mappedShpBuffer;
+    // Random access properties.
+    protected boolean randomAccess;
+    protected ShapefileSpatialIndex spatialIndex;
+    /** Maps the byte position of each block of point data read in random access mode to its part number. */
+    protected Map<Integer, Integer> pointBlocks;
+    protected int[] selectedRecords;
+    protected int selectedPosition;
 
     /**
      * Opens an Shapefile from a general source. The source type may be one of the following: <ul> <li>{@link
@@ -423,6 +440,120 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         return this.index != null ? this.index.length / 2 : -1;
     }
 
+    /**
+     * Indicates whether this Shapefile can read its records in any order. Random access is enabled by opening a
+     * Shapefile from a {@link File} with the parameter {@link AVKey#SHAPEFILE_RANDOM_ACCESS} set to <code>true</code>,
+     * and is unavailable if the Shapefile cannot be memory mapped.
+     *
+     * @return true if this Shapefile supports random access, otherwise false.
+     */
+    public boolean isRandomAccess()
+    {
+        return this.randomAccess;
+    }
+
+    /**
+     * Returns the spatial index of this Shapefile's records, or null if this Shapefile doesn't support random access.
+     *
+     * @return the spatial index, or null if random access is unavailable.
+     *
+     * @see #isRandomAccess()
+     */
+    public ShapefileSpatialIndex getSpatialIndex()
+    {
+        return this.spatialIndex;
+    }
+
+    /**
+     * Returns the numbers of the records whose bounding rectangles intersect the specified sector, in ascending order.
+     * Null records are never returned.
+     *
+     * @param sector the sector to query.
+     *
+     * @return the numbers of the records intersecting the sector, possibly empty.
+     *
+     * @throws IllegalArgumentException if the sector is null.
+     * @throws IllegalStateException    if this Shapefile doesn't support random access.
+     * @see #isRandomAccess()
+     */
+    public int[] getRecordNumbers(Sector sector)
+    {
+        if (sector == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.checkRandomAccess();
+
+        return this.spatialIndex.getRecordNumbers(sector);
+    }
+
+    /**
+     * Limits the records returned by {@link #nextRecord()} to those intersecting the specified sector, and restarts
+     * iteration at the first of those records. Specify a null sector to iterate over every record. A {@link
+     * ShapefileRenderable} doesn't iterate over a random access Shapefile, but reads the records in the visible sector
+     * as they're needed.
+     *
+     * @param sector the sector to select records in, or null to select all records.
+     *
+     * @throws IllegalStateException if this Shapefile doesn't support random access.
+     * @see #isRandomAccess()
+     */
+    public void selectRecords(Sector sector)
+    {
+        this.checkRandomAccess();
+
+        this.selectedRecords = sector != null ? this.spatialIndex.getRecordNumbers(sector) : null;
+        this.selectedPosition = 0;
+    }
+
+    /**
+     * Reads the record with the specified number and returns the result as a new {@link ShapefileRecord}. Record
+     * numbers start at one. The record's attributes are read from the accompanying DBase file as they're requested.
+     * Reading the same record more than once returns records that share the same point coordinates.
+     *
+     * @param recordNumber the number of the record to read.
+     *
+     * @return the record.
+     *
+     * @throws IllegalArgumentException if the record number is less than one or greater than the number of records.
+     * @throws IllegalStateException    if this Shapefile is closed, or doesn't support random access.
+     * @throws WWRuntimeException       if an exception occurs while reading the record.
+     * @see #isRandomAccess()
+     */
+    public ShapefileRecord readRecord(int recordNumber)
+    {
+        if (!this.open)
+        {
+            String message = Logging.getMessage("SHP.ShapefileClosed", this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        this.checkRandomAccess();
+
+        if (recordNumber < 1 || recordNumber > this.getNumberOfRecords())
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", recordNumber);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        try
+        {
+            return this.readRecordAt(recordNumber);
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("SHP.ExceptionAttemptingToReadShapefileRecord",
+                this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().log(Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+    }
+
     /**
      * Get the underlying {@link CompoundVecBuffer} describing the shapefile's points.
      *
@@ -465,6 +596,12 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         if (!this.open || this.header == null)
             return false;
 
+        if (this.randomAccess)
+        {
+            int count = this.selectedRecords != null ? this.selectedRecords.length : this.getNumberOfRecords();
+            return this.selectedPosition < count;
+        }
+
         int contentLength = this.header.fileLength - HEADER_LENGTH;
         return this.numBytesRead < contentLength;
     }
@@ -505,7 +642,7 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         }
 
         int contentLength = this.header.fileLength - HEADER_LENGTH;
-        if (contentLength <= 0 || this.numBytesRead >= contentLength)
+        if (this.randomAccess ? !this.hasNext() : contentLength <= 0 || this.numBytesRead >= contentLength)
         {
             String message = Logging.getMessage("SHP.NoRecords", this.getStringValue(AVKey.DISPLAY_NAME));
             Logging.logger().severe(message);
@@ -515,7 +652,17 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         ShapefileRecord record;
         try
         {
-            record = this.readNextRecord();
+            if (this.randomAccess)
+            {
+                int recordNumber = this.selectedRecords != null ? this.selectedRecords[this.selectedPosition]
+                    : this.selectedPosition + 1;
+                this.selectedPosition++;
+                record = this.readRecordAt(recordNumber);
+            }
+            else
+            {
+                record = this.readNextRecord();
+            }
         }
         catch (Exception e)
         {
@@ -568,6 +715,8 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         this.recordHeaderBuffer = null;
         this.recordContentBuffer = null;
         this.mappedShpBuffer = null;
+        this.pointBlocks = null;
+        this.selectedRecords = null;
         this.open = false;
     }
 
@@ -647,13 +796,23 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         this.setValue(AVKey.DISPLAY_NAME, file.getPath());
         this.initialize(params);
 
+        // Random access requires the memory mapped Shapefile. Fall back on sequential reading when the Shapefile
+        // cannot be mapped.
+        if (params != null && Boolean.TRUE.equals(params.getValue(AVKey.SHAPEFILE_RANDOM_ACCESS)))
+        {
+            if (this.mappedShpBuffer != null)
+                this.initializeRandomAccess(file);
+            else
+                Logging.logger().warning(Logging.getMessage("SHP.RandomAccessUnavailable", file.getPath()));
+        }
+
         // Open the shapefile attribute source as a DBaseFile. We let the DBaseFile determine how to handle source File.
         File dbfFile = new File(WWIO.replaceSuffix(file.getPath(), ATTRIBUTE_FILE_SUFFIX));
         if (dbfFile.exists())
         {
             try
             {
-                this.attributeFile = new DBaseFile(dbfFile);
+                this.attributeFile = new DBaseFile(dbfFile, this.randomAccess);
             }
             catch (Exception e)
             {
@@ -662,6 +821,169 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         }
     }
 
+    /**
+     * Prepares a memory mapped Shapefile for random access. This builds the record index by scanning the record
+     * headers if the Shapefile has no index file, then loads the Shapefile's spatial index from its sidecar file. If the
+     * sidecar is missing or out of date, this builds the spatial index and attempts to write a new sidecar. A sidecar
+     * that cannot be written is logged, and the spatial index is kept in memory.
+     *
+     * @param file the Shapefile's file.
+     *
+     * @throws IOException if the spatial index cannot be built.
+     */
+    protected void initializeRandomAccess(File file) throws IOException
+    {
+        if (this.index == null)
+            this.index = this.scanIndex();
+
+        File indexFile = new File(WWIO.replaceSuffix(file.getPath(), SPATIAL_INDEX_FILE_SUFFIX));
+        String coordinateSystem = this.getCoordinateSystemKey();
+        try
+        {
+            this.spatialIndex = ShapefileSpatialIndex.read(indexFile, file.length(), file.lastModified(),
+                coordinateSystem);
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(Level.WARNING,
+                Logging.getMessage("SHP.ExceptionAttemptingToReadSpatialIndex", indexFile.getPath()), e);
+        }
+
+        if (this.spatialIndex == null || this.spatialIndex.getNumberOfRecords() > this.getNumberOfRecords())
+        {
+            this.spatialIndex = this.buildSpatialIndex();
+            Logging.logger().fine(Logging.getMessage("SHP.SpatialIndexBuilt", indexFile.getPath(),
+                this.spatialIndex.getNumberOfRecords()));
+
+            try
+            {
+                this.spatialIndex.write(indexFile, file.length(), file.lastModified(), coordinateSystem);
+            }
+            catch (IOException e)
+            {
+                Logging.logger().log(Level.WARNING,
+                    Logging.getMessage("SHP.ExceptionAttemptingToWriteSpatialIndex", indexFile.getPath()), e);
+            }
+        }
+
+        this.pointBlocks = new HashMap<Integer, Integer>();
+        this.randomAccess = true;
+    }
+
+    /**
+     * Builds a record index equivalent to the one read from an index file by scanning the memory mapped Shapefile's
+     * record headers. The returned array contains two elements per record: the byte offset of the record and the byte
+     * length of its content.
+     *
+     * @return the record index.
+     */
+    protected int[] scanIndex()
+    {
+        ByteBuffer buffer = this.mappedShpBuffer.duplicate();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        int end = Math.min(this.header.fileLength, buffer.capacity());
+
+        int[] array = new int[64];
+        int numElements = 0;
+        for (int pos = HEADER_LENGTH; pos + ShapefileRecord.RECORD_HEADER_LENGTH <= end; )
+        {
+            int contentLength = buffer.getInt(pos + 4) * 2;
+
+            if (numElements == array.length)
+                array = Arrays.copyOf(array, 2 * array.length);
+            array[numElements++] = pos;
+            array[numElements++] = contentLength;
+
+            pos += ShapefileRecord.RECORD_HEADER_LENGTH + contentLength;
+        }
+
+        return Arrays.copyOf(array, numElements);
+    }
+
+    /**
+     * Builds a spatial index of this Shapefile's non-null records. This reads each record's bounding rectangle, or its
+     * point for point Shapefiles, in the Shapefile's coordinate system. The memory mapped Shapefile is not modified.
+     *
+     * @return a new spatial index.
+     */
+    protected ShapefileSpatialIndex buildSpatialIndex()
+    {
+        int numRecords = this.getNumberOfRecords();
+        int[] recordNumbers = new int[numRecords];
+        double[] rectangles = new double[4 * numRecords];
+        int count = 0;
+
+        ByteBuffer buffer = this.mappedShpBuffer.duplicate();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer pointBuffer = ByteBuffer.allocate(16);
+        pointBuffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        for (int i = 0; i < numRecords; i++)
+        {
+            // Skip the record header, then read the shape type.
+            int pos = this.index[2 * i] + ShapefileRecord.RECORD_HEADER_LENGTH;
+            String shapeType = this.getShapeType(buffer.getInt(pos));
+            double[] coords;
+
+            if (isPointType(shapeType))
+            {
+                // Convert a copy of the point, leaving the mapped point unchanged until the record is read.
+                pointBuffer.clear();
+                for (int j = 0; j < 16; j++)
+                {
+                    pointBuffer.put(buffer.get(pos + 4 + j));
+                }
+                pointBuffer.flip();
+
+                DoubleBuffer point = this.readPoints(null, pointBuffer);
+                coords = new double[] {point.get(1), point.get(1), point.get(0), point.get(0)};
+            }
+            else if (isMultiPointType(shapeType) || isPolylineType(shapeType) || isPolygonType(shapeType))
+            {
+                buffer.position(pos + 4);
+                coords = this.readBoundingRectangle(buffer).coords;
+            }
+            else
+            {
+                continue; // Null records have no location.
+            }
+
+            recordNumbers[count] = i + 1;
+            System.arraycopy(coords, 0, rectangles, 4 * count, 4);
+            count++;
+        }
+
+        return ShapefileSpatialIndex.build(Arrays.copyOf(recordNumbers, count), rectangles,
+            ShapefileSpatialIndex.DEFAULT_NODE_SIZE);
+    }
+
+    /**
+     * Returns a key that identifies this Shapefile's coordinate system. The spatial index stores rectangles converted
+     * to geographic coordinates, so a sidecar built for one coordinate system is out of date for another.
+     *
+     * @return a key identifying the coordinate system.
+     */
+    protected String getCoordinateSystemKey()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(this.getValue(AVKey.COORDINATE_SYSTEM)).append(',');
+        sb.append(this.getValue(AVKey.PROJECTION_NAME)).append(',');
+        sb.append(this.getValue(AVKey.PROJECTION_ZONE)).append(',');
+        sb.append(this.getValue(AVKey.PROJECTION_HEMISPHERE));
+
+        return sb.toString();
+    }
+
+    protected void checkRandomAccess()
+    {
+        if (!this.randomAccess)
+        {
+            String message = Logging.getMessage("SHP.RandomAccessUnavailable", this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+    }
+
     protected void initializeFromURL(URL url, AVList params) throws IOException
     {
         // Opening the Shapefile URL as a URL connection. Throw an IOException if the URL connection cannot be opened,
@@ -1263,6 +1585,43 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         return record;
     }
 
+    /**
+     * Reads the record with the specified number from the memory mapped Shapefile, and attaches its attributes from
+     * the accompanying DBase file. The record number is assumed to be valid.
+     *
+     * @param recordNumber the number of the record to read, starting at one.
+     *
+     * @return a {@link ShapefileRecord} instance, or null if the record's shape type is not recognized.
+     */
+    protected synchronized ShapefileRecord readRecordAt(int recordNumber)
+    {
+        // Position the mapped buffer at the beginning of the record, and set the mapped buffer's limit to the end of
+        // the record.
+        int pos = this.index[2 * (recordNumber - 1)];
+        int recordLength = ShapefileRecord.RECORD_HEADER_LENGTH + this.index[2 * (recordNumber - 1) + 1];
+        this.mappedShpBuffer.limit(pos + recordLength);
+        this.mappedShpBuffer.position(pos);
+
+        ShapefileRecord record;
+        try
+        {
+            record = this.createRecord(this.mappedShpBuffer);
+        }
+        finally
+        {
+            // Restore the mapped buffer's limit to its capacity.
+            this.mappedShpBuffer.limit(this.mappedShpBuffer.capacity());
+        }
+
+        if (record != null && this.attributeFile != null && this.attributeFile.isRandomAccess()
+            && recordNumber <= this.attributeFile.getNumberOfRecords())
+        {
+            record.setAttributes(this.attributeFile.readRecord(recordNumber));
+        }
+
+        return record;
+    }
+
     /**
      * Reads a {@link ShapefileRecord} instance from the given {@link java.nio.ByteBuffer}, or null if the buffer
      * contains a null record.
@@ -1511,6 +1870,16 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         // Read the point data, keeping track of the start and end of the point data.
         int pos = buffer.position();
         int limit = buffer.position() + 2 * WWBufferUtil.SIZEOF_DOUBLE * numPoints;
+
+        // Records read in random access mode may be read more than once. Their points are converted in place the
+        // first time, so return the existing block rather than converting the points again.
+        Integer partNumber = this.pointBlocks != null ? this.pointBlocks.get(pos) : null;
+        if (partNumber != null)
+        {
+            buffer.position(limit);
+            return partNumber;
+        }
+
         try
         {
             // Set the buffer's limit to include the number of bytes required to hold 2 double precision values for each
@@ -1539,7 +1908,11 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
             }
 
             // Add the point's byte range to the VecBufferBlocks.
-            return ((VecBufferBlocks) this.pointBuffer).addBlock(pos, limit - 1);
+            int blockNumber = ((VecBufferBlocks) this.pointBuffer).addBlock(pos, limit - 1);
+            if (this.pointBlocks != null)
+                this.pointBlocks.put(pos, blockNumber);
+
+            return blockNumber;
         }
         else
         {
@@ -0,0 +1,486 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.shapefile;
+
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.Level;
+
+/**
+ * Builds the tile geometry of {@link ShapefileRenderable}s on a pool of worker threads shared by every renderable.
+ * Renderables request the geometry of the tiles they need every frame, and the scheduler builds the geometry closest
+ * to the eye first.
+ * <p>
+ * Requests are identified by a key, typically the tile, so a tile requested again while its geometry is queued or
+ * being built is not queued twice. A repeated request instead renews the queued request, and moves it to its new place
+ * in the queue if its priority has changed significantly. After requesting its tiles for a frame, a renderable calls
+ * {@link #cancelStaleRequests(Object, long)} to cancel the queued requests it didn't renew in that frame, which
+ * correspond to tiles that have left the view. Requests are rejected, rather than silently discarded, when the queue
+ * is full, and the renderable requests the tile again in a later frame.
+ * <p>
+ * The scheduler maintains counts of submitted, renewed, rejected, cancelled, completed and failed requests, and the
+ * average and maximum latency between a tile's first request and the completion of its geometry. These are available
+ * from the accessors of this class and as {@link PerformanceStatistic}s with the key {@link
+ * PerformanceStatistic#SHAPEFILE_GEOMETRY}. The shared scheduler registers itself as the provider of those statistics.
+ *
+ * @see SupersedingTaskScheduler
+ */
+public class ShapefileGeometryScheduler implements PerformanceStatistic.Provider
+{
+    protected static final int DEFAULT_POOL_SIZE = 2;
+    protected static final int DEFAULT_QUEUE_SIZE = 100;
+    /** Queued requests are moved when a renewed priority differs from the queued priority by more than this fraction. */
+    protected static final double PRIORITY_CHANGE_THRESHOLD = 0.25;
+
+    protected static ShapefileGeometryScheduler sharedInstance;
+
+    /**
+     * Returns the scheduler shared by all ShapefileRenderables, creating it the first time it's requested. The shared
+     * scheduler's pool and queue sizes are specified by the configuration properties {@link
+     * AVKey#SHAPEFILE_GEOMETRY_POOL_SIZE} and {@link AVKey#SHAPEFILE_GEOMETRY_QUEUE_SIZE}.
+     *
+     * @return the shared scheduler.
+     */
+    public static synchronized ShapefileGeometryScheduler getSharedInstance()
+    {
+        if (sharedInstance == null)
+        {
+            sharedInstance = new ShapefileGeometryScheduler();
+            PerformanceStatistic.addProvider(PerformanceStatistic.SHAPEFILE_GEOMETRY, sharedInstance);
+        }
+
+        return sharedInstance;
+    }
+
+    protected final SupersedingTaskScheduler scheduler;
+    /** Queued and running requests, keyed by the request key. */
+    protected final ConcurrentHashMap<Object, Request> requests = new ConcurrentHashMap<Object, Request>();
+    protected final int queueSize;
+    protected final AtomicInteger threadCount = new AtomicInteger();
+
+    // Scheduling state.
+    protected final AtomicInteger numQueued = new AtomicInteger();
+    protected final AtomicInteger numActive = new AtomicInteger();
+
+    // Metrics.
+    protected final AtomicLong numSubmitted = new AtomicLong();
+    protected final AtomicLong numRenewed = new AtomicLong();
+    protected final AtomicLong numRejected = new AtomicLong();
+    protected final AtomicLong numCancelled = new AtomicLong();
+    protected final AtomicLong numCompleted = new AtomicLong();
+    protected final AtomicLong numFailed = new AtomicLong();
+    protected final AtomicLong totalLatency = new AtomicLong(); // nanoseconds
+    protected final AtomicLong maxLatency = new AtomicLong(); // nanoseconds
+    protected final AtomicLong totalRunTime = new AtomicLong(); // nanoseconds
+
+    /** A request for a tile's geometry. */
+    protected class Request
+    {
+        protected final Object owner;
+        protected final Object key;
+        protected final Runnable task;
+        protected final long requestTime; // nanoseconds
+        protected final SupersedingTaskScheduler.Task entry;
+        protected volatile long frameTime;
+
+        public Request(Object owner, Object key, Runnable task, long frameTime)
+        {
+            this.owner = owner;
+            this.key = key;
+            this.task = task;
+            this.requestTime = System.nanoTime();
+            this.frameTime = frameTime;
+            this.entry = new SupersedingTaskScheduler.Task(new Runnable()
+            {
+                public void run()
+                {
+                    runRequest(Request.this);
+                }
+            });
+        }
+    }
+
+    /**
+     * Creates a scheduler whose pool and queue sizes are specified by the configuration properties {@link
+     * AVKey#SHAPEFILE_GEOMETRY_POOL_SIZE} and {@link AVKey#SHAPEFILE_GEOMETRY_QUEUE_SIZE}.
+     */
+    public ShapefileGeometryScheduler()
+    {
+        this(Configuration.getIntegerValue(AVKey.SHAPEFILE_GEOMETRY_POOL_SIZE, DEFAULT_POOL_SIZE),
+            Configuration.getIntegerValue(AVKey.SHAPEFILE_GEOMETRY_QUEUE_SIZE, DEFAULT_QUEUE_SIZE));
+    }
+
+    /**
+     * Creates a scheduler with the specified number of worker threads and maximum number of queued requests.
+     *
+     * @param poolSize  the number of worker threads.
+     * @param queueSize the maximum number of queued requests.
+     *
+     * @throws IllegalArgumentException if either size is less than one.
+     */
+    public ShapefileGeometryScheduler(int poolSize, int queueSize)
+    {
+        if (poolSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", poolSize);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (queueSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", queueSize);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.queueSize = queueSize;
+        this.scheduler = new SupersedingTaskScheduler(poolSize, new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "Shapefile Geometry " + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY); // Subordinate thread priority to rendering
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Requests that a task building a tile's geometry be run. If a request with the same key is queued, it's renewed
+     * for the specified frame and moved in the queue if its priority changed significantly, and the specified task is
+     * ignored. If a request with the same key is running, the specified task is ignored.
+     *
+     * @param owner     the renderable making the request.
+     * @param key       the key identifying the geometry, typically the tile.
+     * @param task      the task that builds the geometry.
+     * @param priority  the request's priority. Requests with lower values run first.
+     * @param frameTime the time stamp of the frame making the request.
+     *
+     * @return true if the geometry is queued or being built, false if the request was rejected because the queue is
+     *         full.
+     *
+     * @throws IllegalArgumentException if the owner, key or task is null.
+     */
+    public boolean request(Object owner, Object key, Runnable task, double priority, long frameTime)
+    {
+        if (owner == null)
+        {
+            String message = Logging.getMessage("nullValue.OwnerIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (key == null)
+        {
+            String message = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (task == null)
+        {
+            String message = Logging.getMessage("nullValue.RunnableIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Request existing = this.requests.get(key);
+        if (existing != null)
+        {
+            this.renew(existing, priority, frameTime);
+            return true;
+        }
+
+        if (this.numQueued.get() >= this.queueSize)
+        {
+            this.numRejected.incrementAndGet();
+            return false;
+        }
+
+        Request request = new Request(owner, key, task, frameTime);
+        if (this.requests.putIfAbsent(key, request) != null)
+            return this.request(owner, key, task, priority, frameTime); // another thread queued the same key
+
+        this.numSubmitted.incrementAndGet();
+        this.numQueued.incrementAndGet();
+        this.scheduler.schedule(request.entry, priority, frameTime);
+
+        return true;
+    }
+
+    /**
+     * Cancels the queued requests of the specified owner that were not made or renewed in the specified frame.
+     * Requests that are running are not cancelled.
+     *
+     * @param owner     the renderable whose requests are cancelled.
+     * @param frameTime the time stamp of the current frame.
+     *
+     * @return the number of requests cancelled.
+     *
+     * @throws IllegalArgumentException if the owner is null.
+     */
+    public int cancelStaleRequests(Object owner, long frameTime)
+    {
+        if (owner == null)
+        {
+            String message = Logging.getMessage("nullValue.OwnerIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int count = 0;
+        for (Request request : this.requests.values())
+        {
+            if (request.owner == owner && request.frameTime != frameTime && this.cancel(request))
+                count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Cancels all queued requests of the specified owner. Requests that are running are not cancelled.
+     *
+     * @param owner the renderable whose requests are cancelled.
+     *
+     * @return the number of requests cancelled.
+     *
+     * @throws IllegalArgumentException if the owner is null.
+     */
+    public int cancelRequests(Object owner)
+    {
+        if (owner == null)
+        {
+            String message = Logging.getMessage("nullValue.OwnerIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int count = 0;
+        for (Request request : this.requests.values())
+        {
+            if (request.owner == owner && this.cancel(request))
+                count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Indicates whether the geometry identified by a key is queued or being built.
+     *
+     * @param key the key identifying the geometry.
+     *
+     * @return true if the geometry is queued or being built, otherwise false.
+     */
+    public boolean contains(Object key)
+    {
+        return key != null && this.requests.containsKey(key);
+    }
+
+    /** Cancels all queued requests and stops the worker threads once the running requests complete. */
+    public void shutdown()
+    {
+        for (Request request : this.requests.values())
+        {
+            this.cancel(request);
+        }
+
+        this.scheduler.shutdown(false);
+    }
+
+    /**
+     * Records a repeated request for a queued or running request. The request is moved in the queue only when its
+     * priority changes significantly, so that renderables requesting the same tile every frame while the eye moves
+     * don't move it every frame. The move fails harmlessly if the request starts to run or is cancelled in the
+     * meantime.
+     *
+     * @param request   the existing request.
+     * @param priority  the priority of the repeated request.
+     * @param frameTime the time stamp of the frame making the repeated request.
+     */
+    protected void renew(Request request, double priority, long frameTime)
+    {
+        this.numRenewed.incrementAndGet();
+        request.frameTime = frameTime;
+
+        SupersedingTaskScheduler.Ticket ticket = request.entry.getTicket();
+        if (ticket == null)
+            return;
+
+        double change = Math.abs(priority - ticket.getPriority());
+        if (change <= PRIORITY_CHANGE_THRESHOLD * Math.abs(ticket.getPriority()))
+            return;
+
+        this.scheduler.reschedule(request.entry, ticket, priority, frameTime);
+    }
+
+    /**
+     * Cancels a queued request. Its place in the queue is discarded when it's dequeued.
+     *
+     * @param request the request to cancel.
+     *
+     * @return true if the request was cancelled, false if it's running or has already completed or been cancelled.
+     */
+    protected boolean cancel(Request request)
+    {
+        if (!this.scheduler.cancel(request.entry))
+            return false;
+
+        this.requests.remove(request.key, request);
+        this.numQueued.decrementAndGet();
+        this.numCancelled.incrementAndGet();
+
+        return true;
+    }
+
+    /**
+     * Runs a request on the current worker thread. The scheduler runs each request at most once, and doesn't run
+     * cancelled requests.
+     *
+     * @param request the request to run.
+     */
+    protected void runRequest(Request request)
+    {
+        this.numQueued.decrementAndGet();
+        this.numActive.incrementAndGet();
+        long startTime = System.nanoTime();
+
+        try
+        {
+            request.task.run();
+            this.numCompleted.incrementAndGet();
+        }
+        catch (Throwable t)
+        {
+            this.numFailed.incrementAndGet();
+            String message = Logging.getMessage("ThreadedTaskService.UncaughtExceptionDuringTask",
+                Thread.currentThread().getName());
+            Logging.logger().log(Level.SEVERE, message, t);
+        }
+        finally
+        {
+            long endTime = System.nanoTime();
+            long latency = endTime - request.requestTime;
+            this.totalRunTime.addAndGet(endTime - startTime);
+            this.totalLatency.addAndGet(latency);
+
+            long max;
+            while (latency > (max = this.maxLatency.get()) && !this.maxLatency.compareAndSet(max, latency))
+            {
+            }
+
+            this.requests.remove(request.key, request);
+            this.numActive.decrementAndGet();
+        }
+    }
+
+    public int getNumQueued()
+    {
+        return this.numQueued.get();
+    }
+
+    public int getNumActive()
+    {
+        return this.numActive.get();
+    }
+
+    public long getNumSubmitted()
+    {
+        return this.numSubmitted.get();
+    }
+
+    public long getNumRenewed()
+    {
+        return this.numRenewed.get();
+    }
+
+    public long getNumRejected()
+    {
+        return this.numRejected.get();
+    }
+
+    public long getNumCancelled()
+    {
+        return this.numCancelled.get();
+    }
+
+    public long getNumCompleted()
+    {
+        return this.numCompleted.get();
+    }
+
+    public long getNumFailed()
+    {
+        return this.numFailed.get();
+    }
+
+    /**
+     * Returns the average time between the first request for a tile's geometry and the completion of that geometry,
+     * over all requests that have run.
+     *
+     * @return the average build latency, in milliseconds.
+     */
+    public double getAverageLatency()
+    {
+        long count = this.numCompleted.get() + this.numFailed.get();
+        return count > 0 ? this.totalLatency.get() / 1e6 / count : 0;
+    }
+
+    /**
+     * Returns the longest time between the first request for a tile's geometry and the completion of that geometry.
+     *
+     * @return the maximum build latency, in milliseconds.
+     */
+    public double getMaxLatency()
+    {
+        return this.maxLatency.get() / 1e6;
+    }
+
+    /**
+     * Returns the average time taken to build a tile's geometry, excluding the time the request waited in the queue.
+     *
+     * @return the average build time, in milliseconds.
+     */
+    public double getAverageRunTime()
+    {
+        long count = this.numCompleted.get() + this.numFailed.get();
+        return count > 0 ? this.totalRunTime.get() / 1e6 / count : 0;
+    }
+
+    /**
+     * Returns this scheduler's queue depth and latency measurements as performance statistics suitable for display in
+     * a {@link StatisticsPanel}.
+     *
+     * @return this scheduler's performance statistics.
+     */
+    public Collection<PerformanceStatistic> getPerformanceStatistics()
+    {
+        ArrayList<PerformanceStatistic> stats = new ArrayList<PerformanceStatistic>();
+
+        stats.add(new PerformanceStatistic(PerformanceStatistic.SHAPEFILE_GEOMETRY, "Shapefile tiles queued",
+            this.getNumQueued()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.SHAPEFILE_GEOMETRY, "Shapefile tiles active",
+            this.getNumActive()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.SHAPEFILE_GEOMETRY, "Shapefile tiles cancelled",
+            this.getNumCancelled()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.SHAPEFILE_GEOMETRY, "Shapefile tiles rejected",
+            this.getNumRejected()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.SHAPEFILE_GEOMETRY, "Shapefile tile latency (ms)",
+            (int) this.getAverageLatency()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.SHAPEFILE_GEOMETRY, "Shapefile tile build time (ms)",
+            (int) this.getAverageRunTime()));
+
+        return stats;
+    }
+}
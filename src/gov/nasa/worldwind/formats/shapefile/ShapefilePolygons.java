@@ -84,16 +84,32 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
         protected final ShapefileRenderable shape;
         protected final Sector sector;
         protected final double resolution;
+        protected final long recordTreeStateID;
         // Properties supporting geometry caching.
         protected ShapefileTile fallbackTile;
         protected ShapefileGeometry geometry;
         protected final Object nullGeometryStateKey = new Object();
 
         public ShapefileTile(ShapefileRenderable shape, Sector sector, double resolution)
+        {
+            this(shape, sector, resolution, 0);
+        }
+
+        /**
+         * Creates a tile whose geometry is tessellated from a specified state of the shape's record tree. Tiles created
+         * for different states are unequal, so geometry cached before records are added to the shape isn't reused.
+         *
+         * @param shape             the shape the tile belongs to.
+         * @param sector            the tile's sector.
+         * @param resolution        the tile's resolution, in radians.
+         * @param recordTreeStateID the state of the shape's record tree.
+         */
+        public ShapefileTile(ShapefileRenderable shape, Sector sector, double resolution, long recordTreeStateID)
         {
             this.shape = shape;
             this.sector = sector;
             this.resolution = resolution;
+            this.recordTreeStateID = recordTreeStateID;
         }
 
         public ShapefileRenderable getShape()
@@ -125,10 +141,10 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
         {
             Sector[] sectors = this.sector.subdivide();
             ShapefileTile[] tiles = new ShapefileTile[4];
-            tiles[0] = new ShapefileTile(this.shape, sectors[0], this.resolution / 2);
-            tiles[1] = new ShapefileTile(this.shape, sectors[1], this.resolution / 2);
-            tiles[2] = new ShapefileTile(this.shape, sectors[2], this.resolution / 2);
-            tiles[3] = new ShapefileTile(this.shape, sectors[3], this.resolution / 2);
+            tiles[0] = new ShapefileTile(this.shape, sectors[0], this.resolution / 2, this.recordTreeStateID);
+            tiles[1] = new ShapefileTile(this.shape, sectors[1], this.resolution / 2, this.recordTreeStateID);
+            tiles[2] = new ShapefileTile(this.shape, sectors[2], this.resolution / 2, this.recordTreeStateID);
+            tiles[3] = new ShapefileTile(this.shape, sectors[3], this.resolution / 2, this.recordTreeStateID);
 
             return tiles;
         }
@@ -173,7 +189,8 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
             ShapefileTile that = (ShapefileTile) o;
             return this.shape.equals(that.shape)
                 && this.sector.equals(that.sector)
-                && this.resolution == that.resolution;
+                && this.resolution == that.resolution
+                && this.recordTreeStateID == that.recordTreeStateID;
         }
 
         @Override
@@ -184,6 +201,7 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
             result = this.shape.hashCode();
             result = 31 * result + this.sector.hashCode();
             result = 31 * result + (int) (temp ^ (temp >>> 32));
+            result = 31 * result + (int) (this.recordTreeStateID ^ (this.recordTreeStateID >>> 32));
             return result;
         }
     }
@@ -331,7 +349,7 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
         if (!WorldWind.getMemoryCacheSet().containsCache(ShapefileGeometry.class.getName()))
         {
             long size = Configuration.getLongValue(AVKey.SHAPEFILE_GEOMETRY_CACHE_SIZE, (long) 50e6); // default 50MB
-            MemoryCache cache = new BasicMemoryCache((long) (0.8 * size), size);
+            MemoryCache cache = WorldWind.getMemoryCacheSet().createCache((long) (0.8 * size), size);
             cache.setName("Shapefile Geometry");
             WorldWind.getMemoryCacheSet().addCache(ShapefileGeometry.class.getName(), cache);
         }
@@ -342,11 +360,13 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
     protected double detailHintOrigin = 2.8;
     protected int outlinePickWidth = 10;
     // Properties supporting shapefile tile assembly and tessellation.
-    protected BasicQuadTree<Record> recordTree;
+    protected volatile BasicQuadTree<Record> recordTree;
+    protected long recordTreeStateID;
     protected ArrayList<ShapefileTile> topLevelTiles = new ArrayList<ShapefileTile>();
     protected ArrayList<ShapefileTile> currentTiles = new ArrayList<ShapefileTile>();
     protected ShapefileTile currentAncestorTile;
-    protected PriorityQueue<Runnable> requestQueue = new PriorityQueue<Runnable>();
+    protected PriorityQueue<ShapefileGeometry> requestQueue = new PriorityQueue<ShapefileGeometry>();
+    protected long frameTimeStamp;
     protected MemoryCache cache = WorldWind.getMemoryCache(ShapefileGeometry.class.getName());
     protected long recordStateID;
     // Properties supporting picking and rendering.
@@ -434,7 +454,32 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
     {
         ShapefilePolygons.Record record = this.createRecord(shapefileRecord);
         this.addRecord(shapefileRecord, record);
-        this.recordTree.add(record, record.sector.asDegreesArray());
+
+        // Records loaded from a random access shapefile are added to a new record tree in recordsDidLoad, since the
+        // current tree may be in use by geometry tessellation on another thread.
+        if (this.randomAccessShapefile == null)
+        {
+            this.recordTree.add(record, record.sector.asDegreesArray());
+        }
+    }
+
+    @Override
+    protected void recordsDidLoad()
+    {
+        // Replace the record tree rather than modifying it, since geometry may be tessellating from the current tree.
+        BasicQuadTree<Record> tree = new BasicQuadTree<Record>(8, this.sector, null);
+        for (ShapefileRenderable.Record record : this.records)
+        {
+            tree.add((Record) record, record.sector.asDegreesArray());
+        }
+
+        this.recordTree = tree;
+
+        // Tiles created from here on don't match geometry tessellated from the previous tree, and the record state
+        // change causes the scene's surface tiles to be redrawn with the new geometry.
+        this.recordTreeStateID++;
+        this.recordStateID++;
+        this.topLevelTiles.clear();
     }
 
     @Override
@@ -538,20 +583,26 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
         }
 
         if (!this.visible)
+        {
+            this.geometryScheduler.cancelRequests(this); // geometry requested while visible is no longer needed
             return;
+        }
+
+        this.loadVisibleRecords(dc);
 
         if (this.getRecordCount() == 0) // shapefile is empty or contains only null records
             return;
 
         Extent extent = Sector.computeBoundingBox(dc.getGlobe(), dc.getVerticalExaggeration(), this.sector);
 
-        if (!dc.getView().getFrustumInModelCoordinates().intersects(extent))
-            return;
-
-        if (dc.isSmall(extent, 1))
+        if (!dc.getView().getFrustumInModelCoordinates().intersects(extent) || dc.isSmall(extent, 1))
+        {
+            this.geometryScheduler.cancelRequests(this); // geometry requested while in view is no longer needed
             return;
+        }
 
         this.layer = dc.getCurrentLayer();
+        this.frameTimeStamp = dc.getFrameTimeStamp();
 
         // Assemble the tiles used for rendering, then add those tiles to the scene controller's list of renderables to
         // draw into the scene's shared surface tiles.
@@ -708,7 +759,8 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
             for (int col = firstCol; col <= lastCol; col++)
             {
                 Angle t2 = t1.add(lonDelta);
-                this.topLevelTiles.add(new ShapefileTile(this, new Sector(p1, p2, t1, t2), resolution));
+                this.topLevelTiles.add(new ShapefileTile(this, new Sector(p1, p2, t1, t2), resolution,
+                    this.recordTreeStateID));
                 t1 = t2;
             }
             p1 = p2;
@@ -850,16 +902,21 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
 
     protected void sendRequests()
     {
-        Runnable request;
+        // Send requests in priority order, so that the nearest tiles are queued if the scheduler's queue fills. The
+        // scheduler ignores requests for tiles whose geometry is already queued or being built, and renews them for
+        // this frame.
+        ShapefileGeometry request;
         while ((request = this.requestQueue.poll()) != null)
         {
-            if (WorldWind.getTaskService().isFull())
+            if (!this.geometryScheduler.request(this, request.memoryCacheKey, request, request.priority,
+                this.frameTimeStamp))
                 break;
-
-            WorldWind.getTaskService().addTask(request);
         }
 
         this.requestQueue.clear(); // clear any remaining requests
+
+        // Cancel the queued requests for tiles that were not requested this frame, and are no longer in view.
+        this.geometryScheduler.cancelStaleRequests(this, this.frameTimeStamp);
     }
 
     protected void tessellate(ShapefileGeometry geom)
@@ -279,6 +279,8 @@ public class ShapefilePolylines extends ShapefileRenderable implements OrderedRe
         if (!this.visible)
             return;
 
+        this.loadVisibleRecords(dc);
+
         if (this.getRecordCount() == 0) // Shapefile is empty or contains only null records.
             return;
 
@@ -384,6 +386,27 @@ public class ShapefilePolylines extends ShapefileRenderable implements OrderedRe
         this.rootTile.records.trimToSize(); // Reduce memory overhead from unused ArrayList capacity.
     }
 
+    @Override
+    protected void recordsDidLoad()
+    {
+        // Rebuild the tile tree to include the loaded records. New tiles replace the existing ones, so that each tile's
+        // geometry and vertex buffer are rebuilt.
+        this.rootTile = new Tile(this, this.sector, 0);
+
+        for (ShapefileRenderable.Record record : this.records)
+        {
+            this.rootTile.records.add((Record) record);
+            ((Record) record).tile = this.rootTile;
+        }
+
+        if (this.mustSplitTile(this.rootTile))
+        {
+            this.splitTile(this.rootTile);
+        }
+
+        this.rootTile.records.trimToSize(); // Reduce memory overhead from unused ArrayList capacity.
+    }
+
     @Override
     protected boolean mustAssembleRecord(ShapefileRecord shapefileRecord)
     {
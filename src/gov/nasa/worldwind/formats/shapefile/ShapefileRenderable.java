@@ -202,6 +202,11 @@ public abstract class ShapefileRenderable extends WWObjectImpl
     protected ShapeAttributes initNormalAttrs;
     protected ShapeAttributes initHighlightAttrs;
     protected ShapefileRenderable.AttributeDelegate initAttributeDelegate;
+    protected ShapefileGeometryScheduler geometryScheduler = ShapefileGeometryScheduler.getSharedInstance();
+    // Properties used to load the records of a random access shapefile as they become visible.
+    protected Shapefile randomAccessShapefile;
+    protected BitSet loadedRecordNumbers;
+    protected Sector loadedSector;
 
     protected static ShapeAttributes defaultAttributes;
     protected static ShapeAttributes defaultHighlightAttributes;
@@ -222,6 +227,10 @@ public abstract class ShapefileRenderable extends WWObjectImpl
      * causes each ShapefileRenderable.Record to adopt those attributes. Specifying a non-null value for the attribute
      * delegate enables callbacks during creation of each ShapefileRenderable.Record. See {@link AttributeDelegate} for
      * more information.
+     * <p>
+     * If the shapefile supports random access, its records are not read here. Instead, the records intersecting the
+     * visible sector are read each frame by {@link #loadVisibleRecords(DrawContext)}, so the shapefile must remain open
+     * while this ShapefileRenderable is displayed.
      *
      * @param shapefile         The shapefile to display.
      * @param normalAttrs       The normal attributes for each ShapefileRenderable.Record. May be null to use the
@@ -242,6 +251,13 @@ public abstract class ShapefileRenderable extends WWObjectImpl
         this.initNormalAttrs = normalAttrs;
         this.initHighlightAttrs = highlightAttrs;
         this.initAttributeDelegate = attributeDelegate;
+
+        if (shapefile.isRandomAccess())
+        {
+            this.randomAccessShapefile = shapefile;
+            this.loadedRecordNumbers = new BitSet(shapefile.getNumberOfRecords() + 1);
+        }
+
         this.assembleRecords(shapefile);
     }
 
@@ -249,6 +265,9 @@ public abstract class ShapefileRenderable extends WWObjectImpl
     {
         this.records = new ArrayList<ShapefileRenderable.Record>();
 
+        if (this.randomAccessShapefile != null) // records are loaded as they become visible
+            return;
+
         while (shapefile.hasNext())
         {
             ShapefileRecord shapefileRecord = shapefile.nextRecord();
@@ -288,6 +307,61 @@ public abstract class ShapefileRenderable extends WWObjectImpl
         }
     }
 
+    /**
+     * Loads the records of this shape's random access shapefile that intersect the draw context's visible sector and
+     * haven't been loaded yet, and then calls {@link #recordsDidLoad()} if any records were added. The records are
+     * found with the shapefile's spatial index, so records outside the visible sector are never read. This does nothing
+     * if the shapefile doesn't support random access, since its records are all assembled during construction.
+     *
+     * @param dc the current draw context.
+     */
+    protected void loadVisibleRecords(DrawContext dc)
+    {
+        if (this.randomAccessShapefile == null)
+            return;
+
+        Sector visibleSector = dc.getVisibleSector();
+        if (visibleSector == null || visibleSector.equals(this.loadedSector))
+            return;
+
+        this.loadedSector = visibleSector;
+
+        int count = 0;
+        try
+        {
+            for (int recordNumber : this.randomAccessShapefile.getRecordNumbers(visibleSector))
+            {
+                if (this.loadedRecordNumbers.get(recordNumber))
+                    continue;
+
+                this.loadedRecordNumbers.set(recordNumber);
+                ShapefileRecord shapefileRecord = this.randomAccessShapefile.readRecord(recordNumber);
+                if (this.mustAssembleRecord(shapefileRecord))
+                {
+                    this.assembleRecord(shapefileRecord);
+                    count++;
+                }
+            }
+        }
+        catch (RuntimeException e)
+        {
+            // The shapefile has logged the failure, typically because it's been closed. Stop loading records rather
+            // than failing each frame.
+            this.randomAccessShapefile = null;
+        }
+
+        if (count > 0)
+        {
+            this.recordsDidLoad();
+        }
+    }
+
+    /** Called after {@link #loadVisibleRecords(DrawContext)} adds records to this shape. */
+    protected void recordsDidLoad()
+    {
+        // Intentionally left empty. May be overridden by subclass.
+    }
+
     public Sector getSector()
     {
         return this.sector;
@@ -332,6 +406,37 @@ public abstract class ShapefileRenderable extends WWObjectImpl
         this.visible = visible;
     }
 
+    /**
+     * Returns the scheduler that builds this shape's tile geometry in the background. By default this is the scheduler
+     * shared by all ShapefileRenderables.
+     *
+     * @return the geometry scheduler.
+     */
+    public ShapefileGeometryScheduler getGeometryScheduler()
+    {
+        return this.geometryScheduler;
+    }
+
+    /**
+     * Specifies the scheduler that builds this shape's tile geometry in the background. Subclasses that build their
+     * geometry on the rendering thread ignore this scheduler.
+     *
+     * @param scheduler the geometry scheduler.
+     *
+     * @throws IllegalArgumentException if the scheduler is null.
+     */
+    public void setGeometryScheduler(ShapefileGeometryScheduler scheduler)
+    {
+        if (scheduler == null)
+        {
+            String msg = Logging.getMessage("nullValue.SchedulerIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.geometryScheduler = scheduler;
+    }
+
     protected void recordDidChange(ShapefileRenderable.Record record)
     {
         // Intentionally left empty. May be overridden by subclass.
@@ -0,0 +1,440 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.shapefile;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A static spatial index of a Shapefile's record bounding rectangles, organized as a packed Hilbert R-tree. Records are
+ * sorted along a Hilbert curve through their centers, then grouped into nodes of a fixed size, level by level, until a
+ * single root node remains. Since the tree is packed, it's stored as two flat arrays: the bounding rectangles of every
+ * record and node, and the record numbers in Hilbert order.
+ * <p>
+ * The index can be written to a sidecar file next to the Shapefile and loaded again by memory mapping that file, so
+ * opening a large Shapefile whose index already exists doesn't read its records. Each sidecar records the length and
+ * modification time of the Shapefile it was built from, and a key describing the Shapefile's coordinate system, so a
+ * stale sidecar is detected and rebuilt.
+ * <p>
+ * Instances are immutable after construction, and may be queried by several threads concurrently.
+ */
+public class ShapefileSpatialIndex
+{
+    /** The default number of children of each node. */
+    public static final int DEFAULT_NODE_SIZE = 16;
+
+    protected static final int MAGIC = 0x57574852; // "WWHR"
+    protected static final int VERSION = 1;
+    protected static final int SIDECAR_HEADER_LENGTH = 40;
+    /** Hilbert values are computed on a grid of 2^HILBERT_ORDER cells along each axis. */
+    protected static final int HILBERT_ORDER = 15;
+
+    protected final int numRecords;
+    protected final int nodeSize;
+    protected final int[] levelOffsets;
+    /** Bounding rectangles as (minX, minY, maxX, maxY), records first, then each level of nodes up to the root. */
+    protected final DoubleBuffer boxes;
+    /** Record numbers, in the order their rectangles appear in the first level of <code>boxes</code>. */
+    protected final IntBuffer recordNumbers;
+
+    /**
+     * Builds a spatial index of the specified records.
+     *
+     * @param recordNumbers the record numbers to index.
+     * @param rectangles    the records' bounding rectangles, four per record in the order (minY, maxY, minX, maxX),
+     *                      as returned by {@link ShapefileRecord#getBoundingRectangle()}.
+     * @param nodeSize      the number of children of each node.
+     *
+     * @return the spatial index.
+     *
+     * @throws IllegalArgumentException if either array is null, if the rectangles array is too small, or if the node
+     *                                  size is less than two.
+     */
+    public static ShapefileSpatialIndex build(int[] recordNumbers, double[] rectangles, int nodeSize)
+    {
+        if (recordNumbers == null || rectangles == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (rectangles.length < 4 * recordNumbers.length)
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", rectangles.length);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (nodeSize < 2)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", nodeSize);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int numRecords = recordNumbers.length;
+        int[] levelOffsets = computeLevelOffsets(numRecords, nodeSize);
+        double[] boxes = new double[4 * levelOffsets[levelOffsets.length - 1]];
+        int[] sortedNumbers = new int[numRecords];
+
+        // Compute the extent of the record centers, then sort the records by the Hilbert value of their centers. The
+        // record's position is kept in the low bits so that the sort is stable.
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < numRecords; i++)
+        {
+            double x = (rectangles[4 * i + 2] + rectangles[4 * i + 3]) / 2;
+            double y = (rectangles[4 * i] + rectangles[4 * i + 1]) / 2;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+
+        int gridSize = (1 << HILBERT_ORDER) - 1;
+        double scaleX = maxX > minX ? gridSize / (maxX - minX) : 0;
+        double scaleY = maxY > minY ? gridSize / (maxY - minY) : 0;
+        long[] keys = new long[numRecords];
+        for (int i = 0; i < numRecords; i++)
+        {
+            double x = (rectangles[4 * i + 2] + rectangles[4 * i + 3]) / 2;
+            double y = (rectangles[4 * i] + rectangles[4 * i + 1]) / 2;
+            long h = hilbertIndex((int) ((x - minX) * scaleX), (int) ((y - minY) * scaleY));
+            keys[i] = (h << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        for (int i = 0; i < numRecords; i++)
+        {
+            int r = (int) keys[i];
+            sortedNumbers[i] = recordNumbers[r];
+            boxes[4 * i] = rectangles[4 * r + 2];
+            boxes[4 * i + 1] = rectangles[4 * r];
+            boxes[4 * i + 2] = rectangles[4 * r + 3];
+            boxes[4 * i + 3] = rectangles[4 * r + 1];
+        }
+
+        // Each node's rectangle bounds the rectangles of its children in the level below.
+        for (int level = 1; level < levelOffsets.length - 1; level++)
+        {
+            int childStart = levelOffsets[level - 1];
+            int childEnd = levelOffsets[level];
+            for (int node = levelOffsets[level], child = childStart; child < childEnd; node++)
+            {
+                double nMinX = Double.MAX_VALUE, nMinY = Double.MAX_VALUE;
+                double nMaxX = -Double.MAX_VALUE, nMaxY = -Double.MAX_VALUE;
+                for (int end = Math.min(child + nodeSize, childEnd); child < end; child++)
+                {
+                    nMinX = Math.min(nMinX, boxes[4 * child]);
+                    nMinY = Math.min(nMinY, boxes[4 * child + 1]);
+                    nMaxX = Math.max(nMaxX, boxes[4 * child + 2]);
+                    nMaxY = Math.max(nMaxY, boxes[4 * child + 3]);
+                }
+
+                boxes[4 * node] = nMinX;
+                boxes[4 * node + 1] = nMinY;
+                boxes[4 * node + 2] = nMaxX;
+                boxes[4 * node + 3] = nMaxY;
+            }
+        }
+
+        return new ShapefileSpatialIndex(numRecords, nodeSize, DoubleBuffer.wrap(boxes), IntBuffer.wrap(sortedNumbers));
+    }
+
+    /**
+     * Loads a spatial index from a sidecar file by memory mapping it. This returns null if the file doesn't exist, or
+     * if it was not written from a Shapefile with the specified length, modification time and coordinate system key.
+     *
+     * @param file               the sidecar file.
+     * @param sourceLength       the length of the Shapefile, in bytes.
+     * @param sourceLastModified the modification time of the Shapefile.
+     * @param coordinateSystem   a key describing the Shapefile's coordinate system.
+     *
+     * @return the spatial index, or null if the sidecar is missing or stale.
+     *
+     * @throws IOException              if the sidecar cannot be read.
+     * @throws IllegalArgumentException if <code>file</code> is null.
+     */
+    public static ShapefileSpatialIndex read(File file, long sourceLength, long sourceLastModified,
+        String coordinateSystem) throws IOException
+    {
+        if (file == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!file.exists() || file.length() < SIDECAR_HEADER_LENGTH)
+            return null;
+
+        ByteBuffer buffer = WWIO.mapFile(file, FileChannel.MapMode.READ_ONLY);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+            || buffer.getLong(8) != sourceLength || buffer.getLong(16) != sourceLastModified
+            || buffer.getInt(24) != String.valueOf(coordinateSystem).hashCode())
+        {
+            return null;
+        }
+
+        int numRecords = buffer.getInt(28);
+        int nodeSize = buffer.getInt(32);
+        if (numRecords < 0 || nodeSize < 2)
+            return null;
+
+        int[] levelOffsets = computeLevelOffsets(numRecords, nodeSize);
+        int numBoxes = levelOffsets[levelOffsets.length - 1];
+        long expectedLength = SIDECAR_HEADER_LENGTH + 32L * numBoxes + 4L * numRecords;
+        if (buffer.capacity() != expectedLength)
+            return null;
+
+        buffer.position(SIDECAR_HEADER_LENGTH);
+        buffer.limit(SIDECAR_HEADER_LENGTH + 32 * numBoxes);
+        DoubleBuffer boxes = buffer.slice().order(ByteOrder.BIG_ENDIAN).asDoubleBuffer();
+        buffer.limit(buffer.capacity());
+        buffer.position(SIDECAR_HEADER_LENGTH + 32 * numBoxes);
+        IntBuffer recordNumbers = buffer.slice().order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+
+        return new ShapefileSpatialIndex(numRecords, nodeSize, boxes, recordNumbers);
+    }
+
+    protected ShapefileSpatialIndex(int numRecords, int nodeSize, DoubleBuffer boxes, IntBuffer recordNumbers)
+    {
+        this.numRecords = numRecords;
+        this.nodeSize = nodeSize;
+        this.levelOffsets = computeLevelOffsets(numRecords, nodeSize);
+        this.boxes = boxes;
+        this.recordNumbers = recordNumbers;
+    }
+
+    /**
+     * Returns the number of records in this index.
+     *
+     * @return the number of records.
+     */
+    public int getNumberOfRecords()
+    {
+        return this.numRecords;
+    }
+
+    /**
+     * Returns the number of children of each node.
+     *
+     * @return the node size.
+     */
+    public int getNodeSize()
+    {
+        return this.nodeSize;
+    }
+
+    /**
+     * Returns the numbers of the records whose bounding rectangles intersect the specified sector, in ascending order.
+     * Rectangles that only touch the sector's edges are considered to intersect it.
+     *
+     * @param sector the sector of interest.
+     *
+     * @return the numbers of the intersecting records.
+     *
+     * @throws IllegalArgumentException if <code>sector</code> is null.
+     */
+    public int[] getRecordNumbers(Sector sector)
+    {
+        if (sector == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        double minX = sector.getMinLongitude().degrees;
+        double minY = sector.getMinLatitude().degrees;
+        double maxX = sector.getMaxLongitude().degrees;
+        double maxY = sector.getMaxLatitude().degrees;
+
+        int[] results = new int[16];
+        int numResults = 0;
+        if (this.numRecords == 0)
+            return new int[0];
+
+        // Traverse the tree depth first from the root. Each stack entry is a level and a position within all boxes.
+        int[] stack = new int[2 * 64];
+        int top = 0;
+        int rootLevel = this.levelOffsets.length - 2;
+        stack[top++] = rootLevel;
+        stack[top++] = this.levelOffsets[rootLevel];
+
+        while (top > 0)
+        {
+            int pos = stack[--top];
+            int level = stack[--top];
+
+            if (!this.intersects(pos, minX, minY, maxX, maxY))
+                continue;
+
+            if (level == 0)
+            {
+                if (numResults == results.length)
+                    results = Arrays.copyOf(results, 2 * numResults);
+                results[numResults++] = this.recordNumbers.get(pos);
+                continue;
+            }
+
+            int firstChild = this.levelOffsets[level - 1] + (pos - this.levelOffsets[level]) * this.nodeSize;
+            int lastChild = Math.min(firstChild + this.nodeSize, this.levelOffsets[level]);
+            if (top + 2 * (lastChild - firstChild) > stack.length)
+                stack = Arrays.copyOf(stack, 2 * stack.length + 2 * this.nodeSize);
+
+            for (int child = lastChild - 1; child >= firstChild; child--)
+            {
+                stack[top++] = level - 1;
+                stack[top++] = child;
+            }
+        }
+
+        results = Arrays.copyOf(results, numResults);
+        Arrays.sort(results);
+        return results;
+    }
+
+    /**
+     * Writes this index to a sidecar file. The index is written to a temporary file in the same directory, which then
+     * replaces the sidecar, so readers never see a partially written sidecar.
+     *
+     * @param file               the sidecar file.
+     * @param sourceLength       the length of the Shapefile, in bytes.
+     * @param sourceLastModified the modification time of the Shapefile.
+     * @param coordinateSystem   a key describing the Shapefile's coordinate system.
+     *
+     * @throws IOException              if the sidecar cannot be written.
+     * @throws IllegalArgumentException if <code>file</code> is null.
+     */
+    public void write(File file, long sourceLength, long sourceLastModified, String coordinateSystem)
+        throws IOException
+    {
+        if (file == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        File tmpFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+        try
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceLength);
+            out.writeLong(sourceLastModified);
+            out.writeInt(String.valueOf(coordinateSystem).hashCode());
+            out.writeInt(this.numRecords);
+            out.writeInt(this.nodeSize);
+            out.writeInt(0); // pad the header to a multiple of eight bytes
+
+            for (int i = 0; i < this.boxes.limit(); i++)
+            {
+                out.writeDouble(this.boxes.get(i));
+            }
+
+            for (int i = 0; i < this.numRecords; i++)
+            {
+                out.writeInt(this.recordNumbers.get(i));
+            }
+        }
+        finally
+        {
+            WWIO.closeStream(out, tmpFile.getPath());
+        }
+
+        try
+        {
+            java.nio.file.Files.move(tmpFile.toPath(), file.toPath(),
+                java.nio.file.StandardCopyOption.REPLACE_EXISTING, java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            tmpFile.delete();
+            throw e;
+        }
+    }
+
+    protected boolean intersects(int pos, double minX, double minY, double maxX, double maxY)
+    {
+        return this.boxes.get(4 * pos) <= maxX && this.boxes.get(4 * pos + 2) >= minX
+            && this.boxes.get(4 * pos + 1) <= maxY && this.boxes.get(4 * pos + 3) >= minY;
+    }
+
+    /**
+     * Computes the position of each level's first box among all boxes. The returned array has one entry for each
+     * level, from the records up to the root, followed by the total number of boxes.
+     *
+     * @param numRecords the number of records.
+     * @param nodeSize   the number of children of each node.
+     *
+     * @return the level offsets.
+     */
+    protected static int[] computeLevelOffsets(int numRecords, int nodeSize)
+    {
+        int[] offsets = new int[34];
+        int numLevels = 0;
+        int count = numRecords;
+        int total = 0;
+
+        do
+        {
+            offsets[numLevels++] = total;
+            total += count;
+            count = (count + nodeSize - 1) / nodeSize;
+        }
+        while (offsets[numLevels - 1] + 1 < total); // stop once a level has a single box
+
+        offsets[numLevels++] = total;
+        return Arrays.copyOf(offsets, numLevels);
+    }
+
+    /**
+     * Computes the distance along a Hilbert curve of order {@link #HILBERT_ORDER} to the specified grid cell.
+     *
+     * @param x the cell's column.
+     * @param y the cell's row.
+     *
+     * @return the distance along the curve.
+     */
+    protected static long hilbertIndex(int x, int y)
+    {
+        long d = 0;
+        for (int s = 1 << (HILBERT_ORDER - 1); s > 0; s >>= 1)
+        {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+
+            // Rotate the quadrant so that the curve's sub-curves connect.
+            if (ry == 0)
+            {
+                if (rx == 1)
+                {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+
+        return d;
+    }
+}
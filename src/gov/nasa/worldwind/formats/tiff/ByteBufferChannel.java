@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.tiff;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+
+/**
+ * A read-only {@link SeekableByteChannel} over the contents of a {@link ByteBuffer}, so that TIFF files held in
+ * memory, such as tile archive entries, are read without copying them to a file first.
+ */
+class ByteBufferChannel implements SeekableByteChannel
+{
+    private final ByteBuffer buffer;
+    private boolean open = true;
+
+    /**
+     * Creates a channel over the remaining contents of a buffer. The buffer's position and limit aren't modified.
+     *
+     * @param buffer the buffer holding the channel's contents.
+     */
+    public ByteBufferChannel(ByteBuffer buffer)
+    {
+        this.buffer = buffer.slice();
+    }
+
+    public int read(ByteBuffer dst) throws IOException
+    {
+        this.checkOpen();
+
+        int remaining = this.buffer.remaining();
+        if (remaining == 0)
+            return -1;
+
+        int count = Math.min(remaining, dst.remaining());
+        ByteBuffer src = this.buffer.duplicate();
+        src.limit(src.position() + count);
+        dst.put(src);
+        this.buffer.position(this.buffer.position() + count);
+
+        return count;
+    }
+
+    public int write(ByteBuffer src) throws IOException
+    {
+        throw new NonWritableChannelException();
+    }
+
+    public long position() throws IOException
+    {
+        this.checkOpen();
+        return this.buffer.position();
+    }
+
+    public SeekableByteChannel position(long newPosition) throws IOException
+    {
+        this.checkOpen();
+        if (newPosition < 0)
+            throw new IllegalArgumentException();
+
+        this.buffer.position((int) Math.min(newPosition, this.buffer.limit()));
+        return this;
+    }
+
+    public long size() throws IOException
+    {
+        this.checkOpen();
+        return this.buffer.limit();
+    }
+
+    public SeekableByteChannel truncate(long size) throws IOException
+    {
+        throw new NonWritableChannelException();
+    }
+
+    public boolean isOpen()
+    {
+        return this.open;
+    }
+
+    public void close()
+    {
+        this.open = false;
+    }
+
+    private void checkOpen() throws ClosedChannelException
+    {
+        if (!this.open)
+            throw new ClosedChannelException();
+    }
+}
@@ -17,7 +17,7 @@ import java.awt.color.*;
 import java.awt.image.*;
 import java.io.*;
 import java.nio.*;
-import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.util.ArrayList;
 
 /**
@@ -30,7 +30,7 @@ public class GeotiffReader implements Disposable {
 
     private String sourceFilename;
     private RandomAccessFile sourceFile;
-    private FileChannel theChannel;
+    private SeekableByteChannel theChannel;
 
     private final GeoCodec gc = new GeoCodec();
 
@@ -51,6 +51,30 @@ public class GeotiffReader implements Disposable {
         this(sourceFile.getAbsolutePath());
     }
 
+    /**
+     * Creates a reader for a GeoTIFF file held in memory, such as an entry read from a tile archive.
+     *
+     * @param buffer     the file's contents, from the buffer's position to its limit.
+     * @param sourceName a name identifying the file in messages and metadata.
+     *
+     * @throws IOException if the file's headers can't be read.
+     * @throws IllegalArgumentException if the buffer is null.
+     */
+    public GeotiffReader(ByteBuffer buffer, String sourceName) throws IOException {
+        if (buffer == null) {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.sourceFilename = sourceName;
+        this.theChannel = new ByteBufferChannel(buffer);
+
+        this.tiffReader = new TIFFReader(this.theChannel);
+
+        readTiffHeaders();
+    }
+
     protected AVList getMetadata(int imageIndex) throws IOException {
         this.checkImageIndex(imageIndex);
         AVList values = this.metadata.get(imageIndex);
@@ -865,6 +889,68 @@ public class GeotiffReader implements Disposable {
         }
     }
 
+    /**
+     * Returns the byte order of the samples in the TIFF file. This is the order of the data as stored, not the order
+     * reported in the metadata, which describes the rasters created by this reader.
+     *
+     * @return the byte order of the file.
+     */
+    public ByteOrder getByteOrder() {
+        return this.tiffReader.getByteOrder();
+    }
+
+    /**
+     * Returns the file offset of an image's samples if the samples can be read directly from the file, for example
+     * through a memory mapping. This is possible only when the image has one uncompressed sample per pixel stored in
+     * strips that follow one another in the file, so that the samples form a single row-major array.
+     *
+     * @param imageIndex the index of the image.
+     *
+     * @return the file offset of the image's first sample, or -1 if the samples are compressed, tiled, interleaved or
+     *         not contiguous.
+     *
+     * @throws IOException if an error occurs while reading the image's directory.
+     */
+    public long getContiguousDataOffset(int imageIndex) throws IOException {
+        this.checkImageIndex(imageIndex);
+
+        TiffIFDEntry[] ifd = this.tiffIFDs.get(imageIndex);
+        BaselineTiff tiff = BaselineTiff.extract(ifd, this.tiffReader);
+        if (tiff == null || tiff.samplesPerPixel != 1 || tiff.bitsPerSample == null
+                || tiff.bitsPerSample[0] % Byte.SIZE != 0) {
+            return -1;
+        }
+
+        TiffIFDEntry compression = this.getByTag(ifd, Tiff.Tag.COMPRESSION);
+        if ((compression != null && compression.asLong() != Tiff.Compression.NONE)
+                || this.getByTag(ifd, Tiff.Tag.TILE_WIDTH) != null) {
+            return -1;
+        }
+
+        TiffIFDEntry offsetsEntry = this.getByTag(ifd, Tiff.Tag.STRIP_OFFSETS);
+        TiffIFDEntry countsEntry = this.getByTag(ifd, Tiff.Tag.STRIP_BYTE_COUNTS);
+        if (offsetsEntry == null || countsEntry == null) {
+            return -1;
+        }
+
+        long[] offsets = offsetsEntry.getAsLongs();
+        long[] counts = countsEntry.getAsLongs();
+        if (offsets == null || counts == null || offsets.length == 0 || offsets.length != counts.length) {
+            return -1;
+        }
+
+        long size = counts[0];
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] != offsets[i - 1] + counts[i - 1]) {
+                return -1;
+            }
+            size += counts[i];
+        }
+
+        long expectedSize = (long) tiff.width * tiff.height * (tiff.bitsPerSample[0] / Byte.SIZE);
+        return size >= expectedSize ? offsets[0] : -1;
+    }
+
     /*
     * Returns the (first!) IFD-Entry with the given tag, or null if not found.
     *
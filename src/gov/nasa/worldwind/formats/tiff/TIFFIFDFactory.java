@@ -7,7 +7,7 @@ package gov.nasa.worldwind.formats.tiff;
 
 import gov.nasa.worldwind.util.Logging;
 
-import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
@@ -25,7 +25,7 @@ class TIFFIFDFactory
 
     }
 
-    public static TiffIFDEntry create(FileChannel fc, ByteOrder tiffFileOrder)
+    public static TiffIFDEntry create(SeekableByteChannel fc, ByteOrder tiffFileOrder)
     {
         if( null == fc )
             return null;
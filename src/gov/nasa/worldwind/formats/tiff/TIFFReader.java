@@ -10,7 +10,7 @@ import gov.nasa.worldwind.util.Logging;
 
 import java.io.IOException;
 import java.nio.*;
-import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 
 /**
  * This is a package private class that contains methods of reading TIFF structures
@@ -30,16 +30,16 @@ class TIFFReader
     private static final int SHORT_SIZEOF = Short.SIZE / Byte.SIZE;
 
 
-    private FileChannel theChannel;
+    private SeekableByteChannel theChannel;
     private ByteOrder   tiffFileOrder;
 
-    public TIFFReader( FileChannel fileChannel, ByteOrder byteOrder )
+    public TIFFReader( SeekableByteChannel fileChannel, ByteOrder byteOrder )
     {
         this.theChannel = fileChannel;
         this.tiffFileOrder = byteOrder;
     }
 
-    public TIFFReader( FileChannel fileChannel )
+    public TIFFReader( SeekableByteChannel fileChannel )
     {
         this( fileChannel,ByteOrder.BIG_ENDIAN );
     }
@@ -223,6 +223,38 @@ public interface ElevationModel extends WWObject, Restorable, Disposable
      */
     double getUnmappedElevation(Angle latitude, Angle longitude);
 
+    /**
+     * Returns the elevation at a specified location in radians. This is equivalent to {@link #getElevation(Angle,
+     * Angle)}, and is intended for callers that look up many individual elevations. Elevation models that can look up
+     * elevations without allocating objects override this method to do so. The default implementation converts the
+     * location to angles and calls {@link #getElevation(Angle, Angle)}.
+     *
+     * @param latRadians the latitude of the location, in radians.
+     * @param lonRadians the longitude of the location, in radians.
+     *
+     * @return The elevation corresponding to the specified location, or the elevation model's missing-data replacement
+     *         value if there is no elevation for the given location.
+     */
+    default double getElevation(double latRadians, double lonRadians)
+    {
+        return this.getElevation(Angle.fromRadians(latRadians), Angle.fromRadians(lonRadians));
+    }
+
+    /**
+     * Returns the elevation at a specified location in radians, but without replacing missing data with the elevation
+     * model's missing data replacement value. This is equivalent to {@link #getUnmappedElevation(Angle, Angle)}. The
+     * default implementation converts the location to angles and calls {@link #getUnmappedElevation(Angle, Angle)}.
+     *
+     * @param latRadians the latitude of the location, in radians.
+     * @param lonRadians the longitude of the location, in radians.
+     *
+     * @return the elevation at the specified location, or the elevation model's missing data signal.
+     */
+    default double getUnmappedElevation(double latRadians, double lonRadians)
+    {
+        return this.getUnmappedElevation(Angle.fromRadians(latRadians), Angle.fromRadians(lonRadians));
+    }
+
     /**
      * Returns the elevations of a collection of locations. Replaces any elevation values corresponding to the missing
      * data signal with the elevation model's missing data replacement value. If a location within the elevation model's
@@ -429,4 +461,19 @@ public interface ElevationModel extends WWObject, Restorable, Disposable
      * this elevation model's missing data signal is returned (see {@link #getMissingDataSignal()}).
      */
     double getUnmappedLocalSourceElevation(Angle latitude, Angle longitude);
+
+    /**
+     * Returns the elevation at a specified location in radians from the elevation model's local data source. This is
+     * equivalent to {@link #getUnmappedLocalSourceElevation(Angle, Angle)}. The default implementation converts the
+     * location to angles and calls {@link #getUnmappedLocalSourceElevation(Angle, Angle)}.
+     *
+     * @param latRadians the latitude of the location, in radians.
+     * @param lonRadians the longitude of the location, in radians.
+     *
+     * @return the elevation at the specified location, or the elevation model's missing data signal.
+     */
+    default double getUnmappedLocalSourceElevation(double latRadians, double lonRadians)
+    {
+        return this.getUnmappedLocalSourceElevation(Angle.fromRadians(latRadians), Angle.fromRadians(lonRadians));
+    }
 }
@@ -13,7 +13,9 @@ import gov.nasa.worldwind.terrain.*;
 import gov.nasa.worldwind.util.*;
 
 import java.io.IOException;
+import java.nio.*;
 import java.util.List;
+import java.util.concurrent.*;
 
 /**
  * Defines a globe modeled as an <a href="http://mathworld.wolfram.com/Ellipsoid.html" target="_blank">ellipsoid</a>.
@@ -28,6 +30,12 @@ import java.util.List;
  */
 public class EllipsoidalGlobe extends WWObjectImpl implements Globe
 {
+    /**
+     * The number of coordinates a bulk transform converts on one thread. Bulk transforms of more coordinates are
+     * divided into ranges of about this size, which are converted concurrently.
+     */
+    protected static final int BULK_TRANSFORM_RANGE_SIZE = 8192;
+
     protected final double equatorialRadius;
     protected final double polarRadius;
     protected final double es;
@@ -506,6 +514,20 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
         return elevation;
     }
 
+    @Override
+    public double getElevation(double latRadians, double lonRadians)
+    {
+        if (this.elevationModel == null)
+            return 0;
+
+        double elevation = this.elevationModel.getElevation(latRadians, lonRadians);
+
+        if (this.egm96 != null)
+            elevation += this.egm96.getOffset(Angle.fromRadians(latRadians), Angle.fromRadians(lonRadians));
+
+        return elevation;
+    }
+
     public Vec4 computePointFromPosition(Position position)
     {
         if (position == null)
@@ -601,6 +623,228 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
         this.geodeticToCartesian(sector, numLat, numLon, metersElevation, out);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void computePointsFromPositions(double[] positions, int count, Vec4 referencePoint, double[] out)
+    {
+        if (positions == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (out == null)
+        {
+            String message = Logging.getMessage("nullValue.OutputIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.validateBulkTransform(count, positions.length, out.length, "generic.ArrayInvalidLength");
+
+        this.computeBulkTransform(new BufferWrapper.DoubleBufferWrapper(DoubleBuffer.wrap(positions)), count,
+            referencePoint, new BufferWrapper.DoubleBufferWrapper(DoubleBuffer.wrap(out)), false);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void computePointsFromPositions(DoubleBuffer positions, int count, Vec4 referencePoint, DoubleBuffer out)
+    {
+        if (positions == null)
+        {
+            String message = Logging.getMessage("nullValue.PositionsBufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (out == null)
+        {
+            String message = Logging.getMessage("nullValue.OutputBufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.validateBulkTransform(count, positions.remaining(), out.remaining(), "generic.BufferOverflow");
+
+        this.computeBulkTransform(new BufferWrapper.DoubleBufferWrapper(positions.slice()), count, referencePoint,
+            new BufferWrapper.DoubleBufferWrapper(out.slice()), false);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void computePointsFromPositions(DoubleBuffer positions, int count, Vec4 referencePoint, FloatBuffer out)
+    {
+        if (positions == null)
+        {
+            String message = Logging.getMessage("nullValue.PositionsBufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (out == null)
+        {
+            String message = Logging.getMessage("nullValue.OutputBufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.validateBulkTransform(count, positions.remaining(), out.remaining(), "generic.BufferOverflow");
+
+        this.computeBulkTransform(new BufferWrapper.DoubleBufferWrapper(positions.slice()), count, referencePoint,
+            new BufferWrapper.FloatBufferWrapper(out.slice()), false);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void computePositionsFromPoints(double[] points, int count, Vec4 referencePoint, double[] out)
+    {
+        if (points == null)
+        {
+            String message = Logging.getMessage("nullValue.PointsArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (out == null)
+        {
+            String message = Logging.getMessage("nullValue.OutputIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.validateBulkTransform(count, points.length, out.length, "generic.ArrayInvalidLength");
+
+        this.computeBulkTransform(new BufferWrapper.DoubleBufferWrapper(DoubleBuffer.wrap(points)), count,
+            referencePoint, new BufferWrapper.DoubleBufferWrapper(DoubleBuffer.wrap(out)), true);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void computePositionsFromPoints(DoubleBuffer points, int count, Vec4 referencePoint, DoubleBuffer out)
+    {
+        if (points == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (out == null)
+        {
+            String message = Logging.getMessage("nullValue.OutputBufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.validateBulkTransform(count, points.remaining(), out.remaining(), "generic.BufferOverflow");
+
+        this.computeBulkTransform(new BufferWrapper.DoubleBufferWrapper(points.slice()), count, referencePoint,
+            new BufferWrapper.DoubleBufferWrapper(out.slice()), true);
+    }
+
+    /**
+     * Validates the count and the input and output lengths of a bulk transform.
+     *
+     * @param count         the number of coordinate triples to transform.
+     * @param inLength      the number of values available in the input.
+     * @param outLength     the number of values available in the output.
+     * @param lengthMessage the message key identifying the error when either length is too short.
+     *
+     * @throws IllegalArgumentException if count is negative, or if either length is less than <code>3 x
+     *                                  count</code>.
+     */
+    protected void validateBulkTransform(int count, int inLength, int outLength, String lengthMessage)
+    {
+        if (count < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "count < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (inLength < 3 * count || outLength < 3 * count)
+        {
+            String message = Logging.getMessage(lengthMessage, Math.min(inLength, outLength), 3 * count);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Converts coordinate triples between geographic and Cartesian coordinates. Conversions of more than {@link
+     * #BULK_TRANSFORM_RANGE_SIZE} triples are divided into ranges that are converted concurrently in the common
+     * fork/join pool. Smaller conversions take place on the calling thread.
+     *
+     * @param in             the triples to convert, beginning at index 0.
+     * @param count          the number of triples to convert.
+     * @param referencePoint the Cartesian reference point. May be null.
+     * @param out            the buffer to hold the converted triples, beginning at index 0.
+     * @param inverse        <code>true</code> to convert Cartesian points to geographic positions, <code>false</code>
+     *                       to convert geographic positions to Cartesian points.
+     *
+     * @see #geodeticToCartesian(BufferWrapper, int, int, Vec4, BufferWrapper)
+     * @see #cartesianToGeodetic(BufferWrapper, int, int, Vec4, BufferWrapper)
+     */
+    protected void computeBulkTransform(BufferWrapper in, int count, Vec4 referencePoint, BufferWrapper out,
+        boolean inverse)
+    {
+        if (count > BULK_TRANSFORM_RANGE_SIZE && ForkJoinPool.getCommonPoolParallelism() > 1)
+        {
+            ForkJoinPool.commonPool().invoke(new BulkTransformAction(in, 0, count, referencePoint, out, inverse));
+        }
+        else if (inverse)
+        {
+            this.cartesianToGeodetic(in, 0, count, referencePoint, out);
+        }
+        else
+        {
+            this.geodeticToCartesian(in, 0, count, referencePoint, out);
+        }
+    }
+
+    /** Converts a range of coordinate triples, dividing the range until it's small enough to convert directly. */
+    @SuppressWarnings("serial")
+    protected class BulkTransformAction extends RecursiveAction
+    {
+        protected final BufferWrapper in;
+        protected final int start;
+        protected final int end;
+        protected final Vec4 referencePoint;
+        protected final BufferWrapper out;
+        protected final boolean inverse;
+
+        public BulkTransformAction(BufferWrapper in, int start, int end, Vec4 referencePoint, BufferWrapper out,
+            boolean inverse)
+        {
+            this.in = in;
+            this.start = start;
+            this.end = end;
+            this.referencePoint = referencePoint;
+            this.out = out;
+            this.inverse = inverse;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.end - this.start <= BULK_TRANSFORM_RANGE_SIZE)
+            {
+                if (this.inverse)
+                    cartesianToGeodetic(this.in, this.start, this.end, this.referencePoint, this.out);
+                else
+                    geodeticToCartesian(this.in, this.start, this.end, this.referencePoint, this.out);
+            }
+            else
+            {
+                int mid = (this.start + this.end) >>> 1;
+                invokeAll(
+                    new BulkTransformAction(this.in, this.start, mid, this.referencePoint, this.out, this.inverse),
+                    new BulkTransformAction(this.in, mid, this.end, this.referencePoint, this.out, this.inverse));
+            }
+        }
+    }
+
     /**
      * Returns the normal to the Globe at the specified position.
      *
@@ -972,6 +1216,45 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
         }
     }
 
+    /**
+     * Maps a range of geographic positions in a buffer to Cartesian coordinates, as {@link
+     * #geodeticToCartesian(gov.nasa.worldwind.geom.Angle, gov.nasa.worldwind.geom.Angle, double)} does for a single
+     * position. Each position is a latitude, longitude and elevation triple, in radians, radians and meters, and the
+     * position at index <code>i</code> occupies buffer elements <code>3 x i</code> through <code>3 x i + 2</code>. Each
+     * point is written to the same index in the output buffer as an x, y and z triple.
+     * <p>
+     * This method may be called concurrently for disjoint ranges of the same buffers, and must not modify the buffers
+     * outside the specified range.
+     *
+     * @param positions      the positions to convert.
+     * @param start          the index of the first position to convert.
+     * @param end            one more than the index of the last position to convert.
+     * @param referencePoint the point to subtract from each computed point. May be null.
+     * @param out            the buffer to hold the computed points. May be the same as the positions buffer.
+     */
+    protected void geodeticToCartesian(BufferWrapper positions, int start, int end, Vec4 referencePoint,
+        BufferWrapper out)
+    {
+        double refX = referencePoint != null ? referencePoint.x : 0;
+        double refY = referencePoint != null ? referencePoint.y : 0;
+        double refZ = referencePoint != null ? referencePoint.z : 0;
+
+        for (int i = 3 * start; i < 3 * end; i += 3)
+        {
+            double lat = positions.getDouble(i);
+            double lon = positions.getDouble(i + 1);
+            double elev = positions.getDouble(i + 2);
+
+            double cosLat = Math.cos(lat);
+            double sinLat = Math.sin(lat);
+            double rpm = this.equatorialRadius / Math.sqrt(1.0 - this.es * sinLat * sinLat);
+
+            out.putDouble(i, (rpm + elev) * cosLat * Math.sin(lon) - refX);
+            out.putDouble(i + 1, (rpm * (1.0 - this.es) + elev) * sinLat - refY);
+            out.putDouble(i + 2, (rpm + elev) * cosLat * Math.cos(lon) - refZ);
+        }
+    }
+
 //    protected Position cartesianToGeodeticOriginal(Vec4 cart)
 //    {
 //        if (cart == null)
@@ -1028,6 +1311,40 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
         return this.ellipsoidalToGeodetic(cart);
     }
 
+    /**
+     * Computes the geographic positions of a range of Cartesian points in a buffer, as {@link
+     * #cartesianToGeodetic(gov.nasa.worldwind.geom.Vec4)} does for a single point. Each point is an x, y and z triple,
+     * and the point at index <code>i</code> occupies buffer elements <code>3 x i</code> through <code>3 x i + 2</code>.
+     * Each position is written to the same index in the output buffer as a latitude, longitude and elevation triple, in
+     * radians, radians and meters.
+     * <p>
+     * This method may be called concurrently for disjoint ranges of the same buffers, and must not modify the buffers
+     * outside the specified range.
+     *
+     * @param points         the points to convert.
+     * @param start          the index of the first point to convert.
+     * @param end            one more than the index of the last point to convert.
+     * @param referencePoint the point to add to each point before it's converted. May be null.
+     * @param out            the buffer to hold the computed positions. May be the same as the points buffer.
+     */
+    protected void cartesianToGeodetic(BufferWrapper points, int start, int end, Vec4 referencePoint,
+        BufferWrapper out)
+    {
+        double refX = referencePoint != null ? referencePoint.x : 0;
+        double refY = referencePoint != null ? referencePoint.y : 0;
+        double refZ = referencePoint != null ? referencePoint.z : 0;
+        double[] position = new double[3];
+
+        for (int i = 3 * start; i < 3 * end; i += 3)
+        {
+            this.ellipsoidalToGeodetic(points.getDouble(i) + refX, points.getDouble(i + 1) + refY,
+                points.getDouble(i + 2) + refZ, position);
+            out.putDouble(i, position[0]);
+            out.putDouble(i + 1, position[1]);
+            out.putDouble(i + 2, position[2]);
+        }
+    }
+
     /**
      * Compute the geographic position to corresponds to an ellipsoidal point.
      *
@@ -1049,14 +1366,34 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
             throw new IllegalArgumentException(message);
         }
 
+        double[] position = new double[3];
+        this.ellipsoidalToGeodetic(cart.x, cart.y, cart.z, position);
+
+        return Position.fromRadians(position[0], position[1], position[2]);
+    }
+
+    /**
+     * Computes the geographic position of an ellipsoidal point, and returns its latitude, longitude and elevation in an
+     * array, in radians, radians and meters.
+     *
+     * @param x        the point's X coordinate.
+     * @param y        the point's Y coordinate.
+     * @param z        the point's Z coordinate.
+     * @param position an array of at least three elements to hold the position's latitude, longitude and elevation.
+     *
+     * @see #ellipsoidalToGeodetic(gov.nasa.worldwind.geom.Vec4)
+     */
+    @SuppressWarnings({"SuspiciousNameCombination"})
+    protected void ellipsoidalToGeodetic(double x, double y, double z, double[] position)
+    {
         // According to
         // H. Vermeille,
         // "An analytical method to transform geocentric into geodetic coordinates"
         // http://www.springerlink.com/content/3t6837t27t351227/fulltext.pdf
         // Journal of Geodesy, accepted 10/2010, not yet published
-        double X = cart.z;
-        double Y = cart.x;
-        double Z = cart.y;
+        double X = z;
+        double Y = x;
+        double Z = y;
         double XXpYY = X * X + Y * Y;
         double sqrtXXpYY = Math.sqrt(XXpYY);
 
@@ -1147,7 +1484,9 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
             lambda = Math.PI * 0.5 - 2 * Math.atan2(X, sqrtXXpYY + Y);
         }
 
-        return Position.fromRadians(phi, lambda, h);
+        position[0] = phi;
+        position[1] = lambda;
+        position[2] = h;
     }
 //
 //    /**
@@ -10,7 +10,7 @@ import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.projections.*;
 import gov.nasa.worldwind.render.DrawContext;
-import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.util.*;
 
 /**
  * Defines a globe represented as a projection onto a plane. The projection type is modifiable. The default projection
@@ -371,6 +371,16 @@ public class FlatGlobe extends EllipsoidalGlobe implements Globe2D
         return super.getElevation(latitude, longitude);
     }
 
+    @Override
+    public double getElevation(double latRadians, double lonRadians)
+    {
+        // Flat World Note: return zero if outside the lat/lon normal boundaries (OK)
+        if (latRadians < -Math.PI / 2 || latRadians > Math.PI / 2 || lonRadians < -Math.PI || lonRadians > Math.PI)
+            return 0d;
+
+        return super.getElevation(latRadians, lonRadians);
+    }
+
     /**
      * Maps a position to a flat world Cartesian coordinates. The world plane is located at the origin and has UNIT-Z as
      * normal. The Y axis points to the north pole. The Z axis points up. The X axis completes a right-handed coordinate
@@ -403,6 +413,13 @@ public class FlatGlobe extends EllipsoidalGlobe implements Globe2D
         this.projection.geographicToCartesian(this, sector, numLat, numLon, metersElevation, this.offsetVector, out);
     }
 
+    @Override
+    protected void geodeticToCartesian(BufferWrapper positions, int start, int end, Vec4 referencePoint,
+        BufferWrapper out)
+    {
+        this.projection.geographicToCartesian(this, positions, start, end, this.offsetVector, referencePoint, out);
+    }
+
     @Override
     protected Position cartesianToGeodetic(Vec4 cart)
     {
@@ -428,6 +445,26 @@ public class FlatGlobe extends EllipsoidalGlobe implements Globe2D
         return pos;
     }
 
+    @Override
+    protected void cartesianToGeodetic(BufferWrapper points, int start, int end, Vec4 referencePoint,
+        BufferWrapper out)
+    {
+        this.projection.cartesianToGeographic(this, points, start, end, this.offsetVector, referencePoint, out);
+
+        if (this.isContinuous())
+        {
+            // Wrap if the globe is continuous.
+            for (int i = 3 * start + 1; i < 3 * end; i += 3)
+            {
+                double lon = out.getDouble(i);
+                if (lon < -Math.PI)
+                    out.putDouble(i, lon + 2 * Math.PI);
+                else if (lon > Math.PI)
+                    out.putDouble(i, lon - 2 * Math.PI);
+            }
+        }
+    }
+
 //
 //    /**
 //     * Returns a cylinder that minimally surrounds the specified minimum and maximum elevations in the sector at a
@@ -7,6 +7,7 @@
 package gov.nasa.worldwind.globes;
 
 import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.BufferWrapper;
 
 /**
  * Defines an interface to project geographic coordinates to Cartesian coordinates. Used by {@link Globe2D}
@@ -121,6 +122,97 @@ public interface GeographicProjection
      */
     Position cartesianToGeographic(Globe globe, Vec4 cart, Vec4 offset);
 
+    /**
+     * Converts a range of geographic positions in a buffer to points in Cartesian coordinates. Each position is a
+     * latitude, longitude and elevation triple, in radians, radians and meters, and the position at index
+     * <code>i</code> occupies buffer elements <code>3 x i</code> through <code>3 x i + 2</code>. Each point is written
+     * to the same index in the output buffer as an x, y and z triple.
+     * <p>
+     * Note: The input arguments are not checked prior to being used. The caller, typically a {@link Globe2D}
+     * implementation, is expected to perform that check prior to calling this method. Implementations must not retain
+     * or modify the buffers outside the specified range, since other ranges of the same buffers may be converted
+     * concurrently.
+     * <p>
+     * The default implementation converts each position individually with {@link #geographicToCartesian(Globe, Angle,
+     * Angle, double, Vec4)}. Projections that are cheap to evaluate may override it with a computation that doesn't
+     * allocate objects for each position.
+     *
+     * @param globe          The globe this projection is applied to.
+     * @param positions      The positions to convert.
+     * @param start          The index of the first position to convert.
+     * @param end            One more than the index of the last position to convert.
+     * @param offset         An optional offset to be applied to the Cartesian output. Typically only projections that
+     *                       are continuous (see {@link #isContinuous()} apply this offset. Others ignore it. May be
+     *                       null.
+     * @param referencePoint An optional point to subtract from each Cartesian output after the offset is applied. May
+     *                       be null.
+     * @param out            A buffer to hold the computed points. May be the same as the positions buffer.
+     *
+     * @see #geographicToCartesian(Globe, gov.nasa.worldwind.geom.Angle, gov.nasa.worldwind.geom.Angle, double,
+     *      gov.nasa.worldwind.geom.Vec4)
+     */
+    default void geographicToCartesian(Globe globe, BufferWrapper positions, int start, int end, Vec4 offset,
+        Vec4 referencePoint, BufferWrapper out)
+    {
+        double refX = referencePoint != null ? referencePoint.x : 0;
+        double refY = referencePoint != null ? referencePoint.y : 0;
+        double refZ = referencePoint != null ? referencePoint.z : 0;
+
+        for (int i = 3 * start; i < 3 * end; i += 3)
+        {
+            Vec4 point = this.geographicToCartesian(globe, Angle.fromRadians(positions.getDouble(i)),
+                Angle.fromRadians(positions.getDouble(i + 1)), positions.getDouble(i + 2), offset);
+            out.putDouble(i, point.x - refX);
+            out.putDouble(i + 1, point.y - refY);
+            out.putDouble(i + 2, point.z - refZ);
+        }
+    }
+
+    /**
+     * Converts a range of Cartesian points in a buffer to geographic positions. Each point is an x, y and z triple, and
+     * the point at index <code>i</code> occupies buffer elements <code>3 x i</code> through <code>3 x i + 2</code>.
+     * Each position is written to the same index in the output buffer as a latitude, longitude and elevation triple, in
+     * radians, radians and meters.
+     * <p>
+     * Note: The input arguments are not checked prior to being used. The caller, typically a {@link Globe2D}
+     * implementation, is expected to perform that check prior to calling this method. Implementations must not retain
+     * or modify the buffers outside the specified range, since other ranges of the same buffers may be converted
+     * concurrently.
+     * <p>
+     * The default implementation converts each point individually with {@link #cartesianToGeographic(Globe, Vec4,
+     * Vec4)}. Projections that are cheap to invert may override it with a computation that doesn't allocate objects
+     * for each point.
+     *
+     * @param globe          The globe this projection is applied to.
+     * @param points         The points to convert.
+     * @param start          The index of the first point to convert.
+     * @param end            One more than the index of the last point to convert.
+     * @param offset         An optional offset to be applied to the Cartesian input prior to converting it. Typically
+     *                       only projections that are continuous (see {@link #isContinuous()} apply this offset.
+     *                       Others ignore it. May be null.
+     * @param referencePoint An optional point to add to each Cartesian input before the offset is applied. May be
+     *                       null.
+     * @param out            A buffer to hold the computed positions. May be the same as the points buffer.
+     *
+     * @see #cartesianToGeographic(Globe, gov.nasa.worldwind.geom.Vec4, gov.nasa.worldwind.geom.Vec4)
+     */
+    default void cartesianToGeographic(Globe globe, BufferWrapper points, int start, int end, Vec4 offset,
+        Vec4 referencePoint, BufferWrapper out)
+    {
+        double refX = referencePoint != null ? referencePoint.x : 0;
+        double refY = referencePoint != null ? referencePoint.y : 0;
+        double refZ = referencePoint != null ? referencePoint.z : 0;
+
+        for (int i = 3 * start; i < 3 * end; i += 3)
+        {
+            Position pos = this.cartesianToGeographic(globe, new Vec4(points.getDouble(i) + refX,
+                points.getDouble(i + 1) + refY, points.getDouble(i + 2) + refZ), offset);
+            out.putDouble(i, pos.getLatitude().radians);
+            out.putDouble(i + 1, pos.getLongitude().radians);
+            out.putDouble(i + 2, pos.getElevation());
+        }
+    }
+
     /**
      * Computes a Cartesian vector that points north and is tangent to the meridian at the specified geographic
      * location.
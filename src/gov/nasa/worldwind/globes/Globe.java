@@ -9,7 +9,9 @@ import gov.nasa.worldwind.WWObject;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.render.DrawContext;
 import gov.nasa.worldwind.terrain.*;
+import gov.nasa.worldwind.util.Logging;
 
+import java.nio.*;
 import java.util.List;
 
 /**
@@ -101,6 +103,22 @@ public interface Globe extends WWObject, Extent
      */
     double getElevation(Angle latitude, Angle longitude);
 
+    /**
+     * Indicates the elevation at a specified location in radians. This is equivalent to {@link #getElevation(Angle,
+     * Angle)}, and is intended for callers that look up many individual elevations. The default implementation converts
+     * the location to angles and calls {@link #getElevation(Angle, Angle)}.
+     *
+     * @param latRadians the latitude of the location, in radians.
+     * @param lonRadians the longitude of the location, in radians.
+     *
+     * @return The elevation corresponding to the specified location, or the elevation model's missing-data replacement
+     *         value if there is no elevation for the given location. Returns zero if no elevation model is available.
+     */
+    default double getElevation(double latRadians, double lonRadians)
+    {
+        return this.getElevation(Angle.fromRadians(latRadians), Angle.fromRadians(lonRadians));
+    }
+
     /**
      * Indicates the elevations of a collection of locations. Replaces any elevation values corresponding to the missing
      * data signal with the elevation model's missing data replacement value. If a location within the elevation model's
@@ -262,6 +280,274 @@ public interface Globe extends WWObject, Extent
      */
     void computePointsFromPositions(Sector sector, int numLat, int numLon, double[] metersElevation, Vec4[] out);
 
+    /**
+     * Computes the cartesian points corresponding to an array of geographic positions. Each position is a latitude,
+     * longitude and elevation triple, in radians, radians and meters, and each point is written to the output array as
+     * an x, y and z triple. Points are optionally computed relative to a reference point, which is subtracted from each
+     * of them.
+     * <p>
+     * This method computes the same points as {@link #computePointFromPosition(Angle, Angle, double)}. Implementations
+     * may avoid allocating objects for each position, and may divide large arrays among multiple threads. The default
+     * implementation converts each position individually with {@link #computePointFromPosition(Angle, Angle, double)}.
+     * The output array may be the same as the positions array.
+     *
+     * @param positions      The positions to convert, three values per position.
+     * @param count          The number of positions to convert.
+     * @param referencePoint The point to subtract from each computed point. May be null, in which case absolute
+     *                       points are computed.
+     * @param out            An array to hold the computed points, three values per point.
+     *
+     * @throws IllegalArgumentException if either array is null, if count is negative, or if either array has less than
+     *                                  <code>3 x count</code> values.
+     */
+    default void computePointsFromPositions(double[] positions, int count, Vec4 referencePoint, double[] out)
+    {
+        if (positions == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (out == null)
+        {
+            String message = Logging.getMessage("nullValue.OutputIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (count < 0 || positions.length < 3 * count || out.length < 3 * count)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "count");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        for (int i = 0; i < 3 * count; i += 3)
+        {
+            Vec4 point = this.computePointFromPosition(Angle.fromRadians(positions[i]),
+                Angle.fromRadians(positions[i + 1]), positions[i + 2]);
+            if (referencePoint != null)
+                point = point.subtract3(referencePoint);
+            out[i] = point.x;
+            out[i + 1] = point.y;
+            out[i + 2] = point.z;
+        }
+    }
+
+    /**
+     * Computes the cartesian points corresponding to a buffer of geographic positions. Positions are read beginning at
+     * the buffer's position, and points are written beginning at the output buffer's position. Neither buffer's
+     * position is changed.
+     *
+     * @param positions      The positions to convert, as latitude, longitude and elevation triples in radians, radians
+     *                       and meters.
+     * @param count          The number of positions to convert.
+     * @param referencePoint The point to subtract from each computed point. May be null, in which case absolute
+     *                       points are computed.
+     * @param out            A buffer to hold the computed points, as x, y and z triples.
+     *
+     * @throws IllegalArgumentException if either buffer is null, if count is negative, or if either buffer has less
+     *                                  than <code>3 x count</code> values remaining.
+     * @see #computePointsFromPositions(double[], int, Vec4, double[])
+     */
+    default void computePointsFromPositions(DoubleBuffer positions, int count, Vec4 referencePoint, DoubleBuffer out)
+    {
+        if (positions == null)
+        {
+            String message = Logging.getMessage("nullValue.PositionsBufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (out == null)
+        {
+            String message = Logging.getMessage("nullValue.OutputBufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (count < 0 || positions.remaining() < 3 * count || out.remaining() < 3 * count)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "count");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int inPos = positions.position();
+        int outPos = out.position();
+        for (int i = 0; i < 3 * count; i += 3)
+        {
+            Vec4 point = this.computePointFromPosition(Angle.fromRadians(positions.get(inPos + i)),
+                Angle.fromRadians(positions.get(inPos + i + 1)), positions.get(inPos + i + 2));
+            if (referencePoint != null)
+                point = point.subtract3(referencePoint);
+            out.put(outPos + i, point.x);
+            out.put(outPos + i + 1, point.y);
+            out.put(outPos + i + 2, point.z);
+        }
+    }
+
+    /**
+     * Computes the cartesian points corresponding to a buffer of geographic positions and writes them to a buffer of
+     * single precision values, typically a vertex buffer. Points are computed in double precision and are then made
+     * relative to the reference point, so the reference point should be near the points to preserve their precision.
+     * Positions are read beginning at the buffer's position, and points are written beginning at the output buffer's
+     * position. Neither buffer's position is changed.
+     *
+     * @param positions      The positions to convert, as latitude, longitude and elevation triples in radians, radians
+     *                       and meters.
+     * @param count          The number of positions to convert.
+     * @param referencePoint The point to subtract from each computed point. May be null, in which case absolute
+     *                       points are computed.
+     * @param out            A buffer to hold the computed points, as x, y and z triples.
+     *
+     * @throws IllegalArgumentException if either buffer is null, if count is negative, or if either buffer has less
+     *                                  than <code>3 x count</code> values remaining.
+     * @see #computePointsFromPositions(double[], int, Vec4, double[])
+     */
+    default void computePointsFromPositions(DoubleBuffer positions, int count, Vec4 referencePoint, FloatBuffer out)
+    {
+        if (positions == null)
+        {
+            String message = Logging.getMessage("nullValue.PositionsBufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (out == null)
+        {
+            String message = Logging.getMessage("nullValue.OutputBufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (count < 0 || positions.remaining() < 3 * count || out.remaining() < 3 * count)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "count");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int inPos = positions.position();
+        int outPos = out.position();
+        for (int i = 0; i < 3 * count; i += 3)
+        {
+            Vec4 point = this.computePointFromPosition(Angle.fromRadians(positions.get(inPos + i)),
+                Angle.fromRadians(positions.get(inPos + i + 1)), positions.get(inPos + i + 2));
+            if (referencePoint != null)
+                point = point.subtract3(referencePoint);
+            out.put(outPos + i, (float) point.x);
+            out.put(outPos + i + 1, (float) point.y);
+            out.put(outPos + i + 2, (float) point.z);
+        }
+    }
+
+    /**
+     * Computes the geographic positions of an array of cartesian points. Each point is an x, y and z triple, and each
+     * position is written to the output array as a latitude, longitude and elevation triple, in radians, radians and
+     * meters. Points may be relative to a reference point, which is added to each of them before it's converted.
+     * <p>
+     * This method computes the same positions as {@link #computePositionFromPoint(Vec4)}. Implementations may avoid
+     * allocating objects for each point, and may divide large arrays among multiple threads. The default implementation
+     * converts each point individually with {@link #computePositionFromPoint(Vec4)}. The output array may be the same
+     * as the points array.
+     *
+     * @param points         The points to convert, three values per point.
+     * @param count          The number of points to convert.
+     * @param referencePoint The point the points are relative to. May be null, in which case the points are absolute.
+     * @param out            An array to hold the computed positions, three values per position.
+     *
+     * @throws IllegalArgumentException if either array is null, if count is negative, or if either array has less than
+     *                                  <code>3 x count</code> values.
+     */
+    default void computePositionsFromPoints(double[] points, int count, Vec4 referencePoint, double[] out)
+    {
+        if (points == null)
+        {
+            String message = Logging.getMessage("nullValue.PointsArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (out == null)
+        {
+            String message = Logging.getMessage("nullValue.OutputIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (count < 0 || points.length < 3 * count || out.length < 3 * count)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "count");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        for (int i = 0; i < 3 * count; i += 3)
+        {
+            Vec4 point = new Vec4(points[i], points[i + 1], points[i + 2]);
+            if (referencePoint != null)
+                point = point.add3(referencePoint);
+            Position pos = this.computePositionFromPoint(point);
+            out[i] = pos.getLatitude().radians;
+            out[i + 1] = pos.getLongitude().radians;
+            out[i + 2] = pos.getElevation();
+        }
+    }
+
+    /**
+     * Computes the geographic positions of a buffer of cartesian points. Points are read beginning at the buffer's
+     * position, and positions are written beginning at the output buffer's position. Neither buffer's position is
+     * changed.
+     *
+     * @param points         The points to convert, as x, y and z triples.
+     * @param count          The number of points to convert.
+     * @param referencePoint The point the points are relative to. May be null, in which case the points are absolute.
+     * @param out            A buffer to hold the computed positions, as latitude, longitude and elevation triples in
+     *                       radians, radians and meters.
+     *
+     * @throws IllegalArgumentException if either buffer is null, if count is negative, or if either buffer has less
+     *                                  than <code>3 x count</code> values remaining.
+     * @see #computePositionsFromPoints(double[], int, Vec4, double[])
+     */
+    default void computePositionsFromPoints(DoubleBuffer points, int count, Vec4 referencePoint, DoubleBuffer out)
+    {
+        if (points == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (out == null)
+        {
+            String message = Logging.getMessage("nullValue.OutputBufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (count < 0 || points.remaining() < 3 * count || out.remaining() < 3 * count)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "count");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int inPos = points.position();
+        int outPos = out.position();
+        for (int i = 0; i < 3 * count; i += 3)
+        {
+            Vec4 point = new Vec4(points.get(inPos + i), points.get(inPos + i + 1), points.get(inPos + i + 2));
+            if (referencePoint != null)
+                point = point.add3(referencePoint);
+            Position pos = this.computePositionFromPoint(point);
+            out.put(outPos + i, pos.getLatitude().radians);
+            out.put(outPos + i + 1, pos.getLongitude().radians);
+            out.put(outPos + i + 2, pos.getElevation());
+        }
+    }
+
     /**
      * Computes a vector perpendicular to the surface of this globe in cartesian coordinates.
      *
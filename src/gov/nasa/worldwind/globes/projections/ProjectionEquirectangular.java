@@ -8,6 +8,7 @@ package gov.nasa.worldwind.globes.projections;
 
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.util.BufferWrapper;
 
 /**
  * Implements an Equirectangular projection, also known as Equidistant Cylindrical, Plate Carree and Rectangular. The
@@ -86,6 +87,46 @@ public class ProjectionEquirectangular extends AbstractGeographicProjection
             (cart.x - offset.x) / globe.getEquatorialRadius(), cart.z);
     }
 
+    @Override
+    public void geographicToCartesian(Globe globe, BufferWrapper positions, int start, int end, Vec4 offset,
+        Vec4 referencePoint, BufferWrapper out)
+    {
+        double eqr = globe.getEquatorialRadius();
+        double xOffset = (offset != null ? offset.x : 0) - (referencePoint != null ? referencePoint.x : 0);
+        double yOffset = referencePoint != null ? -referencePoint.y : 0;
+        double zOffset = referencePoint != null ? -referencePoint.z : 0;
+
+        for (int i = 3 * start; i < 3 * end; i += 3)
+        {
+            double lat = positions.getDouble(i);
+            double lon = positions.getDouble(i + 1);
+            double elev = positions.getDouble(i + 2);
+            out.putDouble(i, eqr * lon + xOffset);
+            out.putDouble(i + 1, eqr * lat + yOffset);
+            out.putDouble(i + 2, elev + zOffset);
+        }
+    }
+
+    @Override
+    public void cartesianToGeographic(Globe globe, BufferWrapper points, int start, int end, Vec4 offset,
+        Vec4 referencePoint, BufferWrapper out)
+    {
+        double eqr = globe.getEquatorialRadius();
+        double xOffset = (referencePoint != null ? referencePoint.x : 0) - (offset != null ? offset.x : 0);
+        double yOffset = referencePoint != null ? referencePoint.y : 0;
+        double zOffset = referencePoint != null ? referencePoint.z : 0;
+
+        for (int i = 3 * start; i < 3 * end; i += 3)
+        {
+            double x = points.getDouble(i);
+            double y = points.getDouble(i + 1);
+            double z = points.getDouble(i + 2);
+            out.putDouble(i, (y + yOffset) / eqr);
+            out.putDouble(i + 1, (x + xOffset) / eqr);
+            out.putDouble(i + 2, z + zOffset);
+        }
+    }
+
     @Override
     public Vec4 northPointingTangent(Globe globe, Angle latitude, Angle longitude)
     {
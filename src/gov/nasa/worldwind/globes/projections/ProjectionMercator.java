@@ -8,7 +8,7 @@ package gov.nasa.worldwind.globes.projections;
 
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.Globe;
-import gov.nasa.worldwind.util.WWMath;
+import gov.nasa.worldwind.util.*;
 
 /**
  * Provides a Mercator projection of an ellipsoidal globe.
@@ -140,6 +140,75 @@ public class ProjectionMercator extends AbstractGeographicProjection
         return Position.fromRadians(lat, (cart.x - xOffset) / globe.getEquatorialRadius(), cart.z);
     }
 
+    @Override
+    public void geographicToCartesian(Globe globe, BufferWrapper positions, int start, int end, Vec4 offset,
+        Vec4 referencePoint, BufferWrapper out)
+    {
+        double eqr = globe.getEquatorialRadius();
+        double ecc = Math.sqrt(globe.getEccentricitySquared());
+        double minLatLimit = this.getProjectionLimits().getMinLatitude().radians;
+        double maxLatLimit = this.getProjectionLimits().getMaxLatitude().radians;
+        double minLonLimit = this.getProjectionLimits().getMinLongitude().radians;
+        double maxLonLimit = this.getProjectionLimits().getMaxLongitude().radians;
+        double xOffset = (offset != null ? offset.x : 0) - (referencePoint != null ? referencePoint.x : 0);
+        double refY = referencePoint != null ? referencePoint.y : 0;
+        double refZ = referencePoint != null ? referencePoint.z : 0;
+
+        for (int i = 3 * start; i < 3 * end; i += 3)
+        {
+            double lat = WWMath.clamp(positions.getDouble(i), minLatLimit, maxLatLimit);
+            double lon = WWMath.clamp(positions.getDouble(i + 1), minLonLimit, maxLonLimit);
+            double elev = positions.getDouble(i + 2);
+
+            double sinLat = Math.sin(lat);
+            double s = ((1 + sinLat) / (1 - sinLat)) * Math.pow((1 - ecc * sinLat) / (1 + ecc * sinLat), ecc);
+
+            out.putDouble(i, eqr * lon + xOffset);
+            out.putDouble(i + 1, 0.5 * eqr * Math.log(s) - refY);
+            out.putDouble(i + 2, elev - refZ);
+        }
+    }
+
+    @Override
+    public void cartesianToGeographic(Globe globe, BufferWrapper points, int start, int end, Vec4 offset,
+        Vec4 referencePoint, BufferWrapper out)
+    {
+        double eqr = globe.getEquatorialRadius();
+        double xOffset = (referencePoint != null ? referencePoint.x : 0) - (offset != null ? offset.x : 0);
+        double refY = referencePoint != null ? referencePoint.y : 0;
+        double refZ = referencePoint != null ? referencePoint.z : 0;
+
+        // The series coefficients depend only on the globe, so compute them once for all points. See
+        // cartesianToGeographic(Globe, Vec4, Vec4) for the source of the formulas.
+        double ecc2 = globe.getEccentricitySquared();
+        double ecc4 = ecc2 * ecc2;
+        double ecc6 = ecc4 * ecc2;
+        double ecc8 = ecc6 * ecc2;
+        double B = ecc2 / 2 + 5 * ecc4 / 24 + ecc6 / 12 + 13 * ecc8 / 360;
+        double C = 7 * ecc4 / 48 + 29 * ecc6 / 240 + 811 * ecc8 / 11520;
+        double D = 7 * ecc6 / 120 + 81 * ecc8 / 1120;
+        double E = 4279 * ecc8 / 161280;
+        double Bp = B - 3 * D;
+        double Cp = 2 * C - 8 * E;
+        double Dp = 4 * D;
+        double Ep = 8 * E;
+
+        for (int i = 3 * start; i < 3 * end; i += 3)
+        {
+            double x = points.getDouble(i);
+            double y = points.getDouble(i + 1) + refY;
+            double z = points.getDouble(i + 2);
+
+            double t = Math.pow(Math.E, -y / eqr);
+            double A = Math.PI / 2 - 2 * Math.atan(t);
+            double s2p = Math.sin(2 * A);
+
+            out.putDouble(i, A - C + E + s2p * (Bp + s2p * (Cp + s2p * (Dp + Ep * s2p))));
+            out.putDouble(i + 1, (x + xOffset) / eqr);
+            out.putDouble(i + 2, z + refZ);
+        }
+    }
+
     @Override
     public Vec4 northPointingTangent(Globe globe, Angle latitude, Angle longitude)
     {
@@ -8,7 +8,7 @@ package gov.nasa.worldwind.globes.projections;
 
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.Globe;
-import gov.nasa.worldwind.util.WWMath;
+import gov.nasa.worldwind.util.*;
 
 /**
  * Provides a Sinusoidal spherical projection.
@@ -97,6 +97,52 @@ public class ProjectionSinusoidal extends AbstractGeographicProjection
         return Position.fromRadians(latRadians, lonRadians, cart.z);
     }
 
+    @Override
+    public void geographicToCartesian(Globe globe, BufferWrapper positions, int start, int end, Vec4 offset,
+        Vec4 referencePoint, BufferWrapper out)
+    {
+        double eqr = globe.getEquatorialRadius();
+        double refX = referencePoint != null ? referencePoint.x : 0;
+        double refY = referencePoint != null ? referencePoint.y : 0;
+        double refZ = referencePoint != null ? referencePoint.z : 0;
+
+        for (int i = 3 * start; i < 3 * end; i += 3)
+        {
+            double lat = positions.getDouble(i);
+            double lon = positions.getDouble(i + 1);
+            double elev = positions.getDouble(i + 2);
+            double cosLat = Math.cos(lat);
+            out.putDouble(i, (cosLat > 0 ? eqr * lon * cosLat : 0) - refX);
+            out.putDouble(i + 1, eqr * lat - refY);
+            out.putDouble(i + 2, elev - refZ);
+        }
+    }
+
+    @Override
+    public void cartesianToGeographic(Globe globe, BufferWrapper points, int start, int end, Vec4 offset,
+        Vec4 referencePoint, BufferWrapper out)
+    {
+        double eqr = globe.getEquatorialRadius();
+        double refX = referencePoint != null ? referencePoint.x : 0;
+        double refY = referencePoint != null ? referencePoint.y : 0;
+        double refZ = referencePoint != null ? referencePoint.z : 0;
+
+        for (int i = 3 * start; i < 3 * end; i += 3)
+        {
+            double x = points.getDouble(i) + refX;
+            double y = points.getDouble(i + 1) + refY;
+            double z = points.getDouble(i + 2) + refZ;
+
+            double latRadians = WWMath.clamp(y / eqr, -Math.PI / 2, Math.PI / 2);
+            double latCos = Math.cos(latRadians);
+            double lonRadians = latCos > 0 ? WWMath.clamp(x / (eqr * latCos), -Math.PI, Math.PI) : 0;
+
+            out.putDouble(i, latRadians);
+            out.putDouble(i + 1, lonRadians);
+            out.putDouble(i + 2, z);
+        }
+    }
+
     @Override
     public Vec4 northPointingTangent(Globe globe, Angle latitude, Angle longitude)
     {
@@ -814,7 +814,7 @@ public class AbstractGraticuleLayer extends AbstractLayer
         Vec4 surfacePoint = dc.getSurfaceGeometry().getSurfacePoint(latitude, longitude);
         if (surfacePoint == null)
             surfacePoint = dc.getGlobe().computePointFromPosition(new Position(latitude, longitude,
-                dc.getGlobe().getElevation(latitude, longitude)));
+                dc.getGlobe().getElevation(latitude.radians, longitude.radians)));
 
         return surfacePoint;
     }
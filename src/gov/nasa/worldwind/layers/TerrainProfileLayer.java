@@ -9,8 +9,10 @@ import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.event.*;
 import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Globe;
 import gov.nasa.worldwind.pick.PickSupport;
 import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.terrain.*;
 import gov.nasa.worldwind.util.*;
 import gov.nasa.worldwind.view.orbit.OrbitView;
 
@@ -20,6 +22,8 @@ import java.awt.geom.*;
 import java.beans.PropertyChangeEvent;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
 
 /**
  * Displays a terrain profile graph in a screen corner.
@@ -45,6 +49,8 @@ public class TerrainProfileLayer extends AbstractLayer implements PositionListen
     public final static String FOLLOW_PATH = "gov.nasa.worldwind.TerrainProfileLayer.FollowPath";
     // Graph size when minimized
     protected final static int MINIMIZED_SIZE = 32;
+    // Time allowed to retrieve the elevations of a run of profile samples, in milliseconds
+    protected final static long PROFILE_TIMEOUT = 5000;
 
     // GUI pickable objects
     protected final String buttonMinimize = "gov.nasa.worldwind.TerrainProfileLayer.ButtonMinimize";
@@ -90,6 +96,12 @@ public class TerrainProfileLayer extends AbstractLayer implements PositionListen
     protected double meanElevation;
     protected double length;                  // Profile length along great circle in meter
     protected Position positions[];           // Position list
+    protected LatLon[] sampleLocations;       // Sample locations being computed
+    protected LatLon[] requestedLocations;    // Sample locations of the most recent profile request
+    protected TerrainProfiler profiler;       // Computes profile elevations in the background
+    protected Future<?> profileRequest;       // Most recent profile request
+    protected volatile TerrainProfile profile; // Most recent profile returned by the profiler
+    protected TerrainProfile appliedProfile;  // Profile shown by the graph and the profile line
 
     // Worldwind
     protected WorldWindow wwd;
@@ -852,9 +864,6 @@ public class TerrainProfileLayer extends AbstractLayer implements PositionListen
                     // Draw GUI buttons
                     drawGUI(dc, drawSize);
 
-                    // Compute mean elevation
-                    meanElevation = (minElevation + maxElevation) / 2;
-                    
                     // Draw labels
                     String label = String.format("min %.0fm   max %.0fm  mean %.0fm ", this.minElevation, this.maxElevation, this.meanElevation);
                     if (this.unit.equals(UNIT_IMPERIAL)) {
@@ -1445,26 +1454,18 @@ public class TerrainProfileLayer extends AbstractLayer implements PositionListen
                     || (this.follow.equals(FOLLOW_NONE) && this.startLatLon != null && this.endLatLon != null)
                     || (this.follow.equals(FOLLOW_OBJECT) && this.objectPosition != null && this.objectHeading != null)
                     || (this.follow.equals(FOLLOW_PATH) && this.pathPositions != null && this.pathPositions.size() >= 2)) {
-                this.positions = new Position[samples];
-                this.minElevation = Double.MAX_VALUE;
-                this.maxElevation = -Double.MAX_VALUE;
-                // Compute profile positions
+                this.sampleLocations = new LatLon[samples];
+                // Compute profile sample locations
                 if (this.follow.equals(FOLLOW_PATH)) {
                     computePathPositions();
                 } else {
                     computeMirroredPositions(groundPos);
                 }
-                // Update shape on ground
-                if (this.selectionShape == null) {
-                    this.selectionShape = new Path(Arrays.asList(this.positions));
-                    this.selectionShape.setSurfacePath(true);
-                    var attrs = new BasicShapeAttributes();
-                    attrs.setOutlineWidth(2);
-                    attrs.setOutlineMaterial(new Material(new Color(this.color.getRed(),
-                            this.color.getGreen(), (int) (this.color.getBlue() * .5), (int) (255 * .8))));
-                    this.selectionShape.setAttributes(attrs);
-                } else {
-                    this.selectionShape.setPositions(Arrays.asList(this.positions));
+                // Request the profile elevations when the sample locations change, or again when the last request
+                // finished before all the elevations were available
+                this.applyProfile();
+                if (!Arrays.equals(this.sampleLocations, this.requestedLocations) || this.mustRefineProfile()) {
+                    this.requestProfile(this.sampleLocations);
                 }
             } else {
                 // Off globe or something missing
@@ -1475,6 +1476,96 @@ public class TerrainProfileLayer extends AbstractLayer implements PositionListen
         }
     }
 
+    /**
+     * Requests the profile at the specified sample locations from this layer's profiler. The profiler computes the
+     * profile in the background, first coarsely and then completely, and causes a repaint as each profile becomes
+     * available. Elevations at sample locations that moved only slightly since the previous request are reused.
+     *
+     * @param locations the profile sample locations.
+     */
+    protected void requestProfile(LatLon[] locations) {
+        Globe globe = this.wwd.getModel().getGlobe();
+        if (this.profiler == null || this.profiler.getTerrain().getGlobe() != globe) {
+            this.profiler = this.createProfiler(globe);
+        }
+
+        this.requestedLocations = locations;
+        this.profileRequest = this.profiler.requestProfile(Arrays.asList(locations), new TerrainProfiler.ProfileCallback() {
+            @Override
+            public void profileComputed(TerrainProfile profile) {
+                TerrainProfileLayer.this.profile = profile;
+                firePropertyChange(AVKey.LAYER, null, TerrainProfileLayer.this);
+            }
+
+            @Override
+            public void exception(Exception exception) {
+                Logging.logger().log(Level.FINE, exception.getMessage(), exception);
+            }
+        });
+    }
+
+    /**
+     * Indicates whether the profile shown is incomplete because the most recent request finished before all its
+     * elevations were available, and must be requested again to refine it.
+     *
+     * @return true if the profile must be requested again, otherwise false.
+     */
+    protected boolean mustRefineProfile() {
+        return this.profileRequest != null && this.profileRequest.isDone()
+                && this.appliedProfile != null && !this.appliedProfile.isComplete();
+    }
+
+    /**
+     * Creates the profiler used to compute profile elevations on a specified globe.
+     *
+     * @param globe the globe.
+     *
+     * @return a new profiler.
+     */
+    protected TerrainProfiler createProfiler(Globe globe) {
+        HighResolutionTerrain terrain = new HighResolutionTerrain(globe, null);
+        terrain.setTimeout(PROFILE_TIMEOUT);
+
+        return new TerrainProfiler(terrain);
+    }
+
+    /**
+     * Updates the graph's positions and elevation statistics, and the profile line on the ground, from the most
+     * recent profile returned by the profiler.
+     */
+    protected void applyProfile() {
+        TerrainProfile profile = this.profile;
+        if (profile == null || (profile == this.appliedProfile && this.positions != null)) {
+            return;
+        }
+        if (profile.getSampleCount() != this.samples) {
+            this.positions = null; // the sample count has changed; wait for a profile with the new count
+            return;
+        }
+
+        this.appliedProfile = profile;
+        this.positions = new Position[profile.getSampleCount()];
+        for (int i = 0; i < this.positions.length; i++) {
+            this.positions[i] = profile.getPosition(i);
+        }
+        this.minElevation = profile.getMinElevation();
+        this.maxElevation = profile.getMaxElevation();
+        this.meanElevation = profile.getMeanElevation();
+
+        // Update shape on ground
+        if (this.selectionShape == null) {
+            this.selectionShape = new Path(Arrays.asList(this.positions));
+            this.selectionShape.setSurfacePath(true);
+            var attrs = new BasicShapeAttributes();
+            attrs.setOutlineWidth(2);
+            attrs.setOutlineMaterial(new Material(new Color(this.color.getRed(),
+                    this.color.getGreen(), (int) (this.color.getBlue() * .5), (int) (255 * .8))));
+            this.selectionShape.setAttributes(attrs);
+        } else {
+            this.selectionShape.setPositions(Arrays.asList(this.positions));
+        }
+    }
+
     protected Position computeViewCenterPosition(DrawContext dc) {
         View view = dc.getView();
         Line ray = view.computeRayFromScreenPoint(view.getViewport().getWidth() / 2,
@@ -1585,12 +1676,8 @@ public class TerrainProfileLayer extends AbstractLayer implements PositionListen
     }
 
     protected void setPosition(int index, LatLon latLon) {
-        Double elevation
-                = this.wwd.getModel().getGlobe().getElevation(latLon.getLatitude(), latLon.getLongitude());
-        this.minElevation = elevation < this.minElevation ? elevation : this.minElevation;
-        this.maxElevation = elevation > this.maxElevation ? elevation : this.maxElevation;
-        // Add position to the list
-        positions[index] = new Position(latLon, elevation);
+        // Add location to the list. Elevations are computed by the profiler.
+        this.sampleLocations[index] = latLon;
     }
 
     protected Position computeCursorPosition(DrawContext dc) {
@@ -44,7 +44,7 @@ public class TextureTile extends Tile implements SurfaceTile
         if (!WorldWind.getMemoryCacheSet().containsCache(TextureTile.class.getName()))
         {
             long size = Configuration.getLongValue(AVKey.TEXTURE_IMAGE_CACHE_SIZE, 3000000L);
-            MemoryCache cache = new BasicMemoryCache((long) (0.85 * size), size);
+            MemoryCache cache = WorldWind.getMemoryCacheSet().createCache((long) (0.85 * size), size);
             cache.setName("Texture Tiles");
             WorldWind.getMemoryCacheSet().addCache(TextureTile.class.getName(), cache);
         }
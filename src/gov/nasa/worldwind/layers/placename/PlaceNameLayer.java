@@ -94,7 +94,7 @@ public class PlaceNameLayer extends AbstractLayer implements BulkRetrievable
         if (!WorldWind.getMemoryCacheSet().containsCache(Tile.class.getName()))
         {
             long size = Configuration.getLongValue(AVKey.PLACENAME_LAYER_CACHE_SIZE, 2000000L);
-            MemoryCache cache = new BasicMemoryCache((long) (0.85 * size), size);
+            MemoryCache cache = WorldWind.getMemoryCacheSet().createCache((long) (0.85 * size), size);
             cache.setName("Placename Tiles");
             WorldWind.getMemoryCacheSet().addCache(Tile.class.getName(), cache);
         }
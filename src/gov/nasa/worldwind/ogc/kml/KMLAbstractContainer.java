@@ -25,6 +25,11 @@ import java.util.*;
 public class KMLAbstractContainer extends KMLAbstractFeature
 {
     protected ArrayList<KMLAbstractFeature> features = new ArrayList<KMLAbstractFeature>();
+    /**
+     * Indicates whether this container is being parsed incrementally, in which case its features may be read by
+     * rendering threads while the parser adds to them. See {@link KMLRoot#setIncremental(boolean)}.
+     */
+    protected volatile boolean loading;
 
     /**
      * Construct an instance.
@@ -36,14 +41,52 @@ public class KMLAbstractContainer extends KMLAbstractFeature
         super(namespaceURI);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to publish this container before its features are parsed when the document is parsed incrementally.
+     * The container is added to its parent container, or becomes its root's feature, and its features are added to it
+     * as each is parsed.
+     */
+    @Override
+    public Object parse(XMLEventParserContext ctx, XMLEvent inputEvent, Object... args) throws XMLStreamException
+    {
+        KMLRoot root = this.getRoot();
+        if (root == null || !root.isIncremental())
+            return super.parse(ctx, inputEvent, args);
+
+        this.loading = true;
+        try
+        {
+            if (this.getParent() instanceof KMLAbstractContainer)
+                ((KMLAbstractContainer) this.getParent()).addFeature(this);
+            else if (this.getParent() == root)
+                root.publishFeature(this);
+
+            return super.parse(ctx, inputEvent, args);
+        }
+        finally
+        {
+            this.loading = false;
+            root.requestIncrementalRedraw();
+        }
+    }
+
     @Override
     protected void doAddEventContent(Object o, XMLEventParserContext ctx, XMLEvent event, Object... args)
         throws XMLStreamException
     {
         if (o instanceof KMLAbstractFeature)
-            this.addFeature((KMLAbstractFeature) o);
+        {
+            // A child container parsed incrementally has already added itself. It's the most recent feature, since
+            // no other features of this container can be parsed while the child container is being parsed.
+            if (this.features.isEmpty() || this.features.get(this.features.size() - 1) != o)
+                this.addFeature((KMLAbstractFeature) o);
+        }
         else
+        {
             super.doAddEventContent(o, ctx, event, args);
+        }
     }
 
     public List<KMLAbstractFeature> getFeatures()
@@ -53,8 +96,41 @@ public class KMLAbstractContainer extends KMLAbstractFeature
 
     public void addFeature(KMLAbstractFeature feature)
     {
-        if (feature != null)
+        if (feature == null)
+            return;
+
+        if (this.loading)
+        {
+            synchronized (this.features)
+            {
+                this.features.add(feature);
+            }
+
+            KMLRoot root = this.getRoot();
+            if (root != null)
+                root.requestIncrementalRedraw();
+        }
+        else
+        {
             this.features.add(feature);
+        }
+    }
+
+    /**
+     * Returns the features of this container that may be rendered. If this container is loading incrementally, this
+     * returns a copy of the features that have been parsed so far, otherwise it returns this container's feature list.
+     *
+     * @return the features to render.
+     */
+    protected List<KMLAbstractFeature> getLoadedFeatures()
+    {
+        if (!this.loading)
+            return this.getFeatures();
+
+        synchronized (this.features)
+        {
+            return new ArrayList<KMLAbstractFeature>(this.features);
+        }
     }
 
     public void removeFeature(KMLAbstractFeature feature)
@@ -179,7 +255,7 @@ public class KMLAbstractContainer extends KMLAbstractFeature
         // root are rendered before features deeper in the tree. In the case of an image pyramid of GroundOverlays,
         // this causes the deeper nested overlays (which are typically more detailed) to render on top of the more
         // general overlay that is higher in the tree.
-        for (KMLAbstractFeature feature : this.getFeatures())
+        for (KMLAbstractFeature feature : this.getLoadedFeatures())
         {
             if (feature instanceof KMLAbstractContainer)
                 containers.add(feature);
@@ -209,7 +285,7 @@ public class KMLAbstractContainer extends KMLAbstractFeature
         // root are rendered before features deeper in the tree. In the case of an image pyramid of GroundOverlays,
         // this causes the deeper nested overlays (which are typically more detailed) to render on top of the more
         // general overlay that is higher in the tree.
-        for (KMLAbstractFeature feature : this.getFeatures())
+        for (KMLAbstractFeature feature : this.getLoadedFeatures())
         {
             if (feature instanceof KMLAbstractContainer)
                 containers.add(feature);
@@ -274,7 +350,7 @@ public class KMLAbstractContainer extends KMLAbstractFeature
     @Override
     public void onMessage(Message msg)
     {
-        for (KMLAbstractFeature feature : this.getFeatures())
+        for (KMLAbstractFeature feature : this.getLoadedFeatures())
         {
             feature.onMessage(msg);
         }
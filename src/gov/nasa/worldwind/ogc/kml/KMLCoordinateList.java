@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.kml;
+
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.util.*;
+
+import java.util.*;
+
+/**
+ * An immutable list of the positions of a KML <i>coordinates</i> element, stored as longitude, latitude and altitude
+ * triples in a {@link VecBuffer}. Positions are created only when they're requested, so a parsed document holds its
+ * coordinates in a fraction of the memory that <code>Position</code> instances would need until a feature's geometry
+ * is displayed. Applications that don't need <code>Position</code> instances can read the coordinates directly from
+ * {@link #getBuffer()}.
+ */
+public class KMLCoordinateList extends AbstractList<Position> implements RandomAccess
+{
+    protected final VecBuffer buffer;
+
+    /**
+     * Creates a list of the positions in a buffer of longitude, latitude and altitude triples.
+     *
+     * @param buffer the coordinates, three per position.
+     *
+     * @throws IllegalArgumentException if the buffer is null or does not have three coordinates per position.
+     */
+    public KMLCoordinateList(VecBuffer buffer)
+    {
+        if (buffer == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (buffer.getCoordsPerVec() != 3)
+        {
+            String message = Logging.getMessage("generic.InvalidTupleSize", buffer.getCoordsPerVec());
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.buffer = buffer;
+    }
+
+    /**
+     * Returns the buffer holding this list's coordinates, as longitude, latitude and altitude triples in degrees and
+     * meters.
+     *
+     * @return this list's coordinates.
+     */
+    public VecBuffer getBuffer()
+    {
+        return this.buffer;
+    }
+
+    @Override
+    public Position get(int index)
+    {
+        if (index < 0 || index >= this.buffer.getSize())
+            throw new IndexOutOfBoundsException(Logging.getMessage("generic.indexOutOfRange", index));
+
+        return this.buffer.getPosition(index);
+    }
+
+    @Override
+    public int size()
+    {
+        return this.buffer.getSize();
+    }
+}
@@ -8,8 +8,6 @@ package gov.nasa.worldwind.ogc.kml;
 
 import gov.nasa.worldwind.geom.Position;
 
-import java.util.*;
-
 /**
  * Tokenizer to read coordinate values from KML coordinate string. The components of each coordinate tuple are separated
  * by commas, as defined by the KML spec, coordinate tuples are comma separated, and each tuple is separated from the
@@ -42,9 +40,13 @@ public class KMLCoordinateTokenizer
     protected int i;
     protected char[] buffer;
 
-    protected List<String> words = new ArrayList<String>(3);
-
-    protected StringBuilder nextWord = new StringBuilder();
+    /** The start index, in the buffer, of each word of the current coordinate tuple. */
+    protected int[] wordStarts = new int[3];
+    /** The end index, in the buffer, of each word of the current coordinate tuple. */
+    protected int[] wordEnds = new int[3];
+    protected int numWords;
+    protected int wordStart;
+    protected double[] coords = new double[3];
 
     protected boolean inWord;
     protected boolean afterComma = false;
@@ -78,7 +80,30 @@ public class KMLCoordinateTokenizer
      */
     public Position nextPosition() throws NumberFormatException
     {
-        this.words.clear();
+        int count = this.nextCoordinates(this.coords);
+
+        if (count > 2)
+            return Position.fromDegrees(this.coords[1], this.coords[0], this.coords[2]);
+        else if (count == 2)
+            return Position.fromDegrees(this.coords[1], this.coords[0]);
+        return null;
+    }
+
+    /**
+     * Read the next coordinate tuple from the coordinate string into an array, without creating a {@link Position}.
+     * The tuple's components are stored in the order they appear in the string: longitude, latitude and, if present,
+     * altitude.
+     *
+     * @param array the array to receive the coordinates. Must have length of at least 3.
+     *
+     * @return the number of coordinates read: 3 if the tuple has an altitude, 2 if it does not, or 0 if the tuple is
+     *         incomplete.
+     *
+     * @throws NumberFormatException if the coordinates cannot be parsed to a number.
+     */
+    public int nextCoordinates(double[] array) throws NumberFormatException
+    {
+        this.numWords = 0;
 
         while (this.i < this.buffer.length)
         {
@@ -87,51 +112,60 @@ public class KMLCoordinateTokenizer
             if (Character.isWhitespace(ch))
             {
                 if (this.inWord)
-                    wordBoundary();
+                    wordBoundary(this.i - 1);
 
                 // If the last separator was a comma, don't break. Wait for another word.
-                if (!this.afterComma && this.words.size() >= 2)
+                if (!this.afterComma && this.numWords >= 2)
                     break;
             }
             else if (ch == ',')
             {
                 if (this.inWord)
-                    wordBoundary();
+                    wordBoundary(this.i - 1);
 
                 this.afterComma = true;
 
                 // Three words make a complete coordinate. Break out of the loop and return the coordinate.
-                if (this.words.size() >= 3)
+                if (this.numWords >= 3)
                     break;
             }
             else
             {
+                if (!this.inWord)
+                    this.wordStart = this.i - 1;
+
                 this.inWord = true;
                 this.afterComma = false;
-                this.nextWord.append(ch);
             }
         }
 
         if (this.inWord)
-            this.wordBoundary();
+            this.wordBoundary(this.i);
 
-        return this.makePosition();
-    }
+        if (this.numWords < 2)
+            return 0;
 
-    protected Position makePosition()
-    {
-        if (this.words.size() > 2)
-            return Position.fromDegrees(Double.valueOf(this.words.get(1)), Double.valueOf(this.words.get(0)),
-                Double.valueOf(this.words.get(2)));
-        else if (this.words.size() == 2)
-            return Position.fromDegrees(Double.valueOf(this.words.get(1)), Double.valueOf(this.words.get(0)));
-        return null;
+        int count = Math.min(this.numWords, 3);
+        for (int w = 0; w < count; w++)
+        {
+            array[w] = Double.parseDouble(
+                new String(this.buffer, this.wordStarts[w], this.wordEnds[w] - this.wordStarts[w]));
+        }
+
+        return count;
     }
 
-    protected void wordBoundary()
+    protected void wordBoundary(int wordEnd)
     {
         this.inWord = false;
-        this.words.add(this.nextWord.toString());
-        this.nextWord = new StringBuilder();
+
+        // A tuple has at most three words. Any others are ignored.
+        if (this.numWords < this.wordStarts.length)
+        {
+            this.wordStarts[this.numWords] = this.wordStart;
+            this.wordEnds[this.numWords] = wordEnd;
+        }
+
+        this.numWords++;
     }
 }
@@ -7,11 +7,13 @@
 package gov.nasa.worldwind.ogc.kml;
 
 import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.util.*;
 import gov.nasa.worldwind.util.xml.*;
 
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.events.XMLEvent;
-import java.util.ArrayList;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
 
 /**
  * Parses KML <i>coordinates</i> elements.
@@ -21,6 +23,8 @@ import java.util.ArrayList;
  */
 public class KMLCoordinatesParser extends AbstractXMLEventParser
 {
+    protected static final int INITIAL_CAPACITY = 16;
+
     public KMLCoordinatesParser()
     {
     }
@@ -38,15 +42,28 @@ public class KMLCoordinatesParser extends AbstractXMLEventParser
         if (s == null || s.length() < 3) // "a,b" is the smallest possible coordinate string
             return null;
 
-        ArrayList<Position> positions = new ArrayList<Position>();
-
+        // Read the coordinates into an array of longitude, latitude and altitude triples, then wrap them in a list
+        // that creates positions on demand. This avoids creating a Position for every coordinate of every element in
+        // the document, most of which may never be displayed.
         KMLCoordinateTokenizer tokenizer = new KMLCoordinateTokenizer(s);
+        double[] tuple = new double[3];
+        double[] coords = new double[3 * INITIAL_CAPACITY];
+        int numCoords = 0;
 
         while (tokenizer.hasMoreTokens())
         {
             try
             {
-                positions.add(tokenizer.nextPosition());
+                int count = tokenizer.nextCoordinates(tuple);
+                if (count < 2)
+                    continue;
+
+                if (numCoords + 3 > coords.length)
+                    coords = Arrays.copyOf(coords, 2 * coords.length);
+
+                coords[numCoords++] = tuple[0];
+                coords[numCoords++] = tuple[1];
+                coords[numCoords++] = (count > 2) ? tuple[2] : 0;
             }
             catch (NumberFormatException e)
             {
@@ -62,6 +79,8 @@ public class KMLCoordinatesParser extends AbstractXMLEventParser
             }
         }
 
-        return new Position.PositionList(positions);
+        DoubleBuffer buffer = DoubleBuffer.wrap(numCoords < coords.length ? Arrays.copyOf(coords, numCoords) : coords);
+        return new Position.PositionList(new KMLCoordinateList(
+            new VecBuffer(3, new BufferWrapper.DoubleBufferWrapper(buffer))));
     }
 }
@@ -85,6 +85,25 @@ public class KMLPlacemark extends KMLAbstractFeature
             this.getRenderables().add(r);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to release this placemark's renderables when the placemark is visible but its Region, or the Region it
+     * inherits, is inactive. The renderables are created again the next time the Region is active. This limits the
+     * memory used by a large document to the renderables of placemarks within view and at an appropriate level of
+     * detail.
+     */
+    @Override
+    protected boolean isFeatureActive(KMLTraversalContext tc, DrawContext dc)
+    {
+        boolean active = super.isFeatureActive(tc, dc);
+
+        if (!active && this.renderables != null && (this.getVisibility() == null || this.getVisibility()))
+            this.renderables = null;
+
+        return active;
+    }
+
     /**
      * Pre-renders the placemark geometry represented by this <code>KMLPlacemark</code>. This initializes the placemark
      * geometry if necessary, prior to pre-rendering.
@@ -273,7 +292,7 @@ public class KMLPlacemark extends KMLAbstractFeature
         {
             this.renderables = null;
         }
-        else if (KMLAbstractObject.MSG_STYLE_CHANGED.equals(msg.getName()))
+        else if (KMLAbstractObject.MSG_STYLE_CHANGED.equals(msg.getName()) && this.renderables != null)
         {
             for (KMLRenderable renderable : this.renderables)
             {
@@ -27,12 +27,19 @@ import java.util.zip.*;
 /**
  * Parses a KML or KMZ document and provides access to its contents. Instructions for parsing KML/KMZ files and streams
  * are given in the Description section of {@link gov.nasa.worldwind.ogc.kml}.
+ * <p>
+ * By default the document is displayed once {@link #parse(Object...)} has parsed it entirely. When the root is
+ * incremental, see {@link #setIncremental(boolean)}, the document's containers are published as they're parsed, and the
+ * document may be displayed by a {@link KMLController} while another thread parses it.
  *
  * @author tag
  * @version $Id: KMLRoot.java 1951 2014-04-20 18:57:50Z tgaskins $
  */
 public class KMLRoot extends KMLAbstractObject implements KMLRenderable
 {
+    /** The minimum interval between repaints requested while parsing incrementally, in milliseconds. */
+    protected static final long INCREMENTAL_REDRAW_INTERVAL = 250;
+
     /** Reference to the KMLDoc representing the KML or KMZ file. */
     protected KMLDoc kmlDoc;
     /** The event reader used to parse the document's XML. */
@@ -54,8 +61,12 @@ public class KMLRoot extends KMLAbstractObject implements KMLRenderable
      */
     protected double detailHint;
     /** Flag to indicate that the feature has been fetched from the hash map. */
-    protected boolean featureFetched = false;
-    protected KMLAbstractFeature feature;
+    protected volatile boolean featureFetched = false;
+    protected volatile KMLAbstractFeature feature;
+    /** Indicates whether the document's containers are published as they're parsed. Initially <code>false</code>. */
+    protected volatile boolean incremental;
+    /** The time of the most recent repaint requested while parsing incrementally, in milliseconds. */
+    protected long lastIncrementalRedrawTime;
 
     /** Flag to indicate that the network link control element has been fetched from the hash map. */
     protected boolean linkControlFetched = false;
@@ -1103,11 +1114,74 @@ public class KMLRoot extends KMLAbstractObject implements KMLRenderable
         {
             ctx.getEventReader().close();
             this.closeEventStream();
+
+            if (this.isIncremental())
+                this.requestRedraw();
         }
 
         return null;
     }
 
+    /**
+     * Indicates whether this root publishes the document's containers as they're parsed. See {@link
+     * #setIncremental(boolean)}.
+     *
+     * @return <code>true</code> if the document's containers are published as they're parsed, otherwise
+     *         <code>false</code>.
+     */
+    public boolean isIncremental()
+    {
+        return this.incremental;
+    }
+
+    /**
+     * Specifies whether this root publishes the document's containers as they're parsed, so that a large document can
+     * be displayed while another thread parses it. This must be specified before calling {@link #parse(Object...)}.
+     * <p>
+     * When incremental, each container is made available as soon as its start element has been parsed: the root
+     * feature through {@link #getFeature()}, and other containers through their parent container. A container's
+     * features are added to it as each feature is completely parsed. Rendering threads see a consistent snapshot of a
+     * container's features while it's loading, and this root requests a repaint periodically as features are added.
+     * Features other than containers, such as placemarks, are published only once they've been completely parsed.
+     * <p>
+     * Applications typically call <code>parse</code> on a thread other than the rendering thread, and add this root's
+     * {@link KMLController} to a layer before parsing begins.
+     *
+     * @param incremental <code>true</code> to publish the document's containers as they're parsed, <code>false</code>
+     *                    to publish the document once it's been parsed entirely.
+     */
+    public void setIncremental(boolean incremental)
+    {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Called while parsing incrementally when the start element of the document's root container has been parsed.
+     * Makes the container available from {@link #getFeature()}.
+     *
+     * @param feature the document's root container.
+     */
+    protected void publishFeature(KMLAbstractFeature feature)
+    {
+        this.feature = feature;
+        this.featureFetched = true;
+        this.requestRedraw();
+    }
+
+    /**
+     * Called while parsing incrementally when features are added to the document. Requests a repaint if one hasn't
+     * been requested in the last {@link #INCREMENTAL_REDRAW_INTERVAL} milliseconds.
+     */
+    protected void requestIncrementalRedraw()
+    {
+        long now = System.currentTimeMillis();
+        if (now - this.lastIncrementalRedrawTime < INCREMENTAL_REDRAW_INTERVAL)
+            return;
+
+        this.lastIncrementalRedrawTime = now;
+        this.requestRedraw();
+    }
+
     /** Closes the event stream associated with this context's XML event reader. */
     protected void closeEventStream()
     {
@@ -1163,8 +1237,15 @@ public class KMLRoot extends KMLAbstractObject implements KMLRenderable
     {
         if (!this.featureFetched)
         {
-            this.feature = findFeature();
-            this.featureFetched = true;
+            // An incremental document may not have a feature until it's been parsed, so look for one until it's found.
+            KMLAbstractFeature feature = this.findFeature();
+            if (feature != null || !this.isIncremental())
+            {
+                this.feature = feature;
+                this.featureFetched = true;
+            }
+
+            return feature;
         }
 
         return this.feature;
@@ -35,6 +35,8 @@ public class DeclutteringTextRenderer
 
     // Flag indicating a JOGL text rendering problem. Set to avoid continual exception logging.
     protected boolean hasJOGLv111Bug = false;
+    /** Holds text bounds from one frame to the next while the view is unchanged. */
+    protected final ScreenBoundsCache<GeographicText> textBoundsCache = new ScreenBoundsCache<GeographicText>();
 
     public Font getDefaultFont()
     {
@@ -87,6 +89,8 @@ public class DeclutteringTextRenderer
         if (!iterator.hasNext())
             return;
 
+        this.textBoundsCache.validate(dc);
+
         Frustum frustumInModelCoords = dc.getView().getFrustumInModelCoordinates();
         double horizon = dc.getView().getHorizonDistance();
 
@@ -342,22 +346,29 @@ public class DeclutteringTextRenderer
         if (charSequence == null)
             return null;
 
-        final Vec4 screenPoint = dc.getView().project(text.getPoint());
-        if (screenPoint == null)
-            return null;
-
         Font font = geographicText.getFont();
         if (font == null)
             font = this.getDefaultFont();
 
+        // Reuse the bounds computed in an earlier frame if neither the view nor the text has changed since.
+        String string = charSequence.toString();
+        Rectangle2D bounds = this.textBoundsCache.get(geographicText, text.getPoint(), string, font);
+        if (bounds != null)
+            return bounds;
+
+        final Vec4 screenPoint = dc.getView().project(text.getPoint());
+        if (screenPoint == null)
+            return null;
+
         try
         {
             TextRenderer textRenderer = this.getTextRenderer(dc, font);
 
             Rectangle2D textBound = textRenderer.getBounds(charSequence);
             double x = screenPoint.x - textBound.getWidth() / 2d;
-            Rectangle2D bounds = new Rectangle2D.Float();
+            bounds = new Rectangle2D.Float();
             bounds.setRect(x, screenPoint.y, textBound.getWidth(), textBound.getHeight());
+            this.textBoundsCache.put(geographicText, bounds, text.getPoint(), string, font);
 
             return bounds;
         }
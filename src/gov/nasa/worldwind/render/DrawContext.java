@@ -944,6 +944,14 @@ public interface DrawContext extends WWObject, Disposable
      */
     OrderedRenderable pollOrderedRenderables();
 
+    /**
+     * Returns the number of {@link gov.nasa.worldwind.render.OrderedRenderable}s on the ordered-renderable priority
+     * queue.
+     *
+     * @return the number of ordered renderables on the queue.
+     */
+    int getOrderedRenderablesCount();
+
     /**
      * Returns a {@link Terrain} object that uses the current sector geometry or the current globe to compute surface
      * points.
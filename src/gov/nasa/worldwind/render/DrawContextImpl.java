@@ -95,51 +95,11 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
     protected ClutterFilter clutterFilter;
 //    protected Map<String, GroupingFilter> groupingFilters;
 
-    protected static class OrderedRenderableEntry
-    {
-        protected OrderedRenderable or;
-        protected double distanceFromEye;
-        protected long time;
-        protected int globeOffset;
-        protected SectorGeometryList surfaceGeometry;
-
-        public OrderedRenderableEntry(OrderedRenderable orderedRenderable, long insertionTime, DrawContext dc)
-        {
-            this.or = orderedRenderable;
-            this.distanceFromEye = orderedRenderable.getDistanceFromEye();
-            this.time = insertionTime;
-            if (dc.isContinuous2DGlobe())
-            {
-                this.globeOffset = ((Globe2D) dc.getGlobe()).getOffset();
-                this.surfaceGeometry = dc.getSurfaceGeometry();
-            }
-        }
-
-        public OrderedRenderableEntry(OrderedRenderable orderedRenderable, double distanceFromEye, long insertionTime,
-            DrawContext dc)
-        {
-            this.or = orderedRenderable;
-            this.distanceFromEye = distanceFromEye;
-            this.time = insertionTime;
-            if (dc.isContinuous2DGlobe())
-            {
-                this.globeOffset = ((Globe2D) dc.getGlobe()).getOffset();
-                this.surfaceGeometry = dc.getSurfaceGeometry();
-            }
-        }
-    }
-
-    protected PriorityQueue<OrderedRenderableEntry> orderedRenderables =
-        new PriorityQueue<OrderedRenderableEntry>(100, new Comparator<OrderedRenderableEntry>()
-        {
-            public int compare(OrderedRenderableEntry orA, OrderedRenderableEntry orB)
-            {
-                double eA = orA.distanceFromEye;
-                double eB = orB.distanceFromEye;
-
-                return eA > eB ? -1 : eA == eB ? (orA.time < orB.time ? -1 : orA.time == orB.time ? 0 : 1) : 1;
-            }
-        });
+    /**
+     * The ordered renderables, retrieved farthest first. The queue's storage is reused from frame to frame, and its
+     * sort takes advantage of the order of the previous frame.
+     */
+    protected OrderedRenderableQueue orderedRenderables = new OrderedRenderableQueue();
     // Use a standard Queue to store the ordered surface object renderables. Ordered surface renderables are processed
     // in the order they were submitted.
     protected Queue<OrderedRenderable> orderedSurfaceRenderables = new ArrayDeque<OrderedRenderable>();
@@ -690,7 +650,7 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
             return; // benign event
         }
 
-        this.orderedRenderables.add(new OrderedRenderableEntry(orderedRenderable, System.nanoTime(), this));
+        this.addOrderedRenderableEntry(orderedRenderable, orderedRenderable.getDistanceFromEye());
     }
 
     /** {@inheritDoc} */
@@ -708,28 +668,43 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
         // If multiple ordered renderables are added in this way, they are drawn according to the order in which they
         // are added.
         double eyeDistance = isBehind ? Double.MAX_VALUE : orderedRenderable.getDistanceFromEye();
-        this.orderedRenderables.add(
-            new OrderedRenderableEntry(orderedRenderable, eyeDistance, System.nanoTime(), this));
+        this.addOrderedRenderableEntry(orderedRenderable, eyeDistance);
+    }
+
+    protected void addOrderedRenderableEntry(OrderedRenderable orderedRenderable, double eyeDistance)
+    {
+        if (this.isContinuous2DGlobe())
+        {
+            this.orderedRenderables.add(orderedRenderable, eyeDistance, ((Globe2D) this.getGlobe()).getOffset(),
+                this.getSurfaceGeometry());
+        }
+        else
+        {
+            this.orderedRenderables.add(orderedRenderable, eyeDistance, 0, null);
+        }
     }
 
     public OrderedRenderable peekOrderedRenderables()
     {
-        OrderedRenderableEntry ore = this.orderedRenderables.peek();
+        return this.orderedRenderables.peek();
+    }
 
-        return ore != null ? ore.or : null;
+    public int getOrderedRenderablesCount()
+    {
+        return this.orderedRenderables.size();
     }
 
     public OrderedRenderable pollOrderedRenderables()
     {
-        OrderedRenderableEntry ore = this.orderedRenderables.poll();
+        int index = this.orderedRenderables.peekIndex();
 
-        if (ore != null && this.isContinuous2DGlobe())
+        if (index >= 0 && this.isContinuous2DGlobe())
         {
-            ((Globe2D) this.getGlobe()).setOffset(ore.globeOffset);
-            this.setSurfaceGeometry(ore.surfaceGeometry);
+            ((Globe2D) this.getGlobe()).setOffset(this.orderedRenderables.getGlobeOffset(index));
+            this.setSurfaceGeometry(this.orderedRenderables.getSurfaceGeometry(index));
         }
 
-        return ore != null ? ore.or : null;
+        return this.orderedRenderables.poll();
     }
 //
 //    public void applyDeclutterFilter2()
@@ -793,38 +768,24 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
         if (this.getClutterFilter() == null)
             return;
 
-        // Collect all the active declutterables.
-        ArrayList<OrderedRenderableEntry> declutterableArray = new ArrayList<OrderedRenderableEntry>();
-        for (OrderedRenderableEntry ore : this.orderedRenderables)
-        {
-            if (ore.or instanceof Declutterable && ((Declutterable) ore.or).isEnableDecluttering())
-                declutterableArray.add(ore);
-        }
-
-        // Sort the declutterables front-to-back.
-        Collections.sort(declutterableArray, new Comparator<OrderedRenderableEntry>()
-        {
-            public int compare(OrderedRenderableEntry orA, OrderedRenderableEntry orB)
+        // Remove the active declutterables from the renderable list, front-to-back. The clutter filter will add those it
+        // wants displayed back to the list, or it will add some other representation.
+        List<OrderedRenderable> removed = this.orderedRenderables.removeFrontToBack(
+            new java.util.function.Predicate<OrderedRenderable>()
             {
-                double eA = orA.distanceFromEye;
-                double eB = orB.distanceFromEye;
-
-                return eA < eB ? -1 : eA == eB ? (orA.time < orB.time ? -1 : orA.time == orB.time ? 0 : 1) : 1;
-            }
-        });
+                public boolean test(OrderedRenderable or)
+                {
+                    return or instanceof Declutterable && ((Declutterable) or).isEnableDecluttering();
+                }
+            });
 
-        if (declutterableArray.size() == 0)
+        if (removed.size() == 0)
             return;
 
-        // Prepare the declutterable list for the filter and remove eliminated ordered renderables from the renderable
-        // list. The clutter filter will add those it wants displayed back to the list, or it will add some other
-        // representation.
-        List<Declutterable> declutterables = new ArrayList<Declutterable>(declutterableArray.size());
-        for (OrderedRenderableEntry ore : declutterableArray)
+        List<Declutterable> declutterables = new ArrayList<Declutterable>(removed.size());
+        for (OrderedRenderable or : removed)
         {
-            declutterables.add((Declutterable) ore.or);
-
-            orderedRenderables.remove(ore);
+            declutterables.add((Declutterable) or);
         }
 
         // Tell the filter to apply itself and draw whatever it draws.
@@ -1474,7 +1435,8 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
             Vec4 pt = sectorGeometry.getSurfacePoint(position);
             if (pt == null)
             {
-                double elevation = this.getGlobe().getElevation(position.getLatitude(), position.getLongitude());
+                double elevation = this.getGlobe().getElevation(position.getLatitude().radians,
+                    position.getLongitude().radians);
                 pt = this.getGlobe().computePointFromPosition(position,
                     position.getAltitude() + elevation * this.getVerticalExaggeration());
             }
@@ -1499,7 +1461,7 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
 
             if (pt == null)
             {
-                double elevation = this.getGlobe().getElevation(latitude, longitude);
+                double elevation = this.getGlobe().getElevation(latitude.radians, longitude.radians);
                 pt = this.getGlobe().computePointFromPosition(latitude, longitude,
                     metersOffset + elevation * this.getVerticalExaggeration());
             }
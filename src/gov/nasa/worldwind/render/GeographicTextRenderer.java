@@ -45,6 +45,10 @@ public class GeographicTextRenderer
 
     private boolean hasJOGLv111Bug = false;
 
+    // Decluttering
+    private final ScreenRegionIndex textRegions = new ScreenRegionIndex();
+    private final ScreenBoundsCache<GeographicText> textBoundsCache = new ScreenBoundsCache<GeographicText>();
+
     public GeographicTextRenderer()
     {
     }
@@ -399,29 +403,33 @@ public class GeographicTextRenderer
 
                     Collections.sort(textList); // sort for rendering priority then front to back
 
-                    ArrayList<Rectangle2D> textBounds = new ArrayList<Rectangle2D>();
-                    for (OrderedText ot : textList)
+                    // Index the bounds of the text drawn so far, so that overlap is found without testing them all.
+                    ScreenRegionIndex textBounds = GeographicTextRenderer.this.textRegions;
+                    textBounds.clear();
+                    GeographicTextRenderer.this.textBoundsCache.validate(dc);
+                    try
                     {
-                        double[] scaleAndOpacity = GeographicTextRenderer.this.computeDistanceScaleAndOpacity(dc, ot);
-                        Rectangle2D newBounds = GeographicTextRenderer.this.computeTextBounds(dc, ot,
-                            scaleAndOpacity[0]);
-                        if (newBounds == null)
-                            continue;
-
-                        boolean overlap = false;
-                        newBounds = GeographicTextRenderer.this.computeExpandedBounds(newBounds, cullTextMargin);
-                        for (Rectangle2D rect : textBounds)
-                        {
-                            if (rect.intersects(newBounds))
-                                overlap = true;
-                        }
-
-                        if (!overlap)
+                        for (OrderedText ot : textList)
                         {
-                            textBounds.add(newBounds);
-                            GeographicTextRenderer.this.drawText(dc, ot, scaleAndOpacity[0], scaleAndOpacity[1]);
+                            double[] scaleAndOpacity = GeographicTextRenderer.this.computeDistanceScaleAndOpacity(dc,
+                                ot);
+                            Rectangle2D newBounds = GeographicTextRenderer.this.getTextBounds(dc, ot,
+                                scaleAndOpacity[0]);
+                            if (newBounds == null)
+                                continue;
+
+                            newBounds = GeographicTextRenderer.this.computeExpandedBounds(newBounds, cullTextMargin);
+                            if (!textBounds.intersects(newBounds))
+                            {
+                                textBounds.add(newBounds);
+                                GeographicTextRenderer.this.drawText(dc, ot, scaleAndOpacity[0], scaleAndOpacity[1]);
+                            }
                         }
                     }
+                    finally
+                    {
+                        textBounds.clear();
+                    }
                 }
                 else //just draw each label
                 {
@@ -461,6 +469,37 @@ public class GeographicTextRenderer
         }
     }
 
+    /**
+     * Returns the screen bounds of text, reusing the bounds computed in an earlier frame if neither the view nor the
+     * text has changed since. See {@link #computeTextBounds(DrawContext, OrderedText, double)}.
+     *
+     * @param dc    the current draw context.
+     * @param uText the text.
+     * @param scale the scale applied to the text.
+     *
+     * @return the text's screen bounds, or null if the text is not visible. The bounds may be modified by the caller.
+     *
+     * @throws Exception if an error occurs computing the bounds.
+     */
+    protected Rectangle2D getTextBounds(DrawContext dc, OrderedText uText, double scale) throws Exception
+    {
+        GeographicText geographicText = uText.text;
+        if (geographicText.getText() == null)
+            return null;
+
+        String text = geographicText.getText().toString();
+        Rectangle2D bounds = this.textBoundsCache.get(geographicText, uText.point, text, geographicText.getFont(),
+            scale);
+        if (bounds != null)
+            return bounds;
+
+        bounds = this.computeTextBounds(dc, uText, scale);
+        if (bounds != null)
+            this.textBoundsCache.put(geographicText, bounds, uText.point, text, geographicText.getFont(), scale);
+
+        return bounds;
+    }
+
     protected Rectangle2D computeTextBounds(DrawContext dc, OrderedText uText, double scale) throws Exception
     {
         GeographicText geographicText = uText.text;
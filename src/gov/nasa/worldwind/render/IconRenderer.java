@@ -286,7 +286,7 @@ public class IconRenderer
                 Angle lon = pos.getLongitude();
                 double elevation = pos.getElevation();
                 if (!this.isAlwaysUseAbsoluteElevation())
-                    elevation += dc.getGlobe().getElevation(lat, lon);
+                    elevation += dc.getGlobe().getElevation(lat.radians, lon.radians);
                 iconPoint = dc.getGlobe().computePointFromPosition(lat, lon, elevation);
             }
 
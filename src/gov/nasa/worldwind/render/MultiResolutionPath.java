@@ -6,12 +6,10 @@
 
 package gov.nasa.worldwind.render;
 
-import com.jogamp.common.nio.Buffers;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.util.Logging;
 
 import java.awt.*;
-import java.nio.IntBuffer;
 import java.util.Iterator;
 
 /**
@@ -50,12 +48,12 @@ public class MultiResolutionPath extends Path
         public int computeSkipCount(DrawContext dc, PathData pathData);
     }
 
-    /** Subclass of PathData that adds the capability to map which ordinal number corresponds to each rendered position. */
+    /**
+     * Subclass of PathData used by MultiResolutionPath. The mapping from rendered positions to ordinal numbers is
+     * inherited from PathData.
+     */
     protected static class MultiResolutionPathData extends PathData
     {
-        /** Maps indices of rendered positions to their corresponding ordinal numbers. */
-        protected IntBuffer positionOrdinals;
-
         /**
          * Creates a new MultiResolutionPathData with the specified draw context and path.
          *
@@ -66,26 +64,6 @@ public class MultiResolutionPath extends Path
         {
             super(dc, shape);
         }
-
-        /**
-         * Returns a buffer mapping indices of rendered positions to their corresponding ordinal numbers.
-         *
-         * @return a buffer mapping positions to ordinal numbers.
-         */
-        public IntBuffer getPositionOrdinals()
-        {
-            return this.positionOrdinals;
-        }
-
-        /**
-         * Specifies a buffer that maps indices of rendered positions to their corresponding ordinal numbers.
-         *
-         * @param posOrdinals a buffer that maps positions to ordinal numbers.
-         */
-        public void setPositionOrdinals(IntBuffer posOrdinals)
-        {
-            this.positionOrdinals = posOrdinals;
-        }
     }
 
     /**
@@ -185,23 +163,12 @@ public class MultiResolutionPath extends Path
     /**
      * {@inheritDoc}
      * <p>
-     * Overridden to initialize and build the PathData's positionOrdinals buffer.
+     * Overridden to always map rendered positions to ordinal numbers, because this path skips positions.
      */
     @Override
-    protected void makeTessellatedPositions(DrawContext dc, PathData pathData)
+    protected boolean mustMapPositionOrdinals(PathData pathData)
     {
-        if (this.numPositions < 2)
-            return;
-
-        MultiResolutionPathData mrpd = (MultiResolutionPathData) pathData;
-        if (mrpd.positionOrdinals == null || mrpd.positionOrdinals.capacity() < this.numPositions)
-            mrpd.positionOrdinals = Buffers.newDirectIntBuffer(this.numPositions);
-        else
-            mrpd.positionOrdinals.clear();
-
-        super.makeTessellatedPositions(dc, pathData);
-
-        mrpd.positionOrdinals.flip();
+        return true;
     }
 
     /**
@@ -211,10 +178,19 @@ public class MultiResolutionPath extends Path
      * this Path's skipCountComputer. The skipCountComputer determines how many positions this path skips between
      * tessellated positions. Any positions remaining after this step are skipped if the segment they are part of is
      * either very small or not visible.
+     * <p>
+     * When this path simplifies its positions, the positions are instead selected by the superclass and the
+     * skipCountComputer is not used. See {@link #setSimplifyPositions(boolean)}.
      */
     @Override
     protected void makePositions(DrawContext dc, PathData pathData)
     {
+        if (pathData.positionIndex != null)
+        {
+            super.makePositions(dc, pathData);
+            return;
+        }
+
         Iterator<? extends Position> iter = this.positions.iterator();
         Position posA = iter.next();
         int ordinalA = 0;
@@ -252,36 +228,4 @@ public class MultiResolutionPath extends Path
             ordinalA = i;
         }
     }
-
-    /**
-     * {@inheritDoc}
-     * <p>
-     * Overridden to create a mapping between the current tessellated position and the specified ordinal, if the ordinal
-     * is not null.
-     */
-    @Override
-    protected void addTessellatedPosition(Position pos, Color color, Integer ordinal, PathData pathData)
-    {
-        if (ordinal != null)
-        {
-            // NOTE: Assign these indices before adding the new position to the tessellatedPositions list.
-            MultiResolutionPathData mrpd = (MultiResolutionPathData) pathData;
-            mrpd.positionOrdinals.put(ordinal);
-        }
-
-        super.addTessellatedPosition(pos, color, ordinal, pathData);
-    }
-
-    /**
-     * {@inheritDoc}
-     * <p>
-     * Overridden to use the MultiResolutionPathData's positionOrdinals buffer to map the specified position index to
-     * its corresponding ordinal number.
-     */
-    @Override
-    protected Integer getOrdinal(int positionIndex)
-    {
-        MultiResolutionPathData mrpd = (MultiResolutionPathData) this.getCurrentPathData();
-        return mrpd.positionOrdinals.get(positionIndex);
-    }
 }
@@ -0,0 +1,401 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.terrain.SectorGeometryList;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * The queue of ordered renderables used by {@link DrawContextImpl}. Ordered renderables are removed from the queue
+ * farthest first. Those at the same distance are removed in the order they were added.
+ * <p>
+ * The queue holds its entries in arrays that are reused from frame to frame, and sorts them once, when the first entry
+ * is retrieved, rather than maintaining a heap as entries are added. The sort takes advantage of frame coherence: when
+ * the same number of entries are added as when the queue was last sorted, which is the case when the same shapes are
+ * drawn in consecutive frames or in the pick and render passes of one frame, the previous order is used as the starting
+ * point of an insertion sort. The insertion sort completes in close to linear time when the order has changed little,
+ * and is abandoned for a radix sort when it has changed a lot.
+ * <p>
+ * Entries may be added after entries have been retrieved. They're merged into the remaining entries when the next
+ * entry is retrieved.
+ * <p>
+ * This class is not thread safe.
+ */
+public class OrderedRenderableQueue
+{
+    /** Ranges smaller than this are always sorted by insertion sort. */
+    protected static final int MIN_RADIX_SORT_SIZE = 64;
+    /** The number of bits sorted in each pass of the radix sort. */
+    protected static final int RADIX_BITS = 11;
+
+    protected OrderedRenderable[] renderables = new OrderedRenderable[100];
+    /** Sort keys, which order the entries farthest first when compared as unsigned values. */
+    protected long[] keys = new long[100];
+    protected int[] globeOffsets = new int[100];
+    protected SectorGeometryList[] surfaceGeometries = new SectorGeometryList[100];
+    /** Entry indices in the order they're retrieved, from position <code>head</code>. */
+    protected int[] order = new int[100];
+    protected int[] scratch = new int[100];
+    protected final int[] radixCounts = new int[1 << RADIX_BITS];
+
+    /** The number of entries added since the queue was last empty. */
+    protected int count;
+    /** The number of entries in the queue. */
+    protected int size;
+    /** The position in <code>order</code> of the next entry to retrieve. */
+    protected int head;
+    /** The number of positions in <code>order</code> that are sorted. Entries beyond this have not been sorted. */
+    protected int sortedCount;
+
+    /** The order of the entries the last time the queue was sorted from scratch. */
+    protected int[] previousOrder = new int[0];
+    protected int previousCount = -1;
+
+    /**
+     * Returns the number of ordered renderables in the queue.
+     *
+     * @return the number of ordered renderables.
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.size == 0;
+    }
+
+    /**
+     * Adds an ordered renderable to the queue.
+     *
+     * @param orderedRenderable the ordered renderable.
+     * @param distanceFromEye   the distance used to order the ordered renderable.
+     * @param globeOffset       the offset of a continuous 2D globe when the ordered renderable was added.
+     * @param surfaceGeometry   the surface geometry of a continuous 2D globe when the ordered renderable was added. May
+     *                          be null.
+     */
+    public void add(OrderedRenderable orderedRenderable, double distanceFromEye, int globeOffset,
+        SectorGeometryList surfaceGeometry)
+    {
+        // Start again from the beginning of the arrays once all entries have been retrieved.
+        if (this.size == 0 && this.count > 0)
+            this.clear();
+
+        if (this.count == this.renderables.length)
+            this.grow();
+
+        int index = this.count++;
+        this.renderables[index] = orderedRenderable;
+        this.keys[index] = makeKey(distanceFromEye);
+        this.globeOffsets[index] = globeOffset;
+        this.surfaceGeometries[index] = surfaceGeometry;
+        this.order[index] = index;
+        this.size++;
+    }
+
+    /**
+     * Returns the index of the next entry to retrieve, without removing the entry from the queue. The index identifies
+     * the entry to {@link #getRenderable(int)}, {@link #getGlobeOffset(int)} and {@link #getSurfaceGeometry(int)} until
+     * the entry is removed.
+     *
+     * @return the index of the next entry, or -1 if the queue is empty.
+     */
+    public int peekIndex()
+    {
+        if (this.size == 0)
+            return -1;
+
+        this.sort();
+
+        // Skip the entries removed by removeFrontToBack.
+        while (this.renderables[this.order[this.head]] == null)
+        {
+            this.head++;
+        }
+
+        return this.order[this.head];
+    }
+
+    /**
+     * Returns the next ordered renderable, without removing it from the queue.
+     *
+     * @return the next ordered renderable, or null if the queue is empty.
+     */
+    public OrderedRenderable peek()
+    {
+        int index = this.peekIndex();
+        return index >= 0 ? this.renderables[index] : null;
+    }
+
+    /**
+     * Removes the next ordered renderable from the queue.
+     *
+     * @return the ordered renderable removed, or null if the queue is empty.
+     */
+    public OrderedRenderable poll()
+    {
+        int index = this.peekIndex();
+        if (index < 0)
+            return null;
+
+        OrderedRenderable or = this.renderables[index];
+        this.renderables[index] = null;
+        this.surfaceGeometries[index] = null;
+        this.head++;
+        this.size--;
+
+        return or;
+    }
+
+    public OrderedRenderable getRenderable(int index)
+    {
+        return this.renderables[index];
+    }
+
+    public int getGlobeOffset(int index)
+    {
+        return this.globeOffsets[index];
+    }
+
+    public SectorGeometryList getSurfaceGeometry(int index)
+    {
+        return this.surfaceGeometries[index];
+    }
+
+    /**
+     * Removes the ordered renderables that satisfy a condition, and returns them nearest first. Those at the same
+     * distance are returned in the order they were added.
+     *
+     * @param filter the condition.
+     *
+     * @return the ordered renderables removed.
+     */
+    public List<OrderedRenderable> removeFrontToBack(Predicate<OrderedRenderable> filter)
+    {
+        List<OrderedRenderable> removed = new ArrayList<OrderedRenderable>();
+        if (this.size == 0)
+            return removed;
+
+        this.sort();
+
+        // Visit runs of entries at the same distance from nearest to farthest. Within each run, entries are in the
+        // order they were added.
+        int end = this.count;
+        while (end > this.head)
+        {
+            long key = this.keys[this.order[end - 1]];
+            int start = end - 1;
+            while (start > this.head && this.keys[this.order[start - 1]] == key)
+            {
+                start--;
+            }
+
+            for (int i = start; i < end; i++)
+            {
+                int index = this.order[i];
+                OrderedRenderable or = this.renderables[index];
+                if (or != null && filter.test(or))
+                {
+                    removed.add(or);
+                    this.renderables[index] = null;
+                    this.surfaceGeometries[index] = null;
+                    this.size--;
+                }
+            }
+
+            end = start;
+        }
+
+        return removed;
+    }
+
+    /** Removes all ordered renderables from the queue. */
+    public void clear()
+    {
+        Arrays.fill(this.renderables, 0, this.count, null);
+        Arrays.fill(this.surfaceGeometries, 0, this.count, null);
+        this.count = 0;
+        this.size = 0;
+        this.head = 0;
+        this.sortedCount = 0;
+    }
+
+    protected void grow()
+    {
+        int capacity = this.renderables.length + (this.renderables.length >> 1) + 1;
+        this.renderables = Arrays.copyOf(this.renderables, capacity);
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.globeOffsets = Arrays.copyOf(this.globeOffsets, capacity);
+        this.surfaceGeometries = Arrays.copyOf(this.surfaceGeometries, capacity);
+        this.order = Arrays.copyOf(this.order, capacity);
+        this.scratch = new int[capacity];
+    }
+
+    /**
+     * Computes the sort key of a distance. Keys compared as unsigned values order distances from largest to smallest,
+     * with NaN before all other distances.
+     *
+     * @param distance the distance.
+     *
+     * @return the distance's sort key.
+     */
+    protected static long makeKey(double distance)
+    {
+        long bits = Double.doubleToLongBits(distance);
+        return ~(bits ^ ((bits >> 63) | Long.MIN_VALUE));
+    }
+
+    //**************************************************************//
+    //********************  Sorting  *******************************//
+    //**************************************************************//
+
+    /** Sorts the entries that have not been retrieved, if entries have been added since they were last sorted. */
+    protected void sort()
+    {
+        if (this.sortedCount == this.count)
+            return;
+
+        if (this.sortedCount == 0)
+        {
+            // The first sort since the queue was last empty. Start from the previous order if it's for the same number
+            // of entries, since it's likely the same entries were added with similar distances.
+            if (this.previousCount != this.count || !this.insertionSort(this.previousOrder, 0, this.count))
+            {
+                for (int i = 0; i < this.count; i++)
+                {
+                    this.order[i] = i;
+                }
+
+                this.sortRange(0, this.count);
+            }
+
+            if (this.previousOrder.length < this.count)
+                this.previousOrder = new int[this.renderables.length];
+            System.arraycopy(this.order, 0, this.previousOrder, 0, this.count);
+            this.previousCount = this.count;
+        }
+        else
+        {
+            // Merge the entries added since the last sort into the remaining sorted entries. The remaining entries are
+            // sorted, so an insertion sort is fast when few entries have been added.
+            if (!this.insertionSort(null, this.head, this.count))
+            {
+                Arrays.sort(this.order, this.head, this.count); // the radix sort relies on insertion order for ties
+                this.sortRange(this.head, this.count);
+            }
+        }
+
+        this.sortedCount = this.count;
+    }
+
+    /**
+     * Sorts a range of the order by insertion sort, giving up if the entries are far from sorted.
+     *
+     * @param initialOrder the order to start from, or null to start from the current order.
+     * @param from         the first position of the range.
+     * @param to           the position following the range.
+     *
+     * @return true if the range was sorted, false if the sort was abandoned. The range is a permutation of its original
+     *         entries in either case.
+     */
+    protected boolean insertionSort(int[] initialOrder, int from, int to)
+    {
+        if (initialOrder != null)
+            System.arraycopy(initialOrder, from, this.order, from, to - from);
+
+        int[] order = this.order;
+        long[] keys = this.keys;
+        long moveBudget = to - from < MIN_RADIX_SORT_SIZE ? Long.MAX_VALUE : 4L * (to - from);
+
+        for (int i = from + 1; i < to; i++)
+        {
+            int index = order[i];
+            long key = keys[index];
+            int j = i - 1;
+            while (j >= from && compare(keys[order[j]], order[j], key, index) > 0)
+            {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+
+            moveBudget -= i - 1 - j;
+            if (moveBudget < 0)
+                return false;
+        }
+
+        return true;
+    }
+
+    protected static int compare(long keyA, int indexA, long keyB, int indexB)
+    {
+        int c = Long.compareUnsigned(keyA, keyB);
+        return c != 0 ? c : Integer.compare(indexA, indexB);
+    }
+
+    /**
+     * Sorts a range of the order by key. Entries with equal keys keep their relative order.
+     *
+     * @param from the first position of the range.
+     * @param to   the position following the range.
+     */
+    protected void sortRange(int from, int to)
+    {
+        int n = to - from;
+        if (n < MIN_RADIX_SORT_SIZE)
+        {
+            this.insertionSort(null, from, to);
+            return;
+        }
+
+        // Least significant digit radix sort, which is stable.
+        int[] src = this.order;
+        int[] dst = this.scratch;
+        int srcOffset = from;
+        int dstOffset = 0;
+        int[] counts = this.radixCounts;
+        int mask = (1 << RADIX_BITS) - 1;
+
+        for (int shift = 0; shift < 64; shift += RADIX_BITS)
+        {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++)
+            {
+                counts[(int) (this.keys[src[srcOffset + i]] >>> shift) & mask]++;
+            }
+
+            // Skip digits that are the same for all entries, such as the exponent bits of similar distances.
+            if (counts[(int) (this.keys[src[srcOffset]] >>> shift) & mask] == n)
+                continue;
+
+            for (int d = 0, total = 0; d < counts.length; d++)
+            {
+                int c = counts[d];
+                counts[d] = total;
+                total += c;
+            }
+
+            for (int i = 0; i < n; i++)
+            {
+                int index = src[srcOffset + i];
+                dst[dstOffset + counts[(int) (this.keys[index] >>> shift) & mask]++] = index;
+            }
+
+            int[] tmp = src;
+            src = dst;
+            dst = tmp;
+            int tmpOffset = srcOffset;
+            srcOffset = dstOffset;
+            dstOffset = tmpOffset;
+        }
+
+        if (src != this.order)
+            System.arraycopy(src, srcOffset, this.order, from, n);
+    }
+}
@@ -202,6 +202,16 @@ public class Path extends AbstractShape {
          * Indicates the number of vertices represented by <code>renderedPath</code>.
          */
         protected int vertexCount;
+        /**
+         * The index used to select the positions that were tessellated, or <code>null</code> if all of the path's
+         * positions were tessellated.
+         */
+        protected ProgressivePolylineIndex<Position> positionIndex;
+        /**
+         * Maps indices of rendered positions to their ordinal numbers, or <code>null</code> if the rendered positions
+         * are all of the path's positions, in order.
+         */
+        protected IntBuffer positionOrdinals;
 
         public PathData(DrawContext dc, Path shape) {
             super(dc, shape.minExpiryTime, shape.maxExpiryTime);
@@ -286,6 +296,25 @@ public class Path extends AbstractShape {
             this.polePositions = polePositions;
         }
 
+        /**
+         * Returns a buffer mapping indices of rendered positions to their corresponding ordinal numbers.
+         *
+         * @return a buffer mapping positions to ordinal numbers, or <code>null</code> if the rendered positions are all
+         * of the path's positions, in order.
+         */
+        public IntBuffer getPositionOrdinals() {
+            return this.positionOrdinals;
+        }
+
+        /**
+         * Specifies a buffer that maps indices of rendered positions to their corresponding ordinal numbers.
+         *
+         * @param posOrdinals a buffer that maps positions to ordinal numbers.
+         */
+        public void setPositionOrdinals(IntBuffer posOrdinals) {
+            this.positionOrdinals = posOrdinals;
+        }
+
         /**
          * Indicates whether this path is extruded and the extrusion points have been computed.
          *
@@ -662,6 +691,9 @@ public class Path extends AbstractShape {
     protected double showPositionsScale = DEFAULT_DRAW_POSITIONS_SCALE;
     protected boolean positionsSpanDateline;
     protected LengthMeasurer measurer = new LengthMeasurer();
+    protected boolean simplifyPositions;
+    protected final ProgressivePolylineIndexBuilder<Position> positionIndexBuilder
+            = new ProgressivePolylineIndexBuilder<Position>(this);
 
     /**
      * Creates a path with no positions.
@@ -689,6 +721,7 @@ public class Path extends AbstractShape {
         this.showPositions = source.showPositions;
         this.showPositionsThreshold = source.showPositionsThreshold;
         this.showPositionsScale = source.showPositionsScale;
+        this.simplifyPositions = source.simplifyPositions;
         this.measurer.setFollowTerrain(this.followTerrain);
         this.measurer.setPathType(this.pathType);
     }
@@ -824,6 +857,8 @@ public class Path extends AbstractShape {
         }
 
         this.positions = positions;
+        this.positionIndexBuilder.clear();
+
         this.computePositionCount();
         this.positionsSpanDateline = LatLon.locationsCrossDateLine(this.positions);
         this.measurer.setPositions(this.positions);
@@ -1120,6 +1155,34 @@ public class Path extends AbstractShape {
         this.showPositionsThreshold = showPositionsThreshold;
     }
 
+    /**
+     * Indicates whether this path draws a view-dependent simplification of its positions. See {@link
+     * #setSimplifyPositions(boolean)}.
+     *
+     * @return true if this path's positions are simplified, otherwise false.
+     */
+    public boolean isSimplifyPositions() {
+        return this.simplifyPositions;
+    }
+
+    /**
+     * Specifies whether this path draws a view-dependent simplification of its positions. This is intended for paths
+     * with a very large number of positions, such as vehicle tracks. When enabled, this path builds a {@link
+     * ProgressivePolylineIndex} of its positions on a background thread, drawing all of its positions until the index
+     * is available. Thereafter it draws only the positions that are visually distinct at the current eye distance, and
+     * when the path is on the terrain, omits the positions outside the visible sector. The time to compute the path's
+     * geometry is then proportional to the number of positions drawn rather than the number specified. Picked
+     * position ordinals and position colors continue to refer to the specified positions. The default is false.
+     *
+     * @param simplifyPositions true to simplify this path's positions, otherwise false.
+     */
+    public void setSimplifyPositions(boolean simplifyPositions) {
+        this.simplifyPositions = simplifyPositions;
+        this.positionIndexBuilder.clear();
+
+        this.reset();
+    }
+
     @Override
     public Sector getSector() {
         if (this.sector == null && this.positions != null) {
@@ -1158,6 +1221,10 @@ public class Path extends AbstractShape {
             return true;
         }
 
+        if (this.getCurrentPathData().positionIndex != this.requestPositionIndex()) {
+            return true;
+        }
+
         return super.mustRegenerateGeometry(dc);
     }
 
@@ -1942,12 +2009,26 @@ public class Path extends AbstractShape {
             pathData.positionPoints.clear();
         }
 
+        pathData.positionIndex = this.requestPositionIndex();
+
+        if (!this.mustMapPositionOrdinals(pathData)) {
+            pathData.positionOrdinals = null;
+        } else if (pathData.positionOrdinals == null || pathData.positionOrdinals.capacity() < this.numPositions) {
+            pathData.positionOrdinals = Buffers.newDirectIntBuffer(this.numPositions);
+        } else {
+            pathData.positionOrdinals.clear();
+        }
+
         this.makePositions(dc, pathData);
 
         pathData.tessellatedPositions.trimToSize();
         pathData.polePositions.flip();
         pathData.positionPoints.flip();
 
+        if (pathData.positionOrdinals != null) {
+            pathData.positionOrdinals.flip();
+        }
+
         if (pathData.tessellatedColors != null) {
             pathData.tessellatedColors.trimToSize();
         }
@@ -1974,7 +2055,16 @@ public class Path extends AbstractShape {
             pathData.splitPositions.clear();
         }
 
-        Iterator<? extends Position> iter = this.positions.iterator();
+        // Visit either all of the positions, or the subset selected for the current view and their ordinals.
+        IntBuffer ordinals = null;
+        Iterator<? extends Position> iter;
+        if (pathData.positionIndex != null) {
+            ordinals = this.selectPositions(dc, pathData);
+            iter = pathData.positionIndex.getLocations(ordinals).iterator();
+        } else {
+            iter = this.positions.iterator();
+        }
+
         Position posA = iter.next();
         int ordinalA = 0;
         Color colorA = this.getColor(posA, ordinalA);
@@ -1984,9 +2074,9 @@ public class Path extends AbstractShape {
         // Tessellate each segment of the path.
         Vec4 ptA = this.computePoint(dc.getTerrain(), posA);
 
-        while (iter.hasNext()) {
+        for (int i = 1; iter.hasNext(); i++) {
             Position posB = iter.next();
-            int ordinalB = ordinalA + 1;
+            int ordinalB = (ordinals != null) ? ordinals.get(i) : ordinalA + 1;
             Color colorB = this.getColor(posB, ordinalB);
             Vec4 ptB = this.computePoint(dc.getTerrain(), posB);
 
@@ -2048,6 +2138,53 @@ public class Path extends AbstractShape {
         }
     }
 
+    /**
+     * Selects the positions to draw from the path data's position index. This selects the positions that are visually
+     * distinct at this path's distance from the eye. When this path is on the terrain, this also omits positions that
+     * are outside the visible sector.
+     *
+     * @param dc the current draw context.
+     * @param pathData the current globe-specific path data.
+     *
+     * @return the ordinals of the selected positions, in increasing order.
+     */
+    protected IntBuffer selectPositions(DrawContext dc, PathData pathData) {
+        // Select the positions whose effective area is at least one square pixel. The index measures area in square
+        // degrees, so convert the pixel size from meters to degrees.
+        double pixelSize = dc.getView().computePixelSizeAtDistance(this.getDistanceMetric(dc, pathData));
+        double pixelDegrees = Math.toDegrees(pixelSize / dc.getGlobe().getRadius());
+        Sector region = this.isSurfacePath(dc) ? dc.getVisibleSector() : null;
+
+        return pathData.positionIndex.selectLocations(pixelDegrees * pixelDegrees, region, null);
+    }
+
+    /**
+     * Indicates whether the path data must map rendered positions to ordinal numbers. This is necessary when some of
+     * this path's positions are not drawn.
+     *
+     * @param pathData the current globe-specific path data.
+     *
+     * @return true if the path data must map rendered positions to ordinal numbers, otherwise false.
+     */
+    protected boolean mustMapPositionOrdinals(PathData pathData) {
+        return pathData.positionIndex != null;
+    }
+
+    /**
+     * Returns the simplification index of this path's positions, if this path simplifies its positions and the index
+     * has been built. If the index has not been built, this requests that it be built on a background thread.
+     *
+     * @return this path's position index, or <code>null</code> if this path does not simplify its positions or the
+     * index is not yet available.
+     */
+    protected ProgressivePolylineIndex<Position> requestPositionIndex() {
+        if (!this.simplifyPositions || this.numPositions < 3) {
+            return null;
+        }
+
+        return this.positionIndexBuilder.requestIndex(this.positions);
+    }
+
     /**
      * Adds a position to this path's <code>tessellatedPositions</code> list. If the specified color is not
      * <code>null</code>, this adds the color to this path's <code>tessellatedColors</code> list. If the specified
@@ -2072,6 +2209,10 @@ public class Path extends AbstractShape {
             } else {
                 pathData.positionPoints.put(pathData.tessellatedPositions.size());
             }
+
+            if (pathData.positionOrdinals != null) {
+                pathData.positionOrdinals.put(ordinal);
+            }
         }
 
         pathData.tessellatedPositions.add(pos); // be sure to do the add after the pole position is set
@@ -2131,7 +2272,9 @@ public class Path extends AbstractShape {
      * @return the ordinal number corresponding to the specified position index.
      */
     protected Integer getOrdinal(int positionIndex) {
-        return positionIndex;
+        PathData pathData = this.getCurrentPathData();
+        return (pathData != null && pathData.positionOrdinals != null)
+                ? pathData.positionOrdinals.get(positionIndex) : positionIndex;
     }
 
     /**
@@ -0,0 +1,1118 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.render;
+
+import com.jogamp.common.nio.Buffers;
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.layers.Layer;
+import gov.nasa.worldwind.pick.*;
+import gov.nasa.worldwind.util.*;
+
+import com.jogamp.opengl.*;
+import com.jogamp.opengl.util.texture.TextureCoords;
+import java.awt.*;
+import java.nio.FloatBuffer;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Draws a large number of point placemarks as one shape. Each point has a position, an index into the collection's list
+ * of {@link PointPlacemarkAttributes}, an optional label and a label offset. The points are held in arrays of
+ * primitives rather than as individual objects, and are drawn without the per-placemark overhead of {@link
+ * PointPlacemark}:
+ * <ul> <li>The points' model coordinates are computed into one array, and projected to the screen and culled against
+ * the view in one pass over that array.</li> <li>The icons of all attributes are packed into texture atlases, and all
+ * visible icons in an atlas are drawn with one call to OpenGL.</li> <li>The collection is added to the ordered
+ * renderable list once, rather than once per point.</li> </ul>
+ * <p>
+ * The projection and culling stage, {@link #project(Matrix, Matrix, java.awt.Rectangle, double, double)}, does not
+ * require OpenGL.
+ * <p>
+ * Point attributes are interpreted as they are by <code>PointPlacemark</code>, with these exceptions: icon heading and
+ * pitch are ignored, lines to the terrain are not drawn, an icon is not drawn until its image is available, and labels
+ * are not pickable. A picked point is identified by its index, which is the value of the picked object's {@link
+ * AVKey#PICKED_OBJECT_ID}.
+ */
+public class PointPlacemarkCollection extends WWObjectImpl implements Renderable
+{
+    /** The initial dimensions of a texture atlas page. */
+    protected static final int ATLAS_INITIAL_SIZE = 128;
+    /** The maximum dimensions of a texture atlas page. */
+    protected static final int ATLAS_MAX_SIZE = 2048;
+    /** The number of floats per icon vertex: x, y, z, s, t, r, g, b, a. */
+    protected static final int VERTEX_SIZE = 9;
+    /** The amount icons are moved toward the eye in window depth coordinates, matching PointPlacemark. */
+    protected static final double DEPTH_OFFSET = 8d * 0.00048875809d;
+
+    protected static final PointPlacemarkAttributes defaultAttributes = new PointPlacemarkAttributes();
+
+    static
+    {
+        defaultAttributes.setImageAddress(PointPlacemarkAttributes.DEFAULT_IMAGE_PATH);
+        defaultAttributes.setImageOffset(PointPlacemarkAttributes.DEFAULT_IMAGE_OFFSET);
+        defaultAttributes.setLabelOffset(PointPlacemarkAttributes.DEFAULT_LABEL_OFFSET);
+        defaultAttributes.setScale(PointPlacemarkAttributes.DEFAULT_IMAGE_SCALE);
+        defaultAttributes.setLabelScale(PointPlacemarkAttributes.DEFAULT_LABEL_SCALE);
+    }
+
+    /** The screen layout of the points using one of the collection's attributes, determined each frame. */
+    protected static class Style
+    {
+        protected IconElement icon;
+        /** The atlas page holding the icon, or null if the icon is not drawn. */
+        protected TextureAtlas page;
+        protected float s0, t0, s1, t1;
+        /** The icon's offset from the screen point, and its scaled size. */
+        protected double dx, dy, width, height;
+        protected float[] color = new float[4];
+        protected double labelDx, labelDy;
+        protected Font labelFont;
+        protected Color labelColor;
+        protected double labelScale;
+        protected boolean drawLabel;
+    }
+
+    /** A texture atlas element that moves to a new atlas page when its page is full. */
+    protected class IconElement extends TextureAtlasElement
+    {
+        public IconElement(TextureAtlas atlas, Object imageSource)
+        {
+            super(atlas, imageSource);
+        }
+
+        @Override
+        protected boolean addAtlasImage()
+        {
+            if (this.getImage() != null && !this.getTextureAtlas().isEmpty())
+            {
+                try
+                {
+                    this.getTextureAtlas().add(this.getImageSource(), this.getImage());
+                    this.setImage(null);
+                    return true;
+                }
+                catch (WWRuntimeException e)
+                {
+                    // The page is full. Start a new page.
+                    this.atlas = addAtlasPage();
+                }
+            }
+
+            return super.addAtlasImage();
+        }
+    }
+
+    protected class OrderedCollection implements OrderedRenderable
+    {
+        protected final double eyeDistance;
+
+        public OrderedCollection(double eyeDistance)
+        {
+            this.eyeDistance = eyeDistance;
+        }
+
+        public double getDistanceFromEye()
+        {
+            return this.eyeDistance;
+        }
+
+        public void pick(DrawContext dc, Point pickPoint)
+        {
+            PointPlacemarkCollection.this.pickOrderedRenderable(dc);
+        }
+
+        public void render(DrawContext dc)
+        {
+            PointPlacemarkCollection.this.drawOrderedRenderable(dc);
+        }
+    }
+
+    // Point state, in structure-of-arrays form.
+    protected int size;
+    protected double[] latitudes = new double[0];
+    protected double[] longitudes = new double[0];
+    protected double[] altitudes = new double[0];
+    protected int[] attributeIndices = new int[0];
+    /** Pairs of x and y label offsets, in pixels. */
+    protected float[] labelOffsets = new float[0];
+    protected String[] labels = new String[0];
+    /** Incremented when a point's position changes, to invalidate the model coordinate points. */
+    protected long positionsVersion;
+
+    protected List<PointPlacemarkAttributes> attributes = new ArrayList<PointPlacemarkAttributes>();
+    protected int altitudeMode = WorldWind.CLAMP_TO_GROUND;
+    protected boolean visible = true;
+    protected boolean applyVerticalExaggeration = true;
+    protected boolean clipToHorizon = true;
+    protected Object delegateOwner;
+
+    // Frame state.
+    /** Triples of x, y and z model coordinates. A point's coordinates are NaN if its position has no model point. */
+    protected double[] modelPoints = new double[0];
+    protected int modelPointsCount;
+    protected Object modelPointsGlobeStateKey;
+    protected double modelPointsVerticalExaggeration;
+    protected long modelPointsVersion = -1;
+    protected long modelPointsFrame = -1;
+    /** Triples of x and y screen coordinates and window depth. */
+    protected double[] screenPoints = new double[0];
+    /** The squared distance of each point from the eye. */
+    protected double[] eyeDistancesSquared = new double[0];
+    /** The indices of the points that passed the culling stage, in ascending order. */
+    protected int[] visibleIndices = new int[0];
+    protected int visibleCount;
+    protected double nearestEyeDistance;
+    protected long projectionFrame = -1;
+
+    protected List<TextureAtlas> atlasPages = new ArrayList<TextureAtlas>();
+    protected Map<Object, IconElement> icons = new HashMap<Object, IconElement>();
+    protected Style[] styles = new Style[0];
+    protected FloatBuffer vertexBuffer;
+    protected PickSupport pickSupport = new PickSupport();
+    protected Layer pickLayer;
+
+    /** Creates an empty collection. */
+    public PointPlacemarkCollection()
+    {
+    }
+
+    /**
+     * Returns the number of points in the collection.
+     *
+     * @return the number of points.
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /** Removes all points from the collection. The collection's attributes are retained. */
+    public void clear()
+    {
+        Arrays.fill(this.labels, 0, this.size, null);
+        this.size = 0;
+        this.visibleCount = 0;
+        this.positionsVersion++;
+    }
+
+    /**
+     * Adds a point to the collection.
+     *
+     * @param position       the point's position.
+     * @param attributeIndex the index of the point's attributes in the collection's attributes. If the collection has
+     *                       no attributes at the index when the point is drawn, default attributes are used.
+     * @param label          the point's label. May be null.
+     *
+     * @return the index of the point.
+     *
+     * @throws IllegalArgumentException if the position is null or the attribute index is negative.
+     */
+    public int addPoint(Position position, int attributeIndex, String label)
+    {
+        if (position == null)
+        {
+            String message = Logging.getMessage("nullValue.PositionIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (attributeIndex < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "attributeIndex < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.size == this.latitudes.length)
+            this.grow();
+
+        int index = this.size++;
+        this.latitudes[index] = position.getLatitude().degrees;
+        this.longitudes[index] = position.getLongitude().degrees;
+        this.altitudes[index] = position.getAltitude();
+        this.attributeIndices[index] = attributeIndex;
+        this.labelOffsets[2 * index] = 0;
+        this.labelOffsets[2 * index + 1] = 0;
+        this.labels[index] = label;
+        this.positionsVersion++;
+
+        return index;
+    }
+
+    protected void grow()
+    {
+        int capacity = this.latitudes.length + (this.latitudes.length >> 1) + 16;
+        this.latitudes = Arrays.copyOf(this.latitudes, capacity);
+        this.longitudes = Arrays.copyOf(this.longitudes, capacity);
+        this.altitudes = Arrays.copyOf(this.altitudes, capacity);
+        this.attributeIndices = Arrays.copyOf(this.attributeIndices, capacity);
+        this.labelOffsets = Arrays.copyOf(this.labelOffsets, 2 * capacity);
+        this.labels = Arrays.copyOf(this.labels, capacity);
+    }
+
+    protected void checkIndex(int index)
+    {
+        if (index < 0 || index >= this.size)
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", index);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    public Position getPosition(int index)
+    {
+        this.checkIndex(index);
+
+        return Position.fromDegrees(this.latitudes[index], this.longitudes[index], this.altitudes[index]);
+    }
+
+    public void setPosition(int index, Position position)
+    {
+        this.checkIndex(index);
+
+        if (position == null)
+        {
+            String message = Logging.getMessage("nullValue.PositionIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.latitudes[index] = position.getLatitude().degrees;
+        this.longitudes[index] = position.getLongitude().degrees;
+        this.altitudes[index] = position.getAltitude();
+        this.positionsVersion++;
+    }
+
+    public int getAttributeIndex(int index)
+    {
+        this.checkIndex(index);
+
+        return this.attributeIndices[index];
+    }
+
+    public void setAttributeIndex(int index, int attributeIndex)
+    {
+        this.checkIndex(index);
+
+        if (attributeIndex < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "attributeIndex < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.attributeIndices[index] = attributeIndex;
+    }
+
+    public String getLabel(int index)
+    {
+        this.checkIndex(index);
+
+        return this.labels[index];
+    }
+
+    public void setLabel(int index, String label)
+    {
+        this.checkIndex(index);
+
+        this.labels[index] = label;
+    }
+
+    /**
+     * Returns a point's label offset, which is added to the label location specified by the point's attributes.
+     *
+     * @param index the index of the point.
+     *
+     * @return the point's label offset, in pixels.
+     */
+    public Point.Double getLabelOffset(int index)
+    {
+        this.checkIndex(index);
+
+        return new Point.Double(this.labelOffsets[2 * index], this.labelOffsets[2 * index + 1]);
+    }
+
+    /**
+     * Specifies a point's label offset, which is added to the label location specified by the point's attributes.
+     *
+     * @param index the index of the point.
+     * @param x     the horizontal offset, in pixels.
+     * @param y     the vertical offset, in pixels.
+     */
+    public void setLabelOffset(int index, double x, double y)
+    {
+        this.checkIndex(index);
+
+        this.labelOffsets[2 * index] = (float) x;
+        this.labelOffsets[2 * index + 1] = (float) y;
+    }
+
+    /**
+     * Returns the collection's attributes. Points refer to attributes by their index in this list. The list may be
+     * modified.
+     *
+     * @return the collection's attributes.
+     */
+    public List<PointPlacemarkAttributes> getAttributes()
+    {
+        return this.attributes;
+    }
+
+    /**
+     * Adds attributes to the collection.
+     *
+     * @param attrs the attributes.
+     *
+     * @return the index of the attributes, by which points refer to them.
+     *
+     * @throws IllegalArgumentException if the attributes are null.
+     */
+    public int addAttributes(PointPlacemarkAttributes attrs)
+    {
+        if (attrs == null)
+        {
+            String message = Logging.getMessage("nullValue.AttributesIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.attributes.add(attrs);
+
+        return this.attributes.size() - 1;
+    }
+
+    public boolean isVisible()
+    {
+        return this.visible;
+    }
+
+    public void setVisible(boolean visible)
+    {
+        this.visible = visible;
+    }
+
+    public int getAltitudeMode()
+    {
+        return this.altitudeMode;
+    }
+
+    /**
+     * Specifies how the altitudes of the points are interpreted: {@link WorldWind#CLAMP_TO_GROUND}, {@link
+     * WorldWind#RELATIVE_TO_GROUND} or {@link WorldWind#ABSOLUTE}.
+     *
+     * @param altitudeMode the altitude mode.
+     */
+    public void setAltitudeMode(int altitudeMode)
+    {
+        this.altitudeMode = altitudeMode;
+    }
+
+    public boolean isApplyVerticalExaggeration()
+    {
+        return this.applyVerticalExaggeration;
+    }
+
+    public void setApplyVerticalExaggeration(boolean applyVerticalExaggeration)
+    {
+        this.applyVerticalExaggeration = applyVerticalExaggeration;
+    }
+
+    public boolean isClipToHorizon()
+    {
+        return this.clipToHorizon;
+    }
+
+    public void setClipToHorizon(boolean clipToHorizon)
+    {
+        this.clipToHorizon = clipToHorizon;
+    }
+
+    public Object getDelegateOwner()
+    {
+        return this.delegateOwner;
+    }
+
+    /**
+     * Specifies the object returned as the picked object when a point is picked, in place of this collection.
+     *
+     * @param owner the delegate owner. May be null.
+     */
+    public void setDelegateOwner(Object owner)
+    {
+        this.delegateOwner = owner;
+    }
+
+    //**************************************************************//
+    //********************  Projection and Culling  ****************//
+    //**************************************************************//
+
+    /**
+     * Computes the model coordinate points of the collection's positions on a globe, treating the positions' altitudes
+     * as absolute.
+     *
+     * @param globe                the globe.
+     * @param verticalExaggeration the factor applied to the altitudes.
+     *
+     * @throws IllegalArgumentException if the globe is null.
+     */
+    public void computeModelPoints(Globe globe, double verticalExaggeration)
+    {
+        if (globe == null)
+        {
+            String message = Logging.getMessage("nullValue.GlobeIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.ensureFrameCapacity();
+
+        double[] points = this.modelPoints;
+        for (int i = 0; i < this.size; i++)
+        {
+            Vec4 point = globe.computePointFromPosition(Angle.fromDegrees(this.latitudes[i]),
+                Angle.fromDegrees(this.longitudes[i]), this.altitudes[i] * verticalExaggeration);
+            points[3 * i] = point.x;
+            points[3 * i + 1] = point.y;
+            points[3 * i + 2] = point.z;
+        }
+
+        this.modelPointsCount = this.size;
+    }
+
+    /**
+     * Computes the model coordinate points of the collection's positions for the current frame, applying the
+     * collection's altitude mode. Absolute points are computed again only when the globe, the vertical exaggeration or
+     * the positions change. Points relative to the terrain are computed each frame.
+     *
+     * @param dc the current draw context.
+     */
+    protected void computeModelPoints(DrawContext dc)
+    {
+        if (this.modelPointsFrame == dc.getFrameTimeStamp() && !dc.isContinuous2DGlobe())
+            return;
+
+        this.modelPointsFrame = dc.getFrameTimeStamp();
+
+        if (this.altitudeMode == WorldWind.ABSOLUTE && !dc.is2DGlobe())
+        {
+            Object globeStateKey = dc.getGlobe().getGlobeStateKey(dc);
+            double ve = this.isApplyVerticalExaggeration() ? dc.getVerticalExaggeration() : 1;
+            if (this.modelPointsVersion == this.positionsVersion && this.modelPointsCount == this.size
+                && ve == this.modelPointsVerticalExaggeration && globeStateKey.equals(this.modelPointsGlobeStateKey))
+            {
+                return;
+            }
+
+            this.computeModelPoints(dc.getGlobe(), ve);
+            this.modelPointsGlobeStateKey = globeStateKey;
+            this.modelPointsVerticalExaggeration = ve;
+            this.modelPointsVersion = this.positionsVersion;
+            return;
+        }
+
+        this.ensureFrameCapacity();
+
+        boolean clamp = this.altitudeMode == WorldWind.CLAMP_TO_GROUND || dc.is2DGlobe();
+        double[] points = this.modelPoints;
+        for (int i = 0; i < this.size; i++)
+        {
+            Vec4 point = dc.computeTerrainPoint(Angle.fromDegrees(this.latitudes[i]),
+                Angle.fromDegrees(this.longitudes[i]), clamp ? 0 : this.altitudes[i]);
+            points[3 * i] = point != null ? point.x : Double.NaN;
+            points[3 * i + 1] = point != null ? point.y : Double.NaN;
+            points[3 * i + 2] = point != null ? point.z : Double.NaN;
+        }
+
+        this.modelPointsCount = this.size;
+        this.modelPointsVersion = -1; // the points depend on the terrain, so are never reused for absolute points
+    }
+
+    /**
+     * Projects the collection's model coordinate points to the screen and determines which are visible. The points are
+     * those computed by the most recent call to <code>computeModelPoints</code>. A point is visible when it's between
+     * the near and far clipping planes, within the specified distance of the eye, and within the viewport expanded by
+     * the specified margin.
+     * <p>
+     * The projection is computed in one pass over the model point array, and the culling in a second pass over the
+     * projected points. The results are available from {@link #getVisibleCount()}, {@link #getVisibleIndex(int)} and
+     * {@link #getScreenPoint(int)}.
+     *
+     * @param modelview      the modelview matrix. Must be an affine transform, as view modelview matrices are.
+     * @param projection     the projection matrix.
+     * @param viewport       the viewport.
+     * @param maxEyeDistance the greatest distance from the eye of a visible point.
+     * @param margin         the distance in pixels beyond the viewport's edges within which points are visible.
+     *
+     * @throws IllegalArgumentException if a matrix or the viewport is null.
+     */
+    public void project(Matrix modelview, Matrix projection, Rectangle viewport, double maxEyeDistance, double margin)
+    {
+        if (modelview == null || projection == null)
+        {
+            String message = Logging.getMessage("nullValue.MatrixIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (viewport == null)
+        {
+            String message = Logging.getMessage("nullValue.RectangleIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.ensureFrameCapacity();
+
+        int count = Math.min(this.size, this.modelPointsCount);
+        double[] p = this.modelPoints;
+        double[] s = this.screenPoints;
+        double[] d = this.eyeDistancesSquared;
+
+        double a11 = modelview.m11, a12 = modelview.m12, a13 = modelview.m13, a14 = modelview.m14;
+        double a21 = modelview.m21, a22 = modelview.m22, a23 = modelview.m23, a24 = modelview.m24;
+        double a31 = modelview.m31, a32 = modelview.m32, a33 = modelview.m33, a34 = modelview.m34;
+        double b11 = projection.m11, b12 = projection.m12, b13 = projection.m13, b14 = projection.m14;
+        double b21 = projection.m21, b22 = projection.m22, b23 = projection.m23, b24 = projection.m24;
+        double b31 = projection.m31, b32 = projection.m32, b33 = projection.m33, b34 = projection.m34;
+        double b41 = projection.m41, b42 = projection.m42, b43 = projection.m43, b44 = projection.m44;
+        double halfWidth = 0.5 * viewport.width;
+        double halfHeight = 0.5 * viewport.height;
+        double centerX = viewport.x + halfWidth;
+        double centerY = viewport.y + halfHeight;
+
+        // Transform the points to eye and clip coordinates, then to window coordinates as gluProject does. The loop
+        // reads and writes only primitive arrays, with no branches or allocations.
+        for (int i = 0; i < count; i++)
+        {
+            double x = p[3 * i], y = p[3 * i + 1], z = p[3 * i + 2];
+            double ex = a11 * x + a12 * y + a13 * z + a14;
+            double ey = a21 * x + a22 * y + a23 * z + a24;
+            double ez = a31 * x + a32 * y + a33 * z + a34;
+            double cx = b11 * ex + b12 * ey + b13 * ez + b14;
+            double cy = b21 * ex + b22 * ey + b23 * ez + b24;
+            double cz = b31 * ex + b32 * ey + b33 * ez + b34;
+            double cw = b41 * ex + b42 * ey + b43 * ez + b44;
+            double invW = 1 / cw;
+            s[3 * i] = centerX + halfWidth * cx * invW;
+            s[3 * i + 1] = centerY + halfHeight * cy * invW;
+            // Points behind the eye get a depth outside [0, 1], so that the culling pass rejects them.
+            s[3 * i + 2] = cw > 0 ? 0.5 * (cz * invW + 1) : -1;
+            d[i] = ex * ex + ey * ey + ez * ez;
+        }
+
+        double minX = viewport.x - margin;
+        double maxX = viewport.x + viewport.width + margin;
+        double minY = viewport.y - margin;
+        double maxY = viewport.y + viewport.height + margin;
+        double maxDistanceSquared = maxEyeDistance * maxEyeDistance;
+        double nearest = Double.MAX_VALUE;
+        int[] visible = this.visibleIndices;
+        int n = 0;
+
+        // Every comparison is false for NaN coordinates, so points without a model point are culled.
+        for (int i = 0; i < count; i++)
+        {
+            double sx = s[3 * i], sy = s[3 * i + 1], sz = s[3 * i + 2];
+            if (sz >= 0 && sz <= 1 && d[i] <= maxDistanceSquared
+                && sx >= minX && sx <= maxX && sy >= minY && sy <= maxY)
+            {
+                visible[n++] = i;
+                if (d[i] < nearest)
+                    nearest = d[i];
+            }
+        }
+
+        this.visibleCount = n;
+        this.nearestEyeDistance = n > 0 ? Math.sqrt(nearest) : 0;
+    }
+
+    protected void ensureFrameCapacity()
+    {
+        if (this.modelPoints.length < 3 * this.size)
+        {
+            int capacity = this.latitudes.length;
+            this.modelPoints = Arrays.copyOf(this.modelPoints, 3 * capacity);
+            this.screenPoints = new double[3 * capacity];
+            this.eyeDistancesSquared = new double[capacity];
+            this.visibleIndices = new int[capacity];
+            this.visibleCount = 0;
+        }
+    }
+
+    /**
+     * Returns the number of points found visible by the most recent projection.
+     *
+     * @return the number of visible points.
+     */
+    public int getVisibleCount()
+    {
+        return this.visibleCount;
+    }
+
+    /**
+     * Returns the index of a point found visible by the most recent projection. Visible points are in ascending order
+     * of index.
+     *
+     * @param i the position of the point among the visible points, from 0 to the visible count minus 1.
+     *
+     * @return the index of the point.
+     */
+    public int getVisibleIndex(int i)
+    {
+        if (i < 0 || i >= this.visibleCount)
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", i);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return this.visibleIndices[i];
+    }
+
+    /**
+     * Returns a point's screen coordinates and window depth computed by the most recent projection.
+     *
+     * @param index the index of the point.
+     *
+     * @return the point's screen point, or null if the point has not been projected.
+     */
+    public Vec4 getScreenPoint(int index)
+    {
+        this.checkIndex(index);
+
+        if (index >= this.modelPointsCount || 3 * index >= this.screenPoints.length)
+            return null;
+
+        return new Vec4(this.screenPoints[3 * index], this.screenPoints[3 * index + 1],
+            this.screenPoints[3 * index + 2]);
+    }
+
+    //**************************************************************//
+    //********************  Rendering  *****************************//
+    //**************************************************************//
+
+    public void render(DrawContext dc)
+    {
+        if (dc == null)
+        {
+            String message = Logging.getMessage("nullValue.DrawContextIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!this.isVisible() || this.size == 0 || dc.getSurfaceGeometry() == null)
+            return;
+
+        this.makeOrderedRenderable(dc);
+    }
+
+    protected void makeOrderedRenderable(DrawContext dc)
+    {
+        // The projection is shared by the pick and render passes of a frame.
+        if (this.projectionFrame != dc.getFrameTimeStamp() || dc.isContinuous2DGlobe())
+        {
+            this.computeModelPoints(dc);
+            this.assembleStyles(dc);
+
+            View view = dc.getView();
+            double maxEyeDistance = this.isClipToHorizon() && !dc.is2DGlobe() ? view.getHorizonDistance()
+                : Double.POSITIVE_INFINITY;
+            this.project(view.getModelviewMatrix(), view.getProjectionMatrix(), view.getViewport(), maxEyeDistance,
+                this.computeCullingMargin());
+            this.projectionFrame = dc.getFrameTimeStamp();
+        }
+
+        if (this.visibleCount == 0)
+            return;
+
+        dc.addOrderedRenderable(new OrderedCollection(this.nearestEyeDistance));
+
+        if (dc.isPickingMode())
+            this.pickLayer = dc.getCurrentLayer();
+    }
+
+    /**
+     * Determines the screen layout of each of the collection's attributes for the current frame, and requests the icon
+     * images that are not yet in a texture atlas.
+     *
+     * @param dc the current draw context.
+     */
+    protected void assembleStyles(DrawContext dc)
+    {
+        int count = this.attributes.size() + 1; // the last style is for the default attributes
+        if (this.styles.length != count)
+        {
+            this.styles = new Style[count];
+            for (int i = 0; i < count; i++)
+            {
+                this.styles[i] = new Style();
+            }
+        }
+
+        for (int i = 0; i < count; i++)
+        {
+            PointPlacemarkAttributes attrs = i < count - 1 ? this.attributes.get(i) : null;
+            this.assembleStyle(dc, attrs != null ? attrs : defaultAttributes, this.styles[i]);
+        }
+    }
+
+    protected void assembleStyle(DrawContext dc, PointPlacemarkAttributes attrs, Style style)
+    {
+        style.page = null;
+        style.width = 0;
+        style.height = 0;
+        style.dx = 0;
+        style.dy = 0;
+
+        Double scale = attrs.getScale();
+        Offset imageOffset = attrs.getImageOffset();
+        Object imageSource = attrs.getImage() != null ? attrs.getImage() : attrs.getImageAddress();
+        if (WWUtil.isEmpty(imageSource))
+        {
+            // Use the default image, as PointPlacemark does.
+            imageSource = PointPlacemarkAttributes.DEFAULT_IMAGE_PATH;
+            imageOffset = PointPlacemarkAttributes.DEFAULT_IMAGE_OFFSET;
+            scale = scale != null ? scale * PointPlacemarkAttributes.DEFAULT_IMAGE_SCALE
+                : PointPlacemarkAttributes.DEFAULT_IMAGE_SCALE;
+        }
+
+        double imageWidth = 1;
+        double imageHeight = 1;
+        if (attrs.isDrawImage())
+        {
+            style.icon = this.getIcon(imageSource);
+            if (style.icon.load(dc))
+            {
+                Dimension size = style.icon.getSize();
+                TextureCoords texCoords = style.icon.getTexCoords();
+                imageWidth = size.width;
+                imageHeight = size.height;
+                style.page = style.icon.getTextureAtlas();
+                style.s0 = texCoords.left();
+                style.t0 = texCoords.bottom();
+                style.s1 = texCoords.right();
+                style.t1 = texCoords.top();
+                style.width = (scale != null ? scale : 1) * imageWidth;
+                style.height = (scale != null ? scale : 1) * imageHeight;
+
+                if (imageOffset != null)
+                {
+                    Point.Double offset = imageOffset.computeOffset(imageWidth, imageHeight, scale, scale);
+                    style.dx = -offset.x;
+                    style.dy = -offset.y;
+                }
+            }
+        }
+
+        Color color = attrs.getImageColor() != null ? attrs.getImageColor() : PointPlacemarkAttributes.DEFAULT_IMAGE_COLOR;
+        color.getRGBComponents(style.color);
+
+        Offset labelOffset = attrs.getLabelOffset() != null ? attrs.getLabelOffset()
+            : PointPlacemarkAttributes.DEFAULT_LABEL_OFFSET;
+        Point.Double offset = labelOffset.computeOffset(imageWidth, imageHeight, scale, scale);
+        style.labelDx = style.dx + offset.x;
+        style.labelDy = style.dy + offset.y;
+        style.labelFont = attrs.getLabelFont() != null ? attrs.getLabelFont()
+            : PointPlacemarkAttributes.DEFAULT_LABEL_FONT;
+        style.labelColor = attrs.getLabelColor() != null ? attrs.getLabelColor()
+            : PointPlacemarkAttributes.DEFAULT_LABEL_COLOR;
+        style.labelScale = attrs.getLabelScale() != null ? attrs.getLabelScale() : 1;
+        style.drawLabel = attrs.isDrawLabel() && style.labelColor.getAlpha() > 0;
+    }
+
+    protected IconElement getIcon(Object imageSource)
+    {
+        IconElement icon = this.icons.get(imageSource);
+        if (icon == null)
+        {
+            TextureAtlas page = this.atlasPages.isEmpty() ? this.addAtlasPage()
+                : this.atlasPages.get(this.atlasPages.size() - 1);
+            icon = new IconElement(page, imageSource);
+            this.icons.put(imageSource, icon);
+        }
+
+        return icon;
+    }
+
+    protected TextureAtlas addAtlasPage()
+    {
+        TextureAtlas page = new TextureAtlas(ATLAS_INITIAL_SIZE, ATLAS_INITIAL_SIZE, ATLAS_MAX_SIZE, ATLAS_MAX_SIZE,
+            true, true);
+        this.atlasPages.add(page);
+
+        return page;
+    }
+
+    /**
+     * Computes the distance beyond the viewport's edges within which a point's icon may be visible.
+     *
+     * @return the culling margin, in pixels.
+     */
+    protected double computeCullingMargin()
+    {
+        double margin = 0;
+        for (Style style : this.styles)
+        {
+            margin = Math.max(margin, Math.max(Math.abs(style.dx), Math.abs(style.dx + style.width)));
+            margin = Math.max(margin, Math.max(Math.abs(style.dy), Math.abs(style.dy + style.height)));
+        }
+
+        return margin;
+    }
+
+    protected Style getStyle(int index)
+    {
+        int attributeIndex = this.attributeIndices[index];
+        return attributeIndex < this.styles.length - 1 ? this.styles[attributeIndex]
+            : this.styles[this.styles.length - 1];
+    }
+
+    protected void pickOrderedRenderable(DrawContext dc)
+    {
+        this.pickSupport.clearPickList();
+        try
+        {
+            this.pickSupport.beginPicking(dc);
+            this.drawOrderedRenderable(dc);
+        }
+        finally
+        {
+            this.pickSupport.endPicking(dc);
+            this.pickSupport.resolvePick(dc, dc.getPickPoint(), this.pickLayer);
+        }
+    }
+
+    protected void drawOrderedRenderable(DrawContext dc)
+    {
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+        OGLStackHandler osh = new OGLStackHandler();
+        osh.pushAttrib(gl, GL2.GL_DEPTH_BUFFER_BIT // for depth test, depth mask and depth func
+            | GL2.GL_COLOR_BUFFER_BIT // for alpha test func and ref, and blend
+            | GL2.GL_CURRENT_BIT // for current color
+            | GL2.GL_ENABLE_BIT // for enable/disable changes
+            | GL2.GL_TEXTURE_BIT); // for texture binding and texture environment
+        osh.pushClientAttrib(gl, GL2.GL_CLIENT_VERTEX_ARRAY_BIT);
+        try
+        {
+            // Draw in screen coordinates. The depth range of the orthographic projection maps a vertex's z coordinate
+            // directly to window depth.
+            Rectangle viewport = dc.getView().getViewport();
+            osh.pushProjectionIdentity(gl);
+            gl.glOrtho(0d, viewport.width, 0d, viewport.height, 0d, -1d);
+            osh.pushModelviewIdentity(gl);
+
+            this.drawIcons(dc);
+
+            if (!dc.isPickingMode())
+                this.drawLabels(dc);
+        }
+        finally
+        {
+            osh.pop(gl);
+        }
+    }
+
+    protected void drawIcons(DrawContext dc)
+    {
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+
+        int pickBase = 0;
+        if (dc.isPickingMode())
+        {
+            Color pickColor = dc.getUniquePickColorRange(this.visibleCount);
+            if (pickColor == null)
+                return;
+
+            pickBase = pickColor.getRGB() & 0x00FFFFFF;
+            this.pickSupport.addPickableObjectRange(pickBase, this.visibleCount,
+                this.createPickedObjectFactory(pickBase, Arrays.copyOf(this.visibleIndices, this.visibleCount)));
+
+            // Replace the non-transparent texture colors with the pick colors.
+            gl.glTexEnvf(GL2.GL_TEXTURE_ENV, GL2.GL_TEXTURE_ENV_MODE, GL2.GL_COMBINE);
+            gl.glTexEnvf(GL2.GL_TEXTURE_ENV, GL2.GL_SRC0_RGB, GL2.GL_PREVIOUS);
+            gl.glTexEnvf(GL2.GL_TEXTURE_ENV, GL2.GL_COMBINE_RGB, GL2.GL_REPLACE);
+        }
+        else
+        {
+            gl.glEnable(GL.GL_BLEND);
+            OGLUtil.applyBlending(gl, false);
+        }
+
+        // Apply the depth buffer but don't change it.
+        if (!dc.isDeepPickingEnabled())
+            gl.glEnable(GL.GL_DEPTH_TEST);
+        gl.glDepthMask(false);
+        gl.glDepthFunc(GL.GL_LESS);
+
+        // Suppress any fully transparent image pixels.
+        gl.glEnable(GL2.GL_ALPHA_TEST);
+        gl.glAlphaFunc(GL2.GL_GREATER, 0.001f);
+
+        gl.glEnable(GL.GL_TEXTURE_2D);
+        gl.glEnableClientState(GL2.GL_VERTEX_ARRAY);
+        gl.glEnableClientState(GL2.GL_TEXTURE_COORD_ARRAY);
+        gl.glEnableClientState(GL2.GL_COLOR_ARRAY);
+
+        // Draw the icons on each atlas page with one call.
+        for (TextureAtlas page : this.atlasPages)
+        {
+            int quadCount = this.assembleIconVertices(dc, page, pickBase);
+            if (quadCount == 0 || !page.bind(dc))
+                continue;
+
+            FloatBuffer buffer = this.vertexBuffer;
+            int stride = 4 * VERTEX_SIZE;
+            gl.glVertexPointer(3, GL.GL_FLOAT, stride, buffer.position(0));
+            gl.glTexCoordPointer(2, GL.GL_FLOAT, stride, buffer.position(3));
+            gl.glColorPointer(4, GL.GL_FLOAT, stride, buffer.position(5));
+            gl.glDrawArrays(GL2.GL_QUADS, 0, 4 * quadCount);
+            buffer.rewind();
+        }
+
+        gl.glBindTexture(GL.GL_TEXTURE_2D, 0);
+    }
+
+    /**
+     * Fills the vertex buffer with a quad for each visible point whose icon is on an atlas page.
+     *
+     * @param dc       the current draw context.
+     * @param page     the atlas page.
+     * @param pickBase the pick color code of the first visible point, when picking.
+     *
+     * @return the number of quads in the vertex buffer.
+     */
+    protected int assembleIconVertices(DrawContext dc, TextureAtlas page, int pickBase)
+    {
+        int required = 4 * VERTEX_SIZE * this.visibleCount;
+        if (this.vertexBuffer == null || this.vertexBuffer.capacity() < required)
+            this.vertexBuffer = Buffers.newDirectFloatBuffer(required + required / 2);
+
+        FloatBuffer buffer = this.vertexBuffer;
+        buffer.clear();
+
+        boolean picking = dc.isPickingMode();
+        float[] pickColor = new float[4];
+        pickColor[3] = 1;
+        int quadCount = 0;
+
+        for (int i = 0; i < this.visibleCount; i++)
+        {
+            int index = this.visibleIndices[i];
+            Style style = this.getStyle(index);
+            if (style.page != page)
+                continue;
+
+            float[] color = style.color;
+            if (picking)
+            {
+                int code = pickBase + i;
+                pickColor[0] = ((code >> 16) & 0xFF) / 255f;
+                pickColor[1] = ((code >> 8) & 0xFF) / 255f;
+                pickColor[2] = (code & 0xFF) / 255f;
+                color = pickColor;
+            }
+
+            float x0 = (float) (this.screenPoints[3 * index] + style.dx);
+            float y0 = (float) (this.screenPoints[3 * index + 1] + style.dy);
+            float x1 = (float) (x0 + style.width);
+            float y1 = (float) (y0 + style.height);
+            // Bring the icon slightly forward, as PointPlacemark does.
+            float z = (float) WWMath.clamp(this.screenPoints[3 * index + 2] - DEPTH_OFFSET, 0, 1);
+
+            putVertex(buffer, x0, y0, z, style.s0, style.t0, color);
+            putVertex(buffer, x1, y0, z, style.s1, style.t0, color);
+            putVertex(buffer, x1, y1, z, style.s1, style.t1, color);
+            putVertex(buffer, x0, y1, z, style.s0, style.t1, color);
+            quadCount++;
+        }
+
+        buffer.flip();
+
+        return quadCount;
+    }
+
+    protected static void putVertex(FloatBuffer buffer, float x, float y, float z, float s, float t, float[] color)
+    {
+        buffer.put(x).put(y).put(z).put(s).put(t).put(color[0]).put(color[1]).put(color[2]).put(color[3]);
+    }
+
+    protected void drawLabels(DrawContext dc)
+    {
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+
+        // Do not depth buffer the labels. (Points beyond the horizon are culled.)
+        gl.glDisable(GL.GL_DEPTH_TEST);
+        gl.glDisable(GL.GL_TEXTURE_2D);
+        gl.glDisableClientState(GL2.GL_VERTEX_ARRAY);
+        gl.glDisableClientState(GL2.GL_TEXTURE_COORD_ARRAY);
+        gl.glDisableClientState(GL2.GL_COLOR_ARRAY);
+
+        // Draw the labels of each style with one text renderer session.
+        for (Style style : this.styles)
+        {
+            if (!style.drawLabel)
+                continue;
+
+            TextRenderer textRenderer = null;
+            try
+            {
+                Color color = style.labelColor;
+                Color backgroundColor = color.getAlpha() < 255 ? new Color(0, 0, 0, color.getAlpha()) : Color.BLACK;
+                float scale = (float) style.labelScale;
+
+                for (int i = 0; i < this.visibleCount; i++)
+                {
+                    int index = this.visibleIndices[i];
+                    String label = this.labels[index];
+                    if (label == null || this.getStyle(index) != style)
+                        continue;
+
+                    if (textRenderer == null)
+                    {
+                        textRenderer = OGLTextRenderer.getOrCreateTextRenderer(dc.getTextRendererCache(),
+                            style.labelFont);
+                        textRenderer.begin3DRendering();
+                    }
+
+                    float x = (float) (this.screenPoints[3 * index] + style.labelDx + this.labelOffsets[2 * index]);
+                    float y = (float) (this.screenPoints[3 * index + 1] + style.labelDy
+                        + this.labelOffsets[2 * index + 1]);
+                    textRenderer.setColor(backgroundColor);
+                    textRenderer.draw3D(label, x + 1, y - 1, 0, scale);
+                    textRenderer.setColor(color);
+                    textRenderer.draw3D(label, x, y, 0, scale);
+                }
+            }
+            finally
+            {
+                if (textRenderer != null)
+                    textRenderer.end3DRendering();
+            }
+        }
+    }
+
+    protected PickedObjectFactory createPickedObjectFactory(final int pickBase, final int[] pickedIndices)
+    {
+        final Object owner = this.getDelegateOwner() != null ? this.getDelegateOwner() : this;
+
+        return new PickedObjectFactory()
+        {
+            public PickedObject createPickedObject(int colorCode)
+            {
+                int index = pickedIndices[colorCode - pickBase];
+                PickedObject po = new PickedObject(colorCode, owner, getPosition(index), false);
+                po.setValue(AVKey.PICKED_OBJECT_ID, index);
+
+                return po;
+            }
+        };
+    }
+}
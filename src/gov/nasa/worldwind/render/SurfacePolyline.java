@@ -5,7 +5,7 @@
  */
 package gov.nasa.worldwind.render;
 
-import gov.nasa.worldwind.Exportable;
+import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.Globe;
@@ -27,6 +27,11 @@ public class SurfacePolyline extends AbstractSurfaceShape implements Exportable
 {
     protected boolean closed;
     protected Iterable<? extends LatLon> locations;
+    protected boolean simplifyLocations;
+    protected final ProgressivePolylineIndexBuilder<LatLon> locationIndexBuilder =
+        new ProgressivePolylineIndexBuilder<LatLon>(this);
+    /** The location index used by this shape's current geometry. Accessed only on the rendering thread. */
+    protected ProgressivePolylineIndex<LatLon> appliedLocationIndex;
 
     /** Constructs a new surface polyline with the default attributes and no locations. */
     public SurfacePolyline()
@@ -44,6 +49,7 @@ public class SurfacePolyline extends AbstractSurfaceShape implements Exportable
 
         this.closed = source.closed;
         this.locations = source.locations;
+        this.simplifyLocations = source.simplifyLocations;
     }
 
     /**
@@ -136,6 +142,36 @@ public class SurfacePolyline extends AbstractSurfaceShape implements Exportable
         }
 
         this.locations = iterable;
+        this.locationIndexBuilder.clear();
+
+        this.onShapeChanged();
+    }
+
+    /**
+     * Indicates whether this polyline draws a resolution-dependent simplification of its locations. See {@link
+     * #setSimplifyLocations(boolean)}.
+     *
+     * @return true if this polyline's locations are simplified, otherwise false.
+     */
+    public boolean isSimplifyLocations()
+    {
+        return this.simplifyLocations;
+    }
+
+    /**
+     * Specifies whether this polyline draws a resolution-dependent simplification of its locations. This is intended
+     * for polylines with a very large number of locations. When enabled, this polyline builds a {@link
+     * ProgressivePolylineIndex} of its locations on a background thread, drawing all of its locations until the index
+     * is available. Thereafter each surface tile draws only the locations that are visually distinct at the tile's
+     * resolution. The default is false.
+     *
+     * @param simplifyLocations true to simplify this polyline's locations, otherwise false.
+     */
+    public void setSimplifyLocations(boolean simplifyLocations)
+    {
+        this.simplifyLocations = simplifyLocations;
+        this.locationIndexBuilder.clear();
+
         this.onShapeChanged();
     }
 
@@ -156,8 +192,19 @@ public class SurfacePolyline extends AbstractSurfaceShape implements Exportable
         if (this.locations == null)
             return null;
 
+        // Draw either all of the locations, or the subset that's visually distinct at the requested resolution. The
+        // index measures area in square degrees, so select the locations whose effective area is at least one square
+        // texel.
+        Iterable<? extends LatLon> iterable = this.locations;
+        ProgressivePolylineIndex<LatLon> index = this.appliedLocationIndex;
+        if (index != null)
+        {
+            double texelDegrees = 1.0 / (edgeIntervalsPerDegree * this.getTexelsPerEdgeInterval());
+            iterable = index.getLocations(index.selectLocations(texelDegrees * texelDegrees, null, null));
+        }
+
         ArrayList<LatLon> drawLocations = new ArrayList<LatLon>();
-        this.generateIntermediateLocations(this.locations, edgeIntervalsPerDegree, this.isClosed(), drawLocations);
+        this.generateIntermediateLocations(iterable, edgeIntervalsPerDegree, this.isClosed(), drawLocations);
 
         if (drawLocations.size() < 2)
             return null;
@@ -168,6 +215,40 @@ public class SurfacePolyline extends AbstractSurfaceShape implements Exportable
         return geom;
     }
 
+    /**
+     * Overridden to apply this polyline's location index when it becomes available, causing the polyline's geometry to
+     * be recreated from the index.
+     *
+     * @param dc the current draw context.
+     */
+    @Override
+    protected void makeOrderedPreRenderable(DrawContext dc)
+    {
+        ProgressivePolylineIndex<LatLon> index = this.requestLocationIndex();
+        if (index != this.appliedLocationIndex)
+        {
+            this.appliedLocationIndex = index;
+            this.onShapeChanged(); // Causes the shape's geometry to be recreated from the index.
+        }
+
+        super.makeOrderedPreRenderable(dc);
+    }
+
+    /**
+     * Returns the simplification index of this polyline's locations, if this polyline simplifies its locations and the
+     * index has been built. If the index has not been built, this requests that it be built on a background thread.
+     *
+     * @return this polyline's location index, or <code>null</code> if this polyline does not simplify its locations or
+     *         the index is not yet available.
+     */
+    protected ProgressivePolylineIndex<LatLon> requestLocationIndex()
+    {
+        if (!this.simplifyLocations || this.locations == null)
+            return null;
+
+        return this.locationIndexBuilder.requestIndex(this.locations);
+    }
+
     protected void doMoveTo(Position oldReferencePosition, Position newReferencePosition)
     {
         if (this.locations == null)
@@ -0,0 +1,619 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.retrieve;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.util.*;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.net.SocketTimeoutException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.Level;
+
+/**
+ * Performs threaded retrieval of data with a bounded, deduplicating request queue. This service replaces {@link
+ * BasicRetrievalService} for applications that issue many tile requests while the view changes quickly, and is the
+ * retrieval service in the default configuration. Applications select <code>BasicRetrievalService</code> instead by
+ * setting the configuration property {@link AVKey#RETRIEVAL_SERVICE_CLASS_NAME} to its class name.
+ * <p>
+ * Pending and running requests are indexed by retriever name in a concurrent map, so detecting a duplicate request
+ * takes constant time rather than a scan of the queue. A request for a retriever that is already queued is not queued
+ * again; instead it renews the queued request and, if its priority or submission period changed, moves it to its new
+ * place in the queue. Clients such as tiled image layers and elevation models request the tiles they need every frame,
+ * so a queued request that has been renewed at least once but is then not renewed within the request expiration
+ * period is assumed to have left the view and is dropped when it reaches the head of the queue. Requests that are
+ * never renewed are dropped only when they exceed the stale request limit, as they are by <code>BasicRetrievalService</code>.
+ * <p>
+ * Retrieval threads are named once, when they are created, rather than for every request. The service maintains
+ * counts of submitted, renewed, rejected, dropped, completed and failed requests, the average time requests wait in
+ * the queue and take to run, and the recent completion rate. These are available from the accessors of this class and
+ * as {@link PerformanceStatistic}s with the key {@link PerformanceStatistic#RETRIEVAL}.
+ *
+ * @see BasicRetrievalService
+ * @see SupersedingTaskScheduler
+ */
+public final class ScheduledRetrievalService extends WWObjectImpl
+    implements RetrievalService, PerformanceStatistic.Provider, Thread.UncaughtExceptionHandler
+{
+    // These constants are last-ditch values in case Configuration lacks defaults
+    private static final int DEFAULT_QUEUE_SIZE = 100;
+    private static final int DEFAULT_POOL_SIZE = 5;
+    private static final long DEFAULT_STALE_REQUEST_LIMIT = 30000; // milliseconds
+    private static final long DEFAULT_REQUEST_EXPIRATION = 2000; // milliseconds
+    private static final int DEFAULT_TIME_PRIORITY_GRANULARITY = 500; // milliseconds
+    private static final long THROUGHPUT_INTERVAL = 2000; // milliseconds
+    /**
+     * The priority of requests made without one. It's constant so that repeated requests renew the queued request
+     * without moving it, and it places these requests after those with a client-specified priority in the same
+     * time-priority period.
+     */
+    private static final double DEFAULT_PRIORITY = Long.MAX_VALUE;
+
+    private static final String THREAD_NAME_PREFIX = Logging.getMessage(
+        "BasicRetrievalService.IdleThreadNamePrefix");
+
+    private final SupersedingTaskScheduler scheduler;
+    /** Pending and running tasks, keyed by retriever name. */
+    private final ConcurrentHashMap<String, RetrievalTask> tasks = new ConcurrentHashMap<String, RetrievalTask>();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final int queueSize;
+    private final long staleRequestLimit;
+    private final long requestExpiration;
+
+    // Scheduling state.
+    private final AtomicInteger numQueued = new AtomicInteger();
+    private final AtomicInteger numActive = new AtomicInteger();
+
+    // Metrics.
+    private final AtomicLong numSubmitted = new AtomicLong();
+    private final AtomicLong numRenewed = new AtomicLong();
+    private final AtomicLong numRejected = new AtomicLong();
+    private final AtomicLong numDropped = new AtomicLong();
+    private final AtomicLong numCompleted = new AtomicLong();
+    private final AtomicLong numFailed = new AtomicLong();
+    private final AtomicLong totalQueueTime = new AtomicLong(); // milliseconds
+    private final AtomicLong totalRunTime = new AtomicLong(); // milliseconds
+    private final AtomicLong throughputIntervalStart = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong throughputIntervalCount = new AtomicLong();
+    private volatile double throughput;
+
+    protected SSLExceptionListener sslExceptionListener;
+
+    /**
+     * Encapsulates a single retrieval as a {@link FutureTask}. The retrieval is placed on the scheduler's queue by
+     * means of a scheduler task, which is moved in the queue when the request is renewed with a different priority.
+     */
+    private class RetrievalTask extends FutureTask<Retriever> implements RetrievalFuture
+    {
+        private final Retriever retriever;
+        private final SupersedingTaskScheduler.Task entry;
+        private final long firstRequestTime;
+        private volatile long lastRequestTime;
+        private volatile boolean renewed;
+
+        private RetrievalTask(Retriever retriever, long requestTime)
+        {
+            super(retriever);
+            this.retriever = retriever;
+            this.firstRequestTime = requestTime;
+            this.lastRequestTime = requestTime;
+            this.entry = new SupersedingTaskScheduler.Task(new Runnable()
+            {
+                public void run()
+                {
+                    runTask(RetrievalTask.this);
+                }
+            });
+        }
+
+        public Retriever getRetriever()
+        {
+            return this.retriever;
+        }
+    }
+
+    /**
+     * Orders requests as {@link BasicRetrievalService} orders its tasks: requests submitted within different
+     * time-granularity periods are ordered most recent first, and the client-specified priority orders requests within
+     * the same period. Ties are broken by submission order.
+     */
+    private static final Comparator<SupersedingTaskScheduler.Ticket> REQUEST_ORDER
+        = new Comparator<SupersedingTaskScheduler.Ticket>()
+    {
+        public int compare(SupersedingTaskScheduler.Ticket a, SupersedingTaskScheduler.Ticket b)
+        {
+            if (a.getPriority() > 0 && b.getPriority() > 0) // only secondary priority used if either is negative
+            {
+                long periodDifference = (b.getTime() - a.getTime()) / DEFAULT_TIME_PRIORITY_GRANULARITY;
+                if (periodDifference != 0)
+                    return periodDifference < 0 ? -1 : 1;
+            }
+
+            if (a.getPriority() != b.getPriority())
+                return a.getPriority() < b.getPriority() ? -1 : 1;
+
+            return a.getSequence() < b.getSequence() ? -1 : a.getSequence() == b.getSequence() ? 0 : 1;
+        }
+    };
+
+    public ScheduledRetrievalService()
+    {
+        int poolSize = Configuration.getIntegerValue(AVKey.RETRIEVAL_POOL_SIZE, DEFAULT_POOL_SIZE);
+        this.queueSize = Configuration.getIntegerValue(AVKey.RETRIEVAL_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        this.staleRequestLimit = Configuration.getLongValue(AVKey.RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT,
+            DEFAULT_STALE_REQUEST_LIMIT);
+        this.requestExpiration = Configuration.getLongValue(AVKey.RETRIEVAL_REQUEST_EXPIRATION,
+            DEFAULT_REQUEST_EXPIRATION);
+
+        this.scheduler = new SupersedingTaskScheduler(poolSize, new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + " " + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY); // Subordinate thread priority to rendering
+                thread.setUncaughtExceptionHandler(ScheduledRetrievalService.this);
+                return thread;
+            }
+        }, REQUEST_ORDER);
+    }
+
+    public SSLExceptionListener getSSLExceptionListener()
+    {
+        return sslExceptionListener;
+    }
+
+    public void setSSLExceptionListener(SSLExceptionListener sslExceptionListener)
+    {
+        this.sslExceptionListener = sslExceptionListener;
+    }
+
+    public void uncaughtException(Thread thread, Throwable throwable)
+    {
+        Logging.logger().fine(Logging.getMessage("BasicRetrievalService.UncaughtExceptionDuringRetrieval",
+            thread.getName()));
+    }
+
+    public void shutdown(boolean immediately)
+    {
+        this.scheduler.shutdown(immediately);
+        this.tasks.clear();
+    }
+
+    /**
+     * @param retriever the retriever to run
+     *
+     * @return a future object that can be used to query the request status of cancel the request.
+     *
+     * @throws IllegalArgumentException if <code>retriever</code> is null or has no name
+     */
+    public RetrievalFuture runRetriever(Retriever retriever)
+    {
+        if (retriever == null)
+        {
+            String msg = Logging.getMessage("nullValue.RetrieverIsNull");
+            Logging.logger().fine(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        if (retriever.getName() == null)
+        {
+            String message = Logging.getMessage("nullValue.RetrieverNameIsNull");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return this.runRetriever(retriever, DEFAULT_PRIORITY);
+    }
+
+    /**
+     * Queues a retriever. If a retriever with the same name is already queued, the queued request is renewed with the
+     * specified priority and its future is returned. If a retriever with the same name is running, or the queue is
+     * full, the request is rejected and this returns null.
+     *
+     * @param retriever the retriever to run
+     * @param priority  the secondary priority of the retriever, or negative if it is to be the primary priority
+     *
+     * @return a future object that can be used to query the request status of cancel the request, or null if the
+     *         request was rejected.
+     *
+     * @throws IllegalArgumentException if <code>retriever</code> is null or has no name
+     */
+    public RetrievalFuture runRetriever(Retriever retriever, double priority)
+    {
+        if (retriever == null)
+        {
+            String message = Logging.getMessage("nullValue.RetrieverIsNull");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (retriever.getName() == null)
+        {
+            String message = Logging.getMessage("nullValue.RetrieverNameIsNull");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        long now = System.currentTimeMillis();
+
+        RetrievalTask existing = this.tasks.get(retriever.getName());
+        if (existing != null && !existing.isDone())
+        {
+            if (!existing.entry.isQueued())
+                return null; // Do not queue duplicates of running retrievals.
+
+            this.renew(existing, priority, now);
+            return existing;
+        }
+
+        if (!this.isAvailable())
+        {
+            this.numRejected.incrementAndGet();
+            Logging.logger().finer(
+                Logging.getMessage("BasicRetrievalService.ResourceRejectedQueueIsFull", retriever.getName()));
+            return null;
+        }
+
+        RetrievalTask task = new RetrievalTask(retriever, now);
+        retriever.setSubmitTime(now);
+
+        // Replace a completed or cancelled task that has not yet been removed from the index. If another thread
+        // queued the same retriever in the meantime, renew its request instead.
+        boolean added = existing != null ? this.tasks.replace(retriever.getName(), existing, task)
+            : this.tasks.putIfAbsent(retriever.getName(), task) == null;
+        if (!added)
+            return this.runRetriever(retriever, priority);
+
+        this.numSubmitted.incrementAndGet();
+        this.numQueued.incrementAndGet();
+        this.scheduler.schedule(task.entry, priority, now);
+
+        return task;
+    }
+
+    /**
+     * Records a repeated request for a queued task. The task is moved in the queue only when its position would
+     * change, so that clients that request the same tile every frame move it at most once per time-priority period.
+     * The move fails harmlessly if the task starts to run, or another thread moves it, in the meantime.
+     *
+     * @param task     the queued task.
+     * @param priority the priority of the repeated request.
+     * @param now      the time of the repeated request, in milliseconds.
+     */
+    private void renew(RetrievalTask task, double priority, long now)
+    {
+        this.numRenewed.incrementAndGet();
+        task.lastRequestTime = now;
+        task.renewed = true;
+
+        SupersedingTaskScheduler.Ticket ticket = task.entry.getTicket();
+        if (ticket == null)
+            return;
+
+        boolean periodChanged = (now - ticket.getTime()) >= DEFAULT_TIME_PRIORITY_GRANULARITY;
+        if (ticket.getPriority() == priority && !(periodChanged && priority > 0))
+            return;
+
+        this.scheduler.reschedule(task.entry, ticket, priority, now);
+    }
+
+    /**
+     * Runs a task on the current retrieval thread, unless it has been cancelled or has expired while queued.
+     *
+     * @param task the task to run.
+     */
+    private void runTask(RetrievalTask task)
+    {
+        this.numQueued.decrementAndGet();
+        Retriever retriever = task.getRetriever();
+
+        try
+        {
+            long now = System.currentTimeMillis();
+
+            if (task.isDone()) // cancelled by the client while queued
+            {
+                this.numDropped.incrementAndGet();
+                return;
+            }
+
+            if (this.isExpired(task, now))
+            {
+                this.numDropped.incrementAndGet();
+                Logging.logger().finer(Logging.getMessage("BasicRetrievalService.CancellingTooOldRetrieval",
+                    retriever.getName()));
+                task.cancel(false);
+                return;
+            }
+
+            this.totalQueueTime.addAndGet(now - task.firstRequestTime);
+            this.numActive.incrementAndGet();
+            retriever.setBeginTime(now);
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                this.numActive.decrementAndGet();
+                retriever.setEndTime(System.currentTimeMillis());
+                this.totalRunTime.addAndGet(retriever.getEndTime() - retriever.getBeginTime());
+            }
+
+            this.checkResult(task);
+        }
+        finally
+        {
+            this.tasks.remove(retriever.getName(), task);
+        }
+    }
+
+    /**
+     * Indicates whether a queued task should be dropped rather than run. A task that has been requested more than once
+     * expires when it hasn't been requested within the request expiration period; one that has been requested only
+     * once expires when it exceeds the stale request limit.
+     *
+     * @param task the task to test.
+     * @param now  the current time, in milliseconds.
+     *
+     * @return true if the task should be dropped, otherwise false.
+     */
+    private boolean isExpired(RetrievalTask task, long now)
+    {
+        long limit = task.getRetriever().getStaleRequestLimit() >= 0
+            ? task.getRetriever().getStaleRequestLimit() : this.staleRequestLimit;
+        if (now - task.firstRequestTime > limit && !task.renewed)
+            return true;
+
+        return task.renewed && now - task.lastRequestTime > Math.min(limit, this.requestExpiration);
+    }
+
+    private void checkResult(RetrievalTask task)
+    {
+        try
+        {
+            task.get();
+            this.recordCompletion(System.currentTimeMillis());
+        }
+        catch (ExecutionException e)
+        {
+            this.numFailed.incrementAndGet();
+
+            String message = Logging.getMessage("BasicRetrievalService.ExecutionExceptionDuringRetrieval",
+                task.getRetriever().getName());
+            if (e.getCause() instanceof SocketTimeoutException)
+            {
+                Logging.logger().fine(message + " " + e.getCause().getLocalizedMessage());
+            }
+            else if (e.getCause() instanceof SSLHandshakeException)
+            {
+                if (sslExceptionListener != null)
+                    sslExceptionListener.onException(e.getCause(), task.getRetriever().getName());
+                else
+                    Logging.logger().fine(message + " " + e.getCause().getLocalizedMessage());
+            }
+            else
+            {
+                Logging.logger().log(Level.FINE, message, e);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            this.numFailed.incrementAndGet();
+            Logging.logger().log(Level.FINE, Logging.getMessage("BasicRetrievalService.RetrievalInterrupted",
+                task.getRetriever().getName()), e);
+        }
+        catch (CancellationException e)
+        {
+            this.numDropped.incrementAndGet();
+            Logging.logger().fine(Logging.getMessage("BasicRetrievalService.RetrievalCancelled",
+                task.getRetriever().getName()));
+        }
+    }
+
+    private void recordCompletion(long now)
+    {
+        this.numCompleted.incrementAndGet();
+        this.throughputIntervalCount.incrementAndGet();
+
+        long start = this.throughputIntervalStart.get();
+        if (now - start >= THROUGHPUT_INTERVAL && this.throughputIntervalStart.compareAndSet(start, now))
+            this.throughput = this.throughputIntervalCount.getAndSet(0) * 1000d / (now - start);
+    }
+
+    /**
+     * @param poolSize the number of threads in the thread pool
+     *
+     * @throws IllegalArgumentException if <code>poolSize</code> is non-positive
+     */
+    public void setRetrieverPoolSize(int poolSize)
+    {
+        if (poolSize < 1)
+        {
+            String message = Logging.getMessage("BasicRetrievalService.RetrieverPoolSizeIsLessThanOne");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.scheduler.setPoolSize(poolSize);
+    }
+
+    public int getRetrieverPoolSize()
+    {
+        return this.scheduler.getPoolSize();
+    }
+
+    public boolean hasActiveTasks()
+    {
+        return this.numActive.get() > 0;
+    }
+
+    public boolean isAvailable()
+    {
+        return this.numQueued.get() < this.queueSize;
+    }
+
+    public int getNumRetrieversPending()
+    {
+        return this.numActive.get() + this.numQueued.get();
+    }
+
+    /**
+     * @param retriever the retriever to check
+     *
+     * @return <code>true</code> if the retriever is being run or pending execution
+     *
+     * @throws IllegalArgumentException if <code>retriever</code> is null
+     */
+    public boolean contains(Retriever retriever)
+    {
+        if (retriever == null)
+        {
+            String msg = Logging.getMessage("nullValue.RetrieverIsNull");
+            Logging.logger().fine(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        RetrievalTask task = retriever.getName() != null ? this.tasks.get(retriever.getName()) : null;
+        return task != null && !task.isDone() && task.getRetriever().equals(retriever);
+    }
+
+    /** @return the number of requests waiting to run. */
+    public int getNumQueued()
+    {
+        return this.numQueued.get();
+    }
+
+    /** @return the number of requests currently running. */
+    public int getNumActive()
+    {
+        return this.numActive.get();
+    }
+
+    /** @return the number of requests queued since this service was created, excluding renewals. */
+    public long getNumSubmitted()
+    {
+        return this.numSubmitted.get();
+    }
+
+    /** @return the number of requests for retrievers that were already queued. */
+    public long getNumRenewed()
+    {
+        return this.numRenewed.get();
+    }
+
+    /** @return the number of requests rejected because the queue was full. */
+    public long getNumRejected()
+    {
+        return this.numRejected.get();
+    }
+
+    /** @return the number of queued requests that were cancelled or expired before they completed. */
+    public long getNumDropped()
+    {
+        return this.numDropped.get();
+    }
+
+    /** @return the number of retrievals that completed without an exception. */
+    public long getNumCompleted()
+    {
+        return this.numCompleted.get();
+    }
+
+    /** @return the number of retrievals that terminated with an exception. */
+    public long getNumFailed()
+    {
+        return this.numFailed.get();
+    }
+
+    /** @return the average time, in milliseconds, that retrievals waited in the queue before they started. */
+    public double getAverageQueueTime()
+    {
+        long n = this.numCompleted.get() + this.numFailed.get() + this.numActive.get();
+        return n > 0 ? (double) this.totalQueueTime.get() / n : 0;
+    }
+
+    /** @return the average time, in milliseconds, that retrievals took to run. */
+    public double getAverageRunTime()
+    {
+        long n = this.numCompleted.get() + this.numFailed.get();
+        return n > 0 ? (double) this.totalRunTime.get() / n : 0;
+    }
+
+    /**
+     * Returns the number of retrievals completed per second, measured over the most recent two second interval in
+     * which a retrieval completed.
+     *
+     * @return the recent retrieval throughput, in retrievals per second.
+     */
+    public double getThroughput()
+    {
+        return this.throughput;
+    }
+
+    /**
+     * Returns this service's queue depth, latency and throughput measurements as performance statistics suitable for
+     * display in a {@link StatisticsPanel}.
+     *
+     * @return this service's performance statistics.
+     */
+    public Collection<PerformanceStatistic> getPerformanceStatistics()
+    {
+        ArrayList<PerformanceStatistic> stats = new ArrayList<PerformanceStatistic>();
+
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RETRIEVAL, "Retrievals queued",
+            this.getNumQueued()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RETRIEVAL, "Retrievals active",
+            this.getNumActive()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RETRIEVAL, "Retrievals dropped",
+            this.getNumDropped()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RETRIEVAL, "Retrieval queue time (ms)",
+            (int) this.getAverageQueueTime()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RETRIEVAL, "Retrieval run time (ms)",
+            (int) this.getAverageRunTime()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RETRIEVAL, "Retrievals per second",
+            (int) Math.round(this.getThroughput())));
+
+        return stats;
+    }
+
+    public double getProgress()
+    {
+        int totalContentLength = 0;
+        int totalBytesRead = 0;
+
+        for (RetrievalTask task : this.tasks.values())
+        {
+            if (task.isDone())
+                continue;
+
+            Retriever retriever = task.getRetriever();
+            try
+            {
+                double tcl = retriever.getContentLength();
+                if (tcl > 0)
+                {
+                    totalContentLength += tcl;
+                    totalBytesRead += retriever.getContentLengthRead();
+                }
+            }
+            catch (Exception e)
+            {
+                Logging.logger().log(Level.FINE,
+                    Logging.getMessage("BasicRetrievalService.ExceptionRetrievingContentSizes",
+                        retriever.getName() != null ? retriever.getName() : ""), e);
+            }
+        }
+
+        if (totalContentLength < 1)
+            return 0;
+        else
+            return Math.min(100.0, 100.0 * (double) totalBytesRead / (double) totalContentLength);
+    }
+}
@@ -139,6 +139,13 @@ abstract public class AbstractElevationModel extends WWObjectImpl implements Ele
         return e == this.missingDataFlag ? this.missingDataValue : e;
     }
 
+    @Override
+    public double getElevation(double latRadians, double lonRadians)
+    {
+        double e = this.getUnmappedElevation(latRadians, lonRadians);
+        return e == this.missingDataFlag ? this.missingDataValue : e;
+    }
+
     public double[] getElevations(Sector sector, List<? extends LatLon> latLons, double[] targetResolutions,
         double[] elevations)
     {
@@ -12,6 +12,7 @@ import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.data.*;
 import gov.nasa.worldwind.event.BulkRetrievalListener;
 import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.formats.tiff.GeotiffReader;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.ogc.wms.WMSCapabilities;
 import gov.nasa.worldwind.retrieve.*;
@@ -62,6 +63,8 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
     protected java.util.concurrent.ConcurrentHashMap<TileKey, ElevationTile> levelZeroTiles =
         new java.util.concurrent.ConcurrentHashMap<TileKey, ElevationTile>();
     protected MemoryCache memoryCache;
+    protected ElevationTileStore tileStore;
+    protected MemoryCache.CacheListener tileStoreListener;
     protected int extremesLevel = -1;
     protected boolean extremesCachingEnabled = true;
     protected BufferWrapper extremes = null;
@@ -132,6 +135,12 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
             this.setValue(AVKey.SECTOR, this.levels.getSector());
 
         this.memoryCache = this.createMemoryCache(ElevationTile.class.getName());
+        this.tileStore = this.createTileStore(params);
+        if (this.tileStore != null)
+        {
+            this.tileStoreListener = this.createTileStoreListener();
+            this.memoryCache.addCacheListener(this.tileStoreListener);
+        }
 
         this.setValue(AVKey.CONSTRUCTION_PARAMETERS, params.copy());
 
@@ -223,13 +232,52 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         else
         {
             long size = Configuration.getLongValue(AVKey.ELEVATION_TILE_CACHE_SIZE, 20000000L);
-            MemoryCache mc = new BasicMemoryCache((long) (0.85 * size), size);
+            MemoryCache mc = WorldWind.getMemoryCacheSet().createCache((long) (0.85 * size), size);
             mc.setName("Elevation Tiles");
             WorldWind.getMemoryCacheSet().addCache(cacheName, mc);
             return mc;
         }
     }
 
+    /**
+     * Returns the store that holds this model's elevation tiles off the Java heap, if one is in use.
+     *
+     * @return the model's tile store, or null if the model has none.
+     */
+    protected ElevationTileStore getTileStore()
+    {
+        return this.tileStore;
+    }
+
+    /**
+     * Creates the store that holds this model's elevation tiles off the Java heap. The store's size in bytes is taken
+     * from the {@link AVKey#ELEVATION_TILE_STORE_SIZE} parameter if specified, otherwise from the configuration. Tiles
+     * added to the memory cache are also added to the store, and are removed from the store when the memory cache
+     * evicts them. The store is used by {@link #getUnmappedElevation(double, double)}.
+     *
+     * @param params the model's construction parameters.
+     *
+     * @return the tile store, or null if the store size is zero.
+     */
+    protected ElevationTileStore createTileStore(AVList params)
+    {
+        Long size = AVListImpl.getLongValue(params, AVKey.ELEVATION_TILE_STORE_SIZE);
+        if (size == null)
+            size = Configuration.getLongValue(AVKey.ELEVATION_TILE_STORE_SIZE, 0L);
+
+        int slotSize = 0;
+        for (Level level : this.levels.getLevels())
+        {
+            slotSize = Math.max(slotSize, level.getTileWidth() * level.getTileHeight());
+        }
+
+        if (size <= 0 || slotSize <= 0)
+            return null;
+
+        int capacity = (int) Math.max(1, Math.min(Integer.MAX_VALUE / 4, size / (4L * slotSize)));
+        return new ElevationTileStore(slotSize, capacity);
+    }
+
     public LevelSet getLevels()
     {
         return this.levels;
@@ -515,8 +563,100 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         // Level 0 tiles are held in the model itself; other levels are placed in the memory cache.
         if (tile.getLevelNumber() == 0)
             this.levelZeroTiles.put(tile.getTileKey(), tile);
-        else
-            this.getMemoryCache().add(tile.getTileKey(), tile, elevations.getSizeInBytes());
+        else if (!this.getMemoryCache().add(tile.getTileKey(), tile, elevations.getSizeInBytes()))
+            return;
+
+        // Add the tile to the tile store after the memory cache, because replacing a tile in the memory cache may
+        // remove the previous tile from the store.
+        this.addTileToStore(tile, elevations);
+    }
+
+    /**
+     * Adds a tile's elevations to this model's tile store, if the model has one.
+     *
+     * @param tile       the tile.
+     * @param elevations the tile's elevations.
+     */
+    protected void addTileToStore(ElevationTile tile, BufferWrapper elevations)
+    {
+        if (this.tileStore == null || tile.getLevelNumber() > ElevationTileStore.MAX_LEVEL)
+            return;
+
+        this.tileStore.put(ElevationTileStore.createKey(tile.getLevelNumber(), tile.getRow(), tile.getColumn()),
+            elevations);
+    }
+
+    /**
+     * Removes a tile's elevations from this model's tile store, if the model has one.
+     *
+     * @param tileKey the tile's key.
+     */
+    protected void removeTileFromStore(TileKey tileKey)
+    {
+        if (this.tileStore == null || tileKey.getLevelNumber() > ElevationTileStore.MAX_LEVEL)
+            return;
+
+        this.tileStore.remove(ElevationTileStore.createKey(tileKey.getLevelNumber(), tileKey.getRow(),
+            tileKey.getColumn()));
+    }
+
+    /**
+     * Creates the listener that keeps this model's tile store consistent with its memory cache. The listener removes a
+     * tile from the store when the memory cache evicts or removes the tile, unless the tile was removed because it was
+     * replaced. The memory cache is shared by all elevation models, so tiles of other models are ignored.
+     *
+     * @return the memory cache listener.
+     */
+    protected MemoryCache.CacheListener createTileStoreListener()
+    {
+        return new MemoryCache.CacheListener()
+        {
+            public void entryRemoved(Object key, Object clientObject)
+            {
+                if (!(key instanceof TileKey) || !(clientObject instanceof ElevationTile))
+                    return;
+
+                TileKey tileKey = (TileKey) key;
+                if (!isTileOfThisModel(tileKey) || getMemoryCache().contains(tileKey))
+                    return;
+
+                removeTileFromStore(tileKey);
+            }
+
+            public void removalException(Throwable exception, Object key, Object clientObject)
+            {
+                String message = Logging.getMessage("BasicMemoryCache.ExceptionFromRemovalListener",
+                    exception.getMessage());
+                Logging.logger().log(java.util.logging.Level.INFO, message);
+            }
+        };
+    }
+
+    /** Stops the model's tile store from tracking the shared memory cache. */
+    @Override
+    public void dispose()
+    {
+        if (this.tileStoreListener != null)
+        {
+            this.memoryCache.removeCacheListener(this.tileStoreListener);
+            this.tileStoreListener = null;
+        }
+
+        super.dispose();
+    }
+
+    /**
+     * Indicates whether a tile key identifies a tile of this model.
+     *
+     * @param tileKey the tile key.
+     *
+     * @return true if the key's level and cache name match one of this model's levels, otherwise false.
+     */
+    protected boolean isTileOfThisModel(TileKey tileKey)
+    {
+        int levelNumber = tileKey.getLevelNumber();
+        return levelNumber >= 0 && levelNumber < this.levels.getNumLevels()
+            && this.levels.getLevel(levelNumber).getCacheName().equals(tileKey.getCacheName());
     }
 
     protected boolean areElevationsInMemory(TileKey key)
@@ -574,29 +714,42 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
 
     protected BufferWrapper makeTiffElevations(URL url) throws IOException, URISyntaxException
     {
-        File file = new File(url.toURI());
+        DataRaster[] rasters;
+        String source;
 
-        // Create a raster reader for the file type.
-        DataRasterReaderFactory readerFactory = (DataRasterReaderFactory) WorldWind.createConfigurationComponent(
-            AVKey.DATA_RASTER_READER_FACTORY_CLASS_NAME);
-        DataRasterReader reader = readerFactory.findReaderFor(file, null);
-        if (reader == null)
+        if (!"file".equalsIgnoreCase(url.getProtocol()))
         {
-            String msg = Logging.getMessage("generic.UnknownFileFormatOrMatchingReaderNotFound", file.getPath());
-            Logging.logger().severe(msg);
-            throw new WWRuntimeException(msg);
+            // The URL may address a tile archive entry, which the raster readers can't open as a file. Read the
+            // entry's contents and parse them in memory.
+            source = url.toString();
+            rasters = this.readTiffRasters(url);
         }
-
-        // Read the file into the raster.
-        DataRaster[] rasters;
-        synchronized (this.fileLock)
+        else
         {
-            rasters = reader.read(file, null);
+            File file = new File(url.toURI());
+            source = file.getPath();
+
+            // Create a raster reader for the file type.
+            DataRasterReaderFactory readerFactory = (DataRasterReaderFactory) WorldWind.createConfigurationComponent(
+                AVKey.DATA_RASTER_READER_FACTORY_CLASS_NAME);
+            DataRasterReader reader = readerFactory.findReaderFor(file, null);
+            if (reader == null)
+            {
+                String msg = Logging.getMessage("generic.UnknownFileFormatOrMatchingReaderNotFound", file.getPath());
+                Logging.logger().severe(msg);
+                throw new WWRuntimeException(msg);
+            }
+
+            // Read the file into the raster.
+            synchronized (this.fileLock)
+            {
+                rasters = reader.read(file, null);
+            }
         }
 
         if (rasters == null || rasters.length == 0)
         {
-            String msg = Logging.getMessage("ElevationModel.CannotReadElevations", file.getAbsolutePath());
+            String msg = Logging.getMessage("ElevationModel.CannotReadElevations", source);
             Logging.logger().severe(msg);
             throw new WWRuntimeException(msg);
         }
@@ -623,7 +776,7 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         // Verify that the sub-raster can create a ByteBuffer, then create one.
         if (!(subRaster instanceof ByteBufferRaster))
         {
-            String msg = Logging.getMessage("ElevationModel.CannotCreateElevationBuffer", file.getPath());
+            String msg = Logging.getMessage("ElevationModel.CannotCreateElevationBuffer", source);
             Logging.logger().severe(msg);
             throw new WWRuntimeException(msg);
         }
@@ -652,6 +805,35 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         return bufferWrapper;
     }
 
+    /**
+     * Reads the rasters of a GeoTIFF addressed by a URL that isn't a file, such as a tile archive entry, without
+     * copying it to a file.
+     *
+     * @param url the GeoTIFF's URL.
+     *
+     * @return the GeoTIFF's rasters.
+     *
+     * @throws IOException if the GeoTIFF can't be read.
+     */
+    protected DataRaster[] readTiffRasters(URL url) throws IOException
+    {
+        ByteBuffer buffer;
+        synchronized (this.fileLock)
+        {
+            buffer = WWIO.readURLContentToBuffer(url);
+        }
+
+        GeotiffReader reader = new GeotiffReader(buffer, url.toString());
+        try
+        {
+            return reader.readDataRaster();
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
     protected static ByteBuffer convertImageToElevations(ByteBuffer buffer, String contentType) throws IOException
     {
         File tempFile = File.createTempFile("wwj-", WWIO.makeSuffixForMimeType(contentType));
@@ -1262,6 +1444,141 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         return tile != null ? this.lookupElevation(latitude, longitude, tile) : this.getMissingDataSignal();
     }
 
+    /**
+     * Returns the elevation at a specified location, using the highest resolution elevations in memory. This is
+     * equivalent to {@link #getUnmappedElevation(Angle, Angle)}, but when the model has a tile store (see {@link
+     * #createTileStore(AVList)}) and the store contains a tile at the location, the elevation is computed from the
+     * store without allocating objects. Otherwise, or when the model's expiry time has passed and its tiles must be
+     * checked for expiration, the elevation is determined as by {@link #getUnmappedElevation(Angle, Angle)}.
+     *
+     * @param latRadians the location's latitude, in radians.
+     * @param lonRadians the location's longitude, in radians.
+     *
+     * @return the elevation at the location, or the missing data signal if the elevation is unknown.
+     */
+    @Override
+    public double getUnmappedElevation(double latRadians, double lonRadians)
+    {
+        if (this.tileStore != null
+            && !(this.getExpiryTime() > 0 && this.getExpiryTime() < System.currentTimeMillis()))
+        {
+            double elevation = this.lookupStoredElevation(latRadians, lonRadians);
+            if (!Double.isNaN(elevation))
+                return elevation;
+        }
+
+        return this.getUnmappedElevation(Angle.fromRadians(latRadians), Angle.fromRadians(lonRadians));
+    }
+
+    /**
+     * Returns the elevation at a specified location from the model's local data source. This is equivalent to {@link
+     * #getUnmappedLocalSourceElevation(Angle, Angle)}, but when the model has a tile store and the store contains the
+     * last level's tile at the location, the elevation is computed from the store without allocating objects.
+     *
+     * @param latRadians the location's latitude, in radians.
+     * @param lonRadians the location's longitude, in radians.
+     *
+     * @return the elevation at the location, or the missing data signal if the elevation is unknown.
+     */
+    @Override
+    public double getUnmappedLocalSourceElevation(double latRadians, double lonRadians)
+    {
+        // Sector level limits vary the last level by location, so the store is used only when there are none.
+        if (this.tileStore != null && this.levels.getSectorLevelLimits() == null)
+        {
+            double elevation = this.isStoredLocation(latRadians, lonRadians)
+                ? this.lookupStoredElevation(latRadians, lonRadians, this.levels.getLastLevel())
+                : this.getMissingDataSignal();
+            if (!Double.isNaN(elevation))
+                return elevation;
+        }
+
+        return this.getUnmappedLocalSourceElevation(Angle.fromRadians(latRadians), Angle.fromRadians(lonRadians));
+    }
+
+    /**
+     * Computes the elevation at a location from the highest resolution tile in the model's tile store that contains
+     * the location.
+     *
+     * @param latRadians the location's latitude, in radians.
+     * @param lonRadians the location's longitude, in radians.
+     *
+     * @return the elevation, the missing data signal if the location is outside the model's coverage, or
+     * <code>Double.NaN</code> if the store does not contain a tile at the location.
+     */
+    protected double lookupStoredElevation(double latRadians, double lonRadians)
+    {
+        if (!this.isStoredLocation(latRadians, lonRadians))
+            return this.getMissingDataSignal();
+
+        for (int n = Math.min(this.levels.getNumLevels() - 1, ElevationTileStore.MAX_LEVEL); n >= 0; n--)
+        {
+            double elevation = this.lookupStoredElevation(latRadians, lonRadians, this.levels.getLevel(n));
+            if (!Double.isNaN(elevation))
+                return elevation;
+        }
+
+        return Double.NaN;
+    }
+
+    /**
+     * Indicates whether a location is within the model's coverage, and may therefore have elevations in the model's
+     * tile store.
+     *
+     * @param latRadians the location's latitude, in radians.
+     * @param lonRadians the location's longitude, in radians.
+     *
+     * @return true if the location is within the model's sector, otherwise false.
+     */
+    protected boolean isStoredLocation(double latRadians, double lonRadians)
+    {
+        Sector sector = this.levels.getSector();
+        return latRadians >= sector.getMinLatitude().radians && latRadians <= sector.getMaxLatitude().radians
+            && lonRadians >= sector.getMinLongitude().radians && lonRadians <= sector.getMaxLongitude().radians;
+    }
+
+    /**
+     * Computes the elevation at a location from the tile of a specified level in the model's tile store.
+     *
+     * @param latRadians the location's latitude, in radians.
+     * @param lonRadians the location's longitude, in radians.
+     * @param level      the level whose tile is used.
+     *
+     * @return the elevation, the missing data signal if the tile has no data at the location, or
+     * <code>Double.NaN</code> if the store does not contain the level's tile at the location.
+     */
+    protected double lookupStoredElevation(double latRadians, double lonRadians, Level level)
+    {
+        if (level.isEmpty() || level.getLevelNumber() > ElevationTileStore.MAX_LEVEL)
+            return Double.NaN;
+
+        // Compute the location relative to the tile grid, as Tile.computeRow and Tile.computeColumn do.
+        LatLon origin = this.levels.getTileOrigin();
+        double gridLat = latRadians - origin.getLatitude().radians;
+        double gridLon = lonRadians - origin.getLongitude().radians;
+        if (gridLon < 0)
+            gridLon += 2 * Math.PI;
+
+        double dLat = level.getTileDelta().getLatitude().radians;
+        double dLon = level.getTileDelta().getLongitude().radians;
+        int row = (int) (gridLat / dLat);
+        int col = (int) (gridLon / dLon);
+        if (gridLat == Math.PI)
+            row--;
+        if (gridLon == 2 * Math.PI)
+            col--;
+        if (row < 0 || col < 0)
+            return Double.NaN;
+
+        int width = level.getTileWidth();
+        int height = level.getTileHeight();
+        double x = (gridLon - col * dLon) / dLon * (width - 1);
+        double y = ((row + 1) * dLat - gridLat) / dLat * (height - 1);
+
+        return this.tileStore.interpolate(ElevationTileStore.createKey(level.getLevelNumber(), row, col), width,
+            height, x, y, this.getMissingDataSignal());
+    }
+
     public double getElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution, double[] buffer)
     {
         return this.getElevations(sector, latlons, targetResolution, buffer, true);
@@ -1627,7 +1944,7 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         if (this.extremesLookupCache == null)
         {
             long size = Configuration.getLongValue(AVKey.ELEVATION_EXTREMES_LOOKUP_CACHE_SIZE, 20000000L);
-            this.extremesLookupCache = new BasicMemoryCache((long) (0.85 * size), size);
+            this.extremesLookupCache = WorldWind.getMemoryCacheSet().createCache((long) (0.85 * size), size);
         }
 
         return this.extremesLookupCache;
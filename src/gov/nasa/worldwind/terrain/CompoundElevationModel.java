@@ -461,6 +461,30 @@ public class CompoundElevationModel extends AbstractElevationModel
         return value;
     }
 
+    @Override
+    public double getUnmappedElevation(double latRadians, double lonRadians)
+    {
+        // Find the best elevation available at the specified location. Elevation models return their missing data
+        // signal for locations outside their coverage area, so the models' coverage needn't be tested separately.
+        double value = this.missingDataFlag;
+        for (int i = this.elevationModels.size() - 1; i >= 0; i--) // iterate from highest resolution to lowest
+        {
+            ElevationModel em = this.elevationModels.get(i);
+
+            if (!em.isEnabled())
+                continue;
+
+            double emValue = em.getUnmappedElevation(latRadians, lonRadians);
+            if (emValue != em.getMissingDataSignal())
+            {
+                value = emValue;
+                break;
+            }
+        }
+
+        return value;
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -734,4 +758,27 @@ public class CompoundElevationModel extends AbstractElevationModel
 
         return elevation;
     }
+
+    @Override
+    public double getUnmappedLocalSourceElevation(double latRadians, double lonRadians)
+    {
+        double elevation = this.getMissingDataSignal();
+
+        // Traverse the elevation model list from highest resolution to lowest.
+        for (int i = this.elevationModels.size() - 1; i >= 0; i--)
+        {
+            ElevationModel em = this.elevationModels.get(i);
+            if (em instanceof BasicElevationModel && em.isEnabled())
+            {
+                double e = em.getUnmappedLocalSourceElevation(latRadians, lonRadians);
+                if (e != em.getMissingDataSignal())
+                {
+                    elevation = e;
+                    break;
+                }
+            }
+        }
+
+        return elevation;
+    }
 }
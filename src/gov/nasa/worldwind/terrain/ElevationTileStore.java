@@ -0,0 +1,495 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.util.*;
+
+import java.nio.*;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Holds elevation tiles in a fixed pool of slots allocated outside the Java heap. Each slot holds the samples of one
+ * tile as 32-bit floating point values, and slots are located by a primitive <code>long</code> key that combines the
+ * tile's level, row and column (see {@link #createKey(int, int, int)}). Slots are allocated once, when the store is
+ * created, and are reused as tiles are added and evicted, so a populated store places no load on the garbage collector
+ * and its size does not lengthen collection pauses.
+ * <p>
+ * When all slots are in use, adding a tile evicts the least recently used tile, approximated by the clock algorithm.
+ * <p>
+ * The store may be accessed by multiple threads. Lookups neither lock nor allocate unless they run concurrently with a
+ * modification of the store.
+ */
+public class ElevationTileStore
+{
+    protected static final long EMPTY_KEY = -1L;
+    protected static final int MAX_LEVEL = 127;
+    protected static final int MAX_ROW_OR_COLUMN = (1 << 28) - 1;
+
+    protected final int slotSize;
+    protected final int capacity;
+    protected final int slotsPerSlab;
+    protected final FloatBuffer[] slabs;
+
+    // Open addressing hash table, using linear probing, mapping tile keys to slot indices.
+    protected final long[] tableKeys;
+    protected final int[] tableSlots;
+    protected final int tableMask;
+
+    // The key of the tile held in each slot, and whether it has been used since the clock hand last passed it.
+    protected final long[] slotKeys;
+    protected final boolean[] slotReferenced;
+    protected int numTiles;
+    protected int clockHand;
+
+    protected final StampedLock lock = new StampedLock();
+
+    /**
+     * Constructs a store with a specified number of slots, each large enough to hold a specified number of samples.
+     *
+     * @param slotSize the maximum number of samples in a tile, usually the tile width times the tile height.
+     * @param capacity the number of tiles the store can hold.
+     *
+     * @throws IllegalArgumentException if either the slot size or the capacity is less than 1.
+     */
+    public ElevationTileStore(int slotSize, int capacity)
+    {
+        if (slotSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "slotSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (capacity < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "capacity < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.slotSize = slotSize;
+        this.capacity = capacity;
+
+        // A direct buffer holds at most Integer.MAX_VALUE bytes, so large stores are divided among several slabs.
+        this.slotsPerSlab = Math.max(1, Math.min(capacity, Integer.MAX_VALUE / (4 * slotSize)));
+        this.slabs = new FloatBuffer[(capacity + this.slotsPerSlab - 1) / this.slotsPerSlab];
+        for (int i = 0; i < this.slabs.length; i++)
+        {
+            int numSlots = Math.min(this.slotsPerSlab, capacity - i * this.slotsPerSlab);
+            this.slabs[i] = ByteBuffer.allocateDirect(4 * numSlots * slotSize).order(
+                ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+
+        // Keep the table at most half full so that probe sequences remain short.
+        int tableSize = Integer.highestOneBit(Math.max(capacity, 1)) << 2;
+        this.tableKeys = new long[tableSize];
+        this.tableSlots = new int[tableSize];
+        this.tableMask = tableSize - 1;
+        Arrays.fill(this.tableKeys, EMPTY_KEY);
+
+        this.slotKeys = new long[capacity];
+        this.slotReferenced = new boolean[capacity];
+        Arrays.fill(this.slotKeys, EMPTY_KEY);
+    }
+
+    /**
+     * Creates the key identifying a tile in the store.
+     *
+     * @param level  the tile's level number, from 0 to 127.
+     * @param row    the tile's row, from 0 to 2<sup>28</sup> - 1.
+     * @param column the tile's column, from 0 to 2<sup>28</sup> - 1.
+     *
+     * @return the tile's key.
+     *
+     * @throws IllegalArgumentException if the level, row or column is out of range.
+     */
+    public static long createKey(int level, int row, int column)
+    {
+        if (level < 0 || level > MAX_LEVEL || row < 0 || row > MAX_ROW_OR_COLUMN || column < 0
+            || column > MAX_ROW_OR_COLUMN)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange",
+                "level " + level + ", row " + row + ", column " + column);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return ((long) level << 56) | ((long) row << 28) | column;
+    }
+
+    /**
+     * Indicates the maximum number of samples in a tile.
+     *
+     * @return the number of samples in a slot.
+     */
+    public int getSlotSize()
+    {
+        return this.slotSize;
+    }
+
+    /**
+     * Indicates the number of tiles the store can hold.
+     *
+     * @return the store's capacity.
+     */
+    public int getCapacity()
+    {
+        return this.capacity;
+    }
+
+    /**
+     * Indicates the number of tiles currently in the store.
+     *
+     * @return the number of tiles.
+     */
+    public int getNumTiles()
+    {
+        long stamp = this.lock.readLock();
+        try
+        {
+            return this.numTiles;
+        }
+        finally
+        {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Indicates the amount of off-heap memory used by the store, whether or not its slots are in use.
+     *
+     * @return the size of the store, in bytes.
+     */
+    public long getSizeInBytes()
+    {
+        return 4L * this.slotSize * this.capacity;
+    }
+
+    /**
+     * Indicates whether the store contains a tile.
+     *
+     * @param key the tile's key.
+     *
+     * @return true if the tile is in the store, otherwise false.
+     */
+    public boolean contains(long key)
+    {
+        long stamp = this.lock.readLock();
+        try
+        {
+            return this.findSlot(key) >= 0;
+        }
+        finally
+        {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Adds a tile to the store, replacing any tile with the same key. If the store is full, the least recently used
+     * tile is evicted.
+     *
+     * @param key        the tile's key.
+     * @param elevations the tile's samples.
+     *
+     * @throws IllegalArgumentException if the elevations are null or there are more than the slot size.
+     */
+    public void put(long key, BufferWrapper elevations)
+    {
+        if (elevations == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int length = elevations.length();
+        if (length > this.slotSize)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "elevations length " + length);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        long stamp = this.lock.writeLock();
+        try
+        {
+            int slot = this.findSlot(key);
+            if (slot < 0)
+            {
+                slot = this.allocateSlot();
+                this.slotKeys[slot] = key;
+                this.insertKey(key, slot);
+                this.numTiles++;
+            }
+
+            FloatBuffer slab = this.slabs[slot / this.slotsPerSlab];
+            int offset = (slot % this.slotsPerSlab) * this.slotSize;
+            for (int i = 0; i < length; i++)
+            {
+                slab.put(offset + i, (float) elevations.getDouble(i));
+            }
+
+            this.slotReferenced[slot] = true;
+        }
+        finally
+        {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a tile from the store.
+     *
+     * @param key the tile's key.
+     *
+     * @return true if the tile was in the store, otherwise false.
+     */
+    public boolean remove(long key)
+    {
+        long stamp = this.lock.writeLock();
+        try
+        {
+            int slot = this.findSlot(key);
+            if (slot < 0)
+                return false;
+
+            this.removeKey(key);
+            this.slotKeys[slot] = EMPTY_KEY;
+            this.slotReferenced[slot] = false;
+            this.numTiles--;
+            return true;
+        }
+        finally
+        {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Removes all tiles from the store. The store's memory is retained for reuse. */
+    public void clear()
+    {
+        long stamp = this.lock.writeLock();
+        try
+        {
+            Arrays.fill(this.tableKeys, EMPTY_KEY);
+            Arrays.fill(this.slotKeys, EMPTY_KEY);
+            Arrays.fill(this.slotReferenced, false);
+            this.numTiles = 0;
+            this.clockHand = 0;
+        }
+        finally
+        {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the value of a tile sample.
+     *
+     * @param key   the tile's key.
+     * @param index the sample's index within the tile.
+     *
+     * @return the sample's value, or <code>Double.NaN</code> if the tile is not in the store.
+     */
+    public double getSample(long key, int index)
+    {
+        long stamp = this.lock.tryOptimisticRead();
+        double value = this.doGetSample(key, index);
+        if (this.lock.validate(stamp))
+            return value;
+
+        stamp = this.lock.readLock();
+        try
+        {
+            return this.doGetSample(key, index);
+        }
+        finally
+        {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Computes the value at a location within a tile by bilinear interpolation of the tile's samples. The location is
+     * specified in fractional grid coordinates, with the first row of the tile at its maximum latitude. If any of the
+     * samples surrounding the location has the missing data signal, the missing data signal is returned.
+     *
+     * @param key               the tile's key.
+     * @param width             the tile's width, in samples.
+     * @param height            the tile's height, in samples.
+     * @param x                 the location's column, from 0 to width - 1.
+     * @param y                 the location's row, from 0 to height - 1.
+     * @param missingDataSignal the value indicating a missing sample.
+     *
+     * @return the interpolated value, or <code>Double.NaN</code> if the tile is not in the store.
+     */
+    public double interpolate(long key, int width, int height, double x, double y, double missingDataSignal)
+    {
+        long stamp = this.lock.tryOptimisticRead();
+        double value = this.doInterpolate(key, width, height, x, y, missingDataSignal);
+        if (this.lock.validate(stamp))
+            return value;
+
+        // The store was modified during the lookup, so the result may be inconsistent. Repeat the lookup while
+        // excluding modifications.
+        stamp = this.lock.readLock();
+        try
+        {
+            return this.doInterpolate(key, width, height, x, y, missingDataSignal);
+        }
+        finally
+        {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    protected double doGetSample(long key, int index)
+    {
+        int slot = this.findSlot(key);
+        if (slot < 0 || index < 0 || index >= this.slotSize)
+            return Double.NaN;
+
+        this.slotReferenced[slot] = true;
+        return this.slabs[slot / this.slotsPerSlab].get((slot % this.slotsPerSlab) * this.slotSize + index);
+    }
+
+    protected double doInterpolate(long key, int width, int height, double x, double y, double missingDataSignal)
+    {
+        int slot = this.findSlot(key);
+        if (slot < 0 || width * height > this.slotSize)
+            return Double.NaN;
+
+        this.slotReferenced[slot] = true;
+        FloatBuffer slab = this.slabs[slot / this.slotsPerSlab];
+        int offset = (slot % this.slotsPerSlab) * this.slotSize;
+
+        int i = Math.max(0, Math.min(width - 1, (int) x));
+        int j = Math.max(0, Math.min(height - 1, (int) y));
+        int k = offset + j * width + i;
+        float missing = (float) missingDataSignal;
+
+        float eLeft = slab.get(k);
+        float eRight = i < width - 1 ? slab.get(k + 1) : eLeft;
+        if (eLeft == missing || eRight == missing)
+            return missingDataSignal;
+
+        double ssLon = x - i;
+        double ssLat = y - j;
+        double eTop = eLeft + ssLon * (eRight - eLeft);
+
+        if (j < height - 1 && i < width - 1)
+        {
+            eLeft = slab.get(k + width);
+            eRight = slab.get(k + width + 1);
+            if (eLeft == missing || eRight == missing)
+                return missingDataSignal;
+        }
+
+        double eBot = eLeft + ssLon * (eRight - eLeft);
+        return eTop + ssLat * (eBot - eTop);
+    }
+
+    protected int findSlot(long key)
+    {
+        // The probe is bounded by the table size so that it terminates even if it observes the table mid-update.
+        int index = this.hash(key);
+        for (int n = 0; n <= this.tableMask; n++)
+        {
+            long k = this.tableKeys[index];
+            if (k == key)
+                return this.tableSlots[index];
+            if (k == EMPTY_KEY)
+                return -1;
+            index = (index + 1) & this.tableMask;
+        }
+
+        return -1;
+    }
+
+    protected int allocateSlot()
+    {
+        if (this.numTiles < this.capacity)
+        {
+            for (int slot = 0; slot < this.capacity; slot++)
+            {
+                int s = (this.clockHand + slot) % this.capacity;
+                if (this.slotKeys[s] == EMPTY_KEY)
+                {
+                    this.clockHand = (s + 1) % this.capacity;
+                    return s;
+                }
+            }
+        }
+
+        // Every slot is in use. Advance the clock hand, clearing reference flags, until an unreferenced slot is found.
+        while (true)
+        {
+            int slot = this.clockHand;
+            this.clockHand = (slot + 1) % this.capacity;
+
+            if (this.slotReferenced[slot])
+            {
+                this.slotReferenced[slot] = false;
+                continue;
+            }
+
+            this.removeKey(this.slotKeys[slot]);
+            this.slotKeys[slot] = EMPTY_KEY;
+            this.numTiles--;
+            return slot;
+        }
+    }
+
+    protected void insertKey(long key, int slot)
+    {
+        int index = this.hash(key);
+        while (this.tableKeys[index] != EMPTY_KEY)
+        {
+            index = (index + 1) & this.tableMask;
+        }
+
+        this.tableSlots[index] = slot;
+        this.tableKeys[index] = key;
+    }
+
+    protected void removeKey(long key)
+    {
+        int index = this.hash(key);
+        while (this.tableKeys[index] != key)
+        {
+            if (this.tableKeys[index] == EMPTY_KEY)
+                return;
+            index = (index + 1) & this.tableMask;
+        }
+
+        // Shift subsequent entries of the probe sequence back so that no entry is separated from its home position by
+        // an empty entry.
+        int gap = index;
+        index = (index + 1) & this.tableMask;
+        while (this.tableKeys[index] != EMPTY_KEY)
+        {
+            int home = this.hash(this.tableKeys[index]);
+            if (((index - home) & this.tableMask) >= ((index - gap) & this.tableMask))
+            {
+                this.tableKeys[gap] = this.tableKeys[index];
+                this.tableSlots[gap] = this.tableSlots[index];
+                gap = index;
+            }
+            index = (index + 1) & this.tableMask;
+        }
+
+        this.tableKeys[gap] = EMPTY_KEY;
+    }
+
+    protected int hash(long key)
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & this.tableMask;
+    }
+}
@@ -94,6 +94,7 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
     protected int numCols;
     protected MemoryCache geometryCache;
     protected ThreadLocal<Long> startTime = new ThreadLocal<Long>();
+    protected ForkJoinPool lineOfSightPool;
 
     /**
      * Constructs a terrain object for a specified globe.
@@ -142,7 +143,8 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
 
         this.computeDimensions();
 
-        this.geometryCache = new BasicMemoryCache((long) (0.85 * DEFAULT_CACHE_CAPACITY), DEFAULT_CACHE_CAPACITY);
+        this.geometryCache = WorldWind.getMemoryCacheSet().createCache((long) (0.85 * DEFAULT_CACHE_CAPACITY),
+            DEFAULT_CACHE_CAPACITY);
 //        this.geometryCache.addCacheListener(new MemoryCache.CacheListener()
 //        {
 //            public void entryRemoved(Object key, Object clientObject)
@@ -327,6 +329,77 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
         return p.distanceTo3(pt) * (pt.getLength3() >= p.getLength3() ? 1 : -1);
     }
 
+    /**
+     * Determines the elevations at a list of locations with a single bulk query of the globe's elevation model, rather
+     * than by computing terrain geometry for each location. The query waits until elevations of the specified
+     * resolution are available, or of the best resolution the elevation model has for the locations if that's coarser.
+     * The current timeout applies.
+     * <p>
+     * The elevation model retrieves every tile in the sector bounding the locations, so the locations should be close
+     * together relative to the resolution. The elevations include this terrain's vertical exaggeration.
+     *
+     * @param locations  the locations to determine elevations for.
+     * @param resolution the desired resolution, in radians. This terrain's target resolution is used if it's coarser.
+     * @param elevations an array in which to return the elevations, in meters. Must have at least as many elements as
+     *                   there are locations. If the timeout expires, the array contains the best elevations available.
+     *
+     * @throws IllegalArgumentException if the list of locations or the array of elevations is null, or if the array is
+     *                                  too small.
+     * @throws InterruptedException     if the operation is interrupted.
+     * @throws gov.nasa.worldwind.exception.WWTimeoutException
+     *                                  if the current timeout is exceeded while retrieving elevations.
+     */
+    public void getElevations(List<? extends LatLon> locations, double resolution, double[] elevations)
+        throws InterruptedException
+    {
+        if (locations == null)
+        {
+            String msg = Logging.getMessage("nullValue.LatLonListIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (elevations == null)
+        {
+            String msg = Logging.getMessage("nullValue.ElevationsBufferIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (elevations.length < locations.size())
+        {
+            String msg = Logging.getMessage("ElevationModel.ElevationsBufferTooSmall", locations.size());
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (locations.isEmpty())
+            return;
+
+        try
+        {
+            this.startTime.set(System.currentTimeMillis());
+
+            Sector sector = Sector.boundingSector(locations);
+            double[] targetResolution = this.getGlobe().getElevationModel().getBestResolutions(sector);
+            for (int i = 0; i < targetResolution.length; i++)
+            {
+                targetResolution[i] = Math.max(targetResolution[i], Math.max(resolution, this.targetResolution));
+            }
+
+            this.getElevations(sector, new ArrayList<LatLon>(locations), targetResolution, elevations);
+        }
+        finally
+        {
+            this.startTime.set(null); // signals that no operation is active
+
+            for (int i = 0; i < locations.size(); i++)
+            {
+                elevations[i] *= this.verticalExaggeration;
+            }
+        }
+    }
+
     /**
      * Intersect a line with the terrain.
      * <p>
@@ -484,6 +557,297 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
         service.awaitTermination(100, TimeUnit.DAYS); // wait indefinitely for all threads to complete
     }
 
+    /** Defines an interface for returning the results of a batch line-of-sight computation. */
+    public interface LineOfSightCallback
+    {
+        /**
+         * Called with the result for one target. Results are returned as they're computed, on the threads computing
+         * them, and therefore in no particular order.
+         *
+         * @param index        the target's index in the list of targets.
+         * @param target       the target.
+         * @param intersection the terrain intersection nearest the observer and between the observer and the target,
+         *                     or null if the target is visible from the observer.
+         */
+        void lineOfSight(int index, Position target, Intersection intersection);
+
+        /**
+         * Called if an exception occurs while computing the result for a target.
+         *
+         * @param index     the target's index in the list of targets.
+         * @param target    the target.
+         * @param exception the exception thrown.
+         */
+        void exception(int index, Position target, Exception exception);
+    }
+
+    /**
+     * Determines whether each of a list of targets is visible from an observer. The computation runs asynchronously
+     * and in parallel, and returns each target's result to the callback as soon as it's determined. The terrain tiles
+     * between the observer and the targets are computed once and shared by all lines of sight, so the cost of a batch
+     * is much less than that of intersecting each line separately.
+     * <p>
+     * Positions' altitudes are relative to the terrain. The current timeout applies to each target individually.
+     *
+     * @param observer the observer's position.
+     * @param targets  the target positions.
+     * @param callback the object to return the results to.
+     *
+     * @return a future that completes when all results have been returned. Cancelling the future stops the
+     * computation; results for targets not yet computed are not returned.
+     *
+     * @throws IllegalArgumentException if the observer, the list of targets or the callback is null.
+     */
+    public Future<?> intersect(Position observer, List<? extends Position> targets, LineOfSightCallback callback)
+    {
+        if (observer == null)
+        {
+            String msg = Logging.getMessage("nullValue.PositionIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (targets == null)
+        {
+            String msg = Logging.getMessage("nullValue.PositionsListIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (callback == null)
+        {
+            String msg = Logging.getMessage("nullValue.CallbackIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        return this.getLineOfSightPool().submit(new LineOfSightTask(observer, new ArrayList<Position>(targets),
+            callback));
+    }
+
+    /**
+     * Returns the pool that runs batch line-of-sight computations, creating it if necessary. The pool's threads end
+     * when they've been idle for a while.
+     *
+     * @return the line-of-sight pool.
+     */
+    protected synchronized ForkJoinPool getLineOfSightPool()
+    {
+        if (this.lineOfSightPool == null)
+            this.lineOfSightPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        return this.lineOfSightPool;
+    }
+
+    /** An operation on one element of an indexed collection, used by {@link IndexRangeAction}. */
+    protected interface IndexAction
+    {
+        void run(int index);
+    }
+
+    /**
+     * Applies an {@link IndexAction} to a range of indices in parallel, splitting the range until it's small enough to
+     * process sequentially. Processing stops when a specified task is cancelled.
+     */
+    @SuppressWarnings("serial")
+    protected static class IndexRangeAction extends RecursiveAction
+    {
+        protected static final int THRESHOLD = 4;
+
+        protected final IndexAction action;
+        protected final ForkJoinTask<?> owner;
+        protected final int start;
+        protected final int end;
+
+        public IndexRangeAction(IndexAction action, ForkJoinTask<?> owner, int start, int end)
+        {
+            this.action = action;
+            this.owner = owner;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.end - this.start <= THRESHOLD)
+            {
+                for (int i = this.start; i < this.end && !this.owner.isCancelled(); i++)
+                {
+                    this.action.run(i);
+                }
+            }
+            else if (!this.owner.isCancelled())
+            {
+                int mid = (this.start + this.end) >>> 1;
+                invokeAll(new IndexRangeAction(this.action, this.owner, this.start, mid),
+                    new IndexRangeAction(this.action, this.owner, mid, this.end));
+            }
+        }
+    }
+
+    /**
+     * Computes a batch of lines of sight in three parallel passes: the first determines each line and the tiles it
+     * crosses, the second computes the geometry of each distinct tile once, and the third intersects each line with its
+     * tiles and returns the result.
+     */
+    @SuppressWarnings("serial")
+    protected class LineOfSightTask extends RecursiveAction
+    {
+        protected final Position observer;
+        protected final List<Position> targets;
+        protected final LineOfSightCallback callback;
+        protected final Line[] lines;
+        protected final List<List<RectTile>> tiles;
+        protected final ConcurrentHashMap<Sector, RectTile> sharedTiles = new ConcurrentHashMap<Sector, RectTile>();
+        protected final boolean[] failed;
+
+        public LineOfSightTask(Position observer, List<Position> targets, LineOfSightCallback callback)
+        {
+            this.observer = observer;
+            this.targets = targets;
+            this.callback = callback;
+            this.lines = new Line[targets.size()];
+            this.tiles = new ArrayList<List<RectTile>>(Collections.nCopies(targets.size(), (List<RectTile>) null));
+            this.failed = new boolean[targets.size()];
+        }
+
+        @Override
+        protected void compute()
+        {
+            new IndexRangeAction(new IndexAction()
+            {
+                public void run(int index)
+                {
+                    findTiles(index);
+                }
+            }, this, 0, this.targets.size()).invoke();
+
+            final RectTile[] uniqueTiles = this.sharedTiles.values().toArray(new RectTile[0]);
+            new IndexRangeAction(new IndexAction()
+            {
+                public void run(int index)
+                {
+                    buildTile(uniqueTiles[index]);
+                }
+            }, this, 0, uniqueTiles.length).invoke();
+
+            new IndexRangeAction(new IndexAction()
+            {
+                public void run(int index)
+                {
+                    intersectLine(index);
+                }
+            }, this, 0, this.targets.size()).invoke();
+        }
+
+        protected void findTiles(int index)
+        {
+            Position target = this.targets.get(index);
+
+            try
+            {
+                startTime.set(System.currentTimeMillis());
+
+                Line line = makeLineFromPositions(this.observer, target);
+                List<RectTile> lineTiles = line != null ? getIntersectingTiles(this.observer, target, line) : null;
+                if (lineTiles == null)
+                    return;
+
+                // Replace the tiles with the instances shared by all lines so that each is computed only once.
+                for (int i = 0; i < lineTiles.size(); i++)
+                {
+                    RectTile tile = lineTiles.get(i);
+                    RectTile shared = this.sharedTiles.putIfAbsent(tile.sector, tile);
+                    if (shared != null)
+                        lineTiles.set(i, shared);
+                }
+
+                this.lines[index] = line;
+                this.tiles.set(index, lineTiles);
+            }
+            catch (Exception e)
+            {
+                this.failed[index] = true;
+                this.callback.exception(index, target, e);
+            }
+            finally
+            {
+                startTime.set(null); // signals that no operation is active
+            }
+        }
+
+        protected void buildTile(RectTile tile)
+        {
+            try
+            {
+                startTime.set(System.currentTimeMillis());
+
+                synchronized (tile)
+                {
+                    if (tile.ri == null)
+                        makeVerts(tile);
+                }
+            }
+            catch (Exception e)
+            {
+                // The failure is reported for each affected line when the line is intersected with the tile.
+                Logging.logger().finest(e.toString());
+            }
+            finally
+            {
+                startTime.set(null); // signals that no operation is active
+            }
+        }
+
+        protected void intersectLine(int index)
+        {
+            if (this.failed[index])
+                return;
+
+            Position target = this.targets.get(index);
+            Line line = this.lines[index];
+            List<RectTile> lineTiles = this.tiles.get(index);
+
+            Intersection intersection = null;
+            try
+            {
+                startTime.set(System.currentTimeMillis());
+
+                if (line != null && lineTiles != null)
+                {
+                    // Retry any tiles whose geometry couldn't be computed in the previous pass.
+                    for (RectTile tile : lineTiles)
+                    {
+                        synchronized (tile)
+                        {
+                            if (tile.ri == null)
+                                makeVerts(tile);
+                        }
+                    }
+
+                    Intersection[] hits = intersect(lineTiles, line);
+
+                    // Only intersections between the observer and the target block the line of sight.
+                    double length = line.getDirection().getLength3();
+                    if (hits != null && hits[0].getIntersectionPoint().distanceTo3(line.getOrigin()) < length)
+                        intersection = hits[0];
+                }
+            }
+            catch (Exception e)
+            {
+                this.callback.exception(index, target, e);
+                return;
+            }
+            finally
+            {
+                startTime.set(null); // signals that no operation is active
+            }
+
+            this.callback.lineOfSight(index, target, intersection);
+        }
+    }
+
     /**
      * Cause the tiles used by subsequent intersection calculations to be cached so that they are available immediately
      * to those subsequent calculations.
@@ -746,6 +1110,22 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
         if (tiles == null)
             return null;
 
+        return this.intersect(tiles, line);
+    }
+
+    /**
+     * Computes intersections of a line with a specified list of terrain tiles.
+     *
+     * @param tiles the tiles to intersect.
+     * @param line  the line to intersect.
+     *
+     * @return an array of intersections sorted by increasing distance from the line's origin, or null if no
+     * intersections occur.
+     *
+     * @throws InterruptedException if the operation is interrupted.
+     */
+    protected Intersection[] intersect(List<RectTile> tiles, Line line) throws InterruptedException
+    {
         Intersection[] hits;
         ArrayList<Intersection> list = new ArrayList<Intersection>();
         for (RectTile tile : tiles)
@@ -1072,7 +1452,7 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
 
         for (int i = 0; i < latlons.size(); i++) {
             LatLon ll = latlons.get(i);
-            double elevation = em.getUnmappedLocalSourceElevation(ll.latitude, ll.longitude);
+            double elevation = em.getUnmappedLocalSourceElevation(ll.latitude.radians, ll.longitude.radians);
             if (elevation == em.getMissingDataSignal()) {
                 elevation = em.getMissingDataReplacement();
             }
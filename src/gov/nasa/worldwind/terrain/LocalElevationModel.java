@@ -9,13 +9,16 @@ import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.data.*;
 import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.formats.tiff.GeotiffReader;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.util.*;
 
 import java.io.*;
-import java.nio.ByteBuffer;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
 
 /**
  * Implements an elevation model for a local file or collection of files containing elevation data.
@@ -23,16 +26,88 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * Note: Unless the amount of data associated with the local elevation models is small, it's best to construct and add
  * elevations to a local elevation model on a thread other than the event dispatch thread in order to avoid freezing the
  * user interface.
+ * <p>
+ * Large files can be memory mapped rather than read into memory. See {@link #setMapLargeFiles(boolean)}. A mapped file
+ * is added in constant time: its elevations are read from the file system cache as they're needed, and its minimum
+ * and maximum elevations are read from a sidecar file written the first time the file is used, or otherwise computed
+ * on a background thread.
  *
  * @author tag
  * @version $Id: LocalElevationModel.java 2138 2014-07-10 17:31:58Z tgaskins $
  */
 public class LocalElevationModel extends AbstractElevationModel
 {
-    /** The min and max elevations. */
-    protected double[] extremeElevations = null;
+    /**
+     * The executor that computes the extremes of mapped files, shared by all local elevation models. Its single thread
+     * scans one file at a time, and exits when there are no files to scan.
+     */
+    protected static ThreadPoolExecutor extremesExecutor;
+
+    /** The min and max elevations. Replaced rather than modified, so readers always see a consistent pair. */
+    protected volatile double[] extremeElevations = null;
     /** The list of elevation rasters, one per file specified. */
     protected CopyOnWriteArrayList<LocalTile> tiles = new CopyOnWriteArrayList<LocalTile>();
+    /** Indicates whether files larger than the large file threshold are memory mapped rather than read. */
+    protected boolean mapLargeFiles = false;
+    /** The file size, in bytes, at or above which files are memory mapped when mapping is enabled. */
+    protected long largeFileThreshold = 16777216L; // 16 megabytes
+
+    /**
+     * Indicates whether files at least as large as the large file threshold are memory mapped rather than read into
+     * memory.
+     *
+     * @return true if large files are memory mapped, otherwise false.
+     *
+     * @see #setMapLargeFiles(boolean)
+     */
+    public boolean isMapLargeFiles()
+    {
+        return this.mapLargeFiles;
+    }
+
+    /**
+     * Specifies whether files at least as large as the large file threshold are memory mapped rather than read into
+     * memory. Only uncompressed BIL files and uncompressed, untiled GeoTIFF files in geographic coordinates can be
+     * mapped. Other files are read into memory regardless of this setting. The default is false.
+     *
+     * @param mapLargeFiles true to memory map large files, otherwise false.
+     *
+     * @see #setLargeFileThreshold(long)
+     */
+    public void setMapLargeFiles(boolean mapLargeFiles)
+    {
+        this.mapLargeFiles = mapLargeFiles;
+    }
+
+    /**
+     * Returns the file size at or above which files are memory mapped when large file mapping is enabled.
+     *
+     * @return the large file threshold, in bytes.
+     */
+    public long getLargeFileThreshold()
+    {
+        return this.largeFileThreshold;
+    }
+
+    /**
+     * Specifies the file size at or above which files are memory mapped when large file mapping is enabled. The
+     * default is 16 megabytes.
+     *
+     * @param largeFileThreshold the large file threshold, in bytes.
+     *
+     * @throws IllegalArgumentException if the threshold is negative.
+     */
+    public void setLargeFileThreshold(long largeFileThreshold)
+    {
+        if (largeFileThreshold < 0L)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "largeFileThreshold < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.largeFileThreshold = largeFileThreshold;
+    }
 
     public double getMinElevation()
     {
@@ -335,6 +410,18 @@ public class LocalElevationModel extends AbstractElevationModel
             throw new IllegalArgumentException(msg);
         }
 
+        // Map the file rather than read it if it's large and its layout allows it.
+        if (this.isMapLargeFiles() && file.length() >= this.getLargeFileThreshold())
+        {
+            LocalTile tile = this.createMappedTile(file, reader, metadata);
+            if (tile != null)
+            {
+                this.tiles.add(tile);
+                this.adjustMinMax(tile);
+                return;
+            }
+        }
+
         // Read the file into the raster.
         DataRaster[] rasters = reader.read(file, null);
         if (rasters == null || rasters.length == 0)
@@ -397,6 +484,240 @@ public class LocalElevationModel extends AbstractElevationModel
         raster.dispose();
     }
 
+    /**
+     * Creates a tile whose elevations are read from a memory mapping of a specified file rather than from memory. Only
+     * uncompressed BIL files and uncompressed, untiled single-image GeoTIFF files in geographic coordinates can be
+     * mapped.
+     *
+     * @param file     the file containing the elevations.
+     * @param reader   the raster reader selected for the file.
+     * @param metadata the file's metadata, as read by the raster reader.
+     *
+     * @return the new tile, or null if the file cannot be mapped.
+     *
+     * @throws IOException if an exception occurs while opening or mapping the file.
+     */
+    protected LocalTile createMappedTile(File file, DataRasterReader reader, AVList metadata) throws IOException
+    {
+        Object o = metadata.getValue(AVKey.COORDINATE_SYSTEM);
+        if (o != null && !AVKey.COORDINATE_SYSTEM_GEOGRAPHIC.equals(o))
+            return null;
+
+        Sector sector = (Sector) metadata.getValue(AVKey.SECTOR);
+        Integer width = AVListImpl.getIntegerValue(metadata, AVKey.WIDTH);
+        Integer height = AVListImpl.getIntegerValue(metadata, AVKey.HEIGHT);
+        int sampleType = MappedLocalTile.getSampleType(metadata.getStringValue(AVKey.DATA_TYPE));
+        if (sector == null || width == null || height == null || width < 2 || height < 2 || sampleType < 0)
+            return null;
+
+        // The metadata's byte order describes the rasters the reader creates, which isn't necessarily the order of
+        // the file itself, so determine the order and the location of the elevations from the file.
+        long offset;
+        ByteOrder byteOrder;
+        if (reader instanceof BILRasterReader && !file.getName().toLowerCase().endsWith(".gz"))
+        {
+            offset = 0;
+            byteOrder = AVKey.LITTLE_ENDIAN.equals(metadata.getValue(AVKey.BYTE_ORDER)) ? ByteOrder.LITTLE_ENDIAN
+                : ByteOrder.BIG_ENDIAN;
+        }
+        else if (reader instanceof GeotiffRasterReader)
+        {
+            GeotiffReader tiffReader = new GeotiffReader(file);
+            try
+            {
+                offset = tiffReader.getNumImages() == 1 ? tiffReader.getContiguousDataOffset(0) : -1;
+                byteOrder = tiffReader.getByteOrder();
+            }
+            finally
+            {
+                tiffReader.dispose();
+            }
+        }
+        else
+        {
+            return null;
+        }
+
+        int bytesPerSample = MappedLocalTile.getBytesPerSample(sampleType);
+        long rowBytes = (long) width * bytesPerSample;
+        if (offset < 0 || rowBytes > Integer.MAX_VALUE || offset + rowBytes * height > file.length())
+            return null;
+
+        // A single mapping is limited to 2 GB, so map the file in chunks of whole rows.
+        int rowsPerChunk = (int) Math.min(height, Integer.MAX_VALUE / rowBytes);
+        ByteBuffer[] chunks = new ByteBuffer[(height + rowsPerChunk - 1) / rowsPerChunk];
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            for (int i = 0; i < chunks.length; i++)
+            {
+                int rows = Math.min(rowsPerChunk, height - i * rowsPerChunk);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + i * rowsPerChunk * rowBytes,
+                    rows * rowBytes).order(byteOrder);
+            }
+        }
+        finally
+        {
+            WWIO.closeStream(raf, file.getPath());
+        }
+
+        Double missingDataFlag = AVListImpl.getDoubleValue(metadata, AVKey.MISSING_DATA_SIGNAL);
+        if (missingDataFlag == null)
+            missingDataFlag = this.getMissingDataSignal();
+
+        MappedLocalTile tile = new MappedLocalTile(sector, missingDataFlag, width, height, chunks, rowsPerChunk,
+            sampleType);
+
+        double[] extremes = this.readExtremes(file);
+        if (extremes != null)
+        {
+            tile.setExtremes(extremes[0], extremes[1]);
+        }
+        else
+        {
+            tile.estimateExtremes();
+            this.computeExtremes(tile, file);
+        }
+
+        return tile;
+    }
+
+    /**
+     * Determines the exact minimum and maximum elevations of a mapped tile on a background thread. The tile's extremes
+     * widen as the computation progresses. When it completes the extremes are saved to the file's sidecar file and this
+     * elevation model's extremes are updated.
+     *
+     * @param tile the tile to compute extremes for.
+     * @param file the file the tile maps.
+     */
+    protected void computeExtremes(final MappedLocalTile tile, final File file)
+    {
+        getExtremesExecutor().execute(new Runnable()
+        {
+            public void run()
+            {
+                tile.computeMinMaxElevations();
+                writeExtremes(file, tile.minElevation, tile.maxElevation);
+                adjustMinMax(null);
+            }
+        });
+    }
+
+    /**
+     * Returns the executor that computes the extremes of mapped files, creating it the first time it's requested.
+     *
+     * @return the shared extremes executor.
+     */
+    protected static synchronized ThreadPoolExecutor getExtremesExecutor()
+    {
+        if (extremesExecutor == null)
+        {
+            extremesExecutor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory()
+                {
+                    public Thread newThread(Runnable runnable)
+                    {
+                        Thread thread = new Thread(runnable, "LocalElevationModel extremes");
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }
+                });
+            extremesExecutor.allowCoreThreadTimeOut(true);
+        }
+
+        return extremesExecutor;
+    }
+
+    /**
+     * Returns the sidecar file that holds the minimum and maximum elevations of a mapped elevation file.
+     *
+     * @param file the elevation file.
+     *
+     * @return the sidecar file.
+     */
+    protected File getExtremesFile(File file)
+    {
+        return new File(file.getPath() + ".extremes");
+    }
+
+    /**
+     * Reads the minimum and maximum elevations of a mapped elevation file from its sidecar file. The sidecar is
+     * ignored if the elevation file's size or modification time differs from that recorded in the sidecar.
+     *
+     * @param file the elevation file.
+     *
+     * @return a two-element array containing the minimum and maximum elevations, or null if the sidecar does not exist
+     *         or is out of date.
+     */
+    protected double[] readExtremes(File file)
+    {
+        File extremesFile = this.getExtremesFile(file);
+        if (!extremesFile.exists())
+            return null;
+
+        InputStream stream = null;
+        try
+        {
+            stream = new FileInputStream(extremesFile);
+            Properties properties = new Properties();
+            properties.load(stream);
+
+            if (Long.parseLong(properties.getProperty("length")) != file.length()
+                || Long.parseLong(properties.getProperty("lastModified")) != file.lastModified())
+                return null;
+
+            return new double[] {Double.parseDouble(properties.getProperty("minElevation")),
+                Double.parseDouble(properties.getProperty("maxElevation"))};
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("generic.ExceptionAttemptingToReadFile", extremesFile.getPath());
+            Logging.logger().log(Level.FINE, message, e);
+            return null;
+        }
+        finally
+        {
+            WWIO.closeStream(stream, extremesFile.getPath());
+        }
+    }
+
+    /**
+     * Writes the minimum and maximum elevations of a mapped elevation file to its sidecar file. Failure to write the
+     * sidecar, such as when the file's directory is read-only, is logged but otherwise ignored.
+     *
+     * @param file         the elevation file.
+     * @param minElevation the file's minimum elevation.
+     * @param maxElevation the file's maximum elevation.
+     */
+    protected void writeExtremes(File file, double minElevation, double maxElevation)
+    {
+        File extremesFile = this.getExtremesFile(file);
+
+        OutputStream stream = null;
+        try
+        {
+            Properties properties = new Properties();
+            properties.setProperty("length", Long.toString(file.length()));
+            properties.setProperty("lastModified", Long.toString(file.lastModified()));
+            properties.setProperty("minElevation", Double.toString(minElevation));
+            properties.setProperty("maxElevation", Double.toString(maxElevation));
+
+            stream = new FileOutputStream(extremesFile);
+            properties.store(stream, file.getName());
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("generic.ExceptionAttemptingToWriteTo", extremesFile.getPath());
+            Logging.logger().log(Level.FINE, message, e);
+        }
+        finally
+        {
+            WWIO.closeStream(stream, extremesFile.getPath());
+        }
+    }
+
     /**
      * Adds new elevations to this elevation model. The elevations are specified as a rectangular array arranged in
      * row-major order in a linear buffer.
@@ -499,22 +820,22 @@ public class LocalElevationModel extends AbstractElevationModel
     }
 
     /**
-     * Updates the min and max elevations for this elevation model to account for a specified tile.
+     * Updates the min and max elevations for this elevation model to account for a specified tile. This is called
+     * both when tiles are added and when the extremes of a mapped tile have been computed in the background.
      *
-     * @param tile the tile to account for.
+     * @param tile the tile to account for, or null to account for all tiles.
      */
-    protected void adjustMinMax(LocalTile tile)
+    protected synchronized void adjustMinMax(LocalTile tile)
     {
-        if (this.extremeElevations == null && tile != null)
+        double[] extremes = this.extremeElevations;
+        if (extremes == null && tile != null)
         {
             this.extremeElevations = new double[] {tile.minElevation, tile.maxElevation};
         }
         else if (tile != null) // adjust for just the input tile
         {
-            if (tile.minElevation < this.extremeElevations[0])
-                this.extremeElevations[0] = tile.minElevation;
-            if (tile.maxElevation > this.extremeElevations[1])
-                this.extremeElevations[1] = tile.maxElevation;
+            this.extremeElevations = new double[] {Math.min(tile.minElevation, extremes[0]),
+                Math.max(tile.maxElevation, extremes[1])};
         }
         else // Find the min and max among all the tiles
         {
@@ -558,10 +879,10 @@ public class LocalElevationModel extends AbstractElevationModel
 
         int j = (int) ((tile.tileHeight - 1) * sLat);
         int i = (int) ((tile.tileWidth - 1) * sLon);
-        int k = j * tile.tileWidth + i;
+        long k = (long) j * tile.tileWidth + i;
 
-        double eLeft = tile.elevations.getDouble(k);
-        double eRight = i < (tile.tileWidth - 1) ? tile.elevations.getDouble(k + 1) : eLeft;
+        double eLeft = tile.getElevation(k);
+        double eRight = i < (tile.tileWidth - 1) ? tile.getElevation(k + 1) : eLeft;
 
         // Notice that the below test is against the tile flag, but the value returned is the model's flag.
         if (tile.isMissingData(eLeft) || tile.isMissingData(eRight))
@@ -576,8 +897,8 @@ public class LocalElevationModel extends AbstractElevationModel
 
         if (j < tile.tileHeight - 1 && i < tile.tileWidth - 1)
         {
-            eLeft = tile.elevations.getDouble(k + tile.tileWidth);
-            eRight = tile.elevations.getDouble(k + tile.tileWidth + 1);
+            eLeft = tile.getElevation(k + tile.tileWidth);
+            eRight = tile.getElevation(k + tile.tileWidth + 1);
 
             // Notice that the below test is against the tile flag, but the value returned is the model's flag.
             if (tile.isMissingData(eLeft) || tile.isMissingData(eRight))
@@ -659,6 +980,19 @@ public class LocalElevationModel extends AbstractElevationModel
             return;
         }
 
+        /**
+         * Returns one of this tile's elevations.
+         *
+         * @param index the row-major index of the elevation. A long, since a mapped tile may hold more than
+         *              <code>Integer.MAX_VALUE</code> elevations.
+         *
+         * @return the elevation at the index.
+         */
+        protected double getElevation(long index)
+        {
+            return this.elevations.getDouble((int) index);
+        }
+
         /** Determines the minimum and maximum elevations of this tile. */
         protected void computeMinMaxElevations()
         {
@@ -706,4 +1040,224 @@ public class LocalElevationModel extends AbstractElevationModel
                 || value == -32767;
         }
     }
+
+    /**
+     * A tile whose elevations are read from a memory mapped file. Until the tile's exact minimum and maximum elevations
+     * are known, only the missing data signal and the well known void values identify missing data, and the extremes
+     * are estimated from a sparse sample of the elevations.
+     */
+    protected static class MappedLocalTile extends LocalTile
+    {
+        protected static final int INT8 = 0;
+        protected static final int INT16 = 1;
+        protected static final int INT32 = 2;
+        protected static final int FLOAT32 = 3;
+        protected static final int FLOAT64 = 4;
+        /** The number of rows sampled in each direction when estimating the tile's extremes. */
+        protected static final int ESTIMATE_SAMPLES = 64;
+
+        /** The mapped regions of the file, each holding {@link #rowsPerChunk} rows except possibly the last. */
+        protected final ByteBuffer[] chunks;
+        /** The number of rows in each chunk. */
+        protected final int rowsPerChunk;
+        /** The number of elevations in each chunk. */
+        protected final int samplesPerChunk;
+        /** The type of the elevations, one of the type constants of this class. */
+        protected final int sampleType;
+        /** The size of an elevation, in bytes. */
+        protected final int bytesPerSample;
+        /** Indicates whether the minimum and maximum elevations are exact rather than estimated. */
+        protected volatile boolean extremesComplete;
+
+        /**
+         * Constructs a new mapped elevations tile. The tile's extremes are zero until they're specified, estimated or
+         * computed.
+         *
+         * @param sector          the sector the tile covers.
+         * @param missingDataFlag the elevation model's missing data flag.
+         * @param tileWidth       the number of elevation values in a row of this tile's elevation raster.
+         * @param tileHeight      the number of rows in this tile's elevation raster.
+         * @param chunks          the mapped elevations.
+         * @param rowsPerChunk    the number of rows in each chunk.
+         * @param sampleType      the type of the elevations, one of the type constants of this class.
+         */
+        protected MappedLocalTile(Sector sector, double missingDataFlag, int tileWidth, int tileHeight,
+            ByteBuffer[] chunks, int rowsPerChunk, int sampleType)
+        {
+            super(sector, missingDataFlag, tileWidth, tileHeight, null, 0d, 0d);
+
+            this.chunks = chunks;
+            this.rowsPerChunk = rowsPerChunk;
+            this.samplesPerChunk = rowsPerChunk * tileWidth;
+            this.sampleType = sampleType;
+            this.bytesPerSample = getBytesPerSample(sampleType);
+        }
+
+        /**
+         * Returns the type constant for a data type.
+         *
+         * @param dataType the data type, one of the AVKey data type constants.
+         *
+         * @return the corresponding type constant, or -1 if the data type isn't supported.
+         */
+        protected static int getSampleType(String dataType)
+        {
+            if (AVKey.INT8.equals(dataType))
+                return INT8;
+            else if (AVKey.INT16.equals(dataType))
+                return INT16;
+            else if (AVKey.INT32.equals(dataType))
+                return INT32;
+            else if (AVKey.FLOAT32.equals(dataType))
+                return FLOAT32;
+            else if (AVKey.FLOAT64.equals(dataType))
+                return FLOAT64;
+
+            return -1;
+        }
+
+        /**
+         * Returns the size of an elevation of a specified type.
+         *
+         * @param sampleType the elevation type, one of the type constants of this class.
+         *
+         * @return the size of the elevation, in bytes.
+         */
+        protected static int getBytesPerSample(int sampleType)
+        {
+            switch (sampleType)
+            {
+                case INT8:
+                    return 1;
+                case INT16:
+                    return 2;
+                case INT32:
+                case FLOAT32:
+                    return 4;
+                default:
+                    return 8;
+            }
+        }
+
+        @Override
+        protected double getElevation(long index)
+        {
+            int chunk = (int) (index / this.samplesPerChunk);
+            int position = (int) (index - (long) chunk * this.samplesPerChunk) * this.bytesPerSample;
+            ByteBuffer buffer = this.chunks[chunk];
+
+            switch (this.sampleType)
+            {
+                case INT8:
+                    return buffer.get(position);
+                case INT16:
+                    return buffer.getShort(position);
+                case INT32:
+                    return buffer.getInt(position);
+                case FLOAT32:
+                    return buffer.getFloat(position);
+                default:
+                    return buffer.getDouble(position);
+            }
+        }
+
+        /**
+         * Specifies the exact minimum and maximum elevations of this tile.
+         *
+         * @param minElevation the minimum elevation.
+         * @param maxElevation the maximum elevation.
+         */
+        protected void setExtremes(double minElevation, double maxElevation)
+        {
+            this.minElevation = minElevation;
+            this.maxElevation = maxElevation;
+            this.extremesComplete = true;
+        }
+
+        /** Estimates the minimum and maximum elevations of this tile from a grid of samples. */
+        protected void estimateExtremes()
+        {
+            double min = Double.MAX_VALUE;
+            double max = -min;
+
+            for (int j = 0; j < ESTIMATE_SAMPLES; j++)
+            {
+                int row = (int) ((long) j * (this.tileHeight - 1) / (ESTIMATE_SAMPLES - 1));
+                for (int i = 0; i < ESTIMATE_SAMPLES; i++)
+                {
+                    int col = (int) ((long) i * (this.tileWidth - 1) / (ESTIMATE_SAMPLES - 1));
+                    double v = this.getElevation((long) row * this.tileWidth + col);
+                    if (this.isVoid(v))
+                        continue;
+
+                    if (v < min)
+                        min = v;
+                    if (v > max)
+                        max = v;
+                }
+            }
+
+            this.minElevation = min != Double.MAX_VALUE ? min : 0;
+            this.maxElevation = max != -Double.MAX_VALUE ? max : 0;
+        }
+
+        /**
+         * Determines the exact minimum and maximum elevations of this tile by reading every elevation. The tile's
+         * estimated extremes are widened after every 1024 rows so that they're usable during the computation.
+         */
+        @Override
+        protected void computeMinMaxElevations()
+        {
+            double min = Double.MAX_VALUE;
+            double max = -min;
+
+            for (int j = 0; j < this.tileHeight; j++)
+            {
+                long k = (long) j * this.tileWidth;
+                for (int i = 0; i < this.tileWidth; i++, k++)
+                {
+                    double v = this.getElevation(k);
+                    if (this.isVoid(v))
+                        continue;
+
+                    if (v < min)
+                        min = v;
+                    if (v > max)
+                        max = v;
+                }
+
+                if ((j + 1) % 1024 == 0)
+                {
+                    if (min < this.minElevation)
+                        this.minElevation = min;
+                    if (max > this.maxElevation)
+                        this.maxElevation = max;
+                }
+            }
+
+            this.setExtremes(min != Double.MAX_VALUE ? min : 0, max != -Double.MAX_VALUE ? max : 0);
+        }
+
+        /**
+         * Indicates whether a value is this tile's missing data signal or one of the void values commonly used but not
+         * always identified in elevation files. Such values are excluded from the tile's extremes.
+         *
+         * @param value the value to test.
+         *
+         * @return true if the value identifies a void, otherwise false.
+         */
+        protected boolean isVoid(double value)
+        {
+            return value == this.missingDataFlag
+                || value == ElevationsUtil.DTED_DEFAULT_MISSING_SIGNAL
+                || value == ElevationsUtil.SRTM_DEFAULT_MISSING_SIGNAL
+                || value == ElevationsUtil.DEM_DEFAULT_MISSING_SIGNAL;
+        }
+
+        @Override
+        protected boolean isMissingData(double value)
+        {
+            return this.extremesComplete ? super.isMissingData(value) : this.isVoid(value);
+        }
+    }
 }
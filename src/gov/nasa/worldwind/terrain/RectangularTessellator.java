@@ -427,7 +427,7 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         if (!WorldWind.getMemoryCacheSet().containsCache(CACHE_ID))
         {
             long size = Configuration.getLongValue(AVKey.SECTOR_GEOMETRY_CACHE_SIZE, 10000000L);
-            MemoryCache cache = new BasicMemoryCache((long) (0.85 * size), size);
+            MemoryCache cache = WorldWind.getMemoryCacheSet().createCache((long) (0.85 * size), size);
             cache.setName(CACHE_NAME);
             WorldWind.getMemoryCacheSet().addCache(CACHE_ID, cache);
         }
@@ -1126,7 +1126,7 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
 
             LatLon ll = tile.getSector().getCentroid();
             Vec4 pt = dc.getGlobe().computePointFromPosition(ll.getLatitude(), ll.getLongitude(),
-                dc.getGlobe().getElevation(ll.getLatitude(), ll.getLongitude()));
+                dc.getGlobe().getElevation(ll.getLatitude().radians, ll.getLongitude().radians));
             pt = dc.getView().project(pt);
             textRenderer.draw(tileLabel, (int) pt.x, (int) pt.y);
             textRenderer.setColor(Color.WHITE);
@@ -1369,7 +1369,7 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         Position pp = dc.getGlobe().computePositionFromPoint(intersect);
 
         // Draw the elevation from the elevation model, not the geode.
-        double elev = dc.getGlobe().getElevation(pp.getLatitude(), pp.getLongitude());
+        double elev = dc.getGlobe().getElevation(pp.getLatitude().radians, pp.getLongitude().radians);
         elev *= dc.getVerticalExaggeration();
         Position p = new Position(pp.getLatitude(), pp.getLongitude(), elev);
 
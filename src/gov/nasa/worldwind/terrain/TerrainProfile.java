@@ -0,0 +1,292 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.Logging;
+
+/**
+ * The terrain elevations at a sequence of locations, together with statistics of the elevations and of the slope
+ * between consecutive locations. Profiles are computed by {@link TerrainProfiler}, and are not modified once computed.
+ * <p>
+ * A profile that's still being refined has elevations determined at only some of its locations, and elevations
+ * interpolated between them at the others. See {@link #isComplete()}.
+ */
+public class TerrainProfile
+{
+    protected final LatLon[] locations;
+    protected final double[] elevations;
+    protected final double[] distances;
+    protected final double resolution;
+    protected final boolean complete;
+    protected int minElevationIndex;
+    protected int maxElevationIndex;
+    protected double meanElevation;
+    protected double maxSlope;
+    protected double meanSlope;
+    protected double totalAscent;
+    protected double totalDescent;
+
+    /**
+     * Constructs a profile and computes its statistics. The arrays are used by reference and must not be modified
+     * afterwards.
+     *
+     * @param locations  the profile's locations.
+     * @param elevations the elevation at each location, in meters.
+     * @param distances  the distance of each location from the first, along the profile, in meters.
+     * @param resolution the resolution of the elevations, in radians.
+     * @param complete   true if the elevations have been determined at every location, false if some are
+     *                   interpolated.
+     *
+     * @throws IllegalArgumentException if any array is null or empty, or if the arrays' lengths differ.
+     */
+    public TerrainProfile(LatLon[] locations, double[] elevations, double[] distances, double resolution,
+        boolean complete)
+    {
+        if (locations == null || elevations == null || distances == null)
+        {
+            String msg = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (locations.length == 0 || elevations.length != locations.length || distances.length != locations.length)
+        {
+            String msg = Logging.getMessage("generic.ArrayInvalidLength", locations.length);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.locations = locations;
+        this.elevations = elevations;
+        this.distances = distances;
+        this.resolution = resolution;
+        this.complete = complete;
+
+        this.computeStatistics();
+    }
+
+    /**
+     * Indicates the number of locations in this profile.
+     *
+     * @return the number of locations.
+     */
+    public int getSampleCount()
+    {
+        return this.locations.length;
+    }
+
+    /**
+     * Returns one of this profile's locations.
+     *
+     * @param index the location's index.
+     *
+     * @return the location.
+     */
+    public LatLon getLocation(int index)
+    {
+        return this.locations[index];
+    }
+
+    /**
+     * Returns the terrain elevation at one of this profile's locations.
+     *
+     * @param index the location's index.
+     *
+     * @return the elevation, in meters.
+     */
+    public double getElevation(int index)
+    {
+        return this.elevations[index];
+    }
+
+    /**
+     * Returns one of this profile's locations at the terrain's elevation.
+     *
+     * @param index the location's index.
+     *
+     * @return the position.
+     */
+    public Position getPosition(int index)
+    {
+        return new Position(this.locations[index], this.elevations[index]);
+    }
+
+    /**
+     * Returns the distance along this profile from its first location to one of its locations.
+     *
+     * @param index the location's index.
+     *
+     * @return the distance, in meters.
+     */
+    public double getDistance(int index)
+    {
+        return this.distances[index];
+    }
+
+    /**
+     * Indicates this profile's length.
+     *
+     * @return the distance from the first location to the last along the profile, in meters.
+     */
+    public double getLength()
+    {
+        return this.distances[this.distances.length - 1];
+    }
+
+    /**
+     * Indicates the resolution of this profile's elevations.
+     *
+     * @return the resolution, in radians.
+     */
+    public double getResolution()
+    {
+        return this.resolution;
+    }
+
+    /**
+     * Indicates whether the elevations have been determined at every location. An incomplete profile is an
+     * approximation delivered while the profile is being refined.
+     *
+     * @return true if this profile is complete, otherwise false.
+     */
+    public boolean isComplete()
+    {
+        return this.complete;
+    }
+
+    /**
+     * Returns the index of the location with the least elevation.
+     *
+     * @return the location's index.
+     */
+    public int getMinElevationIndex()
+    {
+        return this.minElevationIndex;
+    }
+
+    /**
+     * Returns the index of the location with the greatest elevation.
+     *
+     * @return the location's index.
+     */
+    public int getMaxElevationIndex()
+    {
+        return this.maxElevationIndex;
+    }
+
+    /**
+     * Returns the least elevation along this profile.
+     *
+     * @return the minimum elevation, in meters.
+     */
+    public double getMinElevation()
+    {
+        return this.elevations[this.minElevationIndex];
+    }
+
+    /**
+     * Returns the greatest elevation along this profile.
+     *
+     * @return the maximum elevation, in meters.
+     */
+    public double getMaxElevation()
+    {
+        return this.elevations[this.maxElevationIndex];
+    }
+
+    /**
+     * Returns the mean elevation along this profile, weighting each segment between consecutive locations by its
+     * length.
+     *
+     * @return the mean elevation, in meters.
+     */
+    public double getMeanElevation()
+    {
+        return this.meanElevation;
+    }
+
+    /**
+     * Returns the steepest slope between consecutive locations, whether ascending or descending.
+     *
+     * @return the maximum slope angle, in degrees.
+     */
+    public double getMaxSlope()
+    {
+        return this.maxSlope;
+    }
+
+    /**
+     * Returns the mean slope between consecutive locations, weighting each segment by its length. Ascending and
+     * descending slopes both count as positive.
+     *
+     * @return the mean slope angle, in degrees.
+     */
+    public double getMeanSlope()
+    {
+        return this.meanSlope;
+    }
+
+    /**
+     * Returns the sum of the elevation increases between consecutive locations.
+     *
+     * @return the total ascent, in meters.
+     */
+    public double getTotalAscent()
+    {
+        return this.totalAscent;
+    }
+
+    /**
+     * Returns the sum of the elevation decreases between consecutive locations.
+     *
+     * @return the total descent, in meters. This is a positive number.
+     */
+    public double getTotalDescent()
+    {
+        return this.totalDescent;
+    }
+
+    protected void computeStatistics()
+    {
+        double elevationSum = this.elevations[0];
+        double weightedSum = 0;
+        double slopeSum = 0;
+
+        for (int i = 1; i < this.elevations.length; i++)
+        {
+            double e0 = this.elevations[i - 1];
+            double e1 = this.elevations[i];
+            double d = this.distances[i] - this.distances[i - 1];
+
+            if (e1 < this.elevations[this.minElevationIndex])
+                this.minElevationIndex = i;
+            if (e1 > this.elevations[this.maxElevationIndex])
+                this.maxElevationIndex = i;
+
+            if (e1 > e0)
+                this.totalAscent += e1 - e0;
+            else
+                this.totalDescent += e0 - e1;
+
+            elevationSum += e1;
+            weightedSum += 0.5 * (e0 + e1) * d;
+
+            if (d > 0)
+            {
+                double slope = Math.toDegrees(Math.atan(Math.abs(e1 - e0) / d));
+                slopeSum += slope * d;
+                if (slope > this.maxSlope)
+                    this.maxSlope = slope;
+            }
+        }
+
+        double length = this.getLength();
+        this.meanElevation = length > 0 ? weightedSum / length : elevationSum / this.elevations.length;
+        this.meanSlope = length > 0 ? slopeSum / length : 0;
+    }
+}
@@ -0,0 +1,544 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.exception.WWTimeoutException;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Computes terrain profiles: the elevations of a {@link HighResolutionTerrain} at a sequence of locations, together
+ * with statistics of the elevations and slopes along them. Elevations are retrieved with bulk queries of runs of nearby
+ * locations, rather than one query per location.
+ * <p>
+ * Profiles may be computed synchronously with {@link #computeProfile(List)}, or in the background with {@link
+ * #requestProfile(List, ProfileCallback)}. A background request refines the profile progressively: it first returns a
+ * coarse profile whose elevations are determined at a few locations and interpolated between them, then the complete
+ * profile. Each request supersedes the previous one, so an application that requests a new profile whenever its
+ * input changes receives results only for the latest input.
+ * <p>
+ * The profiler keeps the most recent complete profile, and reuses its elevations at locations that have moved less
+ * than a small fraction of the sample spacing. Shifting a profile's endpoints slightly therefore retrieves elevations
+ * only where the locations have moved appreciably.
+ * <p>
+ * If the terrain's timeout expires before all the elevations are available, the profile is computed from the best
+ * elevations available and is marked incomplete. Incomplete profiles aren't kept for reuse, so requesting the profile
+ * again once the terrain's elevation tiles have arrived computes it anew.
+ */
+public class TerrainProfiler
+{
+    protected static final String THREAD_NAME = "WorldWind Terrain Profiler";
+    /** The default number of locations whose elevations are determined in the coarse refinement pass. */
+    protected static final int DEFAULT_COARSE_SAMPLE_COUNT = 32;
+    /** The default fraction of the sample spacing within which a previous elevation is reused. */
+    protected static final double DEFAULT_REUSE_FACTOR = 0.1;
+    /** The greatest length of a run of locations retrieved in one query, in multiples of the query's resolution. */
+    protected static final int MAX_QUERY_RESOLUTIONS = 256;
+
+    /** Defines an interface for returning the results of a background profile computation. */
+    public interface ProfileCallback
+    {
+        /**
+         * Called with each refinement of a profile, on the profiler's thread. The last profile returned is complete
+         * unless the terrain's timeout expired before all its elevations were available.
+         *
+         * @param profile the profile.
+         */
+        void profileComputed(TerrainProfile profile);
+
+        /**
+         * Called if an exception occurs while computing a profile.
+         *
+         * @param exception the exception thrown.
+         */
+        void exception(Exception exception);
+    }
+
+    protected HighResolutionTerrain terrain;
+    protected int coarseSampleCount = DEFAULT_COARSE_SAMPLE_COUNT;
+    protected double reuseFactor = DEFAULT_REUSE_FACTOR;
+    protected volatile TerrainProfile lastProfile;
+    protected volatile int numElevationsRetrieved;
+    protected ThreadPoolExecutor executor;
+    protected Future<?> pendingRequest;
+
+    /**
+     * Constructs a profiler for a specified terrain.
+     *
+     * @param terrain the terrain to profile.
+     *
+     * @throws IllegalArgumentException if the terrain is null.
+     */
+    public TerrainProfiler(HighResolutionTerrain terrain)
+    {
+        if (terrain == null)
+        {
+            String msg = Logging.getMessage("nullValue.TerrainIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.terrain = terrain;
+    }
+
+    /**
+     * Returns the terrain this profiler profiles.
+     *
+     * @return this profiler's terrain.
+     */
+    public HighResolutionTerrain getTerrain()
+    {
+        return this.terrain;
+    }
+
+    /**
+     * Indicates the number of locations whose elevations are determined in the coarse pass of a background request.
+     *
+     * @return the number of coarse locations.
+     */
+    public int getCoarseSampleCount()
+    {
+        return this.coarseSampleCount;
+    }
+
+    /**
+     * Specifies the number of locations whose elevations are determined in the coarse pass of a background request.
+     * Profiles with no more locations than this are computed in a single pass. The default is 32.
+     *
+     * @param coarseSampleCount the number of coarse locations.
+     *
+     * @throws IllegalArgumentException if the count is less than 2.
+     */
+    public void setCoarseSampleCount(int coarseSampleCount)
+    {
+        if (coarseSampleCount < 2)
+        {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", coarseSampleCount);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.coarseSampleCount = coarseSampleCount;
+    }
+
+    /**
+     * Indicates the fraction of the sample spacing within which elevations of the previous profile are reused.
+     *
+     * @return the reuse factor.
+     */
+    public double getReuseFactor()
+    {
+        return this.reuseFactor;
+    }
+
+    /**
+     * Specifies the fraction of the sample spacing within which elevations of the previous profile are reused. A
+     * location whose counterpart in the previous complete profile is closer than this fraction of the spacing between
+     * locations takes that profile's elevation. The default is 0.1. Zero disables reuse.
+     *
+     * @param reuseFactor the reuse factor.
+     *
+     * @throws IllegalArgumentException if the factor is negative.
+     */
+    public void setReuseFactor(double reuseFactor)
+    {
+        if (reuseFactor < 0)
+        {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", reuseFactor);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.reuseFactor = reuseFactor;
+    }
+
+    /**
+     * Indicates the number of elevations retrieved from the terrain while computing the most recent profile. Elevations
+     * reused from the previous profile are not counted.
+     *
+     * @return the number of elevations retrieved.
+     */
+    public int getNumElevationsRetrieved()
+    {
+        return this.numElevationsRetrieved;
+    }
+
+    /**
+     * Computes the profile along the great circle between two locations.
+     *
+     * @param start      the profile's first location.
+     * @param end        the profile's last location.
+     * @param numSamples the number of locations in the profile, including the first and last.
+     *
+     * @return the profile.
+     *
+     * @throws IllegalArgumentException if either location is null or the number of samples is less than 2.
+     * @throws InterruptedException     if the computation is interrupted.
+     */
+    public TerrainProfile computeProfile(LatLon start, LatLon end, int numSamples) throws InterruptedException
+    {
+        if (start == null || end == null)
+        {
+            String msg = Logging.getMessage("nullValue.LatLonIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (numSamples < 2)
+        {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", numSamples);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        LatLon[] locations = new LatLon[numSamples];
+        for (int i = 0; i < numSamples; i++)
+        {
+            locations[i] = LatLon.interpolateGreatCircle(i / (double) (numSamples - 1), start, end);
+        }
+
+        return this.computeProfile(locations, null);
+    }
+
+    /**
+     * Computes the profile at a sequence of locations. The profile's distances are measured along great circles
+     * between consecutive locations.
+     *
+     * @param locations the profile's locations.
+     *
+     * @return the profile.
+     *
+     * @throws IllegalArgumentException if the list of locations is null or has fewer than 2 locations.
+     * @throws InterruptedException     if the computation is interrupted.
+     */
+    public TerrainProfile computeProfile(List<? extends LatLon> locations) throws InterruptedException
+    {
+        return this.computeProfile(this.toArray(locations), null);
+    }
+
+    /**
+     * Computes the profile at a sequence of locations in the background. The callback receives a coarse profile first,
+     * then the complete profile. This request supersedes any earlier request to this profiler that's still running,
+     * which is cancelled.
+     *
+     * @param locations the profile's locations.
+     * @param callback  the object to return the profiles to.
+     *
+     * @return a future that completes when the complete profile has been returned. Cancelling the future stops the
+     * computation.
+     *
+     * @throws IllegalArgumentException if the list of locations is null or has fewer than 2 locations, or if the
+     *                                  callback is null.
+     */
+    public synchronized Future<?> requestProfile(List<? extends LatLon> locations, final ProfileCallback callback)
+    {
+        final LatLon[] array = this.toArray(locations);
+
+        if (callback == null)
+        {
+            String msg = Logging.getMessage("nullValue.CallbackIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (this.pendingRequest != null)
+            this.pendingRequest.cancel(true);
+
+        this.pendingRequest = this.getExecutor().submit(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    computeProfile(array, callback);
+                }
+                catch (InterruptedException e)
+                {
+                    // The request was cancelled or superseded.
+                }
+                catch (Exception e)
+                {
+                    callback.exception(e);
+                }
+            }
+        });
+
+        return this.pendingRequest;
+    }
+
+    protected LatLon[] toArray(List<? extends LatLon> locations)
+    {
+        if (locations == null)
+        {
+            String msg = Logging.getMessage("nullValue.LocationsListIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (locations.size() < 2)
+        {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", locations.size());
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        LatLon[] array = locations.toArray(new LatLon[locations.size()]);
+        for (LatLon location : array)
+        {
+            if (location == null)
+            {
+                String msg = Logging.getMessage("nullValue.LatLonIsNull");
+                Logging.logger().severe(msg);
+                throw new IllegalArgumentException(msg);
+            }
+        }
+
+        return array;
+    }
+
+    /**
+     * Returns the executor that runs background requests, creating it if necessary. The executor has one thread, which
+     * ends when it's been idle for a while.
+     *
+     * @return the executor.
+     */
+    protected ThreadPoolExecutor getExecutor()
+    {
+        if (this.executor == null)
+        {
+            this.executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory()
+                {
+                    public Thread newThread(Runnable runnable)
+                    {
+                        Thread thread = new Thread(runnable, THREAD_NAME);
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY); // Subordinate thread priority to rendering
+                        return thread;
+                    }
+                });
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+
+        return this.executor;
+    }
+
+    /**
+     * Computes a profile. If a callback is specified and the profile has more locations than the coarse sample count,
+     * a coarse profile is computed and returned to the callback first.
+     *
+     * @param locations the profile's locations.
+     * @param callback  the object to return the coarse and complete profiles to. May be null.
+     *
+     * @return the complete profile, or an incomplete profile if the terrain's timeout expired.
+     *
+     * @throws InterruptedException if the computation is interrupted.
+     */
+    protected TerrainProfile computeProfile(LatLon[] locations, ProfileCallback callback) throws InterruptedException
+    {
+        int numSamples = locations.length;
+        double radius = this.terrain.getGlobe().getRadius();
+
+        double[] distances = new double[numSamples];
+        for (int i = 1; i < numSamples; i++)
+        {
+            distances[i] = distances[i - 1] + LatLon.greatCircleDistance(locations[i - 1], locations[i]).radians
+                * radius;
+        }
+
+        // Elevations finer than the spacing between locations don't contribute to the profile.
+        double resolution = Math.max(distances[numSamples - 1] / (numSamples - 1) / radius,
+            this.terrain.getTargetResolution());
+
+        double[] elevations = new double[numSamples];
+        boolean[] determined = new boolean[numSamples];
+        int numReused = this.reuseElevations(locations, resolution, elevations, determined);
+        int numRetrieved = 0;
+
+        if (callback != null && numReused < numSamples && numSamples > this.coarseSampleCount)
+        {
+            // Determine the elevations at evenly spaced locations, at a resolution matching their spacing, and
+            // interpolate between them.
+            int step = (int) Math.ceil((numSamples - 1) / (double) (this.coarseSampleCount - 1));
+            double[] coarseElevations = elevations.clone();
+            boolean[] coarseDetermined = determined.clone();
+            int[] indices = new int[numSamples];
+            int count = 0;
+            for (int i = 0; i < numSamples; i += step)
+            {
+                if (!coarseDetermined[i])
+                    indices[count++] = i;
+            }
+            if ((numSamples - 1) % step != 0 && !coarseDetermined[numSamples - 1])
+                indices[count++] = numSamples - 1;
+
+            this.retrieveElevations(locations, distances, indices, count, step * resolution, coarseElevations,
+                coarseDetermined);
+            numRetrieved += count;
+            this.interpolateElevations(distances, coarseElevations, coarseDetermined);
+            callback.profileComputed(new TerrainProfile(locations, coarseElevations, distances, step * resolution,
+                false));
+        }
+
+        int[] indices = new int[numSamples];
+        int count = 0;
+        for (int i = 0; i < numSamples; i++)
+        {
+            if (!determined[i])
+                indices[count++] = i;
+        }
+
+        boolean complete = this.retrieveElevations(locations, distances, indices, count, resolution, elevations,
+            determined);
+        numRetrieved += count;
+
+        // A profile computed from elevations that weren't all available isn't kept, so that its coarse elevations
+        // aren't reused once the terrain's elevation tiles have arrived.
+        TerrainProfile profile = new TerrainProfile(locations, elevations, distances, resolution, complete);
+        if (complete)
+            this.lastProfile = profile;
+        this.numElevationsRetrieved = numRetrieved;
+
+        if (callback != null)
+            callback.profileComputed(profile);
+
+        return profile;
+    }
+
+    /**
+     * Copies elevations from the previous complete profile for locations that have moved less than the reuse factor
+     * times the resolution. The previous profile must have the same number of locations, and a resolution no more than
+     * twice as coarse.
+     *
+     * @param locations  the new profile's locations.
+     * @param resolution the new profile's resolution, in radians.
+     * @param elevations the new profile's elevations, updated by this method.
+     * @param determined flags indicating which elevations have been determined, updated by this method.
+     *
+     * @return the number of elevations reused.
+     */
+    protected int reuseElevations(LatLon[] locations, double resolution, double[] elevations, boolean[] determined)
+    {
+        TerrainProfile previous = this.lastProfile;
+        if (previous == null || previous.getSampleCount() != locations.length
+            || previous.getResolution() > 2 * resolution)
+        {
+            return 0;
+        }
+
+        double tolerance = this.reuseFactor * resolution;
+        int count = 0;
+
+        for (int i = 0; i < locations.length; i++)
+        {
+            if (LatLon.greatCircleDistance(previous.getLocation(i), locations[i]).radians <= tolerance)
+            {
+                elevations[i] = previous.getElevation(i);
+                determined[i] = true;
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Retrieves the elevations at a subset of a profile's locations. Consecutive locations are retrieved together in
+     * runs no longer than {@link #MAX_QUERY_RESOLUTIONS} times the resolution, which limits the number of elevation
+     * tiles each query spans. If the terrain's timeout expires, the best elevations available are used, and this
+     * returns false.
+     *
+     * @param locations  the profile's locations.
+     * @param distances  the distance of each location along the profile, in meters.
+     * @param indices    the indices of the locations to retrieve, in increasing order.
+     * @param count      the number of indices.
+     * @param resolution the resolution to retrieve, in radians.
+     * @param elevations the profile's elevations, updated by this method.
+     * @param determined flags indicating which elevations have been determined, updated by this method.
+     *
+     * @return true if the elevations were retrieved at the specified resolution, false if the terrain's timeout expired
+     *         and some are the best available.
+     *
+     * @throws InterruptedException if the operation is interrupted.
+     */
+    protected boolean retrieveElevations(LatLon[] locations, double[] distances, int[] indices, int count,
+        double resolution, double[] elevations, boolean[] determined) throws InterruptedException
+    {
+        double maxRunLength = MAX_QUERY_RESOLUTIONS * resolution * this.terrain.getGlobe().getRadius();
+        ArrayList<LatLon> run = new ArrayList<LatLon>();
+        double[] buffer = new double[count];
+        boolean complete = true;
+
+        for (int start = 0; start < count; )
+        {
+            if (Thread.currentThread().isInterrupted())
+                throw new InterruptedException();
+
+            int end = start + 1;
+            while (end < count && distances[indices[end]] - distances[indices[start]] <= maxRunLength)
+            {
+                end++;
+            }
+
+            run.clear();
+            for (int k = start; k < end; k++)
+            {
+                run.add(locations[indices[k]]);
+            }
+
+            try
+            {
+                this.terrain.getElevations(run, resolution, buffer);
+            }
+            catch (WWTimeoutException e)
+            {
+                Logging.logger().fine(e.getMessage()); // use the best elevations available
+                complete = false;
+            }
+
+            for (int k = start; k < end; k++)
+            {
+                elevations[indices[k]] = buffer[k - start];
+                determined[indices[k]] = true;
+            }
+
+            start = end;
+        }
+
+        return complete;
+    }
+
+    /**
+     * Interpolates elevations, by distance along the profile, between the locations whose elevations have been
+     * determined. The first and last elevations must have been determined.
+     *
+     * @param distances  the distance of each location along the profile, in meters.
+     * @param elevations the profile's elevations, updated by this method.
+     * @param determined flags indicating which elevations have been determined.
+     */
+    protected void interpolateElevations(double[] distances, double[] elevations, boolean[] determined)
+    {
+        int prev = 0;
+        for (int i = 1; i < elevations.length; i++)
+        {
+            if (!determined[i])
+                continue;
+
+            for (int k = prev + 1; k < i; k++)
+            {
+                double span = distances[i] - distances[prev];
+                double s = span > 0 ? (distances[k] - distances[prev]) / span : 0;
+                elevations[k] = elevations[prev] + s * (elevations[i] - elevations[prev]);
+            }
+
+            prev = i;
+        }
+    }
+}
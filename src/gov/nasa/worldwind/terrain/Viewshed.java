@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.data.ByteBufferRaster;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.render.SurfaceImage;
+import gov.nasa.worldwind.util.Logging;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Computes the region of a sector that is visible from an observer. The terrain is sampled once, on a regular grid, from
+ * the globe's elevation model. Visibility is then determined with the R2 sweep of Franklin and Ray: a ray is cast from
+ * the observer to each cell on the grid's perimeter, and a cell along a ray is visible if the slope from the observer to
+ * the cell is at least the largest slope to any cell nearer the observer on the same ray. A cell crossed by several
+ * rays is visible if it's visible along any of them. The cost is proportional to the number of grid cells, rather than
+ * to the number of cells times the length of a line of sight as it is when each line is intersected with the terrain
+ * independently.
+ * <p>
+ * The result is a raster of 8-bit values, 1 for visible cells and 0 for hidden cells, which can be displayed by
+ * converting it to a {@link SurfaceImage} with {@link #createSurfaceImage(ByteBufferRaster, Color, Color)}.
+ */
+public class Viewshed
+{
+    protected Globe globe;
+    protected double targetHeight;
+    protected double verticalExaggeration = 1;
+
+    /**
+     * Constructs a viewshed calculator for a specified globe.
+     *
+     * @param globe the globe whose terrain is used.
+     *
+     * @throws IllegalArgumentException if the globe is null.
+     */
+    public Viewshed(Globe globe)
+    {
+        if (globe == null)
+        {
+            String msg = Logging.getMessage("nullValue.GlobeIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.globe = globe;
+    }
+
+    /**
+     * Returns the globe whose terrain is used.
+     *
+     * @return this viewshed's globe.
+     */
+    public Globe getGlobe()
+    {
+        return this.globe;
+    }
+
+    /**
+     * Indicates the height above the terrain at which targets are considered visible.
+     *
+     * @return the target height, in meters.
+     */
+    public double getTargetHeight()
+    {
+        return this.targetHeight;
+    }
+
+    /**
+     * Specifies the height above the terrain at which targets are considered visible. A cell is visible if a point this
+     * high above it is visible. The default is 0.
+     *
+     * @param targetHeight the target height, in meters.
+     */
+    public void setTargetHeight(double targetHeight)
+    {
+        this.targetHeight = targetHeight;
+    }
+
+    /**
+     * Indicates the vertical exaggeration applied to terrain elevations.
+     *
+     * @return the vertical exaggeration.
+     */
+    public double getVerticalExaggeration()
+    {
+        return this.verticalExaggeration;
+    }
+
+    /**
+     * Specifies the vertical exaggeration to apply to terrain elevations. The default is 1.
+     *
+     * @param verticalExaggeration the vertical exaggeration.
+     */
+    public void setVerticalExaggeration(double verticalExaggeration)
+    {
+        this.verticalExaggeration = verticalExaggeration;
+    }
+
+    /**
+     * Computes the cells of a grid that are visible from an observer. The first row of the grid is at the sector's
+     * maximum latitude and the first column at its minimum longitude, as for other rasters.
+     *
+     * @param observer the observer's position. The altitude is the observer's height above the terrain.
+     * @param sector   the sector to compute visibility for. Must contain the observer.
+     * @param width    the number of grid columns.
+     * @param height   the number of grid rows.
+     *
+     * @return a raster of 8-bit values, 1 for visible cells and 0 for hidden cells.
+     *
+     * @throws IllegalArgumentException if the observer or sector is null, if the sector does not contain the observer,
+     *                                  or if the width or height is less than 2.
+     */
+    public ByteBufferRaster computeViewshed(Position observer, Sector sector, int width, int height)
+    {
+        if (observer == null)
+        {
+            String msg = Logging.getMessage("nullValue.PositionIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (sector == null)
+        {
+            String msg = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (!sector.contains(observer))
+        {
+            String msg = Logging.getMessage("generic.ArgumentOutOfRange", "observer not in sector");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (width < 2 || height < 2)
+        {
+            String msg = Logging.getMessage("generic.InvalidImageSize", width, height);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        double[] elevations = this.sampleElevations(sector, width, height);
+
+        // The observer's location in fractional grid coordinates.
+        double ox = (observer.getLongitude().degrees - sector.getMinLongitude().degrees)
+            / sector.getDeltaLonDegrees() * (width - 1);
+        double oy = (sector.getMaxLatitude().degrees - observer.getLatitude().degrees)
+            / sector.getDeltaLatDegrees() * (height - 1);
+        double observerElevation = this.verticalExaggeration
+            * this.globe.getElevation(observer.getLatitude(), observer.getLongitude()) + observer.getAltitude();
+
+        // Cell dimensions and the terrain's curvature are approximated by those at the observer.
+        double radius = this.globe.getRadiusAt(observer);
+        double cellWidth = sector.getDeltaLonRadians() / (width - 1) * radius * observer.getLatitude().cos();
+        double cellHeight = sector.getDeltaLatRadians() / (height - 1) * radius;
+
+        byte[] visibility = new byte[width * height];
+        visibility[(int) Math.round(oy) * width + (int) Math.round(ox)] = 1;
+
+        for (int i = 0; i < width; i++)
+        {
+            this.sweep(elevations, visibility, width, ox, oy, observerElevation, i, 0, cellWidth, cellHeight, radius);
+            this.sweep(elevations, visibility, width, ox, oy, observerElevation, i, height - 1, cellWidth, cellHeight,
+                radius);
+        }
+
+        for (int j = 1; j < height - 1; j++)
+        {
+            this.sweep(elevations, visibility, width, ox, oy, observerElevation, 0, j, cellWidth, cellHeight, radius);
+            this.sweep(elevations, visibility, width, ox, oy, observerElevation, width - 1, j, cellWidth, cellHeight,
+                radius);
+        }
+
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.DATA_TYPE, AVKey.INT8);
+        params.setValue(AVKey.SECTOR, sector);
+
+        return new ByteBufferRaster(width, height, sector, ByteBuffer.wrap(visibility), params);
+    }
+
+    /**
+     * Samples the terrain on a regular grid. Elevations are requested from the globe's elevation model one row at a
+     * time at the grid's resolution. The elevations returned are the best available, which may be coarser if higher
+     * resolution data is not yet local.
+     *
+     * @param sector the sector to sample.
+     * @param width  the number of grid columns.
+     * @param height the number of grid rows.
+     *
+     * @return the elevations, in row-major order starting at the sector's maximum latitude, with vertical exaggeration
+     * applied.
+     */
+    protected double[] sampleElevations(Sector sector, int width, int height)
+    {
+        double[] elevations = new double[width * height];
+        double[] rowElevations = new double[width];
+        ArrayList<LatLon> locations = new ArrayList<LatLon>(width);
+
+        double resolution = Math.min(sector.getDeltaLatRadians() / (height - 1),
+            sector.getDeltaLonRadians() / (width - 1));
+        double minLon = sector.getMinLongitude().degrees;
+        double dLon = sector.getDeltaLonDegrees() / (width - 1);
+        double maxLat = sector.getMaxLatitude().degrees;
+        double dLat = sector.getDeltaLatDegrees() / (height - 1);
+
+        for (int j = 0; j < height; j++)
+        {
+            Angle lat = Angle.fromDegrees(j == height - 1 ? sector.getMinLatitude().degrees : maxLat - j * dLat);
+
+            locations.clear();
+            for (int i = 0; i < width; i++)
+            {
+                double lon = i == width - 1 ? sector.getMaxLongitude().degrees : minLon + i * dLon;
+                locations.add(new LatLon(lat, Angle.fromDegrees(lon)));
+            }
+
+            Sector rowSector = new Sector(lat, lat, sector.getMinLongitude(), sector.getMaxLongitude());
+            Arrays.fill(rowElevations, 0);
+            this.globe.getElevationModel().getElevations(rowSector, locations, resolution, rowElevations);
+
+            for (int i = 0; i < width; i++)
+            {
+                elevations[j * width + i] = this.verticalExaggeration * rowElevations[i];
+            }
+        }
+
+        return elevations;
+    }
+
+    /**
+     * Casts a ray from the observer to one cell on the grid's perimeter and marks the cells along it that are visible.
+     *
+     * @param elevations        the grid elevations.
+     * @param visibility        the visibility grid to update.
+     * @param width             the number of grid columns.
+     * @param ox                the observer's column, in fractional grid coordinates.
+     * @param oy                the observer's row, in fractional grid coordinates.
+     * @param observerElevation the observer's elevation, in meters.
+     * @param px                the perimeter cell's column.
+     * @param py                the perimeter cell's row.
+     * @param cellWidth         the width of a cell, in meters.
+     * @param cellHeight        the height of a cell, in meters.
+     * @param radius            the globe's radius at the observer, in meters.
+     */
+    protected void sweep(double[] elevations, byte[] visibility, int width, double ox, double oy,
+        double observerElevation, int px, int py, double cellWidth, double cellHeight, double radius)
+    {
+        double dx = px - ox;
+        double dy = py - oy;
+        int numSteps = (int) Math.ceil(Math.max(Math.abs(dx), Math.abs(dy)));
+        if (numSteps == 0)
+            return;
+
+        double maxSlope = -Double.MAX_VALUE;
+        double twiceRadius = 2 * radius;
+
+        for (int k = 1; k <= numSteps; k++)
+        {
+            double s = (double) k / numSteps;
+            int col = (int) Math.round(ox + s * dx);
+            int row = (int) Math.round(oy + s * dy);
+            int index = row * width + col;
+
+            double xm = s * dx * cellWidth;
+            double ym = s * dy * cellHeight;
+            double distance = Math.sqrt(xm * xm + ym * ym);
+
+            // Lower the terrain by the drop of the globe's surface below the observer's horizontal plane.
+            double drop = distance * distance / twiceRadius;
+            double elevation = elevations[index] - drop;
+
+            double targetSlope = (elevation + this.targetHeight - observerElevation) / distance;
+            if (targetSlope >= maxSlope)
+                visibility[index] = 1;
+
+            double terrainSlope = (elevation - observerElevation) / distance;
+            if (terrainSlope > maxSlope)
+                maxSlope = terrainSlope;
+        }
+    }
+
+    /**
+     * Creates a surface image that displays a visibility raster.
+     *
+     * @param visibility   a raster computed by {@link #computeViewshed(Position, Sector, int, int)}.
+     * @param visibleColor the color of visible cells. May be null, in which case visible cells are transparent.
+     * @param hiddenColor  the color of hidden cells. May be null, in which case hidden cells are transparent.
+     *
+     * @return a surface image covering the raster's sector.
+     *
+     * @throws IllegalArgumentException if the raster is null.
+     */
+    public static SurfaceImage createSurfaceImage(ByteBufferRaster visibility, Color visibleColor, Color hiddenColor)
+    {
+        if (visibility == null)
+        {
+            String msg = Logging.getMessage("nullValue.RasterIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        int width = visibility.getWidth();
+        int height = visibility.getHeight();
+        int visibleRGB = visibleColor != null ? visibleColor.getRGB() : 0;
+        int hiddenRGB = hiddenColor != null ? hiddenColor.getRGB() : 0;
+
+        ByteBuffer buffer = visibility.getByteBuffer();
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++)
+        {
+            pixels[i] = buffer.get(i) != 0 ? visibleRGB : hiddenRGB;
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+
+        return new SurfaceImage(image, visibility.getSector());
+    }
+}
@@ -9,17 +9,20 @@ package gov.nasa.worldwind.util;
 import gov.nasa.worldwind.render.*;
 
 import java.awt.geom.*;
-import java.util.*;
+import java.util.List;
 
 /**
- * A simple clutter filter that compares bounding rectangles to each other.
+ * A simple clutter filter that compares bounding rectangles to each other. Shapes are drawn in the order they're given
+ * to the filter, unless they overlap a shape already drawn. The rectangles of the shapes drawn are held in a {@link
+ * ScreenRegionIndex}, so that overlap is found without comparing every pair of shapes.
  *
  * @author tag
  * @version $Id: BasicClutterFilter.java 726 2012-08-29 03:16:03Z tgaskins $
  */
 public class BasicClutterFilter implements ClutterFilter
 {
-    protected List<Rectangle2D> rectList = new ArrayList<Rectangle2D>();
+    /** Holds the rectangles of the regions already drawn. */
+    protected ScreenRegionIndex regionIndex = new ScreenRegionIndex();
 
     public void apply(DrawContext dc, List<Declutterable> shapes)
     {
@@ -35,7 +38,7 @@ public class BasicClutterFilter implements ClutterFilter
             if (intersectingRegion == null)
             {
                 dc.addOrderedRenderable(shape);
-                this.rectList.add(bounds);
+                this.regionIndex.add(bounds);
             }
         }
 
@@ -44,7 +47,7 @@ public class BasicClutterFilter implements ClutterFilter
 
     protected void clear()
     {
-        this.rectList.clear();
+        this.regionIndex.clear();
     }
 
     /**
@@ -59,13 +62,6 @@ public class BasicClutterFilter implements ClutterFilter
         if (rectangle == null)
             return null;
 
-        // Performs a simple linear search. This is a performance bottleneck for very large lists.
-        for (Rectangle2D rect : this.rectList)
-        {
-            if (rectangle.intersects(rect))
-                return rect;
-        }
-
-        return null;
+        return this.regionIndex.findIntersecting(rectangle);
     }
 }
@@ -8,7 +8,9 @@ package gov.nasa.worldwind.util;
 
 import gov.nasa.worldwind.geom.*;
 
+import java.nio.DoubleBuffer;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Generates contour lines at threshold values in a rectangular array of numeric values. ContourBuilder differs from the
@@ -29,6 +31,12 @@ import java.util.*;
  * the rectangular array's maximum value, though the result is an empty list of contour lines. The domain of contour
  * line coordinates is the XY Cartesian space defined by the rectangular array's width and height. X coordinates range
  * from 0 to width-1, and Y coordinates range from 0 to height-1.
+ * <p>
+ * Contour lines for many threshold values at once are best computed by calling {@link #buildContourBuffers(double[])}
+ * or {@link #buildContourBuffers(double[], gov.nasa.worldwind.geom.Sector, double)}. These methods store contouring
+ * cells in primitive hash tables keyed by cell index, write each contour line's coordinates directly into a {@link
+ * VecBufferSequence}, and compute the threshold values concurrently on the common fork/join pool. The geographic
+ * variant's results can be passed directly to {@link gov.nasa.worldwind.render.SurfacePolylines}.
  *
  * @author dcollins
  * @version $Id: ContourBuilder.java 2436 2014-11-14 23:20:50Z danm $
@@ -97,6 +105,10 @@ public class ContourBuilder
     protected static Map<Direction, Direction> dirRev = new HashMap<Direction, Direction>();
     protected static Map<Integer, LinkedHashMap<Direction, Direction>> dirNext
         = new HashMap<Integer, LinkedHashMap<Direction, Direction>>();
+    /** The starting direction ordinals for each contour mask, in the order of the {@link #dirNext} maps. */
+    protected static final int[][] cellStartDirections = new int[16][0];
+    /** The direction ordinal to leave a cell by, indexed by contour mask and the ordinal of the entry direction. */
+    protected static final int[][] cellNextDirections = new int[16][4];
 
     static
     {
@@ -180,6 +192,27 @@ public class ContourBuilder
         map.put(Direction.SOUTH, Direction.WEST);
         map.put(Direction.WEST, Direction.SOUTH);
         dirNext.put(14, map);
+
+        // Express the direction maps as tables of direction ordinals for use by ContourCells. A direction's reverse is
+        // its ordinal with the low bit flipped.
+        for (int[] next : cellNextDirections)
+        {
+            Arrays.fill(next, -1);
+        }
+
+        for (Map.Entry<Integer, LinkedHashMap<Direction, Direction>> entry : dirNext.entrySet())
+        {
+            int[] starts = new int[entry.getValue().size()];
+            int i = 0;
+
+            for (Map.Entry<Direction, Direction> dirEntry : entry.getValue().entrySet())
+            {
+                starts[i++] = dirEntry.getKey().ordinal();
+                cellNextDirections[entry.getKey()][dirEntry.getKey().ordinal()] = dirEntry.getValue().ordinal();
+            }
+
+            cellStartDirections[entry.getKey()] = starts;
+        }
     }
 
     /**
@@ -325,6 +358,101 @@ public class ContourBuilder
         return result;
     }
 
+    /**
+     * Computes the contour lines at each of the specified threshold values. The contour lines for each threshold value
+     * are returned as a {@link VecBufferSequence} containing one sub-buffer per polyline, with two coordinates per
+     * vector: the X coordinate at index 0 and the Y coordinate at index 1. The polylines and their coordinates are
+     * identical to those returned by {@link #buildContourLines(double)}. The domain of contour line coordinates is the
+     * XY Cartesian space defined by the rectangular array's width and height.
+     * <p>
+     * The threshold values are contoured concurrently when the common fork/join pool has more than one thread. Unlike
+     * buildContourLines, this method does not modify the builder's state, and may be called from several threads at
+     * once.
+     *
+     * @param thresholds the threshold values (i.e. isovalues) to compute contour lines for.
+     *
+     * @return an array containing the contour lines for each threshold value, in the order of the threshold values.
+     *         The contour lines for a threshold value that has none are an empty sequence.
+     *
+     * @throws java.lang.IllegalArgumentException if the thresholds array is null.
+     */
+    public VecBufferSequence[] buildContourBuffers(double[] thresholds)
+    {
+        if (thresholds == null)
+        {
+            String msg = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        return this.assembleContourBuffers(thresholds, null, 0);
+    }
+
+    /**
+     * Computes the geographic contour lines at each of the specified threshold values. The contour lines for each
+     * threshold value are returned as a {@link VecBufferSequence} containing one sub-buffer per polyline, with three
+     * coordinates per vector: longitude and latitude in degrees followed by the altitude. Such a sequence can be passed
+     * directly to {@link gov.nasa.worldwind.render.SurfacePolylines}. The polylines and their positions are identical
+     * to those returned by {@link #buildContourLines(double, gov.nasa.worldwind.geom.Sector, double)}, which describes
+     * how the rectangular array is mapped to the sector.
+     * <p>
+     * The threshold values are contoured concurrently when the common fork/join pool has more than one thread. Unlike
+     * buildContourLines, this method does not modify the builder's state, and may be called from several threads at
+     * once.
+     *
+     * @param thresholds the threshold values (i.e. isovalues) to compute contour lines for.
+     * @param sector     the sector to associate with the rectangular array. The array's upper left corner is mapped to
+     *                   the sector's Northwest corner, and the array's lower right corner is mapped to the sector's
+     *                   Southeast corner.
+     * @param altitude   the altitude to assign to the geographic positions.
+     *
+     * @return an array containing the geographic contour lines for each threshold value, in the order of the threshold
+     *         values. The contour lines for a threshold value that has none are an empty sequence.
+     *
+     * @throws java.lang.IllegalArgumentException if the thresholds array or the sector is null.
+     */
+    public VecBufferSequence[] buildContourBuffers(double[] thresholds, Sector sector, double altitude)
+    {
+        if (thresholds == null)
+        {
+            String msg = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (sector == null)
+        {
+            String msg = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        return this.assembleContourBuffers(thresholds, sector, altitude);
+    }
+
+    protected VecBufferSequence[] assembleContourBuffers(double[] thresholds, Sector sector, double altitude)
+    {
+        VecBufferSequence[] result = new VecBufferSequence[thresholds.length];
+        this.computeContourBuffers(new ContourBufferTask(thresholds, sector, altitude, result, 0, thresholds.length));
+
+        return result;
+    }
+
+    /**
+     * Runs a task that contours a range of threshold values. This runs the task in the common fork/join pool when there
+     * is more than one threshold value and the pool has more than one thread, and otherwise contours the values one
+     * after another on the calling thread.
+     *
+     * @param task the task to run.
+     */
+    protected void computeContourBuffers(ContourBufferTask task)
+    {
+        if (task.end - task.start > 1 && ForkJoinPool.getCommonPoolParallelism() > 1)
+            ForkJoinPool.commonPool().invoke(task);
+        else
+            task.computeRange();
+    }
+
     protected void assembleContourCells(double value)
     {
         // Divide the 2D scalar field into a grid of evenly spaced contouring cells. Every 2x2 block of field values
@@ -537,4 +665,398 @@ public class ContourBuilder
     {
         return this.contourCellMap.get(new CellKey(x, y));
     }
+
+    /** Contours a range of threshold values, dividing the range among the threads of a fork/join pool. */
+    @SuppressWarnings("serial")
+    protected class ContourBufferTask extends RecursiveAction
+    {
+        protected final double[] thresholds;
+        protected final Sector sector;
+        protected final double altitude;
+        protected final VecBufferSequence[] result;
+        protected final int start;
+        protected final int end;
+
+        public ContourBufferTask(double[] thresholds, Sector sector, double altitude, VecBufferSequence[] result,
+            int start, int end)
+        {
+            this.thresholds = thresholds;
+            this.sector = sector;
+            this.altitude = altitude;
+            this.result = result;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.end - this.start <= 1)
+            {
+                this.computeRange();
+                return;
+            }
+
+            int mid = (this.start + this.end) >>> 1;
+            invokeAll(
+                new ContourBufferTask(this.thresholds, this.sector, this.altitude, this.result, this.start, mid),
+                new ContourBufferTask(this.thresholds, this.sector, this.altitude, this.result, mid, this.end));
+        }
+
+        protected void computeRange()
+        {
+            ContourCells cells = new ContourCells();
+
+            for (int i = this.start; i < this.end; i++)
+            {
+                this.result[i] = cells.buildContourBuffers(this.thresholds[i], this.sector, this.altitude);
+            }
+        }
+    }
+
+    /**
+     * The contouring cells and contour line coordinates of one threshold value, held in primitive arrays. Cells are
+     * identified by their index in the row-major contouring grid, and are stored in an open addressing hash table along
+     * with a state byte holding the cell's contour mask in its low four bits and the directions in which the cell has
+     * been visited in its high four bits. Edge weights are computed from the field values when an intersection is
+     * added. A ContourCells may be reused for any number of threshold values, but is not thread safe.
+     */
+    protected class ContourCells
+    {
+        protected static final int INITIAL_CAPACITY = 256;
+
+        protected int[] keys = new int[INITIAL_CAPACITY];
+        protected byte[] states = new byte[INITIAL_CAPACITY];
+        protected int numCells;
+        protected int[] cellOrder = new int[INITIAL_CAPACITY / 2];
+        protected double value;
+        protected double[] coords = new double[INITIAL_CAPACITY];
+        protected int numCoords;
+        protected int[] lineLengths = new int[16];
+        protected int numLines;
+        protected double[] firstHalf = new double[INITIAL_CAPACITY];
+        protected int numFirstHalfCoords;
+
+        public ContourCells()
+        {
+            Arrays.fill(this.keys, -1);
+        }
+
+        /**
+         * Computes the contour lines at a threshold value.
+         *
+         * @param value    the threshold value.
+         * @param sector   the sector to map the contour line coordinates to, or null to return the coordinates in the
+         *                 rectangular array's XY space.
+         * @param altitude the altitude to assign to geographic positions. Ignored if the sector is null.
+         *
+         * @return the contour lines.
+         */
+        public VecBufferSequence buildContourBuffers(double value, Sector sector, double altitude)
+        {
+            this.clear();
+            this.value = value;
+            this.assembleCells();
+            this.traverseCells();
+
+            return this.makeBuffers(sector, altitude);
+        }
+
+        protected void clear()
+        {
+            Arrays.fill(this.keys, -1);
+            this.numCells = 0;
+            this.numCoords = 0;
+            this.numLines = 0;
+            this.numFirstHalfCoords = 0;
+        }
+
+        protected void assembleCells()
+        {
+            // Uses the same cell masks and saddle point disambiguation as assembleContourCells.
+            double value = this.value;
+            int cellWidth = width - 1;
+
+            for (int y = 0; y < height - 1; y++)
+            {
+                for (int x = 0; x < cellWidth; x++)
+                {
+                    double nw = valueFor(x, y);
+                    double ne = valueFor(x + 1, y);
+                    double se = valueFor(x + 1, y + 1);
+                    double sw = valueFor(x, y + 1);
+
+                    int mask = (nw > value ? 8 : 0) | (ne > value ? 4 : 0) | (se > value ? 2 : 0) | (sw > value ? 1 : 0);
+                    if (mask == 0 || mask == 15)
+                        continue;
+
+                    if ((mask == 5 || mask == 10) && (nw + ne + se + sw) / 4 <= value)
+                        mask ^= 15; // flip 5 to 10 and 10 to 5
+
+                    this.putCell(x + y * cellWidth, mask);
+                }
+            }
+        }
+
+        protected void traverseCells()
+        {
+            // Pairs traversals the same way as traverseContourCells: the first of each pair of traversals is reversed
+            // and joined to the start of the second. The first traversal's coordinates are collected separately, then
+            // written in reverse to the end of the coordinate array before the second traversal appends its own.
+            boolean havePendingHalf = false;
+
+            for (int i = 0; i < this.numCells; i++)
+            {
+                int key = this.cellOrder[i];
+                int slot = this.findSlot(key);
+
+                for (int dir : cellStartDirections[this.states[slot] & 0xF])
+                {
+                    if ((this.states[slot] & (0x10 << dir)) != 0)
+                        continue;
+
+                    if (!havePendingHalf)
+                    {
+                        this.numFirstHalfCoords = 0;
+                        this.traverseContour(key, slot, dir, true);
+                        havePendingHalf = true;
+                        continue;
+                    }
+
+                    int lineStart = this.numCoords;
+                    this.ensureCoordsCapacity(this.numFirstHalfCoords);
+                    for (int j = this.numFirstHalfCoords - 2; j >= 0; j -= 2)
+                    {
+                        this.coords[this.numCoords++] = this.firstHalf[j];
+                        this.coords[this.numCoords++] = this.firstHalf[j + 1];
+                    }
+
+                    this.traverseContour(key, slot, dir, false);
+                    havePendingHalf = false;
+
+                    if (this.numCoords == lineStart)
+                    {
+                        String msg = Logging.getMessage("generic.UnexpectedCondition",
+                            "both contours are of zero length");
+                        Logging.logger().severe(msg);
+                    }
+                    else
+                    {
+                        this.addLine((this.numCoords - lineStart) / 2);
+                    }
+                }
+
+                if (havePendingHalf)
+                {
+                    String msg = Logging.getMessage("generic.UnexpectedCondition", "non-empty contours list");
+                    Logging.logger().severe(msg);
+                }
+            }
+        }
+
+        protected void traverseContour(int key, int slot, int dir, boolean firstHalf)
+        {
+            int dirNext = dir;
+            int dirPrev = dir; // use Prev same as Next for first iteration (i.e., for seed cell)
+
+            while (slot >= 0 && dirNext >= 0 && (this.states[slot] & (0x10 << dirNext)) == 0)
+            {
+                // Mark the contour cell as visited.
+                this.states[slot] |= (0x10 << dirNext) | (0x10 << dirPrev);
+
+                this.addIntersection(key, dirNext, firstHalf);
+
+                // Advance to the next cell and the next direction.
+                key = this.nextCellKey(key, dirNext);
+                slot = (key >= 0) ? this.findSlot(key) : -1;
+
+                if (slot >= 0)
+                {
+                    dirPrev = dirNext ^ 1;
+                    dirNext = cellNextDirections[this.states[slot] & 0xF][dirPrev];
+                }
+            }
+        }
+
+        protected void addIntersection(int key, int dir, boolean firstHalf)
+        {
+            int x = key % (width - 1);
+            int y = key / (width - 1);
+            double xIntersect = x;
+            double yIntersect = y;
+
+            // Computes the edge weights the same way as assembleContourCells.
+            if (dir == Direction.NORTH.ordinal())
+            {
+                double nw = valueFor(x, y);
+                xIntersect += (this.value - nw) / (valueFor(x + 1, y) - nw);
+            }
+            else if (dir == Direction.SOUTH.ordinal())
+            {
+                double sw = valueFor(x, y + 1);
+                xIntersect += (this.value - sw) / (valueFor(x + 1, y + 1) - sw);
+                yIntersect += 1;
+            }
+            else if (dir == Direction.EAST.ordinal())
+            {
+                double ne = valueFor(x + 1, y);
+                xIntersect += 1;
+                yIntersect += (this.value - ne) / (valueFor(x + 1, y + 1) - ne);
+            }
+            else
+            {
+                double nw = valueFor(x, y);
+                yIntersect += (this.value - nw) / (valueFor(x, y + 1) - nw);
+            }
+
+            if (firstHalf)
+            {
+                if (this.numFirstHalfCoords + 2 > this.firstHalf.length)
+                    this.firstHalf = Arrays.copyOf(this.firstHalf, 2 * this.firstHalf.length);
+
+                this.firstHalf[this.numFirstHalfCoords++] = xIntersect;
+                this.firstHalf[this.numFirstHalfCoords++] = yIntersect;
+            }
+            else
+            {
+                this.ensureCoordsCapacity(2);
+                this.coords[this.numCoords++] = xIntersect;
+                this.coords[this.numCoords++] = yIntersect;
+            }
+        }
+
+        protected int nextCellKey(int key, int dir)
+        {
+            int cellWidth = width - 1;
+            int x = key % cellWidth;
+            int y = key / cellWidth;
+
+            if (dir == Direction.NORTH.ordinal())
+                return (y > 0) ? key - cellWidth : -1;
+            else if (dir == Direction.SOUTH.ordinal())
+                return (y < height - 2) ? key + cellWidth : -1;
+            else if (dir == Direction.EAST.ordinal())
+                return (x < cellWidth - 1) ? key + 1 : -1;
+            else
+                return (x > 0) ? key - 1 : -1;
+        }
+
+        protected VecBufferSequence makeBuffers(Sector sector, double altitude)
+        {
+            int coordsPerVec = (sector != null) ? 3 : 2;
+            if (this.numLines == 0)
+                return VecBufferSequence.emptyVecBufferSequence(coordsPerVec);
+
+            int numVecs = this.numCoords / 2;
+            DoubleBuffer buffer = WWBufferUtil.newDoubleBuffer(coordsPerVec * numVecs, true);
+
+            if (sector == null)
+            {
+                buffer.put(this.coords, 0, this.numCoords);
+            }
+            else
+            {
+                // Map the coordinates to geographic positions the same way as buildContourLines.
+                double maxLat = sector.getMaxLatitude().degrees;
+                double minLon = sector.getMinLongitude().degrees;
+                double deltaLat = sector.getDeltaLatDegrees();
+                double deltaLon = sector.getDeltaLonDegrees();
+
+                for (int i = 0; i < this.numCoords; i += 2)
+                {
+                    double s = this.coords[i] / (width - 1);
+                    double t = this.coords[i + 1] / (height - 1);
+                    buffer.put(minLon + s * deltaLon).put(maxLat - t * deltaLat).put(altitude);
+                }
+            }
+
+            buffer.rewind();
+
+            // The contour lines are already packed end to end, so add them to the sequence as sub-buffers of its
+            // backing buffer rather than appending copies of them.
+            VecBufferSequence sequence = new VecBufferSequence(
+                new VecBuffer(coordsPerVec, new BufferWrapper.DoubleBufferWrapper(buffer)), this.numLines);
+            sequence.vecCount = numVecs;
+
+            for (int i = 0, offset = 0; i < this.numLines; offset += this.lineLengths[i], i++)
+            {
+                sequence.addSubBuffer(offset, this.lineLengths[i]);
+            }
+
+            return sequence;
+        }
+
+        protected void putCell(int key, int mask)
+        {
+            if (2 * (this.numCells + 1) > this.keys.length)
+                this.rehash(2 * this.keys.length);
+
+            int slot = this.probe(key, this.keys);
+            this.keys[slot] = key;
+            this.states[slot] = (byte) mask;
+
+            if (this.numCells == this.cellOrder.length)
+                this.cellOrder = Arrays.copyOf(this.cellOrder, 2 * this.cellOrder.length);
+
+            this.cellOrder[this.numCells++] = key;
+        }
+
+        protected int findSlot(int key)
+        {
+            int slot = this.probe(key, this.keys);
+            return (this.keys[slot] == key) ? slot : -1;
+        }
+
+        /** Returns the slot holding a key, or the empty slot where the key belongs if the table does not contain it. */
+        protected int probe(int key, int[] table)
+        {
+            int mask = table.length - 1;
+            int h = key * 0x9E3779B9;
+            int slot = (h ^ (h >>> 16)) & mask;
+
+            while (table[slot] != key && table[slot] != -1)
+            {
+                slot = (slot + 1) & mask;
+            }
+
+            return slot;
+        }
+
+        protected void rehash(int capacity)
+        {
+            int[] newKeys = new int[capacity];
+            byte[] newStates = new byte[capacity];
+            Arrays.fill(newKeys, -1);
+
+            for (int i = 0; i < this.keys.length; i++)
+            {
+                if (this.keys[i] == -1)
+                    continue;
+
+                int slot = this.probe(this.keys[i], newKeys);
+                newKeys[slot] = this.keys[i];
+                newStates[slot] = this.states[i];
+            }
+
+            this.keys = newKeys;
+            this.states = newStates;
+        }
+
+        protected void ensureCoordsCapacity(int numNewCoords)
+        {
+            if (this.numCoords + numNewCoords > this.coords.length)
+            {
+                this.coords = Arrays.copyOf(this.coords,
+                    Math.max(2 * this.coords.length, this.numCoords + numNewCoords));
+            }
+        }
+
+        protected void addLine(int numVecs)
+        {
+            if (this.numLines == this.lineLengths.length)
+                this.lineLengths = Arrays.copyOf(this.lineLengths, 2 * this.lineLengths.length);
+
+            this.lineLengths[this.numLines++] = numVecs;
+        }
+    }
 }
@@ -0,0 +1,607 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.cache.*;
+import gov.nasa.worldwind.layers.Layer;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Records the time spent in each phase of recent frames, and in each layer, together with the number of objects each
+ * layer queues for ordered rendering, the amount of data loaded onto the GPU and the hit ratio of each memory cache. A
+ * scene controller records frames when it has a profiler, see {@link gov.nasa.worldwind.AbstractSceneController#setFrameProfiler(FrameProfiler)}.
+ * <p>
+ * The most recent frames are held in a ring buffer, and can be retrieved by {@link #getFrames()} or written as JSON by
+ * {@link #writeJSON(Appendable)}. Each frame and each layer's statistics are also emitted as Java Flight Recorder events
+ * named <code>gov.nasa.worldwind.Frame</code> and <code>gov.nasa.worldwind.LayerFrame</code>, which are recorded when
+ * a flight recording is running with those events enabled.
+ * <p>
+ * A profiler is used by the rendering thread to record frames. Its frames may be retrieved on any thread.
+ */
+public class FrameProfiler
+{
+    /** The phases of a frame. Phases may be nested, so the sum of their times may exceed the frame time. */
+    public enum Phase
+    {
+        /** Tessellating the globe. */
+        TESSELLATION("tessellation"),
+        /** Pre-rendering layers and ordered surface renderables. Includes {@link #SURFACE_OBJECT_TILES}. */
+        PRE_RENDER("preRender"),
+        /** Building the composite representation of surface objects. */
+        SURFACE_OBJECT_TILES("surfaceObjectTiles"),
+        /** Picking, including picking layers and ordered renderables. */
+        PICK("pick"),
+        /** Rendering layers. */
+        LAYER_RENDER("layerRender"),
+        /** Rendering ordered surface renderables and ordered renderables. */
+        ORDERED_RENDERABLES("orderedRenderables");
+
+        protected final String jsonName;
+
+        Phase(String jsonName)
+        {
+            this.jsonName = jsonName;
+        }
+
+        /**
+         * Returns the name identifying the phase in JSON output.
+         *
+         * @return the phase's JSON name.
+         */
+        public String getJsonName()
+        {
+            return this.jsonName;
+        }
+    }
+
+    /** The statistics of one layer during one frame. Times are in nanoseconds. */
+    public static class LayerStatistics
+    {
+        protected final String name;
+        protected long preRenderTime;
+        protected long renderTime;
+        protected long pickTime;
+        protected int objectCount;
+
+        public LayerStatistics(String name)
+        {
+            this.name = name;
+        }
+
+        public String getName()
+        {
+            return this.name;
+        }
+
+        public long getPreRenderTime()
+        {
+            return this.preRenderTime;
+        }
+
+        public long getRenderTime()
+        {
+            return this.renderTime;
+        }
+
+        public long getPickTime()
+        {
+            return this.pickTime;
+        }
+
+        /**
+         * Returns the number of objects the layer queued for ordered rendering during the frame, including ordered
+         * surface renderables queued during pre-rendering.
+         *
+         * @return the layer's object count.
+         */
+        public int getObjectCount()
+        {
+            return this.objectCount;
+        }
+
+        /**
+         * Returns the total time the layer spent pre-rendering, rendering and picking.
+         *
+         * @return the layer's total time in nanoseconds.
+         */
+        public long getTotalTime()
+        {
+            return this.preRenderTime + this.renderTime + this.pickTime;
+        }
+    }
+
+    /** The statistics of one frame. Times are in nanoseconds. */
+    public static class Frame
+    {
+        protected final long frameNumber;
+        protected final long timeStamp;
+        protected long frameTime;
+        protected final long[] phaseTimes = new long[Phase.values().length];
+        protected final List<LayerStatistics> layers = new ArrayList<LayerStatistics>();
+        protected long textureBytes;
+        protected final Map<String, Double> cacheHitRatios = new LinkedHashMap<String, Double>();
+
+        public Frame(long frameNumber, long timeStamp)
+        {
+            this.frameNumber = frameNumber;
+            this.timeStamp = timeStamp;
+        }
+
+        /**
+         * Returns the frame's sequence number, starting at zero for the first frame recorded by the profiler.
+         *
+         * @return the frame number.
+         */
+        public long getFrameNumber()
+        {
+            return this.frameNumber;
+        }
+
+        /**
+         * Returns the time the frame started.
+         *
+         * @return the frame's start time in milliseconds since the Epoch.
+         */
+        public long getTimeStamp()
+        {
+            return this.timeStamp;
+        }
+
+        public long getFrameTime()
+        {
+            return this.frameTime;
+        }
+
+        public long getPhaseTime(Phase phase)
+        {
+            return this.phaseTimes[phase.ordinal()];
+        }
+
+        /**
+         * Returns the statistics of the layers that were pre-rendered, rendered or picked during the frame, in the
+         * order they were first visited.
+         *
+         * @return the layers' statistics.
+         */
+        public List<LayerStatistics> getLayers()
+        {
+            return Collections.unmodifiableList(this.layers);
+        }
+
+        /**
+         * Returns the layer that took the most time during the frame.
+         *
+         * @return the slowest layer's statistics, or null if no layers were visited.
+         */
+        public LayerStatistics getSlowestLayer()
+        {
+            LayerStatistics slowest = null;
+            for (LayerStatistics layer : this.layers)
+            {
+                if (slowest == null || layer.getTotalTime() > slowest.getTotalTime())
+                    slowest = layer;
+            }
+
+            return slowest;
+        }
+
+        /**
+         * Returns the size of the resources loaded onto the GPU during the frame, as indicated by the resources added
+         * to the GPU resource cache.
+         *
+         * @return the size in bytes of the resources loaded.
+         */
+        public long getTextureBytes()
+        {
+            return this.textureBytes;
+        }
+
+        /**
+         * Returns the hit ratio, between 0 and 1, of each cache that was used during the frame. The GPU resource cache
+         * is named <code>GpuResourceCache</code>, and the memory caches have their own names.
+         *
+         * @return the caches' hit ratios.
+         */
+        public Map<String, Double> getCacheHitRatios()
+        {
+            return Collections.unmodifiableMap(this.cacheHitRatios);
+        }
+
+        /**
+         * Writes the frame as a JSON object. Times are written in milliseconds.
+         *
+         * @param out the destination.
+         *
+         * @throws IOException if an error occurs writing the frame.
+         */
+        public void writeJSON(Appendable out) throws IOException
+        {
+            out.append("{\"frame\":").append(Long.toString(this.frameNumber));
+            out.append(",\"timeStamp\":").append(Long.toString(this.timeStamp));
+            out.append(",\"frameTime\":").append(toMillis(this.frameTime));
+
+            out.append(",\"phases\":{");
+            for (Phase phase : Phase.values())
+            {
+                if (phase.ordinal() > 0)
+                    out.append(',');
+                appendJSONString(out, phase.getJsonName());
+                out.append(':').append(toMillis(this.phaseTimes[phase.ordinal()]));
+            }
+
+            out.append("},\"textureBytes\":").append(Long.toString(this.textureBytes));
+
+            out.append(",\"cacheHitRatios\":{");
+            boolean first = true;
+            for (Map.Entry<String, Double> entry : this.cacheHitRatios.entrySet())
+            {
+                if (!first)
+                    out.append(',');
+                first = false;
+                appendJSONString(out, entry.getKey());
+                out.append(':').append(String.format(Locale.ROOT, "%.4f", entry.getValue()));
+            }
+
+            out.append("},\"layers\":[");
+            for (int i = 0; i < this.layers.size(); i++)
+            {
+                LayerStatistics layer = this.layers.get(i);
+                if (i > 0)
+                    out.append(',');
+                out.append("{\"name\":");
+                appendJSONString(out, layer.name);
+                out.append(",\"preRender\":").append(toMillis(layer.preRenderTime));
+                out.append(",\"render\":").append(toMillis(layer.renderTime));
+                out.append(",\"pick\":").append(toMillis(layer.pickTime));
+                out.append(",\"objects\":").append(Integer.toString(layer.objectCount));
+                out.append('}');
+            }
+            out.append("]}");
+        }
+    }
+
+    /** The name under which the GPU resource cache's hit ratio is recorded. */
+    public static final String GPU_RESOURCE_CACHE_NAME = "GpuResourceCache";
+
+    protected final Frame[] frames;
+    protected int frameCount;
+    protected int nextFrameIndex;
+    protected long nextFrameNumber;
+
+    // The frame being recorded, and its layers in the order they were first visited.
+    protected Frame currentFrame;
+    protected long currentFrameStart;
+    protected final Map<Layer, LayerStatistics> currentLayers = new IdentityHashMap<Layer, LayerStatistics>();
+
+    // Cumulative cache counts at the start of the current frame, from which the frame's counts are computed.
+    protected long lastTextureBytes = -1;
+    protected final Map<String, long[]> lastCacheCounts = new HashMap<String, long[]>();
+
+    /**
+     * Creates a profiler that holds a specified number of the most recent frames.
+     *
+     * @param capacity the number of frames to hold.
+     *
+     * @throws IllegalArgumentException if the capacity is less than 1.
+     */
+    public FrameProfiler(int capacity)
+    {
+        if (capacity < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "capacity < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.frames = new Frame[capacity];
+    }
+
+    public int getCapacity()
+    {
+        return this.frames.length;
+    }
+
+    /**
+     * Starts recording a frame. Called by the scene controller at the start of each frame.
+     *
+     * @param timeStamp the frame's start time in milliseconds since the Epoch.
+     */
+    public void beginFrame(long timeStamp)
+    {
+        this.currentFrame = new Frame(this.nextFrameNumber++, timeStamp);
+        this.currentFrameStart = System.nanoTime();
+        this.currentLayers.clear();
+    }
+
+    /**
+     * Adds time to a phase of the current frame. Does nothing if no frame is being recorded.
+     *
+     * @param phase    the phase.
+     * @param duration the time to add, in nanoseconds.
+     */
+    public void addPhaseTime(Phase phase, long duration)
+    {
+        if (this.currentFrame != null)
+            this.currentFrame.phaseTimes[phase.ordinal()] += duration;
+    }
+
+    /**
+     * Adds time spent by a layer to the current frame. Time spent in {@link Phase#PRE_RENDER} and {@link Phase#PICK} is
+     * recorded as the layer's pre-render and pick time, and time spent in other phases as its render time. Does nothing
+     * if no frame is being recorded.
+     *
+     * @param layer       the layer.
+     * @param phase       the phase the time was spent in.
+     * @param duration    the time to add, in nanoseconds.
+     * @param objectCount the number of objects the layer queued for ordered rendering during this time.
+     */
+    public void addLayerTime(Layer layer, Phase phase, long duration, int objectCount)
+    {
+        if (this.currentFrame == null || layer == null)
+            return;
+
+        LayerStatistics stats = this.currentLayers.get(layer);
+        if (stats == null)
+        {
+            stats = new LayerStatistics(layer.getName() != null ? layer.getName() : layer.getClass().getName());
+            this.currentLayers.put(layer, stats);
+            this.currentFrame.layers.add(stats);
+        }
+
+        if (phase == Phase.PRE_RENDER)
+            stats.preRenderTime += duration;
+        else if (phase == Phase.PICK)
+            stats.pickTime += duration;
+        else
+            stats.renderTime += duration;
+
+        stats.objectCount += Math.max(objectCount, 0);
+    }
+
+    /**
+     * Finishes recording the current frame and adds it to the profiler's frames. Does nothing if no frame is being
+     * recorded.
+     *
+     * @param gpuResourceCache the GPU resource cache used by the frame. May be null.
+     * @param memoryCacheSet   the memory caches used by the frame. May be null.
+     */
+    public void endFrame(GpuResourceCache gpuResourceCache, MemoryCacheSet memoryCacheSet)
+    {
+        Frame frame = this.currentFrame;
+        if (frame == null)
+            return;
+
+        frame.frameTime = System.nanoTime() - this.currentFrameStart;
+        this.currentFrame = null;
+        this.currentLayers.clear();
+
+        if (gpuResourceCache instanceof BasicGpuResourceCache)
+        {
+            BasicGpuResourceCache cache = (BasicGpuResourceCache) gpuResourceCache;
+            long bytes = cache.getBytesAdded();
+            frame.textureBytes = this.lastTextureBytes >= 0 ? bytes - this.lastTextureBytes : 0;
+            this.lastTextureBytes = bytes;
+            this.addCacheHitRatio(frame, GPU_RESOURCE_CACHE_NAME, cache.getHitCount(), cache.getMissCount());
+        }
+
+        if (memoryCacheSet != null)
+        {
+            for (Map.Entry<String, MemoryCache> entry : memoryCacheSet.getAllCaches().entrySet())
+            {
+                if (!(entry.getValue() instanceof BasicMemoryCache))
+                    continue;
+
+                BasicMemoryCache cache = (BasicMemoryCache) entry.getValue();
+                String name = !WWUtil.isEmpty(cache.getName()) ? cache.getName() : entry.getKey();
+                this.addCacheHitRatio(frame, name, cache.getHitCount(), cache.getMissCount());
+            }
+        }
+
+        synchronized (this.frames)
+        {
+            this.frames[this.nextFrameIndex] = frame;
+            this.nextFrameIndex = (this.nextFrameIndex + 1) % this.frames.length;
+            this.frameCount = Math.min(this.frameCount + 1, this.frames.length);
+        }
+
+        this.emitEvents(frame);
+    }
+
+    protected void addCacheHitRatio(Frame frame, String name, long hits, long misses)
+    {
+        long[] last = this.lastCacheCounts.get(name);
+        if (last == null)
+        {
+            this.lastCacheCounts.put(name, new long[] {hits, misses});
+            return;
+        }
+
+        long frameHits = hits - last[0];
+        long frameMisses = misses - last[1];
+        last[0] = hits;
+        last[1] = misses;
+
+        // Omit caches that weren't used during the frame, since they have no meaningful hit ratio.
+        if (frameHits + frameMisses > 0)
+            frame.cacheHitRatios.put(name, (double) frameHits / (frameHits + frameMisses));
+    }
+
+    /**
+     * Returns the frames held by the profiler.
+     *
+     * @return the frames, oldest first.
+     */
+    public List<Frame> getFrames()
+    {
+        synchronized (this.frames)
+        {
+            List<Frame> list = new ArrayList<Frame>(this.frameCount);
+            int first = (this.nextFrameIndex - this.frameCount + this.frames.length) % this.frames.length;
+            for (int i = 0; i < this.frameCount; i++)
+            {
+                list.add(this.frames[(first + i) % this.frames.length]);
+            }
+
+            return list;
+        }
+    }
+
+    /**
+     * Returns the most recently recorded frame.
+     *
+     * @return the last frame, or null if no frames have been recorded.
+     */
+    public Frame getLastFrame()
+    {
+        synchronized (this.frames)
+        {
+            return this.frameCount > 0
+                ? this.frames[(this.nextFrameIndex - 1 + this.frames.length) % this.frames.length] : null;
+        }
+    }
+
+    /** Discards the frames held by the profiler. */
+    public void clear()
+    {
+        synchronized (this.frames)
+        {
+            Arrays.fill(this.frames, null);
+            this.frameCount = 0;
+            this.nextFrameIndex = 0;
+        }
+    }
+
+    /**
+     * Writes the frames held by the profiler as a JSON array, oldest first. See {@link Frame#writeJSON(Appendable)}.
+     *
+     * @param out the destination.
+     *
+     * @throws IllegalArgumentException if the destination is null.
+     * @throws IOException              if an error occurs writing the frames.
+     */
+    public void writeJSON(Appendable out) throws IOException
+    {
+        if (out == null)
+        {
+            String message = Logging.getMessage("nullValue.OutputIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        out.append('[');
+        List<Frame> frames = this.getFrames();
+        for (int i = 0; i < frames.size(); i++)
+        {
+            if (i > 0)
+                out.append(",\n");
+            frames.get(i).writeJSON(out);
+        }
+        out.append("]\n");
+    }
+
+    protected static String toMillis(long nanos)
+    {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    protected static void appendJSONString(Appendable out, String s) throws IOException
+    {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\')
+                out.append('\\').append(c);
+            else if (c < 0x20)
+                out.append(String.format("\\u%04x", (int) c));
+            else
+                out.append(c);
+        }
+        out.append('"');
+    }
+
+    //**************************************************************//
+    //********************  Flight Recorder Events  ****************//
+    //**************************************************************//
+
+    protected void emitEvents(Frame frame)
+    {
+        FrameEvent event = new FrameEvent();
+        if (!event.isEnabled())
+            return;
+
+        event.frame = frame.frameNumber;
+        event.frameTime = frame.frameTime;
+        event.tessellationTime = frame.getPhaseTime(Phase.TESSELLATION);
+        event.preRenderTime = frame.getPhaseTime(Phase.PRE_RENDER);
+        event.surfaceObjectTilesTime = frame.getPhaseTime(Phase.SURFACE_OBJECT_TILES);
+        event.pickTime = frame.getPhaseTime(Phase.PICK);
+        event.layerRenderTime = frame.getPhaseTime(Phase.LAYER_RENDER);
+        event.orderedRenderablesTime = frame.getPhaseTime(Phase.ORDERED_RENDERABLES);
+        event.textureBytes = frame.textureBytes;
+        event.commit();
+
+        for (LayerStatistics layer : frame.layers)
+        {
+            LayerEvent layerEvent = new LayerEvent();
+            layerEvent.frame = frame.frameNumber;
+            layerEvent.layer = layer.name;
+            layerEvent.preRenderTime = layer.preRenderTime;
+            layerEvent.renderTime = layer.renderTime;
+            layerEvent.pickTime = layer.pickTime;
+            layerEvent.objectCount = layer.objectCount;
+            layerEvent.commit();
+        }
+    }
+
+    @jdk.jfr.Name("gov.nasa.worldwind.Frame")
+    @jdk.jfr.Label("WorldWind Frame")
+    @jdk.jfr.Category("WorldWind")
+    @jdk.jfr.StackTrace(false)
+    protected static class FrameEvent extends jdk.jfr.Event
+    {
+        @jdk.jfr.Label("Frame")
+        protected long frame;
+        @jdk.jfr.Label("Frame Time") @jdk.jfr.Timespan
+        protected long frameTime;
+        @jdk.jfr.Label("Tessellation Time") @jdk.jfr.Timespan
+        protected long tessellationTime;
+        @jdk.jfr.Label("Pre-Render Time") @jdk.jfr.Timespan
+        protected long preRenderTime;
+        @jdk.jfr.Label("Surface Object Tiles Time") @jdk.jfr.Timespan
+        protected long surfaceObjectTilesTime;
+        @jdk.jfr.Label("Pick Time") @jdk.jfr.Timespan
+        protected long pickTime;
+        @jdk.jfr.Label("Layer Render Time") @jdk.jfr.Timespan
+        protected long layerRenderTime;
+        @jdk.jfr.Label("Ordered Renderables Time") @jdk.jfr.Timespan
+        protected long orderedRenderablesTime;
+        @jdk.jfr.Label("Texture Bytes") @jdk.jfr.DataAmount
+        protected long textureBytes;
+    }
+
+    @jdk.jfr.Name("gov.nasa.worldwind.LayerFrame")
+    @jdk.jfr.Label("WorldWind Layer Frame")
+    @jdk.jfr.Category("WorldWind")
+    @jdk.jfr.StackTrace(false)
+    protected static class LayerEvent extends jdk.jfr.Event
+    {
+        @jdk.jfr.Label("Frame")
+        protected long frame;
+        @jdk.jfr.Label("Layer")
+        protected String layer;
+        @jdk.jfr.Label("Pre-Render Time") @jdk.jfr.Timespan
+        protected long preRenderTime;
+        @jdk.jfr.Label("Render Time") @jdk.jfr.Timespan
+        protected long renderTime;
+        @jdk.jfr.Label("Pick Time") @jdk.jfr.Timespan
+        protected long pickTime;
+        @jdk.jfr.Label("Object Count")
+        protected int objectCount;
+    }
+}
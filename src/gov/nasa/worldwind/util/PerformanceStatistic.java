@@ -6,6 +6,7 @@
 package gov.nasa.worldwind.util;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PerformanceStatistic implements Comparable<PerformanceStatistic>
 {
@@ -24,6 +25,8 @@ public class PerformanceStatistic implements Comparable<PerformanceStatistic>
     public static final String TERRAIN_TILE_COUNT = "gov.nasa.worldwind.perfstat.TerrainTileCount";
     public static final String MEMORY_CACHE = "gov.nasa.worldwind.perfstat.MemoryCache";
     public static final String PICK_TIME = "gov.nasa.worldwind.perfstat.PickTime";
+    public static final String RETRIEVAL = "gov.nasa.worldwind.perfstat.Retrieval";
+    public static final String SHAPEFILE_GEOMETRY = "gov.nasa.worldwind.perfstat.ShapefileGeometry";
     public static final String JVM_HEAP = "gov.nasa.worldwind.perfstat.JvmHeap";
     public static final String JVM_HEAP_USED = "gov.nasa.worldwind.perfstat.JvmHeapUsed";
     public static final String TEXTURE_CACHE = "gov.nasa.worldwind.perfstat.TextureCache";
@@ -34,6 +37,73 @@ public class PerformanceStatistic implements Comparable<PerformanceStatistic>
         ALL_STATISTICS_SET.add(PerformanceStatistic.ALL);
     }
 
+    /**
+     * A source of performance statistics, such as a service or scheduler, whose statistics are gathered by the scene
+     * controller once per frame when they're requested.
+     */
+    public interface Provider
+    {
+        /**
+         * Returns the provider's current statistics.
+         *
+         * @return the provider's statistics.
+         */
+        Collection<PerformanceStatistic> getPerformanceStatistics();
+    }
+
+    /** The registered providers, and the statistics key of each. */
+    private static final Map<Provider, String> providers = new ConcurrentHashMap<Provider, String>();
+
+    /**
+     * Registers a provider of performance statistics. When the statistics key the provider is registered with, or
+     * {@link #ALL}, is requested, the scene controller adds the provider's statistics to the per-frame statistics.
+     * This lets components outside the core contribute statistics without the scene controller depending on them.
+     *
+     * @param key      the statistics key of the provider's statistics.
+     * @param provider the provider.
+     *
+     * @throws IllegalArgumentException if the key or provider is null.
+     */
+    public static void addProvider(String key, Provider provider)
+    {
+        if (key == null)
+        {
+            String message = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (provider == null)
+        {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        providers.put(provider, key);
+    }
+
+    /**
+     * Unregisters a provider of performance statistics.
+     *
+     * @param provider the provider. Nothing is done if it isn't registered or is null.
+     */
+    public static void removeProvider(Provider provider)
+    {
+        if (provider != null)
+            providers.remove(provider);
+    }
+
+    /**
+     * Returns the registered providers of performance statistics, each mapped to its statistics key.
+     *
+     * @return an unmodifiable view of the registered providers.
+     */
+    public static Map<Provider, String> getProviders()
+    {
+        return Collections.unmodifiableMap(providers);
+    }
+
     private final String key;
     private final String displayString;
     private final Object value;
@@ -28,7 +28,7 @@ import java.util.List;
 public class PlacemarkClutterFilter implements ClutterFilter
 {
     /** Holds the rectangles of the regions already drawn. */
-    protected List<Rectangle2D> rectList = new ArrayList<Rectangle2D>();
+    protected ScreenRegionIndex regionIndex = new ScreenRegionIndex();
     /** Maintains a list of regions and the shapes associated with each region. */
     protected Map<Rectangle2D, List<Declutterable>> shapeMap = new HashMap<Rectangle2D, List<Declutterable>>();
 
@@ -60,7 +60,7 @@ public class PlacemarkClutterFilter implements ClutterFilter
     /** Release all the resources used in the most recent filter application. */
     protected void clear()
     {
-        this.rectList.clear();
+        this.regionIndex.clear();
         this.shapeMap.clear();
     }
 
@@ -77,13 +77,7 @@ public class PlacemarkClutterFilter implements ClutterFilter
         if (rectangle == null)
             return null;
 
-        for (Rectangle2D rect : this.rectList)
-        {
-            if (rectangle.intersects(rect))
-                return rect;
-        }
-
-        return null;
+        return this.regionIndex.findIntersecting(rectangle);
     }
 
     /**
@@ -100,7 +94,7 @@ public class PlacemarkClutterFilter implements ClutterFilter
         {
             shapeList = new ArrayList<Declutterable>(1);
             this.shapeMap.put(rectangle, shapeList);
-            this.rectList.add(rectangle);
+            this.regionIndex.add(rectangle);
         }
 
         shapeList.add(shape);
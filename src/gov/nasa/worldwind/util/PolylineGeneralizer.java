@@ -6,41 +6,44 @@
 package gov.nasa.worldwind.util;
 
 /**
+ * Computes the Visvalingam effective area of each vertex of one or more polylines. A vertex's effective area is the
+ * area of the triangle formed with its neighbors at the moment it is eliminated by repeatedly removing the vertex with
+ * the least area, and is never less than the area of any vertex eliminated before it. Removing every vertex whose
+ * effective area is less than a threshold therefore simplifies a polyline the same way as eliminating vertices until
+ * the least area reaches that threshold. A polyline's first and last vertices are assigned the maximum area.
+ * <p>
+ * Vertices, their neighbors and the elimination heap are held in primitive arrays that are reused from one polyline to
+ * the next.
+ *
  * @author dcollins
  * @version $Id: PolylineGeneralizer.java 2321 2014-09-17 19:34:42Z dcollins $
  */
 public class PolylineGeneralizer
 {
-    protected static class Element
-    {
-        public final int ordinal;
-        public final double x;
-        public final double y;
-        public final double z;
-        public double area;
-        public int heapIndex;
-        public Element prev;
-        public Element next;
-
-        public Element(int ordinal, double x, double y, double z)
-        {
-            this.ordinal = ordinal;
-            this.heapIndex = ordinal;
-            this.x = x;
-            this.y = y;
-            this.z = z;
-        }
-    }
-
-    protected int heapSize;
-    protected Element[] heap;
     protected int vertexCount;
     protected double[] vertexArea;
+    /** The ordinal of the current polyline's first vertex. */
+    protected int polylineStart;
+    /** The number of vertices in the current polyline. */
+    protected int polylineSize;
+    protected double[] x;
+    protected double[] y;
+    /** The current effective area of each vertex in the current polyline. */
+    protected double[] area;
+    /** The index of each vertex's remaining previous neighbor, or -1 if it has none. */
+    protected int[] prev;
+    /** The index of each vertex's remaining next neighbor, or -1 if it has none. */
+    protected int[] next;
+    /** A min-heap of vertex indices ordered by effective area. */
+    protected int[] heap;
+    /** The location of each vertex in the heap. */
+    protected int[] heapIndex;
+    protected int heapSize;
 
     public PolylineGeneralizer()
     {
-        this.heap = new Element[10];
         this.vertexArea = new double[10];
+        this.allocatePolyline(10);
     }
 
     public int getVertexCount()
@@ -60,11 +63,16 @@ public class PolylineGeneralizer
 
     public void beginPolyline()
     {
+        this.polylineStart = this.vertexCount;
+        this.polylineSize = 0;
         this.heapSize = 0;
     }
 
     public void endPolyline()
     {
+        if (this.polylineSize == 0)
+            return;
+
         this.computeInitialArea(); // compute the effective area of each vertex
         this.heapify(); // rearrange the vertex array in order to satisfy the min-heap property based on effective area
         this.computeEliminationArea(); // simulate repeated elimination of the min-area vertex
@@ -72,101 +80,135 @@ public class PolylineGeneralizer
 
     public void reset()
     {
+        this.polylineStart = 0;
+        this.polylineSize = 0;
         this.heapSize = 0;
         this.vertexCount = 0;
     }
 
     public void addVertex(double x, double y, double z)
     {
-        if (this.heapSize == this.heap.length)
-        {
-            int capacity = this.heap.length + this.heap.length / 2; // increase heap capacity by 50%
-            Element[] array = new Element[capacity];
-            System.arraycopy(this.heap, 0, array, 0, this.heap.length);
-            this.heap = array;
-        }
+        if (this.polylineSize == this.x.length)
+            this.expandPolyline(this.x.length + this.x.length / 2); // increase capacity by 50%
+
+        int i = this.polylineSize++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.vertexCount++;
+    }
 
-        this.heap[this.heapSize++] = new Element(this.vertexCount++, x, y, z);
+    protected void allocatePolyline(int capacity)
+    {
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.area = new double[capacity];
+        this.prev = new int[capacity];
+        this.next = new int[capacity];
+        this.heap = new int[capacity];
+        this.heapIndex = new int[capacity];
+    }
+
+    protected void expandPolyline(int capacity)
+    {
+        double[] x = this.x;
+        double[] y = this.y;
+
+        this.allocatePolyline(capacity);
+        System.arraycopy(x, 0, this.x, 0, this.polylineSize);
+        System.arraycopy(y, 0, this.y, 0, this.polylineSize);
     }
 
     protected void computeInitialArea()
     {
-        this.heap[0].area = Double.MAX_VALUE; // assign the start point the maximum area
+        int last = this.polylineSize - 1;
 
-        for (int i = 1; i < this.heapSize - 1; i++)
+        for (int i = 0; i <= last; i++)
         {
-            this.heap[i].prev = this.heap[i - 1];
-            this.heap[i].next = this.heap[i + 1];
-            this.heap[i].area = this.computeEffectiveArea(this.heap[i]);
+            this.heap[i] = i;
+            this.heapIndex[i] = i;
+            this.prev[i] = (i > 0 && i < last) ? i - 1 : -1;
+            this.next[i] = (i > 0 && i < last) ? i + 1 : -1;
         }
 
-        this.heap[this.heapSize - 1].area = Double.MAX_VALUE; // assign the end point the maximum area
+        for (int i = 1; i < last; i++)
+        {
+            this.area[i] = this.computeEffectiveArea(i);
+        }
+
+        // Assign the start point and the end point the maximum area.
+        this.area[0] = Double.MAX_VALUE;
+        this.area[last] = Double.MAX_VALUE;
+        this.heapSize = this.polylineSize;
     }
 
     protected void computeEliminationArea()
     {
         if (this.vertexArea.length < this.vertexCount)
         {
-            double[] array = new double[this.vertexCount];
+            double[] array = new double[Math.max(this.vertexCount, this.vertexArea.length + this.vertexArea.length / 2)];
             System.arraycopy(this.vertexArea, 0, array, 0, this.vertexArea.length);
             this.vertexArea = array;
         }
 
         // Repeatedly find the point with the least effective area and eliminate it, until only the start point and the
         // end point remain (the start point and end point are not in the heap).
-        Element cur;
+        int cur;
         double lastArea = 0;
-        while ((cur = this.pop()) != null)
+        while ((cur = this.pop()) >= 0)
         {
             // If the current point's area is less than that of the last point to be eliminated, use the latter's area
             // instead. This ensures that the current point cannot be filtered before previously eliminated points.
-            double area = cur.area;
+            double area = this.area[cur];
             if (area < lastArea)
                 area = lastArea;
             else // Otherwise, update the last area with the current point's area.
                 lastArea = area;
-            this.vertexArea[cur.ordinal] = area;
+            this.vertexArea[this.polylineStart + cur] = area;
+
+            int p = this.prev[cur];
+            int n = this.next[cur];
 
             // Recompute previous point's effective area, unless it's the start point.
-            if (cur.prev != null && cur.prev.prev != null)
+            if (p >= 0 && this.prev[p] >= 0)
             {
-                cur.prev.next = cur.next;
-                this.updateEffectiveArea(cur.prev);
+                this.next[p] = n;
+                this.updateEffectiveArea(p);
             }
 
             // Recompute next point's effective area, unless it's the end point.
-            if (cur.next != null && cur.next.next != null)
+            if (n >= 0 && this.next[n] >= 0)
             {
-                cur.next.prev = cur.prev;
-                this.updateEffectiveArea(cur.next);
+                this.prev[n] = p;
+                this.updateEffectiveArea(n);
             }
 
             // Drop references the previous point and the next point.
-            cur.prev = null;
-            cur.next = null;
+            this.prev[cur] = -1;
+            this.next[cur] = -1;
         }
     }
 
     // TODO: Modify computeEffectiveArea to correctly compute area when z != 0
-    protected double computeEffectiveArea(Element e)
+    protected double computeEffectiveArea(int i)
     {
-        Element c = e;
-        Element p = e.prev;
-        Element n = e.next;
+        int p = this.prev[i];
+        int n = this.next[i];
+        double cx = this.x[i];
+        double cy = this.y[i];
 
-        return 0.5 * Math.abs((p.x - c.x) * (n.y - c.y) - (p.y - c.y) * (n.x - c.x));
+        return 0.5 * Math.abs((this.x[p] - cx) * (this.y[n] - cy) - (this.y[p] - cy) * (this.x[n] - cx));
     }
 
-    protected void updateEffectiveArea(Element e)
+    protected void updateEffectiveArea(int i)
     {
-        double oldArea = e.area;
-        double newArea = this.computeEffectiveArea(e);
-        e.area = newArea;
+        double oldArea = this.area[i];
+        double newArea = this.computeEffectiveArea(i);
+        this.area[i] = newArea;
 
         if (newArea < oldArea)
-            this.siftUp(e.heapIndex, e);
+            this.siftUp(this.heapIndex[i], i);
         else if (newArea > oldArea)
-            this.siftDown(e.heapIndex, e);
+            this.siftDown(this.heapIndex[i], i);
     }
 
     protected void heapify()
@@ -177,15 +219,19 @@ public class PolylineGeneralizer
         }
     }
 
-    protected Element pop()
+    /**
+     * Removes the vertex with the least effective area from the heap.
+     *
+     * @return the index of the vertex removed, or -1 if the heap is empty.
+     */
+    protected int pop()
     {
         if (this.heapSize == 0)
-            return null;
+            return -1;
 
         int size = --this.heapSize;
-        Element top = this.heap[0];
-        Element last = this.heap[size];
-        this.heap[size] = null;
+        int top = this.heap[0];
+        int last = this.heap[size];
 
         if (size != 0)
         {
@@ -195,44 +241,48 @@ public class PolylineGeneralizer
         return top;
     }
 
-    protected void siftUp(int k, Element x)
+    protected void siftUp(int k, int x)
     {
+        double xArea = this.area[x];
+
         while (k > 0)
         {
             int parent = (k - 1) >>> 1;
-            Element e = this.heap[parent];
-            if (x.area >= e.area)
+            int e = this.heap[parent];
+            if (xArea >= this.area[e])
                 break;
 
             this.heap[k] = e;
-            e.heapIndex = k;
+            this.heapIndex[e] = k;
             k = parent;
         }
 
         this.heap[k] = x;
-        x.heapIndex = k;
+        this.heapIndex[x] = k;
     }
 
-    protected void siftDown(int k, Element x)
+    protected void siftDown(int k, int x)
     {
+        double xArea = this.area[x];
         int half = this.heapSize >>> 1;
+
         while (k < half)
         {
             int child = (k << 1) + 1;
-            Element c = this.heap[child];
+            int c = this.heap[child];
 
             int right = child + 1;
-            if (right < this.heapSize && c.area > this.heap[right].area)
+            if (right < this.heapSize && this.area[c] > this.area[this.heap[right]])
                 c = this.heap[child = right];
-            if (x.area <= c.area)
+            if (xArea <= this.area[c])
                 break;
 
             this.heap[k] = c;
-            c.heapIndex = k;
+            this.heapIndex[c] = k;
             k = child;
         }
 
         this.heap[k] = x;
-        x.heapIndex = k;
+        this.heapIndex[x] = k;
     }
 }
@@ -0,0 +1,393 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.*;
+
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * A progressive level-of-detail index of a polyline's locations. The index is built once, and then selects in time
+ * proportional to the size of the result the subset of locations that represents the polyline at a given resolution,
+ * optionally limited to a region of interest. Building the index takes time proportional to <i>n log n</i> in the
+ * number of locations, so applications with long polylines typically build it on a background thread.
+ * <p>
+ * Each location is ranked by its Visvalingam effective area, computed by {@link PolylineGeneralizer} from the
+ * locations' longitude and latitude in degrees. {@link #selectLocations(double, gov.nasa.worldwind.geom.Sector,
+ * java.nio.IntBuffer)} selects the polyline's first and last locations and every location whose effective area is at
+ * least a specified minimum. This is the same subset that results from eliminating the location with the least area
+ * until the least area reaches the minimum, so a smaller minimum always selects a superset of the locations selected by
+ * a larger one. A minimum area of the square of a resolution in degrees keeps the details that are visible at that
+ * resolution.
+ * <p>
+ * The locations are partitioned into a binary tree of consecutive runs. Each node holds the bounding box of its run and
+ * the largest effective area within it, so runs with no qualifying location and runs outside the region of interest
+ * are skipped without visiting their locations. When a run outside the region of interest is skipped, its first and
+ * last locations are selected in its place. The segment between them lies within the run's bounding box, so it
+ * doesn't cross the region of interest.
+ * <p>
+ * The index holds effective areas and node bounds in primitive arrays, along with a reference to the locations it was
+ * built from. An index is immutable once built and is safe to use from multiple threads. The locations must not change
+ * while the index is in use.
+ *
+ * @param <T> the type of location indexed.
+ */
+public class ProgressivePolylineIndex<T extends LatLon>
+{
+    /** The maximum number of segments in a leaf node's run of locations. */
+    protected static final int LEAF_SIZE = 32;
+
+    protected final List<? extends T> locations;
+    protected final int numLocations;
+    protected final double[] effectiveArea;
+    protected final int numLeaves;
+    protected final double[] nodeMinLon;
+    protected final double[] nodeMaxLon;
+    protected final double[] nodeMinLat;
+    protected final double[] nodeMaxLat;
+    protected final double[] nodeMaxArea;
+
+    /**
+     * Builds an index of the specified locations. The locations are referenced rather than copied when they're in a
+     * {@link java.util.RandomAccess} list, and are otherwise copied into a new list.
+     *
+     * @param locations the polyline's locations.
+     *
+     * @throws IllegalArgumentException if the locations are null.
+     */
+    @SuppressWarnings("unchecked")
+    public ProgressivePolylineIndex(Iterable<? extends T> locations)
+    {
+        if (locations == null)
+        {
+            String message = Logging.getMessage("nullValue.LocationsListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (locations instanceof List && locations instanceof RandomAccess)
+        {
+            this.locations = (List<? extends T>) locations;
+        }
+        else
+        {
+            ArrayList<T> list = new ArrayList<T>();
+            for (T location : locations)
+            {
+                list.add(location);
+            }
+            list.trimToSize();
+            this.locations = list;
+        }
+
+        this.numLocations = this.locations.size();
+        this.effectiveArea = new double[this.numLocations];
+        this.numLeaves = this.numLocations > 1 ? (this.numLocations - 2) / LEAF_SIZE + 1 : 0;
+
+        int numNodes = Math.max(2 * this.numLeaves - 1, 0);
+        this.nodeMinLon = new double[numNodes];
+        this.nodeMaxLon = new double[numNodes];
+        this.nodeMinLat = new double[numNodes];
+        this.nodeMaxLat = new double[numNodes];
+        this.nodeMaxArea = new double[numNodes];
+
+        double[] lons = new double[this.numLocations];
+        double[] lats = new double[this.numLocations];
+        this.computeEffectiveArea(lons, lats);
+
+        if (this.numLeaves > 0)
+            this.buildNode(0, 0, this.numLeaves, lons, lats);
+    }
+
+    /**
+     * Returns the number of locations in the index.
+     *
+     * @return the number of locations.
+     */
+    public int getLocationCount()
+    {
+        return this.numLocations;
+    }
+
+    /**
+     * Returns the location at a specified index.
+     *
+     * @param index the location's index.
+     *
+     * @return the location at the index.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public T getLocation(int index)
+    {
+        return this.locations.get(index);
+    }
+
+    /**
+     * Returns the Visvalingam effective area of the location at a specified index, in square degrees. The first and
+     * last locations have the maximum area.
+     *
+     * @param index the location's index.
+     *
+     * @return the location's effective area.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public double getEffectiveArea(int index)
+    {
+        return this.effectiveArea[index];
+    }
+
+    /**
+     * Selects the indices of the locations that represent the polyline at a specified minimum effective area. The
+     * polyline's first and last locations are always selected. Within the region of interest, every location whose
+     * effective area is at least the minimum is selected. Outside the region, locations may be omitted along with the
+     * segments between them, provided the segment joining the selected locations on either side stays outside the
+     * region.
+     * <p>
+     * The indices are written in increasing order to a buffer. The buffer is reused if it's large enough, and is
+     * otherwise replaced by a larger buffer. The returned buffer's position is 0 and its limit is the number of indices
+     * selected.
+     *
+     * @param minEffectiveArea the minimum effective area of the selected locations, in square degrees.
+     * @param region           the region of interest, or null to select locations everywhere.
+     * @param buffer           the buffer to write the indices to. May be null.
+     *
+     * @return a buffer containing the indices of the selected locations.
+     */
+    public IntBuffer selectLocations(double minEffectiveArea, Sector region, IntBuffer buffer)
+    {
+        Selection selection = new Selection(minEffectiveArea, region, buffer);
+
+        if (this.numLocations > 0)
+            selection.add(0);
+
+        if (this.numLeaves > 0)
+            this.selectNode(selection, 0, 0, this.numLeaves);
+
+        if (this.numLocations > 1)
+            selection.add(this.numLocations - 1);
+
+        selection.buffer.flip();
+        return selection.buffer;
+    }
+
+    /**
+     * Returns the locations at the specified indices, such as those returned by {@link #selectLocations(double,
+     * gov.nasa.worldwind.geom.Sector, java.nio.IntBuffer)}. The indices are read from the buffer's position to its
+     * limit. The buffer's position is not changed.
+     *
+     * @param indices the indices of the locations to return.
+     *
+     * @return a new list containing the locations at the indices.
+     *
+     * @throws IllegalArgumentException if the indices are null.
+     */
+    public List<T> getLocations(IntBuffer indices)
+    {
+        if (indices == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        ArrayList<T> list = new ArrayList<T>(indices.remaining());
+        for (int i = indices.position(); i < indices.limit(); i++)
+        {
+            list.add(this.locations.get(indices.get(i)));
+        }
+
+        return list;
+    }
+
+    protected void computeEffectiveArea(double[] lons, double[] lats)
+    {
+        PolylineGeneralizer generalizer = new PolylineGeneralizer();
+        generalizer.beginPolyline();
+
+        for (int i = 0; i < this.numLocations; i++)
+        {
+            LatLon location = this.locations.get(i);
+            lons[i] = location.getLongitude().degrees;
+            lats[i] = location.getLatitude().degrees;
+            generalizer.addVertex(lons[i], lats[i], 0);
+        }
+
+        generalizer.endPolyline();
+        generalizer.getVertexEffectiveArea(this.effectiveArea);
+    }
+
+    /**
+     * Computes the bounds of a node covering a range of leaves, and of the node's descendants. Nodes are stored in
+     * depth-first order, so a node's left child follows it and its right child follows the left child's descendants.
+     *
+     * @param node  the node's index.
+     * @param first the index of the node's first leaf.
+     * @param last  the index following the node's last leaf.
+     * @param lons  the longitude of each location.
+     * @param lats  the latitude of each location.
+     */
+    protected void buildNode(int node, int first, int last, double[] lons, double[] lats)
+    {
+        int begin = this.leafBegin(first);
+        int end = this.leafBegin(last);
+
+        if (last - first == 1)
+        {
+            double minLon = lons[begin], maxLon = lons[begin], minLat = lats[begin], maxLat = lats[begin];
+            double maxArea = 0;
+
+            for (int i = begin + 1; i <= end; i++)
+            {
+                minLon = Math.min(minLon, lons[i]);
+                maxLon = Math.max(maxLon, lons[i]);
+                minLat = Math.min(minLat, lats[i]);
+                maxLat = Math.max(maxLat, lats[i]);
+
+                if (i < end)
+                    maxArea = Math.max(maxArea, this.effectiveArea[i]);
+            }
+
+            this.setNode(node, minLon, maxLon, minLat, maxLat, maxArea);
+            return;
+        }
+
+        int mid = (first + last) >>> 1;
+        int left = node + 1;
+        int right = node + 2 * (mid - first);
+        this.buildNode(left, first, mid, lons, lats);
+        this.buildNode(right, mid, last, lons, lats);
+
+        // The location shared by the two children is inside this node's run, but at the end of both children's runs.
+        this.setNode(node,
+            Math.min(this.nodeMinLon[left], this.nodeMinLon[right]),
+            Math.max(this.nodeMaxLon[left], this.nodeMaxLon[right]),
+            Math.min(this.nodeMinLat[left], this.nodeMinLat[right]),
+            Math.max(this.nodeMaxLat[left], this.nodeMaxLat[right]),
+            Math.max(Math.max(this.nodeMaxArea[left], this.nodeMaxArea[right]),
+                this.effectiveArea[this.leafBegin(mid)]));
+    }
+
+    protected void setNode(int node, double minLon, double maxLon, double minLat, double maxLat, double maxArea)
+    {
+        this.nodeMinLon[node] = minLon;
+        this.nodeMaxLon[node] = maxLon;
+        this.nodeMinLat[node] = minLat;
+        this.nodeMaxLat[node] = maxLat;
+        this.nodeMaxArea[node] = maxArea;
+    }
+
+    /**
+     * Selects the locations strictly inside a node's run. The locations at either end of the run are the
+     * responsibility of the caller, unless the node lies outside the region of interest.
+     *
+     * @param selection the selection in progress.
+     * @param node      the node's index.
+     * @param first     the index of the node's first leaf.
+     * @param last      the index following the node's last leaf.
+     */
+    protected void selectNode(Selection selection, int node, int first, int last)
+    {
+        if (this.nodeMaxArea[node] < selection.minEffectiveArea)
+            return; // no location in this run qualifies
+
+        int begin = this.leafBegin(first);
+        int end = this.leafBegin(last);
+
+        if (selection.region != null && !this.nodeIntersects(node, selection.region))
+        {
+            // Replace the run with the segment joining its ends, which lies within the run's bounds.
+            selection.add(begin);
+            selection.add(end);
+            return;
+        }
+
+        if (last - first == 1)
+        {
+            for (int i = begin + 1; i < end; i++)
+            {
+                if (this.effectiveArea[i] >= selection.minEffectiveArea)
+                    selection.add(i);
+            }
+
+            return;
+        }
+
+        int mid = (first + last) >>> 1;
+        int shared = this.leafBegin(mid);
+        this.selectNode(selection, node + 1, first, mid);
+
+        if (this.effectiveArea[shared] >= selection.minEffectiveArea)
+            selection.add(shared);
+
+        this.selectNode(selection, node + 2 * (mid - first), mid, last);
+    }
+
+    protected boolean nodeIntersects(int node, Sector sector)
+    {
+        return this.nodeMinLat[node] <= sector.getMaxLatitude().degrees
+            && this.nodeMaxLat[node] >= sector.getMinLatitude().degrees
+            && this.nodeMinLon[node] <= sector.getMaxLongitude().degrees
+            && this.nodeMaxLon[node] >= sector.getMinLongitude().degrees;
+    }
+
+    /**
+     * Returns the index of the first location in a leaf's run. The run of leaf <code>i</code> extends to the first
+     * location of leaf <code>i + 1</code>, and the last leaf's run extends to the last location.
+     *
+     * @param leaf the leaf's index, or the number of leaves to indicate the last location.
+     *
+     * @return the index of the leaf's first location.
+     */
+    protected int leafBegin(int leaf)
+    {
+        return Math.min(leaf * LEAF_SIZE, this.numLocations - 1);
+    }
+
+    /** The state of a selection in progress. */
+    protected static class Selection
+    {
+        protected final double minEffectiveArea;
+        protected final Sector region;
+        protected IntBuffer buffer;
+        protected int lastIndex = -1;
+
+        public Selection(double minEffectiveArea, Sector region, IntBuffer buffer)
+        {
+            this.minEffectiveArea = minEffectiveArea;
+            this.region = region;
+            this.buffer = (buffer != null) ? buffer : IntBuffer.allocate(16);
+            this.buffer.clear();
+        }
+
+        /**
+         * Adds an index to the selection, unless it's already been added. Indices must be added in increasing order.
+         *
+         * @param index the index to add.
+         */
+        public void add(int index)
+        {
+            if (index <= this.lastIndex)
+                return;
+
+            if (!this.buffer.hasRemaining())
+            {
+                int capacity = Math.max(2 * this.buffer.capacity(), 16);
+                IntBuffer newBuffer = this.buffer.isDirect() ? WWBufferUtil.newIntBuffer(capacity, true)
+                    : IntBuffer.allocate(capacity);
+                this.buffer.flip();
+                newBuffer.put(this.buffer);
+                this.buffer = newBuffer;
+            }
+
+            this.buffer.put(index);
+            this.lastIndex = index;
+        }
+    }
+}
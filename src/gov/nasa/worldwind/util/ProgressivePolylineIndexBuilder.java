@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.LatLon;
+
+/**
+ * Builds a shape's {@link ProgressivePolylineIndex} on a background thread and publishes it to the shape. {@link
+ * #requestIndex(Iterable)} returns the index of the specified locations once it's built, and until then schedules it to
+ * be built on the World Wind task service. When a build completes, the index is published and the shape is sent a
+ * repaint event, unless different locations have been requested since.
+ * <p>
+ * A builder is intended to be owned by one shape, which requests the index of its current locations each time it
+ * needs it. The builder holds only the most recently requested index.
+ *
+ * @param <T> the type of location indexed.
+ */
+public class ProgressivePolylineIndexBuilder<T extends LatLon>
+{
+    protected final AVList owner;
+    protected Iterable<? extends T> locations; // guarded by this
+    protected ProgressivePolylineIndex<T> index; // guarded by this
+
+    /**
+     * Creates a builder.
+     *
+     * @param owner the shape that's sent a repaint event when an index is published.
+     *
+     * @throws IllegalArgumentException if <code>owner</code> is null.
+     */
+    public ProgressivePolylineIndexBuilder(AVList owner)
+    {
+        if (owner == null)
+        {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.owner = owner;
+    }
+
+    /**
+     * Returns the index of the specified locations if it has been built. If it has not been built, this requests that
+     * it be built on a background thread and discards the index of any previously requested locations. Locations are
+     * compared by identity, so a shape must request a new index when it replaces its locations.
+     *
+     * @param locations the locations to index.
+     *
+     * @return the index of the locations, or <code>null</code> if the index is not yet available.
+     *
+     * @throws IllegalArgumentException if <code>locations</code> is null.
+     */
+    public ProgressivePolylineIndex<T> requestIndex(Iterable<? extends T> locations)
+    {
+        if (locations == null)
+        {
+            String message = Logging.getMessage("nullValue.LocationsListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        synchronized (this)
+        {
+            if (locations == this.locations && this.index != null)
+                return this.index;
+
+            this.locations = locations;
+            this.index = null;
+        }
+
+        if (WorldWind.getTaskService().isFull())
+            return null;
+
+        Runnable task = new BuildTask<T>(this, locations);
+        if (!WorldWind.getTaskService().contains(task))
+            WorldWind.getTaskService().addTask(task);
+
+        return null;
+    }
+
+    /** Discards the most recently requested index. An index being built when this is called isn't published. */
+    public synchronized void clear()
+    {
+        this.locations = null;
+        this.index = null;
+    }
+
+    /**
+     * Called when an index has been built on a background thread. The index is published and the owner is sent a
+     * repaint event, unless different locations have been requested since.
+     *
+     * @param locations the locations the index was built from.
+     * @param index     the index.
+     */
+    protected void onIndexBuilt(Iterable<? extends T> locations, ProgressivePolylineIndex<T> index)
+    {
+        synchronized (this)
+        {
+            if (locations != this.locations)
+                return;
+
+            this.index = index;
+        }
+
+        this.owner.firePropertyChange(AVKey.REPAINT, null, this.owner);
+    }
+
+    /**
+     * Builds the index of a builder's locations. Tasks are equal when they build the same locations for the same
+     * builder, so that the task service doesn't queue duplicates.
+     *
+     * @param <T> the type of location indexed.
+     */
+    protected static class BuildTask<T extends LatLon> implements Runnable
+    {
+        protected final ProgressivePolylineIndexBuilder<T> builder;
+        protected final Iterable<? extends T> locations;
+
+        public BuildTask(ProgressivePolylineIndexBuilder<T> builder, Iterable<? extends T> locations)
+        {
+            this.builder = builder;
+            this.locations = locations;
+        }
+
+        public void run()
+        {
+            if (Thread.currentThread().isInterrupted())
+                return; // the task was cancelled because it's a duplicate or for some other reason
+
+            this.builder.onIndexBuilt(this.locations, new ProgressivePolylineIndex<T>(this.locations));
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (o == null || this.getClass() != o.getClass())
+                return false;
+
+            BuildTask<?> that = (BuildTask<?>) o;
+            return this.builder == that.builder && this.locations == that.locations;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * System.identityHashCode(this.builder) + System.identityHashCode(this.locations);
+        }
+    }
+}
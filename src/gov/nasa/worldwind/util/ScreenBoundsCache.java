@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.View;
+import gov.nasa.worldwind.geom.Matrix;
+import gov.nasa.worldwind.render.DrawContext;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+
+/**
+ * Holds the screen bounds of objects such as text labels from one frame to the next while the view is unchanged, so
+ * that the bounds need not be computed again each frame. All bounds are discarded when the view's state, viewport or
+ * projection changes.
+ * <p>
+ * Each object's bounds are held together with the state they were computed from, such as the object's model
+ * coordinate point, text and font. Bounds are returned only when the state given to {@link #get(Object, Object...)}
+ * equals the state given when they were added. Objects are identified by identity, not equality.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @param <K> the type of the objects whose bounds are held.
+ */
+public class ScreenBoundsCache<K>
+{
+    /** The default maximum number of bounds held. */
+    public static final int DEFAULT_MAX_SIZE = 100000;
+
+    protected static class Entry
+    {
+        protected final Object[] state;
+        protected final Rectangle2D bounds;
+
+        public Entry(Object[] state, Rectangle2D bounds)
+        {
+            this.state = state;
+            this.bounds = bounds;
+        }
+    }
+
+    protected final int maxSize;
+    protected final Map<K, Entry> entries = new IdentityHashMap<K, Entry>();
+    protected View view;
+    protected long viewStateID;
+    protected Rectangle viewport;
+    protected Matrix projection;
+
+    /** Creates a cache holding at most {@link #DEFAULT_MAX_SIZE} bounds. */
+    public ScreenBoundsCache()
+    {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache holding at most a specified number of bounds. All bounds are discarded when the cache is full.
+     *
+     * @param maxSize the maximum number of bounds held.
+     *
+     * @throws IllegalArgumentException if the maximum size is less than 1.
+     */
+    public ScreenBoundsCache(int maxSize)
+    {
+        if (maxSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "maxSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Discards the cached bounds if the draw context's view has changed since they were added. Called before bounds
+     * are retrieved each frame.
+     *
+     * @param dc the current draw context.
+     */
+    public void validate(DrawContext dc)
+    {
+        View view = dc.getView();
+        if (view == null)
+        {
+            this.clear();
+            return;
+        }
+
+        if (view != this.view || view.getViewStateID() != this.viewStateID
+            || !Objects.equals(view.getViewport(), this.viewport)
+            || !Objects.equals(view.getProjectionMatrix(), this.projection))
+        {
+            this.clear();
+            this.view = view;
+            this.viewStateID = view.getViewStateID();
+            this.viewport = view.getViewport() != null ? new Rectangle(view.getViewport()) : null;
+            this.projection = view.getProjectionMatrix();
+        }
+    }
+
+    /**
+     * Returns the bounds of an object, if they were added with the same state.
+     *
+     * @param key   the object.
+     * @param state the state the bounds were computed from.
+     *
+     * @return a copy of the object's bounds, or null if the cache does not hold bounds for the object and state.
+     */
+    public Rectangle2D get(K key, Object... state)
+    {
+        Entry entry = this.entries.get(key);
+        if (entry == null || !Arrays.equals(entry.state, state))
+            return null;
+
+        return (Rectangle2D) entry.bounds.clone();
+    }
+
+    /**
+     * Adds the bounds of an object, replacing any bounds it has.
+     *
+     * @param key    the object.
+     * @param bounds the object's bounds. A copy is held, so the bounds may be modified after they're added.
+     * @param state  the state the bounds were computed from.
+     */
+    public void put(K key, Rectangle2D bounds, Object... state)
+    {
+        if (key == null || bounds == null)
+            return;
+
+        if (this.entries.size() >= this.maxSize && !this.entries.containsKey(key))
+            this.entries.clear();
+
+        this.entries.put(key, new Entry(state, (Rectangle2D) bounds.clone()));
+    }
+
+    /**
+     * Returns the number of bounds held.
+     *
+     * @return the number of bounds held.
+     */
+    public int size()
+    {
+        return this.entries.size();
+    }
+
+    /** Discards all bounds. */
+    public void clear()
+    {
+        this.entries.clear();
+        this.view = null;
+    }
+}
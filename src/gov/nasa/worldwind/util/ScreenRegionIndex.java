@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util;
+
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+
+/**
+ * An index of screen regions that finds the regions intersecting a rectangle without testing every region. Used to
+ * declutter text and shapes, where each candidate's bounds are tested against the regions already accepted.
+ * <p>
+ * Regions are held in the cells of a uniform grid that they overlap. A query tests only the regions in the cells the
+ * query rectangle overlaps, so the cost of a query depends on the local density of regions rather than their number.
+ * Regions and queries that span many cells are handled by testing all regions.
+ * <p>
+ * The index retains its grid cells when it's cleared, so that it can be reused each frame without reallocating them.
+ * This class is not thread safe.
+ */
+public class ScreenRegionIndex
+{
+    /** The default size of a grid cell, in screen pixels. */
+    public static final double DEFAULT_CELL_SIZE = 64;
+    /** The maximum number of cells a region is added to. Larger regions are tested by every query. */
+    protected static final int MAX_REGION_CELLS = 64;
+
+    protected static class Region
+    {
+        protected final Rectangle2D rectangle;
+        protected final int sequence;
+
+        public Region(Rectangle2D rectangle, int sequence)
+        {
+            this.rectangle = rectangle;
+            this.sequence = sequence;
+        }
+    }
+
+    protected final double cellSize;
+    /** The regions in the order they were added. */
+    protected final List<Region> regions = new ArrayList<Region>();
+    /** Regions that span too many cells to add to the grid. */
+    protected final List<Region> largeRegions = new ArrayList<Region>();
+    /** Maps cell keys to the regions overlapping the cell. Cells are retained, empty, when the index is cleared. */
+    protected final Map<Long, List<Region>> cells = new HashMap<Long, List<Region>>();
+    /** The cells that are not empty. */
+    protected final List<List<Region>> occupiedCells = new ArrayList<List<Region>>();
+
+    /** Creates an index with the default cell size. */
+    public ScreenRegionIndex()
+    {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Creates an index with a specified cell size. The cell size should be similar to the size of the regions.
+     *
+     * @param cellSize the size of a grid cell, in screen pixels.
+     *
+     * @throws IllegalArgumentException if the cell size is not positive.
+     */
+    public ScreenRegionIndex(double cellSize)
+    {
+        if (!(cellSize > 0))
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "cellSize <= 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.cellSize = cellSize;
+    }
+
+    public double getCellSize()
+    {
+        return this.cellSize;
+    }
+
+    /**
+     * Returns the number of regions in the index.
+     *
+     * @return the number of regions.
+     */
+    public int size()
+    {
+        return this.regions.size();
+    }
+
+    /** Removes all regions from the index. */
+    public void clear()
+    {
+        for (List<Region> cell : this.occupiedCells)
+        {
+            cell.clear();
+        }
+
+        this.occupiedCells.clear();
+        this.largeRegions.clear();
+        this.regions.clear();
+    }
+
+    /**
+     * Adds a region to the index. The index holds a reference to the rectangle, which must not be modified while it's
+     * in the index.
+     *
+     * @param rectangle the region's rectangle.
+     *
+     * @throws IllegalArgumentException if the rectangle is null.
+     */
+    public void add(Rectangle2D rectangle)
+    {
+        if (rectangle == null)
+        {
+            String message = Logging.getMessage("nullValue.RectangleIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Region region = new Region(rectangle, this.regions.size());
+        this.regions.add(region);
+
+        // Empty rectangles intersect nothing, so they need not be found by queries.
+        if (rectangle.isEmpty())
+            return;
+
+        if (this.spansManyCells(rectangle))
+        {
+            this.largeRegions.add(region);
+            return;
+        }
+
+        long x0 = this.cellIndex(rectangle.getMinX());
+        long x1 = this.cellIndex(rectangle.getMaxX());
+        long y0 = this.cellIndex(rectangle.getMinY());
+        long y1 = this.cellIndex(rectangle.getMaxY());
+
+        for (long y = y0; y <= y1; y++)
+        {
+            for (long x = x0; x <= x1; x++)
+            {
+                Long key = cellKey(x, y);
+                List<Region> cell = this.cells.get(key);
+                if (cell == null)
+                {
+                    cell = new ArrayList<Region>(4);
+                    this.cells.put(key, cell);
+                }
+
+                if (cell.isEmpty())
+                    this.occupiedCells.add(cell);
+                cell.add(region);
+            }
+        }
+    }
+
+    /**
+     * Indicates whether a rectangle intersects any region in the index. Intersection is determined by {@link
+     * Rectangle2D#intersects(Rectangle2D)}.
+     *
+     * @param rectangle the rectangle to test.
+     *
+     * @return true if the rectangle intersects a region, otherwise false. Returns false if the rectangle is null.
+     */
+    public boolean intersects(Rectangle2D rectangle)
+    {
+        return this.findIntersecting(rectangle, false) != null;
+    }
+
+    /**
+     * Returns the region added first of those intersecting a rectangle. Intersection is determined by {@link
+     * Rectangle2D#intersects(Rectangle2D)}.
+     *
+     * @param rectangle the rectangle to test.
+     *
+     * @return the rectangle of the first region added that intersects the specified rectangle, or null if none
+     *         intersect it or the specified rectangle is null.
+     */
+    public Rectangle2D findIntersecting(Rectangle2D rectangle)
+    {
+        return this.findIntersecting(rectangle, true);
+    }
+
+    protected Rectangle2D findIntersecting(Rectangle2D rectangle, boolean findFirst)
+    {
+        if (rectangle == null || rectangle.isEmpty() || this.regions.isEmpty())
+            return null;
+
+        if (this.spansManyCells(rectangle))
+        {
+            // The rectangle is too large for a grid search to be worthwhile. Regions are tested in the order they were
+            // added, so the first intersecting region found is the first added.
+            for (Region region : this.regions)
+            {
+                if (rectangle.intersects(region.rectangle))
+                    return region.rectangle;
+            }
+
+            return null;
+        }
+
+        long x0 = this.cellIndex(rectangle.getMinX());
+        long x1 = this.cellIndex(rectangle.getMaxX());
+        long y0 = this.cellIndex(rectangle.getMinY());
+        long y1 = this.cellIndex(rectangle.getMaxY());
+
+        Region found = this.findIntersecting(rectangle, this.largeRegions, null, findFirst);
+        if (found != null && !findFirst)
+            return found.rectangle;
+
+        for (long y = y0; y <= y1; y++)
+        {
+            for (long x = x0; x <= x1; x++)
+            {
+                List<Region> cell = this.cells.get(cellKey(x, y));
+                if (cell == null || cell.isEmpty())
+                    continue;
+
+                found = this.findIntersecting(rectangle, cell, found, findFirst);
+                if (found != null && !findFirst)
+                    return found.rectangle;
+            }
+        }
+
+        return found != null ? found.rectangle : null;
+    }
+
+    protected Region findIntersecting(Rectangle2D rectangle, List<Region> candidates, Region found, boolean findFirst)
+    {
+        for (Region region : candidates)
+        {
+            // Regions within a list are in the order they were added, so only the first intersecting region in each
+            // list need be considered.
+            if (found != null && region.sequence >= found.sequence)
+                break;
+
+            if (rectangle.intersects(region.rectangle))
+                return region;
+        }
+
+        return found;
+    }
+
+    /**
+     * Indicates whether a rectangle overlaps more than {@link #MAX_REGION_CELLS} cells, or has coordinates that are not
+     * finite.
+     *
+     * @param rectangle the rectangle to test.
+     *
+     * @return true if the rectangle is too large to be indexed by cell, otherwise false.
+     */
+    protected boolean spansManyCells(Rectangle2D rectangle)
+    {
+        double columns = Math.floor(rectangle.getMaxX() / this.cellSize)
+            - Math.floor(rectangle.getMinX() / this.cellSize);
+        double rows = Math.floor(rectangle.getMaxY() / this.cellSize)
+            - Math.floor(rectangle.getMinY() / this.cellSize);
+
+        // The negated comparison is true for NaN and infinite coordinates.
+        return !((columns + 1) * (rows + 1) <= MAX_REGION_CELLS);
+    }
+
+    protected long cellIndex(double coordinate)
+    {
+        return (long) Math.floor(coordinate / this.cellSize);
+    }
+
+    protected static Long cellKey(long x, long y)
+    {
+        return (x << 32) ^ (y & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.Predicate;
+
+/**
+ * Runs tasks on a pool of threads in priority order, and allows a queued task to be moved to a new place in the queue.
+ * This is the scheduling core of services whose clients request the same work every frame with a priority that
+ * changes as the view moves, such as {@link gov.nasa.worldwind.retrieve.ScheduledRetrievalService}.
+ * <p>
+ * A task is placed on the executor's priority queue by means of a {@link Ticket}. Tickets are immutable so that the
+ * queue remains ordered; {@link #reschedule(Task, Ticket, double, long)} queues a new ticket for the task and
+ * supersedes the previous one, which is discarded when it's dequeued. A task's state is its current ticket while it's
+ * queued, and changes exactly once, to running or cancelled. Rescheduling, cancelling and running a task are each a
+ * single compare-and-set of that state, so they never race with one another: a task runs at most once, and a task
+ * that has started to run or has been cancelled can't be rescheduled.
+ * <p>
+ * Superseded and cancelled tickets are skipped as they're dequeued rather than searched for and removed. When they
+ * outnumber the live tickets, they're removed from the queue in a single pass.
+ */
+public class SupersedingTaskScheduler
+{
+    /** Superseded tickets are removed from the queue when there are more than this many and they outnumber the rest. */
+    protected static final int MIN_COMPACTION_SIZE = 64;
+
+    protected static final Object RUNNING = new Object();
+    protected static final Object CANCELLED = new Object();
+
+    protected final ThreadPoolExecutor executor;
+    protected final Comparator<? super Ticket> comparator;
+    protected final AtomicLong ticketSequence = new AtomicLong();
+    /** The number of superseded and cancelled tickets on the queue. */
+    protected final AtomicInteger numSupersededTickets = new AtomicInteger();
+    protected final AtomicBoolean compacting = new AtomicBoolean();
+
+    /**
+     * A unit of work run by a scheduler. A task is queued once, by {@link SupersedingTaskScheduler#schedule(Task,
+     * double, long)}, and then runs at most once.
+     */
+    public static class Task
+    {
+        protected final Runnable runnable;
+        /** The task's current ticket while it's queued, otherwise {@link #RUNNING} or {@link #CANCELLED}. */
+        protected final AtomicReference<Object> state = new AtomicReference<Object>();
+
+        /**
+         * Creates a task.
+         *
+         * @param runnable the work the task performs.
+         *
+         * @throws IllegalArgumentException if the runnable is null.
+         */
+        public Task(Runnable runnable)
+        {
+            if (runnable == null)
+            {
+                String message = Logging.getMessage("nullValue.RunnableIsNull");
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            this.runnable = runnable;
+        }
+
+        /**
+         * Returns the ticket that holds this task's place in the queue.
+         *
+         * @return the task's current ticket, or null if the task hasn't been scheduled, or is running, has run or has
+         *         been cancelled.
+         */
+        public Ticket getTicket()
+        {
+            Object s = this.state.get();
+            return s instanceof Ticket ? (Ticket) s : null;
+        }
+
+        /**
+         * Indicates whether this task is waiting in the queue.
+         *
+         * @return true if the task is queued, otherwise false.
+         */
+        public boolean isQueued()
+        {
+            return this.state.get() instanceof Ticket;
+        }
+
+        /**
+         * Indicates whether this task has started to run.
+         *
+         * @return true if the task is running or has run, otherwise false.
+         */
+        public boolean isStarted()
+        {
+            return this.state.get() == RUNNING;
+        }
+
+        /**
+         * Indicates whether this task was cancelled before it started to run.
+         *
+         * @return true if the task was cancelled, otherwise false.
+         */
+        public boolean isCancelled()
+        {
+            return this.state.get() == CANCELLED;
+        }
+    }
+
+    /**
+     * A queue entry for a task. A ticket runs its task only if it's still the task's current ticket when it's
+     * dequeued.
+     */
+    public static class Ticket implements Runnable, Comparable<Ticket>
+    {
+        protected final SupersedingTaskScheduler scheduler;
+        protected final Task task;
+        protected final double priority;
+        protected final long time;
+        protected final long sequence;
+
+        protected Ticket(SupersedingTaskScheduler scheduler, Task task, double priority, long time)
+        {
+            this.scheduler = scheduler;
+            this.task = task;
+            this.priority = priority;
+            this.time = time;
+            this.sequence = scheduler.ticketSequence.getAndIncrement();
+        }
+
+        /**
+         * Indicates the priority the task was queued with.
+         *
+         * @return the ticket's priority.
+         */
+        public double getPriority()
+        {
+            return this.priority;
+        }
+
+        /**
+         * Indicates the time the task was queued with.
+         *
+         * @return the ticket's time, in units chosen by the caller.
+         */
+        public long getTime()
+        {
+            return this.time;
+        }
+
+        /**
+         * Indicates the order in which this ticket was created relative to the scheduler's other tickets.
+         *
+         * @return the ticket's sequence number.
+         */
+        public long getSequence()
+        {
+            return this.sequence;
+        }
+
+        /**
+         * Indicates whether this ticket no longer holds its task's place in the queue, because the task has been
+         * rescheduled or cancelled.
+         *
+         * @return true if the ticket is superseded, otherwise false.
+         */
+        public boolean isSuperseded()
+        {
+            return this.task.state.get() != this;
+        }
+
+        public void run()
+        {
+            if (this.task.state.compareAndSet(this, RUNNING))
+                this.task.runnable.run();
+            else
+                this.scheduler.numSupersededTickets.decrementAndGet();
+        }
+
+        public int compareTo(Ticket that)
+        {
+            return this.scheduler.comparator.compare(this, that);
+        }
+    }
+
+    /**
+     * Orders tickets by priority, lowest first, then by the order in which they were queued.
+     *
+     * @return the comparator.
+     */
+    public static Comparator<Ticket> priorityOrder()
+    {
+        return new Comparator<Ticket>()
+        {
+            public int compare(Ticket a, Ticket b)
+            {
+                if (a.priority != b.priority)
+                    return a.priority < b.priority ? -1 : 1;
+
+                return a.sequence < b.sequence ? -1 : a.sequence == b.sequence ? 0 : 1;
+            }
+        };
+    }
+
+    /**
+     * Creates a scheduler that runs tasks in order of increasing priority.
+     *
+     * @param poolSize      the number of threads.
+     * @param threadFactory the factory that creates the threads.
+     *
+     * @throws IllegalArgumentException if the pool size is less than one or the thread factory is null.
+     */
+    public SupersedingTaskScheduler(int poolSize, ThreadFactory threadFactory)
+    {
+        this(poolSize, threadFactory, null);
+    }
+
+    /**
+     * Creates a scheduler that runs tasks in the order specified by a ticket comparator. The comparator must order
+     * tickets consistently regardless of their tasks' state, and typically breaks ties by the tickets' sequence.
+     *
+     * @param poolSize      the number of threads.
+     * @param threadFactory the factory that creates the threads.
+     * @param comparator    the order in which to run queued tickets. If null, tickets are run in order of increasing
+     *                      priority.
+     *
+     * @throws IllegalArgumentException if the pool size is less than one or the thread factory is null.
+     */
+    public SupersedingTaskScheduler(int poolSize, ThreadFactory threadFactory, Comparator<? super Ticket> comparator)
+    {
+        if (poolSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", poolSize);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (threadFactory == null)
+        {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.comparator = comparator != null ? comparator : priorityOrder();
+
+        // The queue is unbounded because superseded tickets remain on it until they're dequeued or compacted. Clients
+        // bound the number of tasks they schedule.
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 2, TimeUnit.SECONDS,
+            new PriorityBlockingQueue<Runnable>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues a task that has not been scheduled before.
+     *
+     * @param task     the task to queue.
+     * @param priority the task's priority, interpreted by this scheduler's comparator.
+     * @param time     the time the task is queued, interpreted by this scheduler's comparator.
+     *
+     * @return true if the task was queued, false if it has already been scheduled.
+     *
+     * @throws IllegalArgumentException if the task is null.
+     */
+    public boolean schedule(Task task, double priority, long time)
+    {
+        if (task == null)
+        {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Ticket ticket = new Ticket(this, task, priority, time);
+        if (!task.state.compareAndSet(null, ticket))
+            return false;
+
+        this.executor.execute(ticket);
+        return true;
+    }
+
+    /**
+     * Moves a queued task to a new place in the queue. The task is moved only if its current ticket is the one
+     * specified, so callers typically read the ticket with {@link Task#getTicket()}, decide from it whether the task
+     * must move, and then call this method.
+     *
+     * @param task     the task to move.
+     * @param expected the task's current ticket.
+     * @param priority the task's new priority.
+     * @param time     the task's new time.
+     *
+     * @return true if the task was moved, false if its ticket has changed or it has started to run or been cancelled.
+     *
+     * @throws IllegalArgumentException if the task or ticket is null.
+     */
+    public boolean reschedule(Task task, Ticket expected, double priority, long time)
+    {
+        if (task == null || expected == null)
+        {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Ticket ticket = new Ticket(this, task, priority, time);
+        if (!task.state.compareAndSet(expected, ticket))
+            return false;
+
+        this.numSupersededTickets.incrementAndGet();
+        this.executor.execute(ticket);
+        this.compactIfNecessary();
+
+        return true;
+    }
+
+    /**
+     * Cancels a queued task. The task's ticket remains on the queue, and is discarded when it's dequeued.
+     *
+     * @param task the task to cancel.
+     *
+     * @return true if the task was cancelled, false if it's running, has run or has already been cancelled.
+     *
+     * @throws IllegalArgumentException if the task is null.
+     */
+    public boolean cancel(Task task)
+    {
+        if (task == null)
+        {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        for (Object s = task.state.get(); s instanceof Ticket; s = task.state.get())
+        {
+            if (task.state.compareAndSet(s, CANCELLED))
+            {
+                this.numSupersededTickets.incrementAndGet();
+                this.compactIfNecessary();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Indicates the number of tickets on the queue, including superseded tickets that haven't yet been discarded.
+     *
+     * @return the queue's size.
+     */
+    public int getQueueSize()
+    {
+        return this.executor.getQueue().size();
+    }
+
+    /**
+     * Indicates the number of superseded and cancelled tickets that haven't yet been discarded.
+     *
+     * @return the number of superseded tickets.
+     */
+    public int getNumSupersededTickets()
+    {
+        return this.numSupersededTickets.get();
+    }
+
+    /**
+     * Indicates the number of threads that run tasks.
+     *
+     * @return the pool size.
+     */
+    public int getPoolSize()
+    {
+        return this.executor.getCorePoolSize();
+    }
+
+    /**
+     * Specifies the number of threads that run tasks.
+     *
+     * @param poolSize the pool size.
+     *
+     * @throws IllegalArgumentException if the pool size is less than one.
+     */
+    public void setPoolSize(int poolSize)
+    {
+        if (poolSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", poolSize);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (poolSize > this.executor.getMaximumPoolSize())
+        {
+            this.executor.setMaximumPoolSize(poolSize);
+            this.executor.setCorePoolSize(poolSize);
+        }
+        else
+        {
+            this.executor.setCorePoolSize(poolSize);
+            this.executor.setMaximumPoolSize(poolSize);
+        }
+    }
+
+    /**
+     * Stops this scheduler's threads. Queued tasks are not run once the scheduler is shut down.
+     *
+     * @param immediately true to interrupt running tasks, false to let them finish.
+     */
+    public void shutdown(boolean immediately)
+    {
+        if (immediately)
+            this.executor.shutdownNow();
+        else
+            this.executor.shutdown();
+
+        this.executor.getQueue().clear();
+    }
+
+    /**
+     * Removes superseded and cancelled tickets from the queue in a single pass when they outnumber the live tickets,
+     * so that the queue doesn't grow while clients move tasks faster than they run.
+     */
+    protected void compactIfNecessary()
+    {
+        int superseded = this.numSupersededTickets.get();
+        if (superseded < MIN_COMPACTION_SIZE || 2 * superseded < this.executor.getQueue().size())
+            return;
+
+        if (!this.compacting.compareAndSet(false, true))
+            return;
+
+        try
+        {
+            final int[] removed = new int[1];
+            this.executor.getQueue().removeIf(new Predicate<Runnable>()
+            {
+                public boolean test(Runnable r)
+                {
+                    if (r instanceof Ticket && ((Ticket) r).isSuperseded())
+                    {
+                        removed[0]++;
+                        return true;
+                    }
+
+                    return false;
+                }
+            });
+            this.numSupersededTickets.addAndGet(-removed[0]);
+        }
+        finally
+        {
+            this.compacting.set(false);
+        }
+    }
+}
@@ -1215,7 +1215,16 @@ public class WWIO
             // Determine whether the file can be treated like a File, e.g., a jar entry.
             URI uri = url.toURI();
             if (uri.isOpaque())
-                return false; // TODO: Determine how to check the date of non-Files
+            {
+                // Jar entries are class path resources, which never expire. Other connections may report the
+                // entry's modification time, or zero if it's unknown.
+                URLConnection connection = url.openConnection();
+                if (connection instanceof JarURLConnection)
+                    return false;
+
+                long lastModified = connection.getLastModified();
+                return lastModified > 0 && lastModified < expiryTime;
+            }
 
             File file = new File(uri);
 
@@ -1226,6 +1235,11 @@ public class WWIO
             Logging.logger().log(Level.SEVERE, "WWIO.ExceptionValidatingFileExpiration", url);
             return false;
         }
+        catch (IOException e)
+        {
+            Logging.logger().log(Level.SEVERE, "WWIO.ExceptionValidatingFileExpiration", url);
+            return false;
+        }
     }
 
     public static Proxy configureProxy()
@@ -27,7 +27,8 @@ import java.util.ArrayList;
  * Projected or non terrain following area is computed in a sinusoidal projection which is equivalent or equal area.
  * Surface or terrain following area is approximated by sampling the path bounding sector with square cells along a
  * grid. Cells which center is inside the path have their area estimated and summed according to the overall slope at
- * the cell south-west corner.</p>
+ * the cell south-west corner. The grid is kept by a {@link SurfaceAreaSampler} between computations, so that moving a
+ * single position recomputes only the cells that weren't previously computed.</p>
  *
  * @author Patrick Murris
  * @version $Id: AreaMeasurer.java 1171 2013-02-11 21:45:02Z dcollins $
@@ -39,9 +40,8 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea {
     private static final double DEFAULT_AREA_SAMPLING_STEPS = 32; // sampling grid max rows or cols
 
     private ArrayList<? extends Position> subdividedPositions;
-    private Cell[][] sectorCells;
-    private Double[][] sectorElevations;
     private double areaTerrainSamplingSteps = DEFAULT_AREA_SAMPLING_STEPS;
+    protected SurfaceAreaSampler surfaceAreaSampler = new SurfaceAreaSampler();
     protected double surfaceArea = -1;
     protected double projectedArea = -1;
 
@@ -60,17 +60,6 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea {
         this.surfaceArea = -1;
     }
 
-    @Override
-    public void setPositions(ArrayList<? extends Position> positions) {
-        Sector oldSector = getBoundingSector();
-        super.setPositions(positions); // will call clearCachedData()
-
-        if (getBoundingSector() == null || !getBoundingSector().equals(oldSector)) {
-            this.sectorCells = null;
-            this.sectorElevations = null;
-        }
-    }
-
     /**
      * Get the sampling grid maximum number of rows or columns for terrain following surface area approximation.
      *
@@ -98,8 +87,7 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea {
             this.surfaceArea = -1;
             this.projectedArea = -1;
             // Invalidate cached data
-            this.sectorCells = null;
-            this.sectorElevations = null;
+            this.surfaceAreaSampler.clear();
         }
     }
 
@@ -187,18 +175,6 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea {
     }
 
     // *** Computing area ******************************************************************
-    protected class Cell {
-
-        Sector sector;
-        double projectedArea, surfaceArea;
-
-        public Cell(Sector sector, double projected, double surface) {
-            this.sector = sector;
-            this.projectedArea = projected;
-            this.surfaceArea = surface;
-        }
-    }
-
     // *** Projected area ***
     // Tessellate the path in lat-lon space, then sum each triangle area.
     protected double computeProjectedAreaGeometry(Globe globe) {
@@ -266,67 +242,7 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea {
                         true, getAVKeyPathType());
             }
 
-            // Sample the bounding sector with cells about the same length in side - squares
-            double stepRadians = Math.max(sector.getDeltaLatRadians() / steps, sector.getDeltaLonRadians() / steps);
-            int latSteps = (int) Math.round(sector.getDeltaLatRadians() / stepRadians);
-            int lonSteps = (int) Math.round(sector.getDeltaLonRadians() / stepRadians
-                    * Math.cos(sector.getCentroid().getLatitude().radians));
-            double latStepRadians = sector.getDeltaLatRadians() / latSteps;
-            double lonStepRadians = sector.getDeltaLonRadians() / lonSteps;
-
-            if (this.sectorCells == null) {
-                this.sectorCells = new Cell[latSteps][lonSteps];
-            }
-            if (this.sectorElevations == null) {
-                this.sectorElevations = new Double[latSteps + 1][lonSteps + 1];
-            }
-
-            double area = 0;
-            for (int i = 0; i < latSteps; i++) {
-                double lat = sector.getMinLatitude().radians + latStepRadians * i;
-                // Compute this latitude row cells area
-                double radius = globe.getRadiusAt(Angle.fromRadians(lat + latStepRadians / 2),
-                        sector.getCentroid().getLongitude());
-                double cellWidth = lonStepRadians * radius * Math.cos(lat + latStepRadians / 2);
-                double cellHeight = latStepRadians * radius;
-                double cellArea = cellWidth * cellHeight;
-
-                for (int j = 0; j < lonSteps; j++) {
-                    double lon = sector.getMinLongitude().radians + lonStepRadians * j;
-                    Sector cellSector = Sector.fromRadians(lat, lat + latStepRadians, lon, lon + lonStepRadians);
-                    // Select cells which center is inside the shape
-                    if (WWMath.isLocationInside(cellSector.getCentroid(), this.subdividedPositions)) {
-                        Cell cell = this.sectorCells[i][j];
-                        if (cell == null || cell.surfaceArea == -1) {
-                            // Compute suface area using terrain normal in SW corner
-                            // Corners elevation
-                            double eleSW = sectorElevations[i][j] != null ? sectorElevations[i][j]
-                                    : globe.getElevation(Angle.fromRadians(lat), Angle.fromRadians(lon));
-                            double eleSE = sectorElevations[i][j + 1] != null ? sectorElevations[i][j + 1]
-                                    : globe.getElevation(Angle.fromRadians(lat), Angle.fromRadians(lon + lonStepRadians));
-                            double eleNW = sectorElevations[i + 1][j] != null ? sectorElevations[i + 1][j]
-                                    : globe.getElevation(Angle.fromRadians(lat + latStepRadians), Angle.fromRadians(lon));
-                            // Cache elevations
-                            sectorElevations[i][j] = eleSW;
-                            sectorElevations[i][j + 1] = eleSE;
-                            sectorElevations[i + 1][j] = eleNW;
-                            // Compute normal
-                            Vec4 vx = new Vec4(cellWidth, 0, eleSE - eleSW).normalize3();
-                            Vec4 vy = new Vec4(0, cellHeight, eleNW - eleSW).normalize3();
-                            Vec4 normalSW = vx.cross3(vy).normalize3(); // point toward positive Z
-                            // Compute slope factor
-                            double tan = Math.tan(Vec4.UNIT_Z.angleBetween3(normalSW).radians);
-                            double slopeFactor = Math.sqrt(1 + tan * tan);
-                            // Create and cache cell
-                            cell = new Cell(cellSector, cellArea, cellArea * slopeFactor);
-                            this.sectorCells[i][j] = cell;
-                        }
-                        // Add cell area
-                        area += cell.surfaceArea;
-                    }
-                }
-            }
-            return area;
+            return this.surfaceAreaSampler.computeSurfaceArea(globe, this.subdividedPositions, steps);
         }
         return -1;
     }
@@ -0,0 +1,463 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util.measure;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Approximates the terrain following area enclosed by a list of locations. The area's bounding sector is sampled with
+ * a grid of cells about the same length in side. Cells which center is inside the area have their area estimated
+ * according to the terrain slope at the cell south-west corner, and are summed.
+ *
+ * <p>
+ * The sampler retains its grid between computations, so it's suited to areas that are edited interactively. The grid
+ * is aligned to a fixed lattice of latitudes and longitudes, and its cell size is chosen from a fixed set of sizes,
+ * each about 19% larger than the previous one. Moving a vertex of an area therefore usually leaves the grid unchanged
+ * or extends it, and only the cells that weren't previously computed are computed again. The elevations of the cell
+ * corners that are needed are retrieved in one bulk request to the globe, and the cells of large grids are computed in
+ * row bands on multiple threads.</p>
+ *
+ * <p>
+ * Elevations are retained only if the globe's elevation model provides them at the grid resolution. Elevations
+ * retrieved while terrain data is still being loaded are used for the current computation and are then discarded.</p>
+ *
+ * @see AreaMeasurer
+ */
+public class SurfaceAreaSampler {
+
+    /**
+     * The number of cells computed by a single task. Grids with more cells are divided into row bands which are
+     * computed concurrently.
+     */
+    protected static final int CELLS_PER_TASK = 4096;
+    /**
+     * The number of cell sizes in each doubling of the cell size. Cell sizes are rounded up to one of these sizes so
+     * that small changes to the bounding sector don't change the grid.
+     */
+    protected static final int CELL_SIZES_PER_OCTAVE = 4;
+
+    protected Globe globe;
+    protected ElevationModel elevationModel;
+    /** The size of a cell, in radians. */
+    protected double latStep;
+    protected double lonStep;
+    /** The lattice indices of the grid's south-west cell. */
+    protected int minRow;
+    protected int minCol;
+    protected int numRows;
+    protected int numCols;
+    /** The elevations of the cell corners, in row major order. NaN indicates a corner that's not yet retrieved. */
+    protected double[] cornerElevations;
+    /** The terrain following area of each cell, in row major order. NaN indicates a cell that's not yet computed. */
+    protected double[] cellAreas;
+    /** Indicates the cells which center is inside the area most recently computed. */
+    protected boolean[] insideCells;
+    protected int numCellsComputed;
+    protected int numElevationsRetrieved;
+
+    /**
+     * Computes the terrain following area enclosed by a list of locations. The locations should describe a closed path
+     * - one whose last location is equal to the first.
+     *
+     * @param globe     the globe to draw terrain information from.
+     * @param locations the locations describing the area's boundary.
+     * @param steps     the maximum number of grid rows or columns.
+     * @return the surface area in square meters, or zero if the locations don't enclose an area.
+     * @throws IllegalArgumentException if the globe or the locations are <code>null</code>, or if steps is less than
+     * one.
+     */
+    public synchronized double computeSurfaceArea(Globe globe, List<? extends LatLon> locations, double steps) {
+        if (globe == null) {
+            String message = Logging.getMessage("nullValue.GlobeIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (locations == null) {
+            String message = Logging.getMessage("nullValue.LocationsListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (steps < 1) {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", steps);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.numCellsComputed = 0;
+        this.numElevationsRetrieved = 0;
+
+        Sector sector = Sector.boundingSector(locations);
+        if (locations.size() < 3 || sector == null || !this.updateGrid(globe, sector, steps)) {
+            return 0;
+        }
+
+        // Flatten the boundary into arrays of degrees, in which the inside test is performed.
+        int numLocations = locations.size();
+        double[] lats = new double[numLocations];
+        double[] lons = new double[numLocations];
+        for (int i = 0; i < numLocations; i++) {
+            lats[i] = locations.get(i).getLatitude().degrees;
+            lons[i] = locations.get(i).getLongitude().degrees;
+        }
+
+        this.computeRows(new RowBandTask(lats, lons, false, 0, this.numRows));
+        boolean elevationsResolved = this.retrieveElevations(globe);
+        double area = this.computeRows(new RowBandTask(lats, lons, true, 0, this.numRows));
+
+        if (!elevationsResolved) {
+            // The terrain isn't yet available at the grid resolution. Compute these cells again next time.
+            Arrays.fill(this.cornerElevations, Double.NaN);
+            Arrays.fill(this.cellAreas, Double.NaN);
+        }
+
+        return area;
+    }
+
+    /**
+     * Indicates the number of cells whose area was computed by the most recent call to {@link
+     * #computeSurfaceArea(Globe, List, double)}. Cells computed by earlier calls are reused and are not counted.
+     *
+     * @return the number of cells computed.
+     */
+    public synchronized int getNumCellsComputed() {
+        return this.numCellsComputed;
+    }
+
+    /**
+     * Indicates the number of cell corner elevations retrieved from the globe by the most recent call to {@link
+     * #computeSurfaceArea(Globe, List, double)}.
+     *
+     * @return the number of elevations retrieved.
+     */
+    public synchronized int getNumElevationsRetrieved() {
+        return this.numElevationsRetrieved;
+    }
+
+    /**
+     * Releases the sampler's grid and its cached elevations and cell areas. The next computation starts from scratch.
+     */
+    public synchronized void clear() {
+        this.globe = null;
+        this.elevationModel = null;
+        this.cornerElevations = null;
+        this.cellAreas = null;
+        this.insideCells = null;
+        this.numRows = 0;
+        this.numCols = 0;
+    }
+
+    /**
+     * Rounds a cell size up to the nearest of the sizes the sampler uses.
+     *
+     * @param size the cell size in radians.
+     * @return the sampler's cell size.
+     */
+    protected static double quantizeCellSize(double size) {
+        double exponent = Math.ceil(Math.log(size) / Math.log(2) * CELL_SIZES_PER_OCTAVE) / CELL_SIZES_PER_OCTAVE;
+        return Math.pow(2, exponent);
+    }
+
+    /**
+     * Updates the grid to cover a sector. Cached corner elevations and cell areas that remain within the grid are
+     * retained if the globe and the cell size are unchanged.
+     *
+     * @param globe  the globe the area is on.
+     * @param sector the area's bounding sector.
+     * @param steps  the maximum number of grid rows or columns.
+     * @return <code>true</code> if the grid covers the sector, <code>false</code> if the sector is empty.
+     */
+    protected boolean updateGrid(Globe globe, Sector sector, double steps) {
+        // Sample the bounding sector with cells about the same length in side - squares
+        double stepRadians = Math.max(sector.getDeltaLatRadians(), sector.getDeltaLonRadians()) / steps;
+        double cosLat = Math.cos(sector.getCentroid().getLatitude().radians);
+        if (!(stepRadians > 0) || !(cosLat > 0)) {
+            return false;
+        }
+
+        double latStep = quantizeCellSize(stepRadians);
+        double lonStep = quantizeCellSize(latStep / cosLat);
+        int minRow = (int) Math.floor(sector.getMinLatitude().radians / latStep);
+        int minCol = (int) Math.floor(sector.getMinLongitude().radians / lonStep);
+        int numRows = Math.max(1, (int) Math.ceil(sector.getMaxLatitude().radians / latStep) - minRow);
+        int numCols = Math.max(1, (int) Math.ceil(sector.getMaxLongitude().radians / lonStep) - minCol);
+
+        boolean sameLattice = globe == this.globe && globe.getElevationModel() == this.elevationModel
+                && latStep == this.latStep && lonStep == this.lonStep;
+        if (sameLattice && minRow == this.minRow && minCol == this.minCol && numRows == this.numRows
+                && numCols == this.numCols) {
+            return true;
+        }
+
+        double[] cornerElevations = new double[(numRows + 1) * (numCols + 1)];
+        double[] cellAreas = new double[numRows * numCols];
+        Arrays.fill(cornerElevations, Double.NaN);
+        Arrays.fill(cellAreas, Double.NaN);
+
+        if (sameLattice && this.cellAreas != null) {
+            // Copy the cached values of the old grid's cells and corners that are within the new grid.
+            int firstRow = Math.max(minRow, this.minRow);
+            int lastRow = Math.min(minRow + numRows, this.minRow + this.numRows);
+            int firstCol = Math.max(minCol, this.minCol);
+            int lastCol = Math.min(minCol + numCols, this.minCol + this.numCols);
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int col = firstCol; col <= lastCol; col++) {
+                    cornerElevations[(row - minRow) * (numCols + 1) + col - minCol]
+                            = this.cornerElevations[(row - this.minRow) * (this.numCols + 1) + col - this.minCol];
+
+                    if (row < lastRow && col < lastCol) {
+                        cellAreas[(row - minRow) * numCols + col - minCol]
+                                = this.cellAreas[(row - this.minRow) * this.numCols + col - this.minCol];
+                    }
+                }
+            }
+        }
+
+        this.globe = globe;
+        this.elevationModel = globe.getElevationModel();
+        this.latStep = latStep;
+        this.lonStep = lonStep;
+        this.minRow = minRow;
+        this.minCol = minCol;
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.cornerElevations = cornerElevations;
+        this.cellAreas = cellAreas;
+        this.insideCells = new boolean[numRows * numCols];
+
+        return true;
+    }
+
+    /**
+     * Retrieves the corner elevations needed by the inside cells that haven't been computed. The elevations are
+     * retrieved from the globe in a single request.
+     *
+     * @param globe the globe to draw terrain information from.
+     * @return <code>true</code> if the elevations were available at the grid resolution, otherwise
+     * <code>false</code>.
+     */
+    protected boolean retrieveElevations(Globe globe) {
+        int cornersPerRow = this.numCols + 1;
+        boolean[] needed = new boolean[this.cornerElevations.length];
+        int numNeeded = 0;
+
+        for (int i = 0; i < this.numRows; i++) {
+            for (int j = 0; j < this.numCols; j++) {
+                int cell = i * this.numCols + j;
+                if (!this.insideCells[cell] || !Double.isNaN(this.cellAreas[cell])) {
+                    continue;
+                }
+
+                this.numCellsComputed++;
+
+                // The south-west, south-east and north-west corners determine the cell's slope.
+                int sw = i * cornersPerRow + j;
+                for (int corner : new int[]{sw, sw + 1, sw + cornersPerRow}) {
+                    if (!needed[corner] && Double.isNaN(this.cornerElevations[corner])) {
+                        needed[corner] = true;
+                        numNeeded++;
+                    }
+                }
+            }
+        }
+
+        if (numNeeded == 0) {
+            return true;
+        }
+
+        int[] indices = new int[numNeeded];
+        List<LatLon> locations = new ArrayList<LatLon>(numNeeded);
+        for (int corner = 0, n = 0; corner < needed.length; corner++) {
+            if (needed[corner]) {
+                indices[n++] = corner;
+                locations.add(this.getCornerLocation(corner / cornersPerRow, corner % cornersPerRow));
+            }
+        }
+
+        Sector sector = Sector.boundingSector(locations);
+        double[] elevations = new double[numNeeded];
+        double resolution = globe.getElevations(sector, locations, this.latStep, elevations);
+
+        for (int n = 0; n < numNeeded; n++) {
+            this.cornerElevations[indices[n]] = elevations[n];
+        }
+        this.numElevationsRetrieved = numNeeded;
+
+        if (resolution == Double.MAX_VALUE) {
+            return false;
+        }
+
+        ElevationModel model = globe.getElevationModel();
+        return model == null || resolution <= Math.max(this.latStep, model.getBestResolution(sector));
+    }
+
+    /**
+     * Returns the location of a cell corner, limited to the normal range of latitude and longitude.
+     *
+     * @param i the corner's row in the grid.
+     * @param j the corner's column in the grid.
+     * @return the corner's location.
+     */
+    protected LatLon getCornerLocation(int i, int j) {
+        double lat = Math.max(-Math.PI / 2, Math.min(Math.PI / 2, (this.minRow + i) * this.latStep));
+        double lon = (this.minCol + j) * this.lonStep;
+        if (lon > Math.PI) {
+            lon -= 2 * Math.PI;
+        } else if (lon < -Math.PI) {
+            lon += 2 * Math.PI;
+        }
+
+        return LatLon.fromRadians(lat, lon);
+    }
+
+    /**
+     * Runs a row band task, dividing it among the common fork/join pool's threads if the grid is large enough.
+     *
+     * @param task the task covering all of the grid's rows.
+     * @return the task's result.
+     */
+    protected double computeRows(RowBandTask task) {
+        if (this.numRows > 1 && this.numRows * this.numCols > CELLS_PER_TASK
+                && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return ForkJoinPool.commonPool().invoke(task);
+        }
+
+        return task.computeBand();
+    }
+
+    /**
+     * Determines which cells of a band of rows have their center inside the area. Each row's center latitude is
+     * intersected with the area's boundary, following the even/odd rule of {@link
+     * gov.nasa.worldwind.util.WWMath#isLocationInside(LatLon, Iterable)}, and the cells between each pair of
+     * intersections are inside.
+     *
+     * @param lats  the boundary latitudes, in degrees.
+     * @param lons  the boundary longitudes, in degrees.
+     * @param start the first row of the band.
+     * @param end   one more than the last row of the band.
+     */
+    protected void markInsideCells(double[] lats, double[] lons, int start, int end) {
+        double[] crossings = new double[lats.length];
+
+        for (int i = start; i < end; i++) {
+            double lat = Math.toDegrees((this.minRow + i + 0.5) * this.latStep);
+            int numCrossings = 0;
+            for (int k = 0; k < lats.length - 1; k++) {
+                double lat1 = lats[k];
+                double lat2 = lats[k + 1];
+                if ((lat2 <= lat && lat < lat1) || (lat1 <= lat && lat < lat2)) {
+                    crossings[numCrossings++] = (lons[k] - lons[k + 1]) * (lat - lat2) / (lat1 - lat2) + lons[k + 1];
+                }
+            }
+            Arrays.sort(crossings, 0, numCrossings);
+
+            // A cell is inside if an odd number of crossings lie east of its center.
+            int west = 0;
+            for (int j = 0; j < this.numCols; j++) {
+                double lon = Math.toDegrees((this.minCol + j + 0.5) * this.lonStep);
+                while (west < numCrossings && crossings[west] <= lon) {
+                    west++;
+                }
+                this.insideCells[i * this.numCols + j] = ((numCrossings - west) & 1) == 1;
+            }
+        }
+    }
+
+    /**
+     * Sums the area of the inside cells of a band of rows, computing the area of cells not previously computed. A
+     * cell's area is its area on the ellipsoid scaled by the terrain slope at its south-west corner.
+     *
+     * @param start the first row of the band.
+     * @param end   one more than the last row of the band.
+     * @return the area of the band's inside cells, in square meters.
+     */
+    protected double sumCellAreas(int start, int end) {
+        Angle centerLon = Angle.fromRadians((this.minCol + this.numCols / 2d) * this.lonStep);
+        int cornersPerRow = this.numCols + 1;
+        double area = 0;
+
+        for (int i = start; i < end; i++) {
+            // Compute this latitude row cells area
+            double lat = (this.minRow + i + 0.5) * this.latStep;
+            double radius = this.globe.getRadiusAt(Angle.fromRadians(lat), centerLon);
+            double cellWidth = this.lonStep * radius * Math.cos(lat);
+            double cellHeight = this.latStep * radius;
+            double cellArea = cellWidth * cellHeight;
+
+            for (int j = 0; j < this.numCols; j++) {
+                int cell = i * this.numCols + j;
+                if (!this.insideCells[cell]) {
+                    continue;
+                }
+
+                if (Double.isNaN(this.cellAreas[cell])) {
+                    // The slope factor is the inverse of the vertical component of the normal to the plane through
+                    // the south-west, south-east and north-west corners.
+                    int sw = i * cornersPerRow + j;
+                    double eastSlope = (this.cornerElevations[sw + 1] - this.cornerElevations[sw]) / cellWidth;
+                    double northSlope = (this.cornerElevations[sw + cornersPerRow] - this.cornerElevations[sw])
+                            / cellHeight;
+                    this.cellAreas[cell] = cellArea * Math.sqrt(1 + eastSlope * eastSlope + northSlope * northSlope);
+                }
+
+                area += this.cellAreas[cell];
+            }
+        }
+
+        return area;
+    }
+
+    /**
+     * Marks the inside cells or sums the cell areas of a band of rows, dividing the band until it's small enough to
+     * compute directly.
+     */
+    @SuppressWarnings("serial")
+    protected class RowBandTask extends RecursiveTask<Double> {
+
+        protected final double[] lats;
+        protected final double[] lons;
+        protected final boolean sum;
+        protected final int start;
+        protected final int end;
+
+        public RowBandTask(double[] lats, double[] lons, boolean sum, int start, int end) {
+            this.lats = lats;
+            this.lons = lons;
+            this.sum = sum;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Double compute() {
+            if (this.end - this.start <= 1 || (this.end - this.start) * numCols <= CELLS_PER_TASK) {
+                return this.computeBand();
+            }
+
+            int mid = (this.start + this.end) >>> 1;
+            RowBandTask south = new RowBandTask(this.lats, this.lons, this.sum, this.start, mid);
+            RowBandTask north = new RowBandTask(this.lats, this.lons, this.sum, mid, this.end);
+            north.fork();
+            double result = south.compute();
+            return result + north.join();
+        }
+
+        protected double computeBand() {
+            if (this.sum) {
+                return sumCellAreas(this.start, this.end);
+            }
+
+            markInsideCells(this.lats, this.lons, this.start, this.end);
+            return 0;
+        }
+    }
+}
@@ -34,7 +34,8 @@ public class GeoJSONLoader
     }
 
     /**
-     * Parse a GeoJSON document and add it to a layer.
+     * Parse a GeoJSON document and add it to a layer. The features of a FeatureCollection are added to the layer one
+     * at a time, as they're read.
      *
      * @param docSource GeoJSON document. May be a file path {@link String}, {@link java.io.File}, {@link java.net.URL},
      *                  or {@link java.net.URI}.
@@ -56,33 +57,17 @@ public class GeoJSONLoader
             throw new IllegalArgumentException(message);
         }
 
-        GeoJSONDoc doc = null;
+        GeoJSONStreamReader reader = null;
         try
         {
-            doc = new GeoJSONDoc(docSource);
-            doc.parse();
+            // Read the document one object at a time, adding each feature to the layer as soon as it's been read. This
+            // bounds the memory used by large feature collections, and displays their features progressively when the
+            // document is read on a thread other than the rendering thread.
+            reader = new GeoJSONStreamReader(docSource);
 
-            if (doc.getRootObject() instanceof GeoJSONObject)
+            for (GeoJSONObject o = reader.nextObject(); o != null; o = reader.nextObject())
             {
-                this.addGeoJSONGeometryToLayer((GeoJSONObject) doc.getRootObject(), layer);
-            }
-            else if (doc.getRootObject() instanceof Object[])
-            {
-                for (Object o : (Object[]) doc.getRootObject())
-                {
-                    if (o instanceof GeoJSONObject)
-                    {
-                        this.addGeoJSONGeometryToLayer((GeoJSONObject) o, layer);
-                    }
-                    else
-                    {
-                        this.handleUnrecognizedObject(o);
-                    }
-                }
-            }
-            else
-            {
-                this.handleUnrecognizedObject(doc.getRootObject());
+                this.addGeoJSONGeometryToLayer(o, layer);
             }
         }
         catch (IOException e)
@@ -93,9 +78,10 @@ public class GeoJSONLoader
         }
         finally
         {
-            WWIO.closeStream(doc, docSource.toString());
+            WWIO.closeStream(reader, docSource.toString());
         }
     }
+
     /**
      * Create a layer from a GeoJSON document.
      *
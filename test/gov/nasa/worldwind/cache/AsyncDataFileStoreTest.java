@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AsyncDataFileStoreTest
+{
+    private File root;
+    private AsyncDataFileStore store;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.root = File.createTempFile("AsyncDataFileStoreTest", "");
+        assertTrue(this.root.delete());
+
+        writeFile(this.root, "Earth/Test/0/0/0_0.bil", "tile");
+        writeFile(this.root, "Earth/Test/0/0/0_1.bil", "east");
+        writeFile(this.root, "Earth/Test/1/1/1_1.bil", "child");
+        writeFile(this.root, "config.xml", "config");
+
+        this.store = new AsyncDataFileStore(this.root);
+        this.store.getIndexFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        WWIO.deleteDirectory(this.root);
+        this.root.delete();
+    }
+
+    /** Tests that files are found from the index, including files added to the write location after indexing. */
+    @Test
+    public void testFindFile() throws Exception
+    {
+        assertTrue("Index not complete ", this.store.isIndexComplete());
+        assertEquals("Index size incorrect ", 4, this.store.getIndexSize());
+
+        URL url = this.store.findFile("Earth/Test/0/0/0_0.bil", false);
+        assertNotNull("Indexed file not found ", url);
+        assertEquals("Indexed file URL incorrect ", new File(this.root, "Earth/Test/0/0/0_0.bil").getCanonicalFile(),
+            new File(url.toURI()).getCanonicalFile());
+        assertTrue("Indexed file not contained ", this.store.containsFile("/Earth/Test/0/0/0_1.bil"));
+        assertNull("Missing file found ", this.store.findFile("Earth/Test/0/0/0_2.bil", false));
+
+        File newFile = this.store.newFile("Earth/Test/2/0/0_0.bil");
+        writeFile(newFile, "new");
+        assertNotNull("File added after indexing not found ", this.store.findFile("Earth/Test/2/0/0_0.bil", false));
+        assertEquals("Added file not indexed ", 5, this.store.getIndexSize());
+
+        this.store.removeFile(url);
+        assertNull("Removed file found ", this.store.findFile("Earth/Test/0/0/0_0.bil", false));
+    }
+
+    /** Tests that a file removed after the index is built and then re-created is found by a later index build. */
+    @Test
+    public void testRemovedFileRecreated() throws Exception
+    {
+        URL url = this.store.findFile("Earth/Test/0/0/0_1.bil", false);
+        this.store.removeFile(url);
+        assertTrue("Removal recorded after the index was built ", this.store.removedNames.isEmpty());
+        assertNull("Removed file found ", this.store.findFile("Earth/Test/0/0/0_1.bil", false));
+
+        writeFile(this.root, "Earth/Test/0/0/0_1.bil", "east");
+        this.store.rebuildIndex().get(5, TimeUnit.SECONDS);
+        assertNotNull("Re-created file not found ", this.store.findFile("Earth/Test/0/0/0_1.bil", false));
+        assertEquals("Index size incorrect ", 4, this.store.getIndexSize());
+    }
+
+    /**
+     * Tests that index builds don't occupy the reader threads, and that a build superseded by a later one stops without
+     * installing its index.
+     */
+    @Test
+    public void testSupersededIndexBuild() throws Exception
+    {
+        // Hold the index thread so that both builds are queued behind it.
+        final CountDownLatch latch = new CountDownLatch(1);
+        this.store.indexExecutor.execute(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    latch.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        CompletableFuture<Integer> first = this.store.rebuildIndex();
+        CompletableFuture<Integer> second = this.store.rebuildIndex();
+        assertEquals("Read blocked by index build ", "tile",
+            toString(this.store.readFile("Earth/Test/0/0/0_0.bil").get(5, TimeUnit.SECONDS)));
+        latch.countDown();
+
+        assertEquals("Superseded build not stopped ", -1, (int) first.get(5, TimeUnit.SECONDS));
+        assertEquals("Index size incorrect ", 4, (int) second.get(5, TimeUnit.SECONDS));
+        assertTrue("Index not complete ", this.store.isIndexComplete());
+    }
+
+    /** Tests that files are read asynchronously and that a tile's children and neighbors are read ahead. */
+    @Test
+    public void testReadFileAndReadAhead() throws Exception
+    {
+        ByteBuffer buffer = this.store.readFile("Earth/Test/0/0/0_0.bil").get(5, TimeUnit.SECONDS);
+        assertEquals("File contents incorrect ", "tile", toString(buffer));
+        assertNull("Missing file read ", this.store.readFile("Earth/Test/0/0/0_2.bil").get(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 500 && !(this.store.readAheadCache.contains("Earth/Test/0/0/0_1.bil")
+            && this.store.readAheadCache.contains("Earth/Test/1/1/1_1.bil")); i++)
+        {
+            Thread.sleep(10);
+        }
+
+        assertTrue("Neighbor not read ahead ", this.store.readAheadCache.contains("Earth/Test/0/0/0_1.bil"));
+        assertTrue("Child not read ahead ", this.store.readAheadCache.contains("Earth/Test/1/1/1_1.bil"));
+        assertFalse("Non-tile read ahead ", this.store.readAheadCache.contains("config.xml"));
+
+        assertTrue("Read-ahead file not returned immediately ", this.store.readFile("Earth/Test/1/1/1_1.bil").isDone());
+        assertEquals("Read-ahead contents incorrect ", "east",
+            toString(this.store.readFile("Earth/Test/0/0/0_1.bil").get(5, TimeUnit.SECONDS)));
+    }
+
+    private static void writeFile(File root, String name, String contents) throws IOException
+    {
+        writeFile(new File(root, name), contents);
+    }
+
+    private static void writeFile(File file, String contents) throws IOException
+    {
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        WWIO.writeTextFile(contents, file);
+    }
+
+    private static String toString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes);
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.cache;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ConcurrentMemoryCacheTest
+{
+    /** Tests that adding beyond capacity evicts down to the low water level and reports each eviction. */
+    @Test
+    public void testEvictionToLowWater()
+    {
+        ConcurrentMemoryCache cache = new ConcurrentMemoryCache(50, 100);
+        final List<Object> removed = new ArrayList<Object>();
+        cache.addCacheListener(new RecordingListener(removed));
+
+        for (int i = 0; i < 100; i++)
+        {
+            assertTrue("Item not added ", cache.add(i, "value" + i, 1));
+        }
+        assertEquals("Used capacity incorrect ", 100, cache.getUsedCapacity());
+        assertTrue("Nothing should be evicted yet ", removed.isEmpty());
+
+        cache.add(100, "value100", 1);
+        assertEquals("Used capacity not at low water ", 50, cache.getUsedCapacity());
+        assertEquals("Item count incorrect ", 50, cache.getNumObjects());
+        assertEquals("Evictions not reported ", 51, removed.size());
+        assertTrue("Newest item evicted ", cache.contains(100));
+    }
+
+    /** Tests that entries accessed since the last eviction pass survive it. */
+    @Test
+    public void testRecentlyUsedEntriesRetained()
+    {
+        ConcurrentMemoryCache cache = new ConcurrentMemoryCache(8, 10);
+
+        for (int i = 0; i < 10; i++)
+        {
+            cache.add(i, "value" + i, 1);
+        }
+
+        // Touch the oldest entries so that they are given a second chance.
+        cache.getObject(0);
+        cache.getObject(1);
+
+        cache.add(10, "value10", 1);
+        assertTrue("Recently used item evicted ", cache.contains(0));
+        assertTrue("Recently used item evicted ", cache.contains(1));
+        assertFalse("Least recently used item retained ", cache.contains(2));
+    }
+
+    /** Tests that replacing and removing entries keeps capacity consistent and notifies listeners once per entry. */
+    @Test
+    public void testReplaceAndRemove()
+    {
+        ConcurrentMemoryCache cache = new ConcurrentMemoryCache(50, 100);
+        final List<Object> removed = new ArrayList<Object>();
+        cache.addCacheListener(new RecordingListener(removed));
+
+        cache.add("a", "first", 10);
+        cache.add("a", "second", 20);
+        assertEquals("Replacement not reported ", Arrays.asList((Object) "first"), removed);
+        assertEquals("Used capacity incorrect after replace ", 20, cache.getUsedCapacity());
+        assertEquals("Replacement not returned ", "second", cache.getObject("a"));
+
+        cache.remove("a");
+        cache.remove("a");
+        assertEquals("Removal reported incorrectly ", 2, removed.size());
+        assertEquals("Used capacity incorrect after remove ", 0, cache.getUsedCapacity());
+
+        cache.add("b", "value", 5);
+        cache.add("c", "value", 5);
+        cache.clear();
+        assertEquals("Item count incorrect after clear ", 0, cache.getNumObjects());
+        assertEquals("Used capacity incorrect after clear ", 0, cache.getUsedCapacity());
+        assertEquals("Clear not reported ", 4, removed.size());
+    }
+
+    /** Tests that a cache that never fills doesn't accumulate stale eviction queue entries. */
+    @Test
+    public void testStaleQueueEntriesBounded()
+    {
+        ConcurrentMemoryCache cache = new ConcurrentMemoryCache(500000, 1000000);
+        for (int i = 0; i < 100000; i++)
+        {
+            cache.add(i % 10, "value", 10);
+            if (i % 3 == 0)
+                cache.remove(i % 10);
+        }
+
+        assertTrue("Eviction queue not purged " + cache.evictionQueue.size(),
+            cache.evictionQueue.size() <= 2 * (cache.getNumObjects() + ConcurrentMemoryCache.STALE_ENTRY_ALLOWANCE));
+        assertEquals("Used capacity incorrect ", 10 * cache.getNumObjects(), cache.getUsedCapacity());
+    }
+
+    /** Tests that concurrent readers and writers leave the used capacity equal to the sum of the cached sizes. */
+    @Test
+    public void testConcurrentAccess() throws Exception
+    {
+        final ConcurrentMemoryCache cache = new ConcurrentMemoryCache(800, 1000);
+        final AtomicLong removedSize = new AtomicLong();
+        final AtomicLong addedSize = new AtomicLong();
+        cache.addCacheListener(new MemoryCache.CacheListener()
+        {
+            public void entryRemoved(Object key, Object clientObject)
+            {
+                removedSize.addAndGet((Long) clientObject);
+            }
+
+            public void removalException(Throwable exception, Object key, Object clientObject)
+            {
+            }
+        });
+
+        int numThreads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int t = 0; t < numThreads; t++)
+        {
+            final int seed = t;
+            futures.add(executor.submit(new Runnable()
+            {
+                public void run()
+                {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 20000; i++)
+                    {
+                        int key = random.nextInt(2000);
+                        if (random.nextInt(4) == 0)
+                        {
+                            long size = 1 + random.nextInt(5);
+                            if (cache.add(key, size, size))
+                                addedSize.addAndGet(size);
+                        }
+                        else if (random.nextInt(50) == 0)
+                        {
+                            cache.remove(key);
+                        }
+                        else
+                        {
+                            cache.getObject(key);
+                        }
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures)
+        {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertTrue("Cache over capacity ", cache.getUsedCapacity() <= cache.getCapacity());
+        assertEquals("Used capacity inconsistent with removals ", addedSize.get() - removedSize.get(),
+            cache.getUsedCapacity());
+
+        long sum = 0;
+        for (int key = 0; key < 2000; key++)
+        {
+            Object value = cache.getObject(key);
+            if (value != null)
+                sum += (Long) value;
+        }
+        assertEquals("Used capacity inconsistent with contents ", sum, cache.getUsedCapacity());
+    }
+
+    private static class RecordingListener implements MemoryCache.CacheListener
+    {
+        private final List<Object> removed;
+
+        public RecordingListener(List<Object> removed)
+        {
+            this.removed = removed;
+        }
+
+        public void entryRemoved(Object key, Object clientObject)
+        {
+            this.removed.add(clientObject);
+        }
+
+        public void removalException(Throwable exception, Object key, Object clientObject)
+        {
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TileArchiveTest
+{
+    private File root;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.root = File.createTempFile("TileArchiveTest", "");
+        assertTrue(this.root.delete());
+        assertTrue(this.root.mkdirs());
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        WWIO.deleteDirectory(this.root);
+        this.root.delete();
+    }
+
+    /** Tests that tiles are written, superseded, removed, compacted and recovered when the archive is reopened. */
+    @Test
+    public void testWriteRemoveCompactAndReopen() throws Exception
+    {
+        File file = new File(this.root, "Test.wwta");
+        TileArchive archive = new TileArchive(file, false);
+
+        archive.write(0, 0, 0, ".bil", toBuffer("first"), 1000);
+        archive.write(0, 0, 1, ".bil", toBuffer("east"), 2000);
+        archive.write(0, 0, 0, ".bil", toBuffer("second"), 3000);
+        archive.write(3, 5, 7, ".bil", toBuffer("removed"), 4000);
+        assertTrue("Tile not removed ", archive.remove(3, 5, 7));
+
+        assertEquals("Tile count incorrect ", 2, archive.getNumTiles());
+        assertEquals("Superseded tile not replaced ", "second", toString(archive.read(0, 0, 0, ".bil")));
+        assertEquals("Modification time incorrect ", 3000, archive.getLastModified(0, 0, 0, ".bil"));
+        assertNull("Removed tile read ", archive.read(3, 5, 7, ".bil"));
+        assertNull("Tile read with the wrong suffix ", archive.read(0, 0, 1, ".png"));
+
+        long size = archive.getSizeInBytes();
+        assertTrue("Live bytes not less than size ", archive.getLiveBytes() < size);
+        archive.compact();
+        assertTrue("Archive not compacted ", archive.getSizeInBytes() < size);
+        assertEquals("Compacted tile incorrect ", "east", toString(archive.read(0, 0, 1, ".bil")));
+        archive.close();
+
+        // Append a partial record, as left by an interrupted write, and check that it's discarded on reopening.
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(raf.length());
+        raf.writeInt(TileArchive.RECORD_MAGIC);
+        raf.close();
+
+        archive = new TileArchive(file, false);
+        assertEquals("Tile count incorrect after reopening ", 2, archive.getNumTiles());
+        assertEquals("Tile incorrect after reopening ", "second", toString(archive.read(0, 0, 0, ".bil")));
+        assertEquals("Partial record not discarded ", archive.getSizeInBytes(), file.length());
+        archive.close();
+    }
+
+    /** Tests that the file store finds and reads archived tiles by URL, and imports tiles held as individual files. */
+    @Test
+    public void testFileStore() throws Exception
+    {
+        writeFile(new File(this.root, "Earth/Test/0/0/0_0.bil"), "tile");
+        writeFile(new File(this.root, "Earth/Test/0/0/0_1.bil"), "east");
+        writeFile(new File(this.root, "config.xml"), "config");
+
+        TileArchiveFileStore store = new TileArchiveFileStore(this.root);
+        assertEquals("Tiles not imported ", 2, store.importTiles("Earth/Test"));
+        assertFalse("Imported file not removed ", new File(this.root, "Earth/Test/0/0/0_0.bil").exists());
+        assertTrue("Archive not created ", new File(this.root, "Earth/Test" + TileArchive.FILE_SUFFIX).isFile());
+
+        URL url = store.findFile("Earth/Test/0/0/0_0.bil", false);
+        assertNotNull("Archived tile not found ", url);
+        assertEquals("Archived tile URL protocol incorrect ", TileArchive.URL_PROTOCOL, url.getProtocol());
+        assertEquals("Archived tile contents incorrect ", "tile", toString(WWIO.readURLContentToBuffer(url)));
+        assertTrue("Archived tile not contained ", store.containsFile("Earth/Test/0/0/0_1.bil"));
+        assertNotNull("Non-tile not found ", store.findFile("config.xml", false));
+
+        long lastModified = url.openConnection().getLastModified();
+        assertTrue("Archived tile modification time not reported ", lastModified > 0);
+        assertFalse("Archived tile out of date ", WWIO.isFileOutOfDate(url, lastModified));
+        assertTrue("Archived tile not out of date ", WWIO.isFileOutOfDate(url, lastModified + 1));
+
+        store.removeFile(url);
+        assertNull("Removed tile found ", store.findFile("Earth/Test/0/0/0_0.bil", false));
+
+        for (TileArchive archive : store.getArchives())
+        {
+            archive.close();
+        }
+    }
+
+    private static void writeFile(File file, String contents) throws IOException
+    {
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        WWIO.writeTextFile(contents, file);
+    }
+
+    private static ByteBuffer toBuffer(String s)
+    {
+        return ByteBuffer.wrap(s.getBytes());
+    }
+
+    private static String toString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes);
+    }
+}
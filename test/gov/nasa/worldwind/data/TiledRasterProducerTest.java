@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.beans.*;
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TiledRasterProducerTest
+{
+    private static final Sector SECTOR_A = Sector.fromDegrees(10, 16, 20, 30);
+    private static final Sector SECTOR_B = Sector.fromDegrees(13, 18, 25, 32);
+
+    private File sequentialDir;
+    private File parallelDir;
+    private File sourceDir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.sequentialDir = Files.createTempDirectory("TiledRasterProducerTest").toFile();
+        this.parallelDir = Files.createTempDirectory("TiledRasterProducerTest").toFile();
+        this.sourceDir = Files.createTempDirectory("TiledRasterProducerTest").toFile();
+    }
+
+    @After
+    public void tearDown()
+    {
+        delete(this.sequentialDir);
+        delete(this.parallelDir);
+        delete(this.sourceDir);
+    }
+
+    /** Tests that parallel production writes the same tiles, byte for byte, as sequential production. */
+    @Test
+    public void testParallelProductionMatchesSequential() throws Exception
+    {
+        this.produce(this.sequentialDir, null);
+        this.produce(this.parallelDir, 4);
+
+        Map<String, File> expected = listTiles(this.sequentialDir);
+        Map<String, File> actual = listTiles(this.parallelDir);
+        assertTrue("Too few tiles produced ", expected.size() > 30);
+        assertEquals("Tiles produced incorrect ", expected.keySet(), actual.keySet());
+
+        for (Map.Entry<String, File> entry : expected.entrySet())
+        {
+            assertArrayEquals("Tile " + entry.getKey() + " differs ", Files.readAllBytes(entry.getValue().toPath()),
+                Files.readAllBytes(actual.get(entry.getKey()).toPath()));
+        }
+    }
+
+    /** Tests that incremental production after sources are added, modified and removed matches a full production. */
+    @Test
+    public void testIncrementalProductionMatchesFullProduction() throws Exception
+    {
+        File a = this.writeSource("a.png", SECTOR_A, 500, 300, 1);
+        File b = this.writeSource("b.png", SECTOR_B, 350, 250, 2);
+        File incrementalDir = this.parallelDir;
+
+        this.produceFiles(incrementalDir, true, a);
+        setLastModified(incrementalDir, 1000L);
+
+        // Add a source. Tiles that don't intersect it are left as they were.
+        this.produceFiles(incrementalDir, true, a, b);
+        this.assertSameTiles(a, b);
+        Map<String, File> tiles = listTiles(incrementalDir);
+        int unchanged = 0;
+        for (File file : tiles.values())
+        {
+            if (file.lastModified() == 1000L)
+                unchanged++;
+        }
+        assertTrue("No tiles left unchanged ", unchanged > 0);
+        assertTrue("All tiles left unchanged ", unchanged < tiles.size());
+
+        // Modify a source.
+        a = this.writeSource("a.png", SECTOR_A, 500, 300, 3);
+        assertTrue("Cannot modify source ", a.setLastModified(a.lastModified() + 10000L));
+        this.produceFiles(incrementalDir, true, a, b);
+        this.assertSameTiles(a, b);
+
+        // Remove a source. Tiles that no longer have data are removed.
+        this.produceFiles(incrementalDir, true, a);
+        this.assertSameTiles(a);
+    }
+
+    /** Tests that an interrupted incremental production resumes, and matches a full production. */
+    @Test
+    public void testResumeInterruptedProduction() throws Exception
+    {
+        File a = this.writeSource("a.png", SECTOR_A, 500, 300, 1);
+        File b = this.writeSource("b.png", SECTOR_B, 350, 250, 2);
+        File incrementalDir = this.parallelDir;
+
+        final TiledImageProducer producer = new TiledImageProducer();
+        producer.addPropertyChangeListener(AVKey.PROGRESS, new PropertyChangeListener()
+        {
+            public void propertyChange(PropertyChangeEvent event)
+            {
+                if ((Double) event.getNewValue() > 0.5)
+                    producer.stopProduction();
+            }
+        });
+        this.produceFiles(producer, incrementalDir, true, a, b);
+
+        File stateFile = new File(incrementalDir, "test/test.ProductionState.txt");
+        assertTrue("Production not interrupted ", stateFile.exists());
+        assertFalse("Interrupted production installed its configuration ",
+            new File(incrementalDir, "test/test.xml").exists());
+        List<String> completed = Files.readAllLines(stateFile.toPath());
+        assertTrue("No tiles completed before interruption ", completed.size() > 1);
+
+        this.produceFiles(incrementalDir, true, a, b);
+        assertFalse("Production state not removed ", stateFile.exists());
+        this.assertSameTiles(a, b);
+    }
+
+    private File writeSource(String name, Sector sector, int width, int height, long seed) throws IOException
+    {
+        File file = new File(this.sourceDir, name);
+        new ImageIORasterWriter(true).write(new BufferedImageRaster(sector, createImage(width, height, seed)), "png",
+            file);
+        return file;
+    }
+
+    private void produceFiles(File location, boolean incremental, File... sources) throws Exception
+    {
+        this.produceFiles(new TiledImageProducer(), location, incremental, sources);
+    }
+
+    private void produceFiles(TiledImageProducer producer, File location, boolean incremental, File... sources)
+        throws Exception
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.FILE_STORE_LOCATION, location.getAbsolutePath());
+        params.setValue(AVKey.DATA_CACHE_NAME, "test");
+        params.setValue(AVKey.DATASET_NAME, "test");
+        params.setValue(AVKey.TILE_WIDTH, 128);
+        params.setValue(AVKey.TILE_HEIGHT, 128);
+        params.setValue(AVKey.NUM_LEVELS, 3);
+        // Keep the tile structure the same as sources change.
+        params.setValue(AVKey.SECTOR, Sector.fromDegrees(10, 18, 20, 32));
+        params.setValue(AVKey.TILE_ORIGIN, LatLon.fromDegrees(10, 20));
+        params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(4, 4));
+        if (incremental)
+            params.setValue(AVKey.TILED_RASTER_PRODUCER_INCREMENTAL, true);
+
+        producer.setStoreParameters(params);
+        for (File source : sources)
+        {
+            producer.offerDataSource(source, null);
+        }
+        producer.startProduction();
+    }
+
+    /** Compares the incremental production's tiles to those of a full production from the specified sources. */
+    private void assertSameTiles(File... sources) throws Exception
+    {
+        delete(this.sequentialDir);
+        this.produceFiles(this.sequentialDir, false, sources);
+
+        Map<String, File> expected = listTiles(this.sequentialDir);
+        Map<String, File> actual = listTiles(this.parallelDir);
+        assertEquals("Tiles produced incorrect ", expected.keySet(), actual.keySet());
+
+        for (Map.Entry<String, File> entry : expected.entrySet())
+        {
+            assertArrayEquals("Tile " + entry.getKey() + " differs ", Files.readAllBytes(entry.getValue().toPath()),
+                Files.readAllBytes(actual.get(entry.getKey()).toPath()));
+        }
+    }
+
+    private void produce(File location, Integer threadPoolSize) throws Exception
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.FILE_STORE_LOCATION, location.getAbsolutePath());
+        params.setValue(AVKey.DATA_CACHE_NAME, "test");
+        params.setValue(AVKey.DATASET_NAME, "test");
+        params.setValue(AVKey.TILE_WIDTH, 128);
+        params.setValue(AVKey.TILE_HEIGHT, 128);
+        params.setValue(AVKey.NUM_LEVELS, 5);
+        if (threadPoolSize != null)
+            params.setValue(AVKey.TILED_RASTER_PRODUCER_THREAD_POOL_SIZE, threadPoolSize);
+
+        // Two overlapping sources, so that the order sources are drawn in matters.
+        TiledImageProducer producer = new TiledImageProducer();
+        producer.setStoreParameters(params);
+        producer.offerDataSource(new BufferedImageRaster(Sector.fromDegrees(10, 16, 20, 30), createImage(1000, 600, 1)),
+            null);
+        producer.offerDataSource(new BufferedImageRaster(Sector.fromDegrees(13, 18, 25, 32), createImage(700, 500, 2)),
+            null);
+        producer.startProduction();
+    }
+
+    private static BufferedImage createImage(int width, int height, long seed)
+    {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(seed);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                image.setRGB(x, y, 0xFF000000 | random.nextInt(0x1000000));
+            }
+        }
+
+        return image;
+    }
+
+    private static Map<String, File> listTiles(File dir)
+    {
+        Map<String, File> tiles = new TreeMap<String, File>();
+        listTiles(dir, "", tiles);
+        return tiles;
+    }
+
+    private static void listTiles(File dir, String path, Map<String, File> tiles)
+    {
+        File[] files = dir.listFiles();
+        if (files == null)
+            return;
+
+        for (File file : files)
+        {
+            if (file.isDirectory())
+                listTiles(file, path + file.getName() + "/", tiles);
+            else if (!file.getName().endsWith(".xml"))
+                tiles.put(path + file.getName(), file);
+        }
+    }
+
+    private static void setLastModified(File dir, long time)
+    {
+        for (File file : listTiles(dir).values())
+        {
+            assertTrue("Cannot set modification time ", file.setLastModified(time));
+        }
+    }
+
+    private static void delete(File file)
+    {
+        File[] files = file.listFiles();
+        if (files != null)
+        {
+            for (File child : files)
+            {
+                delete(child);
+            }
+        }
+
+        file.delete();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.dds;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ParallelDDSCompressorTest
+{
+    private static final int[] IMAGE_TYPES = {BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB,
+        BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_INT_ARGB_PRE};
+
+    /** Tests that parallel compression writes the same bytes as sequential compression, with and without mip maps. */
+    @Test
+    public void testOutputMatchesSequential()
+    {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            ParallelDDSCompressor parallel = new ParallelDDSCompressor(pool);
+            parallel.setBandHeight(8); // many bands per level
+            DDSCompressor sequential = new DDSCompressor();
+
+            int[][] sizes = {{256, 128}, {64, 64}, {2, 1}, {1, 16}};
+            for (int type : IMAGE_TYPES)
+            {
+                for (int[] size : sizes)
+                {
+                    BufferedImage image = createImage(size[0], size[1], type, 7);
+                    for (DXTCompressionAttributes attributes : createAttributes())
+                    {
+                        String label = "type " + type + ", " + size[0] + "x" + size[1] + ", format "
+                            + attributes.getDXTFormat() + ", mipmaps " + attributes.isBuildMipmaps() + " ";
+                        assertBuffersEqual(label, sequential.compressImage(image, attributes),
+                            parallel.compressImage(image, attributes));
+                    }
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /** Tests that the static convenience methods compress in parallel, and match sequential compression. */
+    @Test
+    public void testConvenienceMethodsCompressInParallel()
+    {
+        assertTrue("Default compressor not parallel ",
+            DDSCompressor.createDefaultCompressor() instanceof ParallelDDSCompressor);
+
+        BufferedImage image = createImage(512, 512, BufferedImage.TYPE_INT_ARGB, 11);
+        assertBuffersEqual("Convenience method ", new DDSCompressor().compressImage(image,
+            DDSCompressor.getDefaultCompressionAttributes()), DDSCompressor.compressImage(image));
+    }
+
+    /** Tests that the array extractor returns the same blocks as the image extractor, including partial blocks. */
+    @Test
+    public void testPixelArrayExtractorMatchesImageExtractor()
+    {
+        BufferedImage image = createImage(6, 7, BufferedImage.TYPE_4BYTE_ABGR, 3);
+        int[] pixels = image.getRGB(0, 0, 6, 7, null, 0, 6);
+        ColorBlockExtractor expected = new BasicColorBlockExtractor(image);
+        ColorBlockExtractor actual = new PixelArrayColorBlockExtractor(pixels, 6, 7);
+
+        DXTCompressionAttributes attributes = new DXTCompressionAttributes();
+        ColorBlock4x4 expectedBlock = new ColorBlock4x4();
+        ColorBlock4x4 actualBlock = new ColorBlock4x4();
+        for (boolean premultiply : new boolean[] {false, true})
+        {
+            attributes.setPremultiplyAlpha(premultiply);
+            for (int y = 0; y < 7; y++)
+            {
+                for (int x = 0; x < 6; x++)
+                {
+                    expected.extractColorBlock4x4(attributes, x, y, expectedBlock);
+                    actual.extractColorBlock4x4(attributes, x, y, actualBlock);
+                    for (int i = 0; i < 16; i++)
+                    {
+                        String label = "Block (" + x + ", " + y + ") color " + i + " incorrect ";
+                        assertEquals(label, expectedBlock.color[i].a, actualBlock.color[i].a);
+                        assertEquals(label, expectedBlock.color[i].r, actualBlock.color[i].r);
+                        assertEquals(label, expectedBlock.color[i].g, actualBlock.color[i].g);
+                        assertEquals(label, expectedBlock.color[i].b, actualBlock.color[i].b);
+                    }
+                }
+            }
+        }
+    }
+
+    private static DXTCompressionAttributes[] createAttributes()
+    {
+        DXTCompressionAttributes dxt1 = DDSCompressor.getDefaultCompressionAttributes();
+        dxt1.setDXTFormat(DDSConstants.D3DFMT_DXT1);
+
+        DXTCompressionAttributes dxt1Alpha = DDSCompressor.getDefaultCompressionAttributes();
+        dxt1Alpha.setDXTFormat(DDSConstants.D3DFMT_DXT1);
+        dxt1Alpha.setEnableDXT1Alpha(true);
+
+        DXTCompressionAttributes dxt3 = DDSCompressor.getDefaultCompressionAttributes();
+        dxt3.setDXTFormat(DDSConstants.D3DFMT_DXT3);
+
+        DXTCompressionAttributes noMipmaps = DDSCompressor.getDefaultCompressionAttributes();
+        noMipmaps.setBuildMipmaps(false);
+        noMipmaps.setPremultiplyAlpha(false);
+
+        return new DXTCompressionAttributes[] {dxt1, dxt1Alpha, dxt3, noMipmaps};
+    }
+
+    private static void assertBuffersEqual(String label, ByteBuffer expected, ByteBuffer actual)
+    {
+        assertEquals(label + "size incorrect ", expected.remaining(), actual.remaining());
+        assertEquals(label + "position incorrect ", 0, actual.position());
+        for (int i = 0; i < expected.remaining(); i++)
+        {
+            if (expected.get(i) != actual.get(i))
+                fail(label + "differs at byte " + i);
+        }
+    }
+
+    private static BufferedImage createImage(int width, int height, int type, long seed)
+    {
+        // Smooth gradients with noise give blocks a realistic spread of colors, and a range of alpha values exercises
+        // both DXT1 alpha and DXT3.
+        BufferedImage image = new BufferedImage(width, height, type);
+        Random random = new Random(seed);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int r = (x * 255 / width + random.nextInt(32)) & 0xFF;
+                int g = (y * 255 / height + random.nextInt(32)) & 0xFF;
+                int b = random.nextInt(256);
+                int a = random.nextInt(4) == 0 ? random.nextInt(256) : 255;
+                image.setRGB(x, y, (a << 24) | (r << 16) | (g << 8) | b);
+            }
+        }
+
+        return image;
+    }
+}
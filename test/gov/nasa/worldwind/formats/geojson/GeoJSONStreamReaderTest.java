@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.geojson;
+
+import gov.nasa.worldwind.avlist.AVList;
+import gov.nasa.worldwind.geom.Position;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GeoJSONStreamReaderTest
+{
+    private static final String FEATURE_COLLECTION = "{\"type\": \"FeatureCollection\", "
+        + "\"crs\": {\"type\": \"name\", \"properties\": {\"name\": \"EPSG:4326\"}}, \"features\": ["
+        + "{\"type\": \"Feature\", \"geometry\": {\"type\": \"Point\", \"coordinates\": [102.0, 0.5]}, "
+        + "\"properties\": {\"name\": \"point\", \"count\": 3, \"valid\": true, \"nothing\": null}}, "
+        + "{\"type\": \"Feature\", \"geometry\": {\"type\": \"LineString\", "
+        + "\"coordinates\": [[102.0, 0.0, 10], [103.0, 1.0, 20], [104.0, 0.0, 30]]}, "
+        + "\"properties\": {\"name\": \"line\", \"tags\": [\"a\", \"b\"], \"nested\": {\"x\": 1.5}}}, "
+        + "{\"type\": \"Feature\", \"geometry\": {\"type\": \"Polygon\", \"coordinates\": ["
+        + "[[100.0, 0.0], [101.0, 0.0], [101.0, 1.0], [100.0, 1.0], [100.0, 0.0]], "
+        + "[[100.2, 0.2], [100.8, 0.2], [100.8, 0.8], [100.2, 0.8], [100.2, 0.2]]]}, "
+        + "\"properties\": {\"name\": \"polygon\"}}, "
+        + "{\"type\": \"Feature\", \"geometry\": {\"type\": \"MultiLineString\", \"coordinates\": ["
+        + "[[100.0, 0.0], [101.0, 1.0]], [[102.0, 2.0], [103.0, 3.0], [104.0, 4.0]]]}, \"properties\": {}}, "
+        + "{\"type\": \"Feature\", \"geometry\": {\"type\": \"MultiPoint\", \"coordinates\": "
+        + "[[100.0, 0.0], [101.0, 1.0]]}}"
+        + "], \"bbox\": [100.0, 0.0, 104.0, 4.0]}";
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.file = File.createTempFile("GeoJSONStreamReaderTest", ".geojson");
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.file.delete();
+    }
+
+    /** Tests that the features read one at a time are the same as the features of the fully parsed document. */
+    @Test
+    public void testFeaturesMatchDocument() throws Exception
+    {
+        this.writeFile(FEATURE_COLLECTION);
+
+        GeoJSONDoc doc = new GeoJSONDoc(this.file);
+        doc.parse();
+        GeoJSONFeature[] expected = ((GeoJSONFeatureCollection) doc.getRootObject()).getFeatures();
+        doc.close();
+
+        GeoJSONStreamReader reader = new GeoJSONStreamReader(this.file);
+        List<GeoJSONObject> actual = readAll(reader);
+        reader.close();
+
+        assertEquals("Feature count incorrect ", expected.length, actual.size());
+        for (int i = 0; i < expected.length; i++)
+        {
+            assertTrue("Object is not a feature ", actual.get(i).isFeature());
+            GeoJSONFeature feature = actual.get(i).asFeature();
+            assertEquals("Properties incorrect ", toMap(expected[i].getProperties()), toMap(feature.getProperties()));
+            assertEquals("Geometry type incorrect ", expected[i].getGeometry().getClass(),
+                feature.getGeometry().getClass());
+            assertEquals("Coordinates incorrect ", toPositions(expected[i].getGeometry()),
+                toPositions(feature.getGeometry()));
+        }
+
+        // The collection's other members are available once the features have been read, including those that follow
+        // the features array.
+        AVList fields = reader.getCollectionFields();
+        assertEquals("Type incorrect ", GeoJSONConstants.TYPE_FEATURE_COLLECTION, fields.getValue("type"));
+        assertEquals("CRS incorrect ", "EPSG:4326", ((AVList) ((AVList) fields.getValue("crs")).getValue(
+            "properties")).getValue("name"));
+        assertArrayEquals("BBox incorrect ", new Object[] {100d, 0d, 104d, 4d}, (Object[]) fields.getValue("bbox"));
+    }
+
+    /**
+     * Tests that each feature's coordinates are held in a buffer of its own, sized to the feature, which remains valid
+     * while the reader continues.
+     */
+    @Test
+    public void testFeaturesHaveIndependentBuffers() throws Exception
+    {
+        StringBuilder sb = new StringBuilder("{\"type\": \"FeatureCollection\", \"features\": [");
+        for (int i = 0; i < 100; i++)
+        {
+            sb.append(i > 0 ? ", " : "").append("{\"type\": \"Feature\", \"geometry\": ");
+            sb.append("{\"type\": \"LineString\", \"coordinates\": [");
+            for (int j = 0; j <= i; j++)
+            {
+                sb.append(j > 0 ? ", " : "").append("[").append(i).append(", ").append(j % 90).append("]");
+            }
+            sb.append("]}}");
+        }
+        this.writeFile(sb.append("]}").toString());
+
+        GeoJSONStreamReader reader = new GeoJSONStreamReader(this.file);
+        List<GeoJSONObject> features = readAll(reader);
+        reader.close();
+
+        assertEquals("Feature count incorrect ", 100, features.size());
+        for (int i = 0; i < 100; i++)
+        {
+            GeoJSONPositionArray coords = features.get(i).asFeature().getGeometry().asLineString().getCoordinates();
+            assertEquals("Buffer not sized to the feature ", 2 * (i + 1), coords.buffer.capacity());
+            assertEquals("Position count incorrect ", i + 1, coords.length());
+            for (int j = 0; j <= i; j++)
+            {
+                assertEquals("Position incorrect ", Position.fromDegrees(j % 90, i), coords.getPosition(j));
+            }
+        }
+    }
+
+    /** Tests reading MultiPolygons, GeometryCollections, and documents whose root isn't a FeatureCollection. */
+    @Test
+    public void testOtherRoots() throws Exception
+    {
+        this.writeFile("{\"type\": \"MultiPolygon\", \"coordinates\": ["
+            + "[[[102.0, 2.0], [103.0, 2.0], [103.0, 3.0], [102.0, 2.0]]], "
+            + "[[[100.0, 0.0], [101.0, 0.0], [101.0, 1.0], [100.0, 0.0]], "
+            + "[[100.2, 0.2], [100.8, 0.2], [100.8, 0.8], [100.2, 0.2]]]]}");
+
+        GeoJSONStreamReader reader = new GeoJSONStreamReader(this.file);
+        GeoJSONMultiPolygon multiPolygon = reader.nextObject().asMultiPolygon();
+        assertNull("Unexpected object ", reader.nextObject());
+        reader.close();
+
+        assertEquals("Polygon count incorrect ", 2, multiPolygon.getPolygonCount());
+        assertEquals("Interior ring count incorrect ", 0, multiPolygon.getInteriorRingCount(0));
+        assertEquals("Interior ring count incorrect ", 1, multiPolygon.getInteriorRingCount(1));
+        assertEquals("Position incorrect ", Position.fromDegrees(0.8, 100.8),
+            multiPolygon.getInteriorRing(1, 0).getPosition(2));
+
+        this.writeFile("[{\"type\": \"GeometryCollection\", \"geometries\": ["
+            + "{\"type\": \"Point\", \"coordinates\": [100.0, 0.0, 5.0]}, "
+            + "{\"type\": \"LineString\", \"coordinates\": [[101.0, 0.0], [102.0, 1.0]]}]}, "
+            + "{\"unknown\": 1}, "
+            + "{\"type\": \"Point\", \"coordinates\": [-70.0, 40.0]}]");
+
+        reader = new GeoJSONStreamReader(this.file);
+        List<GeoJSONObject> objects = readAll(reader);
+        reader.close();
+
+        assertEquals("Object count incorrect ", 2, objects.size());
+        GeoJSONGeometry[] geometries = objects.get(0).asGeometryCollection().getGeometries();
+        assertEquals("Geometry count incorrect ", 2, geometries.length);
+        assertEquals("Position incorrect ", Position.fromDegrees(0, 100, 5), geometries[0].asPoint().getPosition());
+        assertEquals("Position incorrect ", Position.fromDegrees(1, 102),
+            geometries[1].asLineString().getCoordinates().getPosition(1));
+        assertEquals("Position incorrect ", Position.fromDegrees(40, -70), objects.get(1).asPoint().getPosition());
+    }
+
+    private void writeFile(String contents) throws IOException
+    {
+        Files.write(this.file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<GeoJSONObject> readAll(GeoJSONStreamReader reader) throws IOException
+    {
+        List<GeoJSONObject> objects = new ArrayList<GeoJSONObject>();
+        for (GeoJSONObject o = reader.nextObject(); o != null; o = reader.nextObject())
+        {
+            objects.add(o);
+        }
+
+        return objects;
+    }
+
+    private static List<Position> toPositions(GeoJSONGeometry geometry)
+    {
+        List<Position> positions = new ArrayList<Position>();
+        Object coords = geometry.getValue(GeoJSONConstants.FIELD_COORDINATES);
+        if (coords instanceof GeoJSONPositionArray)
+        {
+            addPositions((GeoJSONPositionArray) coords, positions);
+        }
+        else
+        {
+            for (GeoJSONPositionArray array : (GeoJSONPositionArray[]) coords)
+            {
+                addPositions(array, positions);
+            }
+        }
+
+        return positions;
+    }
+
+    private static void addPositions(GeoJSONPositionArray array, List<Position> positions)
+    {
+        for (Position position : array)
+        {
+            positions.add(position);
+        }
+    }
+
+    private static Map<String, Object> toMap(AVList list)
+    {
+        Map<String, Object> map = new HashMap<String, Object>();
+        if (list == null)
+            return map;
+
+        for (Map.Entry<String, Object> entry : list.getEntries())
+        {
+            Object value = entry.getValue();
+            if (value instanceof AVList)
+                value = toMap((AVList) value);
+            else if (value instanceof Object[])
+                value = Arrays.asList((Object[]) value);
+            map.put(entry.getKey(), value);
+        }
+
+        return map;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.shapefile;
+
+import gov.nasa.worldwind.util.PerformanceStatistic;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ShapefileGeometrySchedulerTest
+{
+    private ShapefileGeometryScheduler scheduler;
+    private CountDownLatch blockerStarted;
+    private CountDownLatch releaseBlocker;
+    private final List<String> completed = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() throws Exception
+    {
+        // A single worker thread, occupied by a blocking task, so that requests stay queued until it's released.
+        this.scheduler = new ShapefileGeometryScheduler(1, 4);
+        this.blockerStarted = new CountDownLatch(1);
+        this.releaseBlocker = new CountDownLatch(1);
+        assertTrue(this.scheduler.request("blocker", "blocker", new Runnable()
+        {
+            public void run()
+            {
+                blockerStarted.countDown();
+                try
+                {
+                    releaseBlocker.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, 0, 0));
+        assertTrue("Blocking task not started ", this.blockerStarted.await(5, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.releaseBlocker.countDown();
+        this.scheduler.shutdown();
+    }
+
+    /** Tests that queued requests run in priority order, and a repeated request for a queued tile isn't run twice. */
+    @Test
+    public void testPriorityOrderAndDeduplication() throws Exception
+    {
+        Object owner = new Object();
+        assertTrue(this.scheduler.request(owner, "far", this.createTask("far"), 300, 1));
+        assertTrue(this.scheduler.request(owner, "near", this.createTask("near"), 100, 1));
+        assertTrue(this.scheduler.request(owner, "middle", this.createTask("middle"), 200, 1));
+
+        // Renewing "far" with a much nearer priority moves it to the front, and its new task is ignored.
+        assertTrue(this.scheduler.request(owner, "far", this.createTask("duplicate"), 10, 2));
+        assertEquals("Queued count incorrect ", 3, this.scheduler.getNumQueued());
+        assertTrue(this.scheduler.contains("far"));
+
+        this.awaitCompletion(3);
+        assertEquals("Run order incorrect ", Arrays.asList("far", "near", "middle"), this.completed);
+        assertEquals("Renewal count incorrect ", 1, this.scheduler.getNumRenewed());
+        assertFalse("Completed request still pending ", this.scheduler.contains("far"));
+    }
+
+    /** Tests that requests not renewed in the current frame are cancelled, and that other owners are unaffected. */
+    @Test
+    public void testCancelStaleRequests() throws Exception
+    {
+        Object owner = new Object();
+        Object otherOwner = new Object();
+        this.scheduler.request(owner, "stale", this.createTask("stale"), 100, 1);
+        this.scheduler.request(owner, "renewed", this.createTask("renewed"), 200, 1);
+        this.scheduler.request(otherOwner, "other", this.createTask("other"), 300, 1);
+
+        this.scheduler.request(owner, "renewed", this.createTask("renewed"), 200, 2);
+        assertEquals("Cancelled count incorrect ", 1, this.scheduler.cancelStaleRequests(owner, 2));
+        assertFalse("Stale request still pending ", this.scheduler.contains("stale"));
+
+        this.awaitCompletion(2);
+        assertEquals("Run requests incorrect ", Arrays.asList("renewed", "other"), this.completed);
+        assertEquals("Cancelled count incorrect ", 1, this.scheduler.getNumCancelled());
+
+        // A cancelled tile may be requested again.
+        this.scheduler.request(owner, "stale", this.createTask("stale"), 100, 3);
+        this.awaitCompletion(3);
+        assertEquals("Re-requested tile not run ", "stale", this.completed.get(2));
+    }
+
+    /** Tests that requests are rejected, not discarded, when the queue is full, and that latency is measured. */
+    @Test
+    public void testRejectionAndLatency() throws Exception
+    {
+        Object owner = new Object();
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(this.scheduler.request(owner, i, this.createTask("task " + i), i, 1));
+        }
+
+        assertFalse("Request accepted by a full queue ", this.scheduler.request(owner, 4, this.createTask("x"), 4, 1));
+        assertEquals("Rejected count incorrect ", 1, this.scheduler.getNumRejected());
+        assertTrue("Renewal rejected by a full queue ", this.scheduler.request(owner, 0, this.createTask("x"), 0, 1));
+
+        Thread.sleep(20);
+        this.awaitCompletion(4);
+        assertEquals("Completed count incorrect ", 5, this.scheduler.getNumCompleted()); // includes the blocker
+        assertTrue("Latency not measured ", this.scheduler.getMaxLatency() >= 20);
+        assertTrue("Latency not measured ", this.scheduler.getAverageLatency() > 0);
+        assertEquals("Statistics incorrect ", 6, this.scheduler.getPerformanceStatistics().size());
+    }
+
+    private Runnable createTask(final String name)
+    {
+        return new Runnable()
+        {
+            public void run()
+            {
+                completed.add(name);
+            }
+        };
+    }
+
+    private void awaitCompletion(int count) throws InterruptedException
+    {
+        this.releaseBlocker.countDown();
+
+        long timeout = System.currentTimeMillis() + 5000;
+        while (this.completed.size() < count && System.currentTimeMillis() < timeout)
+        {
+            Thread.sleep(5);
+        }
+
+        // Give the worker a moment to run any request that shouldn't have run.
+        Thread.sleep(50);
+        assertEquals("Completed requests incorrect " + this.completed, count, this.completed.size());
+    }
+
+    /** Tests that the shared scheduler provides its statistics through the performance statistic registry. */
+    @Test
+    public void testSharedInstanceRegistersStatistics()
+    {
+        ShapefileGeometryScheduler shared = ShapefileGeometryScheduler.getSharedInstance();
+        assertEquals("Shared scheduler not registered ", PerformanceStatistic.SHAPEFILE_GEOMETRY,
+            PerformanceStatistic.getProviders().get(shared));
+        assertNull("Unshared scheduler registered ", PerformanceStatistic.getProviders().get(this.scheduler));
+    }
+}
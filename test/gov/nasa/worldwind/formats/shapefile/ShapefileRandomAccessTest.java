@@ -0,0 +1,339 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.shapefile;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.util.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ShapefileRandomAccessTest
+{
+    private static final String STATE_BOUNDS_PATH = "testData/shapefiles/state_bounds";
+    private static final String SPRINGFIELD_URBAN_GROWTH_PATH = "testData/shapefiles/SPR_UGB";
+
+    private File root;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.root = File.createTempFile("ShapefileRandomAccessTest", "");
+        assertTrue(this.root.delete());
+        assertTrue(this.root.mkdirs());
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        WWIO.deleteDirectory(this.root);
+        this.root.delete();
+    }
+
+    /**
+     * Tests that records read in random order, and read twice, match the records read sequentially, including their
+     * attributes. The UTM Shapefile's points are converted in place, so reading a record twice must not convert them
+     * again.
+     */
+    @Test
+    public void testRecordsMatchSequential() throws Exception
+    {
+        for (String path : new String[] {STATE_BOUNDS_PATH, SPRINGFIELD_URBAN_GROWTH_PATH})
+        {
+            File file = this.copyShapefile(path);
+            List<ShapefileRecord> expected = readAll(new Shapefile(file));
+
+            Shapefile shapefile = new Shapefile(file, createRandomAccessParams());
+            assertTrue("Random access unavailable ", shapefile.isRandomAccess());
+            assertEquals("Record count incorrect ", expected.size(), shapefile.getNumberOfRecords());
+
+            for (int pass = 0; pass < 2; pass++)
+            {
+                for (int i = expected.size(); i >= 1; i--)
+                {
+                    assertRecordsEqual(path + " record " + i + " ", expected.get(i - 1), shapefile.readRecord(i));
+                }
+            }
+
+            shapefile.close();
+        }
+    }
+
+    /** Tests that the records selected by a sector are exactly those whose bounding rectangles intersect it. */
+    @Test
+    public void testSelectRecordsMatchesBruteForce() throws Exception
+    {
+        File file = this.copyShapefile(STATE_BOUNDS_PATH);
+        List<ShapefileRecord> records = readAll(new Shapefile(file));
+
+        Shapefile shapefile = new Shapefile(file, createRandomAccessParams());
+        Sector[] sectors = {Sector.fromDegrees(30, 40, -100, -90), Sector.fromDegrees(45, 46, -70, -69),
+            Sector.fromDegrees(0, 1, 0, 1), Sector.FULL_SPHERE};
+
+        for (Sector sector : sectors)
+        {
+            List<Integer> expected = new ArrayList<Integer>();
+            for (ShapefileRecord record : records)
+            {
+                if (!record.isNullRecord() && Sector.fromDegrees(record.getBoundingRectangle()).intersects(sector))
+                    expected.add(record.getRecordNumber());
+            }
+
+            int[] actual = shapefile.getRecordNumbers(sector);
+            assertEquals("Records incorrect for " + sector + " ", expected.toString(), toList(actual).toString());
+
+            // Iteration is restricted to the selected records.
+            shapefile.selectRecords(sector);
+            List<Integer> iterated = new ArrayList<Integer>();
+            while (shapefile.hasNext())
+            {
+                iterated.add(shapefile.nextRecord().getRecordNumber());
+            }
+            assertEquals("Selected records incorrect for " + sector + " ", expected, iterated);
+        }
+
+        shapefile.selectRecords(null);
+        assertEquals("Record count incorrect ", records.size(), readAll(shapefile).size());
+    }
+
+    /** Tests that the spatial index sidecar is written, reused, and rebuilt when the Shapefile changes. */
+    @Test
+    public void testSidecarReusedAndRebuilt() throws Exception
+    {
+        File file = this.copyShapefile(SPRINGFIELD_URBAN_GROWTH_PATH);
+        File sidecar = new File(WWIO.replaceSuffix(file.getPath(), ".hrt"));
+
+        Shapefile shapefile = new Shapefile(file, createRandomAccessParams());
+        String coordinateSystem = shapefile.getCoordinateSystemKey();
+        shapefile.close();
+        assertTrue("Sidecar not written ", sidecar.exists());
+        assertNotNull("Sidecar not valid ",
+            ShapefileSpatialIndex.read(sidecar, file.length(), file.lastModified(), coordinateSystem));
+
+        // Reopening uses the existing sidecar.
+        assertTrue(sidecar.setLastModified(1000));
+        shapefile = new Shapefile(file, createRandomAccessParams());
+        int[] before = shapefile.getRecordNumbers(Sector.FULL_SPHERE);
+        shapefile.close();
+        assertEquals("Sidecar rewritten ", 1000, sidecar.lastModified());
+
+        // A sidecar for another version of the Shapefile, or another coordinate system, is out of date.
+        assertNull("Stale sidecar not detected ",
+            ShapefileSpatialIndex.read(sidecar, file.length(), file.lastModified() + 2000, coordinateSystem));
+        assertNull("Stale sidecar not detected ",
+            ShapefileSpatialIndex.read(sidecar, file.length(), file.lastModified(), "other"));
+
+        // Changing the Shapefile's modification time causes the sidecar to be rebuilt.
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        shapefile = new Shapefile(file, createRandomAccessParams());
+        assertArrayEquals("Rebuilt index incorrect ", before, shapefile.getRecordNumbers(Sector.FULL_SPHERE));
+        shapefile.close();
+        assertTrue("Sidecar not rewritten ", sidecar.lastModified() != 1000);
+        assertNotNull("Rebuilt sidecar not valid ",
+            ShapefileSpatialIndex.read(sidecar, file.length(), file.lastModified(), coordinateSystem));
+    }
+
+    /**
+     * Tests that the renderables built from a random access Shapefile load only the records in the visible sector, and
+     * that a newly visible sector adds only the records not already loaded.
+     */
+    @Test
+    public void testRenderablesLoadVisibleRecords() throws Exception
+    {
+        File file = this.copyShapefile(STATE_BOUNDS_PATH);
+        Shapefile shapefile = new Shapefile(file, createRandomAccessParams());
+        Sector[] sectors = {Sector.fromDegrees(30, 40, -100, -90), Sector.fromDegrees(45, 46, -70, -69)};
+
+        for (ShapefileRenderable shape : new ShapefileRenderable[] {new ShapefilePolylines(shapefile),
+            new ShapefilePolygons(shapefile)})
+        {
+            assertEquals("Records loaded before drawing ", 0, shape.getRecordCount());
+
+            Set<Integer> expected = new TreeSet<Integer>();
+            DrawContext dc = new DrawContextImpl();
+            for (Sector sector : sectors)
+            {
+                expected.addAll(toList(shapefile.getRecordNumbers(sector)));
+                dc.setVisibleSector(sector);
+                shape.loadVisibleRecords(dc);
+                shape.loadVisibleRecords(dc); // loading the same sector again doesn't add records
+
+                assertEquals("Record count incorrect for " + sector + " ", expected.size(), shape.getRecordCount());
+            }
+
+            for (ShapefileRenderable.Record record : shape)
+            {
+                assertTrue("Record outside visible sectors ",
+                    record.getSector().intersects(sectors[0]) || record.getSector().intersects(sectors[1]));
+            }
+        }
+
+        shapefile.close();
+    }
+
+    /** Tests random access to a point Shapefile that has no index file, so the record index is built by scanning. */
+    @Test
+    public void testPointsWithoutIndexFile() throws Exception
+    {
+        double[][] points = {{-120, 35}, {10, 50}, {10.5, 50.5}, {150, -30}, {-60, -10}};
+        File file = new File(this.root, "points.shp");
+        writePointShapefile(file, points);
+
+        Shapefile shapefile = new Shapefile(file, createRandomAccessParams());
+        assertTrue("Random access unavailable ", shapefile.isRandomAccess());
+        assertEquals("Record count incorrect ", points.length, shapefile.getNumberOfRecords());
+
+        for (int i = points.length; i >= 1; i--)
+        {
+            double[] point = shapefile.readRecord(i).getPointBuffer(0).get(0, new double[2]);
+            assertEquals("X incorrect ", points[i - 1][0], point[0], 0);
+            assertEquals("Y incorrect ", points[i - 1][1], point[1], 0);
+        }
+
+        int[] actual = shapefile.getRecordNumbers(Sector.fromDegrees(49, 51, 9, 11));
+        assertArrayEquals("Records incorrect ", new int[] {2, 3}, actual);
+        shapefile.close();
+    }
+
+    private File copyShapefile(String path) throws IOException
+    {
+        File target = null;
+        for (String suffix : new String[] {".shp", ".shx", ".dbf", ".prj"})
+        {
+            File source = new File(path + suffix);
+            File copy = new File(this.root, source.getName());
+            Files.copy(source.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+            if (".shp".equals(suffix))
+                target = copy;
+        }
+
+        return target;
+    }
+
+    private static AVList createRandomAccessParams()
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.SHAPEFILE_RANDOM_ACCESS, true);
+        return params;
+    }
+
+    private static List<ShapefileRecord> readAll(Shapefile shapefile)
+    {
+        List<ShapefileRecord> records = new ArrayList<ShapefileRecord>();
+        while (shapefile.hasNext())
+        {
+            records.add(shapefile.nextRecord());
+        }
+
+        return records;
+    }
+
+    private static List<Integer> toList(int[] array)
+    {
+        List<Integer> list = new ArrayList<Integer>();
+        for (int i : array)
+        {
+            list.add(i);
+        }
+
+        return list;
+    }
+
+    private static void assertRecordsEqual(String label, ShapefileRecord expected, ShapefileRecord actual)
+    {
+        assertEquals(label + "number incorrect ", expected.getRecordNumber(), actual.getRecordNumber());
+        assertEquals(label + "shape type incorrect ", expected.getShapeType(), actual.getShapeType());
+        assertCoordsEqual(label + "bounds incorrect ", expected.getBoundingRectangle(), actual.getBoundingRectangle());
+        assertEquals(label + "part count incorrect ", expected.getNumberOfParts(), actual.getNumberOfParts());
+
+        for (int part = 0; part < expected.getNumberOfParts(); part++)
+        {
+            VecBuffer expectedPoints = expected.getPointBuffer(part);
+            VecBuffer actualPoints = actual.getPointBuffer(part);
+            assertEquals(label + "point count incorrect ", expectedPoints.getSize(), actualPoints.getSize());
+            for (int i = 0; i < expectedPoints.getSize(); i++)
+            {
+                assertCoordsEqual(label + "point " + i + " incorrect ", expectedPoints.get(i, new double[2]),
+                    actualPoints.get(i, new double[2]));
+            }
+        }
+
+        // Request one value before the others so that the lazy record reads a single field, then compare them all.
+        DBaseRecord expectedAttrs = expected.getAttributes();
+        DBaseRecord actualAttrs = actual.getAttributes();
+        for (Map.Entry<String, Object> entry : expectedAttrs.getEntries())
+        {
+            assertTrue(label + "attribute missing ", actualAttrs.hasKey(entry.getKey()));
+            assertEquals(label + "attribute incorrect ", entry.getValue(), actualAttrs.getValue(entry.getKey()));
+            break;
+        }
+        assertEquals(label + "attributes incorrect ", new HashMap<String, Object>(toMap(expectedAttrs)),
+            new HashMap<String, Object>(toMap(actualAttrs)));
+    }
+
+    private static void assertCoordsEqual(String label, double[] expected, double[] actual)
+    {
+        assertEquals(label, expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++)
+        {
+            assertEquals(label, expected[i], actual[i], 0);
+        }
+    }
+
+    private static Map<String, Object> toMap(AVList list)
+    {
+        Map<String, Object> map = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : list.getEntries())
+        {
+            map.put(entry.getKey(), entry.getValue());
+        }
+
+        return map;
+    }
+
+    private static void writePointShapefile(File file, double[][] points) throws IOException
+    {
+        int recordLength = 8 + 20;
+        ByteBuffer buffer = ByteBuffer.allocate(100 + points.length * recordLength);
+
+        // File header: big endian file code and length in 16-bit words, then little endian version and shape type.
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(0, 9994);
+        buffer.putInt(24, buffer.capacity() / 2);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(28, 1000);
+        buffer.putInt(32, 1);
+        buffer.putDouble(36, -180);
+        buffer.putDouble(44, -90);
+        buffer.putDouble(52, 180);
+        buffer.putDouble(60, 90);
+
+        for (int i = 0; i < points.length; i++)
+        {
+            int pos = 100 + i * recordLength;
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            buffer.putInt(pos, i + 1);
+            buffer.putInt(pos + 4, 10);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(pos + 8, 1);
+            buffer.putDouble(pos + 12, points[i][0]);
+            buffer.putDouble(pos + 20, points[i][1]);
+        }
+
+        Files.write(file.toPath(), buffer.array());
+    }
+}
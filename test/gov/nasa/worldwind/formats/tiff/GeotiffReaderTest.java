@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.tiff;
+
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.data.*;
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GeotiffReaderTest
+{
+    private static final String ELEVATIONS_PATH = "src/gov/nasa/worldwindx/examples/data/craterlake-elev-16bit-30m.tif";
+
+    /** Tests that a GeoTIFF read from memory has the same metadata and elevations as one read from its file. */
+    @Test
+    public void testReadFromBuffer() throws Exception
+    {
+        File file = new File(ELEVATIONS_PATH);
+        ByteBuffer buffer = WWIO.readFileToBuffer(file);
+
+        DataRaster[] fileRasters = readRasters(new GeotiffReader(file));
+        DataRaster[] bufferRasters = readRasters(new GeotiffReader(buffer, file.getName()));
+        assertEquals("Raster count incorrect ", fileRasters.length, bufferRasters.length);
+        assertEquals("Buffer position changed ", 0, buffer.position());
+
+        BufferWrapperRaster expected = (BufferWrapperRaster) fileRasters[0];
+        BufferWrapperRaster actual = (BufferWrapperRaster) bufferRasters[0];
+        assertEquals("Width incorrect ", expected.getWidth(), actual.getWidth());
+        assertEquals("Height incorrect ", expected.getHeight(), actual.getHeight());
+        assertEquals("Sector incorrect ", expected.getValue(AVKey.SECTOR), actual.getValue(AVKey.SECTOR));
+        assertEquals("Data type incorrect ", expected.getValue(AVKey.DATA_TYPE), actual.getValue(AVKey.DATA_TYPE));
+
+        for (int y = 0; y < expected.getHeight(); y += 7)
+        {
+            for (int x = 0; x < expected.getWidth(); x += 7)
+            {
+                assertEquals("Elevation differs at " + x + ", " + y, expected.getDoubleAtPosition(y, x),
+                    actual.getDoubleAtPosition(y, x), 0);
+            }
+        }
+    }
+
+    private static DataRaster[] readRasters(GeotiffReader reader) throws Exception
+    {
+        try
+        {
+            return reader.readDataRaster();
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+}
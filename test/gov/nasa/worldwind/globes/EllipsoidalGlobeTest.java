@@ -6,10 +6,16 @@
 package gov.nasa.worldwind.globes;
 
 import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.projections.*;
+import gov.nasa.worldwind.util.BufferWrapper;
 import org.junit.*;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.nio.*;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 import static org.junit.Assert.assertEquals;
 
 @RunWith(JUnit4.class)
@@ -318,4 +324,152 @@ public class EllipsoidalGlobeTest
             assertEquals(msg, 0, w.z, THRESHOLD);
         }
     }
+
+    @Test
+    public void testBulkTransformsMatchPointTransforms()
+    {
+        double[] positions = createPositions(1000, 90, 180);
+        double[] points = new double[positions.length];
+
+        this.globe.computePointsFromPositions(positions, 1000, null, points);
+        for (int i = 0; i < positions.length; i += 3)
+        {
+            Vec4 expected = this.globe.computePointFromPosition(Angle.fromRadians(positions[i]),
+                Angle.fromRadians(positions[i + 1]), positions[i + 2]);
+            assertEquals("X comparison", expected.x, points[i], REQUIRED_PRECISION);
+            assertEquals("Y comparison", expected.y, points[i + 1], REQUIRED_PRECISION);
+            assertEquals("Z comparison", expected.z, points[i + 2], REQUIRED_PRECISION);
+        }
+
+        // Convert the points back in place.
+        double[] expectedPoints = points.clone();
+        this.globe.computePositionsFromPoints(points, 1000, null, points);
+        for (int i = 0; i < positions.length; i += 3)
+        {
+            Position expected = this.globe.computePositionFromPoint(
+                new Vec4(expectedPoints[i], expectedPoints[i + 1], expectedPoints[i + 2]));
+            assertEquals("Latitude comparison", expected.getLatitude().radians, points[i], REQUIRED_PRECISION);
+            assertEquals("Longitude comparison", expected.getLongitude().radians, points[i + 1], REQUIRED_PRECISION);
+            assertEquals("Height comparison", expected.getElevation(), points[i + 2], 1.0e-6);
+            assertEquals("Latitude round trip", positions[i], points[i], REQUIRED_PRECISION);
+        }
+    }
+
+    @Test
+    public void testBulkTransformsOfBuffers()
+    {
+        // Single precision points are only accurate near the reference point.
+        double[] positions = createPositions(100, 1, 1);
+        Vec4 referencePoint = this.globe.computePointFromPosition(Angle.fromRadians(positions[0]),
+            Angle.fromRadians(positions[1]), 0);
+
+        // Buffers are read and written from their current positions, which don't change.
+        DoubleBuffer positionBuffer = DoubleBuffer.allocate(positions.length + 3);
+        positionBuffer.position(3);
+        positionBuffer.slice().put(positions);
+        FloatBuffer floatPoints = FloatBuffer.allocate(positions.length + 6);
+        floatPoints.position(6);
+        DoubleBuffer doublePoints = ByteBuffer.allocateDirect(8 * positions.length).asDoubleBuffer();
+
+        this.globe.computePointsFromPositions(positionBuffer, 100, referencePoint, floatPoints);
+        this.globe.computePointsFromPositions(positionBuffer, 100, referencePoint, doublePoints);
+        assertEquals("Buffer position changed", 3, positionBuffer.position());
+        assertEquals("Buffer position changed", 6, floatPoints.position());
+
+        for (int i = 0; i < positions.length; i += 3)
+        {
+            Vec4 expected = this.globe.computePointFromPosition(Angle.fromRadians(positions[i]),
+                Angle.fromRadians(positions[i + 1]), positions[i + 2]).subtract3(referencePoint);
+            assertEquals("X comparison", expected.x, doublePoints.get(i), REQUIRED_PRECISION);
+            assertEquals("Y comparison", expected.y, doublePoints.get(i + 1), REQUIRED_PRECISION);
+            assertEquals("Z comparison", expected.z, doublePoints.get(i + 2), REQUIRED_PRECISION);
+            assertEquals("X comparison", expected.x, floatPoints.get(6 + i), 0.05);
+            assertEquals("Y comparison", expected.y, floatPoints.get(6 + i + 1), 0.05);
+            assertEquals("Z comparison", expected.z, floatPoints.get(6 + i + 2), 0.05);
+        }
+
+        DoubleBuffer roundTrip = DoubleBuffer.allocate(positions.length);
+        this.globe.computePositionsFromPoints(doublePoints, 100, referencePoint, roundTrip);
+        for (int i = 0; i < positions.length; i++)
+        {
+            assertEquals("Round trip comparison", positions[i], roundTrip.get(i), i % 3 == 2 ? 1.0e-6 : 1.0e-12);
+        }
+    }
+
+    @Test
+    public void testBulkTransformsOnFlatGlobe()
+    {
+        FlatGlobe flatGlobe = new EarthFlat();
+        double[] positions = createPositions(200, 70, 180);
+        double[] points = new double[positions.length];
+        double[] roundTrip = new double[positions.length];
+        GeographicProjection[] projections = new GeographicProjection[] {new ProjectionEquirectangular(),
+            new ProjectionMercator(), new ProjectionSinusoidal(), new ProjectionModifiedSinusoidal(),
+            new ProjectionPolarEquidistant()};
+
+        for (GeographicProjection projection : projections)
+        {
+            String msg = projection.getName();
+            flatGlobe.setProjection(projection);
+            flatGlobe.computePointsFromPositions(positions, 200, null, points);
+            flatGlobe.computePositionsFromPoints(points, 200, null, roundTrip);
+
+            for (int i = 0; i < positions.length; i += 3)
+            {
+                Vec4 expected = flatGlobe.computePointFromPosition(Angle.fromRadians(positions[i]),
+                    Angle.fromRadians(positions[i + 1]), positions[i + 2]);
+                assertEquals(msg, expected.x, points[i], REQUIRED_PRECISION);
+                assertEquals(msg, expected.y, points[i + 1], REQUIRED_PRECISION);
+                assertEquals(msg, expected.z, points[i + 2], REQUIRED_PRECISION);
+
+                Position expectedPosition = flatGlobe.computePositionFromPoint(expected);
+                assertEquals(msg, expectedPosition.getLatitude().radians, roundTrip[i], REQUIRED_PRECISION);
+                assertEquals(msg, expectedPosition.getLongitude().radians, roundTrip[i + 1], REQUIRED_PRECISION);
+                assertEquals(msg, expectedPosition.getElevation(), roundTrip[i + 2], REQUIRED_PRECISION);
+            }
+        }
+    }
+
+    @Test
+    public void testBulkTransformRanges()
+    {
+        // Divide a transform among several threads regardless of the number of processors on the test machine.
+        EllipsoidalGlobe earth = (EllipsoidalGlobe) this.globe;
+        int count = 3 * EllipsoidalGlobe.BULK_TRANSFORM_RANGE_SIZE + 17;
+        double[] positions = createPositions(count, 90, 180);
+        double[] expected = new double[positions.length];
+        double[] points = new double[positions.length];
+        earth.computePointsFromPositions(positions, count, null, expected);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            pool.invoke(earth.new BulkTransformAction(
+                new BufferWrapper.DoubleBufferWrapper(DoubleBuffer.wrap(positions)), 0, count, null,
+                new BufferWrapper.DoubleBufferWrapper(DoubleBuffer.wrap(points)), false));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        for (int i = 0; i < points.length; i++)
+        {
+            assertEquals("Point comparison at " + i, expected[i], points[i], 0.0);
+        }
+    }
+
+    private static double[] createPositions(int count, double maxLatitude, double maxLongitude)
+    {
+        Random random = new Random(1);
+        double[] positions = new double[3 * count];
+        for (int i = 0; i < positions.length; i += 3)
+        {
+            positions[i] = Math.toRadians((2 * random.nextDouble() - 1) * maxLatitude);
+            positions[i + 1] = Math.toRadians((2 * random.nextDouble() - 1) * maxLongitude);
+            positions[i + 2] = (random.nextDouble() - 0.2) * 10000;
+        }
+
+        return positions;
+    }
 }
@@ -17,6 +17,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.XMLEvent;
 import java.io.*;
 import java.net.URL;
 import java.util.*;
@@ -658,6 +661,101 @@ public class KMLTest
         assertEquals("Coordinates not as expected", coords, positions);
     }
 
+    /** Test that coordinates are held as longitude, latitude and altitude triples, and skip incomplete tuples. */
+    @Test
+    public void testCoordinateList()
+    {
+        StringBuilder sb = this.newDocument();
+        sb.append("<Placemark><LineString><coordinates>");
+        sb.append("-18.3,23.56,9 34.9,56.0 90.0,23.9,44 12.3");
+        sb.append("</coordinates></LineString></Placemark>");
+        this.endDocument(sb);
+
+        KMLRoot root = this.newParsedRoot(sb);
+        assertNotNull("KML root is null", root);
+
+        KMLLineString lineString = (KMLLineString) ((KMLPlacemark) root.getFeature()).getGeometry();
+        List<? extends Position> positions = lineString.getCoordinates().list;
+        assertTrue("Coordinate list not as expected", positions instanceof KMLCoordinateList);
+        assertEquals("Coordinates not as expected", Arrays.asList(Position.fromDegrees(23.56, -18.3, 9),
+            Position.fromDegrees(56.0, 34.9), Position.fromDegrees(23.9, 90, 44)), positions);
+
+        double[] coords = ((KMLCoordinateList) positions).getBuffer().get(1, new double[3]);
+        assertEquals("Longitude not as expected", 34.9, coords[0], 0);
+        assertEquals("Latitude not as expected", 56.0, coords[1], 0);
+        assertEquals("Altitude not as expected", 0, coords[2], 0);
+    }
+
+    /** Test that an incremental root publishes its containers, and the features parsed so far, while it's parsing. */
+    @Test
+    public void testIncrementalParse() throws Exception
+    {
+        StringBuilder sb = this.newDocument();
+        sb.append("<Document><name>Document</name>");
+        sb.append("<Placemark><name>A</name><Point><coordinates>1,2</coordinates></Point></Placemark>");
+        sb.append("<Folder><name>Folder</name>");
+        sb.append("<Placemark><name>B</name><Point><coordinates>3,4</coordinates></Point></Placemark>");
+        sb.append("<Probe/>");
+        sb.append("<Placemark><name>C</name><Point><coordinates>5,6</coordinates></Point></Placemark>");
+        sb.append("</Folder>");
+        sb.append("</Document>");
+        this.endDocument(sb);
+
+        for (boolean incremental : new boolean[] {true, false})
+        {
+            KMLRoot root = new KMLRoot(WWIO.getInputStreamFromString(sb.toString()), KMLConstants.KML_MIME_TYPE);
+            root.setIncremental(incremental);
+            ProbeParser.probedFeatures.clear();
+            root.getParserContext().registerParser(new QName(KMLConstants.KML_NAMESPACE, "Probe"),
+                new ProbeParser(KMLConstants.KML_NAMESPACE));
+            root.parse();
+
+            // The probe element records the features visible to rendering threads while the folder is being parsed.
+            List<String> expected = incremental ? Arrays.asList("A", "Folder", "B") : Collections.<String>emptyList();
+            assertEquals("Published features not as expected", expected, ProbeParser.probedFeatures);
+
+            // Once parsed, the document is the same, and incrementally published containers aren't added twice.
+            KMLDocument document = (KMLDocument) root.getFeature();
+            assertEquals("Document features not as expected", 2, document.getFeatures().size());
+            KMLFolder folder = (KMLFolder) document.getFeatures().get(1);
+            assertEquals("Folder features not as expected", 2, folder.getFeatures().size());
+            assertEquals("Folder features not as expected", folder.getFeatures(), folder.getLoadedFeatures());
+            assertEquals("Feature not as expected", "C", folder.getFeatures().get(1).getName());
+        }
+    }
+
+    public static class ProbeParser extends AbstractXMLEventParser
+    {
+        protected static List<String> probedFeatures = new ArrayList<String>();
+
+        public ProbeParser(String namespaceURI)
+        {
+            super(namespaceURI);
+        }
+
+        @Override
+        public Object parse(XMLEventParserContext ctx, XMLEvent inputEvent, Object... args) throws XMLStreamException
+        {
+            // A root that isn't incremental doesn't have a feature until it's been parsed.
+            KMLRoot root = (KMLRoot) this.getRoot();
+            if (root.isIncremental() && root.getFeature() instanceof KMLAbstractContainer)
+                this.probe((KMLAbstractContainer) root.getFeature());
+
+            return super.parse(ctx, inputEvent, args);
+        }
+
+        protected void probe(KMLAbstractContainer container)
+        {
+            for (KMLAbstractFeature feature : container.getLoadedFeatures())
+            {
+                probedFeatures.add(feature.getName());
+
+                if (feature instanceof KMLAbstractContainer)
+                    this.probe((KMLAbstractContainer) feature);
+            }
+        }
+    }
+
     @Test
     public void testNestedUnrecognizedElement()
     {
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class OrderedRenderableQueueTest
+{
+    /** Tests the retrieval order over a series of frames, with distances that change slightly or completely. */
+    @Test
+    public void testOrderAcrossFrames()
+    {
+        OrderedRenderableQueue queue = new OrderedRenderableQueue();
+        Random random = new Random(3);
+
+        TestRenderable[] items = new TestRenderable[5000];
+        for (int i = 0; i < items.length; i++)
+        {
+            items[i] = new TestRenderable(i, random.nextInt(1000)); // many equal distances
+        }
+
+        for (int frame = 0; frame < 6; frame++)
+        {
+            for (TestRenderable item : items)
+            {
+                if (frame == 3)
+                    item.distance = random.nextDouble() * 1e6; // a completely different order
+                else if (frame > 0)
+                    item.distance += random.nextGaussian(); // a slightly different order
+            }
+
+            for (TestRenderable item : items)
+            {
+                queue.add(item, item.distance, 0, null);
+            }
+            assertEquals("Size incorrect ", items.length, queue.size());
+
+            assertOrder(queue, expectedOrder(Arrays.asList(items)));
+            assertTrue("Queue not empty ", queue.isEmpty());
+        }
+    }
+
+    /** Tests entries added while entries are being retrieved, entries added behind others, and NaN distances. */
+    @Test
+    public void testAddWhileRetrieving()
+    {
+        OrderedRenderableQueue queue = new OrderedRenderableQueue();
+        List<TestRenderable> all = new ArrayList<TestRenderable>();
+        for (int i = 0; i < 200; i++)
+        {
+            TestRenderable item = new TestRenderable(i, i % 50);
+            all.add(item);
+            queue.add(item, item.distance, 0, null);
+        }
+
+        TestRenderable behind = new TestRenderable(200, Double.MAX_VALUE);
+        TestRenderable nan = new TestRenderable(201, Double.NaN);
+        queue.add(behind, behind.distance, 0, null);
+        queue.add(nan, nan.distance, 0, null);
+
+        assertSame("NaN distance not first ", nan, queue.poll());
+        assertSame("Entry behind others not next ", behind, queue.poll());
+
+        // Retrieve some, then add more that fall among the remaining entries.
+        List<TestRenderable> expected = expectedOrder(all);
+        for (int i = 0; i < 60; i++)
+        {
+            assertSame("Entry " + i + " incorrect ", expected.get(i), queue.poll());
+        }
+
+        List<TestRenderable> remaining = new ArrayList<TestRenderable>(expected.subList(60, expected.size()));
+        for (int i = 0; i < 100; i++)
+        {
+            TestRenderable item = new TestRenderable(300 + i, (i * 7) % 40);
+            remaining.add(item);
+            queue.add(item, item.distance, 0, null);
+        }
+
+        assertOrder(queue, expectedOrder(remaining));
+        assertNull("Empty queue returned an entry ", queue.peek());
+        assertEquals("Empty queue has an index ", -1, queue.peekIndex());
+    }
+
+    /** Tests that removed entries are returned nearest first, in insertion order at equal distances. */
+    @Test
+    public void testRemoveFrontToBack()
+    {
+        OrderedRenderableQueue queue = new OrderedRenderableQueue();
+        List<TestRenderable> kept = new ArrayList<TestRenderable>();
+        List<TestRenderable> removed = new ArrayList<TestRenderable>();
+        for (int i = 0; i < 300; i++)
+        {
+            TestRenderable item = new TestRenderable(i, i % 13);
+            (i % 3 == 0 ? removed : kept).add(item);
+            queue.add(item, item.distance, 0, null);
+        }
+
+        List<OrderedRenderable> actual = queue.removeFrontToBack(new Predicate<OrderedRenderable>()
+        {
+            public boolean test(OrderedRenderable or)
+            {
+                return ((TestRenderable) or).id % 3 == 0;
+            }
+        });
+
+        List<TestRenderable> expectedRemoved = expectedOrder(removed);
+        Collections.sort(expectedRemoved, new Comparator<TestRenderable>()
+        {
+            public int compare(TestRenderable a, TestRenderable b)
+            {
+                return a.distance < b.distance ? -1 : a.distance > b.distance ? 1 : Integer.compare(a.id, b.id);
+            }
+        });
+        assertEquals("Removed entries incorrect ", expectedRemoved, actual);
+        assertEquals("Size incorrect after removal ", kept.size(), queue.size());
+        assertOrder(queue, expectedOrder(kept));
+    }
+
+    private static void assertOrder(OrderedRenderableQueue queue, List<TestRenderable> expected)
+    {
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertSame("Entry " + i + " incorrect ", expected.get(i), queue.peek());
+            assertSame("Polled entry " + i + " incorrect ", expected.get(i), queue.poll());
+        }
+        assertNull("Extra entries ", queue.poll());
+    }
+
+    /** Returns the order of the original priority queue: farthest first, then in the order added (by id). */
+    private static List<TestRenderable> expectedOrder(List<TestRenderable> items)
+    {
+        List<TestRenderable> list = new ArrayList<TestRenderable>(items);
+        Collections.sort(list, new Comparator<TestRenderable>()
+        {
+            public int compare(TestRenderable a, TestRenderable b)
+            {
+                return a.distance > b.distance ? -1 : a.distance < b.distance ? 1 : Integer.compare(a.id, b.id);
+            }
+        });
+
+        return list;
+    }
+
+    private static class TestRenderable implements OrderedRenderable
+    {
+        private final int id;
+        private double distance;
+
+        public TestRenderable(int id, double distance)
+        {
+            this.id = id;
+            this.distance = distance;
+        }
+
+        public double getDistanceFromEye()
+        {
+            return this.distance;
+        }
+
+        public void pick(DrawContext dc, Point pickPoint)
+        {
+        }
+
+        public void render(DrawContext dc)
+        {
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.id + "@" + this.distance;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PointPlacemarkCollectionTest
+{
+    private static final Rectangle VIEWPORT = new Rectangle(0, 0, 800, 600);
+
+    private Globe globe;
+    private Matrix modelview;
+    private Matrix projection;
+
+    @Before
+    public void setUp()
+    {
+        this.globe = new Earth();
+
+        Vec4 eye = this.globe.computePointFromPosition(Position.fromDegrees(30, -100, 2e6));
+        Vec4 center = this.globe.computePointFromPosition(Position.fromDegrees(35, -100, 0));
+        this.modelview = Matrix.fromViewLookAt(eye, center, Vec4.UNIT_Z);
+        this.projection = Matrix.fromPerspective(Angle.fromDegrees(45), VIEWPORT.width, VIEWPORT.height, 1e3, 1e7);
+    }
+
+    /** Tests that the projection and culling stage agrees with projecting each point individually. */
+    @Test
+    public void testProjectionMatchesReference()
+    {
+        PointPlacemarkCollection collection = new PointPlacemarkCollection();
+        collection.setAltitudeMode(WorldWind.ABSOLUTE);
+        Random random = new Random(11);
+        for (int i = 0; i < 5000; i++)
+        {
+            Position position = Position.fromDegrees(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180,
+                random.nextDouble() * 1e5);
+            collection.addPoint(position, 0, null);
+        }
+
+        double maxEyeDistance = 5e6;
+        double margin = 20;
+        collection.computeModelPoints(this.globe, 1);
+        collection.project(this.modelview, this.projection, VIEWPORT, maxEyeDistance, margin);
+
+        List<Integer> expected = new ArrayList<Integer>();
+        int withinMargin = 0;
+        for (int i = 0; i < collection.size(); i++)
+        {
+            Vec4 screenPoint = this.referenceProject(collection.getPosition(i));
+            Vec4 eyePoint = this.globe.computePointFromPosition(collection.getPosition(i)).transformBy4(this.modelview);
+            if (screenPoint != null && eyePoint.getLength3() <= maxEyeDistance
+                && screenPoint.x >= -margin && screenPoint.x <= VIEWPORT.width + margin
+                && screenPoint.y >= -margin && screenPoint.y <= VIEWPORT.height + margin)
+            {
+                expected.add(i);
+                if (!VIEWPORT.contains(screenPoint.x, screenPoint.y))
+                    withinMargin++;
+                Vec4 actual = collection.getScreenPoint(i);
+                assertEquals("Screen x incorrect ", screenPoint.x, actual.x, 1e-6);
+                assertEquals("Screen y incorrect ", screenPoint.y, actual.y, 1e-6);
+                assertEquals("Depth incorrect ", screenPoint.z, actual.z, 1e-9);
+            }
+        }
+
+        List<Integer> actual = new ArrayList<Integer>();
+        for (int i = 0; i < collection.getVisibleCount(); i++)
+        {
+            actual.add(collection.getVisibleIndex(i));
+        }
+
+        assertFalse("No points visible ", expected.isEmpty());
+        assertTrue("No points within the margin ", withinMargin > 0);
+        assertEquals("Visible points incorrect ", expected, actual);
+    }
+
+    /** Tests that points behind the eye, above the eye and beyond the horizon distance are culled. */
+    @Test
+    public void testCulling()
+    {
+        PointPlacemarkCollection collection = new PointPlacemarkCollection();
+        collection.setAltitudeMode(WorldWind.ABSOLUTE);
+        int inView = collection.addPoint(Position.fromDegrees(35, -100, 0), 0, "a");
+        collection.addPoint(Position.fromDegrees(-30, 80, 0), 0, "behind the eye");
+        collection.addPoint(Position.fromDegrees(30, -100, 3e6), 0, "above the eye");
+        collection.computeModelPoints(this.globe, 1);
+
+        collection.project(this.modelview, this.projection, VIEWPORT, Double.POSITIVE_INFINITY, 0);
+        assertEquals("Visible count incorrect ", 1, collection.getVisibleCount());
+        assertEquals("Visible point incorrect ", inView, collection.getVisibleIndex(0));
+
+        double distance = this.globe.computePointFromPosition(collection.getPosition(inView))
+            .transformBy4(this.modelview).getLength3();
+        collection.project(this.modelview, this.projection, VIEWPORT, 0.99 * distance, 0);
+        assertEquals("Point beyond the horizon not culled ", 0, collection.getVisibleCount());
+    }
+
+    /** Projects a position as gluProject does, returning null if it's not between the near and far planes. */
+    private Vec4 referenceProject(Position position)
+    {
+        Vec4 clip = this.globe.computePointFromPosition(position).transformBy4(this.modelview)
+            .transformBy4(this.projection);
+        if (clip.w <= 0)
+            return null;
+
+        double x = clip.x / clip.w;
+        double y = clip.y / clip.w;
+        double z = clip.z / clip.w;
+        if (z < -1 || z > 1)
+            return null;
+
+        return new Vec4(VIEWPORT.x + VIEWPORT.width * (x + 1) / 2, VIEWPORT.y + VIEWPORT.height * (y + 1) / 2,
+            (z + 1) / 2);
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.retrieve;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ScheduledRetrievalServiceTest
+{
+    private ScheduledRetrievalService service;
+
+    @After
+    public void tearDown()
+    {
+        if (this.service != null)
+            this.service.shutdown(true);
+        Configuration.removeKey(AVKey.RETRIEVAL_REQUEST_EXPIRATION);
+    }
+
+    /** Tests that repeated requests for a queued retriever renew the queued request rather than queue it again. */
+    @Test
+    public void testDuplicateRequestsRenewed() throws Exception
+    {
+        this.service = createService();
+        TestRetriever blocker = new TestRetriever("blocker");
+        this.service.runRetriever(blocker, 1);
+        assertTrue("Blocking retriever did not start ", blocker.started.await(5, TimeUnit.SECONDS));
+
+        RetrievalFuture first = this.service.runRetriever(new TestRetriever("tile"), 1);
+        RetrievalFuture second = this.service.runRetriever(new TestRetriever("tile"), 2);
+        assertSame("Renewed request has a different future ", first, second);
+        assertNull("Duplicate of running retrieval accepted ", this.service.runRetriever(new TestRetriever("blocker")));
+        assertEquals("Submitted count incorrect ", 2, this.service.getNumSubmitted());
+        assertEquals("Renewed count incorrect ", 1, this.service.getNumRenewed());
+        assertEquals("Queue depth incorrect ", 1, this.service.getNumQueued());
+        assertEquals("Pending count incorrect ", 2, this.service.getNumRetrieversPending());
+        assertTrue("Queued retriever not found ", this.service.contains(new TestRetriever("tile")));
+
+        blocker.release.countDown();
+        ((TestRetriever) first.getRetriever()).release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        waitForIdle(this.service);
+
+        assertEquals("Completed count incorrect ", 2, this.service.getNumCompleted());
+        assertEquals("Queue not empty ", 0, this.service.getNumRetrieversPending());
+        assertFalse("Completed retriever still found ", this.service.contains(new TestRetriever("tile")));
+    }
+
+    /** Tests that requests are run in priority order. */
+    @Test
+    public void testPriorityOrder() throws Exception
+    {
+        this.service = createService();
+        TestRetriever blocker = new TestRetriever("blocker");
+        this.service.runRetriever(blocker, 1);
+        assertTrue("Blocking retriever did not start ", blocker.started.await(5, TimeUnit.SECONDS));
+
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        List<RetrievalFuture> futures = new ArrayList<RetrievalFuture>();
+        for (String name : new String[] {"c", "a", "b"})
+        {
+            TestRetriever retriever = new TestRetriever(name, order);
+            retriever.release.countDown();
+            futures.add(this.service.runRetriever(retriever, name.charAt(0)));
+        }
+
+        // Raise the priority of "c" above the others.
+        this.service.runRetriever(new TestRetriever("c"), 1);
+
+        blocker.release.countDown();
+        for (RetrievalFuture future : futures)
+        {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals("Retrievals not run in priority order ", Arrays.asList("c", "a", "b"), order);
+    }
+
+    /** Tests that a repeated request that stops being repeated is dropped rather than run. */
+    @Test
+    public void testExpiredRequestDropped() throws Exception
+    {
+        Configuration.setValue(AVKey.RETRIEVAL_REQUEST_EXPIRATION, 50L);
+        this.service = createService();
+        TestRetriever blocker = new TestRetriever("blocker");
+        this.service.runRetriever(blocker, 1);
+        assertTrue("Blocking retriever did not start ", blocker.started.await(5, TimeUnit.SECONDS));
+
+        TestRetriever renewed = new TestRetriever("renewed");
+        renewed.release.countDown();
+        TestRetriever once = new TestRetriever("once");
+        once.release.countDown();
+        this.service.runRetriever(renewed, 1);
+        this.service.runRetriever(new TestRetriever("renewed"), 1);
+        this.service.runRetriever(once, 2);
+
+        Thread.sleep(200);
+        blocker.release.countDown();
+        waitForIdle(this.service);
+
+        assertEquals("Expired request was run ", 1, renewed.started.getCount());
+        assertEquals("Request made once was not run ", 0, once.started.getCount());
+        assertEquals("Dropped count incorrect ", 1, this.service.getNumDropped());
+    }
+
+    private static ScheduledRetrievalService createService()
+    {
+        ScheduledRetrievalService service = new ScheduledRetrievalService();
+        service.setRetrieverPoolSize(1);
+        return service;
+    }
+
+    private static void waitForIdle(ScheduledRetrievalService service) throws InterruptedException
+    {
+        for (int i = 0; i < 500 && service.getNumRetrieversPending() > 0; i++)
+        {
+            Thread.sleep(10);
+        }
+    }
+
+    private static class TestRetriever extends WWObjectImpl implements Retriever
+    {
+        private final String name;
+        private final List<String> order;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private long submitTime;
+        private long beginTime;
+        private long endTime;
+
+        public TestRetriever(String name)
+        {
+            this(name, null);
+        }
+
+        public TestRetriever(String name, List<String> order)
+        {
+            this.name = name;
+            this.order = order;
+        }
+
+        public Retriever call() throws Exception
+        {
+            if (this.order != null)
+                this.order.add(this.name);
+            this.started.countDown();
+            this.release.await(5, TimeUnit.SECONDS);
+            return this;
+        }
+
+        public boolean equals(Object o)
+        {
+            return o instanceof TestRetriever && ((TestRetriever) o).name.equals(this.name);
+        }
+
+        public int hashCode()
+        {
+            return this.name.hashCode();
+        }
+
+        public ByteBuffer getBuffer()
+        {
+            return null;
+        }
+
+        public int getContentLength()
+        {
+            return 0;
+        }
+
+        public int getContentLengthRead()
+        {
+            return 0;
+        }
+
+        public String getName()
+        {
+            return this.name;
+        }
+
+        public String getState()
+        {
+            return null;
+        }
+
+        public String getContentType()
+        {
+            return null;
+        }
+
+        public long getExpirationTime()
+        {
+            return 0;
+        }
+
+        public long getSubmitTime()
+        {
+            return this.submitTime;
+        }
+
+        public void setSubmitTime(long submitTime)
+        {
+            this.submitTime = submitTime;
+        }
+
+        public long getBeginTime()
+        {
+            return this.beginTime;
+        }
+
+        public void setBeginTime(long beginTime)
+        {
+            this.beginTime = beginTime;
+        }
+
+        public long getEndTime()
+        {
+            return this.endTime;
+        }
+
+        public void setEndTime(long endTime)
+        {
+            this.endTime = endTime;
+        }
+
+        public int getConnectTimeout()
+        {
+            return 0;
+        }
+
+        public int getReadTimeout()
+        {
+            return 0;
+        }
+
+        public void setReadTimeout(int readTimeout)
+        {
+        }
+
+        public void setConnectTimeout(int connectTimeout)
+        {
+        }
+
+        public int getStaleRequestLimit()
+        {
+            return -1;
+        }
+
+        public void setStaleRequestLimit(int staleRequestLimit)
+        {
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.util.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ElevationTileStoreTest
+{
+    private static final int TILE_SIZE = 16;
+
+    /** Tests that tiles are stored, replaced, evicted and removed. */
+    @Test
+    public void testPutAndEvict()
+    {
+        ElevationTileStore store = new ElevationTileStore(4, 2);
+        long a = ElevationTileStore.createKey(0, 0, 0);
+        long b = ElevationTileStore.createKey(3, 5, 7);
+        long c = ElevationTileStore.createKey(3, 5, 8);
+
+        store.put(a, createBuffer(4, 1));
+        store.put(b, createBuffer(4, 2));
+        store.put(b, createBuffer(4, 3));
+        assertEquals("Tile count incorrect ", 2, store.getNumTiles());
+        assertEquals("Replaced tile value incorrect ", 3, store.getSample(b, 1), 0);
+
+        // The store is full, so adding a tile evicts the least recently used one.
+        store.put(c, createBuffer(4, 4));
+        assertEquals("Tile count incorrect after eviction ", 2, store.getNumTiles());
+        assertFalse("Least recently used tile not evicted ", store.contains(a));
+        assertTrue("Tile evicted ", store.contains(b));
+        assertEquals("Tile value incorrect ", 4, store.getSample(c, 3), 0);
+        assertTrue("Missing tile has a value ", Double.isNaN(store.getSample(a, 0)));
+
+        assertTrue("Tile not removed ", store.remove(b));
+        assertFalse("Removed tile still found ", store.contains(b));
+        assertTrue("Tile lost by removal ", store.contains(c));
+
+        store.clear();
+        assertEquals("Store not empty ", 0, store.getNumTiles());
+        assertFalse("Tile found after clear ", store.contains(c));
+    }
+
+    /** Tests that the elevation model's fast path matches its lookup of tiles in memory, at all levels. */
+    @Test
+    public void testStoredElevationsMatchTiles()
+    {
+        BasicElevationModel model = createElevationModel();
+        assertNotNull("Tile store not created ", model.getTileStore());
+
+        BasicElevationModel.ElevationTile coarse = addTile(model, new TileKey(0, 0, 0, "test"));
+        BasicElevationModel.ElevationTile fine = addTile(model, new TileKey(1, 1, 1, "test"));
+
+        Random random = new Random(1);
+        for (int n = 0; n < 1000; n++)
+        {
+            double lat = random.nextDouble() * 10;
+            double lon = random.nextDouble() * 10;
+            BasicElevationModel.ElevationTile tile = fine.getSector().contains(Angle.fromDegrees(lat),
+                Angle.fromDegrees(lon)) ? fine : coarse;
+
+            double expected = model.lookupElevation(Angle.fromDegrees(lat), Angle.fromDegrees(lon), tile);
+            double actual = model.getElevation(Math.toRadians(lat), Math.toRadians(lon));
+            assertEquals("Elevation incorrect at " + lat + ", " + lon, expected, actual, 1e-3);
+        }
+
+        assertEquals("Elevation outside coverage not the missing data replacement ",
+            model.getMissingDataReplacement(), model.getElevation(Math.toRadians(20), Math.toRadians(5)), 0);
+    }
+
+    /** Tests that tiles leave the store when the memory cache removes them, but not when it replaces them. */
+    @Test
+    public void testStoreTracksMemoryCache()
+    {
+        BasicElevationModel model = createElevationModel();
+        try
+        {
+            TileKey key = new TileKey(1, 0, 1, model.getLevels().getLevel(1).getCacheName());
+            long storeKey = ElevationTileStore.createKey(1, 0, 1);
+
+            addTile(model, key);
+            addTile(model, key);
+            assertTrue("Replaced tile removed from the store ", model.getTileStore().contains(storeKey));
+
+            model.getMemoryCache().remove(key);
+            assertFalse("Removed tile still in the store ", model.getTileStore().contains(storeKey));
+
+            // Removing another model's tile with the same position doesn't affect this model's store.
+            addTile(model, key);
+            TileKey otherKey = new TileKey(1, 0, 1, "ElevationTileStoreTest/other");
+            model.getMemoryCache().add(otherKey, model.createTile(key), 1);
+            model.getMemoryCache().remove(otherKey);
+            assertTrue("Other model's tile removed from the store ", model.getTileStore().contains(storeKey));
+
+            model.dispose();
+            model.getMemoryCache().remove(key);
+            assertTrue("Disposed model's store still tracks the cache ", model.getTileStore().contains(storeKey));
+        }
+        finally
+        {
+            model.getMemoryCache().clear();
+        }
+    }
+
+    /** Tests that a globe's radian elevation lookups match its angle lookups. */
+    @Test
+    public void testGlobeRadianLookup()
+    {
+        BasicElevationModel model = createElevationModel();
+        addTile(model, new TileKey(1, 1, 0, model.getLevels().getLevel(1).getCacheName()));
+        CompoundElevationModel compound = new CompoundElevationModel();
+        compound.addElevationModel(model);
+        EllipsoidalGlobe globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS,
+            Earth.WGS84_ES, compound);
+
+        Random random = new Random(2);
+        for (int n = 0; n < 200; n++)
+        {
+            double lat = random.nextDouble() * 30 - 10;
+            double lon = random.nextDouble() * 30 - 10;
+            assertEquals("Elevation incorrect at " + lat + ", " + lon,
+                globe.getElevation(Angle.fromDegrees(lat), Angle.fromDegrees(lon)),
+                globe.getElevation(Math.toRadians(lat), Math.toRadians(lon)), 1e-3);
+        }
+
+        model.getMemoryCache().clear();
+    }
+
+    private static BasicElevationModel createElevationModel()
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.SECTOR, Sector.fromDegrees(0, 10, 0, 10));
+        params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(10, 10));
+        params.setValue(AVKey.TILE_ORIGIN, LatLon.fromDegrees(0, 0));
+        params.setValue(AVKey.NUM_LEVELS, 2);
+        params.setValue(AVKey.TILE_WIDTH, TILE_SIZE);
+        params.setValue(AVKey.TILE_HEIGHT, TILE_SIZE);
+        params.setValue(AVKey.DATA_CACHE_NAME, "ElevationTileStoreTest");
+        params.setValue(AVKey.DATASET_NAME, "test");
+        params.setValue(AVKey.NETWORK_RETRIEVAL_ENABLED, false);
+        params.setValue(AVKey.ELEVATION_TILE_STORE_SIZE, 64L * TILE_SIZE * TILE_SIZE);
+
+        return new BasicElevationModel(params);
+    }
+
+    private static BasicElevationModel.ElevationTile addTile(BasicElevationModel model, TileKey key)
+    {
+        BufferWrapper elevations = new BufferWrapper.ShortBufferWrapper(
+            java.nio.ShortBuffer.allocate(TILE_SIZE * TILE_SIZE));
+        for (int i = 0; i < elevations.length(); i++)
+        {
+            elevations.putDouble(i, (key.getLevelNumber() + 1) * ((i * 37) % 101));
+        }
+
+        BasicElevationModel.ElevationTile tile = model.createTile(key);
+        tile.setElevations(elevations, model);
+        model.addTileToCache(tile, elevations);
+
+        return tile;
+    }
+
+    private static BufferWrapper createBuffer(int length, double value)
+    {
+        BufferWrapper buffer = new BufferWrapper.DoubleBufferWrapper(java.nio.DoubleBuffer.allocate(length));
+        for (int i = 0; i < length; i++)
+        {
+            buffer.putDouble(i, value);
+        }
+
+        return buffer;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class HighResolutionTerrainTest
+{
+    private static final Sector SECTOR = Sector.fromDegrees(0, 0.1, 0, 0.1);
+    private static final int DEM_SIZE = 256;
+
+    private HighResolutionTerrain terrain;
+    private Position observer;
+    private List<Position> targets;
+
+    @Before
+    public void setUp()
+    {
+        // A north-south ridge 500 meters high through the middle of the sector.
+        ByteBuffer buffer = ByteBuffer.allocate(DEM_SIZE * DEM_SIZE * 4);
+        FloatBuffer floats = buffer.asFloatBuffer();
+        for (int j = 0; j < DEM_SIZE; j++)
+        {
+            for (int i = 0; i < DEM_SIZE; i++)
+            {
+                double x = (i - DEM_SIZE / 2d) / 10d;
+                floats.put((float) (500 * Math.exp(-x * x) + 20 * Math.sin(j * 0.1)));
+            }
+        }
+
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.DATA_TYPE, AVKey.FLOAT32);
+        params.setValue(AVKey.BYTE_ORDER, AVKey.BIG_ENDIAN);
+        LocalElevationModel elevationModel = new LocalElevationModel();
+        elevationModel.addElevations(buffer, SECTOR, DEM_SIZE, DEM_SIZE, params);
+
+        Globe globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            elevationModel);
+        this.terrain = new HighResolutionTerrain(globe, SECTOR, 50d, null);
+
+        this.observer = Position.fromDegrees(0.05, 0.01, 10);
+        this.targets = new ArrayList<Position>();
+        for (int j = 0; j <= 10; j++)
+        {
+            for (int i = 0; i <= 10; i++)
+            {
+                this.targets.add(Position.fromDegrees(0.005 + j * 0.009, 0.005 + i * 0.009, 0));
+            }
+        }
+    }
+
+    /** Tests that the batch computation agrees with individual line intersections. */
+    @Test
+    public void testBatchMatchesIndividualIntersections() throws Exception
+    {
+        final Intersection[] results = new Intersection[this.targets.size()];
+        final boolean[] returned = new boolean[this.targets.size()];
+        Future<?> future = this.terrain.intersect(this.observer, this.targets,
+            new HighResolutionTerrain.LineOfSightCallback()
+            {
+                public void lineOfSight(int index, Position target, Intersection intersection)
+                {
+                    synchronized (results)
+                    {
+                        assertFalse("Result returned twice ", returned[index]);
+                        returned[index] = true;
+                        results[index] = intersection;
+                    }
+                }
+
+                public void exception(int index, Position target, Exception exception)
+                {
+                    fail("Exception computing line of sight: " + exception);
+                }
+            });
+        future.get(60, TimeUnit.SECONDS);
+
+        int numBlocked = 0;
+        for (int i = 0; i < this.targets.size(); i++)
+        {
+            assertTrue("Result not returned for target " + i, returned[i]);
+
+            Position target = this.targets.get(i);
+            Intersection[] hits = this.terrain.intersect(this.observer, target);
+            Vec4 observerPoint = this.terrain.getSurfacePoint(this.observer);
+            Vec4 targetPoint = this.terrain.getSurfacePoint(target);
+            boolean blocked = hits != null && hits[0].getIntersectionPoint().distanceTo3(observerPoint)
+                < targetPoint.distanceTo3(observerPoint);
+
+            assertEquals("Visibility differs for target " + i, blocked, results[i] != null);
+            if (blocked)
+            {
+                numBlocked++;
+                assertEquals("Intersection differs for target " + i, hits[0].getIntersectionPoint(),
+                    results[i].getIntersectionPoint());
+            }
+        }
+
+        assertTrue("No target hidden by the ridge ", numBlocked > 0);
+        assertTrue("No target visible ", numBlocked < this.targets.size());
+    }
+
+    /** Tests that cancelling a batch stops it. */
+    @Test
+    public void testCancel() throws Exception
+    {
+        final CountDownLatch firstResult = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> returned = Collections.synchronizedList(new ArrayList<Integer>());
+        Future<?> future = this.terrain.intersect(this.observer, this.targets,
+            new HighResolutionTerrain.LineOfSightCallback()
+            {
+                public void lineOfSight(int index, Position target, Intersection intersection)
+                {
+                    returned.add(index);
+                    firstResult.countDown();
+                    try
+                    {
+                        release.await(10, TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                public void exception(int index, Position target, Exception exception)
+                {
+                }
+            });
+
+        assertTrue("No result returned ", firstResult.await(60, TimeUnit.SECONDS));
+        assertTrue("Batch not cancelled ", future.cancel(true));
+        release.countDown();
+
+        Thread.sleep(500);
+        int numReturned = returned.size();
+        assertTrue("Cancelled batch ran to completion ", numReturned < this.targets.size());
+        Thread.sleep(200);
+        assertEquals("Results returned after cancellation ", numReturned, returned.size());
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.data.ByteBufferRaster;
+import gov.nasa.worldwind.formats.tiff.GeotiffWriter;
+import gov.nasa.worldwind.geom.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class LocalElevationModelTest
+{
+    private static final Sector SECTOR = Sector.fromDegrees(10, 11, 20, 21);
+    private static final int WIDTH = 150;
+    private static final int HEIGHT = 100;
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.PIXEL_FORMAT, AVKey.ELEVATION);
+        params.setValue(AVKey.DATA_TYPE, AVKey.FLOAT32);
+        params.setValue(AVKey.COORDINATE_SYSTEM, AVKey.COORDINATE_SYSTEM_GEOGRAPHIC);
+        params.setValue(AVKey.MISSING_DATA_SIGNAL, -9999d);
+
+        ByteBufferRaster raster = new ByteBufferRaster(WIDTH, HEIGHT, SECTOR, params);
+        for (int j = 0; j < HEIGHT; j++)
+        {
+            for (int i = 0; i < WIDTH; i++)
+            {
+                raster.setDoubleAtPosition(j, i, 100 * i - 7 * j);
+            }
+        }
+
+        this.file = File.createTempFile("LocalElevationModelTest", ".tif");
+        GeotiffWriter writer = new GeotiffWriter(this.file);
+        try
+        {
+            writer.write(raster);
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        new File(this.file.getPath() + ".extremes").delete();
+        this.file.delete();
+    }
+
+    /** Tests that a memory mapped file yields the same elevations and extremes as the file read into memory. */
+    @Test
+    public void testMappedElevationsMatchRead() throws Exception
+    {
+        LocalElevationModel readModel = new LocalElevationModel();
+        readModel.addElevations(this.file);
+
+        LocalElevationModel mappedModel = createMappedModel(this.file);
+        assertTrue("File was not mapped ", mappedModel.tiles.get(0) instanceof LocalElevationModel.MappedLocalTile);
+        waitForExtremes(mappedModel);
+
+        assertEquals("Sector differs ", readModel.getSector(), mappedModel.getSector());
+        assertEquals("Min elevation differs ", readModel.getMinElevation(), mappedModel.getMinElevation(), 0);
+        assertEquals("Max elevation differs ", readModel.getMaxElevation(), mappedModel.getMaxElevation(), 0);
+
+        for (double lat = 10; lat <= 11; lat += 0.0137)
+        {
+            for (double lon = 20; lon <= 21; lon += 0.0113)
+            {
+                assertEquals("Elevation differs at " + lat + ", " + lon,
+                    readModel.getUnmappedElevation(Angle.fromDegrees(lat), Angle.fromDegrees(lon)),
+                    mappedModel.getUnmappedElevation(Angle.fromDegrees(lat), Angle.fromDegrees(lon)), 1e-9);
+            }
+        }
+    }
+
+    /** Tests that computed extremes are saved beside the file and used when the file is mapped again. */
+    @Test
+    public void testExtremesSidecar() throws Exception
+    {
+        LocalElevationModel model = createMappedModel(this.file);
+        waitForExtremes(model);
+
+        File extremesFile = new File(this.file.getPath() + ".extremes");
+        for (int i = 0; i < 500 && !extremesFile.exists(); i++)
+        {
+            Thread.sleep(10);
+        }
+        assertTrue("Extremes file not written ", extremesFile.exists());
+        for (int i = 0; i < 500 && model.getMaxElevation() != 100 * (WIDTH - 1); i++)
+        {
+            Thread.sleep(10);
+        }
+        assertEquals("Model min elevation not updated ", -7 * (HEIGHT - 1), model.getMinElevation(), 0);
+        assertEquals("Model max elevation not updated ", 100 * (WIDTH - 1), model.getMaxElevation(), 0);
+
+        LocalElevationModel.MappedLocalTile tile =
+            (LocalElevationModel.MappedLocalTile) createMappedModel(this.file).tiles.get(0);
+        assertTrue("Extremes not read from sidecar ", tile.extremesComplete);
+        assertEquals("Min elevation incorrect ", -7 * (HEIGHT - 1), tile.minElevation, 0);
+        assertEquals("Max elevation incorrect ", 100 * (WIDTH - 1), tile.maxElevation, 0);
+    }
+
+    private static LocalElevationModel createMappedModel(File file) throws Exception
+    {
+        LocalElevationModel model = new LocalElevationModel();
+        model.setMapLargeFiles(true);
+        model.setLargeFileThreshold(0);
+        model.addElevations(file);
+        return model;
+    }
+
+    private static void waitForExtremes(LocalElevationModel model) throws InterruptedException
+    {
+        LocalElevationModel.MappedLocalTile tile = (LocalElevationModel.MappedLocalTile) model.tiles.get(0);
+        for (int i = 0; i < 500 && !tile.extremesComplete; i++)
+        {
+            Thread.sleep(10);
+        }
+        assertTrue("Extremes not computed ", tile.extremesComplete);
+    }
+}
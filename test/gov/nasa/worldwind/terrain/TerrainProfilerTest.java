@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.exception.WWTimeoutException;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TerrainProfilerTest
+{
+    private static final Sector SECTOR = Sector.fromDegrees(0, 0.1, 0, 0.1);
+    private static final int DEM_SIZE = 256;
+
+    private Globe globe;
+    private HighResolutionTerrain terrain;
+    private LatLon start;
+    private LatLon end;
+
+    @Before
+    public void setUp()
+    {
+        // A north-south ridge 500 meters high through the middle of the sector.
+        ByteBuffer buffer = ByteBuffer.allocate(DEM_SIZE * DEM_SIZE * 4);
+        FloatBuffer floats = buffer.asFloatBuffer();
+        for (int j = 0; j < DEM_SIZE; j++)
+        {
+            for (int i = 0; i < DEM_SIZE; i++)
+            {
+                double x = (i - DEM_SIZE / 2d) / 10d;
+                floats.put((float) (500 * Math.exp(-x * x) + 20 * Math.sin(j * 0.1)));
+            }
+        }
+
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.DATA_TYPE, AVKey.FLOAT32);
+        params.setValue(AVKey.BYTE_ORDER, AVKey.BIG_ENDIAN);
+        LocalElevationModel elevationModel = new LocalElevationModel();
+        elevationModel.addElevations(buffer, SECTOR, DEM_SIZE, DEM_SIZE, params);
+
+        this.globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            elevationModel);
+        this.terrain = new HighResolutionTerrain(this.globe, SECTOR, 10d, null);
+
+        this.start = LatLon.fromDegrees(0.05, 0.005);
+        this.end = LatLon.fromDegrees(0.06, 0.095);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.globe = null;
+        this.terrain = null;
+    }
+
+    /** Tests that a profile's elevations match the elevation model, and that its statistics are consistent. */
+    @Test
+    public void testProfileStatistics() throws Exception
+    {
+        TerrainProfile profile = new TerrainProfiler(this.terrain).computeProfile(this.start, this.end, 91);
+        assertEquals("Sample count incorrect ", 91, profile.getSampleCount());
+        assertTrue("Profile not complete ", profile.isComplete());
+
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (int i = 0; i < profile.getSampleCount(); i++)
+        {
+            LatLon location = profile.getLocation(i);
+            double expected = this.globe.getElevation(location.getLatitude(), location.getLongitude());
+            assertEquals("Elevation incorrect at " + i, expected, profile.getElevation(i), 1e-3);
+            min = Math.min(min, expected);
+            max = Math.max(max, expected);
+        }
+
+        double length = LatLon.greatCircleDistance(this.start, this.end).radians * this.globe.getRadius();
+        assertEquals("Length incorrect ", length, profile.getLength(), 1e-6 * length);
+        assertEquals("Min elevation incorrect ", min, profile.getMinElevation(), 1e-3);
+        assertEquals("Max elevation incorrect ", max, profile.getMaxElevation(), 1e-3);
+        assertTrue("Ridge crest not near the middle ", Math.abs(profile.getMaxElevationIndex() - 45) <= 2);
+        assertTrue("Mean elevation out of range ", profile.getMeanElevation() > min
+            && profile.getMeanElevation() < max);
+        assertTrue("Max slope out of range ", profile.getMaxSlope() > profile.getMeanSlope()
+            && profile.getMaxSlope() < 90);
+        assertEquals("Ascent and descent inconsistent ", profile.getElevation(90) - profile.getElevation(0),
+            profile.getTotalAscent() - profile.getTotalDescent(), 1e-6);
+        assertTrue("Ascent too small ", profile.getTotalAscent() >= max - profile.getElevation(0) - 1e-6);
+    }
+
+    /** Tests that shifting an endpoint slightly retrieves only the elevations of samples that moved appreciably. */
+    @Test
+    public void testSamplesReusedWhenEndpointShifts() throws Exception
+    {
+        TerrainProfiler profiler = new TerrainProfiler(this.terrain);
+        profiler.computeProfile(this.start, this.end, 101);
+        assertEquals("Elevations not retrieved ", 101, profiler.getNumElevationsRetrieved());
+
+        // Repeating the computation retrieves nothing.
+        profiler.computeProfile(this.start, this.end, 101);
+        assertEquals("Elevations retrieved again ", 0, profiler.getNumElevationsRetrieved());
+
+        // Move the end by a third of the sample spacing. Samples near the start move less than a tenth of it.
+        double spacing = 0.09 / 100;
+        LatLon shiftedEnd = LatLon.fromDegrees(this.end.getLatitude().degrees,
+            this.end.getLongitude().degrees + spacing / 3);
+        TerrainProfile profile = profiler.computeProfile(this.start, shiftedEnd, 101);
+        int retrieved = profiler.getNumElevationsRetrieved();
+        assertTrue("Too many elevations retrieved " + retrieved, retrieved < 80);
+        assertTrue("Too few elevations retrieved " + retrieved, retrieved > 50);
+
+        // The reused elevations are those of locations within a tenth of the spacing, roughly 10 meters.
+        TerrainProfile expected = new TerrainProfiler(this.terrain).computeProfile(this.start, shiftedEnd, 101);
+        for (int i = 0; i < profile.getSampleCount(); i++)
+        {
+            assertEquals("Elevation incorrect at " + i, expected.getElevation(i), profile.getElevation(i), 15);
+        }
+        assertEquals("Last elevation not retrieved ", expected.getElevation(100), profile.getElevation(100), 0);
+    }
+
+    /** Tests that a background request returns a coarse profile and then the complete profile. */
+    @Test
+    public void testProgressiveRefinement() throws Exception
+    {
+        final List<TerrainProfile> profiles = Collections.synchronizedList(new ArrayList<TerrainProfile>());
+        TerrainProfiler profiler = new TerrainProfiler(this.terrain);
+        profiler.setCoarseSampleCount(11);
+
+        List<LatLon> locations = new ArrayList<LatLon>();
+        for (int i = 0; i <= 200; i++)
+        {
+            locations.add(LatLon.interpolateGreatCircle(i / 200d, this.start, this.end));
+        }
+
+        Future<?> future = profiler.requestProfile(locations, new TerrainProfiler.ProfileCallback()
+        {
+            public void profileComputed(TerrainProfile profile)
+            {
+                profiles.add(profile);
+            }
+
+            public void exception(Exception exception)
+            {
+                fail(exception.getMessage());
+            }
+        });
+        future.get(30, TimeUnit.SECONDS);
+
+        assertEquals("Profile count incorrect ", 2, profiles.size());
+        TerrainProfile coarse = profiles.get(0);
+        TerrainProfile complete = profiles.get(1);
+        assertFalse("Coarse profile marked complete ", coarse.isComplete());
+        assertTrue("Complete profile not complete ", complete.isComplete());
+        assertTrue("Coarse resolution not coarser ", coarse.getResolution() > complete.getResolution());
+
+        TerrainProfile expected = new TerrainProfiler(this.terrain).computeProfile(locations);
+        for (int i = 0; i <= 200; i++)
+        {
+            assertEquals("Complete elevation incorrect at " + i, expected.getElevation(i), complete.getElevation(i), 0);
+            if (i % 20 == 0)
+                assertEquals("Coarse elevation incorrect at " + i, expected.getElevation(i), coarse.getElevation(i),
+                    1e-9);
+        }
+    }
+
+    /** Tests that a profile computed when the terrain times out is incomplete and isn't reused. */
+    @Test
+    public void testTimedOutProfileNotReused() throws Exception
+    {
+        final AtomicBoolean timeOut = new AtomicBoolean(true);
+        HighResolutionTerrain terrain = new HighResolutionTerrain(this.globe, SECTOR, 10d, null)
+        {
+            @Override
+            public void getElevations(List<? extends LatLon> locations, double resolution, double[] elevations)
+                throws InterruptedException
+            {
+                super.getElevations(locations, resolution, elevations);
+                if (timeOut.get())
+                    throw new WWTimeoutException("Terrain convergence timed out");
+            }
+        };
+
+        TerrainProfiler profiler = new TerrainProfiler(terrain);
+        TerrainProfile profile = profiler.computeProfile(this.start, this.end, 101);
+        assertFalse("Timed out profile marked complete ", profile.isComplete());
+
+        timeOut.set(false);
+        profile = profiler.computeProfile(this.start, this.end, 101);
+        assertTrue("Profile not complete ", profile.isComplete());
+        assertEquals("Timed out elevations reused ", 101, profiler.getNumElevationsRetrieved());
+
+        profiler.computeProfile(this.start, this.end, 101);
+        assertEquals("Complete elevations not reused ", 0, profiler.getNumElevationsRetrieved());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.data.ByteBufferRaster;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ViewshedTest
+{
+    private static final Sector SECTOR = Sector.fromDegrees(0, 0.1, 0, 0.1);
+    private static final int DEM_SIZE = 201;
+
+    /** Tests that every cell of flat terrain is visible. */
+    @Test
+    public void testFlatTerrainVisible()
+    {
+        Viewshed viewshed = new Viewshed(createGlobe(0));
+        ByteBufferRaster raster = viewshed.computeViewshed(Position.fromDegrees(0.05, 0.05, 10), SECTOR, 101, 101);
+
+        ByteBuffer buffer = raster.getByteBuffer();
+        for (int i = 0; i < 101 * 101; i++)
+        {
+            assertEquals("Cell hidden on flat terrain: " + i, 1, buffer.get(i));
+        }
+    }
+
+    /** Tests that a ridge hides the terrain behind it but not the terrain in front of it. */
+    @Test
+    public void testRidgeHidesTerrainBehindIt()
+    {
+        Viewshed viewshed = new Viewshed(createGlobe(500));
+        ByteBufferRaster raster = viewshed.computeViewshed(Position.fromDegrees(0.05, 0.01, 10), SECTOR, 101, 101);
+        assertEquals("Raster sector incorrect ", SECTOR, raster.getSector());
+
+        ByteBuffer buffer = raster.getByteBuffer();
+        for (int row = 30; row <= 70; row++)
+        {
+            assertEquals("Cell in front of ridge hidden ", 1, buffer.get(row * 101 + 20));
+            assertEquals("Ridge crest hidden ", 1, buffer.get(row * 101 + 50));
+            assertEquals("Cell behind ridge visible ", 0, buffer.get(row * 101 + 60));
+        }
+
+        // A tall enough target behind the ridge is visible.
+        viewshed.setTargetHeight(2000);
+        raster = viewshed.computeViewshed(Position.fromDegrees(0.05, 0.01, 10), SECTOR, 101, 101);
+        assertEquals("Tall target behind ridge hidden ", 1, raster.getByteBuffer().get(50 * 101 + 90));
+    }
+
+    private static Globe createGlobe(double ridgeHeight)
+    {
+        // A north-south ridge through the middle of the sector.
+        ByteBuffer buffer = ByteBuffer.allocate(DEM_SIZE * DEM_SIZE * 4);
+        FloatBuffer floats = buffer.asFloatBuffer();
+        for (int j = 0; j < DEM_SIZE; j++)
+        {
+            for (int i = 0; i < DEM_SIZE; i++)
+            {
+                double x = (i - DEM_SIZE / 2) / 5d;
+                floats.put((float) (ridgeHeight * Math.exp(-x * x)));
+            }
+        }
+
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.DATA_TYPE, AVKey.FLOAT32);
+        params.setValue(AVKey.BYTE_ORDER, AVKey.BIG_ENDIAN);
+        LocalElevationModel elevationModel = new LocalElevationModel();
+        elevationModel.addElevations(buffer, SECTOR, DEM_SIZE, DEM_SIZE, params);
+
+        return new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            elevationModel);
+    }
+}
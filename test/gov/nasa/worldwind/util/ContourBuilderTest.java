@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ContourBuilderTest
+{
+    private static final int WIDTH = 60;
+    private static final int HEIGHT = 40;
+
+    private double[] values;
+    private double[] thresholds;
+
+    @Before
+    public void setUp()
+    {
+        // A smooth field with several peaks and valleys, plus noise to create saddle cells.
+        Random random = new Random(1);
+        this.values = new double[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++)
+        {
+            for (int x = 0; x < WIDTH; x++)
+            {
+                this.values[x + y * WIDTH] = Math.sin(x / 5.0) * Math.cos(y / 4.0) + 0.3 * random.nextDouble();
+            }
+        }
+
+        this.thresholds = new double[20];
+        for (int i = 0; i < this.thresholds.length; i++)
+        {
+            this.thresholds[i] = -1.2 + 2.6 * i / (this.thresholds.length - 1);
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.values = null;
+        this.thresholds = null;
+    }
+
+    /** Tests that the contour buffers contain the same polylines as the contour lines, in the same order. */
+    @Test
+    public void testBuffersMatchContourLines()
+    {
+        ContourBuilder builder = new ContourBuilder(WIDTH, HEIGHT, this.values);
+        VecBufferSequence[] buffers = builder.buildContourBuffers(this.thresholds);
+
+        assertEquals("Result count incorrect ", this.thresholds.length, buffers.length);
+        for (int i = 0; i < this.thresholds.length; i++)
+        {
+            List<List<double[]>> expected = builder.buildContourLines(this.thresholds[i]);
+            assertEquals("Coords per vec incorrect ", 2, buffers[i].getCoordsPerVec());
+            assertEquals("Line count incorrect ", expected.size(), buffers[i].size());
+
+            for (int j = 0; j < expected.size(); j++)
+            {
+                VecBuffer line = buffers[i].subBuffer(j);
+                assertEquals("Line length incorrect ", expected.get(j).size(), line.getSize());
+
+                double[] coords = new double[2];
+                for (int k = 0; k < line.getSize(); k++)
+                {
+                    line.get(k, coords);
+                    assertEquals("X incorrect ", expected.get(j).get(k)[0], coords[0], 0);
+                    assertEquals("Y incorrect ", expected.get(j).get(k)[1], coords[1], 0);
+                }
+            }
+        }
+    }
+
+    /** Tests that the geographic contour buffers contain the same positions as the geographic contour lines. */
+    @Test
+    public void testGeographicBuffersMatchContourLines()
+    {
+        Sector sector = Sector.fromDegrees(30, 34, -110, -104);
+        ContourBuilder builder = new ContourBuilder(WIDTH, HEIGHT, this.values);
+        VecBufferSequence[] buffers = builder.buildContourBuffers(this.thresholds, sector, 100);
+
+        for (int i = 0; i < this.thresholds.length; i++)
+        {
+            List<Position> expected = new ArrayList<Position>();
+            for (List<Position> line : builder.buildContourLines(this.thresholds[i], sector, 100))
+            {
+                expected.addAll(line);
+            }
+
+            List<Position> actual = new ArrayList<Position>();
+            for (Position position : buffers[i].getPositions())
+            {
+                actual.add(position);
+            }
+
+            assertEquals("Coords per vec incorrect ", 3, buffers[i].getCoordsPerVec());
+            assertEquals("Positions incorrect ", expected, actual);
+        }
+    }
+
+    /** Tests that contouring the threshold values on several threads gives the same result as on one thread. */
+    @Test
+    public void testParallelThresholds()
+    {
+        VecBufferSequence[] expected = new ContourBuilder(WIDTH, HEIGHT, this.values).buildContourBuffers(
+            this.thresholds);
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            ContourBuilder builder = new ContourBuilder(WIDTH, HEIGHT, this.values)
+            {
+                @Override
+                protected void computeContourBuffers(ContourBufferTask task)
+                {
+                    pool.invoke(task);
+                }
+            };
+
+            VecBufferSequence[] actual = builder.buildContourBuffers(this.thresholds);
+            for (int i = 0; i < this.thresholds.length; i++)
+            {
+                assertEquals("Line count incorrect ", expected[i].size(), actual[i].size());
+                assertEquals("Coordinates incorrect ", toList(expected[i]), toList(actual[i]));
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /** Tests that thresholds outside the range of the field values and degenerate arrays have no contour lines. */
+    @Test
+    public void testNoContours()
+    {
+        VecBufferSequence[] buffers = new ContourBuilder(WIDTH, HEIGHT, this.values).buildContourBuffers(
+            new double[] {-10, 10});
+        assertEquals("Unexpected contour lines ", 0, buffers[0].size());
+        assertEquals("Unexpected contour lines ", 0, buffers[1].size());
+
+        buffers = new ContourBuilder(3, 1, new double[] {0, 1, 2}).buildContourBuffers(new double[] {0.5});
+        assertEquals("Unexpected contour lines ", 0, buffers[0].size());
+    }
+
+    private static List<Double> toList(VecBufferSequence sequence)
+    {
+        List<Double> list = new ArrayList<Double>();
+        for (double[] coords : sequence.getCoords())
+        {
+            for (double c : coords)
+            {
+                list.add(c);
+            }
+        }
+
+        return list;
+    }
+}
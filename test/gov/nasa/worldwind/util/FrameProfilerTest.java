@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.cache.*;
+import gov.nasa.worldwind.layers.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class FrameProfilerTest
+{
+    /** Tests that frames record phase and layer statistics and that the oldest frames are discarded. */
+    @Test
+    public void testRecordFrames()
+    {
+        FrameProfiler profiler = new FrameProfiler(3);
+        Layer layerA = new RenderableLayer();
+        layerA.setName("A");
+        Layer layerB = new RenderableLayer();
+        layerB.setName("B");
+
+        for (int i = 0; i < 5; i++)
+        {
+            profiler.beginFrame(1000 + i);
+            profiler.addPhaseTime(FrameProfiler.Phase.PRE_RENDER, 100);
+            profiler.addPhaseTime(FrameProfiler.Phase.PRE_RENDER, 50);
+            profiler.addLayerTime(layerA, FrameProfiler.Phase.PRE_RENDER, 10, 2);
+            profiler.addLayerTime(layerB, FrameProfiler.Phase.LAYER_RENDER, 1000 * i, 5);
+            profiler.addLayerTime(layerA, FrameProfiler.Phase.LAYER_RENDER, 20, 3);
+            profiler.addLayerTime(layerA, FrameProfiler.Phase.PICK, 30, 0);
+            profiler.endFrame(null, null);
+        }
+
+        List<FrameProfiler.Frame> frames = profiler.getFrames();
+        assertEquals("Frame count incorrect ", 3, frames.size());
+        assertEquals("Oldest frame incorrect ", 2, frames.get(0).getFrameNumber());
+        assertSame("Last frame incorrect ", frames.get(2), profiler.getLastFrame());
+
+        FrameProfiler.Frame frame = profiler.getLastFrame();
+        assertEquals("Time stamp incorrect ", 1004, frame.getTimeStamp());
+        assertEquals("Phase time incorrect ", 150, frame.getPhaseTime(FrameProfiler.Phase.PRE_RENDER));
+        assertEquals("Unused phase time incorrect ", 0, frame.getPhaseTime(FrameProfiler.Phase.PICK));
+        assertEquals("Layer count incorrect ", 2, frame.getLayers().size());
+
+        FrameProfiler.LayerStatistics a = frame.getLayers().get(0);
+        assertEquals("Layer order incorrect ", "A", a.getName());
+        assertEquals("Layer pre-render time incorrect ", 10, a.getPreRenderTime());
+        assertEquals("Layer render time incorrect ", 20, a.getRenderTime());
+        assertEquals("Layer pick time incorrect ", 30, a.getPickTime());
+        assertEquals("Layer object count incorrect ", 5, a.getObjectCount());
+        assertEquals("Slowest layer incorrect ", "B", frame.getSlowestLayer().getName());
+
+        profiler.clear();
+        assertTrue("Frames not cleared ", profiler.getFrames().isEmpty());
+        assertNull("Last frame not cleared ", profiler.getLastFrame());
+    }
+
+    /** Tests that cache hit ratios and GPU upload sizes are computed per frame, and that frames are written as JSON. */
+    @Test
+    public void testCacheStatisticsAndJSON() throws Exception
+    {
+        FrameProfiler profiler = new FrameProfiler(10);
+        BasicGpuResourceCache gpuCache = new BasicGpuResourceCache(1000, 2000);
+        MemoryCacheSet cacheSet = new BasicMemoryCacheSet();
+        BasicMemoryCache memoryCache = new BasicMemoryCache(1000, 2000);
+        memoryCache.setName("Test \"Cache\"");
+        cacheSet.addCache("test", memoryCache);
+
+        profiler.beginFrame(0);
+        profiler.endFrame(gpuCache, cacheSet); // establishes the initial counts
+
+        profiler.beginFrame(1);
+        gpuCache.put("a", new Object(), GpuResourceCache.VBO_BUFFERS, 100);
+        gpuCache.put("b", new Object(), GpuResourceCache.VBO_BUFFERS, 50);
+        gpuCache.get("a");
+        gpuCache.get("missing");
+        memoryCache.add("x", new Object(), 10);
+        memoryCache.getObject("x");
+        memoryCache.getObject("x");
+        memoryCache.getObject("x");
+        memoryCache.getObject("y");
+        profiler.addLayerTime(new RenderableLayer(), FrameProfiler.Phase.LAYER_RENDER, 2000000, 1);
+        profiler.endFrame(gpuCache, cacheSet);
+
+        FrameProfiler.Frame frame = profiler.getLastFrame();
+        assertEquals("Texture bytes incorrect ", 150, frame.getTextureBytes());
+        assertEquals("GPU cache hit ratio incorrect ", 0.5,
+            frame.getCacheHitRatios().get(FrameProfiler.GPU_RESOURCE_CACHE_NAME), 0);
+        assertEquals("Memory cache hit ratio incorrect ", 0.75, frame.getCacheHitRatios().get("Test \"Cache\""), 0);
+
+        StringBuilder sb = new StringBuilder();
+        profiler.writeJSON(sb);
+        String json = sb.toString();
+        assertTrue("JSON is not an array ", json.startsWith("[{\"frame\":0,") && json.trim().endsWith("}]"));
+        assertTrue("JSON phase missing ", json.contains("\"layerRender\":0.000"));
+        assertTrue("JSON texture bytes missing ", json.contains("\"textureBytes\":150"));
+        assertTrue("JSON cache name not escaped ", json.contains("\"Test \\\"Cache\\\"\":0.7500"));
+        assertTrue("JSON layer missing ", json.contains("\"render\":2.000,\"pick\":0.000,\"objects\":1}"));
+    }
+}
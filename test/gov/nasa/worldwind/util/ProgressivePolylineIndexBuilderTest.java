@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.LatLon;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.beans.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ProgressivePolylineIndexBuilderTest
+{
+    /** Tests that an index is built in the background, published with a repaint, and discarded with its locations. */
+    @Test
+    public void testIndexPublished() throws Exception
+    {
+        final CountDownLatch repainted = new CountDownLatch(1);
+        AVList owner = new AVListImpl();
+        owner.addPropertyChangeListener(AVKey.REPAINT, new PropertyChangeListener()
+        {
+            public void propertyChange(PropertyChangeEvent event)
+            {
+                repainted.countDown();
+            }
+        });
+
+        ProgressivePolylineIndexBuilder<LatLon> builder = new ProgressivePolylineIndexBuilder<LatLon>(owner);
+        List<LatLon> locations = createLocations(1000);
+        assertNull("Index available before it's built ", builder.requestIndex(locations));
+        assertTrue("Owner not repainted ", repainted.await(10, TimeUnit.SECONDS));
+
+        ProgressivePolylineIndex<LatLon> index = builder.requestIndex(locations);
+        assertNotNull("Index not published ", index);
+        assertEquals("Index has wrong locations ", locations.size(), index.getLocationCount());
+        assertSame("Index not reused ", index, builder.requestIndex(locations));
+
+        assertNull("Index of other locations returned ", builder.requestIndex(createLocations(1000)));
+    }
+
+    /** Tests that an index built from locations that are no longer requested isn't published. */
+    @Test
+    public void testSupersededIndexNotPublished()
+    {
+        ProgressivePolylineIndexBuilder<LatLon> builder = new ProgressivePolylineIndexBuilder<LatLon>(new AVListImpl());
+        List<LatLon> oldLocations = createLocations(10);
+        List<LatLon> newLocations = createLocations(10);
+        builder.requestIndex(oldLocations);
+        builder.requestIndex(newLocations);
+
+        builder.onIndexBuilt(oldLocations, new ProgressivePolylineIndex<LatLon>(oldLocations));
+        assertNull("Superseded index published ", builder.index);
+
+        builder.clear();
+        builder.onIndexBuilt(newLocations, new ProgressivePolylineIndex<LatLon>(newLocations));
+        assertNull("Index published after clear ", builder.index);
+    }
+
+    private static List<LatLon> createLocations(int count)
+    {
+        List<LatLon> locations = new ArrayList<LatLon>();
+        for (int i = 0; i < count; i++)
+        {
+            locations.add(LatLon.fromDegrees(Math.sin(i * 0.1), i * 0.01));
+        }
+
+        return locations;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.IntBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ProgressivePolylineIndexTest
+{
+    /** Tests that the effective areas match those of eliminating the least area vertex one at a time. */
+    @Test
+    public void testEffectiveAreaMatchesElimination()
+    {
+        List<LatLon> locations = createRandomWalk(300, 1);
+        ProgressivePolylineIndex<LatLon> index = new ProgressivePolylineIndex<LatLon>(locations);
+
+        double[] expected = computeEffectiveArea(locations);
+        for (int i = 0; i < locations.size(); i++)
+        {
+            assertEquals("Effective area incorrect at " + i, expected[i], index.getEffectiveArea(i), 0);
+        }
+    }
+
+    /** Tests that the selected locations are the end points and the locations with at least the minimum area. */
+    @Test
+    public void testSelectByArea()
+    {
+        List<LatLon> locations = createRandomWalk(10000, 2);
+        ProgressivePolylineIndex<LatLon> index = new ProgressivePolylineIndex<LatLon>(locations);
+
+        IntBuffer buffer = null;
+        for (double minArea : new double[] {0, 1e-6, 1e-4, 1e-2, 1, 1e6})
+        {
+            List<Integer> expected = new ArrayList<Integer>();
+            for (int i = 0; i < locations.size(); i++)
+            {
+                if (i == 0 || i == locations.size() - 1 || index.getEffectiveArea(i) >= minArea)
+                    expected.add(i);
+            }
+
+            buffer = index.selectLocations(minArea, null, buffer);
+            assertEquals("Selection incorrect at " + minArea, expected, toList(buffer));
+        }
+
+        List<LatLon> selected = index.getLocations(index.selectLocations(1e6, null, buffer));
+        assertEquals("Locations incorrect ", Arrays.asList(locations.get(0), locations.get(locations.size() - 1)),
+            selected);
+    }
+
+    /**
+     * Tests that a selection limited to a region contains every qualifying location in the region, and that segments
+     * joining the selected locations don't skip qualifying locations unless they lie outside the region.
+     */
+    @Test
+    public void testSelectByRegion()
+    {
+        List<LatLon> locations = createRandomWalk(20000, 3);
+        ProgressivePolylineIndex<LatLon> index = new ProgressivePolylineIndex<LatLon>(locations);
+        LatLon center = locations.get(5000);
+        Sector region = Sector.fromDegrees(center.latitude.degrees - 0.1, center.latitude.degrees + 0.1,
+            center.longitude.degrees - 0.1, center.longitude.degrees + 0.1);
+        double minArea = 1e-5;
+
+        List<Integer> selected = toList(index.selectLocations(minArea, region, null));
+        int numSelectedEverywhere = index.selectLocations(minArea, null, null).limit();
+        assertTrue("Region not culled ", selected.size() < numSelectedEverywhere / 2);
+
+        for (int i = 0; i < locations.size(); i++)
+        {
+            if (region.contains(locations.get(i)) && index.getEffectiveArea(i) >= minArea)
+                assertTrue("Location missing " + i, selected.contains(i));
+        }
+
+        for (int k = 1; k < selected.size(); k++)
+        {
+            int a = selected.get(k - 1);
+            int b = selected.get(k);
+            assertTrue("Selection not increasing ", a < b);
+
+            boolean skipsQualifying = false;
+            for (int i = a + 1; i < b; i++)
+            {
+                skipsQualifying |= index.getEffectiveArea(i) >= minArea;
+            }
+
+            if (skipsQualifying)
+            {
+                Sector bounds = Sector.boundingSector(locations.subList(a, b + 1));
+                assertFalse("Skipped run crosses the region ", bounds.intersects(region));
+            }
+        }
+    }
+
+    /** Tests polylines with too few locations to have interior locations. */
+    @Test
+    public void testShortPolylines()
+    {
+        assertEquals("Selection incorrect ", Collections.<Integer>emptyList(), toList(
+            new ProgressivePolylineIndex<LatLon>(new ArrayList<LatLon>()).selectLocations(0, null, null)));
+        assertEquals("Selection incorrect ", Arrays.asList(0), toList(
+            new ProgressivePolylineIndex<LatLon>(createRandomWalk(1, 4)).selectLocations(0, null, null)));
+        assertEquals("Selection incorrect ", Arrays.asList(0, 1), toList(
+            new ProgressivePolylineIndex<LatLon>(createRandomWalk(2, 4)).selectLocations(1e6, null, null)));
+
+        // An iterable that isn't a random access list is copied.
+        LinkedList<LatLon> linkedList = new LinkedList<LatLon>(createRandomWalk(33, 5));
+        ProgressivePolylineIndex<LatLon> index = new ProgressivePolylineIndex<LatLon>(linkedList);
+        assertEquals("Location count incorrect ", 33, index.getLocationCount());
+        assertEquals("Location incorrect ", linkedList.getLast(), index.getLocation(32));
+    }
+
+    private static List<LatLon> createRandomWalk(int count, long seed)
+    {
+        Random random = new Random(seed);
+        List<LatLon> locations = new ArrayList<LatLon>(count);
+        double lat = 0;
+        double lon = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            locations.add(LatLon.fromDegrees(lat, lon));
+            lat = WWMath.clamp(lat + 0.01 * random.nextGaussian(), -80, 80);
+            lon = WWMath.clamp(lon + 0.01 * random.nextGaussian(), -170, 170);
+        }
+
+        return locations;
+    }
+
+    private static double[] computeEffectiveArea(List<LatLon> locations)
+    {
+        int n = locations.size();
+        double[] result = new double[n];
+        List<Integer> remaining = new ArrayList<Integer>();
+        for (int i = 0; i < n; i++)
+        {
+            remaining.add(i);
+        }
+
+        result[0] = Double.MAX_VALUE;
+        result[n - 1] = Double.MAX_VALUE;
+        double lastArea = 0;
+
+        while (remaining.size() > 2)
+        {
+            int minIndex = 1;
+            double minArea = Double.MAX_VALUE;
+            for (int k = 1; k < remaining.size() - 1; k++)
+            {
+                LatLon p = locations.get(remaining.get(k - 1));
+                LatLon c = locations.get(remaining.get(k));
+                LatLon q = locations.get(remaining.get(k + 1));
+                double area = 0.5 * Math.abs(
+                    (p.longitude.degrees - c.longitude.degrees) * (q.latitude.degrees - c.latitude.degrees)
+                        - (p.latitude.degrees - c.latitude.degrees) * (q.longitude.degrees - c.longitude.degrees));
+                if (area < minArea)
+                {
+                    minArea = area;
+                    minIndex = k;
+                }
+            }
+
+            lastArea = Math.max(lastArea, minArea);
+            result[remaining.remove(minIndex)] = lastArea;
+        }
+
+        return result;
+    }
+
+    private static List<Integer> toList(IntBuffer buffer)
+    {
+        List<Integer> list = new ArrayList<Integer>();
+        while (buffer.hasRemaining())
+        {
+            list.add(buffer.get());
+        }
+
+        buffer.rewind();
+        return list;
+    }
+}
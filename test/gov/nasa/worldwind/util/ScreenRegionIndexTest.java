@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ScreenRegionIndexTest
+{
+    /** Tests that the index finds the same first intersecting region as a linear search, for regions of all sizes. */
+    @Test
+    public void testMatchesLinearSearch()
+    {
+        ScreenRegionIndex index = new ScreenRegionIndex(32);
+        Random random = new Random(7);
+
+        for (int pass = 0; pass < 2; pass++) // the second pass checks that the index is reusable after clear
+        {
+            List<Rectangle2D> regions = new ArrayList<Rectangle2D>();
+            for (int n = 0; n < 2000; n++)
+            {
+                Rectangle2D rect = randomRectangle(random);
+
+                Rectangle2D expected = null;
+                for (Rectangle2D region : regions)
+                {
+                    if (rect.intersects(region))
+                    {
+                        expected = region;
+                        break;
+                    }
+                }
+
+                assertSame("First intersecting region incorrect ", expected, index.findIntersecting(rect));
+                assertEquals("Intersection incorrect ", expected != null, index.intersects(rect));
+
+                // Add only the regions that don't intersect others, as a clutter filter does, plus a few that do.
+                if (expected == null || n % 10 == 0)
+                {
+                    index.add(rect);
+                    regions.add(rect);
+                }
+            }
+
+            assertEquals("Region count incorrect ", regions.size(), index.size());
+            index.clear();
+            assertEquals("Index not cleared ", 0, index.size());
+            assertFalse("Cleared index has regions ", index.intersects(new Rectangle2D.Double(-1e4, -1e4, 2e4, 2e4)));
+        }
+    }
+
+    /** Tests regions that are empty, very large or not finite. */
+    @Test
+    public void testDegenerateRegions()
+    {
+        ScreenRegionIndex index = new ScreenRegionIndex();
+        index.add(new Rectangle2D.Double(10, 10, 0, 5));
+        assertFalse("Empty region intersected ", index.intersects(new Rectangle2D.Double(0, 0, 100, 100)));
+
+        Rectangle2D infinite = new Rectangle2D.Double(0, 0, Double.POSITIVE_INFINITY, 10);
+        index.add(infinite);
+        assertSame("Infinite region not found ", infinite, index.findIntersecting(new Rectangle2D.Double(1e9, 5, 1, 1)));
+        assertNull("Region found outside infinite region ", index.findIntersecting(new Rectangle2D.Double(5, 20, 1, 1)));
+        assertFalse("NaN query intersected ", index.intersects(new Rectangle2D.Double(Double.NaN, 0, 1, 1)));
+    }
+
+    private static Rectangle2D randomRectangle(Random random)
+    {
+        double x = random.nextDouble() * 2000 - 200;
+        double y = random.nextDouble() * 1200 - 200;
+        // Mostly label-sized rectangles, with occasional very large ones.
+        double scale = random.nextInt(50) == 0 ? 2000 : 60;
+        return new Rectangle2D.Double(x, y, random.nextDouble() * scale, random.nextDouble() * scale / 3);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class SupersedingTaskSchedulerTest
+{
+    private SupersedingTaskScheduler scheduler;
+    private CountDownLatch blockerStarted;
+    private CountDownLatch blockerRelease;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.scheduler = new SupersedingTaskScheduler(1, Executors.defaultThreadFactory());
+
+        // Occupy the only thread so that subsequent tasks remain queued until the blocker is released.
+        this.blockerStarted = new CountDownLatch(1);
+        this.blockerRelease = new CountDownLatch(1);
+        this.scheduler.schedule(new SupersedingTaskScheduler.Task(new Runnable()
+        {
+            public void run()
+            {
+                blockerStarted.countDown();
+                try
+                {
+                    blockerRelease.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }), 0, 0);
+        assertTrue("Blocking task did not start ", this.blockerStarted.await(5, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.blockerRelease.countDown();
+        this.scheduler.shutdown(true);
+    }
+
+    /** Tests that tasks run in priority order, and that a rescheduled task runs once, at its new priority. */
+    @Test
+    public void testRescheduledTaskRunsOnceInNewOrder() throws Exception
+    {
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch done = new CountDownLatch(3);
+        Map<String, SupersedingTaskScheduler.Task> tasks = new HashMap<String, SupersedingTaskScheduler.Task>();
+        for (final String name : new String[] {"c", "a", "b"})
+        {
+            SupersedingTaskScheduler.Task task = new SupersedingTaskScheduler.Task(new Runnable()
+            {
+                public void run()
+                {
+                    order.add(name);
+                    done.countDown();
+                }
+            });
+            tasks.put(name, task);
+            assertTrue("Task not scheduled ", this.scheduler.schedule(task, name.charAt(0), 0));
+        }
+
+        assertFalse("Task scheduled twice ", this.scheduler.schedule(tasks.get("a"), 0, 0));
+
+        SupersedingTaskScheduler.Task c = tasks.get("c");
+        SupersedingTaskScheduler.Ticket ticket = c.getTicket();
+        assertTrue("Task not rescheduled ", this.scheduler.reschedule(c, ticket, 1, 0));
+        assertFalse("Task rescheduled from a superseded ticket ", this.scheduler.reschedule(c, ticket, 2, 0));
+        assertTrue("Ticket not superseded ", ticket.isSuperseded());
+
+        this.blockerRelease.countDown();
+        assertTrue("Tasks did not run ", done.await(5, TimeUnit.SECONDS));
+
+        assertEquals("Tasks not run in priority order ", Arrays.asList("c", "a", "b"), order);
+        assertTrue("Task not marked started ", c.isStarted());
+        assertNull("Started task has a ticket ", c.getTicket());
+    }
+
+    /** Tests that a cancelled task doesn't run and can't be rescheduled, and that a started task can't be cancelled. */
+    @Test
+    public void testCancel() throws Exception
+    {
+        final CountDownLatch ran = new CountDownLatch(2);
+        SupersedingTaskScheduler.Task cancelled = new SupersedingTaskScheduler.Task(new Runnable()
+        {
+            public void run()
+            {
+                ran.countDown();
+                ran.countDown();
+            }
+        });
+        SupersedingTaskScheduler.Task kept = new SupersedingTaskScheduler.Task(new Runnable()
+        {
+            public void run()
+            {
+                ran.countDown();
+            }
+        });
+        this.scheduler.schedule(cancelled, 1, 0);
+        this.scheduler.schedule(kept, 2, 0);
+
+        SupersedingTaskScheduler.Ticket ticket = cancelled.getTicket();
+        assertTrue("Task not cancelled ", this.scheduler.cancel(cancelled));
+        assertFalse("Task cancelled twice ", this.scheduler.cancel(cancelled));
+        assertFalse("Cancelled task rescheduled ", this.scheduler.reschedule(cancelled, ticket, 0, 0));
+        assertTrue("Task not marked cancelled ", cancelled.isCancelled());
+
+        this.blockerRelease.countDown();
+        for (int i = 0; i < 500 && this.scheduler.getQueueSize() > 0; i++)
+        {
+            Thread.sleep(10);
+        }
+
+        assertEquals("Cancelled task ran or kept task didn't ", 1, ran.getCount());
+        assertFalse("Started task cancelled ", this.scheduler.cancel(kept));
+        assertEquals("Superseded tickets not discarded ", 0, this.scheduler.getNumSupersededTickets());
+    }
+
+    /** Tests that repeatedly rescheduling queued tasks doesn't grow the queue without bound. */
+    @Test
+    public void testSupersededTicketsCompacted()
+    {
+        List<SupersedingTaskScheduler.Task> tasks = new ArrayList<SupersedingTaskScheduler.Task>();
+        for (int i = 0; i < 10; i++)
+        {
+            SupersedingTaskScheduler.Task task = new SupersedingTaskScheduler.Task(new Runnable()
+            {
+                public void run()
+                {
+                }
+            });
+            this.scheduler.schedule(task, i, 0);
+            tasks.add(task);
+        }
+
+        for (int i = 0; i < 10000; i++)
+        {
+            SupersedingTaskScheduler.Task task = tasks.get(i % tasks.size());
+            assertTrue("Task not rescheduled ", this.scheduler.reschedule(task, task.getTicket(), i, 0));
+        }
+
+        int queueSize = this.scheduler.getQueueSize();
+        assertTrue("Queue not compacted " + queueSize, queueSize <= 2 * SupersedingTaskScheduler.MIN_COMPACTION_SIZE);
+        assertEquals("Superseded count incorrect ", queueSize - tasks.size(),
+            this.scheduler.getNumSupersededTickets());
+    }
+}
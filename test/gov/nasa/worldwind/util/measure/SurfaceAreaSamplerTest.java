@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util.measure;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.terrain.ZeroElevationModel;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class SurfaceAreaSamplerTest
+{
+    private Globe globe;
+
+    @Before
+    public void setUp()
+    {
+        this.globe = new Earth();
+        this.globe.setElevationModel(new SlopeElevationModel(0));
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.globe = null;
+    }
+
+    /** Tests that the area of a square on flat terrain is close to its area on the ellipsoid. */
+    @Test
+    public void testFlatArea()
+    {
+        List<LatLon> square = createSquare(10, 20, 1);
+        double area = new SurfaceAreaSampler().computeSurfaceArea(this.globe, square, 32);
+
+        double radius = this.globe.getEquatorialRadius();
+        double expected = radius * radius * Math.toRadians(1)
+            * (Math.sin(Math.toRadians(11)) - Math.sin(Math.toRadians(10)));
+        assertEquals("Area incorrect ", expected, area, expected * 0.03);
+    }
+
+    /** Tests that terrain rising at 45 degrees to the north increases the area by a factor of the square root of 2. */
+    @Test
+    public void testSlopedArea()
+    {
+        List<LatLon> square = createSquare(-0.5, 20, 1);
+        double flatArea = new SurfaceAreaSampler().computeSurfaceArea(this.globe, square, 32);
+
+        this.globe.setElevationModel(new SlopeElevationModel(this.globe.getEquatorialRadius()));
+        double slopedArea = new SurfaceAreaSampler().computeSurfaceArea(this.globe, square, 32);
+
+        assertEquals("Slope factor incorrect ", Math.sqrt(2), slopedArea / flatArea, 0.01);
+    }
+
+    /** Tests that moving a vertex recomputes only the cells that weren't previously computed. */
+    @Test
+    public void testCellsReusedWhenVertexMoves()
+    {
+        this.globe.setElevationModel(new SlopeElevationModel(100000));
+        List<LatLon> locations = new ArrayList<LatLon>(Arrays.asList(LatLon.fromDegrees(30, 10),
+            LatLon.fromDegrees(30, 12), LatLon.fromDegrees(31, 12), LatLon.fromDegrees(31.5, 11),
+            LatLon.fromDegrees(31, 10), LatLon.fromDegrees(30, 10)));
+
+        SurfaceAreaSampler sampler = new SurfaceAreaSampler();
+        sampler.computeSurfaceArea(this.globe, locations, 64);
+        int initialCells = sampler.getNumCellsComputed();
+        assertTrue("No cells computed ", initialCells > 0);
+
+        // Repeating the computation computes nothing.
+        sampler.computeSurfaceArea(this.globe, locations, 64);
+        assertEquals("Cells recomputed ", 0, sampler.getNumCellsComputed());
+        assertEquals("Elevations retrieved again ", 0, sampler.getNumElevationsRetrieved());
+
+        // Dragging the northernmost vertex a little farther north computes only the newly covered cells.
+        locations.set(3, LatLon.fromDegrees(31.55, 11.05));
+        double area = sampler.computeSurfaceArea(this.globe, locations, 64);
+        assertTrue("Too many cells recomputed " + sampler.getNumCellsComputed(),
+            sampler.getNumCellsComputed() < initialCells / 10);
+
+        double expected = new SurfaceAreaSampler().computeSurfaceArea(this.globe, locations, 64);
+        assertEquals("Area incorrect ", expected, area, expected * 1e-12);
+    }
+
+    /** Tests that dividing a large grid into row bands computed on several threads gives the same area. */
+    @Test
+    public void testParallelRowBands()
+    {
+        this.globe.setElevationModel(new SlopeElevationModel(100000));
+        List<LatLon> square = createSquare(40, -100, 2);
+        double expected = new SurfaceAreaSampler().computeSurfaceArea(this.globe, square, 400);
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            SurfaceAreaSampler sampler = new SurfaceAreaSampler()
+            {
+                @Override
+                protected double computeRows(RowBandTask task)
+                {
+                    return pool.invoke(task);
+                }
+            };
+
+            double area = sampler.computeSurfaceArea(this.globe, square, 400);
+            assertTrue("Grid not divided ", sampler.numRows * sampler.numCols > 4 * SurfaceAreaSampler.CELLS_PER_TASK);
+            assertEquals("Area incorrect ", expected, area, expected * 1e-9);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    private static List<LatLon> createSquare(double minLat, double minLon, double size)
+    {
+        return Arrays.asList(LatLon.fromDegrees(minLat, minLon), LatLon.fromDegrees(minLat, minLon + size),
+            LatLon.fromDegrees(minLat + size, minLon + size), LatLon.fromDegrees(minLat + size, minLon),
+            LatLon.fromDegrees(minLat, minLon));
+    }
+
+    /** An elevation model whose elevation increases linearly with latitude. */
+    private static class SlopeElevationModel extends ZeroElevationModel
+    {
+        private final double metersPerRadian;
+
+        public SlopeElevationModel(double metersPerRadian)
+        {
+            this.metersPerRadian = metersPerRadian;
+        }
+
+        @Override
+        public double getElevation(Angle latitude, Angle longitude)
+        {
+            return this.metersPerRadian * latitude.radians;
+        }
+
+        @Override
+        public double getElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution,
+            double[] buffer)
+        {
+            for (int i = 0; i < latlons.size(); i++)
+            {
+                buffer[i] = this.metersPerRadian * latlons.get(i).getLatitude().radians;
+            }
+
+            return targetResolution;
+        }
+    }
+}